@@ -2,9 +2,13 @@ package com.chicu.aibot.bot;
 
 import com.chicu.aibot.bot.menu.core.MenuService;
 import com.chicu.aibot.bot.menu.core.MenuSessionService;
+import com.chicu.aibot.trading.cluster.ClusterCoordinator;
+import com.chicu.aibot.trading.cluster.PollerLeadershipChangedEvent;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 import org.telegram.telegrambots.bots.TelegramLongPollingBot;
 import org.telegram.telegrambots.meta.TelegramBotsApi;
@@ -15,6 +19,7 @@ import org.telegram.telegrambots.meta.api.objects.Update;
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+import org.telegram.telegrambots.meta.generics.BotSession;
 import org.telegram.telegrambots.updatesreceivers.DefaultBotSession;
 
 import java.util.ArrayList;
@@ -34,17 +39,52 @@ public class TelegramBot extends TelegramLongPollingBot {
     private final TelegramBotProperties props;
     private final MenuService menuService;
     private final MenuSessionService sessionService;
+    private final ClusterCoordinator cluster;
+
+    /** Long polling держит только узел-лидер, иначе Telegram отвечает 409 Conflict. */
+    private BotSession session;
 
     @PostConstruct
     public void init() {
+        if (!cluster.isPollerLeader()) {
+            log.info("TelegramBot @{}: поллинг ведёт другой узел, жду лидерства", props.getUsername());
+            return;
+        }
+        startPolling();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        stopPolling();
+    }
+
+    @EventListener
+    public void onLeadershipChanged(PollerLeadershipChangedEvent event) {
+        if (event.leader()) startPolling();
+        else stopPolling();
+    }
+
+    private synchronized void startPolling() {
+        if (session != null && session.isRunning()) return;
         try {
-            new TelegramBotsApi(DefaultBotSession.class).registerBot(this);
+            session = new TelegramBotsApi(DefaultBotSession.class).registerBot(this);
             log.info("TelegramBot @{} зарегистрирован", props.getUsername());
         } catch (TelegramApiException e) {
             log.error("Не удалось зарегистрировать бота", e);
         }
     }
 
+    private synchronized void stopPolling() {
+        if (session == null) return;
+        try {
+            if (session.isRunning()) session.stop();
+            log.info("TelegramBot @{}: поллинг остановлен", props.getUsername());
+        } catch (Exception e) {
+            log.warn("Ошибка остановки поллинга: {}", e.getMessage());
+        }
+        session = null;
+    }
+
     @Override public String getBotUsername() { return props.getUsername(); }
     @Override @Deprecated public String getBotToken() { return props.getToken(); }
 
@@ -42,6 +42,7 @@ public class AiSelectStrategyState implements MenuState {
                 case MA_CROSSOVER -> "ai_trading_ma_crossover_config";
                 case BOLLINGER_BANDS -> "ai_trading_bollinger_config";
                 case MACHINE_LEARNING_INVEST -> "ai_trading_ml_invest_config";
+                case CUSTOM_RULES -> "ai_trading_custom_rule_config";
 
             };
 
@@ -0,0 +1,161 @@
+package com.chicu.aibot.bot.menu.feature.ai.strategy;
+
+import com.chicu.aibot.bot.menu.core.MenuSessionService;
+import com.chicu.aibot.bot.menu.core.MenuState;
+import com.chicu.aibot.strategy.custom.model.CustomRuleStrategySettings;
+import com.chicu.aibot.strategy.custom.rule.RuleCompiler;
+import com.chicu.aibot.strategy.custom.rule.RuleSyntaxException;
+import com.chicu.aibot.strategy.custom.service.CustomRuleStrategySettingsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.objects.Update;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
+
+import java.util.List;
+
+/**
+ * Панель пользовательской стратегии. Правила вводятся обычным сообщением после нажатия
+ * «Изменить вход/выход»; перед сохранением текст компилируется, ошибка показывается на панели.
+ */
+@Component
+@RequiredArgsConstructor
+public class CustomRuleConfigState implements MenuState {
+    public static final String NAME = "ai_trading_custom_rule_config";
+    private static final String BTN_TOGGLE_ACTIVE = "custom_rule_toggle_active";
+    private static final String BTN_EDIT_ENTRY = "custom_rule_edit_entry";
+    private static final String BTN_EDIT_EXIT = "custom_rule_edit_exit";
+    private static final String BTN_TOGGLE_SIDE = "custom_rule_toggle_side";
+
+    private static final String FIELD_ENTRY = "customEntryRule";
+    private static final String FIELD_EXIT = "customExitRule";
+    private static final String ATTR_ERROR = "customRuleError";
+
+    private final CustomRuleStrategySettingsService settingsService;
+    private final MenuSessionService sessionService;
+    private final RuleCompiler compiler;
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public SendMessage render(Long chatId) {
+        CustomRuleStrategySettings s = settingsService.getOrCreate(chatId);
+        String field = sessionService.getEditingField(chatId);
+        String error = sessionService.getAttribute(chatId, ATTR_ERROR);
+
+        String prompt = "";
+        if (FIELD_ENTRY.equals(field)) prompt = "\n✏️ Отправьте сообщением новое правило *входа*.\n";
+        if (FIELD_EXIT.equals(field)) prompt = "\n✏️ Отправьте сообщением новое правило *выхода* (`-` — без правила, только TP/SL).\n";
+
+        String text = String.format("""
+                *Custom Rules Strategy*
+                
+                Вход и выход по собственным условиям.
+                Значения: `close open high low volume price`
+                Индикаторы: `sma(n) ema(n) rsi(n) atr(n) highest(n) lowest(n) bb_upper(n,k) bb_lower(n,k) bb_mid(n) stddev(n)`
+                Функции: `crosses_above(a,b) crosses_below(a,b) abs min max`, операторы `and or not < > + - * /`
+                
+                *Настройки:*
+                - Пара: `%s`, таймфрейм: `%s`
+                - Направление: %s
+                - Вход: `%s`
+                - Выход: `%s`
+                - Объём: %s, TP: %.2f%%, SL: %.2f%%
+                %s%s
+                Статус: %s
+                """,
+                s.getSymbol(), s.getTimeframe(),
+                s.getSide(),
+                s.getEntryRule(),
+                s.getExitRule() == null ? "— (только TP/SL)" : s.getExitRule(),
+                s.getOrderVolume(), s.getTakeProfitPct(), s.getStopLossPct(),
+                error == null ? "" : "\n❌ `" + error + "`\n",
+                prompt,
+                s.isActive() ? "🟢 Запущена" : "🔴 Остановлена");
+
+        InlineKeyboardButton toggle = button(s.isActive() ? "⏹ Остановить" : "▶️ Запустить", BTN_TOGGLE_ACTIVE);
+        InlineKeyboardButton entry = button("✏️ Изменить вход", BTN_EDIT_ENTRY);
+        InlineKeyboardButton exit = button("✏️ Изменить выход", BTN_EDIT_EXIT);
+        InlineKeyboardButton side = button("↔️ Направление: " + s.getSide(), BTN_TOGGLE_SIDE);
+        InlineKeyboardButton back = button("‹ Назад", "ai_select_strategy");
+
+        InlineKeyboardMarkup markup = InlineKeyboardMarkup.builder()
+            .keyboard(List.of(List.of(toggle), List.of(entry, exit), List.of(side), List.of(back)))
+            .build();
+
+        return SendMessage.builder()
+            .chatId(chatId.toString())
+            .text(text)
+            .parseMode("Markdown")
+            .replyMarkup(markup)
+            .build();
+    }
+
+    @Override
+    public String handleInput(Update update) {
+        if (update.hasMessage() && update.getMessage().hasText()) {
+            return handleText(update.getMessage().getChatId(), update.getMessage().getText().trim());
+        }
+        if (!update.hasCallbackQuery()) return NAME;
+        String data = update.getCallbackQuery().getData();
+        Long chatId = update.getCallbackQuery().getMessage().getChatId();
+        sessionService.removeAttribute(chatId, ATTR_ERROR);
+
+        if ("ai_select_strategy".equals(data)) {
+            sessionService.clearEditingField(chatId);
+            return AiSelectStrategyState.NAME;
+        }
+        if (BTN_EDIT_ENTRY.equals(data)) {
+            sessionService.setEditingField(chatId, FIELD_ENTRY);
+            return NAME;
+        }
+        if (BTN_EDIT_EXIT.equals(data)) {
+            sessionService.setEditingField(chatId, FIELD_EXIT);
+            return NAME;
+        }
+        sessionService.clearEditingField(chatId);
+
+        CustomRuleStrategySettings s = settingsService.getOrCreate(chatId);
+        if (BTN_TOGGLE_ACTIVE.equals(data)) {
+            s.setActive(!s.isActive());
+            // запуск/остановку выполнит сверка по событию после коммита
+            settingsService.save(s);
+        } else if (BTN_TOGGLE_SIDE.equals(data)) {
+            s.setSide("SHORT".equals(s.getSide()) ? "LONG" : "SHORT");
+            settingsService.save(s);
+        }
+        return NAME;
+    }
+
+    private String handleText(Long chatId, String text) {
+        String field = sessionService.getEditingField(chatId);
+        if (!FIELD_ENTRY.equals(field) && !FIELD_EXIT.equals(field)) return NAME;
+
+        boolean clearExit = FIELD_EXIT.equals(field) && "-".equals(text);
+        if (!clearExit) {
+            try {
+                compiler.compile(text);
+            } catch (RuleSyntaxException e) {
+                // поле не сбрасываем: пользователь может сразу прислать исправленный текст
+                sessionService.setAttribute(chatId, ATTR_ERROR, e.getMessage());
+                return NAME;
+            }
+        }
+
+        CustomRuleStrategySettings s = settingsService.getOrCreate(chatId);
+        if (FIELD_ENTRY.equals(field)) s.setEntryRule(text);
+        else s.setExitRule(clearExit ? null : text);
+        settingsService.save(s);
+        sessionService.clearEditingField(chatId);
+        sessionService.removeAttribute(chatId, ATTR_ERROR);
+        return NAME;
+    }
+
+    private static InlineKeyboardButton button(String text, String data) {
+        return InlineKeyboardButton.builder().text(text).callbackData(data).build();
+    }
+}
@@ -1,6 +1,9 @@
 package com.chicu.aibot.bot.menu.feature.ai.strategy;
 
 import com.chicu.aibot.bot.menu.core.MenuState;
+import com.chicu.aibot.strategy.ma_crossover.model.MaCrossoverStrategySettings;
+import com.chicu.aibot.strategy.ma_crossover.service.MaCrossoverStrategySettingsService;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
 import org.telegram.telegrambots.meta.api.objects.Update;
@@ -10,8 +13,12 @@ import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKe
 import java.util.List;
 
 @Component
+@RequiredArgsConstructor
 public class MaCrossoverConfigState implements MenuState {
     public static final String NAME = "ai_trading_ma_crossover_config";
+    private static final String BTN_TOGGLE_ACTIVE = "ma_cross_toggle_active";
+
+    private final MaCrossoverStrategySettingsService settingsService;
 
     @Override
     public String name() {
@@ -20,23 +27,37 @@ public class MaCrossoverConfigState implements MenuState {
 
     @Override
     public SendMessage render(Long chatId) {
-        String text = """
+        MaCrossoverStrategySettings s = settingsService.getOrCreate(chatId);
+        String text = String.format("""
                 *MA Crossover Strategy*
                 
                 Использует пересечение двух скользящих средних (быстрой и медленной) для сигналов.
                 
-                *Дефолтные настройки:*
-                - Быстрая MA период: 20
-                - Медленная MA период: 50
-                """;
+                *Настройки:*
+                - Пара: `%s`, таймфрейм: `%s`
+                - %s: быстрая %d, медленная %d
+                - Объём: %s, TP: %.2f%%, SL: %.2f%%
+                - Long: %s, Short: %s
+                
+                Статус: %s
+                """,
+                s.getSymbol(), s.getTimeframe(),
+                s.getMaType(), s.getFastPeriod(), s.getSlowPeriod(),
+                s.getOrderVolume(), s.getTakeProfitPct(), s.getStopLossPct(),
+                onOff(s.getAllowLong()), onOff(s.getAllowShort()),
+                s.isActive() ? "🟢 Запущена" : "🔴 Остановлена");
 
+        InlineKeyboardButton toggle = InlineKeyboardButton.builder()
+            .text(s.isActive() ? "⏹ Остановить" : "▶️ Запустить")
+            .callbackData(BTN_TOGGLE_ACTIVE)
+            .build();
         InlineKeyboardButton back = InlineKeyboardButton.builder()
             .text("‹ Назад")
             .callbackData("ai_select_strategy")
             .build();
 
         InlineKeyboardMarkup markup = InlineKeyboardMarkup.builder()
-            .keyboard(List.of(List.of(back)))
+            .keyboard(List.of(List.of(toggle), List.of(back)))
             .build();
 
         return SendMessage.builder()
@@ -49,10 +70,22 @@ public class MaCrossoverConfigState implements MenuState {
 
     @Override
     public String handleInput(Update update) {
-        if (update.hasCallbackQuery()
-            && "ai_select_strategy".equals(update.getCallbackQuery().getData())) {
+        if (!update.hasCallbackQuery()) return NAME;
+        String data = update.getCallbackQuery().getData();
+        if ("ai_select_strategy".equals(data)) {
             return AiSelectStrategyState.NAME;
         }
+        if (BTN_TOGGLE_ACTIVE.equals(data)) {
+            Long chatId = update.getCallbackQuery().getMessage().getChatId();
+            MaCrossoverStrategySettings s = settingsService.getOrCreate(chatId);
+            s.setActive(!s.isActive());
+            // запуск/остановку выполнит сверка по событию после коммита
+            settingsService.save(s);
+        }
         return NAME;
     }
+
+    private static String onOff(Boolean v) {
+        return Boolean.TRUE.equals(v) ? "вкл" : "выкл";
+    }
 }
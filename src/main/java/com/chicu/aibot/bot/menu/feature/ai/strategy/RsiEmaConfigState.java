@@ -1,6 +1,9 @@
 package com.chicu.aibot.bot.menu.feature.ai.strategy;
 
 import com.chicu.aibot.bot.menu.core.MenuState;
+import com.chicu.aibot.strategy.rsi_ema.model.RsiEmaStrategySettings;
+import com.chicu.aibot.strategy.rsi_ema.service.RsiEmaStrategySettingsService;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
 import org.telegram.telegrambots.meta.api.objects.Update;
@@ -10,8 +13,12 @@ import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKe
 import java.util.List;
 
 @Component
+@RequiredArgsConstructor
 public class RsiEmaConfigState implements MenuState {
     public static final String NAME = "ai_trading_rsi_ema_config";
+    private static final String BTN_TOGGLE_ACTIVE = "rsi_ema_toggle_active";
+
+    private final RsiEmaStrategySettingsService settingsService;
 
     @Override
     public String name() {
@@ -20,25 +27,39 @@ public class RsiEmaConfigState implements MenuState {
 
     @Override
     public SendMessage render(Long chatId) {
-        String text = """
+        RsiEmaStrategySettings s = settingsService.getOrCreate(chatId);
+        String text = String.format("""
                 *RSI + EMA Strategy*
                 
                 Комбинирует RSI для поиска перекупленности/перепроданности и EMA для подтверждения тренда.
                 
-                *Дефолтные настройки:*
-                - Период RSI: 14
-                - Верхний порог RSI: 70
-                - Нижний порог RSI: 30
-                - Период EMA: 50
-                """;
+                *Настройки:*
+                - Пара: `%s`, таймфрейм: `%s`
+                - Период RSI: %d (пороги %.0f / %.0f)
+                - Период EMA: %d
+                - Объём: %s, TP: %.2f%%, SL: %.2f%%
+                - Long: %s, Short: %s
+                
+                Статус: %s
+                """,
+                s.getSymbol(), s.getTimeframe(),
+                s.getRsiPeriod(), s.getRsiOversold(), s.getRsiOverbought(),
+                s.getEmaPeriod(),
+                s.getOrderVolume(), s.getTakeProfitPct(), s.getStopLossPct(),
+                onOff(s.getAllowLong()), onOff(s.getAllowShort()),
+                s.isActive() ? "🟢 Запущена" : "🔴 Остановлена");
 
+        InlineKeyboardButton toggle = InlineKeyboardButton.builder()
+            .text(s.isActive() ? "⏹ Остановить" : "▶️ Запустить")
+            .callbackData(BTN_TOGGLE_ACTIVE)
+            .build();
         InlineKeyboardButton back = InlineKeyboardButton.builder()
             .text("‹ Назад")
             .callbackData("ai_select_strategy")
             .build();
 
         InlineKeyboardMarkup markup = InlineKeyboardMarkup.builder()
-            .keyboard(List.of(List.of(back)))
+            .keyboard(List.of(List.of(toggle), List.of(back)))
             .build();
 
         return SendMessage.builder()
@@ -51,10 +72,22 @@ public class RsiEmaConfigState implements MenuState {
 
     @Override
     public String handleInput(Update update) {
-        if (update.hasCallbackQuery()
-            && "ai_select_strategy".equals(update.getCallbackQuery().getData())) {
+        if (!update.hasCallbackQuery()) return NAME;
+        String data = update.getCallbackQuery().getData();
+        if ("ai_select_strategy".equals(data)) {
             return AiSelectStrategyState.NAME;
         }
+        if (BTN_TOGGLE_ACTIVE.equals(data)) {
+            Long chatId = update.getCallbackQuery().getMessage().getChatId();
+            RsiEmaStrategySettings s = settingsService.getOrCreate(chatId);
+            s.setActive(!s.isActive());
+            // запуск/остановку выполнит сверка по событию после коммита
+            settingsService.save(s);
+        }
         return NAME;
     }
+
+    private static String onOff(Boolean v) {
+        return Boolean.TRUE.equals(v) ? "вкл" : "выкл";
+    }
 }
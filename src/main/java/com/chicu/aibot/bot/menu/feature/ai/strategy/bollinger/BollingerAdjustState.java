@@ -3,7 +3,10 @@ package com.chicu.aibot.bot.menu.feature.ai.strategy.bollinger;
 import com.chicu.aibot.bot.menu.core.MenuSessionService;
 import com.chicu.aibot.bot.menu.core.MenuState;
 import com.chicu.aibot.bot.menu.feature.ai.strategy.AiSelectStrategyState;
+import com.chicu.aibot.bot.menu.feature.ai.strategy.view.OptimizationPanel;
+import com.chicu.aibot.bot.menu.feature.ai.strategy.view.ShadowPanel;
 import com.chicu.aibot.bot.menu.feature.common.AiSelectSymbolState;
+import com.chicu.aibot.strategy.StrategyType;
 import com.chicu.aibot.strategy.bollinger.model.BollingerStrategySettings;
 import com.chicu.aibot.strategy.bollinger.service.BollingerStrategySettingsService;
 import lombok.RequiredArgsConstructor;
@@ -26,6 +29,8 @@ public class BollingerAdjustState implements MenuState {
     private final BollingerStrategySettingsService settingsService;
     private final MenuSessionService sessionService;
     private final AiSelectStrategyState selectStrategyState;
+    private final OptimizationPanel optimizationPanel;
+    private final ShadowPanel shadowPanel;
 
     private static final Map<String, FieldMeta> META = Map.ofEntries(
             Map.entry("symbol",             new FieldMeta("Символ", "Торговая пара, например BTCUSDT", null)),
@@ -57,12 +62,13 @@ public class BollingerAdjustState implements MenuState {
         FieldMeta meta = META.get(field);
         String current = getValueAsString(s, field);
 
-        InlineKeyboardMarkup markup = buildKeyboard(field, s);
+        InlineKeyboardMarkup markup = buildKeyboard(chatId, field, s);
 
         String text = String.format(
                 "*%s*\n\n%s\n\nТекущее значение: `%s`",
                 meta.label(), meta.description(), current
-        );
+        ) + optimizationPanel.text(chatId, StrategyType.BOLLINGER_BANDS)
+                + shadowPanel.text(chatId, StrategyType.BOLLINGER_BANDS);
 
         return SendMessage.builder()
                 .chatId(chatId.toString())
@@ -72,7 +78,7 @@ public class BollingerAdjustState implements MenuState {
                 .build();
     }
 
-    private InlineKeyboardMarkup buildKeyboard(String field, BollingerStrategySettings s) {
+    private InlineKeyboardMarkup buildKeyboard(Long chatId, String field, BollingerStrategySettings s) {
         var builder = InlineKeyboardMarkup.builder();
 
         if ("timeframe".equals(field)) {
@@ -92,6 +98,9 @@ public class BollingerAdjustState implements MenuState {
             ));
         }
 
+        optimizationPanel.addRows(builder, chatId, StrategyType.BOLLINGER_BANDS);
+        shadowPanel.addRows(builder, chatId, StrategyType.BOLLINGER_BANDS);
+
         builder.keyboardRow(List.of(
                 InlineKeyboardButton.builder().text("‹ Назад").callbackData(BollingerConfigState.NAME).build()
         ));
@@ -114,6 +123,9 @@ public class BollingerAdjustState implements MenuState {
         String data  = update.getCallbackQuery().getData();
         Long chatId  = update.getCallbackQuery().getMessage().getChatId();
 
+        if (optimizationPanel.handle(chatId, data, StrategyType.BOLLINGER_BANDS)) return NAME;
+        if (shadowPanel.handle(chatId, data, StrategyType.BOLLINGER_BANDS)) return NAME;
+
         if ("edit_symbol".equals(data)) {
             sessionService.setEditingField(chatId, "symbol");
             sessionService.setReturnState(chatId, BollingerConfigState.NAME);
@@ -8,7 +8,6 @@ import com.chicu.aibot.bot.menu.feature.common.AiSelectSymbolState;
 import com.chicu.aibot.bot.ui.UiAutorefreshService;
 import com.chicu.aibot.strategy.bollinger.model.BollingerStrategySettings;
 import com.chicu.aibot.strategy.bollinger.service.BollingerStrategySettingsService;
-import com.chicu.aibot.trading.scheduler.SchedulerService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
@@ -24,7 +23,6 @@ public class BollingerConfigState implements MenuState {
 
     private final BollingerStrategySettingsService settingsService;
     private final MenuSessionService sessionService;
-    private final SchedulerService schedulerService;
     private final BollingerPanelRenderer panelRenderer;
     private final UiAutorefreshService uiAutorefresh;
 
@@ -55,11 +53,7 @@ public class BollingerConfigState implements MenuState {
         if (BollingerPanelRendererImpl.BTN_TOGGLE_ACTIVE.equals(data)) {
             BollingerStrategySettings s = settingsService.getOrCreate(chatId);
             s.setActive(!s.isActive());
-            if (s.isActive()) {
-                schedulerService.startStrategy(chatId, s.getType().name());
-            } else {
-                schedulerService.stopStrategy(chatId, s.getType().name());
-            }
+            // запуск/остановку выполнит сверка по событию после коммита
             settingsService.save(s);
             return NAME;
         }
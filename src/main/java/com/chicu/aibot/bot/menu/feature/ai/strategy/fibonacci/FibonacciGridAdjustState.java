@@ -2,7 +2,10 @@ package com.chicu.aibot.bot.menu.feature.ai.strategy.fibonacci;
 
 import com.chicu.aibot.bot.menu.core.MenuSessionService;
 import com.chicu.aibot.bot.menu.core.MenuState;
+import com.chicu.aibot.bot.menu.feature.ai.strategy.view.OptimizationPanel;
+import com.chicu.aibot.bot.menu.feature.ai.strategy.view.ShadowPanel;
 import com.chicu.aibot.bot.menu.feature.common.AiSelectSymbolState;
+import com.chicu.aibot.strategy.StrategyType;
 import com.chicu.aibot.strategy.fibonacci.model.FibonacciGridStrategySettings;
 import com.chicu.aibot.strategy.fibonacci.service.FibonacciGridStrategySettingsService;
 import lombok.RequiredArgsConstructor;
@@ -24,6 +27,8 @@ public class FibonacciGridAdjustState implements MenuState {
 
     private final FibonacciGridStrategySettingsService settingsService;
     private final MenuSessionService sessionService;
+    private final OptimizationPanel optimizationPanel;
+    private final ShadowPanel shadowPanel;
 
     // шаги подобраны под реальные требования
     private static final Map<String, FieldMeta> META = Map.ofEntries(
@@ -60,12 +65,13 @@ public class FibonacciGridAdjustState implements MenuState {
         FibonacciGridStrategySettings s = settingsService.getOrCreate(chatId);
         FieldMeta meta   = META.get(field);
         String current   = getValueAsString(s, field);
-        InlineKeyboardMarkup markup = buildKeyboard(field, meta, s);
+        InlineKeyboardMarkup markup = buildKeyboard(chatId, field, meta, s);
 
         String text = String.format(
                 "*%s*\n\n%s\n\nТекущее значение: `%s`",
                 meta.label(), meta.description(), current
-        );
+        ) + optimizationPanel.text(chatId, StrategyType.FIBONACCI_GRID)
+                + shadowPanel.text(chatId, StrategyType.FIBONACCI_GRID);
 
         return SendMessage.builder()
                 .chatId(chatId.toString())
@@ -75,7 +81,7 @@ public class FibonacciGridAdjustState implements MenuState {
                 .build();
     }
 
-    private InlineKeyboardMarkup buildKeyboard(String field, FieldMeta meta, FibonacciGridStrategySettings s) {
+    private InlineKeyboardMarkup buildKeyboard(Long chatId, String field, FieldMeta meta, FibonacciGridStrategySettings s) {
         InlineKeyboardMarkup.InlineKeyboardMarkupBuilder b = InlineKeyboardMarkup.builder();
 
         if ("timeframe".equals(field)) {
@@ -96,6 +102,9 @@ public class FibonacciGridAdjustState implements MenuState {
             }
         }
 
+        optimizationPanel.addRows(b, chatId, StrategyType.FIBONACCI_GRID);
+        shadowPanel.addRows(b, chatId, StrategyType.FIBONACCI_GRID);
+
         b.keyboardRow(List.of(
                 InlineKeyboardButton.builder().text("‹ Назад").callbackData(FibonacciGridConfigState.NAME).build()
         ));
@@ -117,6 +126,9 @@ public class FibonacciGridAdjustState implements MenuState {
         String data  = update.getCallbackQuery().getData();
         Long chatId  = update.getCallbackQuery().getMessage().getChatId();
 
+        if (optimizationPanel.handle(chatId, data, StrategyType.FIBONACCI_GRID)) return NAME;
+        if (shadowPanel.handle(chatId, data, StrategyType.FIBONACCI_GRID)) return NAME;
+
         if ("fib_edit_symbol_go".equals(data)) {
             sessionService.setEditingField(chatId, "symbol");
             sessionService.setReturnState(chatId, FibonacciGridConfigState.NAME);
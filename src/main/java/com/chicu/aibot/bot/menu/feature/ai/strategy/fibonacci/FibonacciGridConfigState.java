@@ -6,20 +6,17 @@ import com.chicu.aibot.bot.menu.feature.ai.strategy.fibonacci.service.FibonacciG
 import com.chicu.aibot.bot.menu.feature.ai.strategy.fibonacci.service.impl.FibonacciGridPanelRendererImpl;
 import com.chicu.aibot.bot.menu.feature.common.AiSelectSymbolState;
 import com.chicu.aibot.bot.ui.UiAutorefreshService;
-import com.chicu.aibot.exchange.order.model.ExchangeOrderEntity;
-import com.chicu.aibot.exchange.order.repository.ExchangeOrderRepository;
+import com.chicu.aibot.exchange.order.service.OrderLifecycleService;
 import com.chicu.aibot.strategy.fibonacci.model.FibonacciGridStrategySettings;
 import com.chicu.aibot.strategy.fibonacci.service.FibonacciGridStrategySettingsService;
 import com.chicu.aibot.strategy.model.Order;
 import com.chicu.aibot.strategy.service.OrderService;
-import com.chicu.aibot.trading.scheduler.SchedulerService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
 import org.telegram.telegrambots.meta.api.objects.Update;
 
-import java.time.Instant;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
@@ -34,7 +31,6 @@ public class FibonacciGridConfigState implements MenuState {
 
     private final FibonacciGridStrategySettingsService settingsService;
     private final MenuSessionService sessionService;
-    private final SchedulerService schedulerService;
     private final FibonacciGridPanelRenderer panelRenderer;
     private final UiAutorefreshService uiAutorefresh;
 
@@ -42,7 +38,7 @@ public class FibonacciGridConfigState implements MenuState {
     private final OrderService orderService;
 
     // ✅ используем репозиторий — у него точно есть save(...) и выборки по статусу
-    private final ExchangeOrderRepository orderRepo;
+    private final OrderLifecycleService lifecycle;
 
     @Override
     public String name() { return NAME; }
@@ -68,11 +64,7 @@ public class FibonacciGridConfigState implements MenuState {
         if (FibonacciGridPanelRendererImpl.BTN_TOGGLE_ACTIVE.equals(data)) {
             FibonacciGridStrategySettings s = settingsService.getOrCreate(chatId);
             s.setActive(!s.isActive());
-            if (s.isActive()) {
-                schedulerService.startStrategy(chatId, s.getType().name());
-            } else {
-                schedulerService.stopStrategy(chatId, s.getType().name());
-            }
+            // запуск/остановку выполнит сверка по событию после коммита
             settingsService.save(s);
             return NAME;
         }
@@ -169,20 +161,10 @@ public class FibonacciGridConfigState implements MenuState {
         }
     }
 
-    /** Помечаем в БД как CANCELED ту запись, что совпадает по chatId/symbol и orderId, среди статуса NEW. */
+    /** CANCEL в журнал ордеров по orderId (если отмена на бирже уже записала его — ничего не меняется). */
     private void optimisticMarkCanceled(Long chatId, String symbol, String orderId) {
         try {
-            List<ExchangeOrderEntity> open = orderRepo.findByChatIdAndSymbolAndStatus(chatId, symbol, "NEW");
-            if (open == null || open.isEmpty()) return;
-
-            for (ExchangeOrderEntity e : open) {
-                if (Objects.equals(orderId, e.getOrderId())) {
-                    e.setStatus("CANCELED");
-                    e.setUpdatedAt(Instant.now());
-                    orderRepo.save(e);
-                    break;
-                }
-            }
+            lifecycle.canceledByOrderId(chatId, orderId, "CANCELED");
         } catch (Exception ex) {
             // не критично — UI всё равно обновится, когда подтянется реальное состояние
             log.debug("[FibCFG] optimisticMarkCanceled skip ({}:{}:{}): {}", chatId, symbol, orderId, ex.getMessage());
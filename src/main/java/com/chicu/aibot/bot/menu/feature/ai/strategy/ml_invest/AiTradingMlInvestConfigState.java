@@ -8,7 +8,6 @@ import com.chicu.aibot.bot.menu.feature.common.AiSelectSymbolState;
 import com.chicu.aibot.bot.ui.UiAutorefreshService;
 import com.chicu.aibot.strategy.ml_invest.model.MachineLearningInvestStrategySettings;
 import com.chicu.aibot.strategy.ml_invest.service.MachineLearningInvestStrategySettingsService;
-import com.chicu.aibot.trading.scheduler.SchedulerService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
@@ -24,7 +23,6 @@ public class AiTradingMlInvestConfigState implements MenuState {
 
     private final MachineLearningInvestStrategySettingsService settingsService;
     private final MenuSessionService sessionService;
-    private final SchedulerService schedulerService;
     private final MlInvestPanelRenderer panelRenderer;
     private final UiAutorefreshService uiAutorefresh;
 
@@ -55,11 +53,7 @@ public class AiTradingMlInvestConfigState implements MenuState {
         if (MlInvestPanelRendererImpl.BTN_TOGGLE_ACTIVE.equals(data)) {
             MachineLearningInvestStrategySettings s = settingsService.getOrCreate(chatId);
             s.setActive(!s.isActive());
-            if (s.isActive()) {
-                schedulerService.startStrategy(chatId, s.getType().name());
-            } else {
-                schedulerService.stopStrategy(chatId, s.getType().name());
-            }
+            // запуск/остановку выполнит сверка по событию после коммита
             settingsService.save(s);
             return NAME;
         }
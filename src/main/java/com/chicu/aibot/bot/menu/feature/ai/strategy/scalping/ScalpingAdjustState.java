@@ -3,7 +3,10 @@ package com.chicu.aibot.bot.menu.feature.ai.strategy.scalping;
 import com.chicu.aibot.bot.menu.core.MenuSessionService;
 import com.chicu.aibot.bot.menu.core.MenuState;
 import com.chicu.aibot.bot.menu.feature.ai.strategy.AiSelectStrategyState;
+import com.chicu.aibot.bot.menu.feature.ai.strategy.view.OptimizationPanel;
+import com.chicu.aibot.bot.menu.feature.ai.strategy.view.ShadowPanel;
 import com.chicu.aibot.bot.menu.feature.common.AiSelectSymbolState;
+import com.chicu.aibot.strategy.StrategyType;
 import com.chicu.aibot.strategy.scalping.model.ScalpingStrategySettings;
 import com.chicu.aibot.strategy.scalping.service.ScalpingStrategySettingsService;
 import lombok.RequiredArgsConstructor;
@@ -26,6 +29,8 @@ public class ScalpingAdjustState implements MenuState {
     private final ScalpingStrategySettingsService settingsService;
     private final MenuSessionService sessionService;
     private final AiSelectStrategyState selectStrategyState;
+    private final OptimizationPanel optimizationPanel;
+    private final ShadowPanel shadowPanel;
 
     /**
      * Step == null означает, что поле не инкрементируется +/- (правим на другом экране/через пресеты).
@@ -62,12 +67,13 @@ public class ScalpingAdjustState implements MenuState {
         ScalpingStrategySettings s = settingsService.getOrCreate(chatId);
         FieldMeta meta   = META.get(field);
         String current   = getValueAsString(s, field);
-        InlineKeyboardMarkup markup = buildKeyboard(field, meta, s);
+        InlineKeyboardMarkup markup = buildKeyboard(chatId, field, meta, s);
 
         String text = String.format(
                 "*%s*\n\n%s\n\nТекущее значение: `%s`",
                 meta.label(), meta.description(), current
-        );
+        ) + optimizationPanel.text(chatId, StrategyType.SCALPING)
+                + shadowPanel.text(chatId, StrategyType.SCALPING);
 
         return SendMessage.builder()
                 .chatId(chatId.toString())
@@ -77,7 +83,7 @@ public class ScalpingAdjustState implements MenuState {
                 .build();
     }
 
-    private InlineKeyboardMarkup buildKeyboard(String field, FieldMeta meta, ScalpingStrategySettings s) {
+    private InlineKeyboardMarkup buildKeyboard(Long chatId, String field, FieldMeta meta, ScalpingStrategySettings s) {
         InlineKeyboardMarkup.InlineKeyboardMarkupBuilder builder = InlineKeyboardMarkup.builder();
 
         if ("timeframe".equals(field)) {
@@ -101,6 +107,9 @@ public class ScalpingAdjustState implements MenuState {
             }
         }
 
+        optimizationPanel.addRows(builder, chatId, StrategyType.SCALPING);
+        shadowPanel.addRows(builder, chatId, StrategyType.SCALPING);
+
         // назад
         builder.keyboardRow(List.of(
                 InlineKeyboardButton.builder()
@@ -130,6 +139,9 @@ public class ScalpingAdjustState implements MenuState {
         String data  = update.getCallbackQuery().getData();
         Long chatId  = update.getCallbackQuery().getMessage().getChatId();
 
+        if (optimizationPanel.handle(chatId, data, StrategyType.SCALPING)) return NAME;
+        if (shadowPanel.handle(chatId, data, StrategyType.SCALPING)) return NAME;
+
         // быстрый переход к выбору символа
         if ("edit_symbol".equals(data)) {
             sessionService.setEditingField(chatId, "symbol");
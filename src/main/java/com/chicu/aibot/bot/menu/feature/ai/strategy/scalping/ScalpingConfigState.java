@@ -8,7 +8,6 @@ import com.chicu.aibot.bot.menu.feature.common.AiSelectSymbolState;
 import com.chicu.aibot.bot.ui.UiAutorefreshService;
 import com.chicu.aibot.strategy.scalping.model.ScalpingStrategySettings;
 import com.chicu.aibot.strategy.scalping.service.ScalpingStrategySettingsService;
-import com.chicu.aibot.trading.scheduler.SchedulerService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
@@ -24,7 +23,6 @@ public class ScalpingConfigState implements MenuState {
 
     private final ScalpingStrategySettingsService settingsService;
     private final MenuSessionService sessionService;
-    private final SchedulerService schedulerService;
     private final ScalpingPanelRenderer panelRenderer;
     private final UiAutorefreshService uiAutorefresh;
 
@@ -57,11 +55,7 @@ public class ScalpingConfigState implements MenuState {
             case ScalpingPanelRendererImpl.BTN_TOGGLE_ACTIVE -> {
                 ScalpingStrategySettings s = settingsService.getOrCreate(chatId);
                 s.setActive(!s.isActive());
-                if (s.isActive()) {
-                    schedulerService.startStrategy(chatId, s.getType().name());
-                } else {
-                    schedulerService.stopStrategy(chatId, s.getType().name());
-                }
+                // запуск/остановку выполнит сверка по событию после коммита
                 settingsService.save(s);
                 return NAME;
             }
@@ -0,0 +1,114 @@
+package com.chicu.aibot.bot.menu.feature.ai.strategy.view;
+
+import com.chicu.aibot.strategy.StrategyType;
+import com.chicu.aibot.trading.optimizer.OptimizationRequest;
+import com.chicu.aibot.trading.optimizer.OptimizationResult;
+import com.chicu.aibot.trading.optimizer.OptimizerService;
+import com.chicu.aibot.trading.optimizer.SearchMethod;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Блок «Подбор параметров» для экранов настройки стратегий:
+ * запуск оптимизатора, показ лучших наборов и их применение к настройкам.
+ */
+@Component
+@RequiredArgsConstructor
+public class OptimizationPanel {
+
+    private static final String RUN = "opt_run:";
+    private static final String APPLY = "opt_apply:";
+    private static final String REFRESH = "opt_refresh";
+    private static final int SHOW_TOP = 3;
+
+    private final OptimizerService optimizer;
+
+    @Value("${optimizer.ui.method:HALVING}")
+    private SearchMethod method;
+
+    @Value("${optimizer.ui.candidates:2000}")
+    private int candidates;
+
+    /** Текст блока (Markdown), добавляется в конец сообщения экрана. */
+    public String text(Long chatId, StrategyType type) {
+        if (optimizer.isRunning(chatId, type)) {
+            return "\n\n🧪 *Подбор параметров:* идёт расчёт…";
+        }
+        Optional<OptimizationResult> last = optimizer.lastResult(chatId, type);
+        if (last.isEmpty()) return "";
+
+        OptimizationResult r = last.get();
+        if (r.isFailed()) {
+            return "\n\n🧪 *Подбор параметров* не удался: `" + r.getError() + "`";
+        }
+        StringBuilder sb = new StringBuilder("\n\n🧪 *Подбор параметров* (")
+                .append(r.getEvaluated()).append(" наборов, ").append(r.getBars()).append(" свечей ")
+                .append(PanelTextUtils.nvl(r.getTimeframe())).append("):");
+        List<OptimizationResult.Candidate> top = r.getTop();
+        for (int i = 0; i < Math.min(SHOW_TOP, top.size()); i++) {
+            OptimizationResult.Candidate c = top.get(i);
+            sb.append("\n").append(i + 1).append(") `").append(optimizer.describe(type, c.params())).append("`")
+                    .append("\n    обучение: ").append(String.format("%.2f", c.inSampleScore()))
+                    .append(", проверка: ").append(PanelTextUtils.signedPct(c.outOfSampleReturnPct()))
+                    .append(", просадка ").append(String.format("%.2f%%", c.outOfSampleDrawdownPct()));
+        }
+        return sb.toString();
+    }
+
+    /** Кнопки блока. */
+    public void addRows(InlineKeyboardMarkup.InlineKeyboardMarkupBuilder b, Long chatId, StrategyType type) {
+        if (optimizer.isRunning(chatId, type)) {
+            b.keyboardRow(List.of(
+                    InlineKeyboardButton.builder().text("🔄 Обновить").callbackData(REFRESH).build()
+            ));
+            return;
+        }
+        b.keyboardRow(List.of(
+                InlineKeyboardButton.builder().text("🧪 Подобрать параметры").callbackData(RUN + type.name()).build()
+        ));
+        optimizer.lastResult(chatId, type)
+                .filter(r -> !r.isFailed() && r.getTop() != null && !r.getTop().isEmpty())
+                .ifPresent(r -> {
+                    List<InlineKeyboardButton> row = new ArrayList<>();
+                    for (int i = 0; i < Math.min(SHOW_TOP, r.getTop().size()); i++) {
+                        row.add(InlineKeyboardButton.builder()
+                                .text("✅ Применить #" + (i + 1))
+                                .callbackData(APPLY + type.name() + ":" + i)
+                                .build());
+                    }
+                    b.keyboardRow(row);
+                });
+    }
+
+    /** @return true, если callback относится к блоку подбора и обработан */
+    public boolean handle(Long chatId, String data, StrategyType type) {
+        if (data == null) return false;
+        if (REFRESH.equals(data)) return true;
+        if (data.equals(RUN + type.name())) {
+            optimizer.submit(OptimizationRequest.builder()
+                    .chatId(chatId)
+                    .type(type)
+                    .method(method)
+                    .candidates(candidates)
+                    .build());
+            return true;
+        }
+        if (data.startsWith(APPLY + type.name() + ":")) {
+            try {
+                int index = Integer.parseInt(data.substring(data.lastIndexOf(':') + 1));
+                optimizer.apply(chatId, type, index);
+            } catch (NumberFormatException ignore) {
+                // мусорный callback — просто перерисуем экран
+            }
+            return true;
+        }
+        return false;
+    }
+}
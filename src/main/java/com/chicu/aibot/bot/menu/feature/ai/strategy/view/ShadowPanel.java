@@ -0,0 +1,108 @@
+package com.chicu.aibot.bot.menu.feature.ai.strategy.view;
+
+import com.chicu.aibot.strategy.StrategySettings;
+import com.chicu.aibot.strategy.StrategyType;
+import com.chicu.aibot.trading.backtest.BacktestRequest;
+import com.chicu.aibot.trading.optimizer.OptimizableStrategy;
+import com.chicu.aibot.trading.shadow.ShadowService;
+import com.chicu.aibot.trading.shadow.ShadowSnapshot;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Блок «Тень» для экранов настройки стратегий: бумажная копия стратегии с текущими настройками
+ * пользователя крутится рядом с живой на той же ленте свечей, не отправляя ордеров на биржу.
+ * Собирается тем же описанием стратегии, что и подбор параметров.
+ */
+@Slf4j
+@Component
+public class ShadowPanel {
+
+    private static final String START = "shadow_start:";
+    private static final String STOP = "shadow_stop:";
+    private static final String REFRESH = "shadow_refresh";
+
+    private final ShadowService shadows;
+    private final Map<StrategyType, OptimizableStrategy<?>> strategies = new EnumMap<>(StrategyType.class);
+
+    public ShadowPanel(ShadowService shadows, List<OptimizableStrategy<?>> optimizables) {
+        this.shadows = shadows;
+        for (OptimizableStrategy<?> o : optimizables) strategies.put(o.type(), o);
+    }
+
+    /** Текст блока (Markdown), добавляется в конец сообщения экрана. */
+    public String text(Long chatId, StrategyType type) {
+        Optional<ShadowSnapshot> snap = shadows.get(chatId, name(type));
+        if (snap.isEmpty()) return "";
+
+        ShadowSnapshot s = snap.get();
+        if (s.waitingForData()) {
+            return "\n\n👥 *Тень:* ждёт живую ленту по паре — запустите стратегию или любую другую на этой паре";
+        }
+        return "\n\n👥 *Тень* (тиков: " + s.ticks() + "): капитал "
+                + String.format("%.2f", s.equity())
+                + " (" + PanelTextUtils.signedPct(s.returnPct()) + ")"
+                + ", сделок " + s.trades()
+                + ", комиссии " + String.format("%.2f", s.feesPaid());
+    }
+
+    /** Кнопки блока. */
+    public void addRows(InlineKeyboardMarkup.InlineKeyboardMarkupBuilder b, Long chatId, StrategyType type) {
+        if (!strategies.containsKey(type)) return;
+        if (shadows.get(chatId, name(type)).isPresent()) {
+            b.keyboardRow(List.of(
+                    InlineKeyboardButton.builder().text("🔄 Обновить тень").callbackData(REFRESH).build(),
+                    InlineKeyboardButton.builder().text("⏹ Остановить тень").callbackData(STOP + type.name()).build()
+            ));
+            return;
+        }
+        b.keyboardRow(List.of(
+                InlineKeyboardButton.builder().text("👥 Запустить тень").callbackData(START + type.name()).build()
+        ));
+    }
+
+    /** @return true, если callback относится к блоку тени и обработан */
+    public boolean handle(Long chatId, String data, StrategyType type) {
+        if (data == null) return false;
+        if (REFRESH.equals(data)) return true;
+        if (data.equals(STOP + type.name())) {
+            shadows.stop(chatId, name(type));
+            return true;
+        }
+        if (data.equals(START + type.name())) {
+            OptimizableStrategy<?> o = strategies.get(type);
+            if (o == null) return true;
+            try {
+                shadows.start(chatId, request(o, chatId, type));
+            } catch (IllegalStateException | IllegalArgumentException e) {
+                // лимит теней или режим выключен — экран просто останется без тени
+                log.info("Тень {} для chatId={} не запущена: {}", type, chatId, e.getMessage());
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /** Тень строится на копии текущих настроек: дальнейшие правки пользователя её не трогают. */
+    private static <S extends StrategySettings> BacktestRequest request(OptimizableStrategy<S> o, Long chatId,
+                                                                        StrategyType type) {
+        S base = o.load(chatId);
+        return BacktestRequest.builder()
+                .name(name(type))
+                .symbol(o.symbol(base))
+                .timeframe(base.getTimeframe())
+                .strategy(o.factory(() -> o.copy(base)))
+                .build();
+    }
+
+    private static String name(StrategyType type) {
+        return type.name();
+    }
+}
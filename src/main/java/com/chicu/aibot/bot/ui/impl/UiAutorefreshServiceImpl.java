@@ -4,8 +4,9 @@ import com.chicu.aibot.bot.menu.core.MenuService;
 import com.chicu.aibot.bot.menu.core.MenuSessionService;
 import com.chicu.aibot.bot.ui.UiAutorefreshService;
 import com.chicu.aibot.bot.ui.UiEditMessageEvent;
+import com.chicu.aibot.trading.lane.ExecutionLane;
+import com.chicu.aibot.trading.lane.LaneExecutor;
 import jakarta.annotation.PostConstruct;
-import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.ObjectProvider;
@@ -34,8 +35,8 @@ public class UiAutorefreshServiceImpl implements UiAutorefreshService {
     private final MenuSessionService sessionService;
     private final ApplicationEventPublisher events;
     private final ObjectProvider<MenuService> menuServiceProvider;
-
-    private ScheduledExecutorService scheduler;
+    /** Тики панелей идут в полосе UI и сбрасываются первыми при нагрузке на торговлю. */
+    private final LaneExecutor lanes;
 
     /** по одному джобу на чат */
     private final Map<Long, ScheduledFuture<?>> jobs = new ConcurrentHashMap<>();
@@ -44,18 +45,7 @@ public class UiAutorefreshServiceImpl implements UiAutorefreshService {
 
     @PostConstruct
     void init() {
-        ScheduledThreadPoolExecutor pool = new ScheduledThreadPoolExecutor(2);
-        pool.setRemoveOnCancelPolicy(true);
-        this.scheduler = pool;
-        log.info("UI autorefresh initialized (period={} ms)", REFRESH_PERIOD_MS);
-    }
-
-    @PreDestroy
-    void stop() {
-        try {
-            scheduler.shutdownNow();
-        } catch (Exception ignore) {
-        }
+        log.info("UI autorefresh initialized (period={} ms, lane={})", REFRESH_PERIOD_MS, ExecutionLane.UI);
     }
 
     @Override
@@ -65,7 +55,9 @@ public class UiAutorefreshServiceImpl implements UiAutorefreshService {
         cancelJob(chatId);
         activePanel.put(chatId, panelName);
 
-        ScheduledFuture<?> fut = scheduler.scheduleAtFixedRate(
+        ScheduledFuture<?> fut = lanes.scheduleAtFixedRate(
+                ExecutionLane.UI,
+                "ui:" + chatId,
                 () -> safeRefresh(chatId, panelName),
                 REFRESH_INITIAL_DELAY_MS,
                 REFRESH_PERIOD_MS,
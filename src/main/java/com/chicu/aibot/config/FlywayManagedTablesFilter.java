@@ -0,0 +1,58 @@
+package com.chicu.aibot.config;
+
+import org.hibernate.boot.model.relational.Namespace;
+import org.hibernate.boot.model.relational.Sequence;
+import org.hibernate.mapping.Table;
+import org.hibernate.tool.schema.spi.SchemaFilter;
+import org.hibernate.tool.schema.spi.SchemaFilterProvider;
+
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * ddl-auto не трогает таблицы, схему которых ведут миграции Flyway ({@code db/migration}):
+ * секционированную таблицу Hibernate не распознаёт и пытается создать заново.
+ * Подключается через {@code spring.jpa.properties.hibernate.hbm2ddl.schema_filter_provider}.
+ */
+public class FlywayManagedTablesFilter implements SchemaFilterProvider {
+
+    private static final Set<String> MANAGED = Set.of("exchange_orders", "order_events");
+
+    private static final SchemaFilter FILTER = new SchemaFilter() {
+        @Override
+        public boolean includeNamespace(Namespace namespace) {
+            return true;
+        }
+
+        @Override
+        public boolean includeTable(Table table) {
+            return !MANAGED.contains(table.getName().toLowerCase(Locale.ROOT));
+        }
+
+        @Override
+        public boolean includeSequence(Sequence sequence) {
+            return true;
+        }
+    };
+
+    // без @Override: набор методов SchemaFilterProvider отличается между версиями Hibernate
+    public SchemaFilter getCreateFilter() {
+        return FILTER;
+    }
+
+    public SchemaFilter getDropFilter() {
+        return FILTER;
+    }
+
+    public SchemaFilter getTruncatorFilter() {
+        return FILTER;
+    }
+
+    public SchemaFilter getMigrateFilter() {
+        return FILTER;
+    }
+
+    public SchemaFilter getValidateFilter() {
+        return FILTER;
+    }
+}
@@ -0,0 +1,15 @@
+package com.chicu.aibot.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+
+@Configuration
+public class TimeConfig {
+    /** Часы стратегий; в бэктесте подменяются модельным временем. */
+    @Bean
+    public Clock clock() {
+        return Clock.systemUTC();
+    }
+}
@@ -1,6 +1,7 @@
 package com.chicu.aibot.exchange.binance;
 
 import com.chicu.aibot.exchange.client.ExchangeClient;
+import com.chicu.aibot.exchange.client.ExchangeSymbolMetaClient;
 import com.chicu.aibot.exchange.enums.NetworkType;
 import com.chicu.aibot.exchange.enums.OrderSide;
 import com.chicu.aibot.exchange.model.*;
@@ -28,7 +29,7 @@ import java.util.concurrent.ConcurrentMap;
 @Slf4j
 @Component("BINANCE")
 @RequiredArgsConstructor
-public class BinanceExchangeClient implements ExchangeClient {
+public class BinanceExchangeClient implements ExchangeClient, ExchangeSymbolMetaClient {
 
     @Value("${binance.api.mainnet-base-url:https://api.binance.com}")
     private String mainnetBaseUrl;
@@ -38,6 +39,8 @@ public class BinanceExchangeClient implements ExchangeClient {
 
     private static final String RECV_WINDOW = "5000";
     private static final long TIME_SYNC_PERIOD_MS = 60_000L;
+    /** allOrders принимает окно не длиннее 24 ч — с запасом на расхождение часов. */
+    private static final long ALL_ORDERS_WINDOW_MS = 24 * 60 * 60_000L - 60_000L;
     private volatile long timeOffsetMs = 0L;
     private volatile long lastSyncAtMs = 0L;
 
@@ -225,14 +228,34 @@ public class BinanceExchangeClient implements ExchangeClient {
     private final ConcurrentMap<String, BnFilters> filtersCache = new ConcurrentHashMap<>();
 
     private BnFilters getFilters(NetworkType n, String symbol) {
-        BnFilters f = filtersCache.computeIfAbsent(n.name() + ":" + symbol, k -> fetchFilters(n, symbol));
+        String key = n.name() + ":" + symbol;
+        BnFilters f = filtersCache.get(key);
+        if (f != null) return f;
+        f = fetchFilters(n, symbol);
         // корректная проверка record-аксессоров с ()
         if (f.baseAsset() == null || f.quoteAsset() == null || f.tickSize() == null || f.stepSize() == null) {
+            // неудачу не кэшируем: сбой сети не должен «ломать» символ до перезапуска
             throw new IllegalArgumentException("Invalid or unsupported symbol on " + n + ": " + symbol);
         }
+        filtersCache.put(key, f);
         return f;
     }
 
+    /** Фильтры для проверок до отправки ордера — из того же кэша exchangeInfo, без запроса к бирже. */
+    @Override
+    public SymbolFilters getSymbolFilters(String apiKey, String secretKey, NetworkType network, String symbol) {
+        try {
+            BnFilters f = getFilters(network, symbol);
+            return SymbolFilters.builder()
+                    .stepSize(f.stepSize())
+                    .minQty(f.minQty())
+                    .minNotional(f.minNotional())
+                    .build();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
     private BnFilters fetchFilters(NetworkType network, String symbol) {
         try {
             String url = baseUrl(network) + "/api/v3/exchangeInfo?symbol=" + enc(symbol);
@@ -350,6 +373,12 @@ public class BinanceExchangeClient implements ExchangeClient {
         }
     }
 
+    /**
+     * Один запрос к бирже: фильтры — из кэша, цена MARKET — из запроса (её даёт кэш цен вызывающего),
+     * а ответ FULL сразу несёт статус, исполнение, среднюю цену и комиссию. Балансы читаются, только
+     * если продаётся «всё» (MARKET SELL без объёма) или биржа ответила -2010 «недостаточно средств» —
+     * тогда объём подрезается под свободный остаток и ордер повторяется один раз.
+     */
     @Override
     public OrderResponse placeOrder(String apiKey, String secretKey, NetworkType n, OrderRequest req) {
         try {
@@ -358,8 +387,7 @@ public class BinanceExchangeClient implements ExchangeClient {
             BnFilters f = getFilters(n, symbol);
 
             boolean isMarket = "MARKET".equals(req.getType().name());
-            BigDecimal priceEff = isMarket ? lastPrice(n, symbol) : req.getPrice();
-
+            BigDecimal priceEff = req.getPrice();
             if (priceEff == null || priceEff.signum() <= 0) {
                 if (isMarket) priceEff = lastPrice(n, symbol);
                 if (priceEff == null || priceEff.signum() <= 0) {
@@ -367,100 +395,139 @@ public class BinanceExchangeClient implements ExchangeClient {
                 }
             }
 
-            BigDecimal qtyNorm   = quantizeDown(req.getQuantity(), f.stepSize());
-            BigDecimal priceNorm = quantizeDown(priceEff, f.tickSize());
-
-            BigDecimal minNotional = Optional.ofNullable(f.minNotional()).orElse(BigDecimal.ZERO);
-            BigDecimal minQty      = Optional.ofNullable(f.minQty()).orElse(BigDecimal.ZERO);
-            BigDecimal minQtyEff   = quantizeUp(minQty, f.stepSize());
-
-            Map<String, BigDecimal> bals = balances(apiKey, secretKey, n);
-            BigDecimal baseFree  = bals.getOrDefault(f.baseAsset(), BigDecimal.ZERO);
-            BigDecimal quoteFree = bals.getOrDefault(f.quoteAsset(), BigDecimal.ZERO);
-
-            StringBuilder pq = new StringBuilder()
-                    .append("symbol=").append(enc(symbol))
-                    .append("&side=").append(req.getSide().name())
-                    .append("&type=").append(req.getType().name());
-
-            switch (req.getType().name()) {
-                case "MARKET" -> {
-                    if ("BUY".equals(req.getSide().name())) {
-                        BigDecimal desiredSpend = (qtyNorm == null || qtyNorm.signum() == 0)
-                                ? minNotional.max(BigDecimal.ZERO)
-                                : priceEff.multiply(qtyNorm);
-
-                        BigDecimal spend = desiredSpend.min(quoteFree);
-                        if (spend.compareTo(minNotional) < 0) {
-                            throw new RuntimeException("Pre-check: quote balance below minNotional for MARKET BUY");
-                        }
-                        pq.append("&quoteOrderQty=").append(spend.stripTrailingZeros().toPlainString());
-                    } else {
-                        BigDecimal needQtyNotional = (minNotional.signum() > 0)
-                                ? quantizeUp(minNotional.divide(priceEff, 20, RoundingMode.UP), f.stepSize())
-                                : BigDecimal.ZERO;
-                        BigDecimal minRequired = needQtyNotional.max(minQtyEff);
-
-                        BigDecimal qty = (qtyNorm == null || qtyNorm.signum() == 0) ? baseFree : qtyNorm;
-                        if (qty.compareTo(baseFree) > 0) qty = baseFree;
-                        qty = quantizeDown(qty, f.stepSize());
-                        if (qty.signum() == 0) {
-                            throw new RuntimeException("Pre-check: base balance is zero for MARKET SELL");
-                        }
-                        if (qty.compareTo(minRequired) < 0) {
-                            throw new RuntimeException("Pre-check: quantity below required min for MARKET SELL");
-                        }
-                        pq.append("&quantity=").append(qty.stripTrailingZeros().toPlainString());
-                    }
-                }
-                case "LIMIT" -> {
-                    if (priceNorm == null || priceNorm.signum() == 0) {
-                        throw new IllegalArgumentException("Price is zero after quantize");
+            boolean sellAll = isMarket && "SELL".equals(req.getSide().name())
+                    && (req.getQuantity() == null || req.getQuantity().signum() == 0);
+            Map<String, BigDecimal> bals = sellAll ? balances(apiKey, secretKey, n) : null;
+
+            String body;
+            try {
+                body = signedPost(n, orderQuery(req, f, priceEff, bals), apiKey, secretKey);
+            } catch (HttpClientErrorException e) {
+                if (bals != null || !isInsufficientBalance(e)) throw e;
+                log.info("Binance placeOrder {}: -2010, сверяем объём со свободным балансом и повторяем", symbol);
+                body = signedPost(n, orderQuery(req, f, priceEff, balances(apiKey, secretKey, n)), apiKey, secretKey);
+            }
+            return toOrderResponse(parseJson(body), symbol);
+
+        } catch (RuntimeException ex) {
+            log.error("❌ Binance placeOrder pre-check failed: {}", ex.getMessage());
+            throw ex;
+        } catch (Exception ex) {
+            log.error("❌ Binance placeOrder error: {}", ex.getMessage(), ex);
+            throw new RuntimeException("Failed to place Binance order", ex);
+        }
+    }
+
+    /** @param bals свободные остатки; null — объём не подрезается, проверку средств делает биржа */
+    private static String orderQuery(OrderRequest req, BnFilters f, BigDecimal priceEff, Map<String, BigDecimal> bals) {
+        BigDecimal qtyNorm   = quantizeDown(req.getQuantity(), f.stepSize());
+        BigDecimal priceNorm = quantizeDown(priceEff, f.tickSize());
+
+        BigDecimal minNotional = Optional.ofNullable(f.minNotional()).orElse(BigDecimal.ZERO);
+        BigDecimal minQty      = Optional.ofNullable(f.minQty()).orElse(BigDecimal.ZERO);
+        BigDecimal minQtyEff   = quantizeUp(minQty, f.stepSize());
+
+        BigDecimal baseFree  = bals == null ? null : bals.getOrDefault(f.baseAsset(), BigDecimal.ZERO);
+        BigDecimal quoteFree = bals == null ? null : bals.getOrDefault(f.quoteAsset(), BigDecimal.ZERO);
+
+        StringBuilder pq = new StringBuilder()
+                .append("symbol=").append(enc(req.getSymbol()))
+                .append("&side=").append(req.getSide().name())
+                .append("&type=").append(req.getType().name())
+                .append("&newOrderRespType=FULL");
+
+        switch (req.getType().name()) {
+            case "MARKET" -> {
+                if ("BUY".equals(req.getSide().name())) {
+                    BigDecimal spend = (qtyNorm == null || qtyNorm.signum() == 0)
+                            ? minNotional.max(BigDecimal.ZERO)
+                            : priceEff.multiply(qtyNorm);
+
+                    if (quoteFree != null) spend = spend.min(quoteFree);
+                    if (spend.compareTo(minNotional) < 0) {
+                        throw new RuntimeException("Pre-check: quote balance below minNotional for MARKET BUY");
                     }
+                    pq.append("&quoteOrderQty=").append(spend.stripTrailingZeros().toPlainString());
+                } else {
                     BigDecimal needQtyNotional = (minNotional.signum() > 0)
-                            ? quantizeUp(minNotional.divide(priceNorm, 20, RoundingMode.UP), f.stepSize())
+                            ? quantizeUp(minNotional.divide(priceEff, 20, RoundingMode.UP), f.stepSize())
                             : BigDecimal.ZERO;
                     BigDecimal minRequired = needQtyNotional.max(minQtyEff);
 
-                    BigDecimal qty = (qtyNorm == null || qtyNorm.signum() == 0) ? minRequired : qtyNorm;
-                    if (qty.compareTo(minRequired) < 0) qty = minRequired;
-
-                    if ("SELL".equals(req.getSide().name())) {
-                        if (baseFree.compareTo(qty) < 0) {
-                            throw new RuntimeException("Pre-check: insufficient base balance for LIMIT SELL");
-                        }
-                    } else {
-                        BigDecimal needQuote = priceNorm.multiply(qty);
-                        if (quoteFree.compareTo(needQuote) < 0) {
-                            throw new RuntimeException("Pre-check: insufficient quote balance for LIMIT BUY");
-                        }
+                    BigDecimal qty = (qtyNorm == null || qtyNorm.signum() == 0) ? baseFree : qtyNorm;
+                    if (qty == null) qty = BigDecimal.ZERO;
+                    if (baseFree != null && qty.compareTo(baseFree) > 0) qty = baseFree;
+                    qty = quantizeDown(qty, f.stepSize());
+                    if (qty.signum() == 0) {
+                        throw new RuntimeException("Pre-check: base balance is zero for MARKET SELL");
                     }
-
-                    pq.append("&quantity=").append(qty.stripTrailingZeros().toPlainString())
-                      .append("&price=").append(priceNorm.stripTrailingZeros().toPlainString())
-                      .append("&timeInForce=GTC");
+                    if (qty.compareTo(minRequired) < 0) {
+                        throw new RuntimeException("Pre-check: quantity below required min for MARKET SELL");
+                    }
+                    pq.append("&quantity=").append(qty.stripTrailingZeros().toPlainString());
                 }
-                default -> {}
             }
+            case "LIMIT" -> {
+                if (priceNorm == null || priceNorm.signum() == 0) {
+                    throw new IllegalArgumentException("Price is zero after quantize");
+                }
+                BigDecimal needQtyNotional = (minNotional.signum() > 0)
+                        ? quantizeUp(minNotional.divide(priceNorm, 20, RoundingMode.UP), f.stepSize())
+                        : BigDecimal.ZERO;
+                BigDecimal minRequired = needQtyNotional.max(minQtyEff);
 
-            String body = signedPost(n, pq.toString(), apiKey, secretKey);
-            JsonNode r = parseJson(body);
+                BigDecimal qty = (qtyNorm == null || qtyNorm.signum() == 0) ? minRequired : qtyNorm;
+                if (qty.compareTo(minRequired) < 0) qty = minRequired;
 
-            return OrderResponse.builder()
-                    .orderId(r.path("orderId").asText(null))
-                    .symbol(r.path("symbol").asText(null))
-                    .status(r.path("status").asText(null))
-                    .executedQty(new BigDecimal(r.path("executedQty").asText("0")))
-                    .transactTime(Instant.ofEpochMilli(r.path("transactTime").asLong(System.currentTimeMillis())))
-                    .build();
+                if ("SELL".equals(req.getSide().name())) {
+                    if (baseFree != null && baseFree.compareTo(qty) < 0) {
+                        throw new RuntimeException("Pre-check: insufficient base balance for LIMIT SELL");
+                    }
+                } else if (quoteFree != null && quoteFree.compareTo(priceNorm.multiply(qty)) < 0) {
+                    throw new RuntimeException("Pre-check: insufficient quote balance for LIMIT BUY");
+                }
 
-        } catch (RuntimeException ex) {
-            log.error("❌ Binance placeOrder pre-check failed: {}", ex.getMessage());
-            throw ex;
-        } catch (Exception ex) {
-            log.error("❌ Binance placeOrder error: {}", ex.getMessage(), ex);
-            throw new RuntimeException("Failed to place Binance order", ex);
+                pq.append("&quantity=").append(qty.stripTrailingZeros().toPlainString())
+                  .append("&price=").append(priceNorm.stripTrailingZeros().toPlainString())
+                  .append("&timeInForce=GTC");
+            }
+            default -> {}
+        }
+        return pq.toString();
+    }
+
+    /** Ответ FULL: средняя цена — cummulativeQuoteQty / executedQty, комиссия — сумма по fills. */
+    private static OrderResponse toOrderResponse(JsonNode r, String symbol) {
+        BigDecimal executed = new BigDecimal(r.path("executedQty").asText("0"));
+        BigDecimal quote    = new BigDecimal(r.path("cummulativeQuoteQty").asText("0"));
+        BigDecimal avg = avgPrice(r);
+
+        BigDecimal commission = BigDecimal.ZERO;
+        String commissionAsset = null;
+        for (JsonNode fill : r.path("fills")) {
+            commission = commission.add(new BigDecimal(fill.path("commission").asText("0")));
+            if (commissionAsset == null) commissionAsset = fill.path("commissionAsset").asText(null);
         }
+
+        BigDecimal limit = new BigDecimal(r.path("price").asText("0"));
+        return OrderResponse.builder()
+                .orderId(r.path("orderId").asText(null))
+                .symbol(r.path("symbol").asText(symbol))
+                .status(r.path("status").asText(null))
+                .price(limit.signum() > 0 ? limit : avg)
+                .origQty(new BigDecimal(r.path("origQty").asText("0")))
+                .executedQty(executed)
+                .avgPrice(avg)
+                .quoteQty(quote)
+                .commission(commission)
+                .commissionAsset(commissionAsset)
+                .transactTime(Instant.ofEpochMilli(r.path("transactTime").asLong(System.currentTimeMillis())))
+                .build();
+    }
+
+    private static boolean isInsufficientBalance(HttpClientErrorException e) {
+        String body = e.getResponseBodyAsString();
+        return body != null && body.contains("\"code\":-2010") && body.toLowerCase(Locale.ROOT).contains("insufficient balance");
     }
 
     @Override
@@ -616,23 +683,7 @@ public class BinanceExchangeClient implements ExchangeClient {
     public List<OrderInfo> fetchOpenOrders(String apiKey, String secretKey, NetworkType n, String symbol) {
         try {
             getFilters(n, symbol);
-            String body = signedGet(n, "/api/v3/openOrders", "symbol=" + enc(symbol), apiKey, secretKey);
-            JsonNode arr = parseJson(body);
-            List<OrderInfo> out = new ArrayList<>();
-            for (JsonNode j : arr) {
-                out.add(OrderInfo.builder()
-                        .orderId(j.path("orderId").asText())
-                        .symbol(j.path("symbol").asText())
-                        .status(j.path("status").asText())
-                        .side("BUY".equalsIgnoreCase(j.path("side").asText()) ? OrderSide.BUY : OrderSide.SELL)
-                        .type(com.chicu.aibot.exchange.enums.OrderType.valueOf(j.path("type").asText("LIMIT")))
-                        .price(new BigDecimal(j.path("price").asText("0")))
-                        .origQty(new BigDecimal(j.path("origQty").asText("0")))
-                        .executedQty(new BigDecimal(j.path("executedQty").asText("0")))
-                        .updateTime(Instant.ofEpochMilli(j.path("updateTime").asLong(System.currentTimeMillis())))
-                        .build());
-            }
-            return out;
+            return fetchOpenOrdersStrict(apiKey, secretKey, n, symbol);
         } catch (Exception e) {
             log.warn("Binance fetchOpenOrders({}) failed: {}", symbol, e.getMessage());
             return Collections.emptyList();
@@ -640,29 +691,169 @@ public class BinanceExchangeClient implements ExchangeClient {
     }
 
     @Override
-    public Optional<OrderInfo> fetchOrder(String apiKey, String secretKey, NetworkType n, String symbol, String orderId) {
-        try {
-            String pq = "symbol=" + enc(symbol) + "&orderId=" + enc(orderId);
-            String body = signedGet(n, "/api/v3/order", pq, apiKey, secretKey);
-            JsonNode j = parseJson(body);
-            OrderInfo info = OrderInfo.builder()
+    public List<OrderInfo> fetchOpenOrdersStrict(String apiKey, String secretKey, NetworkType n, String symbol) {
+        String body = signedGet(n, "/api/v3/openOrders", "symbol=" + enc(symbol), apiKey, secretKey);
+        return toOpenOrders(parseJson(body));
+    }
+
+    /** /api/v3/allOrders: окно не длиннее суток, до 1000 ордеров; ошибки пробрасываются. */
+    @Override
+    public List<OrderInfo> fetchOrderHistory(String apiKey, String secretKey, NetworkType n, String symbol, Instant since) {
+        long now = System.currentTimeMillis();
+        long start = Math.max(since.toEpochMilli(), now - ALL_ORDERS_WINDOW_MS);
+        String pq = "symbol=" + enc(symbol) + "&startTime=" + start + "&endTime=" + now + "&limit=1000";
+        String body = signedGet(n, "/api/v3/allOrders", pq, apiKey, secretKey);
+        return toOpenOrders(parseJson(body));
+    }
+
+    /** Без symbol — все символы аккаунта (вес запроса 80); ошибки пробрасываются. */
+    @Override
+    public List<OrderInfo> fetchAllOpenOrders(String apiKey, String secretKey, NetworkType n) {
+        String body = signedGet(n, "/api/v3/openOrders", "", apiKey, secretKey);
+        return toOpenOrders(parseJson(body));
+    }
+
+    private List<OrderInfo> toOpenOrders(JsonNode arr) {
+        List<OrderInfo> out = new ArrayList<>();
+        for (JsonNode j : arr) {
+            out.add(OrderInfo.builder()
                     .orderId(j.path("orderId").asText())
                     .symbol(j.path("symbol").asText())
                     .status(j.path("status").asText())
                     .side("BUY".equalsIgnoreCase(j.path("side").asText()) ? OrderSide.BUY : OrderSide.SELL)
-                    .type(com.chicu.aibot.exchange.enums.OrderType.valueOf(j.path("type").asText("LIMIT")))
+                    .type(openOrderType(j.path("type").asText("LIMIT")))
                     .price(new BigDecimal(j.path("price").asText("0")))
                     .origQty(new BigDecimal(j.path("origQty").asText("0")))
                     .executedQty(new BigDecimal(j.path("executedQty").asText("0")))
+                    .avgPrice(avgPrice(j))
+                    .quoteQty(new BigDecimal(j.path("cummulativeQuoteQty").asText("0")))
                     .updateTime(Instant.ofEpochMilli(j.path("updateTime").asLong(System.currentTimeMillis())))
-                    .build();
-            return Optional.of(info);
+                    .build());
+        }
+        return out;
+    }
+
+    /** Средняя цена исполнения: cummulativeQuoteQty / executedQty; null — ничего не исполнено. */
+    private static BigDecimal avgPrice(JsonNode j) {
+        BigDecimal executed = new BigDecimal(j.path("executedQty").asText("0"));
+        if (executed.signum() <= 0) return null;
+        BigDecimal quote = new BigDecimal(j.path("cummulativeQuoteQty").asText("0"));
+        return quote.divide(executed, 12, RoundingMode.HALF_UP).stripTrailingZeros();
+    }
+
+    /** Ноги OCO (LIMIT_MAKER, STOP_LOSS_LIMIT) в общем списке тоже есть — для них типа нет. */
+    private static com.chicu.aibot.exchange.enums.OrderType openOrderType(String type) {
+        try {
+            return com.chicu.aibot.exchange.enums.OrderType.valueOf(type);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public Optional<OrderInfo> fetchOrder(String apiKey, String secretKey, NetworkType n, String symbol, String orderId) {
+        try {
+            return fetchOrderStrict(apiKey, secretKey, n, symbol, orderId);
         } catch (Exception e) {
             log.warn("Binance fetchOrder({}, {}) failed: {}", symbol, orderId, e.getMessage());
             return Optional.empty();
         }
     }
 
+    /** -2013 «Order does not exist» — единственный ответ, при котором ордера нет; прочие ошибки пробрасываются. */
+    @Override
+    public Optional<OrderInfo> fetchOrderStrict(String apiKey, String secretKey, NetworkType n, String symbol, String orderId) {
+        String body;
+        try {
+            String pq = "symbol=" + enc(symbol) + "&orderId=" + enc(orderId);
+            body = signedGet(n, "/api/v3/order", pq, apiKey, secretKey);
+        } catch (HttpClientErrorException e) {
+            String err = e.getResponseBodyAsString();
+            if (err != null && err.contains("\"code\":-2013")) return Optional.empty();
+            throw e;
+        }
+        JsonNode j = parseJson(body);
+        return Optional.of(OrderInfo.builder()
+                .orderId(j.path("orderId").asText())
+                .symbol(j.path("symbol").asText())
+                .status(j.path("status").asText())
+                .side("BUY".equalsIgnoreCase(j.path("side").asText()) ? OrderSide.BUY : OrderSide.SELL)
+                // LIMIT_MAKER / STOP_LOSS_LIMIT (ноги OCO) — лимитные по сути
+                .type("MARKET".equals(j.path("type").asText())
+                        ? com.chicu.aibot.exchange.enums.OrderType.MARKET
+                        : com.chicu.aibot.exchange.enums.OrderType.LIMIT)
+                .price(new BigDecimal(j.path("price").asText("0")))
+                .origQty(new BigDecimal(j.path("origQty").asText("0")))
+                .executedQty(new BigDecimal(j.path("executedQty").asText("0")))
+                .avgPrice(avgPrice(j))
+                .quoteQty(new BigDecimal(j.path("cummulativeQuoteQty").asText("0")))
+                .updateTime(Instant.ofEpochMilli(j.path("updateTime").asLong(System.currentTimeMillis())))
+                .build());
+    }
+
+    /* ===== Защитная OCO-связка ===== */
+
+    /**
+     * OCO через /api/v3/orderList/oco: тейк — LIMIT_MAKER, стоп — STOP_LOSS_LIMIT.
+     * Для выхода из лонга (SELL) тейк — верхняя нога, для шорта (BUY) — нижняя.
+     */
+    @Override
+    public ProtectiveOrderResponse placeProtectiveOrders(String apiKey, String secretKey, NetworkType n,
+                                                         ProtectiveOrderRequest req) {
+        BnFilters f = getFilters(n, req.getSymbol());
+        BigDecimal qty  = quantizeDown(req.getQuantity(), f.stepSize());
+        BigDecimal tp   = quantizeDown(req.getTakeProfitPrice(), f.tickSize());
+        BigDecimal stop = quantizeDown(req.getStopPrice(), f.tickSize());
+        BigDecimal stopLimit = quantizeDown(
+                req.getStopLimitPrice() != null ? req.getStopLimitPrice() : req.getStopPrice(), f.tickSize());
+        if (qty == null || qty.signum() <= 0) throw new IllegalArgumentException("Quantity is zero after quantize");
+
+        boolean sell = "SELL".equals(req.getSide().name());
+        String tpLeg = sell ? "above" : "below";
+        String slLeg = sell ? "below" : "above";
+
+        String pq = "symbol=" + enc(req.getSymbol())
+                + "&side=" + req.getSide().name()
+                + "&quantity=" + qty.stripTrailingZeros().toPlainString()
+                + "&" + tpLeg + "Type=LIMIT_MAKER"
+                + "&" + tpLeg + "Price=" + tp.stripTrailingZeros().toPlainString()
+                + "&" + slLeg + "Type=STOP_LOSS_LIMIT"
+                + "&" + slLeg + "StopPrice=" + stop.stripTrailingZeros().toPlainString()
+                + "&" + slLeg + "Price=" + stopLimit.stripTrailingZeros().toPlainString()
+                + "&" + slLeg + "TimeInForce=GTC";
+
+        JsonNode r = parseJson(signedRequest(n, "/api/v3/orderList/oco", pq, apiKey, secretKey, HttpMethod.POST));
+        String tpId = null, slId = null;
+        for (JsonNode o : r.path("orderReports")) {
+            String type = o.path("type").asText("");
+            if ("LIMIT_MAKER".equals(type)) tpId = o.path("orderId").asText(null);
+            else slId = o.path("orderId").asText(null);
+        }
+        log.info("✅ Binance OCO: symbol={}, side={}, qty={}, tp={}, stop={}, listId={}",
+                req.getSymbol(), req.getSide(), qty, tp, stop, r.path("orderListId").asText());
+        return ProtectiveOrderResponse.builder()
+                .listId(r.path("orderListId").asText(null))
+                .takeProfitOrderId(tpId)
+                .stopOrderId(slId)
+                .build();
+    }
+
+    @Override
+    public void cancelProtectiveOrders(String apiKey, String secretKey, NetworkType n,
+                                       String symbol, ProtectiveOrderResponse orders) {
+        if (orders == null || orders.getListId() == null) return;
+        String pq = "symbol=" + enc(symbol) + "&orderListId=" + enc(orders.getListId());
+        try {
+            signedRequest(n, "/api/v3/orderList", pq, apiKey, secretKey, HttpMethod.DELETE);
+            log.info("✅ Binance OCO cancel OK: symbol={}, listId={}", symbol, orders.getListId());
+        } catch (HttpClientErrorException e) {
+            String body = e.getResponseBodyAsString();
+            // список уже исполнен/снят
+            if (body.contains("\"code\":-2011") || body.contains("Unknown order")) return;
+            throw e;
+        }
+    }
+
     /* ===== Отмена ордера (соответствует ExchangeClient) ===== */
     @Override
     public void cancelOrder(String exchange,
@@ -1,6 +1,7 @@
 package com.chicu.aibot.exchange.bybit;
 
 import com.chicu.aibot.exchange.client.ExchangeClient;
+import com.chicu.aibot.exchange.client.ExchangeSymbolMetaClient;
 import com.chicu.aibot.exchange.enums.NetworkType;
 import com.chicu.aibot.exchange.enums.OrderSide;
 import com.chicu.aibot.exchange.model.*;
@@ -27,7 +28,7 @@ import java.util.concurrent.ConcurrentMap;
 @Slf4j
 @Component("BYBIT")
 @RequiredArgsConstructor
-public class BybitExchangeClient implements ExchangeClient {
+public class BybitExchangeClient implements ExchangeClient, ExchangeSymbolMetaClient {
 
     @Value("${bybit.api.mainnet-base-url:https://api.bybit.com}")
     private String mainnetBaseUrl;
@@ -36,6 +37,8 @@ public class BybitExchangeClient implements ExchangeClient {
     private String testnetBaseUrl;
 
     private static final String RECV_WINDOW = "5000";
+    /** /v5/order/history принимает окно не длиннее 7 дней — с запасом на расхождение часов. */
+    private static final long HISTORY_WINDOW_MS = 7 * 24 * 60 * 60_000L - 60_000L;
 
     private final RestTemplate rest;
     private final ObjectMapper objectMapper;
@@ -124,7 +127,8 @@ public class BybitExchangeClient implements ExchangeClient {
     private record SymbolFilters(
             BigDecimal tickSize,
             BigDecimal qtyStep,
-            BigDecimal minOrderQty
+            BigDecimal minOrderQty,
+            BigDecimal minOrderAmt
     ) {}
 
     private final ConcurrentMap<String, SymbolFilters> filtersCache = new ConcurrentHashMap<>();
@@ -134,7 +138,25 @@ public class BybitExchangeClient implements ExchangeClient {
     }
 
     private SymbolFilters getFilters(NetworkType network, String symbol) {
-        return filtersCache.computeIfAbsent(fKey(network, symbol), k -> fetchFilters(network, symbol));
+        SymbolFilters f = filtersCache.get(fKey(network, symbol));
+        if (f != null) return f;
+        f = fetchFilters(network, symbol);
+        // неудачу не кэшируем: сбой сети не должен «ломать» символ до перезапуска
+        if (f.qtyStep() != null) filtersCache.put(fKey(network, symbol), f);
+        return f;
+    }
+
+    /** Фильтры для проверок до отправки ордера — из кэша instruments-info, без запроса к бирже. */
+    @Override
+    public com.chicu.aibot.exchange.model.SymbolFilters getSymbolFilters(String apiKey, String secretKey,
+                                                                       NetworkType network, String symbol) {
+        SymbolFilters f = getFilters(network, symbol);
+        if (f.qtyStep() == null) return null;
+        return com.chicu.aibot.exchange.model.SymbolFilters.builder()
+                .stepSize(f.qtyStep())
+                .minQty(f.minOrderQty())
+                .minNotional(f.minOrderAmt())
+                .build();
     }
 
     private SymbolFilters fetchFilters(NetworkType network, String symbol) {
@@ -149,10 +171,11 @@ public class BybitExchangeClient implements ExchangeClient {
             BigDecimal tickSize    = new BigDecimal(info.path("priceFilter").path("tickSize").asText("0"));
             BigDecimal qtyStep     = new BigDecimal(info.path("lotSizeFilter").path("qtyStep").asText("0"));
             BigDecimal minOrderQty = new BigDecimal(info.path("lotSizeFilter").path("minOrderQty").asText("0"));
-            return new SymbolFilters(tickSize, qtyStep, minOrderQty);
+            BigDecimal minOrderAmt = new BigDecimal(info.path("lotSizeFilter").path("minOrderAmt").asText("0"));
+            return new SymbolFilters(tickSize, qtyStep, minOrderQty, minOrderAmt);
         } catch (Exception e) {
             log.warn("Bybit instruments-info fetch failed for {}: {}", symbol, e.getMessage());
-            return new SymbolFilters(null, null, null);
+            return new SymbolFilters(null, null, null, null);
         }
     }
 
@@ -261,9 +284,11 @@ public class BybitExchangeClient implements ExchangeClient {
 
             JsonNode result = root.path("result");
             String orderId = result.path("orderId").asText(null); // приходит сразу
+            // create отдаёт только orderId: лимитный ордер принят как NEW, а исход рыночного
+            // неизвестен (null) — его дочитывает вызывающий
             String status = result.hasNonNull("orderStatus")
                     ? result.path("orderStatus").asText()
-                    : "NEW";
+                    : ("Limit".equals(orderType) ? "NEW" : null);
 
             BigDecimal executed = BigDecimal.ZERO;
             if (result.hasNonNull("cumExecQty")) {
@@ -288,6 +313,102 @@ public class BybitExchangeClient implements ExchangeClient {
         }
     }
 
+    /* ===== Защита позиции: две условные заявки (orderFilter=tpslOrder) ===== */
+
+    /**
+     * У спота Bybit нет OCO на уже открытую позицию: ставим TP и SL отдельными условными
+     * рыночными заявками, вторую ногу после исполнения первой снимает менеджер выходов.
+     */
+    @Override
+    public ProtectiveOrderResponse placeProtectiveOrders(String apiKey, String secretKey, NetworkType network,
+                                                         ProtectiveOrderRequest req) {
+        SymbolFilters f = getFilters(network, req.getSymbol());
+        BigDecimal qty = quantize(req.getQuantity(), f.qtyStep());
+        if (qty == null || qty.signum() == 0) {
+            throw new IllegalArgumentException("Quantity is zero after quantize");
+        }
+        String tpId = placeTpsl(apiKey, secretKey, network, req, qty, quantize(req.getTakeProfitPrice(), f.tickSize()));
+        String slId;
+        try {
+            slId = placeTpsl(apiKey, secretKey, network, req, qty, quantize(req.getStopPrice(), f.tickSize()));
+        } catch (RuntimeException ex) {
+            // без стопа связка не нужна — снимаем тейк
+            cancelOrder("BYBIT", req.getSymbol(), apiKey, secretKey, network, tpId, null);
+            throw ex;
+        }
+        log.info("✅ Bybit TP/SL: symbol={}, side={}, qty={}, tpId={}, slId={}",
+                req.getSymbol(), req.getSide(), qty, tpId, slId);
+        return ProtectiveOrderResponse.builder()
+                .listId(tpId)
+                .takeProfitOrderId(tpId)
+                .stopOrderId(slId)
+                .build();
+    }
+
+    private String placeTpsl(String apiKey, String secretKey, NetworkType network,
+                             ProtectiveOrderRequest req, BigDecimal qty, BigDecimal trigger) {
+        if (trigger == null || trigger.signum() == 0) {
+            throw new IllegalArgumentException("Trigger price is zero after quantize");
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("category", "spot");
+        body.put("symbol", req.getSymbol());
+        body.put("side", req.getSide().name().equals("BUY") ? "Buy" : "Sell");
+        body.put("orderType", "Market");
+        body.put("qty", qty.stripTrailingZeros().toPlainString());
+        body.put("marketUnit", "baseCoin");
+        body.put("triggerPrice", trigger.stripTrailingZeros().toPlainString());
+        body.put("orderFilter", "tpslOrder");
+
+        JsonNode root = signedPost(baseUrl(network) + "/v5/order/create", body, apiKey, secretKey);
+        int retCode = root.path("retCode").asInt(-1);
+        if (retCode != 0) {
+            throw new RuntimeException("Bybit tpsl order failed: retCode=" + retCode + ", retMsg=" + root.path("retMsg").asText());
+        }
+        return root.path("result").path("orderId").asText(null);
+    }
+
+    @Override
+    public void cancelProtectiveOrders(String apiKey, String secretKey, NetworkType network,
+                                       String symbol, ProtectiveOrderResponse orders) {
+        if (orders == null) return;
+        for (String id : new String[]{orders.getTakeProfitOrderId(), orders.getStopOrderId()}) {
+            if (id == null || id.isBlank()) continue;
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("category", "spot");
+            body.put("symbol", symbol);
+            body.put("orderId", id);
+            body.put("orderFilter", "tpslOrder");
+            JsonNode root = signedPost(baseUrl(network) + "/v5/order/cancel", body, apiKey, secretKey);
+            if (root.path("retCode").asInt(-1) != 0) {
+                // уже сработала или снята — для связки это не ошибка
+                log.debug("Bybit tpsl cancel {}: {}", id, root.path("retMsg").asText());
+            }
+        }
+    }
+
+    /** Не сработавшие условные заявки видны только с orderFilter=tpslOrder. */
+    @Override
+    public Optional<OrderInfo> fetchProtectiveLeg(String apiKey, String secretKey, NetworkType network,
+                                                  String symbol, String orderId) {
+        String rt = baseUrl(network) + "/v5/order/realtime?category=spot"
+                + "&symbol=" + enc(symbol) + "&orderId=" + enc(orderId) + "&orderFilter=tpslOrder";
+        currentApiKey.set(apiKey);
+        currentSecretKey.set(secretKey);
+        try {
+            JsonNode list = signedGet(rt).path("result").path("list");
+            if (list.isArray() && !list.isEmpty()) {
+                return Optional.of(toInfo(list.get(0)));
+            }
+        } catch (Exception ex) {
+            log.debug("Bybit tpsl realtime miss: {}", ex.getMessage());
+        } finally {
+            currentApiKey.remove();
+            currentSecretKey.remove();
+        }
+        return fetchOrder(apiKey, secretKey, network, symbol, orderId);
+    }
+
     /* ===== Отмена ордера (соответствует ExchangeClient) ===== */
     @Override
     public void cancelOrder(String exchange,
@@ -358,6 +479,91 @@ public class BybitExchangeClient implements ExchangeClient {
         return out;
     }
 
+    @Override
+    public List<OrderInfo> fetchOpenOrdersStrict(String apiKey, String secretKey, NetworkType network, String symbol) {
+        return pagedOrders(apiKey, secretKey, baseUrl(network) + "/v5/order/realtime?category=spot&limit=50&symbol=" + enc(symbol));
+    }
+
+    /** /v5/order/history: окно не длиннее 7 дней, страницами по 50 (cursor); ошибки пробрасываются. */
+    @Override
+    public List<OrderInfo> fetchOrderHistory(String apiKey, String secretKey, NetworkType network,
+                                             String symbol, Instant since) {
+        long now = System.currentTimeMillis();
+        long start = Math.max(since.toEpochMilli(), now - HISTORY_WINDOW_MS);
+        return pagedOrders(apiKey, secretKey, baseUrl(network) + "/v5/order/history?category=spot&limit=50"
+                + "&symbol=" + enc(symbol) + "&startTime=" + start + "&endTime=" + now);
+    }
+
+    private List<OrderInfo> pagedOrders(String apiKey, String secretKey, String baseQuery) {
+        List<OrderInfo> out = new ArrayList<>();
+        currentApiKey.set(apiKey);
+        currentSecretKey.set(secretKey);
+        try {
+            String cursor = "";
+            do {
+                String url = baseQuery + (cursor.isBlank() ? "" : "&cursor=" + enc(cursor));
+                JsonNode root = signedGet(url);
+                int ret = root.path("retCode").asInt(-1);
+                if (ret != 0) {
+                    throw new RuntimeException("Bybit orders failed: retCode=" + ret + ", retMsg=" + root.path("retMsg").asText());
+                }
+                JsonNode list = root.path("result").path("list");
+                if (list.isArray()) {
+                    for (JsonNode n : list) out.add(toInfo(n));
+                }
+                cursor = root.path("result").path("nextPageCursor").asText("");
+            } while (!cursor.isBlank());
+        } finally {
+            currentApiKey.remove();
+            currentSecretKey.remove();
+        }
+        return out;
+    }
+
+    /** Все символы аккаунта, страницами по 50 (cursor); ошибки пробрасываются. */
+    @Override
+    public List<OrderInfo> fetchAllOpenOrders(String apiKey, String secretKey, NetworkType network) {
+        return pagedOrders(apiKey, secretKey, baseUrl(network) + "/v5/order/realtime?category=spot&limit=50");
+    }
+
+    /** /v5/order/cancel-batch: до 10 ордеров спота за запрос. 170213 — ордера уже нет. */
+    @Override
+    public Set<String> cancelOrders(String apiKey, String secretKey, NetworkType network,
+                                    String symbol, List<String> orderIds) {
+        Set<String> gone = new LinkedHashSet<>();
+        for (int from = 0; from < orderIds.size(); from += 10) {
+            List<String> chunk = orderIds.subList(from, Math.min(orderIds.size(), from + 10));
+            List<Map<String, Object>> request = new ArrayList<>(chunk.size());
+            for (String id : chunk) {
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("symbol", symbol);
+                item.put("orderId", id);
+                request.add(item);
+            }
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("category", "spot");
+            body.put("request", request);
+            try {
+                JsonNode root = signedPost(baseUrl(network) + "/v5/order/cancel-batch", body, apiKey, secretKey);
+                if (root.path("retCode").asInt(-1) != 0) {
+                    log.warn("Bybit cancel-batch retCode={}, msg={}", root.path("retCode").asInt(), root.path("retMsg").asText());
+                    continue;
+                }
+                // результаты по позициям запроса
+                JsonNode codes = root.path("retExtInfo").path("list");
+                for (int i = 0; i < chunk.size(); i++) {
+                    int code = codes.path(i).path("code").asInt(0);
+                    if (code == 0 || code == 170213) gone.add(chunk.get(i));
+                    else log.warn("Bybit cancel-batch {}: code={}, msg={}", chunk.get(i), code, codes.path(i).path("msg").asText());
+                }
+            } catch (Exception ex) {
+                log.warn("Bybit cancel-batch {} failed: {}", symbol, ex.getMessage());
+            }
+        }
+        log.info("✅ Bybit cancel-batch: symbol={}, снято {}/{}", symbol, gone.size(), orderIds.size());
+        return gone;
+    }
+
     /* ===== Статус конкретного ордера (realtime -> history) ===== */
     @Override
     public Optional<OrderInfo> fetchOrder(String apiKey, String secretKey, NetworkType network,
@@ -401,6 +607,35 @@ public class BybitExchangeClient implements ExchangeClient {
         return Optional.empty();
     }
 
+    /**
+     * realtime, затем history; ошибки HTTP и retCode пробрасываются. Пусто — обе выборки ответили
+     * успешно и без ордера, либо retCode 170213 «Order does not exist».
+     */
+    @Override
+    public Optional<OrderInfo> fetchOrderStrict(String apiKey, String secretKey, NetworkType network,
+                                                String symbol, String orderId) {
+        String query = "?category=spot&symbol=" + enc(symbol) + "&orderId=" + enc(orderId);
+        currentApiKey.set(apiKey);
+        currentSecretKey.set(secretKey);
+        try {
+            for (String path : List.of("/v5/order/realtime", "/v5/order/history")) {
+                JsonNode root = signedGet(baseUrl(network) + path + query);
+                int ret = root.path("retCode").asInt(-1);
+                if (ret == 170213) return Optional.empty();
+                if (ret != 0) {
+                    throw new RuntimeException("Bybit " + path + " failed: retCode=" + ret
+                            + ", retMsg=" + root.path("retMsg").asText());
+                }
+                JsonNode list = root.path("result").path("list");
+                if (list.isArray() && !list.isEmpty()) return Optional.of(toInfo(list.get(0)));
+            }
+            return Optional.empty();
+        } finally {
+            currentApiKey.remove();
+            currentSecretKey.remove();
+        }
+    }
+
     private OrderInfo toInfo(JsonNode n) {
         String status = n.path("orderStatus").asText("");           // New / PartiallyFilled / Filled / Cancelled ...
         String sideStr = n.path("side").asText("Buy");
@@ -417,12 +652,17 @@ public class BybitExchangeClient implements ExchangeClient {
             if (!"".equals(q)) exec = new BigDecimal(q);
         }
 
+        BigDecimal avg = BigDecimal.ZERO;
+        String a = n.path("avgPrice").asText("");
+        if (!a.isBlank()) avg = new BigDecimal(a);
+
         return OrderInfo.builder()
                 .orderId(n.path("orderId").asText(null))
                 .symbol(n.path("symbol").asText(null))
                 .side(side)
                 .status(status.toUpperCase(Locale.ROOT))
                 .price(price)
+                .avgPrice(avg)
                 .executedQty(exec)
                 .build();
     }
@@ -4,9 +4,12 @@ import com.chicu.aibot.exchange.enums.NetworkType;
 import com.chicu.aibot.exchange.model.*;
 import com.chicu.aibot.strategy.model.Candle;
 
+import java.time.Instant;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 public interface ExchangeClient {
 
@@ -86,6 +89,34 @@ public interface ExchangeClient {
         return Collections.emptyList();
     }
 
+    /**
+     * Открытые ордера символа; в отличие от {@link #fetchOpenOrders} ошибку не глотает.
+     * @throws UnsupportedOperationException если клиент этого не умеет
+     */
+    default List<OrderInfo> fetchOpenOrdersStrict(String apiKey, String secretKey, NetworkType network, String symbol) {
+        throw new UnsupportedOperationException("Strict open orders are not supported");
+    }
+
+    /**
+     * Ордера символа любого статуса, созданные не раньше {@code since}, — для пакетной сверки статусов.
+     * Окно истории ограничивает биржа (Binance — сутки, Bybit — неделя): более старые не вернутся.
+     * Ошибку не глотает.
+     * @throws UnsupportedOperationException если клиент этого не умеет
+     */
+    default List<OrderInfo> fetchOrderHistory(String apiKey, String secretKey, NetworkType network,
+                                              String symbol, Instant since) {
+        throw new UnsupportedOperationException("Order history is not supported");
+    }
+
+    /**
+     * Все открытые ордера аккаунта одним запросом — для сверки «мёртвых» записей.
+     * В отличие от {@link #fetchOpenOrders} ошибку не глотает: пустой список — ордеров действительно нет.
+     * @throws UnsupportedOperationException если клиент этого не умеет
+     */
+    default List<OrderInfo> fetchAllOpenOrders(String apiKey, String secretKey, NetworkType network) {
+        throw new UnsupportedOperationException("Account-wide open orders are not supported");
+    }
+
     /**
      * Получить информацию по конкретному ордеру
      */
@@ -93,6 +124,42 @@ public interface ExchangeClient {
         return Optional.empty();
     }
 
+    /**
+     * Ордер по id; в отличие от {@link #fetchOrder} ошибку (таймаут, 429, 5xx) не глотает.
+     * Пусто — только когда биржа явно ответила, что такого ордера нет (Binance -2013,
+     * Bybit — ни в realtime, ни в history при retCode 0 или 170213).
+     * @throws UnsupportedOperationException если клиент этого не умеет
+     */
+    default Optional<OrderInfo> fetchOrderStrict(String apiKey, String secretKey, NetworkType network,
+                                                 String symbol, String orderId) {
+        throw new UnsupportedOperationException("Strict order lookup is not supported");
+    }
+
+    /**
+     * Выставить защиту позиции: TP и SL на бирже одной связкой (исполнение одной ноги снимает другую).
+     * @throws UnsupportedOperationException если биржа такого не умеет
+     */
+    default ProtectiveOrderResponse placeProtectiveOrders(String apiKey, String secretKey, NetworkType network,
+                                                          ProtectiveOrderRequest request) {
+        throw new UnsupportedOperationException("Protective orders are not supported");
+    }
+
+    /**
+     * Снять защитную связку целиком.
+     */
+    default void cancelProtectiveOrders(String apiKey, String secretKey, NetworkType network,
+                                        String symbol, ProtectiveOrderResponse orders) {
+        throw new UnsupportedOperationException("Protective orders are not supported");
+    }
+
+    /**
+     * Статус ноги защитной связки (у некоторых бирж условные заявки лежат отдельно от обычных).
+     */
+    default Optional<OrderInfo> fetchProtectiveLeg(String apiKey, String secretKey, NetworkType network,
+                                                   String symbol, String orderId) {
+        return fetchOrder(apiKey, secretKey, network, symbol, orderId);
+    }
+
     /**
      * Отменить ордер
      */
@@ -104,4 +171,27 @@ public interface ExchangeClient {
                      String orderId,
                      String clientOrderId);
 
+    /**
+     * Снять несколько ордеров символа. Возвращает orderId, которых на бирже больше нет
+     * (сняты сейчас или были сняты/исполнены раньше); остальные снять не удалось.
+     * По умолчанию — по одному через {@link #cancelOrder}; биржи с пакетной отменой переопределяют.
+     */
+    default Set<String> cancelOrders(String apiKey, String secretKey, NetworkType network,
+                                     String symbol, List<String> orderIds) {
+        Set<String> gone = new LinkedHashSet<>();
+        for (String id : orderIds) {
+            try {
+                // аргументы — в порядке реализаций: exchange, symbol, apiKey, secretKey
+                cancelOrder(null, symbol, apiKey, secretKey, network, id, null);
+                gone.add(id);
+            } catch (Exception e) {
+                String msg = String.valueOf(e.getMessage());
+                if (msg.contains("-2011") || msg.contains("Unknown order") || msg.contains("order does not exist")) {
+                    gone.add(id);
+                }
+            }
+        }
+        return gone;
+    }
+
 }
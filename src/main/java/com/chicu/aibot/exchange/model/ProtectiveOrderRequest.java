@@ -0,0 +1,28 @@
+package com.chicu.aibot.exchange.model;
+
+import com.chicu.aibot.exchange.enums.OrderSide;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Биржевая защита открытой позиции: тейк-профит и стоп-лосс одной связкой.
+ * side — сторона выхода (SELL для лонга, BUY для шорта).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProtectiveOrderRequest {
+    private String symbol;
+    private OrderSide side;
+    private BigDecimal quantity;
+    private BigDecimal takeProfitPrice;
+    /** Цена срабатывания стопа. */
+    private BigDecimal stopPrice;
+    /** Лимитная цена стоп-ордера (если биржа требует STOP_LOSS_LIMIT); null — взять stopPrice. */
+    private BigDecimal stopLimitPrice;
+}
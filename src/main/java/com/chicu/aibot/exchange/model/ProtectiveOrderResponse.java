@@ -0,0 +1,20 @@
+package com.chicu.aibot.exchange.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Ответ на выставление защитной связки. У Binance это OCO-список (orderListId),
+ * у Bybit — две условные заявки, связанные по id тейк-профита.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProtectiveOrderResponse {
+    private String listId;
+    private String takeProfitOrderId;
+    private String stopOrderId;
+}
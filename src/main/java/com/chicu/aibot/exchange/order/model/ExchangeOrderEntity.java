@@ -1,22 +1,31 @@
 package com.chicu.aibot.exchange.order.model;
 
 import com.chicu.aibot.exchange.enums.NetworkType;
+import com.chicu.aibot.exchange.order.service.impl.OpenOrderIndexListener;
+import com.chicu.aibot.trading.persist.impl.PooledIdListener;
 import jakarta.persistence.*;
 import lombok.*;
 
 import java.math.BigDecimal;
 import java.time.Instant;
 
+/**
+ * Схему exchange_orders ведёт Flyway ({@code db/migration}), а не ddl-auto: таблица секционирована
+ * по месяцу {@code createdAt}, side/type/status лежат smallint-кодами ({@link OrderColumnCodes}).
+ * Строка — проекция журнала {@code order_events}: меняется только через
+ * {@link com.chicu.aibot.exchange.order.service.OrderLifecycleService}.
+ */
 @Entity
 @Table(name = "exchange_orders")
+@EntityListeners({PooledIdListener.class, OpenOrderIndexListener.class})
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class ExchangeOrderEntity {
 
+    /** Из пула {@link PooledIdListener}: id известен до вставки, вставки идут JDBC-батчами. */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
     private Long chatId;
@@ -28,10 +37,19 @@ public class ExchangeOrderEntity {
 
     private String orderId;
     private String symbol;
+    @Convert(converter = OrderColumnCodes.Side.class)
     private String side;   // BUY / SELL
-    private String type;   // MARKET / LIMIT
+    @Convert(converter = OrderColumnCodes.Type.class)
+    private String type;   // MARKET / LIMIT / TAKE_PROFIT / STOP_LOSS
+    @Convert(converter = OrderColumnCodes.Status.class)
     private String status; // NEW, FILLED, PARTIALLY_FILLED, CANCELED, REJECTED
 
+    /** Статус, которого нет в {@link OrderColumnCodes} (в status лежит код 0), — как его прислала биржа. */
+    private String statusRaw;
+
+    /** Защитная связка TP/SL, к которой относится нога (OCO orderListId); null — обычный ордер. */
+    private String orderListId;
+
     private BigDecimal price;       // цена ордера
     private BigDecimal quantity;    // заказанное количество
     private BigDecimal executedQty; // реально исполнено
@@ -44,7 +62,22 @@ public class ExchangeOrderEntity {
     private BigDecimal pnl;     // прибыль в quote
     private BigDecimal pnlPct;  // прибыль в процентах
 
+    /** Ключ секционирования — обязателен. */
     private Instant createdAt;
     private Instant updatedAt;
     private Instant lastCheckedAt;
+
+    /** seq последнего применённого события order_events; 0 — строка из времён до журнала. */
+    @Builder.Default
+    private Integer lastEventSeq = 0;
+
+    @PrePersist
+    void defaultCreatedAt() {
+        if (createdAt == null) createdAt = Instant.now();
+    }
+
+    @PostLoad
+    void restoreStatus() {
+        status = OrderColumnCodes.restoreStatus(status, statusRaw);
+    }
 }
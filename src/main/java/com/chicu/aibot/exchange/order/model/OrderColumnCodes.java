@@ -0,0 +1,109 @@
+package com.chicu.aibot.exchange.order.model;
+
+import jakarta.persistence.AttributeConverter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * side / type / status в {@code exchange_orders} и {@code order_events} хранятся smallint-кодами,
+ * в Java остаются строками. Коды зафиксированы миграциями {@code db/migration}: существующие не менять,
+ * новые — только дописывать в конец списка (и в миграцию следующей версии).
+ * Неизвестное значение пишется кодом 0 и читается как {@link #UNKNOWN}; для статуса исходное написание
+ * сохраняется рядом, в {@code status_raw} ({@link #rawIfUnknownStatus}).
+ */
+@Slf4j
+public final class OrderColumnCodes {
+
+    public static final String UNKNOWN = "UNKNOWN";
+
+    /** Коды открытых статусов — литералами в запросах под частичные индексы. */
+    public static final int NEW = 1;
+    public static final int PARTIALLY_FILLED = 2;
+    public static final int PENDING_NEW = 9;
+
+    /** Код = индекс + 1. */
+    static final List<String> SIDES = List.of("BUY", "SELL");
+    static final List<String> TYPES = List.of(
+            "LIMIT", "MARKET", "TAKE_PROFIT", "STOP_LOSS", "TAKE_PROFIT_LIMIT", "STOP_LOSS_LIMIT", "LIMIT_MAKER");
+    static final List<String> STATUSES = List.of(
+            "NEW", "PARTIALLY_FILLED", "FILLED", "CANCELED", "REJECTED", "EXPIRED", "PENDING_CANCEL", "EXPIRED_IN_MATCH",
+            "PENDING_NEW", // V2
+            "UNTRIGGERED", "TRIGGERED", "DEACTIVATED", "PARTIALLY_FILLED_CANCELED"); // V4, статусы Bybit
+
+    /** Написания, которые отдают биржи/старый код. */
+    private static final Map<String, String> ALIASES = Map.of(
+            "CANCELLED", "CANCELED",
+            "PARTIALLYFILLED", "PARTIALLY_FILLED",
+            "PARTIALLYFILLEDCANCELED", "PARTIALLY_FILLED_CANCELED",
+            "PARTIALLYFILLEDCANCELLED", "PARTIALLY_FILLED_CANCELED");
+
+    private static final Status STATUS = new Status();
+
+    private OrderColumnCodes() {
+    }
+
+    /** Статус, который пишется кодом 0, — как есть; известный или null — null. */
+    public static String rawIfUnknownStatus(String status) {
+        if (status == null || UNKNOWN.equals(status)) return null;
+        return STATUS.code(status) == null ? status : null;
+    }
+
+    /** Прочитанный статус: код 0 заменяется сохранённым исходным написанием. */
+    public static String restoreStatus(String status, String raw) {
+        return UNKNOWN.equals(status) && raw != null ? raw : status;
+    }
+
+    private abstract static class Codes implements AttributeConverter<String, Short> {
+        private final String column;
+        private final List<String> values;
+        private final Map<String, Short> codes = new HashMap<>();
+
+        Codes(String column, List<String> values) {
+            this.column = column;
+            this.values = values;
+            for (int i = 0; i < values.size(); i++) codes.put(values.get(i), (short) (i + 1));
+        }
+
+        @Override
+        public Short convertToDatabaseColumn(String value) {
+            if (value == null) return null;
+            Short code = code(value);
+            if (code != null) return code;
+            log.warn("{}: неизвестное значение '{}', пишем код 0", column, value);
+            return 0;
+        }
+
+        Short code(String value) {
+            String key = value.trim().toUpperCase(Locale.ROOT).replace(' ', '_');
+            return codes.get(ALIASES.getOrDefault(key, key));
+        }
+
+        @Override
+        public String convertToEntityAttribute(Short code) {
+            if (code == null) return null;
+            return code >= 1 && code <= values.size() ? values.get(code - 1) : UNKNOWN;
+        }
+    }
+
+    public static final class Side extends Codes {
+        public Side() {
+            super("side", SIDES);
+        }
+    }
+
+    public static final class Type extends Codes {
+        public Type() {
+            super("type", TYPES);
+        }
+    }
+
+    public static final class Status extends Codes {
+        public Status() {
+            super("status", STATUSES);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.chicu.aibot.exchange.order.model;
+
+/**
+ * Событие журнала не записалось: его seq у ордера уже занят (события дописал другой узел, пока
+ * память этого отставала). Публикуется потоком отложенной записи; само событие в БД не попало.
+ */
+public record OrderEventConflictEvent(OrderEventEntity event) {
+}
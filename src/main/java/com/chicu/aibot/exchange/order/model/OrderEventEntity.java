@@ -0,0 +1,85 @@
+package com.chicu.aibot.exchange.order.model;
+
+import com.chicu.aibot.exchange.enums.NetworkType;
+import com.chicu.aibot.trading.persist.impl.PooledIdListener;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Событие из журнала {@code order_events} (схема — миграция V2). Строки не меняются и не удаляются;
+ * состояние ордера — свёртка его событий по {@code seq} ({@link OrderEvents#apply}).
+ * PLACED несёт всё описание ордера, остальные — только то, что изменилось.
+ */
+@Entity
+@Table(name = "order_events")
+@EntityListeners(PooledIdListener.class)
+@Getter
+@Setter
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class OrderEventEntity {
+
+    @Id
+    private Long id;
+
+    /** id строки exchange_orders. */
+    private Long orderKey;
+
+    /** Номер события в пределах ордера, с 1. */
+    private Integer seq;
+
+    @Enumerated(EnumType.ORDINAL)
+    private OrderEventType type;
+
+    private Instant at;
+
+    private Long chatId;
+    private String exchange;
+
+    @Enumerated(EnumType.STRING)
+    private NetworkType network;
+
+    private String orderId;
+    private String orderListId;
+    private String symbol;
+
+    @Convert(converter = OrderColumnCodes.Side.class)
+    private String side;
+
+    @Convert(converter = OrderColumnCodes.Type.class)
+    private String orderType;
+
+    /** Статус ордера после события. */
+    @Convert(converter = OrderColumnCodes.Status.class)
+    private String status;
+
+    /** Статус, которого нет в {@link OrderColumnCodes}, — как есть (миграция V4). */
+    private String statusRaw;
+
+    /** PLACED — цена ордера, *_FILL — средняя цена исполнения (если известна). */
+    private BigDecimal price;
+    private BigDecimal quantity;
+    /** Накопленное исполнение после события. */
+    private BigDecimal executedQty;
+
+    /** ACK — комиссия по исполнению из ответа биржи (миграция V5). */
+    private BigDecimal commission;
+    private String commissionAsset;
+
+    private String reason;
+
+    @PrePersist
+    void keepRawStatus() {
+        statusRaw = OrderColumnCodes.rawIfUnknownStatus(status);
+    }
+
+    @PostLoad
+    void restoreStatus() {
+        status = OrderColumnCodes.restoreStatus(status, statusRaw);
+    }
+}
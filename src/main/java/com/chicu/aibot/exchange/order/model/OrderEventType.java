@@ -0,0 +1,20 @@
+package com.chicu.aibot.exchange.order.model;
+
+/**
+ * Тип события жизненного цикла ордера. В {@code order_events.type} пишется порядковый номер —
+ * константы только дописывать в конец.
+ */
+public enum OrderEventType {
+    /** Ордер заведён у нас: символ, сторона, тип, цена, объём. Статус PENDING_NEW. */
+    PLACED,
+    /** Биржа приняла ордер и выдала orderId. Статус NEW. */
+    ACK,
+    /** Частичное исполнение: executedQty — накопленный объём. */
+    PARTIAL_FILL,
+    /** Полное исполнение. */
+    FILL,
+    /** Снят (нами или биржей): CANCELED / EXPIRED. */
+    CANCEL,
+    /** Отклонён до или при отправке. */
+    REJECT
+}
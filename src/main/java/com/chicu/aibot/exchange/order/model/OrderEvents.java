@@ -0,0 +1,114 @@
+package com.chicu.aibot.exchange.order.model;
+
+import java.math.BigDecimal;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Свёртка журнала: чистые функции без БД и часов — одна и та же последовательность событий
+ * всегда даёт одну и ту же строку exchange_orders (этим пользуется доигрывание после сбоя).
+ */
+public final class OrderEvents {
+
+    public static final String PENDING_NEW = "PENDING_NEW";
+
+    /** Статусы, в которых ордер ещё может исполниться. */
+    public static final Set<String> OPEN = Set.of(PENDING_NEW, "NEW", "PARTIALLY_FILLED");
+
+    /** Снят без полного исполнения; DEACTIVATED и PARTIALLY_FILLED_CANCELED — написания Bybit. */
+    private static final Set<String> CANCELED = Set.of(
+            "CANCELED", "EXPIRED", "EXPIRED_IN_MATCH", "DEACTIVATED", "PARTIALLY_FILLED_CANCELED");
+
+    private OrderEvents() {
+    }
+
+    public static boolean isOpen(ExchangeOrderEntity state) {
+        return state != null && OPEN.contains(state.getStatus());
+    }
+
+    /** Статус биржи в написании exchange_orders: NEW, PARTIALLY_FILLED, CANCELED... */
+    public static String normalizeStatus(String raw) {
+        if (raw == null || raw.isBlank()) return "NEW";
+        String s = raw.trim().toUpperCase(Locale.ROOT).replace(" ", "").replace("_", "");
+        return switch (s) {
+            case "PARTIALLYFILLED" -> "PARTIALLY_FILLED";
+            case "CANCELLED", "CANCELED" -> "CANCELED";
+            case "PENDINGNEW" -> PENDING_NEW;
+            case "PENDINGCANCEL" -> "PENDING_CANCEL";
+            case "EXPIREDINMATCH" -> "EXPIRED_IN_MATCH";
+            case "PARTIALLYFILLEDCANCELED", "PARTIALLYFILLEDCANCELLED" -> "PARTIALLY_FILLED_CANCELED";
+            default -> s;
+        };
+    }
+
+    public static boolean isCancelStatus(String status) {
+        return CANCELED.contains(status);
+    }
+
+    /**
+     * Состояние после события. {@code state} не меняется — возвращается новый объект
+     * (прежний мог уже уйти в очередь записи). Для PLACED {@code state} = null.
+     */
+    public static ExchangeOrderEntity apply(ExchangeOrderEntity state, OrderEventEntity e) {
+        ExchangeOrderEntity next;
+        if (e.getType() == OrderEventType.PLACED) {
+            next = ExchangeOrderEntity.builder()
+                    .id(e.getOrderKey())
+                    .chatId(e.getChatId())
+                    .exchange(e.getExchange())
+                    .network(e.getNetwork())
+                    .orderId(e.getOrderId())
+                    .orderListId(e.getOrderListId())
+                    .symbol(e.getSymbol())
+                    .side(e.getSide())
+                    .type(e.getOrderType())
+                    .price(e.getPrice())
+                    .quantity(e.getQuantity())
+                    .executedQty(BigDecimal.ZERO)
+                    .quoteQty(BigDecimal.ZERO)
+                    .commission(BigDecimal.ZERO)
+                    .status(e.getStatus() != null ? e.getStatus() : PENDING_NEW)
+                    .createdAt(e.getAt())
+                    .build();
+        } else {
+            if (state == null) {
+                throw new IllegalStateException("событие " + e.getType() + " #" + e.getSeq()
+                        + " ордера " + e.getOrderKey() + " без PLACED");
+            }
+            next = state.toBuilder().build();
+            switch (e.getType()) {
+                case ACK -> {
+                    if (e.getOrderId() != null) next.setOrderId(e.getOrderId());
+                    if (PENDING_NEW.equals(next.getStatus())) next.setStatus("NEW");
+                    if (e.getCommission() != null) {
+                        next.setCommission(e.getCommission());
+                        next.setCommissionAsset(e.getCommissionAsset());
+                    }
+                }
+                case PARTIAL_FILL, FILL -> {
+                    BigDecimal executed = e.getExecutedQty() != null ? e.getExecutedQty() : next.getExecutedQty();
+                    next.setExecutedQty(executed);
+                    if (e.getPrice() != null && e.getPrice().signum() > 0 && executed != null) {
+                        next.setQuoteQty(e.getPrice().multiply(executed));
+                        // у MARKET своей цены нет — показываем среднюю исполнения
+                        if ("MARKET".equals(next.getType())) next.setPrice(e.getPrice());
+                    }
+                    if (e.getType() == OrderEventType.FILL) next.setStatus("FILLED");
+                    else if (isOpen(next)) next.setStatus("PARTIALLY_FILLED"); // снятый частичным не «оживает»
+                }
+                case CANCEL -> next.setStatus(e.getStatus() != null ? e.getStatus() : "CANCELED");
+                case REJECT -> next.setStatus("REJECTED");
+                default -> {
+                }
+            }
+        }
+        // без orderId от биржи ключ детерминирован: одна свёртка — одна строка
+        if (next.getOrderId() == null && e.getType() != OrderEventType.PLACED) {
+            next.setOrderId((e.getType() == OrderEventType.REJECT ? "REJECTED-" : "LOCAL-") + e.getOrderKey());
+        }
+        next.setStatusRaw(OrderColumnCodes.rawIfUnknownStatus(next.getStatus()));
+        next.setUpdatedAt(e.getAt());
+        next.setLastEventSeq(e.getSeq());
+        return next;
+    }
+}
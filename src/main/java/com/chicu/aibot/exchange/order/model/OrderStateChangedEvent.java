@@ -0,0 +1,8 @@
+package com.chicu.aibot.exchange.order.model;
+
+/**
+ * Новое состояние ордера после события журнала. Публикуется синхронно, под блокировкой ордера:
+ * слушатель должен только обновить своё и выйти, без обращений к бирже и БД.
+ */
+public record OrderStateChangedEvent(OrderEventType type, ExchangeOrderEntity state) {
+}
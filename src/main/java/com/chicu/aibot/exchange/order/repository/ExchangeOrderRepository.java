@@ -1,44 +1,36 @@
 package com.chicu.aibot.exchange.order.repository;
 
-import com.chicu.aibot.exchange.enums.NetworkType;
-import com.chicu.aibot.exchange.enums.OrderSide;
 import com.chicu.aibot.exchange.order.model.ExchangeOrderEntity;
+import com.chicu.aibot.exchange.order.model.OrderColumnCodes;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.math.BigDecimal;
-import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
-import java.util.Set;
 
+/**
+ * Запросы подогнаны под индексы миграций V1/V2. Выборки открытых ордеров — нативные, с кодами
+ * статусов литералами: с параметром вместо литерала обобщённый план подготовленного запроса
+ * не может доказать условие частичного индекса {@code exchange_orders_open_idx}.
+ */
 @Repository
 public interface ExchangeOrderRepository extends JpaRepository<ExchangeOrderEntity, Long> {
 
-    // --- нужно для OrderExecutionService (анти-дубликаты) ---
-    Optional<ExchangeOrderEntity> findTopByChatIdAndExchangeAndNetworkAndSymbolAndSideAndTypeAndPriceAndQuantityAndStatusInOrderByCreatedAtDesc(
-            Long chatId, String exchange, NetworkType network, String symbol, String side, String type, BigDecimal price, BigDecimal quantity, Collection<String> status
-            // <- используем enum, как в сущности
-            // <- если есть свой enum OrderType — замени на него
-    );
+    String OPEN_CODES = "(" + OrderColumnCodes.NEW + ", " + OrderColumnCodes.PARTIALLY_FILLED + ")";
 
-    // --- нужно для ExchangeOrderDbService: поиск по бизнес-ключу ---
-    Optional<ExchangeOrderEntity> findByChatIdAndExchangeAndNetworkAndOrderId(
-            Long chatId,
-            String exchange,
-            NetworkType network,
-            String orderId
-    );
+    // --- OpenOrderIndex и OrderLifecycleService: заполнение памяти при старте, сверка (exchange_orders_open_idx) ---
+    @Query(value = "select * from exchange_orders where status in " + OPEN_CODES, nativeQuery = true)
+    List<ExchangeOrderEntity> findAllOpen();
 
-    // --- нужно для ExchangeOrderDbService: список по статусам ---
-    List<ExchangeOrderEntity> findByChatIdAndSymbolAndStatusIn(
-            Long chatId,
-            String symbol,
-            Set<String> statuses
-    );
+    // --- OrderLifecycleService: перечитка чата при захвате аренды; с PENDING_NEW (exchange_orders_chat_order_id_idx) ---
+    @Query(value = "select * from exchange_orders where chat_id = :chatId and status in ("
+            + OrderColumnCodes.NEW + ", " + OrderColumnCodes.PARTIALLY_FILLED + ", " + OrderColumnCodes.PENDING_NEW + ")",
+            nativeQuery = true)
+    List<ExchangeOrderEntity> findOpenByChatId(@Param("chatId") Long chatId);
 
-    // --- нужно для ExchangeOrderDbService: последние по статусу (c пагинацией) ---
+    // --- OrderLifecycleService: последние исполненные (exchange_orders_status_updated_idx) ---
     List<ExchangeOrderEntity> findByChatIdAndSymbolAndStatusOrderByUpdatedAtDesc(
             Long chatId,
             String symbol,
@@ -46,20 +38,9 @@ public interface ExchangeOrderRepository extends JpaRepository<ExchangeOrderEnti
             Pageable pageable
     );
 
-    // Часто используемая выборка по одному статусу
-    List<ExchangeOrderEntity> findByChatIdAndSymbolAndStatus(
-            Long chatId,
-            String symbol,
-            String status
-    );
+    // --- OrderLifecycleService: ордер не в памяти (закрыт) (exchange_orders_chat_order_id_idx) ---
+    List<ExchangeOrderEntity> findByChatIdAndOrderId(Long chatId, String orderId);
 
-    // Подсчёт активных по стороне
-    default long countByChatIdAndSymbolAndStatusAndSide(
-            Long chatId,
-            String symbol,
-            String status,
-            OrderSide side
-    ) {
-        return 0;
-    }
+    // Ноги защитной связки TP/SL (exchange_orders_order_list_idx)
+    List<ExchangeOrderEntity> findByChatIdAndOrderListId(Long chatId, String orderListId);
 }
@@ -0,0 +1,24 @@
+package com.chicu.aibot.exchange.order.repository;
+
+import com.chicu.aibot.exchange.order.model.OrderEventEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface OrderEventRepository extends JpaRepository<OrderEventEntity, Long> {
+
+    // --- история и пересборка одного ордера (order_events_order_seq_idx) ---
+    List<OrderEventEntity> findByOrderKeyOrderBySeqAsc(Long orderKey);
+
+    // --- доигрывание при старте: события новее проекции (order_events_at_idx) ---
+    @Query(value = "select e.* from order_events e "
+            + "left join exchange_orders o on o.id = e.order_key "
+            + "where e.at >= :since and (o.id is null or e.seq > o.last_event_seq) "
+            + "order by e.order_key, e.seq",
+            nativeQuery = true)
+    List<OrderEventEntity> findUnprojectedSince(Instant since);
+}
@@ -0,0 +1,40 @@
+package com.chicu.aibot.exchange.order.service;
+
+import com.chicu.aibot.exchange.enums.NetworkType;
+import com.chicu.aibot.exchange.order.model.ExchangeOrderEntity;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Открытые ордера (NEW / PARTIALLY_FILLED) в памяти по ключу
+ * (chatId, exchange, network, symbol, side, type, price, qty): проверка на дубль перед
+ * выставлением — поиск в хеше, без запроса к БД.
+ * <p>
+ * Индекс ведётся слушателем сущности {@link ExchangeOrderEntity}: изменения применяются после
+ * коммита транзакции, которая их записала (откат индекс не трогает); отложенная запись
+ * сообщает об ордере сразу, при постановке в очередь. При старте индекс заполняется из БД
+ * и периодически сверяется с ней.
+ */
+public interface OpenOrderIndex {
+
+    /** Снимок открытого ордера — то, что нужно вернуть вызывающему вместо дубля. */
+    record Entry(Long id, String orderId, String symbol, String side, String type,
+                 BigDecimal price, BigDecimal quantity, BigDecimal executedQty, String status, Instant createdAt) { }
+
+    /** Самый свежий открытый ордер с таким ключом. Цена и объём сравниваются численно (1.0 == 1.00). */
+    Optional<Entry> find(Long chatId, String exchange, NetworkType network, String symbol,
+                         String side, String type, BigDecimal price, BigDecimal quantity);
+
+    /** Сущность записана (insert/update); вызывается уже после коммита. */
+    void onSaved(ExchangeOrderEntity e);
+
+    /** Сущность удалена; вызывается уже после коммита. */
+    void onRemoved(ExchangeOrderEntity e);
+
+    /** Перечитать открытые ордера из БД. */
+    void reload();
+
+    int size();
+}
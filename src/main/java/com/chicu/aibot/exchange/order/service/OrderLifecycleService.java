@@ -0,0 +1,78 @@
+package com.chicu.aibot.exchange.order.service;
+
+import com.chicu.aibot.exchange.order.model.ExchangeOrderEntity;
+import com.chicu.aibot.exchange.order.model.OrderEventEntity;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Жизненный цикл ордера как журнал событий (PLACED → ACK → PARTIAL_FILL/FILL | CANCEL | REJECT).
+ * Каждый вызов дописывает событие со следующим seq ордера и сразу применяет его к двум проекциям:
+ * в памяти (открытые ордера и последние исполненные — для стратегий и панелей) и в
+ * {@code exchange_orders} (история). Обе записи идут через отложенную запись, в одном порядке.
+ * <p>
+ * Возвращаемые сущности — снимки состояния, менять их нельзя. Каждое новое состояние
+ * публикуется как {@link com.chicu.aibot.exchange.order.model.OrderStateChangedEvent}.
+ */
+public interface OrderLifecycleService {
+
+    /**
+     * PLACED: ордер заведён у нас. В {@code draft} — chatId, exchange, network, symbol, side, type,
+     * price, quantity и, если есть, orderListId / orderId; id выдаётся здесь.
+     */
+    ExchangeOrderEntity placed(ExchangeOrderEntity draft);
+
+    /**
+     * Ответ биржи на выставление: ACK (orderId, статус NEW, комиссия исполнения, если биржа её прислала),
+     * затем по статусу и исполнению — PARTIAL_FILL / FILL / CANCEL / REJECT.
+     */
+    ExchangeOrderEntity acknowledged(Long key, String exchangeOrderId, String rawStatus,
+                                     BigDecimal executedQty, BigDecimal avgPrice,
+                                     BigDecimal commission, String commissionAsset);
+
+    /** REJECT: биржа не приняла ордер или он не прошёл проверки до отправки. */
+    ExchangeOrderEntity rejected(Long key, String reason);
+
+    /** CANCEL со статусом CANCELED / EXPIRED; уже закрытый ордер не меняется. */
+    ExchangeOrderEntity canceled(Long key, String status, String reason);
+
+    /**
+     * Сверка с биржей: события, которых не хватает до её состояния. Пусто — ордер нам неизвестен.
+     */
+    Optional<ExchangeOrderEntity> sync(Long chatId, String exchangeOrderId, String rawStatus,
+                                       BigDecimal executedQty, BigDecimal avgPrice);
+
+    /** CANCEL по orderId биржи. Пусто — ордер нам неизвестен. */
+    Optional<ExchangeOrderEntity> canceledByOrderId(Long chatId, String exchangeOrderId, String status);
+
+    /** Текущее состояние по orderId биржи: из памяти, для закрытых — из БД. */
+    Optional<ExchangeOrderEntity> find(Long chatId, String exchangeOrderId);
+
+    /** Ноги защитной связки (orderListId) — из БД с учётом незаписанного. */
+    List<ExchangeOrderEntity> listLegs(Long chatId, String orderListId);
+
+    /** Открытые ордера чата по символу — из памяти. */
+    List<ExchangeOrderEntity> open(Long chatId, String symbol);
+
+    /** Все открытые ордера — из памяти. */
+    List<ExchangeOrderEntity> open();
+
+    /** Последние исполненные (FILLED), свежие первыми — из памяти. */
+    List<ExchangeOrderEntity> recentFilled(Long chatId, String symbol, int limit);
+
+    /** Все события ордера по seq. */
+    List<OrderEventEntity> history(Long key);
+
+    /** Пересобрать строку exchange_orders из журнала. */
+    Optional<ExchangeOrderEntity> rebuild(Long key);
+
+    /**
+     * Перечитать открытые ордера чата из БД: чат перешёл к этому узлу, и память могла отстать
+     * от событий, которые дописал прежний владелец. Зовётся до первого тика стратегии.
+     *
+     * @return открытых ордеров чата после перечитки
+     */
+    int reload(Long chatId);
+}
@@ -0,0 +1,69 @@
+package com.chicu.aibot.exchange.order.service.impl;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Месячные секции exchange_orders: при старте и раз в сутки создаёт секции на
+ * {@code orders.partitions.months-ahead} вперёд и, если задан срок хранения, удаляет старые
+ * (секции с открытыми ордерами не удаляются). Сами функции — в миграции V1.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ExchangeOrderPartitionMaintainer {
+
+    private final JdbcTemplate jdbc;
+
+    @Value("${orders.partitions.months-ahead:3}")
+    private int monthsAhead;
+
+    /** 0 — хранить всё. */
+    @Value("${orders.partitions.retention-months:0}")
+    private int retentionMonths;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "order-partitions");
+        t.setDaemon(true);
+        return t;
+    });
+
+    @PostConstruct
+    private void init() {
+        executor.scheduleWithFixedDelay(this::maintainSafe, 0, 1, TimeUnit.DAYS);
+    }
+
+    @PreDestroy
+    private void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void maintainSafe() {
+        try {
+            LocalDate today = LocalDate.now(ZoneOffset.UTC);
+            Integer created = jdbc.queryForObject("select exchange_orders_ensure_partitions(?, ?)",
+                    Integer.class, today, monthsAhead);
+            if (created != null && created > 0) log.info("exchange_orders: создано месячных секций: {}", created);
+            if (retentionMonths > 0) {
+                Integer dropped = jdbc.queryForObject("select exchange_orders_drop_partitions(?)",
+                        Integer.class, today.withDayOfMonth(1).minusMonths(retentionMonths));
+                if (dropped != null && dropped > 0) {
+                    log.info("exchange_orders: удалено секций старше {} мес.: {}", retentionMonths, dropped);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("exchange_orders: обслуживание секций не удалось: {}", e.getMessage());
+        }
+    }
+}
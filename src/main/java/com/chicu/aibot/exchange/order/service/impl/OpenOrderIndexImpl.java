@@ -0,0 +1,212 @@
+package com.chicu.aibot.exchange.order.service.impl;
+
+import com.chicu.aibot.exchange.enums.NetworkType;
+import com.chicu.aibot.exchange.order.model.ExchangeOrderEntity;
+import com.chicu.aibot.exchange.order.repository.ExchangeOrderRepository;
+import com.chicu.aibot.exchange.order.service.OpenOrderIndex;
+import com.chicu.aibot.trading.persist.WriteBehindService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Две карты под одной блокировкой: ключ → открытые ордера с этим ключом (обычно один) и
+ * id → ключ (чтобы убрать ордер, у которого сменился статус или цена).
+ * <p>
+ * Перезагрузка из БД читает таблицу без блокировки; изменения, пришедшие за это время,
+ * копятся в журнале и докатываются поверх прочитанного перед подменой карт. Ордера, которые
+ * {@link WriteBehindService} ещё не записал, накладываются на прочитанное из БД.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OpenOrderIndexImpl implements OpenOrderIndex {
+
+    private static final Set<String> OPEN = Set.of("NEW", "PARTIALLY_FILLED");
+
+    private final ExchangeOrderRepository repo;
+    private final MeterRegistry meterRegistry;
+    private final ObjectProvider<WriteBehindService> writes;
+
+    @Value("${orders.open-index.reconcile-ms:300000}")
+    private long reconcileMs;
+
+    private final Object lock = new Object();
+    private Map<Key, List<Entry>> byKey = new HashMap<>();
+    private Map<Long, Key> byId = new HashMap<>();
+    /** Изменения во время перезагрузки; null — перезагрузки нет. */
+    private List<Runnable> journal;
+
+    private Counter drift;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "open-order-index");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /** Цена и объём без хвостовых нулей: BigDecimal.equals учитывает scale, а БД отдаёт свой. */
+    private record Key(Long chatId, String exchange, NetworkType network, String symbol,
+                       String side, String type, BigDecimal price, BigDecimal quantity) {
+        static Key of(Long chatId, String exchange, NetworkType network, String symbol,
+                      String side, String type, BigDecimal price, BigDecimal quantity) {
+            return new Key(chatId, exchange, network, symbol, side, type, norm(price), norm(quantity));
+        }
+
+        static Key of(ExchangeOrderEntity e) {
+            return of(e.getChatId(), e.getExchange(), e.getNetwork(), e.getSymbol(),
+                    e.getSide(), e.getType(), e.getPrice(), e.getQuantity());
+        }
+
+        private static BigDecimal norm(BigDecimal v) {
+            return v == null ? null : (v.signum() == 0 ? BigDecimal.ZERO : v.stripTrailingZeros());
+        }
+    }
+
+    @PostConstruct
+    private void init() {
+        Gauge.builder("aibot.orders.open-index.size", this, OpenOrderIndexImpl::size)
+                .description("Открытые ордера в индексе анти-дублей").register(meterRegistry);
+        drift = Counter.builder("aibot.orders.open-index.drift")
+                .description("Расхождения индекса с БД, найденные при сверке").register(meterRegistry);
+        reloadSafe();
+        if (reconcileMs > 0) {
+            executor.scheduleWithFixedDelay(this::reloadSafe, reconcileMs, reconcileMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    private void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public Optional<Entry> find(Long chatId, String exchange, NetworkType network, String symbol,
+                                String side, String type, BigDecimal price, BigDecimal quantity) {
+        Key key = Key.of(chatId, exchange, network, symbol, side, type, price, quantity);
+        synchronized (lock) {
+            List<Entry> list = byKey.get(key);
+            if (list == null || list.isEmpty()) return Optional.empty();
+            Entry newest = list.getFirst();
+            for (Entry e : list) {
+                if (e.createdAt() != null && (newest.createdAt() == null || e.createdAt().isAfter(newest.createdAt()))) {
+                    newest = e;
+                }
+            }
+            return Optional.of(newest);
+        }
+    }
+
+    @Override
+    public void onSaved(ExchangeOrderEntity e) {
+        if (e == null || e.getId() == null) return;
+        synchronized (lock) {
+            if (journal != null) journal.add(() -> put(byKey, byId, e));
+            put(byKey, byId, e);
+        }
+    }
+
+    @Override
+    public void onRemoved(ExchangeOrderEntity e) {
+        if (e == null || e.getId() == null) return;
+        synchronized (lock) {
+            if (journal != null) journal.add(() -> remove(byKey, byId, e.getId()));
+            remove(byKey, byId, e.getId());
+        }
+    }
+
+    @Override
+    public void reload() {
+        synchronized (lock) {
+            journal = new ArrayList<>();
+        }
+        Map<Key, List<Entry>> freshByKey = new HashMap<>();
+        Map<Long, Key> freshById = new HashMap<>();
+        try {
+            WriteBehindService wb = writes.getIfAvailable();
+            List<ExchangeOrderEntity> rows = wb == null
+                    ? repo.findAllOpen()
+                    : wb.overlayOrders(repo::findAllOpen, e -> OPEN.contains(e.getStatus()));
+            for (ExchangeOrderEntity e : rows) put(freshByKey, freshById, e);
+        } catch (RuntimeException ex) {
+            synchronized (lock) {
+                journal = null;
+            }
+            throw ex;
+        }
+        synchronized (lock) {
+            // докатываем то, что закоммитили, пока читали таблицу
+            Map<Key, List<Entry>> curByKey = byKey;
+            Map<Long, Key> curById = byId;
+            byKey = freshByKey;
+            byId = freshById;
+            for (Runnable r : journal) r.run();
+            journal = null;
+
+            int diff = 0;
+            for (Long id : byId.keySet()) if (!curById.containsKey(id)) diff++;
+            for (Long id : curById.keySet()) if (!byId.containsKey(id)) diff++;
+            if (diff > 0 && !curByKey.isEmpty()) {
+                drift.increment(diff);
+                log.info("Индекс открытых ордеров: сверка с БД исправила {} записей", diff);
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        synchronized (lock) {
+            return byId.size();
+        }
+    }
+
+    private void reloadSafe() {
+        long t0 = System.currentTimeMillis();
+        try {
+            reload();
+            log.debug("Индекс открытых ордеров перечитан: {} шт. за {} мс", size(), System.currentTimeMillis() - t0);
+        } catch (Exception e) {
+            log.warn("Индекс открытых ордеров: не удалось перечитать из БД: {}", e.getMessage());
+        }
+    }
+
+    /* ================= карты ================= */
+
+    /** Вставка/замена; закрытый ордер из индекса убирается. */
+    private static void put(Map<Key, List<Entry>> byKey, Map<Long, Key> byId, ExchangeOrderEntity e) {
+        remove(byKey, byId, e.getId());
+        if (e.getStatus() == null || !OPEN.contains(e.getStatus())) return;
+        Key key = Key.of(e);
+        byKey.computeIfAbsent(key, k -> new ArrayList<>(1)).add(new Entry(
+                e.getId(), e.getOrderId(), e.getSymbol(), e.getSide(), e.getType(),
+                e.getPrice(), e.getQuantity(), e.getExecutedQty(), e.getStatus(), e.getCreatedAt()));
+        byId.put(e.getId(), key);
+    }
+
+    private static void remove(Map<Key, List<Entry>> byKey, Map<Long, Key> byId, Long id) {
+        Key old = byId.remove(id);
+        if (old == null) return;
+        List<Entry> list = byKey.get(old);
+        if (list == null) return;
+        list.removeIf(x -> x.id().equals(id));
+        if (list.isEmpty()) byKey.remove(old);
+    }
+}
@@ -0,0 +1,87 @@
+package com.chicu.aibot.exchange.order.service.impl;
+
+import com.chicu.aibot.exchange.order.model.ExchangeOrderEntity;
+import com.chicu.aibot.exchange.order.service.OpenOrderIndex;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Слушатель {@link ExchangeOrderEntity}: любой save/delete через JPA (исполнение, уборщик,
+ * защитные выходы, UI) попадает в {@link OpenOrderIndex}. Снимок берётся в момент события,
+ * а в индекс уходит после коммита; вне транзакции — сразу.
+ * <p>
+ * Экземпляр создаёт Hibernate через контейнер бинов Spring, поэтому индекс берётся лениво.
+ */
+@Component
+@RequiredArgsConstructor
+public class OpenOrderIndexListener {
+
+    /** Записи, чьё состояние индекс уже получил раньше (отложенная запись). */
+    private static final ThreadLocal<Boolean> SUPPRESSED = ThreadLocal.withInitial(() -> false);
+
+    private final ObjectProvider<OpenOrderIndex> index;
+
+    /** Выполнить запись (вместе с коммитом), не трогая индекс. */
+    public static void suppressed(Runnable write) {
+        boolean outer = SUPPRESSED.get();
+        SUPPRESSED.set(true);
+        try {
+            write.run();
+        } finally {
+            SUPPRESSED.set(outer);
+        }
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void saved(ExchangeOrderEntity e) {
+        if (SUPPRESSED.get()) return;
+        ExchangeOrderEntity snapshot = copy(e);
+        afterCommit(() -> index.ifAvailable(i -> i.onSaved(snapshot)));
+    }
+
+    @PostRemove
+    public void removed(ExchangeOrderEntity e) {
+        if (SUPPRESSED.get()) return;
+        ExchangeOrderEntity snapshot = copy(e);
+        afterCommit(() -> index.ifAvailable(i -> i.onRemoved(snapshot)));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /** Сущность после события ещё может меняться в той же транзакции — в индекс идёт копия полей ключа. */
+    private static ExchangeOrderEntity copy(ExchangeOrderEntity e) {
+        return ExchangeOrderEntity.builder()
+                .id(e.getId())
+                .chatId(e.getChatId())
+                .exchange(e.getExchange())
+                .network(e.getNetwork())
+                .orderId(e.getOrderId())
+                .symbol(e.getSymbol())
+                .side(e.getSide())
+                .type(e.getType())
+                .status(e.getStatus())
+                .price(e.getPrice())
+                .quantity(e.getQuantity())
+                .executedQty(e.getExecutedQty())
+                .createdAt(e.getCreatedAt())
+                .build();
+    }
+}
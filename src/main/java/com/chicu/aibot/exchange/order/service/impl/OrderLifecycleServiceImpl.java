@@ -0,0 +1,440 @@
+package com.chicu.aibot.exchange.order.service.impl;
+
+import com.chicu.aibot.exchange.order.model.ExchangeOrderEntity;
+import com.chicu.aibot.exchange.order.model.OrderEventConflictEvent;
+import com.chicu.aibot.exchange.order.model.OrderEventEntity;
+import com.chicu.aibot.exchange.order.model.OrderEventType;
+import com.chicu.aibot.exchange.order.model.OrderEvents;
+import com.chicu.aibot.exchange.order.model.OrderStateChangedEvent;
+import com.chicu.aibot.exchange.order.repository.ExchangeOrderRepository;
+import com.chicu.aibot.exchange.order.repository.OrderEventRepository;
+import com.chicu.aibot.exchange.order.service.OrderLifecycleService;
+import com.chicu.aibot.trading.persist.WriteBehindService;
+import com.chicu.aibot.trading.persist.impl.PooledIdAllocator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+/**
+ * Событие и новое состояние ордера ставятся в {@link WriteBehindService} подряд, событие первым:
+ * в БД журнал никогда не отстаёт от проекции. Если процесс упал между ними, при старте
+ * события новее {@code exchange_orders.last_event_seq} (за последние {@code recover-hours})
+ * сворачиваются заново.
+ * <p>
+ * Добавления по одному ордеру сериализуются полосатой блокировкой по id: seq идут без дыр.
+ * После каждого события публикуется {@link OrderStateChangedEvent} — под той же блокировкой,
+ * поэтому слушатели видят состояния одного ордера строго по порядку.
+ * <p>
+ * Память верна, пока чатом владеет этот узел: при захвате аренды чат перечитывается ({@link #reload}),
+ * а событие, чей seq уже занят в журнале другим узлом, не теряется — ордер пересобирается из журнала
+ * и изменение применяется заново ({@link #onSeqConflict}).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderLifecycleServiceImpl implements OrderLifecycleService {
+
+    private static final int REASON_MAX = 255;
+
+    private final OrderEventRepository eventRepo;
+    private final ExchangeOrderRepository orderRepo;
+    private final WriteBehindService writes;
+    private final PooledIdAllocator ids;
+    private final MeterRegistry meterRegistry;
+    private final ApplicationEventPublisher events;
+
+    @Value("${orders.events.recent-filled:50}")
+    private int recentFilledDepth;
+
+    @Value("${orders.events.recover-hours:48}")
+    private long recoverHours;
+
+    private final Object[] locks = new Object[64];
+    private OrderMemoryProjection memory;
+    private Counter appended;
+    private Counter conflicts;
+
+    @PostConstruct
+    private void init() {
+        for (int i = 0; i < locks.length; i++) locks[i] = new Object();
+        memory = new OrderMemoryProjection(recentFilledDepth);
+        appended = Counter.builder("aibot.orders.events.appended")
+                .description("События жизненного цикла ордеров, добавленные в журнал").register(meterRegistry);
+        conflicts = Counter.builder("aibot.orders.events.conflicts")
+                .description("События, чей seq уже занят в журнале: ордер пересобран, изменение применено заново")
+                .register(meterRegistry);
+        Gauge.builder("aibot.orders.events.open", this, s -> s.memory.openSize())
+                .description("Открытые ордера в проекции в памяти").register(meterRegistry);
+
+        recover();
+        for (ExchangeOrderEntity e : writes.overlayOrders(orderRepo::findAllOpen, OrderEvents::isOpen)) {
+            memory.apply(e);
+        }
+        log.info("Журнал ордеров: в памяти открытых {}", memory.openSize());
+    }
+
+    /** Доигрывание событий, которые записались, а проекция — нет. */
+    private void recover() {
+        Instant since = Instant.now().minus(Duration.ofHours(Math.max(1, recoverHours)));
+        Set<Long> keys = new LinkedHashSet<>();
+        for (OrderEventEntity e : eventRepo.findUnprojectedSince(since)) keys.add(e.getOrderKey());
+        for (OrderEventEntity e : writes.pendingEvents()) keys.add(e.getOrderKey());
+        int rebuilt = 0;
+        for (Long key : keys) {
+            try {
+                if (rebuild(key).isPresent()) rebuilt++;
+            } catch (Exception ex) {
+                log.warn("Журнал ордеров: ордер {} не пересобран: {}", key, ex.getMessage());
+            }
+        }
+        if (rebuilt > 0) log.info("Журнал ордеров: после сбоя пересобрано ордеров: {}", rebuilt);
+    }
+
+    /* ================= события ================= */
+
+    @Override
+    public ExchangeOrderEntity placed(ExchangeOrderEntity draft) {
+        Long key = ids.next(PooledIdAllocator.ORDERS);
+        OrderEventEntity event = OrderEventEntity.builder()
+                .orderKey(key)
+                .seq(1)
+                .type(OrderEventType.PLACED)
+                .at(Instant.now())
+                .chatId(draft.getChatId())
+                .exchange(draft.getExchange())
+                .network(draft.getNetwork())
+                .orderId(draft.getOrderId())
+                .orderListId(draft.getOrderListId())
+                .symbol(draft.getSymbol())
+                .side(draft.getSide())
+                .orderType(draft.getType())
+                .status(OrderEvents.PENDING_NEW)
+                .price(draft.getPrice())
+                .quantity(draft.getQuantity())
+                .executedQty(BigDecimal.ZERO)
+                .build();
+        return locked(key, () -> commit(null, event));
+    }
+
+    @Override
+    public ExchangeOrderEntity acknowledged(Long key, String exchangeOrderId, String rawStatus,
+                                            BigDecimal executedQty, BigDecimal avgPrice,
+                                            BigDecimal commission, String commissionAsset) {
+        return locked(key, () -> {
+            ExchangeOrderEntity cur = require(key);
+            if (OrderEvents.PENDING_NEW.equals(cur.getStatus())) {
+                cur = commit(cur, next(cur, OrderEventType.ACK).orderId(exchangeOrderId).status("NEW")
+                        .commission(commission).commissionAsset(commissionAsset).build());
+            }
+            return reconcile(cur, rawStatus, executedQty, avgPrice);
+        });
+    }
+
+    @Override
+    public ExchangeOrderEntity rejected(Long key, String reason) {
+        return locked(key, () -> {
+            ExchangeOrderEntity cur = require(key);
+            if (!OrderEvents.isOpen(cur)) return cur;
+            return commit(cur, next(cur, OrderEventType.REJECT).status("REJECTED").reason(trim(reason)).build());
+        });
+    }
+
+    @Override
+    public ExchangeOrderEntity canceled(Long key, String status, String reason) {
+        return locked(key, () -> {
+            ExchangeOrderEntity cur = require(key);
+            if (!OrderEvents.isOpen(cur)) return cur;
+            String st = status == null ? "CANCELED" : OrderEvents.normalizeStatus(status);
+            return commit(cur, next(cur, OrderEventType.CANCEL).status(st).reason(trim(reason)).build());
+        });
+    }
+
+    @Override
+    public Optional<ExchangeOrderEntity> sync(Long chatId, String exchangeOrderId, String rawStatus,
+                                              BigDecimal executedQty, BigDecimal avgPrice) {
+        return find(chatId, exchangeOrderId).map(found -> locked(found.getId(), () -> {
+            ExchangeOrderEntity cur = require(found.getId());
+            if (OrderEvents.PENDING_NEW.equals(cur.getStatus())) {
+                cur = commit(cur, next(cur, OrderEventType.ACK).status("NEW").build());
+            }
+            return reconcile(cur, rawStatus, executedQty, avgPrice);
+        }));
+    }
+
+    @Override
+    public Optional<ExchangeOrderEntity> canceledByOrderId(Long chatId, String exchangeOrderId, String status) {
+        return find(chatId, exchangeOrderId).map(found -> canceled(found.getId(), status, null));
+    }
+
+    /** События, которых не хватает до состояния на бирже. Зовётся под блокировкой ордера. */
+    private ExchangeOrderEntity reconcile(ExchangeOrderEntity cur, String rawStatus,
+                                          BigDecimal executedQty, BigDecimal avgPrice) {
+        String st = OrderEvents.normalizeStatus(rawStatus);
+        boolean filled = "FILLED".equals(st);
+        BigDecimal done = cur.getExecutedQty() == null ? BigDecimal.ZERO : cur.getExecutedQty();
+        BigDecimal executed = executedQty == null ? done : executedQty;
+        // FILLED без объёма — исполнен весь ордер
+        if (filled && executed.signum() == 0 && cur.getQuantity() != null) executed = cur.getQuantity();
+
+        boolean grew = executed.compareTo(done) > 0;
+        if (grew || (filled && !"FILLED".equals(cur.getStatus()))) {
+            BigDecimal qty = cur.getQuantity();
+            boolean full = filled || (qty != null && qty.signum() > 0 && executed.compareTo(qty) >= 0);
+            OrderEventType type = full ? OrderEventType.FILL : OrderEventType.PARTIAL_FILL;
+            String status = full ? "FILLED" : (OrderEvents.isOpen(cur) ? "PARTIALLY_FILLED" : cur.getStatus());
+            cur = commit(cur, next(cur, type)
+                    .executedQty(executed.max(done))
+                    .price(avgPrice != null && avgPrice.signum() > 0 ? avgPrice : null)
+                    .status(status)
+                    .build());
+        }
+        if (OrderEvents.isOpen(cur)) {
+            if (OrderEvents.isCancelStatus(st)) {
+                cur = commit(cur, next(cur, OrderEventType.CANCEL).status(st).build());
+            } else if ("REJECTED".equals(st)) {
+                cur = commit(cur, next(cur, OrderEventType.REJECT).status("REJECTED").build());
+            }
+        }
+        return cur;
+    }
+
+    private static OrderEventEntity.OrderEventEntityBuilder next(ExchangeOrderEntity cur, OrderEventType type) {
+        int seq = (cur.getLastEventSeq() == null ? 0 : cur.getLastEventSeq()) + 1;
+        return OrderEventEntity.builder()
+                .orderKey(cur.getId())
+                .seq(seq)
+                .type(type)
+                .at(Instant.now())
+                .chatId(cur.getChatId());
+    }
+
+    /** Событие — в журнал, свёрнутое состояние — в обе проекции. Под блокировкой ордера. */
+    private ExchangeOrderEntity commit(ExchangeOrderEntity cur, OrderEventEntity event) {
+        ExchangeOrderEntity next = OrderEvents.apply(cur, event);
+        writes.insertEvent(event);
+        if (cur == null) writes.insertOrder(next);
+        else writes.updateOrder(next);
+        memory.apply(next);
+        appended.increment();
+        events.publishEvent(new OrderStateChangedEvent(event.getType(), next));
+        return next;
+    }
+
+    private <T> T locked(Long key, Supplier<T> body) {
+        synchronized (locks[(int) Math.floorMod(key, (long) locks.length)]) {
+            return body.get();
+        }
+    }
+
+    private ExchangeOrderEntity require(Long key) {
+        return current(key).orElseThrow(() -> new IllegalArgumentException("ордер " + key + " не найден"));
+    }
+
+    /** Открытый — из памяти, закрытый — из БД с учётом незаписанного. */
+    private Optional<ExchangeOrderEntity> current(Long key) {
+        Optional<ExchangeOrderEntity> mem = memory.get(key);
+        if (mem.isPresent()) return mem;
+        return writes.overlayOrders(
+                () -> orderRepo.findById(key).map(List::of).orElseGet(List::of),
+                e -> key.equals(e.getId())).stream().findFirst();
+    }
+
+    private static String trim(String reason) {
+        if (reason == null) return null;
+        return reason.length() <= REASON_MAX ? reason : reason.substring(0, REASON_MAX);
+    }
+
+    /* ================= чтение ================= */
+
+    @Override
+    public Optional<ExchangeOrderEntity> find(Long chatId, String exchangeOrderId) {
+        if (chatId == null || exchangeOrderId == null) return Optional.empty();
+        Optional<ExchangeOrderEntity> mem = memory.findOpen(chatId, exchangeOrderId);
+        if (mem.isPresent()) return mem;
+        return writes.overlayOrders(
+                        () -> orderRepo.findByChatIdAndOrderId(chatId, exchangeOrderId),
+                        e -> chatId.equals(e.getChatId()) && exchangeOrderId.equals(e.getOrderId()))
+                .stream()
+                .max(Comparator.comparing(ExchangeOrderEntity::getCreatedAt,
+                        Comparator.nullsFirst(Comparator.naturalOrder())));
+    }
+
+    @Override
+    public List<ExchangeOrderEntity> listLegs(Long chatId, String orderListId) {
+        if (chatId == null || orderListId == null) return List.of();
+        return writes.overlayOrders(
+                () -> orderRepo.findByChatIdAndOrderListId(chatId, orderListId),
+                e -> chatId.equals(e.getChatId()) && orderListId.equals(e.getOrderListId()));
+    }
+
+    @Override
+    public List<ExchangeOrderEntity> open(Long chatId, String symbol) {
+        return memory.open(chatId, symbol);
+    }
+
+    @Override
+    public List<ExchangeOrderEntity> open() {
+        return memory.openAll();
+    }
+
+    @Override
+    public List<ExchangeOrderEntity> recentFilled(Long chatId, String symbol, int limit) {
+        int n = Math.max(1, limit);
+        if (n > memory.depth()) {
+            // глубже, чем держим в памяти, — история из БД
+            List<ExchangeOrderEntity> rows = new ArrayList<>(writes.overlayOrders(
+                    () -> orderRepo.findByChatIdAndSymbolAndStatusOrderByUpdatedAtDesc(
+                            chatId, symbol, "FILLED", PageRequest.of(0, n)),
+                    e -> chatId.equals(e.getChatId()) && Objects.equals(symbol, e.getSymbol())
+                            && "FILLED".equals(e.getStatus())));
+            rows.sort(Comparator.comparing(ExchangeOrderEntity::getUpdatedAt,
+                    Comparator.nullsLast(Comparator.<Instant>reverseOrder())));
+            return rows.size() > n ? rows.subList(0, n) : rows;
+        }
+        return memory.recentFilled(chatId, symbol, n, () -> orderRepo.findByChatIdAndSymbolAndStatusOrderByUpdatedAtDesc(
+                chatId, symbol, "FILLED", PageRequest.of(0, memory.depth())));
+    }
+
+    @Override
+    public List<OrderEventEntity> history(Long key) {
+        Map<Integer, OrderEventEntity> bySeq = new TreeMap<>();
+        for (OrderEventEntity e : eventRepo.findByOrderKeyOrderBySeqAsc(key)) bySeq.put(e.getSeq(), e);
+        for (OrderEventEntity e : writes.pendingEvents()) {
+            if (key.equals(e.getOrderKey())) bySeq.put(e.getSeq(), e);
+        }
+        return new ArrayList<>(bySeq.values());
+    }
+
+    @Override
+    public Optional<ExchangeOrderEntity> rebuild(Long key) {
+        return locked(key, () -> {
+            ExchangeOrderEntity folded = null;
+            OrderEventType last = null;
+            for (OrderEventEntity e : history(key)) {
+                int expected = folded == null ? 1 : folded.getLastEventSeq() + 1;
+                if (e.getSeq() != expected) {
+                    log.warn("Журнал ордера {}: после seq {} идёт {}, свёртка остановлена", key, expected - 1, e.getSeq());
+                    break;
+                }
+                folded = OrderEvents.apply(folded, e);
+                last = e.getType();
+            }
+            if (folded == null) return Optional.<ExchangeOrderEntity>empty();
+
+            Optional<ExchangeOrderEntity> stored = current(key);
+            if (stored.isEmpty()) {
+                writes.insertOrder(folded);
+            } else {
+                // поля вне журнала (комиссия, PnL, время проверки) остаются из строки
+                ExchangeOrderEntity row = stored.get();
+                folded.setCommission(row.getCommission());
+                folded.setCommissionAsset(row.getCommissionAsset());
+                folded.setPnl(row.getPnl());
+                folded.setPnlPct(row.getPnlPct());
+                folded.setLastCheckedAt(row.getLastCheckedAt());
+                writes.updateOrder(folded);
+            }
+            memory.apply(folded);
+            events.publishEvent(new OrderStateChangedEvent(last, folded));
+            return Optional.of(folded);
+        });
+    }
+
+    @Override
+    public int reload(Long chatId) {
+        List<ExchangeOrderEntity> rows = writes.overlayOrders(() -> orderRepo.findOpenByChatId(chatId),
+                e -> chatId.equals(e.getChatId()) && OrderEvents.isOpen(e));
+        Set<Long> ids = new HashSet<>();
+        for (ExchangeOrderEntity row : rows) {
+            ids.add(row.getId());
+            locked(row.getId(), () -> {
+                // своё незаписанное новее строки БД — оно уже в overlay, но память могла уйти дальше
+                Optional<ExchangeOrderEntity> mem = memory.get(row.getId());
+                if (mem.isEmpty() || seq(mem.get()) <= seq(row)) memory.apply(row);
+                return null;
+            });
+        }
+        for (ExchangeOrderEntity e : memory.openOf(chatId)) {
+            if (ids.contains(e.getId())) continue;
+            // закрыт на другом узле: следующее чтение возьмёт строку из БД
+            locked(e.getId(), () -> {
+                memory.evict(e.getId());
+                return null;
+            });
+        }
+        memory.forgetFilled(chatId);
+        log.info("Журнал ордеров: chatId={} перечитан из БД, открытых {}", chatId, ids.size());
+        return ids.size();
+    }
+
+    /** Пересборка из журнала и повтор изменения поверх состояния, которое записал другой узел. */
+    @EventListener
+    public void onSeqConflict(OrderEventConflictEvent conflict) {
+        OrderEventEntity lost = conflict.event();
+        Long key = lost.getOrderKey();
+        try {
+            locked(key, () -> {
+                memory.evict(key);
+                rebuild(key).ifPresent(cur -> retry(cur, lost));
+                return null;
+            });
+            conflicts.increment();
+            log.warn("Журнал ордера {}: seq {} уже занят, ордер пересобран, {} применено заново",
+                    key, lost.getSeq(), lost.getType());
+        } catch (Exception e) {
+            log.error("Журнал ордера {}: seq {} занят, пересборка не удалась: {}", key, lost.getSeq(), e.getMessage());
+        }
+    }
+
+    /** Под блокировкой ордера. То, что уже случилось в журнале, не повторяется. */
+    private void retry(ExchangeOrderEntity cur, OrderEventEntity lost) {
+        switch (lost.getType()) {
+            case ACK -> {
+                if (OrderEvents.PENDING_NEW.equals(cur.getStatus())) {
+                    commit(cur, next(cur, OrderEventType.ACK).orderId(lost.getOrderId()).status("NEW").build());
+                }
+            }
+            case PARTIAL_FILL, FILL -> reconcile(cur, lost.getStatus(), lost.getExecutedQty(), lost.getPrice());
+            case CANCEL -> {
+                if (OrderEvents.isOpen(cur)) {
+                    commit(cur, next(cur, OrderEventType.CANCEL).status(lost.getStatus()).reason(lost.getReason()).build());
+                }
+            }
+            case REJECT -> {
+                if (OrderEvents.isOpen(cur)) {
+                    commit(cur, next(cur, OrderEventType.REJECT).status("REJECTED").reason(lost.getReason()).build());
+                }
+            }
+            default -> {
+                // PLACED заводит новый ключ — занятым его seq быть не может
+            }
+        }
+    }
+
+    private static int seq(ExchangeOrderEntity e) {
+        return e.getLastEventSeq() == null ? 0 : e.getLastEventSeq();
+    }
+}
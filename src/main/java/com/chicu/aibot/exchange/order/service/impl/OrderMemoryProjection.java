@@ -0,0 +1,152 @@
+package com.chicu.aibot.exchange.order.service.impl;
+
+import com.chicu.aibot.exchange.order.model.ExchangeOrderEntity;
+import com.chicu.aibot.exchange.order.model.OrderEvents;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Проекция журнала в памяти: открытые ордера (по id, по чату+символу, по orderId биржи) и
+ * {@code depth} последних исполненных на чат+символ. Пишет её {@link OrderLifecycleServiceImpl}
+ * под блокировкой ордера, читают — без блокировок.
+ * <p>
+ * Исполненные подгружаются из БД при первом чтении символа; состояния, пришедшие раньше, не теряются.
+ * Когда чат переходит к этому узлу, его часть перечитывается из БД ({@link #evict}, {@link #forgetFilled}):
+ * пока чатом владел другой узел, память его ордеров не видела.
+ */
+final class OrderMemoryProjection {
+
+    private static final Comparator<ExchangeOrderEntity> NEWEST_FIRST = Comparator.comparing(
+            ExchangeOrderEntity::getUpdatedAt, Comparator.nullsLast(Comparator.<Instant>reverseOrder()));
+
+    private final int depth;
+
+    private final Map<Long, ExchangeOrderEntity> open = new ConcurrentHashMap<>();
+    private final Map<String, Map<Long, ExchangeOrderEntity>> openBySymbol = new ConcurrentHashMap<>();
+    private final Map<String, Long> openByOrderId = new ConcurrentHashMap<>();
+    private final Map<String, Recent> filled = new ConcurrentHashMap<>();
+
+    private static final class Recent {
+        boolean loaded;
+        final Deque<ExchangeOrderEntity> items = new ArrayDeque<>();
+    }
+
+    OrderMemoryProjection(int depth) {
+        this.depth = Math.max(1, depth);
+    }
+
+    int depth() {
+        return depth;
+    }
+
+    int openSize() {
+        return open.size();
+    }
+
+    void apply(ExchangeOrderEntity s) {
+        Long id = s.getId();
+        String symbolKey = key(s.getChatId(), s.getSymbol());
+        if (OrderEvents.isOpen(s)) {
+            open.put(id, s);
+            openBySymbol.computeIfAbsent(symbolKey, k -> new ConcurrentHashMap<>()).put(id, s);
+            if (s.getOrderId() != null) openByOrderId.put(key(s.getChatId(), s.getOrderId()), id);
+            return;
+        }
+        if (open.remove(id) != null) {
+            Map<Long, ExchangeOrderEntity> bySymbol = openBySymbol.get(symbolKey);
+            if (bySymbol != null) bySymbol.remove(id);
+            if (s.getOrderId() != null) openByOrderId.remove(key(s.getChatId(), s.getOrderId()), id);
+        }
+        if ("FILLED".equals(s.getStatus())) {
+            Recent r = filled.computeIfAbsent(symbolKey, k -> new Recent());
+            synchronized (r) {
+                r.items.removeIf(e -> id.equals(e.getId()));
+                r.items.addFirst(s);
+                while (r.items.size() > depth) r.items.removeLast();
+            }
+        }
+    }
+
+    /** Снять ордер из открытых, не трогая исполненные. */
+    void evict(Long id) {
+        ExchangeOrderEntity s = open.remove(id);
+        if (s == null) return;
+        Map<Long, ExchangeOrderEntity> bySymbol = openBySymbol.get(key(s.getChatId(), s.getSymbol()));
+        if (bySymbol != null) bySymbol.remove(id);
+        if (s.getOrderId() != null) openByOrderId.remove(key(s.getChatId(), s.getOrderId()), id);
+    }
+
+    /** Исполненные чата — подгрузить заново при следующем чтении. */
+    void forgetFilled(Long chatId) {
+        String prefix = chatId + ":";
+        filled.keySet().removeIf(k -> k.startsWith(prefix));
+    }
+
+    List<ExchangeOrderEntity> openOf(Long chatId) {
+        List<ExchangeOrderEntity> out = new ArrayList<>();
+        for (ExchangeOrderEntity e : open.values()) if (chatId.equals(e.getChatId())) out.add(e);
+        return out;
+    }
+
+    Optional<ExchangeOrderEntity> get(Long id) {
+        return Optional.ofNullable(open.get(id));
+    }
+
+    Optional<ExchangeOrderEntity> findOpen(Long chatId, String orderId) {
+        Long id = openByOrderId.get(key(chatId, orderId));
+        return id == null ? Optional.empty() : get(id);
+    }
+
+    List<ExchangeOrderEntity> open(Long chatId, String symbol) {
+        Map<Long, ExchangeOrderEntity> bySymbol = openBySymbol.get(key(chatId, symbol));
+        if (bySymbol == null || bySymbol.isEmpty()) return List.of();
+        List<ExchangeOrderEntity> out = new ArrayList<>(bySymbol.values());
+        out.sort(Comparator.comparing(ExchangeOrderEntity::getCreatedAt, Comparator.nullsLast(Comparator.naturalOrder())));
+        return out;
+    }
+
+    List<ExchangeOrderEntity> openAll() {
+        return new ArrayList<>(open.values());
+    }
+
+    /** @param loader исполненные из БД, свежие первыми — зовётся один раз на символ */
+    List<ExchangeOrderEntity> recentFilled(Long chatId, String symbol, int limit,
+                                           Supplier<List<ExchangeOrderEntity>> loader) {
+        Recent r = filled.computeIfAbsent(key(chatId, symbol), k -> new Recent());
+        synchronized (r) {
+            if (!r.loaded) {
+                Map<Long, ExchangeOrderEntity> merged = new HashMap<>();
+                for (ExchangeOrderEntity e : loader.get()) merged.put(e.getId(), e);
+                for (ExchangeOrderEntity e : r.items) merged.put(e.getId(), e); // пришедшее в память новее
+                List<ExchangeOrderEntity> sorted = new ArrayList<>(merged.values());
+                sorted.sort(NEWEST_FIRST);
+                r.items.clear();
+                for (ExchangeOrderEntity e : sorted) {
+                    if (r.items.size() >= depth) break;
+                    r.items.addLast(e);
+                }
+                r.loaded = true;
+            }
+            List<ExchangeOrderEntity> out = new ArrayList<>(Math.min(limit, r.items.size()));
+            for (ExchangeOrderEntity e : r.items) {
+                if (out.size() >= limit) break;
+                out.add(e);
+            }
+            return out;
+        }
+    }
+
+    private static String key(Long chatId, String value) {
+        return chatId + ":" + value;
+    }
+}
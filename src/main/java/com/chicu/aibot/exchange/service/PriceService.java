@@ -7,5 +7,9 @@ import com.chicu.aibot.exchange.enums.NetworkType;
 import java.math.BigDecimal;
 
 public interface PriceService {
+    /** Последняя цена из памяти; к бирже — только если она старше TTL кэша. */
     BigDecimal getLastPrice(Exchange exchange, String symbol, NetworkType network);
+
+    /** Цена, уже полученная другим путём (опрос триггеров и т.п.), — в кэш без запроса к бирже. */
+    void onPrice(Exchange exchange, String symbol, NetworkType network, BigDecimal price);
 }
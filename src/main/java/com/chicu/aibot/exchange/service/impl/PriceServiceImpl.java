@@ -7,23 +7,57 @@ import com.chicu.aibot.exchange.enums.NetworkType;
 import com.chicu.aibot.exchange.model.TickerInfo;
 import com.chicu.aibot.exchange.service.PriceService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Цены нужны для проверок до отправки ордера (notional, объём покупки на сумму) — там
+ * цена нескольких секунд давности годится, а лишний запрос тикера стоит целого round trip.
+ */
 @Service
 @RequiredArgsConstructor
 public class PriceServiceImpl implements PriceService {
 
     private final ExchangeClientFactory clientFactory;
 
+    @Value("${exchange.price.cache-ttl-ms:5000}")
+    private long ttlMs;
+
+    private record Cached(BigDecimal price, long atMs) { }
+
+    private final Map<String, Cached> cache = new ConcurrentHashMap<>();
+
     @Override
     public BigDecimal getLastPrice(Exchange exchange, String symbol, NetworkType network) {
+        String key = key(exchange, symbol, network);
+        Cached c = cache.get(key);
+        if (c != null && System.currentTimeMillis() - c.atMs() <= ttlMs) return c.price();
+
         var client = clientFactory.getClient(exchange);
         // В твоём проекте у TickerInfo, судя по коду AiSelectSymbolState, есть getPrice() и getChangePct().
         // Раньше стоял TickerInfo::getLastPrice — такого геттера нет. Меняем на getPrice().
-        return client.getTicker(symbol, network)
+        BigDecimal price = client.getTicker(symbol, network)
                 .map(TickerInfo::getPrice)
                 .orElse(null);
+        if (price != null && price.signum() > 0) {
+            cache.put(key, new Cached(price, System.currentTimeMillis()));
+            return price;
+        }
+        // биржа не ответила — лучше старая цена, чем никакой
+        return c != null ? c.price() : price;
+    }
+
+    @Override
+    public void onPrice(Exchange exchange, String symbol, NetworkType network, BigDecimal price) {
+        if (price == null || price.signum() <= 0) return;
+        cache.put(key(exchange, symbol, network), new Cached(price, System.currentTimeMillis()));
+    }
+
+    private static String key(Exchange exchange, String symbol, NetworkType network) {
+        return exchange + ":" + network + ":" + symbol;
     }
 }
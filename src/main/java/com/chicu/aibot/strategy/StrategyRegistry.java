@@ -1,8 +1,11 @@
 package com.chicu.aibot.strategy;
 
 import com.chicu.aibot.strategy.bollinger.BollingerBandsStrategy;
+import com.chicu.aibot.strategy.custom.CustomRuleStrategy;
 import com.chicu.aibot.strategy.fibonacci.FibonacciGridStrategy;
+import com.chicu.aibot.strategy.ma_crossover.MaCrossoverStrategy;
 import com.chicu.aibot.strategy.ml_invest.MachineLearningInvestStrategy;
+import com.chicu.aibot.strategy.rsi_ema.RsiEmaStrategy;
 import com.chicu.aibot.strategy.scalping.ScalpingStrategy;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
@@ -23,6 +26,9 @@ public class StrategyRegistry {
     private final ScalpingStrategy scalpingStrategy;
     private final BollingerBandsStrategy bollingerBandsStrategy;
     private final MachineLearningInvestStrategy machineLearningInvestStrategy;
+    private final RsiEmaStrategy rsiEmaStrategy;
+    private final MaCrossoverStrategy maCrossoverStrategy;
+    private final CustomRuleStrategy customRuleStrategy;
 
     private final Map<StrategyType, TradingStrategy> strategyMap = new EnumMap<>(StrategyType.class);
 
@@ -32,6 +38,9 @@ public class StrategyRegistry {
         strategyMap.put(StrategyType.SCALPING,           scalpingStrategy);
         strategyMap.put(StrategyType.BOLLINGER_BANDS,    bollingerBandsStrategy);
         strategyMap.put(StrategyType.MACHINE_LEARNING_INVEST, machineLearningInvestStrategy);
+        strategyMap.put(StrategyType.RSI_EMA,            rsiEmaStrategy);
+        strategyMap.put(StrategyType.MA_CROSSOVER,       maCrossoverStrategy);
+        strategyMap.put(StrategyType.CUSTOM_RULES,       customRuleStrategy);
     }
 
     /** Получение стратегии по enum-типу */
@@ -9,7 +9,8 @@ public enum StrategyType {
     RSI_EMA("RSI + EMA"),
     MA_CROSSOVER("MA Crossover"),
     BOLLINGER_BANDS("Bollinger Bands"),
-    MACHINE_LEARNING_INVEST("Machine Learning Invest");
+    MACHINE_LEARNING_INVEST("Machine Learning Invest"),
+    CUSTOM_RULES("Custom Rules");
 
 
     private final String label;
@@ -0,0 +1,44 @@
+package com.chicu.aibot.strategy;
+
+import com.chicu.aibot.exchange.enums.Exchange;
+import com.chicu.aibot.exchange.enums.NetworkType;
+import com.chicu.aibot.strategy.model.Candle;
+import com.chicu.aibot.strategy.model.Order;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Всё, что нужно стратегии на тике, собранное движком один раз.
+ *
+ * @param exchange   биржа чата; {@code null} — симуляция (бэктест)
+ * @param network    сеть биржи чата; {@code null} — симуляция
+ * @param settings   настройки, прочитанные в {@link TradingStrategy#prepareTick}; {@code null} — тик пустой
+ * @param candles    окно свечей из заявки (последняя — формирующаяся)
+ * @param lastPrice  цена закрытия последней свечи, 0 — свечей нет
+ * @param openOrders открытые ордера символа; грузятся при первом обращении и не чаще раза за тик
+ */
+public record TickContext(Long chatId,
+                          Exchange exchange,
+                          NetworkType network,
+                          StrategySettings settings,
+                          String symbol,
+                          String timeframe,
+                          List<Candle> candles,
+                          double lastPrice,
+                          Supplier<List<Order>> openOrders) {
+
+    /** Пустой тик: стратегия отказалась от данных. */
+    public static TickContext empty(Long chatId) {
+        return new TickContext(chatId, null, null, null, null, null, List.of(), 0.0, List::of);
+    }
+
+    public boolean isEmpty() {
+        return settings == null;
+    }
+
+    /** Настройки нужного типа (тот же объект, что вернула стратегия в заявке). */
+    public <S extends StrategySettings> S settings(Class<S> type) {
+        return type.cast(settings);
+    }
+}
@@ -0,0 +1,8 @@
+package com.chicu.aibot.strategy;
+
+/**
+ * Заявка стратегии на данные тика.
+ *
+ * @param candles сколько последних свечей нужно (последняя — формирующаяся); 0 — свечи не нужны
+ */
+public record TickRequest(StrategySettings settings, String symbol, String timeframe, int candles) { }
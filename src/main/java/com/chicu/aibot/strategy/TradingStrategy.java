@@ -11,10 +11,20 @@ public interface TradingStrategy {
     /** Остановить стратегию для chatId (отменить все ордера и проч.) */
     void stop(Long chatId);
 
-    /** Вызов при каждом обновлении цены */
-    void onPriceUpdate(Long chatId, double price);
-
-
-    double getCurrentPrice(Long chatId);
+    /**
+     * Экземпляр переезжает на другой узел кластера: снять только локальное (память, ценовые триггеры).
+     * Ордера и защиту на бирже не трогать, чекпоинт не удалять — с них продолжит новый владелец.
+     */
+    default void detach(Long chatId) {
+    }
+
+    /**
+     * Что движку подготовить к тику: настройки, символ, таймфрейм и глубина окна свечей.
+     * {@code null} — на этом тике стратегии данные не нужны (кулдаун, выключена), движок ничего не грузит.
+     */
+    TickRequest prepareTick(Long chatId);
+
+    /** Тик: данные уже загружены движком одним запросом, стратегия только считает и торгует. */
+    void onTick(TickContext ctx);
 
 }
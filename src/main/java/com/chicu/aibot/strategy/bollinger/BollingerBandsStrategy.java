@@ -1,26 +1,35 @@
 package com.chicu.aibot.strategy.bollinger;
 
-import com.chicu.aibot.bot.menu.feature.ai.strategy.view.LiveSnapshot;
-import com.chicu.aibot.exchange.service.MarketLiveService;
 import com.chicu.aibot.strategy.StrategyType;
+import com.chicu.aibot.strategy.TickContext;
+import com.chicu.aibot.strategy.TickRequest;
 import com.chicu.aibot.strategy.TradingStrategy;
 import com.chicu.aibot.strategy.bollinger.model.BollingerStrategySettings;
 import com.chicu.aibot.strategy.bollinger.service.BollingerStrategySettingsService;
+import com.chicu.aibot.strategy.indicator.IndicatorSeriesCache;
+import com.chicu.aibot.strategy.indicator.RollingVariance;
 import com.chicu.aibot.strategy.model.Candle;
 import com.chicu.aibot.strategy.model.Order;
-import com.chicu.aibot.strategy.service.CandleService;
 import com.chicu.aibot.strategy.service.OrderService;
+import com.chicu.aibot.trading.checkpoint.StrategyCheckpointService;
+import com.chicu.aibot.trading.exit.ExitFill;
+import com.chicu.aibot.trading.exit.ExitManager;
+import com.chicu.aibot.trading.exit.ProtectiveExit;
 import com.chicu.aibot.trading.trade.TradeLogService;
 import com.chicu.aibot.trading.trade.model.TradeLogEntry;
+import com.chicu.aibot.trading.trigger.PriceTriggerService;
+import com.chicu.aibot.trading.trigger.TriggerDirection;
 import lombok.RequiredArgsConstructor;
 import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.time.Clock;
 import java.time.Instant;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 
 @Slf4j
@@ -29,14 +38,22 @@ import java.util.concurrent.ConcurrentHashMap;
 public class BollingerBandsStrategy implements TradingStrategy {
 
     private final BollingerStrategySettingsService settingsService;
-    private final CandleService candleService;
     private final OrderService orderService;
-    private final MarketLiveService liveService;
     private final TradeLogService tradeLogService;
+    private final StrategyCheckpointService checkpoints;
+    private final IndicatorSeriesCache indicators;
+    private final Clock clock;
+    /** TP/SL срабатывают на каждом обновлении цены, а не только на тике стратегии. */
+    private final PriceTriggerService triggers;
+    /** Если биржа умеет — TP/SL стоят на самой бирже, уровни в индексе не нужны. */
+    private final ExitManager exits;
 
     /** Простая «позиция» по чатам: одна активная позиция на чат. */
     private final Map<Long, Position> positions = new ConcurrentHashMap<>();
 
+    /** Снимок для быстрого рестарта: открытая позиция (или её отсутствие) и её биржевая защита. */
+    public record Checkpoint(String side, double entry, double qty, Instant openTime, String exitListId) { }
+
     /* ================= TradingStrategy ================= */
 
     @Override
@@ -48,6 +65,15 @@ public class BollingerBandsStrategy implements TradingStrategy {
     public void start(Long chatId) {
         positions.remove(chatId);
         BollingerStrategySettings s = settingsService.getOrCreate(chatId);
+        // позиция живёт только в памяти — без снимка после рестарта она бы «потерялась»
+        checkpoints.restore(chatId, getType(), Checkpoint.class)
+                .filter(cp -> cp.side() != null)
+                .ifPresent(cp -> {
+                    Position restored = new Position(Side.valueOf(cp.side()), cp.entry(), cp.qty(), cp.openTime());
+                    positions.put(chatId, restored);
+                    log.info("[BOLL] chatId={} восстановлена позиция {} @{} из чекпоинта", chatId, cp.side(), fmt(cp.entry()));
+                    if (exits.restore(chatId, owner(chatId), cp.exitListId()).isEmpty()) armExits(chatId, s, restored);
+                });
         log.info("[BOLL] chatId={} started (symbol={}, tf={}, period={}, k={}, TP={}%, SL={}%, long={}, short={})",
                 chatId, safeSymbol(s.getSymbol()), safeTf(s.getTimeframe()),
                 nvl(s.getPeriod()), nvl(s.getStdDevMultiplier(), 2.0),
@@ -57,17 +83,38 @@ public class BollingerBandsStrategy implements TradingStrategy {
 
     @Override
     public void stop(Long chatId) {
+        triggers.disarm(owner(chatId));
+        exits.cancel(owner(chatId));
         positions.remove(chatId);
+        checkpoints.clear(chatId, getType());
         log.info("[BOLL] chatId={} stopped; local state cleared", chatId);
     }
 
     @Override
-    public void onPriceUpdate(Long chatId, double lastPrice) {
-        final BollingerStrategySettings s = settingsService.getOrCreate(chatId);
-        if (!s.isActive()) return;
+    public void detach(Long chatId) {
+        // биржевая защита остаётся стоять, её orderListId — в чекпоинте для нового владельца
+        triggers.disarm(owner(chatId));
+        positions.remove(chatId);
+    }
 
-        final String symbol = safeSymbol(s.getSymbol());
-        final String tf     = safeTf(s.getTimeframe());
+    @Override
+    public TickRequest prepareTick(Long chatId) {
+        BollingerStrategySettings s = settingsService.getOrCreate(chatId);
+        if (!s.isActive()) return null;
+        // period закрытых свечей + формирующаяся (её close — текущая цена)
+        return new TickRequest(s, safeSymbol(s.getSymbol()), safeTf(s.getTimeframe()),
+                Math.max(5, nvl(s.getPeriod())) + 1);
+    }
+
+    @Override
+    public void onTick(TickContext ctx) {
+        if (ctx.isEmpty()) return;
+        final Long chatId = ctx.chatId();
+        final BollingerStrategySettings s = ctx.settings(BollingerStrategySettings.class);
+        final double lastPrice = ctx.lastPrice();
+
+        final String symbol = ctx.symbol();
+        final String tf     = ctx.timeframe();
         final int    period = Math.max(5, nvl(s.getPeriod()));
         final double k      = Math.max(0.0, nvl(s.getStdDevMultiplier(), 2.0));
         final double tpFrac = Math.max(0.0, nvl(s.getTakeProfitPct(), 1.0)) / 100.0;
@@ -76,19 +123,20 @@ public class BollingerBandsStrategy implements TradingStrategy {
 
         if (qty <= 0.0) return; // нечем торговать
 
-        // Берём последние period свечей
-        List<Candle> candles = candleService.getCandles(chatId, symbol, tf, period);
-        if (candles == null || candles.size() < period) return;
-
-        // close может быть BigDecimal — конвертируем в double
-        double[] closes = new double[candles.size()];
-        for (int i = 0; i < candles.size(); i++) {
-            BigDecimal c = candles.get(i).getClose();
-            closes[i] = (c != null ? c.doubleValue() : lastPrice);
-        }
+        // полосы считаем только по закрытым свечам
+        List<Candle> candles = ctx.candles();
+        if (candles.size() < period + 1 || lastPrice <= 0) return;
+        List<Candle> closed = candles.subList(0, candles.size() - 1);
 
-        double sma   = mean(closes);
-        double sigma = stddev(closes);
+        // состояние окна общее для всех чатов с той же биржей/сетью/symbol/tf/period — докармливаем только новые бары
+        double[] band = new double[2];
+        indicators.get(ctx.exchange(), ctx.network(), symbol, tf, "boll:" + period, () -> new RollingVariance(period))
+                .advance(closed, rv -> {
+                    band[0] = rv.mean();
+                    band[1] = rv.stdDev();
+                });
+        double sma   = band[0];
+        double sigma = band[1];
         double upper = sma + k * sigma;
         double lower = sma - k * sigma;
 
@@ -98,87 +146,162 @@ public class BollingerBandsStrategy implements TradingStrategy {
         if (pos == null) {
             if (Boolean.TRUE.equals(s.getAllowLong()) && lastPrice <= lower) {
                 Order ord = placeMarketSafe(chatId, symbol, true, qty); // BUY
-                if (ord != null && !ord.isRejected()) {
-                    positions.put(chatId, new Position(Side.LONG, lastPrice, qty, Instant.now()));
-                    log.info("[BOLL] chatId={} LONG open @{} qty={}", chatId, fmt(lastPrice), fmtQty(qty));
+                if (executed(ord)) {
+                    // защищаем то, что реально пришло на счёт: исполненный объём за вычетом комиссии в базовом активе
+                    Position opened = new Position(Side.LONG, lastPrice, ord.getVolume(), Instant.now(clock));
+                    positions.put(chatId, opened);
+                    protect(chatId, s, opened);
+                    saveCheckpoint(chatId);
+                    log.info("[BOLL] chatId={} LONG open @{} qty={}", chatId, fmt(lastPrice), fmtQty(opened.qty));
                 }
                 return;
             }
             if (Boolean.TRUE.equals(s.getAllowShort()) && lastPrice >= upper) {
                 Order ord = placeMarketSafe(chatId, symbol, false, qty); // SELL
-                if (ord != null && !ord.isRejected()) {
-                    positions.put(chatId, new Position(Side.SHORT, lastPrice, qty, Instant.now()));
-                    log.info("[BOLL] chatId={} SHORT open @{} qty={}", chatId, fmt(lastPrice), fmtQty(qty));
+                if (executed(ord)) {
+                    Position opened = new Position(Side.SHORT, lastPrice, ord.getVolume(), Instant.now(clock));
+                    positions.put(chatId, opened);
+                    protect(chatId, s, opened);
+                    saveCheckpoint(chatId);
+                    log.info("[BOLL] chatId={} SHORT open @{} qty={}", chatId, fmt(lastPrice), fmtQty(opened.qty));
                 }
                 return;
             }
             return;
         }
 
-        // === ВЫХОД (TP/SL) ===
-        switch (pos.side) {
-            case LONG -> {
-                boolean takeProfit = lastPrice >= pos.entry * (1.0 + tpFrac);
-                boolean stopLoss   = (slFrac > 0) && lastPrice <= pos.entry * (1.0 - slFrac);
-                if (takeProfit || stopLoss) {
-                    Order ord = placeMarketSafe(chatId, symbol, false, pos.qty); // SELL
-                    if (ord != null && !ord.isRejected()) {
-                        positions.remove(chatId);
-                        double pnlPct = (lastPrice - pos.entry) / pos.entry * 100.0;
-                        log.info("[BOLL] chatId={} LONG close @{} PnL={}%", chatId, fmt(lastPrice), fmtPct(pnlPct));
-
-                        tradeLogService.logTrade(TradeLogEntry.builder()
-                                .chatId(chatId)
-                                .symbol(symbol)
-                                .openTime(pos.openTime)
-                                .closeTime(Instant.now())
-                                .entryPrice(BigDecimal.valueOf(pos.entry))
-                                .exitPrice(BigDecimal.valueOf(lastPrice))
-                                .volume(BigDecimal.valueOf(pos.qty))
-                                .pnl(BigDecimal.valueOf(lastPrice - pos.entry))
-                                .pnlPct(BigDecimal.valueOf(pnlPct))
-                                .side("LONG")
-                                .build());
-                    }
-                }
+        // === ВЫХОД по бирже === — TP/SL стоят на бирже, сверяемся с ней
+        if (exits.current(owner(chatId)).isPresent()) {
+            Optional<ExitFill> fill = exits.poll(owner(chatId));
+            if (fill.isPresent()) {
+                log.info("[BOLL] chatId={} позицию закрыла биржа ({})", chatId, fill.get().takeProfit() ? "TP" : "SL");
+                recordClose(chatId, symbol, pos, fill.get().price());
+                return;
             }
-            case SHORT -> {
-                boolean takeProfit = lastPrice <= pos.entry * (1.0 - tpFrac);
-                boolean stopLoss   = (slFrac > 0) && lastPrice >= pos.entry * (1.0 + slFrac);
-                if (takeProfit || stopLoss) {
-                    Order ord = placeMarketSafe(chatId, symbol, true, pos.qty); // BUY
-                    if (ord != null && !ord.isRejected()) {
-                        positions.remove(chatId);
-                        double pnlPct = (pos.entry - lastPrice) / pos.entry * 100.0;
-                        log.info("[BOLL] chatId={} SHORT close @{} PnL={}%", chatId, fmt(lastPrice), fmtPct(pnlPct));
-
-                        tradeLogService.logTrade(TradeLogEntry.builder()
-                                .chatId(chatId)
-                                .symbol(symbol)
-                                .openTime(pos.openTime)
-                                .closeTime(Instant.now())
-                                .entryPrice(BigDecimal.valueOf(pos.entry))
-                                .exitPrice(BigDecimal.valueOf(lastPrice))
-                                .volume(BigDecimal.valueOf(pos.qty))
-                                .pnl(BigDecimal.valueOf(pos.entry - lastPrice))
-                                .pnlPct(BigDecimal.valueOf(pnlPct))
-                                .side("SHORT")
-                                .build());
-                    }
-                }
+            if (exits.current(owner(chatId)).isPresent()) return;
+            // защиту сняли мимо бота — дальше выходим сами
+            armExits(chatId, s, pos);
+            saveCheckpoint(chatId);
+        }
+
+        // === ВЫХОД (TP/SL) === — страховка на случай, если уровень не сработал между тиками
+        if (exitHit(pos, lastPrice, tpFrac, slFrac)) {
+            closePosition(chatId, s, pos, lastPrice);
+        }
+    }
+
+    /* ================= TP/SL ================= */
+
+    private static boolean exitHit(Position pos, double price, double tpFrac, double slFrac) {
+        return switch (pos.side) {
+            case LONG -> price >= pos.entry * (1.0 + tpFrac)
+                    || (slFrac > 0 && price <= pos.entry * (1.0 - slFrac));
+            case SHORT -> price <= pos.entry * (1.0 - tpFrac)
+                    || (slFrac > 0 && price >= pos.entry * (1.0 + slFrac));
+        };
+    }
+
+    /** Ставим TP и SL на бирже; если не вышло — взводим их в общем индексе уровней. */
+    private void protect(Long chatId, BollingerStrategySettings s, Position pos) {
+        double tpFrac = Math.max(0.0, nvl(s.getTakeProfitPct(), 1.0)) / 100.0;
+        double slFrac = Math.max(0.0, nvl(s.getStopLossPct(), 0.5))   / 100.0;
+        boolean isLong = pos.side == Side.LONG;
+        Optional<ProtectiveExit> pe = slFrac <= 0 ? Optional.empty() : exits.protect(chatId, owner(chatId),
+                safeSymbol(s.getSymbol()), isLong ? Order.Side.SELL : Order.Side.BUY, pos.qty,
+                pos.entry * (isLong ? 1.0 + tpFrac : 1.0 - tpFrac),
+                pos.entry * (isLong ? 1.0 - slFrac : 1.0 + slFrac));
+        if (pe.isEmpty()) armExits(chatId, s, pos);
+    }
+
+    /** Взводим TP и SL открытой позиции в общем индексе уровней. */
+    private void armExits(Long chatId, BollingerStrategySettings s, Position pos) {
+        String symbol = safeSymbol(s.getSymbol());
+        double tpFrac = Math.max(0.0, nvl(s.getTakeProfitPct(), 1.0)) / 100.0;
+        double slFrac = Math.max(0.0, nvl(s.getStopLossPct(), 0.5))   / 100.0;
+        boolean isLong = pos.side == Side.LONG;
+        String owner = owner(chatId);
+        triggers.disarm(owner);
+        triggers.arm(chatId, owner, symbol,
+                isLong ? TriggerDirection.ABOVE : TriggerDirection.BELOW,
+                pos.entry * (isLong ? 1.0 + tpFrac : 1.0 - tpFrac),
+                price -> onExitTrigger(chatId, s, pos, price));
+        if (slFrac > 0) {
+            triggers.arm(chatId, owner, symbol,
+                    isLong ? TriggerDirection.BELOW : TriggerDirection.ABOVE,
+                    pos.entry * (isLong ? 1.0 - slFrac : 1.0 + slFrac),
+                    price -> onExitTrigger(chatId, s, pos, price));
+        }
+    }
+
+    /** Исполняется в ящике актора стратегии; позиция могла уже закрыться тиком. */
+    private void onExitTrigger(Long chatId, BollingerStrategySettings s, Position pos, double price) {
+        if (positions.get(chatId) != pos) return;
+        log.info("[BOLL] chatId={} сработал уровень выхода @{}", chatId, fmt(price));
+        closePosition(chatId, s, pos, price);
+    }
+
+    /**
+     * Биржевую защиту снимаем до рыночного выхода: иначе она продаст позицию второй раз, а открытые
+     * ноги ещё и блокируют MARKET по символу. Если выход не исполнился — защита ставится заново.
+     */
+    private void closePosition(Long chatId, BollingerStrategySettings s, Position pos, double lastPrice) {
+        String symbol = safeSymbol(s.getSymbol());
+        boolean isLong = pos.side == Side.LONG;
+        boolean wasProtected = exits.current(owner(chatId)).isPresent();
+        exits.cancel(owner(chatId));
+        Order ord = placeMarketSafe(chatId, symbol, !isLong, pos.qty); // LONG закрываем SELL, SHORT — BUY
+        if (!executed(ord)) {
+            log.warn("[BOLL] chatId={} рыночный выход {} не исполнен — позиция снова под защитой", chatId, pos.side);
+            if (wasProtected) {
+                protect(chatId, s, pos);
+            } else {
+                armExits(chatId, s, pos);
             }
+            saveCheckpoint(chatId);
+            return;
         }
+        recordClose(chatId, symbol, pos, lastPrice);
     }
 
-    @Override
-    public double getCurrentPrice(Long chatId) {
-        BollingerStrategySettings s = settingsService.getOrCreate(chatId);
-        LiveSnapshot snap = liveService.build(chatId, safeSymbol(s.getSymbol()));
-        return snap.getLastPrice();
+    /** Позиция закрыта (нами или биржей): снимаем уровни, пишем сделку. */
+    private void recordClose(Long chatId, String symbol, Position pos, double lastPrice) {
+        boolean isLong = pos.side == Side.LONG;
+        positions.remove(chatId);
+        triggers.disarm(owner(chatId));
+        saveCheckpoint(chatId);
+        double diff = isLong ? lastPrice - pos.entry : pos.entry - lastPrice;
+        double pnlPct = diff / pos.entry * 100.0;
+        log.info("[BOLL] chatId={} {} close @{} PnL={}%", chatId, pos.side, fmt(lastPrice), fmtPct(pnlPct));
+
+        tradeLogService.logTrade(TradeLogEntry.builder()
+                .chatId(chatId)
+                .symbol(symbol)
+                .strategy(getType().name())
+                .openTime(pos.openTime)
+                .closeTime(Instant.now(clock))
+                .entryPrice(BigDecimal.valueOf(pos.entry))
+                .exitPrice(BigDecimal.valueOf(lastPrice))
+                .volume(BigDecimal.valueOf(pos.qty))
+                .pnl(BigDecimal.valueOf(diff))
+                .pnlPct(BigDecimal.valueOf(pnlPct))
+                .side(pos.side.name())
+                .build());
+    }
+
+    private String owner(Long chatId) {
+        return chatId + ":" + getType().name();
     }
 
     /* ================= helpers ================= */
 
+    private void saveCheckpoint(Long chatId) {
+        Position p = positions.get(chatId);
+        String listId = exits.current(owner(chatId)).map(ProtectiveExit::listId).orElse(null);
+        checkpoints.update(chatId, getType(), p == null
+                ? new Checkpoint(null, 0.0, 0.0, null, null)
+                : new Checkpoint(p.side.name(), p.entry, p.qty, p.openTime, listId));
+    }
+
     @Value
     private static class Position {
         Side   side;
@@ -198,6 +321,12 @@ public class BollingerBandsStrategy implements TradingStrategy {
     private static String fmtQty(double v) { return String.format("%,.6f", v); }
     private static String fmtPct(double v) { return String.format("%.2f", v); }
 
+    /** MARKET исполнен: не отказ, не пропуск (кулдаун / открытые ордера по символу) и объём больше нуля. */
+    private static boolean executed(Order ord) {
+        return ord != null && !ord.isRejected() && ord.getVolume() > 0.0
+                && (ord.getId() == null || !ord.getId().startsWith("SKIPPED-"));
+    }
+
     private Order placeMarketSafe(Long chatId, String symbol, boolean buy, double qty) {
         try {
             Order.Side side = buy ? Order.Side.BUY : Order.Side.SELL;
@@ -208,18 +337,4 @@ public class BollingerBandsStrategy implements TradingStrategy {
             return null;
         }
     }
-
-    private static double mean(double[] a) {
-        double s = 0.0;
-        for (double v : a) s += v;
-        return s / Math.max(1, a.length);
-    }
-
-    private static double stddev(double[] a) {
-        int n = a.length;
-        if (n < 2) return 0.0;
-        double m = mean(a), ss = 0.0;
-        for (double v : a) { double d = v - m; ss += d * d; }
-        return Math.sqrt(ss / (n - 1));
-    }
 }
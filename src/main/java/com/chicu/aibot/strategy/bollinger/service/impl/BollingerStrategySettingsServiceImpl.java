@@ -4,10 +4,12 @@ import com.chicu.aibot.strategy.bollinger.model.BollingerStrategySettings;
 import com.chicu.aibot.strategy.bollinger.repository.BollingerStrategySettingsRepository;
 import com.chicu.aibot.strategy.bollinger.service.BollingerStrategySettingsService;
 import com.chicu.aibot.strategy.common.DefaultTradingParamsResolver;
+import com.chicu.aibot.trading.events.StrategySettingsChangedEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -18,6 +20,7 @@ public class BollingerStrategySettingsServiceImpl implements BollingerStrategySe
 
     private final BollingerStrategySettingsRepository repo;
     private final DefaultTradingParamsResolver defaults;
+    private final ApplicationEventPublisher events;
 
     @Value("${trading.defaults.symbol:BTCUSDT}")
     private String defaultSymbolProp;
@@ -63,6 +66,8 @@ public class BollingerStrategySettingsServiceImpl implements BollingerStrategySe
     @Transactional
     public BollingerStrategySettings save(BollingerStrategySettings settings) {
         log.info("💾 Сохраняю настройки Bollinger для chatId={}", settings.getChatId());
-        return repo.saveAndFlush(settings);
+        BollingerStrategySettings saved = repo.saveAndFlush(settings);
+        events.publishEvent(new StrategySettingsChangedEvent(settings.getChatId(), settings.getType()));
+        return saved;
     }
 }
@@ -0,0 +1,309 @@
+package com.chicu.aibot.strategy.custom;
+
+import com.chicu.aibot.strategy.StrategyType;
+import com.chicu.aibot.strategy.TickContext;
+import com.chicu.aibot.strategy.TickRequest;
+import com.chicu.aibot.strategy.TradingStrategy;
+import com.chicu.aibot.strategy.custom.model.CustomRuleStrategySettings;
+import com.chicu.aibot.strategy.custom.rule.CompiledRule;
+import com.chicu.aibot.strategy.custom.rule.RuleCompiler;
+import com.chicu.aibot.strategy.custom.rule.RuleSyntaxException;
+import com.chicu.aibot.strategy.custom.service.CustomRuleStrategySettingsService;
+import com.chicu.aibot.strategy.indicator.IndicatorSeriesCache;
+import com.chicu.aibot.strategy.model.Candle;
+import com.chicu.aibot.strategy.model.Order;
+import com.chicu.aibot.strategy.service.OrderService;
+import com.chicu.aibot.trading.checkpoint.StrategyCheckpointService;
+import com.chicu.aibot.trading.trade.TradeLogService;
+import com.chicu.aibot.trading.trade.model.TradeLogEntry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Пользовательская стратегия: вход и выход задаются текстовыми правилами
+ * (например, {@code rsi(14) < 30 and close > ema(50)}), TP/SL — как у встроенных стратегий.
+ * <p>
+ * Правила компилируются один раз при смене текста ({@link RuleCompiler}); на закрытом баре
+ * стратегия только заполняет кадр значениями общих потоковых индикаторов и прогоняет по нему
+ * готовое дерево вычислителей.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CustomRuleStrategy implements TradingStrategy {
+
+    /** Хвост окна для прогретых индикаторов: закрытые бары с запасом на пропущенный тик + формирующийся. */
+    private static final int TAIL_BARS = 5;
+
+    private final CustomRuleStrategySettingsService settingsService;
+    private final OrderService orderService;
+    private final TradeLogService tradeLogService;
+    private final StrategyCheckpointService checkpoints;
+    private final IndicatorSeriesCache indicators;
+    private final Clock clock;
+    private final RuleCompiler compiler;
+
+    /** Одна позиция на чат. */
+    private final Map<Long, Position> positions = new ConcurrentHashMap<>();
+    /** Время закрытого бара, по которому уже принято решение. */
+    private final Map<Long, Instant> decidedBar = new ConcurrentHashMap<>();
+    /** Скомпилированные правила и кадры значений чата; пересобираются при смене текста правил. */
+    private final Map<Long, Rules> rules = new ConcurrentHashMap<>();
+
+    /** Снимок для быстрого рестарта: открытая позиция (или её отсутствие). */
+    public record Checkpoint(String side, double entry, double qty, Instant openTime) { }
+
+    @Override
+    public StrategyType getType() {
+        return StrategyType.CUSTOM_RULES;
+    }
+
+    @Override
+    public void start(Long chatId) {
+        positions.remove(chatId);
+        decidedBar.remove(chatId);
+        rules.remove(chatId);
+        checkpoints.restore(chatId, getType(), Checkpoint.class)
+                .filter(cp -> cp.side() != null)
+                .ifPresent(cp -> {
+                    positions.put(chatId, new Position(Side.valueOf(cp.side()), cp.entry(), cp.qty(), cp.openTime()));
+                    log.info("[Custom] chatId={} восстановлена позиция {} @{} из чекпоинта", chatId, cp.side(), fmt(cp.entry()));
+                });
+        CustomRuleStrategySettings s = settingsService.getOrCreate(chatId);
+        log.info("[Custom] chatId={} started (symbol={}, tf={}, side={}, entry='{}', exit='{}', TP={}%, SL={}%)",
+                chatId, s.getSymbol(), s.getTimeframe(), s.getSide(), s.getEntryRule(), s.getExitRule(),
+                s.getTakeProfitPct(), s.getStopLossPct());
+    }
+
+    @Override
+    public void stop(Long chatId) {
+        positions.remove(chatId);
+        decidedBar.remove(chatId);
+        rules.remove(chatId);
+        checkpoints.clear(chatId, getType());
+        log.info("[Custom] chatId={} stopped; local state cleared", chatId);
+    }
+
+    @Override
+    public TickRequest prepareTick(Long chatId) {
+        CustomRuleStrategySettings s = settingsService.getOrCreate(chatId);
+        if (!s.isActive()) return null;
+        Rules r = rules(chatId, s);
+        if (r == null) return null; // правило не компилируется — торговать нечем
+        // прогретым индикаторам хватает хвоста — полное окно грузим только на прогреве
+        int depth = r.warm ? TAIL_BARS : r.warmupBars(nvl(s.getCachedCandlesLimit(), 200)) + 1;
+        return new TickRequest(s, safeSymbol(s.getSymbol()), safeTf(s.getTimeframe()), depth);
+    }
+
+    @Override
+    public void onTick(TickContext ctx) {
+        if (ctx.isEmpty()) return;
+        Long chatId = ctx.chatId();
+        CustomRuleStrategySettings s = ctx.settings(CustomRuleStrategySettings.class);
+        double price = ctx.lastPrice();
+        List<Candle> candles = ctx.candles();
+        if (candles.size() < 2 || price <= 0) return;
+        Rules r = rules(chatId, s);
+        if (r == null) return;
+
+        double tpFrac = Math.max(0.0, nvl(s.getTakeProfitPct(), 1.5)) / 100.0;
+        double slFrac = Math.max(0.0, nvl(s.getStopLossPct(), 1.0)) / 100.0;
+
+        // TP/SL — на каждом тике по текущей цене
+        Position pos = positions.get(chatId);
+        if (pos != null && exitHit(pos, price, tpFrac, slFrac)) {
+            close(chatId, ctx.symbol(), pos, price, "TP/SL");
+            return;
+        }
+
+        // правила — раз на закрытый бар
+        List<Candle> closed = candles.subList(0, candles.size() - 1);
+        Instant bar = closed.getLast().getOpenTime();
+        if (bar != null && bar.equals(decidedBar.get(chatId))) return;
+
+        boolean full = closed.size() >= r.warmupBars(nvl(s.getCachedCandlesLimit(), 200));
+        // оба правила заполняем на каждом баре: crosses_* смотрят на прошлый кадр
+        boolean ready = r.entry.fill(r.entryCur, indicators, ctx.exchange(), ctx.network(), ctx.symbol(),
+                ctx.timeframe(), closed, price, full);
+        if (r.exit != null) {
+            ready &= r.exit.fill(r.exitCur, indicators, ctx.exchange(), ctx.network(), ctx.symbol(),
+                    ctx.timeframe(), closed, price, full);
+        }
+        r.warm = ready;
+        if (!ready) return; // ещё греемся
+        if (bar != null) decidedBar.put(chatId, bar);
+
+        try {
+            if (pos != null) {
+                if (r.exit != null && r.exit.test(r.exitCur, r.exitPrev)) close(chatId, ctx.symbol(), pos, price, "правило выхода");
+                return;
+            }
+            double qty = Math.max(0.0, nvl(s.getOrderVolume(), 0.0));
+            if (qty > 0.0 && r.entry.test(r.entryCur, r.entryPrev)) {
+                open(chatId, ctx.symbol(), side(s), price, qty);
+            }
+        } finally {
+            r.shift();
+        }
+    }
+
+    /* ================= правила ================= */
+
+    /** Правила чата под текущие тексты из настроек; null — правило входа не компилируется. */
+    private Rules rules(Long chatId, CustomRuleStrategySettings s) {
+        Rules r = rules.get(chatId);
+        // неудачная компиляция тоже запоминается: не компилируем и не логируем её на каждом тике
+        if (r != null && r.matches(s)) return r.isBroken() ? null : r;
+        try {
+            CompiledRule entry = compiler.compile(s.getEntryRule());
+            CompiledRule exit = isBlank(s.getExitRule()) ? null : compiler.compile(s.getExitRule());
+            r = new Rules(s.getEntryRule(), s.getExitRule(), entry, exit);
+            rules.put(chatId, r);
+            log.info("[Custom] chatId={} правила скомпилированы: входов={}, прогрев={} баров",
+                    chatId, entry.inputs().size() + (exit == null ? 0 : exit.inputs().size()),
+                    r.warmupBars(nvl(s.getCachedCandlesLimit(), 200)));
+            return r;
+        } catch (RuleSyntaxException e) {
+            log.warn("[Custom] chatId={} правило не компилируется: {}", chatId, e.getMessage());
+            rules.put(chatId, Rules.broken(s.getEntryRule(), s.getExitRule()));
+            return null;
+        }
+    }
+
+    /** Тексты правил, их скомпилированные формы и кадры: текущий и предыдущего бара. */
+    private static final class Rules {
+        final String entryText;
+        final String exitText;
+        final CompiledRule entry;
+        final CompiledRule exit;
+        final double[] entryCur;
+        final double[] entryPrev;
+        final double[] exitCur;
+        final double[] exitPrev;
+        volatile boolean warm;
+
+        Rules(String entryText, String exitText, CompiledRule entry, CompiledRule exit) {
+            this.entryText = entryText;
+            this.exitText = exitText;
+            this.entry = entry;
+            this.exit = exit;
+            this.entryCur = entry == null ? null : entry.newFrame();
+            this.entryPrev = entry == null ? null : entry.newFrame();
+            this.exitCur = exit == null ? null : exit.newFrame();
+            this.exitPrev = exit == null ? null : exit.newFrame();
+        }
+
+        static Rules broken(String entryText, String exitText) {
+            return new Rules(entryText, exitText, null, null);
+        }
+
+        boolean matches(CustomRuleStrategySettings s) {
+            return Objects.equals(entryText, s.getEntryRule()) && Objects.equals(exitText, s.getExitRule());
+        }
+
+        boolean isBroken() {
+            return entry == null;
+        }
+
+        int warmupBars(int limit) {
+            int min = Math.max(entry.minBars(), exit == null ? 1 : exit.minBars());
+            int want = Math.max(entry.warmupBars(), exit == null ? 1 : exit.warmupBars());
+            return Math.max(min, Math.min(limit, want));
+        }
+
+        /** Текущий кадр становится предыдущим. */
+        void shift() {
+            System.arraycopy(entryCur, 0, entryPrev, 0, entryCur.length);
+            if (exit != null) System.arraycopy(exitCur, 0, exitPrev, 0, exitCur.length);
+        }
+    }
+
+    /* ================= позиция ================= */
+
+    private void open(Long chatId, String symbol, Side side, double price, double qty) {
+        Order ord = placeMarketSafe(chatId, symbol, side == Side.LONG ? Order.Side.BUY : Order.Side.SELL, qty);
+        if (ord == null || ord.isRejected()) return;
+        positions.put(chatId, new Position(side, price, qty, Instant.now(clock)));
+        saveCheckpoint(chatId);
+        log.info("[Custom] chatId={} {} open @{} qty={}", chatId, side, fmt(price), qty);
+    }
+
+    private void close(Long chatId, String symbol, Position pos, double price, String reason) {
+        boolean isLong = pos.side() == Side.LONG;
+        Order ord = placeMarketSafe(chatId, symbol, isLong ? Order.Side.SELL : Order.Side.BUY, pos.qty());
+        if (ord == null || ord.isRejected()) return;
+
+        positions.remove(chatId);
+        saveCheckpoint(chatId);
+        double diff = isLong ? price - pos.entry() : pos.entry() - price;
+        double pnlPct = diff / pos.entry() * 100.0;
+        log.info("[Custom] chatId={} {} close @{} ({}) PnL={}%",
+                chatId, pos.side(), fmt(price), reason, String.format("%.2f", pnlPct));
+
+        tradeLogService.logTrade(TradeLogEntry.builder()
+                .chatId(chatId)
+                .symbol(symbol)
+                .strategy(getType().name())
+                .openTime(pos.openTime())
+                .closeTime(Instant.now(clock))
+                .entryPrice(BigDecimal.valueOf(pos.entry()))
+                .exitPrice(BigDecimal.valueOf(price))
+                .volume(BigDecimal.valueOf(pos.qty()))
+                .pnl(BigDecimal.valueOf(diff))
+                .pnlPct(BigDecimal.valueOf(pnlPct))
+                .side(pos.side().name())
+                .build());
+    }
+
+    private static boolean exitHit(Position pos, double price, double tpFrac, double slFrac) {
+        return switch (pos.side()) {
+            case LONG -> (tpFrac > 0 && price >= pos.entry() * (1.0 + tpFrac))
+                    || (slFrac > 0 && price <= pos.entry() * (1.0 - slFrac));
+            case SHORT -> (tpFrac > 0 && price <= pos.entry() * (1.0 - tpFrac))
+                    || (slFrac > 0 && price >= pos.entry() * (1.0 + slFrac));
+        };
+    }
+
+    private void saveCheckpoint(Long chatId) {
+        Position p = positions.get(chatId);
+        checkpoints.update(chatId, getType(), p == null
+                ? new Checkpoint(null, 0.0, 0.0, null)
+                : new Checkpoint(p.side().name(), p.entry(), p.qty(), p.openTime()));
+    }
+
+    private Order placeMarketSafe(Long chatId, String symbol, Order.Side side, double qty) {
+        try {
+            return orderService.placeMarket(chatId, symbol, side, qty);
+        } catch (Exception e) {
+            log.warn("[Custom] placeMarket failed: chatId={}, symbol={}, side={}, qty={}, err={}",
+                    chatId, symbol, side, qty, e.toString());
+            return null;
+        }
+    }
+
+    private record Position(Side side, double entry, double qty, Instant openTime) { }
+    private enum Side { LONG, SHORT }
+
+    private static Side side(CustomRuleStrategySettings s) {
+        return "SHORT".equalsIgnoreCase(s.getSide()) ? Side.SHORT : Side.LONG;
+    }
+
+    private static boolean isBlank(String s) { return s == null || s.isBlank(); }
+
+    private static String safeSymbol(String s) { return (s == null || s.isBlank()) ? "BTCUSDT" : s; }
+    private static String safeTf(String tf)    { return (tf == null || tf.isBlank()) ? "1h" : tf; }
+
+    private static int    nvl(Integer v, int def)   { return v != null ? v : def; }
+    private static double nvl(Double v, double def) { return v != null ? v : def; }
+
+    private static String fmt(double v) { return String.format("%,.8f", v); }
+}
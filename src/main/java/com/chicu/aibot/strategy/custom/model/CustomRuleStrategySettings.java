@@ -0,0 +1,60 @@
+package com.chicu.aibot.strategy.custom.model;
+
+import com.chicu.aibot.strategy.StrategySettings;
+import com.chicu.aibot.strategy.StrategyType;
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+
+@Entity
+@Table(name = "custom_rule_strategy_settings")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@SuperBuilder
+@EqualsAndHashCode(callSuper = true)
+public class CustomRuleStrategySettings extends StrategySettings {
+
+    @Column(name = "symbol", nullable = false)
+    private String symbol;
+
+    @Column(name = "timeframe", nullable = false)
+    private String timeframe;
+
+    /** Потолок окна для прогрева индикаторов правила; дальше стратегия догружает только хвост. */
+    @Column(name = "cached_candles_limit", nullable = false)
+    private Integer cachedCandlesLimit;
+
+    @Column(name = "order_volume", nullable = false)
+    private Double orderVolume;
+
+    /** Условие входа, например {@code rsi(14) < 30 and close > ema(50)}. */
+    @Column(name = "entry_rule", nullable = false, length = 1000)
+    private String entryRule;
+
+    /** Условие выхода; null — выход только по TP/SL. */
+    @Column(name = "exit_rule", length = 1000)
+    private String exitRule;
+
+    /** Направление позиции: LONG или SHORT. */
+    @Column(name = "side", nullable = false)
+    private String side;
+
+    @Column(name = "take_profit_pct", nullable = false)
+    private Double takeProfitPct;
+
+    @Column(name = "stop_loss_pct", nullable = false)
+    private Double stopLossPct;
+
+    @Column(name = "active", nullable = false)
+    private boolean active;
+
+    @Version
+    private Long version;
+
+    @Override public StrategyType getType() { return StrategyType.CUSTOM_RULES; }
+    @Override public String getTimeframe() { return timeframe; }
+    @Override public Integer getCachedCandlesLimit() { return cachedCandlesLimit; }
+    @Override public boolean isActive() { return active; }
+    @Override public void setActive(boolean active) { this.active = active; }
+}
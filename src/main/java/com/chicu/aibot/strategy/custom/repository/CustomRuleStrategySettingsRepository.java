@@ -0,0 +1,29 @@
+package com.chicu.aibot.strategy.custom.repository;
+
+import com.chicu.aibot.strategy.custom.model.CustomRuleStrategySettings;
+import com.chicu.aibot.trading.reconcile.StrategyActivationRow;
+import com.chicu.aibot.trading.scheduler.StrategyStartRow;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface CustomRuleStrategySettingsRepository extends JpaRepository<CustomRuleStrategySettings, Long> {
+    Optional<CustomRuleStrategySettings> findByChatId(Long chatId);
+
+    @Query("select new com.chicu.aibot.trading.reconcile.StrategyActivationRow(s.chatId, s.active, s.version) " +
+           "from CustomRuleStrategySettings s where s.active = true")
+    List<StrategyActivationRow> findActiveRows();
+
+    @Query("select new com.chicu.aibot.trading.reconcile.StrategyActivationRow(s.chatId, s.active, s.version) " +
+           "from CustomRuleStrategySettings s where s.chatId = :chatId")
+    Optional<StrategyActivationRow> findActivationRow(@Param("chatId") Long chatId);
+
+    @Query("select new com.chicu.aibot.trading.scheduler.StrategyStartRow(s.chatId, s.timeframe) " +
+           "from CustomRuleStrategySettings s where s.active = true")
+    List<StrategyStartRow> findActiveStartRows();
+}
@@ -0,0 +1,11 @@
+package com.chicu.aibot.strategy.custom.rule;
+
+/**
+ * Скомпилированное условие. {@code prev} — кадр предыдущего закрытого бара
+ * (для crosses_above/crosses_below), на первом баре заполнен NaN.
+ */
+@FunctionalInterface
+public interface BoolEval {
+
+    boolean test(double[] cur, double[] prev);
+}
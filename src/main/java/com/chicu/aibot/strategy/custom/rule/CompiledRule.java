@@ -0,0 +1,80 @@
+package com.chicu.aibot.strategy.custom.rule;
+
+import com.chicu.aibot.exchange.enums.Exchange;
+import com.chicu.aibot.exchange.enums.NetworkType;
+import com.chicu.aibot.strategy.indicator.IndicatorSeriesCache;
+import com.chicu.aibot.strategy.model.Candle;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Скомпилированное правило: список входов (ячейки кадра) и дерево вычислителей над кадром.
+ * Неизменяемо и разделяется всеми чатами с тем же текстом правила; кадры — у вызывающего.
+ */
+public final class CompiledRule {
+
+    private final String text;
+    private final List<RuleInput> inputs;
+    private final BoolEval root;
+    private final int minBars;
+    private final int warmupBars;
+
+    CompiledRule(String text, List<RuleInput> inputs, BoolEval root) {
+        this.text = text;
+        this.inputs = List.copyOf(inputs);
+        this.root = root;
+        this.minBars = this.inputs.stream().mapToInt(RuleInput::minBars).max().orElse(1);
+        this.warmupBars = this.inputs.stream().mapToInt(RuleInput::warmupBars).max().orElse(1);
+    }
+
+    public String text() {
+        return text;
+    }
+
+    public List<RuleInput> inputs() {
+        return inputs;
+    }
+
+    /** Минимум закрытых баров, без которого правило не вычислимо. */
+    public int minBars() {
+        return minBars;
+    }
+
+    /** Желательная глубина прогрева (с запасом на сходимость EMA/RSI). */
+    public int warmupBars() {
+        return warmupBars;
+    }
+
+    /** Пустой кадр под это правило; NaN — «значения ещё нет». */
+    public double[] newFrame() {
+        double[] f = new double[inputs.size()];
+        Arrays.fill(f, Double.NaN);
+        return f;
+    }
+
+    /**
+     * Заполнить кадр значениями входов по закрытым барам.
+     *
+     * @return false — какой-то вход ещё не готов, вычислять правило рано
+     */
+    public boolean fill(double[] frame, IndicatorSeriesCache cache, Exchange exchange, NetworkType network,
+                        String symbol, String tf, List<Candle> closed, double price, boolean full) {
+        boolean ready = true;
+        for (int i = 0; i < frame.length; i++) {
+            // все входы докармливаем даже после первого неготового: иначе их ряды отстанут
+            frame[i] = inputs.get(i).read(cache, exchange, network, symbol, tf, closed, price, full);
+            if (Double.isNaN(frame[i])) ready = false;
+        }
+        return ready;
+    }
+
+    public boolean test(double[] cur, double[] prev) {
+        return root.test(cur, prev);
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
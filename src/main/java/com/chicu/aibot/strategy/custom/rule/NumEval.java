@@ -0,0 +1,24 @@
+package com.chicu.aibot.strategy.custom.rule;
+
+/** Скомпилированное числовое выражение над кадром значений входов. */
+@FunctionalInterface
+public interface NumEval {
+
+    double eval(double[] frame);
+
+    /** Константа: компилятор сворачивает выражения из одних констант. */
+    record Const(double value) implements NumEval {
+        @Override
+        public double eval(double[] frame) {
+            return value;
+        }
+    }
+
+    /** Значение входа из кадра. */
+    record Slot(int index) implements NumEval {
+        @Override
+        public double eval(double[] frame) {
+            return frame[index];
+        }
+    }
+}
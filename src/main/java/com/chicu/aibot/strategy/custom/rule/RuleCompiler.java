@@ -0,0 +1,331 @@
+package com.chicu.aibot.strategy.custom.rule;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Компилирует текст правила в дерево специализированных вычислителей: константы свёрнуты,
+ * сравнения «вход с константой» и «вход с входом» — отдельные узлы без промежуточных вызовов,
+ * одинаковые индикаторы читаются из одной ячейки кадра. На тике разбора и интерпретации AST нет.
+ * <p>
+ * Результат кэшируется по тексту: у чатов с одним правилом один экземпляр.
+ */
+@Slf4j
+@Component
+public class RuleCompiler {
+
+    private static final int MAX_CACHED = 1024;
+    private static final int MAX_PERIOD = 1000;
+
+    private static final BoolEval TRUE = (c, p) -> true;
+    private static final BoolEval FALSE = (c, p) -> false;
+
+    private final Map<String, CompiledRule> cache = new ConcurrentHashMap<>();
+
+    /** @throws RuleSyntaxException текст не разбирается или типы не сходятся */
+    public CompiledRule compile(String text) {
+        String key = text == null ? "" : text.strip();
+        CompiledRule hit = cache.get(key);
+        if (hit != null) return hit;
+        CompiledRule rule = new Unit(key).compile();
+        if (cache.size() >= MAX_CACHED) {
+            log.debug("Кэш правил переполнен ({}), сбрасываю", cache.size());
+            cache.clear();
+        }
+        cache.putIfAbsent(key, rule);
+        return rule;
+    }
+
+    /** Состояние одной компиляции: раскладка входов по ячейкам кадра. */
+    private static final class Unit {
+
+        private final String text;
+        private final Map<String, Integer> slots = new LinkedHashMap<>();
+        private final List<RuleInput> inputs = new ArrayList<>();
+
+        Unit(String text) {
+            this.text = text;
+        }
+
+        CompiledRule compile() {
+            BoolEval root = bool(RuleParser.parse(text));
+            return new CompiledRule(text, inputs, root);
+        }
+
+        /* ================= условия ================= */
+
+        private BoolEval bool(RuleNode n) {
+            if (n instanceof RuleNode.Binary b) {
+                if (b.op().equals("and")) return and(bool(b.left()), bool(b.right()));
+                if (b.op().equals("or")) return or(bool(b.left()), bool(b.right()));
+                if (isComparison(b.op())) return compare(b.op(), num(b.left()), num(b.right()));
+            }
+            if (n instanceof RuleNode.Unary u && u.op().equals("not")) return not(bool(u.arg()));
+            if (n instanceof RuleNode.Call c && (c.name().equals("crosses_above") || c.name().equals("crosses_below"))) {
+                return cross(c);
+            }
+            throw new RuleSyntaxException("ожидалось условие (сравнение, and/or/not, crosses_*)", n.pos());
+        }
+
+        private static BoolEval and(BoolEval a, BoolEval b) {
+            if (a == FALSE || b == FALSE) return FALSE;
+            if (a == TRUE) return b;
+            if (b == TRUE) return a;
+            return (c, p) -> a.test(c, p) && b.test(c, p);
+        }
+
+        private static BoolEval or(BoolEval a, BoolEval b) {
+            if (a == TRUE || b == TRUE) return TRUE;
+            if (a == FALSE) return b;
+            if (b == FALSE) return a;
+            return (c, p) -> a.test(c, p) || b.test(c, p);
+        }
+
+        private static BoolEval not(BoolEval a) {
+            if (a == TRUE) return FALSE;
+            if (a == FALSE) return TRUE;
+            return (c, p) -> !a.test(c, p);
+        }
+
+        private static boolean isComparison(String op) {
+            return switch (op) {
+                case "<", "<=", ">", ">=", "==", "!=" -> true;
+                default -> false;
+            };
+        }
+
+        private static BoolEval compare(String op, NumEval l, NumEval r) {
+            if (l instanceof NumEval.Const a && r instanceof NumEval.Const b) {
+                return cmp(op, a.value(), b.value()) ? TRUE : FALSE;
+            }
+            // самые частые формы: rsi(14) < 30, close > ema(50)
+            if (l instanceof NumEval.Slot ls && r instanceof NumEval.Const rc) {
+                int i = ls.index();
+                double b = rc.value();
+                return switch (op) {
+                    case "<" -> (c, p) -> c[i] < b;
+                    case "<=" -> (c, p) -> c[i] <= b;
+                    case ">" -> (c, p) -> c[i] > b;
+                    case ">=" -> (c, p) -> c[i] >= b;
+                    case "==" -> (c, p) -> c[i] == b;
+                    default -> (c, p) -> c[i] != b;
+                };
+            }
+            if (l instanceof NumEval.Const && r instanceof NumEval.Slot) {
+                return compare(flip(op), r, l);
+            }
+            if (l instanceof NumEval.Slot ls && r instanceof NumEval.Slot rs) {
+                int i = ls.index();
+                int j = rs.index();
+                return switch (op) {
+                    case "<" -> (c, p) -> c[i] < c[j];
+                    case "<=" -> (c, p) -> c[i] <= c[j];
+                    case ">" -> (c, p) -> c[i] > c[j];
+                    case ">=" -> (c, p) -> c[i] >= c[j];
+                    case "==" -> (c, p) -> c[i] == c[j];
+                    default -> (c, p) -> c[i] != c[j];
+                };
+            }
+            return switch (op) {
+                case "<" -> (c, p) -> l.eval(c) < r.eval(c);
+                case "<=" -> (c, p) -> l.eval(c) <= r.eval(c);
+                case ">" -> (c, p) -> l.eval(c) > r.eval(c);
+                case ">=" -> (c, p) -> l.eval(c) >= r.eval(c);
+                case "==" -> (c, p) -> l.eval(c) == r.eval(c);
+                default -> (c, p) -> l.eval(c) != r.eval(c);
+            };
+        }
+
+        private static boolean cmp(String op, double a, double b) {
+            return switch (op) {
+                case "<" -> a < b;
+                case "<=" -> a <= b;
+                case ">" -> a > b;
+                case ">=" -> a >= b;
+                case "==" -> a == b;
+                default -> a != b;
+            };
+        }
+
+        private static String flip(String op) {
+            return switch (op) {
+                case "<" -> ">";
+                case "<=" -> ">=";
+                case ">" -> "<";
+                case ">=" -> "<=";
+                default -> op;
+            };
+        }
+
+        /** crosses_above(a, b): на прошлом баре a &lt;= b, на текущем a &gt; b. NaN в прошлом кадре — не пересечение. */
+        private BoolEval cross(RuleNode.Call c) {
+            arity(c, 2);
+            NumEval a = num(c.args().get(0));
+            NumEval b = num(c.args().get(1));
+            if (c.name().equals("crosses_above")) {
+                return (cur, prev) -> a.eval(prev) <= b.eval(prev) && a.eval(cur) > b.eval(cur);
+            }
+            return (cur, prev) -> a.eval(prev) >= b.eval(prev) && a.eval(cur) < b.eval(cur);
+        }
+
+        /* ================= числа ================= */
+
+        private NumEval num(RuleNode n) {
+            if (n instanceof RuleNode.Num x) return new NumEval.Const(x.value());
+            if (n instanceof RuleNode.Ref r) return slot(barField(r), 0);
+            if (n instanceof RuleNode.Call c) return call(c);
+            if (n instanceof RuleNode.Unary u && u.op().equals("-")) return negate(num(u.arg()));
+            if (n instanceof RuleNode.Binary b && isArithmetic(b.op())) return arith(b.op(), num(b.left()), num(b.right()));
+            throw new RuleSyntaxException("ожидалось число, а не условие", n.pos());
+        }
+
+        private static RuleInput.Kind barField(RuleNode.Ref r) {
+            return switch (r.name()) {
+                case "close" -> RuleInput.Kind.CLOSE;
+                case "open" -> RuleInput.Kind.OPEN;
+                case "high" -> RuleInput.Kind.HIGH;
+                case "low" -> RuleInput.Kind.LOW;
+                case "volume" -> RuleInput.Kind.VOLUME;
+                case "price" -> RuleInput.Kind.PRICE;
+                default -> throw new RuleSyntaxException("неизвестное имя '" + r.name() + "'", r.pos());
+            };
+        }
+
+        private NumEval call(RuleNode.Call c) {
+            return switch (c.name()) {
+                case "sma" -> indicator(c, RuleInput.Kind.SMA, 1);
+                case "ema" -> indicator(c, RuleInput.Kind.EMA, 1);
+                case "rsi" -> indicator(c, RuleInput.Kind.RSI, 1);
+                case "atr" -> indicator(c, RuleInput.Kind.ATR, 1);
+                case "highest" -> indicator(c, RuleInput.Kind.HIGHEST, 1);
+                case "lowest" -> indicator(c, RuleInput.Kind.LOWEST, 1);
+                case "bb_mid" -> indicator(c, RuleInput.Kind.BB_MID, 2);
+                case "stddev" -> indicator(c, RuleInput.Kind.STDDEV, 2);
+                case "bb_upper", "bb_lower" -> band(c);
+                case "abs" -> {
+                    arity(c, 1);
+                    NumEval a = num(c.args().getFirst());
+                    yield a instanceof NumEval.Const k ? new NumEval.Const(Math.abs(k.value())) : f -> Math.abs(a.eval(f));
+                }
+                case "min", "max" -> {
+                    arity(c, 2);
+                    NumEval a = num(c.args().get(0));
+                    NumEval b = num(c.args().get(1));
+                    boolean min = c.name().equals("min");
+                    if (a instanceof NumEval.Const x && b instanceof NumEval.Const y) {
+                        yield new NumEval.Const(min ? Math.min(x.value(), y.value()) : Math.max(x.value(), y.value()));
+                    }
+                    yield min ? f -> Math.min(a.eval(f), b.eval(f)) : f -> Math.max(a.eval(f), b.eval(f));
+                }
+                case "crosses_above", "crosses_below" ->
+                        throw new RuleSyntaxException(c.name() + " — условие, а здесь нужно число", c.pos());
+                default -> throw new RuleSyntaxException("неизвестная функция '" + c.name() + "'", c.pos());
+            };
+        }
+
+        private NumEval indicator(RuleNode.Call c, RuleInput.Kind kind, int minPeriod) {
+            arity(c, 1);
+            return slot(kind, period(c.args().getFirst(), minPeriod));
+        }
+
+        /** bb_upper(n, k) = bb_mid(n) + k·stddev(n); k — константа. Обе ячейки берутся из одного ряда "boll:n". */
+        private NumEval band(RuleNode.Call c) {
+            if (c.args().size() != 1 && c.args().size() != 2) {
+                throw new RuleSyntaxException(c.name() + "(n[, k]) — один или два аргумента", c.pos());
+            }
+            int n = period(c.args().getFirst(), 2);
+            double k = 2.0;
+            if (c.args().size() == 2) {
+                if (!(num(c.args().get(1)) instanceof NumEval.Const kc)) {
+                    throw new RuleSyntaxException("множитель полосы должен быть числом", c.args().get(1).pos());
+                }
+                k = kc.value();
+            }
+            int mi = slot(RuleInput.Kind.BB_MID, n).index();
+            int si = slot(RuleInput.Kind.STDDEV, n).index();
+            double kk = c.name().equals("bb_upper") ? k : -k;
+            return f -> f[mi] + kk * f[si];
+        }
+
+        private int period(RuleNode arg, int min) {
+            double v = num(arg) instanceof NumEval.Const k ? k.value() : Double.NaN;
+            if (v != Math.rint(v) || v < min || v > MAX_PERIOD) {
+                throw new RuleSyntaxException("период — целое число от " + min + " до " + MAX_PERIOD, arg.pos());
+            }
+            return (int) v;
+        }
+
+        private static void arity(RuleNode.Call c, int n) {
+            if (c.args().size() != n) {
+                throw new RuleSyntaxException(c.name() + " ждёт аргументов: " + n + ", передано " + c.args().size(), c.pos());
+            }
+        }
+
+        private NumEval.Slot slot(RuleInput.Kind kind, int period) {
+            RuleInput in = new RuleInput(kind, period);
+            int idx = slots.computeIfAbsent(in.key(), k -> {
+                inputs.add(in);
+                return inputs.size() - 1;
+            });
+            return new NumEval.Slot(idx);
+        }
+
+        private static NumEval negate(NumEval a) {
+            if (a instanceof NumEval.Const k) return new NumEval.Const(-k.value());
+            return f -> -a.eval(f);
+        }
+
+        private static boolean isArithmetic(String op) {
+            return switch (op) {
+                case "+", "-", "*", "/" -> true;
+                default -> false;
+            };
+        }
+
+        private static NumEval arith(String op, NumEval l, NumEval r) {
+            if (l instanceof NumEval.Const lc && r instanceof NumEval.Const rc) {
+                double a = lc.value();
+                double b = rc.value();
+                return new NumEval.Const(switch (op) {
+                    case "+" -> a + b;
+                    case "-" -> a - b;
+                    case "*" -> a * b;
+                    default -> a / b;
+                });
+            }
+            // ema(50) * 1.02 и подобные — без вызова вычислителя константы
+            if (l instanceof NumEval.Slot ls && r instanceof NumEval.Const rc) {
+                int i = ls.index();
+                double b = rc.value();
+                return switch (op) {
+                    case "+" -> f -> f[i] + b;
+                    case "-" -> f -> f[i] - b;
+                    case "*" -> f -> f[i] * b;
+                    default -> f -> f[i] / b;
+                };
+            }
+            if (l instanceof NumEval.Slot ls && r instanceof NumEval.Slot rs) {
+                int i = ls.index();
+                int j = rs.index();
+                return switch (op) {
+                    case "+" -> f -> f[i] + f[j];
+                    case "-" -> f -> f[i] - f[j];
+                    case "*" -> f -> f[i] * f[j];
+                    default -> f -> f[i] / f[j];
+                };
+            }
+            return switch (op) {
+                case "+" -> f -> l.eval(f) + r.eval(f);
+                case "-" -> f -> l.eval(f) - r.eval(f);
+                case "*" -> f -> l.eval(f) * r.eval(f);
+                default -> f -> l.eval(f) / r.eval(f);
+            };
+        }
+    }
+}
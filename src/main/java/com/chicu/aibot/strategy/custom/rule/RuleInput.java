@@ -0,0 +1,96 @@
+package com.chicu.aibot.strategy.custom.rule;
+
+import com.chicu.aibot.exchange.enums.Exchange;
+import com.chicu.aibot.exchange.enums.NetworkType;
+import com.chicu.aibot.strategy.indicator.Atr;
+import com.chicu.aibot.strategy.indicator.BarIndicator;
+import com.chicu.aibot.strategy.indicator.Ema;
+import com.chicu.aibot.strategy.indicator.IndicatorSeries;
+import com.chicu.aibot.strategy.indicator.IndicatorSeriesCache;
+import com.chicu.aibot.strategy.indicator.RollingMinMax;
+import com.chicu.aibot.strategy.indicator.RollingSma;
+import com.chicu.aibot.strategy.indicator.RollingVariance;
+import com.chicu.aibot.strategy.indicator.WilderRsi;
+import com.chicu.aibot.strategy.model.Candle;
+
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Один вход правила — значение, которое кладётся в ячейку кадра перед вычислением.
+ * Индикаторы берутся из общего {@link IndicatorSeriesCache} с теми же ключами, что у
+ * встроенных стратегий ("ema:50", "boll:20", ...), поэтому пересчёт делится и с ними.
+ */
+public record RuleInput(Kind kind, int period) {
+
+    public enum Kind {
+        CLOSE, OPEN, HIGH, LOW, VOLUME, PRICE,
+        SMA, EMA, RSI, ATR, HIGHEST, LOWEST, BB_MID, STDDEV
+    }
+
+    /** Ключ для дедупликации: два вызова ema(50) в правиле читают одну ячейку. */
+    public String key() {
+        return period > 0 ? kind.name() + ":" + period : kind.name();
+    }
+
+    /** Минимум закрытых баров, после которого индикатор готов. */
+    public int minBars() {
+        return switch (kind) {
+            case CLOSE, OPEN, HIGH, LOW, VOLUME, PRICE -> 1;
+            case RSI, ATR -> period + 1;
+            default -> period;
+        };
+    }
+
+    /** Бары для прогрева: экспоненциальным сглаживаниям нужен запас на сходимость. */
+    public int warmupBars() {
+        return switch (kind) {
+            case EMA, RSI -> period * 3;
+            default -> minBars();
+        };
+    }
+
+    /**
+     * Значение по закрытым барам; NaN — не готово.
+     *
+     * @param full в {@code closed} полное окно прогрева: отставший ряд можно пересобрать
+     */
+    double read(IndicatorSeriesCache cache, Exchange exchange, NetworkType network, String symbol, String tf,
+                List<Candle> closed, double price, boolean full) {
+        return switch (kind) {
+            case PRICE -> price;
+            case CLOSE -> closed.isEmpty() ? Double.NaN : BarIndicator.close(closed.getLast());
+            case HIGH -> closed.isEmpty() ? Double.NaN : BarIndicator.high(closed.getLast());
+            case LOW -> closed.isEmpty() ? Double.NaN : BarIndicator.low(closed.getLast());
+            case OPEN -> closed.isEmpty() || closed.getLast().getOpen() == null
+                    ? Double.NaN : closed.getLast().getOpen().doubleValue();
+            case VOLUME -> closed.isEmpty() || closed.getLast().getVolume() == null
+                    ? Double.NaN : closed.getLast().getVolume().doubleValue();
+            case SMA -> read(cache.get(exchange, network, symbol, tf, "sma:" + period, () -> new RollingSma(period)),
+                    closed, full, RollingSma::value);
+            case EMA -> read(cache.get(exchange, network, symbol, tf, "ema:" + period, () -> new Ema(period)),
+                    closed, full, Ema::value);
+            case RSI -> read(cache.get(exchange, network, symbol, tf, "rsi:" + period, () -> new WilderRsi(period)),
+                    closed, full, WilderRsi::value);
+            case ATR -> read(cache.get(exchange, network, symbol, tf, "atr:" + period, () -> new Atr(period)),
+                    closed, full, Atr::value);
+            case HIGHEST -> read(cache.get(exchange, network, symbol, tf, "minmax:" + period, () -> new RollingMinMax(period)),
+                    closed, full, RollingMinMax::max);
+            case LOWEST -> read(cache.get(exchange, network, symbol, tf, "minmax:" + period, () -> new RollingMinMax(period)),
+                    closed, full, RollingMinMax::min);
+            case BB_MID -> read(cache.get(exchange, network, symbol, tf, "boll:" + period, () -> new RollingVariance(period)),
+                    closed, full, RollingVariance::mean);
+            case STDDEV -> read(cache.get(exchange, network, symbol, tf, "boll:" + period, () -> new RollingVariance(period)),
+                    closed, full, RollingVariance::stdDev);
+        };
+    }
+
+    private static <T extends BarIndicator> double read(IndicatorSeries<T> series, List<Candle> closed, boolean full,
+                                                        ToDoubleFunction<T> value) {
+        double[] v = {Double.NaN};
+        series.advance(closed, i -> v[0] = i.isReady() ? value.applyAsDouble(i) : Double.NaN);
+        // ряд отстал после простоя — пересобираем по полному окну
+        if (Double.isNaN(v[0]) && full) series.rebuild(closed, i -> v[0] = i.isReady() ? value.applyAsDouble(i) : Double.NaN);
+        return v[0];
+    }
+}
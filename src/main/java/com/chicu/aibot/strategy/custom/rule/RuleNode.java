@@ -0,0 +1,23 @@
+package com.chicu.aibot.strategy.custom.rule;
+
+import java.util.List;
+
+/** Дерево разбора правила. Живёт только между парсером и компилятором. */
+public sealed interface RuleNode {
+
+    /** Смещение в тексте — для сообщений об ошибках. */
+    int pos();
+
+    record Num(double value, int pos) implements RuleNode { }
+
+    /** Поле бара или цена: close, open, high, low, volume, price. */
+    record Ref(String name, int pos) implements RuleNode { }
+
+    record Call(String name, List<RuleNode> args, int pos) implements RuleNode { }
+
+    /** op: "-" или "not". */
+    record Unary(String op, RuleNode arg, int pos) implements RuleNode { }
+
+    /** op: + - * / &lt; &lt;= &gt; &gt;= == != and or. */
+    record Binary(String op, RuleNode left, RuleNode right, int pos) implements RuleNode { }
+}
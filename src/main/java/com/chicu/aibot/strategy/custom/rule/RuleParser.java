@@ -0,0 +1,187 @@
+package com.chicu.aibot.strategy.custom.rule;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Рекурсивный спуск по грамматике:
+ * <pre>
+ * or    := and (("or" | "||") and)*
+ * and   := not (("and" | "&amp;&amp;") not)*
+ * not   := ("not" | "!") not | cmp
+ * cmp   := sum (("&lt;" | "&lt;=" | "&gt;" | "&gt;=" | "==" | "!=") sum)?
+ * sum   := mul (("+" | "-") mul)*
+ * mul   := unary (("*" | "/") unary)*
+ * unary := "-" unary | primary
+ * primary := NUMBER | IDENT | IDENT "(" [or ("," or)*] ")" | "(" or ")"
+ * </pre>
+ * Имена регистронезависимы. Типы (число/условие) проверяет компилятор.
+ */
+public final class RuleParser {
+
+    private final String src;
+    private int pos;
+
+    private RuleParser(String src) {
+        this.src = src;
+    }
+
+    public static RuleNode parse(String text) {
+        if (text == null || text.isBlank()) throw new RuleSyntaxException("пустое правило", -1);
+        RuleParser p = new RuleParser(text);
+        RuleNode root = p.or();
+        p.skipSpaces();
+        if (p.pos < p.src.length()) throw new RuleSyntaxException("лишний текст: '" + p.rest() + "'", p.pos);
+        return root;
+    }
+
+    private RuleNode or() {
+        RuleNode left = and();
+        while (true) {
+            int at = mark();
+            if (word("or") || symbol("||")) left = new RuleNode.Binary("or", left, and(), at);
+            else return left;
+        }
+    }
+
+    private RuleNode and() {
+        RuleNode left = not();
+        while (true) {
+            int at = mark();
+            if (word("and") || symbol("&&")) left = new RuleNode.Binary("and", left, not(), at);
+            else return left;
+        }
+    }
+
+    private RuleNode not() {
+        int at = mark();
+        if (word("not") || (peek('!') && !peekAt(1, '=') && symbol("!"))) {
+            return new RuleNode.Unary("not", not(), at);
+        }
+        return cmp();
+    }
+
+    private RuleNode cmp() {
+        RuleNode left = sum();
+        int at = mark();
+        for (String op : new String[] {"<=", ">=", "==", "!=", "<", ">"}) {
+            if (symbol(op)) return new RuleNode.Binary(op, left, sum(), at);
+        }
+        return left;
+    }
+
+    private RuleNode sum() {
+        RuleNode left = mul();
+        while (true) {
+            int at = mark();
+            if (symbol("+")) left = new RuleNode.Binary("+", left, mul(), at);
+            else if (symbol("-")) left = new RuleNode.Binary("-", left, mul(), at);
+            else return left;
+        }
+    }
+
+    private RuleNode mul() {
+        RuleNode left = unary();
+        while (true) {
+            int at = mark();
+            if (symbol("*")) left = new RuleNode.Binary("*", left, unary(), at);
+            else if (symbol("/")) left = new RuleNode.Binary("/", left, unary(), at);
+            else return left;
+        }
+    }
+
+    private RuleNode unary() {
+        int at = mark();
+        if (symbol("-")) return new RuleNode.Unary("-", unary(), at);
+        return primary();
+    }
+
+    private RuleNode primary() {
+        int at = mark();
+        if (at >= src.length()) throw new RuleSyntaxException("неожиданный конец правила", at);
+        char c = src.charAt(at);
+
+        if (symbol("(")) {
+            RuleNode inner = or();
+            expect(")");
+            return inner;
+        }
+        if (Character.isDigit(c) || c == '.') {
+            int end = at;
+            while (end < src.length() && (Character.isDigit(src.charAt(end)) || src.charAt(end) == '.')) end++;
+            try {
+                double v = Double.parseDouble(src.substring(at, end));
+                pos = end;
+                return new RuleNode.Num(v, at);
+            } catch (NumberFormatException e) {
+                throw new RuleSyntaxException("неверное число '" + src.substring(at, end) + "'", at);
+            }
+        }
+        if (Character.isLetter(c) || c == '_') {
+            int end = at;
+            while (end < src.length() && (Character.isLetterOrDigit(src.charAt(end)) || src.charAt(end) == '_')) end++;
+            String name = src.substring(at, end).toLowerCase(Locale.ROOT);
+            pos = end;
+            if (symbol("(")) {
+                List<RuleNode> args = new ArrayList<>();
+                if (!symbol(")")) {
+                    do {
+                        args.add(or());
+                    } while (symbol(","));
+                    expect(")");
+                }
+                return new RuleNode.Call(name, List.copyOf(args), at);
+            }
+            return new RuleNode.Ref(name, at);
+        }
+        throw new RuleSyntaxException("неожиданный символ '" + c + "'", at);
+    }
+
+    /* ================= лексика ================= */
+
+    private int mark() {
+        skipSpaces();
+        return pos;
+    }
+
+    private void skipSpaces() {
+        while (pos < src.length() && Character.isWhitespace(src.charAt(pos))) pos++;
+    }
+
+    private boolean symbol(String s) {
+        skipSpaces();
+        if (src.startsWith(s, pos)) {
+            pos += s.length();
+            return true;
+        }
+        return false;
+    }
+
+    /** Ключевое слово целиком: "or" не должно съедать начало "order". */
+    private boolean word(String w) {
+        skipSpaces();
+        int end = pos + w.length();
+        if (end > src.length() || !src.regionMatches(true, pos, w, 0, w.length())) return false;
+        if (end < src.length() && (Character.isLetterOrDigit(src.charAt(end)) || src.charAt(end) == '_')) return false;
+        pos = end;
+        return true;
+    }
+
+    private boolean peek(char c) {
+        skipSpaces();
+        return pos < src.length() && src.charAt(pos) == c;
+    }
+
+    private boolean peekAt(int offset, char c) {
+        return pos + offset < src.length() && src.charAt(pos + offset) == c;
+    }
+
+    private void expect(String s) {
+        if (!symbol(s)) throw new RuleSyntaxException("ожидалось '" + s + "'", pos);
+    }
+
+    private String rest() {
+        return src.substring(pos, Math.min(src.length(), pos + 20));
+    }
+}
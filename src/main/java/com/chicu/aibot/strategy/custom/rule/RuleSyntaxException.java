@@ -0,0 +1,15 @@
+package com.chicu.aibot.strategy.custom.rule;
+
+import lombok.Getter;
+
+/** Ошибка в тексте правила; {@link #getPosition()} — смещение символа, на котором споткнулись. */
+@Getter
+public class RuleSyntaxException extends IllegalArgumentException {
+
+    private final int position;
+
+    public RuleSyntaxException(String message, int position) {
+        super(message + (position >= 0 ? " (позиция " + (position + 1) + ")" : ""));
+        this.position = position;
+    }
+}
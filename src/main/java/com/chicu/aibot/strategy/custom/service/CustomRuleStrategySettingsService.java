@@ -0,0 +1,8 @@
+package com.chicu.aibot.strategy.custom.service;
+
+import com.chicu.aibot.strategy.custom.model.CustomRuleStrategySettings;
+
+public interface CustomRuleStrategySettingsService {
+    CustomRuleStrategySettings getOrCreate(Long chatId);
+    CustomRuleStrategySettings save(CustomRuleStrategySettings s);
+}
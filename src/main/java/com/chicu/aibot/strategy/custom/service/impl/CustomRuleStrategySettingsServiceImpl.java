@@ -0,0 +1,64 @@
+package com.chicu.aibot.strategy.custom.service.impl;
+
+import com.chicu.aibot.strategy.common.DefaultTradingParamsResolver;
+import com.chicu.aibot.strategy.custom.model.CustomRuleStrategySettings;
+import com.chicu.aibot.strategy.custom.repository.CustomRuleStrategySettingsRepository;
+import com.chicu.aibot.strategy.custom.service.CustomRuleStrategySettingsService;
+import com.chicu.aibot.trading.events.StrategySettingsChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CustomRuleStrategySettingsServiceImpl implements CustomRuleStrategySettingsService {
+
+    private final CustomRuleStrategySettingsRepository repo;
+    private final DefaultTradingParamsResolver defaults;
+    private final ApplicationEventPublisher events;
+
+    @Value("${trading.defaults.symbol:BTCUSDT}")
+    private String defaultSymbolProp;
+
+    @Value("${trading.defaults.timeframe.custom-rules:1h}")
+    private String defaultTfProp;
+
+    @Override
+    @Transactional
+    public CustomRuleStrategySettings getOrCreate(Long chatId) {
+        return repo.findById(chatId).orElseGet(() -> {
+            final String symbol    = defaults.resolveSymbol(chatId, defaultSymbolProp, "BTCUSDT");
+            final String timeframe = defaults.resolveTimeframe(chatId, defaultTfProp, "1h");
+
+            log.info("⚙️ Не найдены настройки Custom Rules для chatId={}, создаю по умолчанию (symbol={}, tf={})",
+                    chatId, symbol, timeframe);
+
+            CustomRuleStrategySettings def = new CustomRuleStrategySettings();
+            def.setChatId(chatId);
+            def.setSymbol(symbol);
+            def.setTimeframe(timeframe);
+            def.setCachedCandlesLimit(200);
+            def.setOrderVolume(1.0);
+            def.setEntryRule("rsi(14) < 30 and close > ema(50)");
+            def.setExitRule("rsi(14) > 70");
+            def.setSide("LONG");
+            def.setTakeProfitPct(1.5);
+            def.setStopLossPct(1.0);
+            def.setActive(false);
+            return repo.saveAndFlush(def);
+        });
+    }
+
+    @Override
+    @Transactional
+    public CustomRuleStrategySettings save(CustomRuleStrategySettings settings) {
+        log.info("💾 Сохраняю настройки Custom Rules для chatId={}", settings.getChatId());
+        CustomRuleStrategySettings saved = repo.saveAndFlush(settings);
+        events.publishEvent(new StrategySettingsChangedEvent(settings.getChatId(), settings.getType()));
+        return saved;
+    }
+}
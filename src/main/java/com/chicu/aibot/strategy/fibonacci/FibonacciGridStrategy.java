@@ -2,19 +2,26 @@ package com.chicu.aibot.strategy.fibonacci;
 
 import com.chicu.aibot.strategy.TradingStrategy;
 import com.chicu.aibot.strategy.StrategyType;
+import com.chicu.aibot.strategy.TickContext;
+import com.chicu.aibot.strategy.TickRequest;
 import com.chicu.aibot.strategy.fibonacci.model.FibonacciGridStrategySettings;
 import com.chicu.aibot.strategy.fibonacci.service.FibonacciGridStrategySettingsService;
+import com.chicu.aibot.strategy.grid.GridLevel;
+import com.chicu.aibot.strategy.grid.GridPlan;
+import com.chicu.aibot.strategy.grid.GridReconciler;
 import com.chicu.aibot.strategy.model.Candle;
 import com.chicu.aibot.strategy.model.Order;
-import com.chicu.aibot.strategy.service.CandleService;
 import com.chicu.aibot.strategy.service.OrderService;
 import com.chicu.aibot.strategy.service.OrderHousekeeperService;
+import com.chicu.aibot.trading.checkpoint.StrategyCheckpointService;
+import com.chicu.aibot.trading.trigger.PriceTriggerService;
+import com.chicu.aibot.trading.trigger.TriggerDirection;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @Service
@@ -23,14 +30,37 @@ import java.util.stream.Collectors;
 public class FibonacciGridStrategy implements TradingStrategy {
 
     private final FibonacciGridStrategySettingsService settingsService;
-    private final CandleService candleService;
     private final OrderService orderService;
 
     /** Уборщик ордеров: удаляет «мертвые», дубликаты и лишние пер-сторону */
     private final OrderHousekeeperService orderHousekeeperService;
+    private final StrategyCheckpointService checkpoints;
+    /** TP/SL по средней цене входа срабатывают на каждом обновлении цены, а не только на тике. */
+    private final PriceTriggerService triggers;
 
     /** Активные ордера для каждого чата (in-memory кэш) */
-    private final Map<Long, List<Order>> activeOrders = new HashMap<>();
+    private final Map<Long, List<Order>> activeOrders = new ConcurrentHashMap<>();
+
+    /**
+     * Исполненные входы, по которым выход ещё не отработал. Живут отдельно от кэша ордеров:
+     * refresh помечает исполненную лимитку закрытой, и commit выкидывает её из кэша.
+     */
+    private final Map<Long, List<Order>> positions = new ConcurrentHashMap<>();
+
+    /** Взведённые уровни выхода {tp, sl} — перевзводим только при смене средней цены входа. */
+    private final Map<Long, double[]> armedExits = new ConcurrentHashMap<>();
+
+    /** Число тиков до полной сверки статусов с биржей (ловит ручные отмены). */
+    private final Map<Long, Integer> ticksSinceSync = new ConcurrentHashMap<>();
+
+    /** Допуск совпадения цены уровня и живой лимитки: мелкий сдвиг окна не вызывает перевыставления. */
+    private static final double GRID_TOLERANCE_BPS = 10.0;
+    private static final int FULL_SYNC_TICKS = 30;
+    /** Сколько последних баров проверяем на касание цены лимиток. */
+    private static final int TOUCH_BARS = 2;
+
+    /** Снимок для быстрого рестарта. */
+    public record Checkpoint(List<Order> activeOrders, List<Order> position) { }
 
     @Override
     public StrategyType getType() {
@@ -41,8 +71,27 @@ public class FibonacciGridStrategy implements TradingStrategy {
     public void start(Long chatId) {
         // создаём кэш
         activeOrders.put(chatId, new ArrayList<>());
+        positions.remove(chatId);
+
+        Optional<Checkpoint> cp = checkpoints.restore(chatId, getType(), Checkpoint.class);
+        if (cp.isPresent()) {
+            List<Order> restored = new ArrayList<>(Optional.ofNullable(cp.get().activeOrders()).orElse(List.of()));
+            activeOrders.put(chatId, restored);
+            List<Order> position = Optional.ofNullable(cp.get().position()).orElse(List.of());
+            if (!position.isEmpty()) positions.put(chatId, new ArrayList<>(position));
+            log.info("FIBONACCI_GRID стартовал для chatId={} из чекпоинта, ордеров: {}, входов в позиции: {}",
+                    chatId, restored.size(), position.size());
+            // статусы ордеров актуализирует первый же тик; полная сверка с биржей — в фоне
+            checkpoints.reconcileLater(chatId, getType(), () -> hydrateFromExchange(chatId));
+            return;
+        }
+
+        hydrateFromExchange(chatId);
+    }
 
-        // подтягиваем уже открытые ордера с биржи, чтобы не плодить дубликаты после рестарта
+    /** Подтягиваем уже открытые ордера с биржи, чтобы не плодить дубликаты после рестарта. */
+    private void hydrateFromExchange(Long chatId) {
+        if (!activeOrders.containsKey(chatId)) return; // уже остановлена
         try {
             FibonacciGridStrategySettings cfg = settingsService.getOrCreate(chatId);
             String symbol = nvl(cfg.getSymbol(), "ETHUSDT");
@@ -53,6 +102,7 @@ public class FibonacciGridStrategy implements TradingStrategy {
                         .filter(o -> !o.isCancelled() && !o.isClosed())
                         .collect(Collectors.toCollection(ArrayList::new));
                 activeOrders.put(chatId, cleaned);
+                saveCheckpoint(chatId, cleaned);
                 log.info("FIBONACCI_GRID стартовал для chatId={}, подхвачено активных ордеров: {}", chatId, cleaned.size());
             } else {
                 log.info("FIBONACCI_GRID стартовал для chatId={}, активных ордеров нет", chatId);
@@ -62,8 +112,17 @@ public class FibonacciGridStrategy implements TradingStrategy {
         }
     }
 
+    private void saveCheckpoint(Long chatId, List<Order> orders) {
+        List<Order> position = positions.getOrDefault(chatId, List.of());
+        checkpoints.update(chatId, getType(), new Checkpoint(List.copyOf(orders), List.copyOf(position)));
+    }
+
     @Override
     public void stop(Long chatId) {
+        checkpoints.clear(chatId, getType());
+        ticksSinceSync.remove(chatId);
+        disarmExits(chatId);
+        positions.remove(chatId);
         List<Order> orders = activeOrders.remove(chatId);
         if (orders != null) {
             for (Order o : orders) {
@@ -81,114 +140,75 @@ public class FibonacciGridStrategy implements TradingStrategy {
     }
 
     @Override
-    public void onPriceUpdate(Long chatId, double currentPrice) {
+    public void detach(Long chatId) {
+        ticksSinceSync.remove(chatId);
+        disarmExits(chatId);
+        positions.remove(chatId);
+        activeOrders.remove(chatId);
+    }
+
+    @Override
+    public TickRequest prepareTick(Long chatId) {
         FibonacciGridStrategySettings cfg = settingsService.getOrCreate(chatId);
-        String symbol = nvl(cfg.getSymbol(), "ETHUSDT");
+        return new TickRequest(cfg, nvl(cfg.getSymbol(), "ETHUSDT"), nvl(cfg.getTimeframe(), "1m"),
+                nvl(cfg.getCachedCandlesLimit(), 500));
+    }
+
+    @Override
+    public void onTick(TickContext ctx) {
+        if (ctx.isEmpty()) return;
+        Long chatId = ctx.chatId();
+        FibonacciGridStrategySettings cfg = ctx.settings(FibonacciGridStrategySettings.class);
+        String symbol = ctx.symbol();
+        double currentPrice = ctx.lastPrice();
 
         // берём копию текущего кэша, работаем с ней (потом заменим атомарно)
         List<Order> cache = new ArrayList<>(activeOrders.computeIfAbsent(chatId, k -> new ArrayList<>()));
 
-        // 0) Актуализируем статусы ордеров, чтобы уловить FILLED/EXPIRED/CANCELED и т.п.
-        try {
-            orderService.refreshOrderStatuses(chatId, symbol, cache);
-        } catch (Throwable t) {
-            log.debug("refreshOrderStatuses недоступен/упал: {}", t.getMessage());
-        }
+        // 1) Свечи — подготовлены движком
+        List<Candle> candles = ctx.candles();
 
-        // 1) Свечи
-        List<Candle> candles = candleService.getCandles(
-                chatId,
-                symbol,
-                nvl(cfg.getTimeframe(), "1m"),
-                nvl(cfg.getCachedCandlesLimit(), 500)
-        );
+        // 0) Статусы: раз в FULL_SYNC_TICKS — все ордера, иначе только те, до чьей цены дотянулся рынок
+        boolean fullSync = ticksSinceSync.merge(chatId, 1, Integer::sum) >= FULL_SYNC_TICKS;
+        if (fullSync) ticksSinceSync.put(chatId, 0);
+        boolean refreshed = refreshStatuses(chatId, symbol, cache, candles, currentPrice, fullSync);
+        // исполненные лимитки — в позицию до того, как commit уберёт их из кэша
+        refreshed |= collectFills(chatId, cache);
 
         if (candles == null || candles.isEmpty()) {
             log.warn("Свечи не получены: chatId={}, symbol={}, tf={}", chatId, symbol, cfg.getTimeframe());
             // подчистим локальный кэш от отменённых/закрытых и вернём
-            cache.removeIf(o -> o.isCancelled() || o.isClosed());
-            activeOrders.put(chatId, cache);
+            commit(chatId, cache, refreshed);
             return;
         }
 
         // 2) Мин/макс за окно
-        double minPrice = candles.stream()
-                .map(Candle::getLow)
-                .filter(Objects::nonNull)
-                .mapToDouble(BigDecimal::doubleValue)
-                .min()
-                .orElse(currentPrice);
-
-        double maxPrice = candles.stream()
-                .map(Candle::getHigh)
-                .filter(Objects::nonNull)
-                .mapToDouble(BigDecimal::doubleValue)
-                .max()
-                .orElse(currentPrice);
+        double minPrice = Double.MAX_VALUE;
+        double maxPrice = -Double.MAX_VALUE;
+        for (Candle c : candles) {
+            if (c.getLow() != null) minPrice = Math.min(minPrice, c.getLow().doubleValue());
+            if (c.getHigh() != null) maxPrice = Math.max(maxPrice, c.getHigh().doubleValue());
+        }
+        if (minPrice == Double.MAX_VALUE) minPrice = currentPrice;
+        if (maxPrice == -Double.MAX_VALUE) maxPrice = currentPrice;
 
         double range = maxPrice - minPrice;
         if (range <= 0) {
             log.debug("Нулевой диапазон цен: min={} max={} chatId={}", minPrice, maxPrice, chatId);
-            cache.removeIf(o -> o.isCancelled() || o.isClosed());
-            activeOrders.put(chatId, cache);
+            commit(chatId, cache, refreshed);
             return;
         }
 
-        // 3) Уровни Фибо
-        List<Double> levels = cfg.getLevels() == null ? List.of(0.236, 0.382, 0.5, 0.618, 0.786) : cfg.getLevels();
-        List<Double> fibPrices = new ArrayList<>(levels.size());
-        for (Double level : levels) {
-            double v = minPrice + level * range;
-            fibPrices.add(v);
-        }
-        fibPrices.sort(null);
-
-        boolean allowLong  = Boolean.TRUE.equals(cfg.getAllowLong());
-        boolean allowShort = Boolean.TRUE.equals(cfg.getAllowShort());
+        // 3) Желаемая сетка: уровни Фибо, ближние к рынку — первыми (они важнее при лимите maxActiveOrders)
+        List<GridLevel> target = targetGrid(cfg, minPrice, range, currentPrice);
 
-        // 4) Ставим лимитки на уровнях, с ограничением maxActiveOrders и без дубликатов
+        // 4) Сверка с живыми ордерами и применение минимального плана пачками
         int maxActive = (cfg.getMaxActiveOrders() == null) ? Integer.MAX_VALUE : Math.max(0, cfg.getMaxActiveOrders());
-        int openNow = (int) cache.stream()
-                .filter(o -> !o.isCancelled() && !o.isClosed() && !o.isFilled())
-                .count();
-        int canPlace = Math.max(0, maxActive - openNow);
-        int placed = 0;
-
-        final double PRICE_EPS = 1e-8;
-
-        for (Double priceLevel : fibPrices) {
-            if (placed >= canPlace) break;
-
-            Order.Side side = (priceLevel < currentPrice) ? Order.Side.BUY : Order.Side.SELL;
-            if (side == Order.Side.BUY && !allowLong)  continue;
-            if (side == Order.Side.SELL && !allowShort) continue;
-
-            boolean already = cache.stream()
-                    .filter(o -> !o.isCancelled() && !o.isClosed())
-                    .anyMatch(o -> Math.abs(o.getPrice() - priceLevel) < PRICE_EPS
-                            && o.getSide() == side);
-
-            if (!already) {
-                Order o = orderService.placeLimit(
-                        chatId,
-                        symbol,
-                        side,
-                        priceLevel,
-                        nvl(cfg.getOrderVolume(), 0.1) // дефолт, если null
-                );
-                if (o != null) {
-                    cache.add(o);
-                    placed++;
-                    log.info("Выставлен лимитный ордер: chatId={}, side={}, price={}, qty={}",
-                            chatId, side, priceLevel, cfg.getOrderVolume());
-                }
-            }
-        }
+        GridPlan plan = GridReconciler.diff(target, cache, GRID_TOLERANCE_BPS, maxActive);
+        if (!plan.isEmpty()) applyPlan(chatId, symbol, plan, cache);
 
         // 5) TP/SL только по ПОЛНОСТЬЮ ИСПОЛНЕННЫМ ордерам (избегаем путаницы с частичными объёмами)
-        List<Order> filledOrders = cache.stream()
-                .filter(Order::isFilled)
-                .toList();
+        List<Order> filledOrders = positions.getOrDefault(chatId, List.of());
 
         double totalVol = filledOrders.stream()
                 .mapToDouble(Order::getVolume) // для FILLED это полный объём
@@ -204,53 +224,189 @@ public class FibonacciGridStrategy implements TradingStrategy {
             double sl = avgEntry * (1 - nvl(cfg.getStopLossPct(), 0.8)   / 100.0);
 
             if (currentPrice >= tp || currentPrice <= sl) {
-                // закрываем только FILLED (точно знаем полный объём)
-                for (Order o : new ArrayList<>(filledOrders)) {
-                    if (!o.isClosed() && !o.isCancelled()) {
-                        try {
-                            orderService.closePosition(chatId, o);
-                        } catch (Exception ex) {
-                            log.debug("closePosition failed (ignored): {}", ex.getMessage());
-                        }
-                    }
-                }
-                log.info("Достигнут TP/SL: avgEntry={}, tp={}, sl={}, current={}. Позиции закрыты.",
-                        avgEntry, tp, sl, currentPrice);
+                disarmExits(chatId);
+                int left = closePosition(chatId);
+                log.info("Достигнут TP/SL: avgEntry={}, tp={}, sl={}, current={}. Не закрыто входов: {}",
+                        avgEntry, tp, sl, currentPrice, left);
+                refreshed = true;
+            } else {
+                armExits(chatId, symbol, tp, sl);
             }
+        } else {
+            disarmExits(chatId);
         }
 
         // 6) Обновляем кэш: выкидываем отменённые/закрытые
-        cache.removeIf(o -> o.isCancelled() || o.isClosed());
-        activeOrders.put(chatId, cache);
+        commit(chatId, cache, refreshed || !plan.isEmpty());
+
+        // 7) HOUSEKEEPER: страховочная сверка с БД — только когда сетка менялась или пришло время полной сверки
+        if (!plan.isEmpty() || fullSync) {
+            try {
+                int perSideLimit = (cfg.getMaxActiveOrders() == null || cfg.getMaxActiveOrders() <= 0)
+                        ? Integer.MAX_VALUE
+                        : cfg.getMaxActiveOrders();
+                var hk = orderHousekeeperService.reconcile(chatId, symbol, perSideLimit);
+                if (hk.getRemovedDb() > 0 || hk.getCancelled() > 0) {
+                    log.info("FIB HK[{}:{}]: removedDb={}, cancelled={}, left BUY={}, SELL={}",
+                            chatId, symbol, hk.getRemovedDb(), hk.getCancelled(), hk.getBuyActive(), hk.getSellActive());
+                }
+            } catch (Throwable t) {
+                log.warn("FIB HK failed [{}:{}]: {}", chatId, symbol, t.getMessage());
+            }
+        }
+    }
 
-        // 7) HOUSEKEEPER: чистим дубли, «мертвые» и лишние (пер-сторону) на бирже и в БД
-        try {
-            int perSideLimit = (cfg.getMaxActiveOrders() == null || cfg.getMaxActiveOrders() <= 0)
-                    ? Integer.MAX_VALUE
-                    : cfg.getMaxActiveOrders();
-            var hk = orderHousekeeperService.reconcile(chatId, symbol, perSideLimit);
-            if (hk.getRemovedDb() > 0 || hk.getCancelled() > 0) {
-                log.info("FIB HK[{}:{}]: removedDb={}, cancelled={}, left BUY={}, SELL={}",
-                        chatId, symbol, hk.getRemovedDb(), hk.getCancelled(), hk.getBuyActive(), hk.getSellActive());
+    /**
+     * Копии исполненных ордеров кэша — в позицию (по id, один раз), сами ордера уходят из кэша.
+     * Копия не разделяет флаги с кэшем: закрытой её делает только успешный выход.
+     *
+     * @return позиция пополнилась
+     */
+    private boolean collectFills(Long chatId, List<Order> cache) {
+        boolean added = false;
+        for (Order o : cache) {
+            if (!o.isFilled() || o.isCancelled() || o.getVolume() <= 0.0) continue;
+            List<Order> position = positions.computeIfAbsent(chatId, k -> new ArrayList<>());
+            // лимитка сетки отработала: дальше она живёт только в позиции (симулятор не ставит closed сам)
+            o.setClosed(true);
+            if (position.stream().anyMatch(p -> Objects.equals(p.getId(), o.getId()))) continue;
+            position.add(new Order(o.getId(), o.getSymbol(), o.getSide(), o.getPrice(), o.getVolume(),
+                    true, false, false));
+            log.info("FIB chatId={}: вход {} {} qty={} @{} — в позицию", chatId, o.getId(), o.getSide(),
+                    o.getVolume(), o.getPrice());
+            added = true;
+        }
+        return added;
+    }
+
+    /**
+     * Закрываем только FILLED (точно знаем полный объём). Вход уходит из позиции, лишь когда
+     * closePosition пометил его закрытым; упавшие остаются и закрываются на следующем срабатывании.
+     *
+     * @return сколько входов осталось незакрытыми
+     */
+    private int closePosition(Long chatId) {
+        List<Order> position = positions.get(chatId);
+        if (position == null) return 0;
+        for (Order o : position) {
+            if (o.isClosed()) continue;
+            try {
+                orderService.closePosition(chatId, o);
+            } catch (Exception ex) {
+                log.warn("FIB chatId={}: выход по {} не удался: {}", chatId, o.getId(), ex.getMessage());
+            }
+        }
+        position.removeIf(Order::isClosed);
+        if (position.isEmpty()) positions.remove(chatId);
+        return position.size();
+    }
+
+    private void armExits(Long chatId, String symbol, double tp, double sl) {
+        double[] prev = armedExits.get(chatId);
+        if (prev != null && prev[0] == tp && prev[1] == sl) return;
+        String owner = owner(chatId);
+        triggers.disarm(owner);
+        triggers.arm(chatId, owner, symbol, TriggerDirection.ABOVE, tp, price -> onExitTrigger(chatId, price));
+        triggers.arm(chatId, owner, symbol, TriggerDirection.BELOW, sl, price -> onExitTrigger(chatId, price));
+        armedExits.put(chatId, new double[]{tp, sl});
+    }
+
+    private void disarmExits(Long chatId) {
+        if (armedExits.remove(chatId) != null) triggers.disarm(owner(chatId));
+    }
+
+    /** Исполняется в ящике актора стратегии, между тиками. */
+    private void onExitTrigger(Long chatId, double price) {
+        List<Order> cache = activeOrders.get(chatId);
+        if (cache == null) return; // уже остановлена
+        armedExits.remove(chatId);
+        triggers.disarm(owner(chatId));
+        int left = closePosition(chatId);
+        saveCheckpoint(chatId, cache);
+        // незакрытые входы перевзведёт следующий тик
+        log.info("FIB chatId={}: сработал уровень TP/SL @{}. Не закрыто входов: {}", chatId, price, left);
+    }
+
+    private String owner(Long chatId) {
+        return chatId + ":" + getType().name();
+    }
+
+    private List<GridLevel> targetGrid(FibonacciGridStrategySettings cfg, double minPrice, double range, double currentPrice) {
+        List<Double> levels = cfg.getLevels() == null ? List.of(0.236, 0.382, 0.5, 0.618, 0.786) : cfg.getLevels();
+        boolean allowLong  = Boolean.TRUE.equals(cfg.getAllowLong());
+        boolean allowShort = Boolean.TRUE.equals(cfg.getAllowShort());
+        double qty = nvl(cfg.getOrderVolume(), 0.1); // дефолт, если null
+
+        List<GridLevel> target = new ArrayList<>(levels.size());
+        for (Double level : levels) {
+            if (level == null) continue;
+            double price = minPrice + level * range;
+            Order.Side side = (price < currentPrice) ? Order.Side.BUY : Order.Side.SELL;
+            if (side == Order.Side.BUY && !allowLong)  continue;
+            if (side == Order.Side.SELL && !allowShort) continue;
+            target.add(new GridLevel(side, price, qty));
+        }
+        target.sort(Comparator.comparingDouble(l -> Math.abs(l.price() - currentPrice)));
+        return target;
+    }
+
+    /** Сначала отмены (освобождают средства), затем выставления — каждое одной пачкой. */
+    private void applyPlan(Long chatId, String symbol, GridPlan plan, List<Order> cache) {
+        if (!plan.cancel().isEmpty()) {
+            orderService.cancelAll(chatId, plan.cancel());
+        }
+        if (!plan.place().isEmpty()) {
+            for (Order o : orderService.placeLimits(chatId, symbol, plan.place())) {
+                if (o != null) cache.add(o);
             }
+        }
+        log.info("FIB сетка chatId={}: оставлено={}, отменено={}, выставлено={} (из них перевыставлено {})",
+                chatId, plan.kept(), plan.cancel().size(), plan.place().size(), plan.amended());
+    }
+
+    /**
+     * Лимитка могла исполниться, только если цена дотянулась до её уровня: BUY — не выше минимума
+     * последних баров, SELL — не ниже максимума. Остальные ордера не опрашиваем.
+     */
+    private boolean refreshStatuses(Long chatId, String symbol, List<Order> cache, List<Candle> candles,
+                                    double currentPrice, boolean fullSync) {
+        List<Order> toRefresh;
+        if (fullSync) {
+            toRefresh = cache;
+        } else {
+            double low = currentPrice;
+            double high = currentPrice;
+            if (candles != null) {
+                for (int i = Math.max(0, candles.size() - TOUCH_BARS); i < candles.size(); i++) {
+                    Candle c = candles.get(i);
+                    if (c.getLow() != null) low = Math.min(low, c.getLow().doubleValue());
+                    if (c.getHigh() != null) high = Math.max(high, c.getHigh().doubleValue());
+                }
+            }
+            toRefresh = new ArrayList<>();
+            for (Order o : cache) {
+                if (!o.isOpen()) continue;
+                boolean touched = o.getSide() == Order.Side.BUY ? low <= o.getPrice() : high >= o.getPrice();
+                if (touched) toRefresh.add(o);
+            }
+        }
+        // пустой список refreshOrderStatuses трактует как «подтянуть с биржи» — лишний запрос не делаем
+        if (toRefresh.isEmpty()) return false;
+        try {
+            orderService.refreshOrderStatuses(chatId, symbol, toRefresh);
         } catch (Throwable t) {
-            log.warn("FIB HK failed [{}:{}]: {}", chatId, symbol, t.getMessage());
+            log.debug("refreshOrderStatuses недоступен/упал: {}", t.getMessage());
         }
+        return true;
     }
 
-    @Override
-    public double getCurrentPrice(Long chatId) {
-        FibonacciGridStrategySettings cfg = settingsService.getOrCreate(chatId);
-        String symbol = nvl(cfg.getSymbol(), "ETHUSDT");
-        List<Candle> candles = candleService.getCandles(
-                chatId,
-                symbol,
-                nvl(cfg.getTimeframe(), "1m"),
-                1
-        );
-        if (candles == null || candles.isEmpty()) return 0.0;
-        Candle last = candles.get(candles.size() - 1);
-        return last.getClose() == null ? 0.0 : last.getClose().doubleValue();
+    /** @param touched статусы или набор ордеров могли измениться — нужен новый чекпоинт */
+    private void commit(Long chatId, List<Order> cache, boolean touched) {
+        cache.removeIf(o -> o.isCancelled() || o.isClosed());
+        List<Order> prev = activeOrders.put(chatId, cache);
+        if (touched || prev == null || !prev.equals(cache)) {
+            saveCheckpoint(chatId, cache);
+        }
     }
 
     /* ================= helpers ================= */
@@ -1,12 +1,29 @@
 package com.chicu.aibot.strategy.fibonacci.repository;
 
 import com.chicu.aibot.strategy.fibonacci.model.FibonacciGridStrategySettings;
+import com.chicu.aibot.trading.reconcile.StrategyActivationRow;
+import com.chicu.aibot.trading.scheduler.StrategyStartRow;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface FibonacciGridStrategySettingsRepository extends JpaRepository<FibonacciGridStrategySettings, Long> {
     Optional<FibonacciGridStrategySettings> findByChatId(Long chatId); // ✅ добавлено
+
+    @Query("select new com.chicu.aibot.trading.reconcile.StrategyActivationRow(s.chatId, s.active, s.version) " +
+           "from FibonacciGridStrategySettings s where s.active = true")
+    List<StrategyActivationRow> findActiveRows();
+
+    @Query("select new com.chicu.aibot.trading.reconcile.StrategyActivationRow(s.chatId, s.active, s.version) " +
+           "from FibonacciGridStrategySettings s where s.chatId = :chatId")
+    Optional<StrategyActivationRow> findActivationRow(@Param("chatId") Long chatId);
+
+    @Query("select new com.chicu.aibot.trading.scheduler.StrategyStartRow(s.chatId, s.timeframe) " +
+           "from FibonacciGridStrategySettings s where s.active = true")
+    List<StrategyStartRow> findActiveStartRows();
 }
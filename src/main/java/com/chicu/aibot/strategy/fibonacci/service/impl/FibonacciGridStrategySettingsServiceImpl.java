@@ -4,9 +4,11 @@ import com.chicu.aibot.strategy.common.DefaultTradingParamsResolver;
 import com.chicu.aibot.strategy.fibonacci.model.FibonacciGridStrategySettings;
 import com.chicu.aibot.strategy.fibonacci.repository.FibonacciGridStrategySettingsRepository;
 import com.chicu.aibot.strategy.fibonacci.service.FibonacciGridStrategySettingsService;
+import com.chicu.aibot.trading.events.StrategySettingsChangedEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -19,6 +21,7 @@ public class FibonacciGridStrategySettingsServiceImpl implements FibonacciGridSt
 
     private final FibonacciGridStrategySettingsRepository repo;
     private final DefaultTradingParamsResolver defaults;
+    private final ApplicationEventPublisher events;
 
     @Value("${trading.defaults.symbol:BTCUSDT}")
     private String defaultSymbolProp;
@@ -60,6 +63,6 @@ public class FibonacciGridStrategySettingsServiceImpl implements FibonacciGridSt
     public void save(FibonacciGridStrategySettings settings) {
         log.info("💾 Сохраняю настройки FibonacciGrid для chatId={}", settings.getChatId());
         repo.saveAndFlush(settings);
-
+        events.publishEvent(new StrategySettingsChangedEvent(settings.getChatId(), settings.getType()));
     }
 }
@@ -0,0 +1,6 @@
+package com.chicu.aibot.strategy.grid;
+
+import com.chicu.aibot.strategy.model.Order;
+
+/** Желаемая лимитка сетки. */
+public record GridLevel(Order.Side side, double price, double qty) { }
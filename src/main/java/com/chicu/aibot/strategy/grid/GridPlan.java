@@ -0,0 +1,16 @@
+package com.chicu.aibot.strategy.grid;
+
+import com.chicu.aibot.strategy.model.Order;
+
+import java.util.List;
+
+/**
+ * Минимальный набор действий, приводящий живые ордера к желаемой сетке.
+ * Изменение объёма (amend) выражено парой «отмена + выставление» и учтено в {@code amended}.
+ */
+public record GridPlan(List<Order> cancel, List<GridLevel> place, int kept, int amended) {
+
+    public boolean isEmpty() {
+        return cancel.isEmpty() && place.isEmpty();
+    }
+}
@@ -0,0 +1,89 @@
+package com.chicu.aibot.strategy.grid;
+
+import com.chicu.aibot.strategy.model.Order;
+
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Сверка желаемой сетки с живыми ордерами. Живые открытые ордера индексируются по стороне и цене,
+ * каждому уровню достаётся ближайший ордер той же стороны в пределах допуска;
+ * неподошедшие ордера (в том числе дубликаты) отменяются, недостающие уровни выставляются.
+ * Без сетевых вызовов: неизменная сетка даёт пустой план.
+ */
+public final class GridReconciler {
+
+    /** Относительное расхождение объёма, до которого ордер не перевыставляем (округление до stepSize). */
+    private static final double QTY_TOLERANCE = 0.02;
+    private static final double PRICE_EPS = 1e-8;
+
+    private GridReconciler() { }
+
+    /**
+     * @param target       желаемые уровни в порядке приоритета (первые — ближние к рынку)
+     * @param live         ордера стратегии; исполненные/отменённые игнорируются
+     * @param toleranceBps допуск совпадения цены уровня и ордера, б.п.
+     * @param maxOpen      сколько открытых лимиток может остаться после применения плана
+     */
+    public static GridPlan diff(List<GridLevel> target, List<Order> live, double toleranceBps, int maxOpen) {
+        Map<Order.Side, NavigableMap<Double, Deque<Order>>> index = new EnumMap<>(Order.Side.class);
+        for (Order o : live) {
+            if (!o.isOpen() || o.getSide() == null) continue;
+            index.computeIfAbsent(o.getSide(), s -> new TreeMap<>())
+                    .computeIfAbsent(o.getPrice(), p -> new ArrayDeque<>())
+                    .add(o);
+        }
+
+        List<Order> cancel = new ArrayList<>();
+        List<GridLevel> place = new ArrayList<>();
+        int kept = 0;
+        int amended = 0;
+        int limit = Math.max(0, maxOpen);
+
+        for (GridLevel level : target) {
+            Order match = take(index.get(level.side()), level.price(), toleranceBps);
+            if (kept + place.size() >= limit) {
+                // уровень за пределом лимита: его ордер, если был, уйдёт в отмену вместе с остатком индекса
+                if (match != null) cancel.add(match);
+                continue;
+            }
+            if (match == null) {
+                place.add(level);
+            } else if (level.qty() > 0 && Math.abs(match.getVolume() - level.qty()) > level.qty() * QTY_TOLERANCE) {
+                cancel.add(match);
+                place.add(level);
+                amended++;
+            } else {
+                kept++;
+            }
+        }
+
+        for (NavigableMap<Double, Deque<Order>> side : index.values()) {
+            for (Deque<Order> orders : side.values()) cancel.addAll(orders);
+        }
+        return new GridPlan(cancel, place, kept, amended);
+    }
+
+    /** Забрать из индекса ближайший к цене ордер в пределах допуска. */
+    private static Order take(NavigableMap<Double, Deque<Order>> side, double price, double toleranceBps) {
+        if (side == null || side.isEmpty()) return null;
+        double tol = Math.max(PRICE_EPS, Math.abs(price) * toleranceBps / 10_000.0);
+        Map.Entry<Double, Deque<Order>> lo = side.floorEntry(price);
+        Map.Entry<Double, Deque<Order>> hi = side.ceilingEntry(price);
+        Map.Entry<Double, Deque<Order>> best = null;
+        if (lo != null && price - lo.getKey() <= tol) best = lo;
+        if (hi != null && hi.getKey() - price <= tol && (best == null || hi.getKey() - price < price - best.getKey())) {
+            best = hi;
+        }
+        if (best == null) return null;
+        Order o = best.getValue().poll();
+        if (best.getValue().isEmpty()) side.remove(best.getKey());
+        return o;
+    }
+}
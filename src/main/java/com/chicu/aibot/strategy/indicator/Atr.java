@@ -0,0 +1,53 @@
+package com.chicu.aibot.strategy.indicator;
+
+import com.chicu.aibot.strategy.model.Candle;
+
+/** Average True Range со сглаживанием Уайлдера. */
+public final class Atr implements BarIndicator {
+
+    private final int period;
+    private double prevClose = Double.NaN;
+    private int count;
+    private double value;
+
+    public Atr(int period) {
+        if (period < 1) throw new IllegalArgumentException("period must be >= 1");
+        this.period = period;
+    }
+
+    @Override
+    public void update(Candle bar) {
+        update(BarIndicator.high(bar), BarIndicator.low(bar), BarIndicator.close(bar));
+    }
+
+    public double update(double high, double low, double close) {
+        double tr = Double.isNaN(prevClose)
+                ? high - low
+                : Math.max(high - low, Math.max(Math.abs(high - prevClose), Math.abs(low - prevClose)));
+        prevClose = close;
+
+        if (count < period) {
+            count++;
+            value += (tr - value) / count; // среднее первых period TR
+        } else {
+            value = (value * (period - 1) + tr) / period;
+        }
+        return value;
+    }
+
+    public double value() {
+        return value;
+    }
+
+    @Override
+    public boolean isReady() {
+        return count >= period;
+    }
+
+    @Override
+    public void reset() {
+        prevClose = Double.NaN;
+        count = 0;
+        value = 0.0;
+    }
+}
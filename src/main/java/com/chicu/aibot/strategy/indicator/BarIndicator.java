@@ -0,0 +1,28 @@
+package com.chicu.aibot.strategy.indicator;
+
+import com.chicu.aibot.strategy.model.Candle;
+
+/**
+ * Индикатор, который обновляется закрытыми барами по одному, O(1) на бар.
+ */
+public interface BarIndicator {
+
+    void update(Candle bar);
+
+    /** Набрано достаточно баров для осмысленного значения. */
+    boolean isReady();
+
+    void reset();
+
+    static double close(Candle c) {
+        return c.getClose() == null ? 0.0 : c.getClose().doubleValue();
+    }
+
+    static double high(Candle c) {
+        return c.getHigh() == null ? close(c) : c.getHigh().doubleValue();
+    }
+
+    static double low(Candle c) {
+        return c.getLow() == null ? close(c) : c.getLow().doubleValue();
+    }
+}
@@ -0,0 +1,51 @@
+package com.chicu.aibot.strategy.indicator;
+
+import com.chicu.aibot.strategy.model.Candle;
+
+/** Экспоненциальное среднее; первые period значений — затравка простым средним. */
+public final class Ema implements BarIndicator {
+
+    private final int period;
+    private final double alpha;
+    private int count;
+    private double seedSum;
+    private double value = Double.NaN;
+
+    public Ema(int period) {
+        if (period < 1) throw new IllegalArgumentException("period must be >= 1");
+        this.period = period;
+        this.alpha = 2.0 / (period + 1.0);
+    }
+
+    @Override
+    public void update(Candle bar) {
+        update(BarIndicator.close(bar));
+    }
+
+    public double update(double x) {
+        if (count < period) {
+            seedSum += x;
+            count++;
+            value = seedSum / count;
+        } else {
+            value += alpha * (x - value);
+        }
+        return value;
+    }
+
+    public double value() {
+        return value;
+    }
+
+    @Override
+    public boolean isReady() {
+        return count >= period;
+    }
+
+    @Override
+    public void reset() {
+        count = 0;
+        seedSum = 0.0;
+        value = Double.NaN;
+    }
+}
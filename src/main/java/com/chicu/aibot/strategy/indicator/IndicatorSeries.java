@@ -0,0 +1,79 @@
+package com.chicu.aibot.strategy.indicator;
+
+import com.chicu.aibot.strategy.model.Candle;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Индикатор, привязанный к ряду свечей (symbol + timeframe).
+ * Помнит время последнего учтённого бара и при очередном вызове {@link #advance}
+ * докармливает только новые закрытые бары; при разрыве ряда пересобирается из переданного окна.
+ */
+public final class IndicatorSeries<T extends BarIndicator> {
+
+    private final T indicator;
+    private Instant lastOpenTime;
+    private volatile long lastAccessMs = System.currentTimeMillis();
+
+    IndicatorSeries(T indicator) {
+        this.indicator = indicator;
+    }
+
+    /**
+     * @param closedBars закрытые бары по возрастанию времени (формирующийся бар передавать не нужно)
+     * @param reader     чтение значений под той же блокировкой, что и обновление
+     */
+    public synchronized void advance(List<Candle> closedBars, Consumer<T> reader) {
+        lastAccessMs = System.currentTimeMillis();
+        if (closedBars != null && !closedBars.isEmpty()) {
+            int from = firstNewIndex(closedBars);
+            if (from < 0) {
+                // ряд не стыкуется с тем, что мы уже видели, — пересчёт по окну
+                indicator.reset();
+                from = 0;
+            }
+            for (int i = from; i < closedBars.size(); i++) {
+                Candle c = closedBars.get(i);
+                indicator.update(c);
+                lastOpenTime = c.getOpenTime();
+            }
+        }
+        reader.accept(indicator);
+    }
+
+    /**
+     * Пересчёт с нуля по переданному окну: нужен, когда ряд отстал (после простоя стратегия догружает
+     * полное окно, а стыковка по времени уже не даёт прогретого состояния).
+     */
+    public synchronized void rebuild(List<Candle> closedBars, Consumer<T> reader) {
+        lastAccessMs = System.currentTimeMillis();
+        indicator.reset();
+        lastOpenTime = null;
+        if (closedBars != null) {
+            for (Candle c : closedBars) {
+                indicator.update(c);
+                lastOpenTime = c.getOpenTime();
+            }
+        }
+        reader.accept(indicator);
+    }
+
+    /** Индекс первого ещё не учтённого бара; -1 — если окно не пересекается с уже учтёнными барами. */
+    private int firstNewIndex(List<Candle> bars) {
+        if (lastOpenTime == null) return -1;
+        Instant first = bars.getFirst().getOpenTime();
+        if (first == null || first.isAfter(lastOpenTime)) return -1;
+        // последние бары — с конца: обычно новых один-два
+        for (int i = bars.size() - 1; i >= 0; i--) {
+            Instant t = bars.get(i).getOpenTime();
+            if (t != null && !t.isAfter(lastOpenTime)) return i + 1;
+        }
+        return -1;
+    }
+
+    long lastAccessMs() {
+        return lastAccessMs;
+    }
+}
@@ -0,0 +1,70 @@
+package com.chicu.aibot.strategy.indicator;
+
+import com.chicu.aibot.exchange.enums.Exchange;
+import com.chicu.aibot.exchange.enums.NetworkType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Общее состояние индикаторов по рядам: чаты с одинаковыми биржей/сетью/symbol/timeframe/параметрами
+ * используют один экземпляр и не пересчитывают окно каждый. Биржа и сеть — часть ключа: свечи
+ * testnet и mainnet (или двух бирж) по одному символу различаются, общий ряд сбрасывался бы
+ * на каждом чужом тике и отдавал бы значения по чужим данным.
+ */
+@Slf4j
+@Component
+public class IndicatorSeriesCache {
+
+    /** Ряды, к которым не обращались дольше этого срока, выбрасываются. */
+    private static final long IDLE_TTL_MS = 6 * 60 * 60 * 1000L;
+    private static final int PURGE_EVERY = 1024;
+
+    private final Map<String, IndicatorSeries<?>> series = new ConcurrentHashMap<>();
+    private final AtomicInteger creations = new AtomicInteger();
+
+    /**
+     * @param exchange биржа ряда; {@code null} — симуляция (у бэктеста свой экземпляр кэша)
+     * @param network  сеть биржи; {@code null} — симуляция
+     * @param spec     описание индикатора и его параметров, например "boll:20" или "ml-features"
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends BarIndicator> IndicatorSeries<T> get(Exchange exchange, NetworkType network,
+                                                           String symbol, String timeframe, String spec,
+                                                           Supplier<T> factory) {
+        String key = key(exchange, network, symbol, timeframe, spec);
+        IndicatorSeries<?> existing = series.get(key);
+        if (existing != null) return (IndicatorSeries<T>) existing;
+        maybePurge();
+        return (IndicatorSeries<T>) series.computeIfAbsent(key, k -> new IndicatorSeries<>(factory.get()));
+    }
+
+    /**
+     * Подложить заранее подготовленный индикатор (например, представление поверх предрасчитанной таблицы):
+     * последующие get() с тем же ключом вернут его, а не создадут новый.
+     */
+    public <T extends BarIndicator> void preload(Exchange exchange, NetworkType network,
+                                                 String symbol, String timeframe, String spec, T indicator) {
+        series.put(key(exchange, network, symbol, timeframe, spec), new IndicatorSeries<>(indicator));
+    }
+
+    public int size() {
+        return series.size();
+    }
+
+    private static String key(Exchange exchange, NetworkType network, String symbol, String timeframe, String spec) {
+        return exchange + "|" + network + "|" + symbol + "|" + timeframe + "|" + spec;
+    }
+
+    private void maybePurge() {
+        if (creations.incrementAndGet() % PURGE_EVERY != 0) return;
+        long cutoff = System.currentTimeMillis() - IDLE_TTL_MS;
+        int before = series.size();
+        series.values().removeIf(s -> s.lastAccessMs() < cutoff);
+        log.debug("Кэш индикаторов: удалено {} простаивающих рядов", before - series.size());
+    }
+}
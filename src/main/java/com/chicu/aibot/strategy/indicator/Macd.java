@@ -0,0 +1,69 @@
+package com.chicu.aibot.strategy.indicator;
+
+import com.chicu.aibot.strategy.model.Candle;
+
+/** MACD: линия (EMA fast − EMA slow), сигнальная EMA от линии и гистограмма. */
+public final class Macd implements BarIndicator {
+
+    private final Ema fast;
+    private final Ema slow;
+    private final Ema signal;
+    private double line = Double.NaN;
+
+    public Macd(int fastPeriod, int slowPeriod, int signalPeriod) {
+        if (fastPeriod >= slowPeriod) throw new IllegalArgumentException("fast period must be < slow period");
+        this.fast = new Ema(fastPeriod);
+        this.slow = new Ema(slowPeriod);
+        this.signal = new Ema(signalPeriod);
+    }
+
+    public static Macd standard() {
+        return new Macd(12, 26, 9);
+    }
+
+    @Override
+    public void update(Candle bar) {
+        update(BarIndicator.close(bar));
+    }
+
+    public double update(double x) {
+        fast.update(x);
+        slow.update(x);
+        line = fast.value() - slow.value();
+        if (slow.isReady()) signal.update(line);
+        return line;
+    }
+
+    public double line() {
+        return line;
+    }
+
+    public double signal() {
+        return signal.value();
+    }
+
+    public double histogram() {
+        return signal.isReady() ? line - signal.value() : 0.0;
+    }
+
+    public double fastEma() {
+        return fast.value();
+    }
+
+    public double slowEma() {
+        return slow.value();
+    }
+
+    @Override
+    public boolean isReady() {
+        return signal.isReady();
+    }
+
+    @Override
+    public void reset() {
+        fast.reset();
+        slow.reset();
+        signal.reset();
+        line = Double.NaN;
+    }
+}
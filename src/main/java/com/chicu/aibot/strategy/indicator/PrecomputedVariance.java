@@ -0,0 +1,50 @@
+package com.chicu.aibot.strategy.indicator;
+
+import com.chicu.aibot.strategy.model.Candle;
+
+/**
+ * {@link RollingVariance}, который не считает, а читает значения из общей {@link VarianceTable}.
+ * Свой курсор у каждого экземпляра; сама таблица не меняется. Для рядов, совпадающих с историей таблицы
+ * (бэктест, оптимизатор), результат тот же, что у обычного окна, но без пересчёта.
+ */
+public final class PrecomputedVariance extends RollingVariance {
+
+    private final VarianceTable table;
+    private int pos = -1;
+
+    public PrecomputedVariance(VarianceTable table) {
+        super(table.period);
+        this.table = table;
+    }
+
+    @Override
+    public void update(Candle bar) {
+        long t = bar.getOpenTime() == null ? Long.MIN_VALUE : bar.getOpenTime().toEpochMilli();
+        pos = table.indexOf(t, pos + 1);
+    }
+
+    @Override
+    public void update(double x) {
+        throw new UnsupportedOperationException("PrecomputedVariance обновляется только барами из таблицы");
+    }
+
+    @Override
+    public double mean() {
+        return pos < 0 ? Double.NaN : table.mean[pos];
+    }
+
+    @Override
+    public double variance() {
+        return pos < 0 ? 0.0 : table.variance[pos];
+    }
+
+    @Override
+    public boolean isReady() {
+        return pos >= table.period - 1;
+    }
+
+    @Override
+    public void reset() {
+        pos = -1;
+    }
+}
@@ -0,0 +1,103 @@
+package com.chicu.aibot.strategy.indicator;
+
+import com.chicu.aibot.strategy.model.Candle;
+
+/**
+ * Минимум low и максимум high за окно — монотонные очереди, амортизированно O(1) на бар.
+ */
+public final class RollingMinMax implements BarIndicator {
+
+    private final int period;
+    private final MonoDeque mins;
+    private final MonoDeque maxs;
+    private long index;
+
+    public RollingMinMax(int period) {
+        if (period < 1) throw new IllegalArgumentException("period must be >= 1");
+        this.period = period;
+        this.mins = new MonoDeque(period + 1, true);
+        this.maxs = new MonoDeque(period + 1, false);
+    }
+
+    @Override
+    public void update(Candle bar) {
+        update(BarIndicator.high(bar), BarIndicator.low(bar));
+    }
+
+    public void update(double high, double low) {
+        long i = index++;
+        mins.push(i, low);
+        maxs.push(i, high);
+        long expired = i - period;
+        mins.evictUpTo(expired);
+        maxs.evictUpTo(expired);
+    }
+
+    public double min() {
+        return mins.frontValue();
+    }
+
+    public double max() {
+        return maxs.frontValue();
+    }
+
+    @Override
+    public boolean isReady() {
+        return index >= period;
+    }
+
+    @Override
+    public void reset() {
+        index = 0;
+        mins.clear();
+        maxs.clear();
+    }
+
+    /** Кольцевая дека (индекс, значение) без упаковки в объекты. */
+    private static final class MonoDeque {
+        private final long[] idx;
+        private final double[] val;
+        private final boolean ascending;
+        private int head;
+        private int size;
+
+        MonoDeque(int capacity, boolean ascending) {
+            this.idx = new long[capacity];
+            this.val = new double[capacity];
+            this.ascending = ascending;
+        }
+
+        void push(long i, double v) {
+            // выбрасываем с хвоста всё, что больше не может стать экстремумом
+            while (size > 0) {
+                double tail = val[pos(size - 1)];
+                if (ascending ? tail >= v : tail <= v) size--;
+                else break;
+            }
+            int p = pos(size);
+            idx[p] = i;
+            val[p] = v;
+            size++;
+        }
+
+        void evictUpTo(long expired) {
+            while (size > 0 && idx[head] <= expired) {
+                head = (head + 1) % idx.length;
+                size--;
+            }
+        }
+
+        double frontValue() {
+            return size == 0 ? Double.NaN : val[head];
+        }
+
+        void clear() {
+            head = 0;
+            size = 0;
+        }
+
+        private int pos(int offset) {
+            return (head + offset) % idx.length;
+        }
+    }
+}
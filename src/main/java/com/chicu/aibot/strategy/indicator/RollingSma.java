@@ -0,0 +1,68 @@
+package com.chicu.aibot.strategy.indicator;
+
+import com.chicu.aibot.strategy.model.Candle;
+
+/** Скользящее среднее по цене закрытия: кольцевой буфер + бегущая сумма. */
+public final class RollingSma implements BarIndicator {
+
+    /** Раз в столько обновлений сумма пересчитывается целиком, чтобы не копилась ошибка округления. */
+    private static final int RESYNC_EVERY = 4096;
+
+    private final int period;
+    private final double[] window;
+    private int count;
+    private int head;
+    private double sum;
+    private int sinceResync;
+
+    public RollingSma(int period) {
+        if (period < 1) throw new IllegalArgumentException("period must be >= 1");
+        this.period = period;
+        this.window = new double[period];
+    }
+
+    @Override
+    public void update(Candle bar) {
+        update(BarIndicator.close(bar));
+    }
+
+    public double update(double x) {
+        if (count == period) {
+            sum -= window[head];
+        } else {
+            count++;
+        }
+        window[head] = x;
+        sum += x;
+        head = (head + 1) % period;
+
+        if (++sinceResync >= RESYNC_EVERY) {
+            double s = 0.0;
+            for (int i = 0; i < count; i++) s += window[i];
+            sum = s;
+            sinceResync = 0;
+        }
+        return value();
+    }
+
+    public double value() {
+        return count == 0 ? Double.NaN : sum / count;
+    }
+
+    public int period() {
+        return period;
+    }
+
+    @Override
+    public boolean isReady() {
+        return count == period;
+    }
+
+    @Override
+    public void reset() {
+        count = 0;
+        head = 0;
+        sum = 0.0;
+        sinceResync = 0;
+    }
+}
@@ -0,0 +1,97 @@
+package com.chicu.aibot.strategy.indicator;
+
+import com.chicu.aibot.strategy.model.Candle;
+
+/**
+ * Скользящие среднее и дисперсия окна по Уэлфорду (добавление и удаление за O(1)).
+ * Основа полос Боллинджера: mean() ± k·stdDev().
+ */
+public class RollingVariance implements BarIndicator {
+
+    private static final int RESYNC_EVERY = 4096;
+
+    private final int period;
+    private final double[] window;
+    private int count;
+    private int head;
+    private double mean;
+    private double m2;
+    private int sinceResync;
+
+    public RollingVariance(int period) {
+        if (period < 2) throw new IllegalArgumentException("period must be >= 2");
+        this.period = period;
+        this.window = new double[period];
+    }
+
+    @Override
+    public void update(Candle bar) {
+        update(BarIndicator.close(bar));
+    }
+
+    public void update(double x) {
+        if (count == period) {
+            double old = window[head];
+            // удаление старого значения
+            double n1 = count - 1;
+            double delta = old - mean;
+            mean -= delta / n1;
+            m2 -= delta * (old - mean);
+            count--;
+        }
+        window[head] = x;
+        head = (head + 1) % period;
+
+        count++;
+        double delta = x - mean;
+        mean += delta / count;
+        m2 += delta * (x - mean);
+        if (m2 < 0) m2 = 0;
+
+        if (++sinceResync >= RESYNC_EVERY) resync();
+    }
+
+    private void resync() {
+        double s = 0.0;
+        for (int i = 0; i < count; i++) s += window[i];
+        double m = s / count, ss = 0.0;
+        for (int i = 0; i < count; i++) {
+            double d = window[i] - m;
+            ss += d * d;
+        }
+        mean = m;
+        m2 = ss;
+        sinceResync = 0;
+    }
+
+    public double mean() {
+        return count == 0 ? Double.NaN : mean;
+    }
+
+    /** Выборочная дисперсия (n − 1), как в прежнем двухпроходном расчёте. */
+    public double variance() {
+        return count < 2 ? 0.0 : m2 / (count - 1);
+    }
+
+    public double stdDev() {
+        return Math.sqrt(variance());
+    }
+
+    public int period() {
+        return period;
+    }
+
+    @Override
+    public boolean isReady() {
+        return count == period;
+    }
+
+    @Override
+    public void reset() {
+        count = 0;
+        head = 0;
+        mean = 0.0;
+        m2 = 0.0;
+        sinceResync = 0;
+    }
+}
@@ -0,0 +1,54 @@
+package com.chicu.aibot.strategy.indicator;
+
+import com.chicu.aibot.strategy.model.Candle;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Предрасчитанные по всей истории скользящие среднее и дисперсия окна period.
+ * Неизменяема после построения — её безопасно делить между параллельными прогонами;
+ * читается через {@link PrecomputedVariance}.
+ */
+public final class VarianceTable {
+
+    final int period;
+    final long[] openTimes;
+    final double[] mean;
+    final double[] variance;
+
+    private VarianceTable(int period, long[] openTimes, double[] mean, double[] variance) {
+        this.period = period;
+        this.openTimes = openTimes;
+        this.mean = mean;
+        this.variance = variance;
+    }
+
+    /** @param history закрытые бары по возрастанию времени */
+    public static VarianceTable compute(List<Candle> history, int period) {
+        int n = history.size();
+        long[] times = new long[n];
+        double[] mean = new double[n];
+        double[] var = new double[n];
+        RollingVariance rv = new RollingVariance(period);
+        for (int i = 0; i < n; i++) {
+            Candle c = history.get(i);
+            rv.update(c);
+            times[i] = c.getOpenTime() == null ? Long.MIN_VALUE : c.getOpenTime().toEpochMilli();
+            mean[i] = rv.mean();
+            var[i] = rv.variance();
+        }
+        return new VarianceTable(period, times, mean, var);
+    }
+
+    /** Индекс бара по времени открытия; -1, если такого бара в таблице нет. */
+    int indexOf(long openTime, int hint) {
+        if (hint >= 0 && hint < openTimes.length && openTimes[hint] == openTime) return hint;
+        int i = Arrays.binarySearch(openTimes, openTime);
+        return i >= 0 ? i : -1;
+    }
+
+    public int period() {
+        return period;
+    }
+}
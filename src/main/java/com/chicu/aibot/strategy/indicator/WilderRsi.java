@@ -0,0 +1,65 @@
+package com.chicu.aibot.strategy.indicator;
+
+import com.chicu.aibot.strategy.model.Candle;
+
+/** RSI со сглаживанием Уайлдера. До готовности возвращает нейтральные 50. */
+public final class WilderRsi implements BarIndicator {
+
+    private final int period;
+    private double prev = Double.NaN;
+    private int changes;
+    private double avgGain;
+    private double avgLoss;
+
+    public WilderRsi(int period) {
+        if (period < 1) throw new IllegalArgumentException("period must be >= 1");
+        this.period = period;
+    }
+
+    @Override
+    public void update(Candle bar) {
+        update(BarIndicator.close(bar));
+    }
+
+    public double update(double x) {
+        if (Double.isNaN(prev)) {
+            prev = x;
+            return value();
+        }
+        double ch = x - prev;
+        prev = x;
+        double gain = Math.max(ch, 0.0);
+        double loss = Math.max(-ch, 0.0);
+
+        if (changes < period) {
+            // затравка — простое среднее первых period изменений
+            avgGain += gain / period;
+            avgLoss += loss / period;
+            changes++;
+        } else {
+            avgGain = (avgGain * (period - 1) + gain) / period;
+            avgLoss = (avgLoss * (period - 1) + loss) / period;
+        }
+        return value();
+    }
+
+    public double value() {
+        if (!isReady()) return 50.0;
+        if (avgLoss == 0.0) return avgGain == 0.0 ? 50.0 : 100.0;
+        double rs = avgGain / avgLoss;
+        return 100.0 - 100.0 / (1.0 + rs);
+    }
+
+    @Override
+    public boolean isReady() {
+        return changes >= period;
+    }
+
+    @Override
+    public void reset() {
+        prev = Double.NaN;
+        changes = 0;
+        avgGain = 0.0;
+        avgLoss = 0.0;
+    }
+}
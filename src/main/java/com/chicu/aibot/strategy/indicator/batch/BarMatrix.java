@@ -0,0 +1,78 @@
+package com.chicu.aibot.strategy.indicator.batch;
+
+import com.chicu.aibot.strategy.model.Candle;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Значения по многим символам сразу, построчно по барам: {@code values[bar * symbols + symbol]}.
+ * Такая раскладка позволяет считать рекуррентные индикаторы (EMA, скользящие суммы)
+ * одним векторным проходом по всем символам на каждом баре.
+ */
+public final class BarMatrix {
+
+    private final int bars;
+    private final int symbols;
+    private final double[] values;
+
+    public BarMatrix(int bars, int symbols) {
+        this(bars, symbols, new double[bars * symbols]);
+    }
+
+    public BarMatrix(int bars, int symbols, double[] values) {
+        if (values.length != bars * symbols) throw new IllegalArgumentException("values.length != bars * symbols");
+        this.bars = bars;
+        this.symbols = symbols;
+        this.values = values;
+    }
+
+    /**
+     * Свечи по символам → матрица выбранного поля. Ряды выравниваются по хвосту (последний бар каждого
+     * символа — последняя строка); более короткие ряды слева добиваются NaN. Пустые поля field
+     * заполняет сам (например, {@code BarIndicator::close}) — так же, как их видят потоковые индикаторы.
+     */
+    public static BarMatrix of(List<List<Candle>> series, ToDoubleFunction<Candle> field) {
+        int symbols = series.size();
+        int bars = 0;
+        for (List<Candle> s : series) bars = Math.max(bars, s == null ? 0 : s.size());
+        double[] v = new double[bars * symbols];
+        Arrays.fill(v, Double.NaN);
+        for (int j = 0; j < symbols; j++) {
+            List<Candle> s = series.get(j);
+            if (s == null) continue;
+            int offset = bars - s.size();
+            for (int i = 0; i < s.size(); i++) {
+                v[(offset + i) * symbols + j] = field.applyAsDouble(s.get(i));
+            }
+        }
+        return new BarMatrix(bars, symbols, v);
+    }
+
+    public int bars() {
+        return bars;
+    }
+
+    public int symbols() {
+        return symbols;
+    }
+
+    /** Сырые данные (без копирования) — для ядер. */
+    public double[] values() {
+        return values;
+    }
+
+    public double get(int bar, int symbol) {
+        return values[bar * symbols + symbol];
+    }
+
+    /** Последнее значение по символу. */
+    public double last(int symbol) {
+        return bars == 0 ? Double.NaN : values[(bars - 1) * symbols + symbol];
+    }
+
+    public BarMatrix sameShape() {
+        return new BarMatrix(bars, symbols);
+    }
+}
@@ -0,0 +1,36 @@
+package com.chicu.aibot.strategy.indicator.batch;
+
+/** Общие подготовительные проходы ядер. */
+final class KernelSupport {
+
+    private KernelSupport() { }
+
+    /**
+     * Первое не-NaN значение каждого символа. Суммы квадратов считаются от этого сдвига,
+     * чтобы не терять точность на дорогих инструментах.
+     */
+    static double[] firstValid(BarMatrix m) {
+        int n = m.bars(), s = m.symbols();
+        double[] x = m.values();
+        double[] shift = new double[s];
+        boolean[] found = new boolean[s];
+        int left = s;
+        for (int t = 0; t < n && left > 0; t++) {
+            int row = t * s;
+            for (int j = 0; j < s; j++) {
+                if (!found[j] && !Double.isNaN(x[row + j])) {
+                    shift[j] = x[row + j];
+                    found[j] = true;
+                    left--;
+                }
+            }
+        }
+        return shift;
+    }
+
+    static void checkSameShape(BarMatrix a, BarMatrix b, BarMatrix c) {
+        if (a.bars() != b.bars() || a.bars() != c.bars() || a.symbols() != b.symbols() || a.symbols() != c.symbols()) {
+            throw new IllegalArgumentException("матрицы разной формы");
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.chicu.aibot.strategy.indicator.batch;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Пакетные индикаторы по {@link BarMatrix}: каждое ядро — один проход по барам,
+ * на каждом баре все символы обновляются разом. До готовности окна в результате NaN.
+ * <p>
+ * {@link #best()} отдаёт SIMD-реализацию на {@code jdk.incubator.vector}, если модуль подключён
+ * ({@code --add-modules jdk.incubator.vector}), иначе — скалярную с тем же результатом.
+ */
+public interface MatrixKernels {
+
+    /** Скользящее среднее окна period. */
+    BarMatrix sma(BarMatrix x, int period);
+
+    /** Скользящее выборочное стандартное отклонение окна period. */
+    BarMatrix stdDev(BarMatrix x, int period);
+
+    /** EMA с α = 2 / (period + 1); первые period значений — затравка простым средним, как у {@code Ema}. */
+    BarMatrix ema(BarMatrix x, int period);
+
+    /**
+     * Сглаживание Уайлдера, как у {@code Atr}: среднее первых period значений,
+     * дальше (prev · (period − 1) + x) / period.
+     */
+    BarMatrix wilder(BarMatrix x, int period);
+
+    /** RSI Уайлдера, как у {@code WilderRsi}: до period изменений — нейтральные 50. */
+    BarMatrix rsi(BarMatrix x, int period);
+
+    /** True range: max(high − low, |high − prevClose|, |low − prevClose|); на первом баре — high − low. */
+    BarMatrix trueRange(BarMatrix high, BarMatrix low, BarMatrix close);
+
+    /** Z-оценка относительно окна: (x − sma) / stdDev; при нулевом σ — 0. */
+    BarMatrix zScore(BarMatrix x, int period);
+
+    String name();
+
+    static MatrixKernels best() {
+        return Holder.BEST;
+    }
+
+    static MatrixKernels scalar() {
+        return Holder.SCALAR;
+    }
+
+    @Slf4j
+    final class Holder {
+        private static final MatrixKernels SCALAR = new ScalarMatrixKernels();
+        private static final MatrixKernels BEST = pick();
+
+        private Holder() { }
+
+        private static MatrixKernels pick() {
+            try {
+                MatrixKernels v = new VectorMatrixKernels();
+                log.info("Пакетные индикаторы: SIMD ({})", v.name());
+                return v;
+            } catch (LinkageError e) {
+                // модуль jdk.incubator.vector не подключён к JVM
+                log.info("Пакетные индикаторы: скалярная реализация (нет jdk.incubator.vector)");
+                return SCALAR;
+            }
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.chicu.aibot.strategy.indicator.batch;
+
+import java.util.Arrays;
+
+/**
+ * Скалярная реализация: те же проходы и та же арифметика, что у SIMD-версии, по одному символу за раз.
+ * NaN во входе (например, добивка коротких рядов) в окно не засчитывается.
+ */
+final class ScalarMatrixKernels implements MatrixKernels {
+
+    @Override
+    public BarMatrix sma(BarMatrix in, int period) {
+        checkPeriod(period, 1);
+        int n = in.bars(), s = in.symbols();
+        double[] x = in.values();
+        BarMatrix res = in.sameShape();
+        double[] out = res.values();
+        double[] sum = new double[s];
+        int[] cnt = new int[s];
+        for (int t = 0; t < n; t++) {
+            int row = t * s, old = (t - period) * s;
+            for (int j = 0; j < s; j++) {
+                double v = x[row + j];
+                if (!Double.isNaN(v)) { sum[j] += v; cnt[j]++; }
+                if (t >= period) {
+                    double o = x[old + j];
+                    if (!Double.isNaN(o)) { sum[j] -= o; cnt[j]--; }
+                }
+                out[row + j] = cnt[j] == period ? sum[j] / period : Double.NaN;
+            }
+        }
+        return res;
+    }
+
+    @Override
+    public BarMatrix stdDev(BarMatrix in, int period) {
+        checkPeriod(period, 2);
+        int n = in.bars(), s = in.symbols();
+        double[] x = in.values();
+        double[] shift = KernelSupport.firstValid(in);
+        BarMatrix res = in.sameShape();
+        double[] out = res.values();
+        double[] sum = new double[s];
+        double[] sq = new double[s];
+        int[] cnt = new int[s];
+        for (int t = 0; t < n; t++) {
+            int row = t * s, old = (t - period) * s;
+            for (int j = 0; j < s; j++) {
+                double v = x[row + j];
+                if (!Double.isNaN(v)) { double y = v - shift[j]; sum[j] += y; sq[j] += y * y; cnt[j]++; }
+                if (t >= period) {
+                    double o = x[old + j];
+                    if (!Double.isNaN(o)) { double y = o - shift[j]; sum[j] -= y; sq[j] -= y * y; cnt[j]--; }
+                }
+                out[row + j] = cnt[j] == period
+                        ? Math.sqrt(Math.max(0.0, (sq[j] - sum[j] * sum[j] / period) / (period - 1)))
+                        : Double.NaN;
+            }
+        }
+        return res;
+    }
+
+    @Override
+    public BarMatrix ema(BarMatrix in, int period) {
+        checkPeriod(period, 1);
+        int n = in.bars(), s = in.symbols();
+        double a = 2.0 / (period + 1);
+        double[] x = in.values();
+        BarMatrix res = in.sameShape();
+        double[] out = res.values();
+        double[] e = new double[s];
+        Arrays.fill(e, Double.NaN);
+        double[] sum = new double[s];
+        int[] cnt = new int[s];
+        for (int t = 0; t < n; t++) {
+            int row = t * s;
+            for (int j = 0; j < s; j++) {
+                double v = x[row + j];
+                if (!Double.isNaN(v)) {
+                    if (cnt[j] < period) { sum[j] += v; cnt[j]++; e[j] = sum[j] / cnt[j]; }
+                    else e[j] += a * (v - e[j]);
+                }
+                out[row + j] = e[j];
+            }
+        }
+        return res;
+    }
+
+    @Override
+    public BarMatrix wilder(BarMatrix in, int period) {
+        checkPeriod(period, 1);
+        int n = in.bars(), s = in.symbols();
+        double[] x = in.values();
+        BarMatrix res = in.sameShape();
+        double[] out = res.values();
+        double[] w = new double[s];
+        int[] cnt = new int[s];
+        for (int t = 0; t < n; t++) {
+            int row = t * s;
+            for (int j = 0; j < s; j++) {
+                double v = x[row + j];
+                if (!Double.isNaN(v)) {
+                    if (cnt[j] < period) { cnt[j]++; w[j] += (v - w[j]) / cnt[j]; }
+                    else w[j] = (w[j] * (period - 1) + v) / period;
+                }
+                out[row + j] = cnt[j] == 0 ? Double.NaN : w[j];
+            }
+        }
+        return res;
+    }
+
+    @Override
+    public BarMatrix rsi(BarMatrix in, int period) {
+        checkPeriod(period, 1);
+        int n = in.bars(), s = in.symbols();
+        double[] x = in.values();
+        BarMatrix res = in.sameShape();
+        double[] out = res.values();
+        double[] prev = new double[s];
+        Arrays.fill(prev, Double.NaN);
+        double[] gain = new double[s];
+        double[] loss = new double[s];
+        int[] cnt = new int[s];
+        for (int t = 0; t < n; t++) {
+            int row = t * s;
+            for (int j = 0; j < s; j++) {
+                double v = x[row + j];
+                if (!Double.isNaN(v)) {
+                    double p = prev[j];
+                    prev[j] = v;
+                    if (!Double.isNaN(p)) {
+                        double ch = v - p;
+                        double g = Math.max(ch, 0.0), l = Math.max(-ch, 0.0);
+                        if (cnt[j] < period) { gain[j] += g / period; loss[j] += l / period; cnt[j]++; }
+                        else {
+                            gain[j] = (gain[j] * (period - 1) + g) / period;
+                            loss[j] = (loss[j] * (period - 1) + l) / period;
+                        }
+                    }
+                }
+                out[row + j] = rsiValue(cnt[j] >= period, gain[j], loss[j]);
+            }
+        }
+        return res;
+    }
+
+    @Override
+    public BarMatrix trueRange(BarMatrix high, BarMatrix low, BarMatrix close) {
+        KernelSupport.checkSameShape(high, low, close);
+        int n = high.bars(), s = high.symbols();
+        double[] h = high.values(), l = low.values(), c = close.values();
+        BarMatrix res = high.sameShape();
+        double[] out = res.values();
+        for (int t = 0; t < n; t++) {
+            int row = t * s, prev = (t - 1) * s;
+            for (int j = 0; j < s; j++) {
+                double hl = h[row + j] - l[row + j];
+                double pc = t == 0 ? Double.NaN : c[prev + j];
+                out[row + j] = Double.isNaN(pc)
+                        ? hl
+                        : Math.max(hl, Math.max(Math.abs(h[row + j] - pc), Math.abs(l[row + j] - pc)));
+            }
+        }
+        return res;
+    }
+
+    @Override
+    public BarMatrix zScore(BarMatrix in, int period) {
+        BarMatrix m = sma(in, period);
+        BarMatrix sd = stdDev(in, period);
+        double[] x = in.values(), mv = m.values(), sv = sd.values();
+        BarMatrix res = in.sameShape();
+        double[] out = res.values();
+        for (int i = 0; i < x.length; i++) {
+            out[i] = sv[i] == 0.0 ? 0.0 : (x[i] - mv[i]) / sv[i];
+        }
+        return res;
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+
+    static double rsiValue(boolean ready, double gain, double loss) {
+        if (!ready) return 50.0;
+        if (loss == 0.0) return gain == 0.0 ? 50.0 : 100.0;
+        return 100.0 - 100.0 / (1.0 + gain / loss);
+    }
+
+    static void checkPeriod(int period, int min) {
+        if (period < min) throw new IllegalArgumentException("period must be >= " + min);
+    }
+}
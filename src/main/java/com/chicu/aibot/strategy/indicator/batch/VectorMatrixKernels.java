@@ -0,0 +1,320 @@
+package com.chicu.aibot.strategy.indicator.batch;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.util.Arrays;
+
+/**
+ * SIMD-реализация на {@code jdk.incubator.vector}: на каждом баре символы обрабатываются
+ * блоками по ширине вектора, хвост строки — скалярно. Результат совпадает со {@link ScalarMatrixKernels}.
+ */
+final class VectorMatrixKernels implements MatrixKernels {
+
+    private static final VectorSpecies<Double> SP = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    public BarMatrix sma(BarMatrix in, int period) {
+        ScalarMatrixKernels.checkPeriod(period, 1);
+        int n = in.bars(), s = in.symbols(), upper = SP.loopBound(s);
+        double[] x = in.values();
+        BarMatrix res = in.sameShape();
+        double[] out = res.values();
+        double[] sum = new double[s];
+        double[] cnt = new double[s];
+        DoubleVector one = DoubleVector.broadcast(SP, 1.0);
+        for (int t = 0; t < n; t++) {
+            int row = t * s, old = (t - period) * s;
+            int j = 0;
+            for (; j < upper; j += SP.length()) {
+                DoubleVector v = DoubleVector.fromArray(SP, x, row + j);
+                VectorMask<Double> nan = v.test(VectorOperators.IS_NAN);
+                DoubleVector sm = DoubleVector.fromArray(SP, sum, j).add(v.blend(0.0, nan));
+                DoubleVector c = DoubleVector.fromArray(SP, cnt, j).add(one.blend(0.0, nan));
+                if (t >= period) {
+                    DoubleVector o = DoubleVector.fromArray(SP, x, old + j);
+                    VectorMask<Double> onan = o.test(VectorOperators.IS_NAN);
+                    sm = sm.sub(o.blend(0.0, onan));
+                    c = c.sub(one.blend(0.0, onan));
+                }
+                sm.intoArray(sum, j);
+                c.intoArray(cnt, j);
+                VectorMask<Double> ready = c.compare(VectorOperators.EQ, period);
+                sm.div(period).blend(Double.NaN, ready.not()).intoArray(out, row + j);
+            }
+            for (; j < s; j++) {
+                double v = x[row + j];
+                if (!Double.isNaN(v)) { sum[j] += v; cnt[j]++; }
+                if (t >= period) {
+                    double o = x[old + j];
+                    if (!Double.isNaN(o)) { sum[j] -= o; cnt[j]--; }
+                }
+                out[row + j] = cnt[j] == period ? sum[j] / period : Double.NaN;
+            }
+        }
+        return res;
+    }
+
+    @Override
+    public BarMatrix stdDev(BarMatrix in, int period) {
+        ScalarMatrixKernels.checkPeriod(period, 2);
+        int n = in.bars(), s = in.symbols(), upper = SP.loopBound(s);
+        double[] x = in.values();
+        double[] shift = KernelSupport.firstValid(in);
+        BarMatrix res = in.sameShape();
+        double[] out = res.values();
+        double[] sum = new double[s];
+        double[] sq = new double[s];
+        double[] cnt = new double[s];
+        DoubleVector one = DoubleVector.broadcast(SP, 1.0);
+        for (int t = 0; t < n; t++) {
+            int row = t * s, old = (t - period) * s;
+            int j = 0;
+            for (; j < upper; j += SP.length()) {
+                DoubleVector k = DoubleVector.fromArray(SP, shift, j);
+                DoubleVector v = DoubleVector.fromArray(SP, x, row + j);
+                VectorMask<Double> nan = v.test(VectorOperators.IS_NAN);
+                DoubleVector y = v.sub(k).blend(0.0, nan);
+                DoubleVector sm = DoubleVector.fromArray(SP, sum, j).add(y);
+                DoubleVector q = DoubleVector.fromArray(SP, sq, j).add(y.mul(y));
+                DoubleVector c = DoubleVector.fromArray(SP, cnt, j).add(one.blend(0.0, nan));
+                if (t >= period) {
+                    DoubleVector o = DoubleVector.fromArray(SP, x, old + j);
+                    VectorMask<Double> onan = o.test(VectorOperators.IS_NAN);
+                    DoubleVector oy = o.sub(k).blend(0.0, onan);
+                    sm = sm.sub(oy);
+                    q = q.sub(oy.mul(oy));
+                    c = c.sub(one.blend(0.0, onan));
+                }
+                sm.intoArray(sum, j);
+                q.intoArray(sq, j);
+                c.intoArray(cnt, j);
+                VectorMask<Double> ready = c.compare(VectorOperators.EQ, period);
+                q.sub(sm.mul(sm).div(period)).div(period - 1).max(0.0).sqrt()
+                        .blend(Double.NaN, ready.not())
+                        .intoArray(out, row + j);
+            }
+            for (; j < s; j++) {
+                double v = x[row + j];
+                if (!Double.isNaN(v)) { double y = v - shift[j]; sum[j] += y; sq[j] += y * y; cnt[j]++; }
+                if (t >= period) {
+                    double o = x[old + j];
+                    if (!Double.isNaN(o)) { double y = o - shift[j]; sum[j] -= y; sq[j] -= y * y; cnt[j]--; }
+                }
+                out[row + j] = cnt[j] == period
+                        ? Math.sqrt(Math.max(0.0, (sq[j] - sum[j] * sum[j] / period) / (period - 1)))
+                        : Double.NaN;
+            }
+        }
+        return res;
+    }
+
+    @Override
+    public BarMatrix ema(BarMatrix in, int period) {
+        ScalarMatrixKernels.checkPeriod(period, 1);
+        int n = in.bars(), s = in.symbols(), upper = SP.loopBound(s);
+        double a = 2.0 / (period + 1);
+        double[] x = in.values();
+        BarMatrix res = in.sameShape();
+        double[] out = res.values();
+        double[] e = new double[s];
+        Arrays.fill(e, Double.NaN);
+        double[] sum = new double[s];
+        double[] cnt = new double[s];
+        for (int t = 0; t < n; t++) {
+            int row = t * s;
+            int j = 0;
+            for (; j < upper; j += SP.length()) {
+                DoubleVector v = DoubleVector.fromArray(SP, x, row + j);
+                DoubleVector ev = DoubleVector.fromArray(SP, e, j);
+                DoubleVector sv = DoubleVector.fromArray(SP, sum, j);
+                DoubleVector c = DoubleVector.fromArray(SP, cnt, j);
+                VectorMask<Double> vNan = v.test(VectorOperators.IS_NAN);
+                VectorMask<Double> seeding = c.compare(VectorOperators.LT, period);
+                VectorMask<Double> keepSeed = vNan.or(seeding.not());
+                DoubleVector sm = sv.add(v).blend(sv, keepSeed);
+                DoubleVector c1 = c.add(1.0).blend(c, keepSeed);
+                DoubleVector next = ev.add(v.sub(ev).mul(a))   // e + a·(v − e)
+                        .blend(sm.div(c1), seeding)            // затравка — среднее первых period
+                        .blend(ev, vNan);                      // пропуск NaN
+                sm.intoArray(sum, j);
+                c1.intoArray(cnt, j);
+                next.intoArray(e, j);
+                next.intoArray(out, row + j);
+            }
+            for (; j < s; j++) {
+                double v = x[row + j];
+                if (!Double.isNaN(v)) {
+                    if (cnt[j] < period) { sum[j] += v; cnt[j]++; e[j] = sum[j] / cnt[j]; }
+                    else e[j] += a * (v - e[j]);
+                }
+                out[row + j] = e[j];
+            }
+        }
+        return res;
+    }
+
+    @Override
+    public BarMatrix wilder(BarMatrix in, int period) {
+        ScalarMatrixKernels.checkPeriod(period, 1);
+        int n = in.bars(), s = in.symbols(), upper = SP.loopBound(s);
+        double[] x = in.values();
+        BarMatrix res = in.sameShape();
+        double[] out = res.values();
+        double[] w = new double[s];
+        double[] cnt = new double[s];
+        for (int t = 0; t < n; t++) {
+            int row = t * s;
+            int j = 0;
+            for (; j < upper; j += SP.length()) {
+                DoubleVector v = DoubleVector.fromArray(SP, x, row + j);
+                DoubleVector wv = DoubleVector.fromArray(SP, w, j);
+                DoubleVector c = DoubleVector.fromArray(SP, cnt, j);
+                VectorMask<Double> vNan = v.test(VectorOperators.IS_NAN);
+                VectorMask<Double> seeding = c.compare(VectorOperators.LT, period);
+                DoubleVector c1 = c.add(1.0).blend(c, vNan.or(seeding.not()));
+                DoubleVector next = wv.mul(period - 1).add(v).div(period)   // (w·(period − 1) + v) / period
+                        .blend(wv.add(v.sub(wv).div(c1)), seeding)          // среднее первых period
+                        .blend(wv, vNan);
+                c1.intoArray(cnt, j);
+                next.intoArray(w, j);
+                next.blend(Double.NaN, c1.compare(VectorOperators.EQ, 0.0)).intoArray(out, row + j);
+            }
+            for (; j < s; j++) {
+                double v = x[row + j];
+                if (!Double.isNaN(v)) {
+                    if (cnt[j] < period) { cnt[j]++; w[j] += (v - w[j]) / cnt[j]; }
+                    else w[j] = (w[j] * (period - 1) + v) / period;
+                }
+                out[row + j] = cnt[j] == 0 ? Double.NaN : w[j];
+            }
+        }
+        return res;
+    }
+
+    @Override
+    public BarMatrix rsi(BarMatrix in, int period) {
+        ScalarMatrixKernels.checkPeriod(period, 1);
+        int n = in.bars(), s = in.symbols(), upper = SP.loopBound(s);
+        double[] x = in.values();
+        BarMatrix res = in.sameShape();
+        double[] out = res.values();
+        double[] prev = new double[s];
+        Arrays.fill(prev, Double.NaN);
+        double[] gain = new double[s];
+        double[] loss = new double[s];
+        double[] cnt = new double[s];
+        for (int t = 0; t < n; t++) {
+            int row = t * s;
+            int j = 0;
+            for (; j < upper; j += SP.length()) {
+                DoubleVector v = DoubleVector.fromArray(SP, x, row + j);
+                DoubleVector pv = DoubleVector.fromArray(SP, prev, j);
+                DoubleVector gv = DoubleVector.fromArray(SP, gain, j);
+                DoubleVector lv = DoubleVector.fromArray(SP, loss, j);
+                DoubleVector c = DoubleVector.fromArray(SP, cnt, j);
+                VectorMask<Double> vNan = v.test(VectorOperators.IS_NAN);
+                VectorMask<Double> skip = vNan.or(pv.test(VectorOperators.IS_NAN));   // нет пары баров
+                VectorMask<Double> seeding = c.compare(VectorOperators.LT, period);
+                DoubleVector ch = v.sub(pv);
+                DoubleVector g = ch.max(0.0);
+                DoubleVector l = ch.neg().max(0.0);
+                DoubleVector ng = gv.mul(period - 1).add(g).div(period)
+                        .blend(gv.add(g.div(period)), seeding)
+                        .blend(gv, skip);
+                DoubleVector nl = lv.mul(period - 1).add(l).div(period)
+                        .blend(lv.add(l.div(period)), seeding)
+                        .blend(lv, skip);
+                DoubleVector c1 = c.add(1.0).blend(c, skip.or(seeding.not()));
+                pv.blend(v, vNan.not()).intoArray(prev, j);
+                ng.intoArray(gain, j);
+                nl.intoArray(loss, j);
+                c1.intoArray(cnt, j);
+
+                VectorMask<Double> noLoss = nl.compare(VectorOperators.EQ, 0.0);
+                DoubleVector hundred = DoubleVector.broadcast(SP, 100.0);
+                hundred.sub(hundred.div(ng.div(nl).add(1.0)))
+                        .blend(100.0, noLoss)
+                        .blend(50.0, noLoss.and(ng.compare(VectorOperators.EQ, 0.0)))
+                        .blend(50.0, c1.compare(VectorOperators.LT, period))
+                        .intoArray(out, row + j);
+            }
+            for (; j < s; j++) {
+                double v = x[row + j];
+                if (!Double.isNaN(v)) {
+                    double p = prev[j];
+                    prev[j] = v;
+                    if (!Double.isNaN(p)) {
+                        double ch = v - p;
+                        double g = Math.max(ch, 0.0), l = Math.max(-ch, 0.0);
+                        if (cnt[j] < period) { gain[j] += g / period; loss[j] += l / period; cnt[j]++; }
+                        else {
+                            gain[j] = (gain[j] * (period - 1) + g) / period;
+                            loss[j] = (loss[j] * (period - 1) + l) / period;
+                        }
+                    }
+                }
+                out[row + j] = ScalarMatrixKernels.rsiValue(cnt[j] >= period, gain[j], loss[j]);
+            }
+        }
+        return res;
+    }
+
+    @Override
+    public BarMatrix trueRange(BarMatrix high, BarMatrix low, BarMatrix close) {
+        KernelSupport.checkSameShape(high, low, close);
+        int n = high.bars(), s = high.symbols(), upper = SP.loopBound(s);
+        double[] h = high.values(), l = low.values(), c = close.values();
+        BarMatrix res = high.sameShape();
+        double[] out = res.values();
+        for (int t = 0; t < n; t++) {
+            int row = t * s, prev = (t - 1) * s;
+            int j = 0;
+            if (t > 0) {
+                for (; j < upper; j += SP.length()) {
+                    DoubleVector hv = DoubleVector.fromArray(SP, h, row + j);
+                    DoubleVector lv = DoubleVector.fromArray(SP, l, row + j);
+                    DoubleVector pc = DoubleVector.fromArray(SP, c, prev + j);
+                    DoubleVector hl = hv.sub(lv);
+                    DoubleVector tr = hl.max(hv.sub(pc).abs()).max(lv.sub(pc).abs());
+                    tr.blend(hl, pc.test(VectorOperators.IS_NAN)).intoArray(out, row + j);
+                }
+            }
+            for (; j < s; j++) {
+                double hl = h[row + j] - l[row + j];
+                double pc = t == 0 ? Double.NaN : c[prev + j];
+                out[row + j] = Double.isNaN(pc)
+                        ? hl
+                        : Math.max(hl, Math.max(Math.abs(h[row + j] - pc), Math.abs(l[row + j] - pc)));
+            }
+        }
+        return res;
+    }
+
+    @Override
+    public BarMatrix zScore(BarMatrix in, int period) {
+        BarMatrix m = sma(in, period);
+        BarMatrix sd = stdDev(in, period);
+        double[] x = in.values(), mv = m.values(), sv = sd.values();
+        BarMatrix res = in.sameShape();
+        double[] out = res.values();
+        int upper = SP.loopBound(x.length);
+        int i = 0;
+        for (; i < upper; i += SP.length()) {
+            DoubleVector sdv = DoubleVector.fromArray(SP, sv, i);
+            DoubleVector z = DoubleVector.fromArray(SP, x, i).sub(DoubleVector.fromArray(SP, mv, i)).div(sdv);
+            z.blend(0.0, sdv.compare(VectorOperators.EQ, 0.0)).intoArray(out, i);
+        }
+        for (; i < x.length; i++) {
+            out[i] = sv[i] == 0.0 ? 0.0 : (x[i] - mv[i]) / sv[i];
+        }
+        return res;
+    }
+
+    @Override
+    public String name() {
+        return "vector/" + SP.length() + "x64";
+    }
+}
@@ -0,0 +1,399 @@
+package com.chicu.aibot.strategy.ma_crossover;
+
+import com.chicu.aibot.strategy.StrategyType;
+import com.chicu.aibot.strategy.TickContext;
+import com.chicu.aibot.strategy.TickRequest;
+import com.chicu.aibot.strategy.TradingStrategy;
+import com.chicu.aibot.strategy.indicator.BarIndicator;
+import com.chicu.aibot.strategy.indicator.Ema;
+import com.chicu.aibot.strategy.indicator.IndicatorSeries;
+import com.chicu.aibot.strategy.indicator.IndicatorSeriesCache;
+import com.chicu.aibot.strategy.indicator.RollingSma;
+import com.chicu.aibot.strategy.ma_crossover.model.MaCrossoverStrategySettings;
+import com.chicu.aibot.strategy.ma_crossover.service.MaCrossoverStrategySettingsService;
+import com.chicu.aibot.strategy.model.Candle;
+import com.chicu.aibot.strategy.model.Order;
+import com.chicu.aibot.strategy.service.OrderService;
+import com.chicu.aibot.trading.checkpoint.StrategyCheckpointService;
+import com.chicu.aibot.trading.exit.ExitFill;
+import com.chicu.aibot.trading.exit.ExitManager;
+import com.chicu.aibot.trading.exit.ProtectiveExit;
+import com.chicu.aibot.trading.trade.TradeLogService;
+import com.chicu.aibot.trading.trade.model.TradeLogEntry;
+import com.chicu.aibot.trading.trigger.PriceTriggerService;
+import com.chicu.aibot.trading.trigger.TriggerDirection;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Пересечение быстрой и медленной средних: снизу вверх — лонг (шорт закрывается),
+ * сверху вниз — выход из лонга и, если разрешено, шорт. TP/SL, как у Bollinger, стоят на бирже,
+ * а где биржа не умеет — взведены в общем индексе уровней и срабатывают на каждом обновлении цены.
+ * <p>
+ * Средние — потоковые и общие для всех чатов с тем же symbol/tf/периодом; после прогрева
+ * на тике грузится только хвост окна, решение — раз на закрытый бар.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MaCrossoverStrategy implements TradingStrategy {
+
+    /** Хвост окна для прогретых средних: закрытые бары с запасом на пропущенный тик + формирующийся. */
+    private static final int TAIL_BARS = 5;
+
+    private final MaCrossoverStrategySettingsService settingsService;
+    private final OrderService orderService;
+    private final TradeLogService tradeLogService;
+    private final StrategyCheckpointService checkpoints;
+    private final IndicatorSeriesCache indicators;
+    private final Clock clock;
+    /** TP/SL срабатывают на каждом обновлении цены, а не раз в таймфрейм. */
+    private final PriceTriggerService triggers;
+    /** Если биржа умеет — TP/SL стоят на самой бирже, уровни в индексе не нужны. */
+    private final ExitManager exits;
+
+    /** Одна позиция на чат. */
+    private final Map<Long, Position> positions = new ConcurrentHashMap<>();
+    /** fast − slow на последнем решённом баре: пересечение — смена знака. */
+    private final Map<Long, Double> lastSpread = new ConcurrentHashMap<>();
+    /** Время закрытого бара, по которому уже принято решение. */
+    private final Map<Long, Instant> decidedBar = new ConcurrentHashMap<>();
+    /**
+     * Чаты, у которых на последнем расчёте средние были прогреты. Ряды в кэше индикаторов лежат
+     * под биржей/сетью чата, а их видно только на тике — поэтому заявка на окно смотрит сюда.
+     */
+    private final Set<Long> warm = ConcurrentHashMap.newKeySet();
+
+    /** Снимок для быстрого рестарта: позиция, её биржевая защита и знак разницы средних. */
+    public record Checkpoint(String side, double entry, double qty, Instant openTime, Double lastSpread,
+                             String exitListId) { }
+
+    @Override
+    public StrategyType getType() {
+        return StrategyType.MA_CROSSOVER;
+    }
+
+    @Override
+    public void start(Long chatId) {
+        positions.remove(chatId);
+        lastSpread.remove(chatId);
+        decidedBar.remove(chatId);
+        warm.remove(chatId);
+        MaCrossoverStrategySettings s = settingsService.getOrCreate(chatId);
+        checkpoints.restore(chatId, getType(), Checkpoint.class).ifPresent(cp -> {
+            if (cp.lastSpread() != null) lastSpread.put(chatId, cp.lastSpread());
+            if (cp.side() != null) {
+                Position restored = new Position(Side.valueOf(cp.side()), cp.entry(), cp.qty(), cp.openTime());
+                positions.put(chatId, restored);
+                log.info("[MA-X] chatId={} восстановлена позиция {} @{} из чекпоинта", chatId, cp.side(), fmt(cp.entry()));
+                if (exits.restore(chatId, owner(chatId), cp.exitListId()).isEmpty()) armExits(chatId, s, restored);
+            }
+        });
+        log.info("[MA-X] chatId={} started (symbol={}, tf={}, {} {}/{}, TP={}%, SL={}%)",
+                chatId, s.getSymbol(), s.getTimeframe(), maType(s), fastPeriod(s), slowPeriod(s),
+                s.getTakeProfitPct(), s.getStopLossPct());
+    }
+
+    @Override
+    public void stop(Long chatId) {
+        triggers.disarm(owner(chatId));
+        exits.cancel(owner(chatId));
+        positions.remove(chatId);
+        lastSpread.remove(chatId);
+        decidedBar.remove(chatId);
+        warm.remove(chatId);
+        checkpoints.clear(chatId, getType());
+        log.info("[MA-X] chatId={} stopped; local state cleared", chatId);
+    }
+
+    @Override
+    public void detach(Long chatId) {
+        // биржевая защита остаётся стоять, её orderListId — в чекпоинте для нового владельца
+        triggers.disarm(owner(chatId));
+        positions.remove(chatId);
+        lastSpread.remove(chatId);
+        decidedBar.remove(chatId);
+        warm.remove(chatId);
+    }
+
+    @Override
+    public TickRequest prepareTick(Long chatId) {
+        MaCrossoverStrategySettings s = settingsService.getOrCreate(chatId);
+        if (!s.isActive()) return null;
+        String symbol = safeSymbol(s.getSymbol());
+        String tf = safeTf(s.getTimeframe());
+        // прогретым средним хватает хвоста — полное окно грузим только на прогреве
+        int depth = warm.contains(chatId) ? TAIL_BARS : warmupBars(s) + 1;
+        return new TickRequest(s, symbol, tf, depth);
+    }
+
+    @Override
+    public void onTick(TickContext ctx) {
+        if (ctx.isEmpty()) return;
+        Long chatId = ctx.chatId();
+        MaCrossoverStrategySettings s = ctx.settings(MaCrossoverStrategySettings.class);
+        double price = ctx.lastPrice();
+        List<Candle> candles = ctx.candles();
+        if (candles.size() < 2 || price <= 0) return;
+
+        Position pos = positions.get(chatId);
+        if (pos != null && exits.current(owner(chatId)).isPresent()) {
+            // TP/SL стоят на бирже — сверяемся с ней
+            Optional<ExitFill> fill = exits.poll(owner(chatId));
+            if (fill.isPresent()) {
+                log.info("[MA-X] chatId={} позицию закрыла биржа ({})", chatId, fill.get().takeProfit() ? "TP" : "SL");
+                recordClose(chatId, ctx.symbol(), pos, fill.get().price());
+                return;
+            }
+            if (exits.current(owner(chatId)).isEmpty()) {
+                // защиту сняли мимо бота — дальше выходим сами
+                armExits(chatId, s, pos);
+                saveCheckpoint(chatId);
+            }
+        }
+        // страховка на случай, если уровень не сработал между тиками
+        if (pos != null && exits.current(owner(chatId)).isEmpty() && exitHit(pos, price, tpFrac(s), slFrac(s))) {
+            close(chatId, s, pos, price);
+            return;
+        }
+
+        // пересечение — раз на закрытый бар
+        List<Candle> closed = candles.subList(0, candles.size() - 1);
+        Instant bar = closed.getLast().getOpenTime();
+        if (bar != null && bar.equals(decidedBar.get(chatId))) return;
+
+        boolean full = closed.size() >= warmupBars(s);
+        double fast = ma(ctx, s, fastPeriod(s), closed, full);
+        double slow = ma(ctx, s, slowPeriod(s), closed, full);
+        if (Double.isNaN(fast) || Double.isNaN(slow)) {
+            warm.remove(chatId);
+            return; // ещё греемся
+        }
+        warm.add(chatId);
+        if (bar != null) decidedBar.put(chatId, bar);
+
+        double spread = fast - slow;
+        Double prev = lastSpread.put(chatId, spread);
+        boolean crossUp = prev != null && prev <= 0 && spread > 0;
+        boolean crossDown = prev != null && prev >= 0 && spread < 0;
+        if (!crossUp && !crossDown) {
+            if (prev == null || Math.signum(prev) != Math.signum(spread)) saveCheckpoint(chatId);
+            return;
+        }
+        log.info("[MA-X] chatId={} пересечение {}: fast={} slow={}", chatId, crossUp ? "вверх" : "вниз", fmt(fast), fmt(slow));
+
+        // разворот: сначала закрываем встречную позицию
+        if (pos != null && (crossUp ? pos.side() == Side.SHORT : pos.side() == Side.LONG)) {
+            if (!close(chatId, s, pos, price)) return;
+            pos = null;
+        }
+
+        double qty = Math.max(0.0, nvl(s.getOrderVolume(), 0.0));
+        if (pos == null && qty > 0.0) {
+            if (crossUp && Boolean.TRUE.equals(s.getAllowLong())) {
+                open(chatId, s, Side.LONG, price, qty);
+            } else if (crossDown && Boolean.TRUE.equals(s.getAllowShort())) {
+                open(chatId, s, Side.SHORT, price, qty);
+            }
+        }
+        saveCheckpoint(chatId);
+    }
+
+    /* ================= средние ================= */
+
+    /** Бары для прогрева: медленная средняя плюс запас на сходимость EMA. */
+    private static int warmupBars(MaCrossoverStrategySettings s) {
+        int need = Math.max(fastPeriod(s), slowPeriod(s));
+        int wanted = isEma(s) ? need * 3 : need;
+        return Math.max(need, Math.min(nvl(s.getCachedCandlesLimit(), 200), wanted));
+    }
+
+    /** Значение средней по закрытым барам; NaN — не прогрета. */
+    private double ma(TickContext ctx, MaCrossoverStrategySettings s, int period, List<Candle> closed, boolean full) {
+        if (isEma(s)) {
+            return read(indicators.get(ctx.exchange(), ctx.network(), ctx.symbol(), ctx.timeframe(),
+                    "ema:" + period, () -> new Ema(period)), closed, full, Ema::value);
+        }
+        return read(indicators.get(ctx.exchange(), ctx.network(), ctx.symbol(), ctx.timeframe(),
+                "sma:" + period, () -> new RollingSma(period)), closed, full, RollingSma::value);
+    }
+
+    private static <T extends BarIndicator> double read(IndicatorSeries<T> series, List<Candle> closed, boolean full,
+                                                        ToDoubleFunction<T> value) {
+        double[] v = {Double.NaN};
+        series.advance(closed, i -> v[0] = i.isReady() ? value.applyAsDouble(i) : Double.NaN);
+        // ряд отстал после простоя — пересобираем по полному окну
+        if (Double.isNaN(v[0]) && full) series.rebuild(closed, i -> v[0] = i.isReady() ? value.applyAsDouble(i) : Double.NaN);
+        return v[0];
+    }
+
+    private static boolean isEma(MaCrossoverStrategySettings s) { return "EMA".equalsIgnoreCase(s.getMaType()); }
+    private static String maType(MaCrossoverStrategySettings s) { return isEma(s) ? "EMA" : "SMA"; }
+    private static int fastPeriod(MaCrossoverStrategySettings s) { return Math.max(1, nvl(s.getFastPeriod(), 20)); }
+    private static int slowPeriod(MaCrossoverStrategySettings s) { return Math.max(2, nvl(s.getSlowPeriod(), 50)); }
+    private static double tpFrac(MaCrossoverStrategySettings s) { return Math.max(0.0, nvl(s.getTakeProfitPct(), 2.0)) / 100.0; }
+    private static double slFrac(MaCrossoverStrategySettings s) { return Math.max(0.0, nvl(s.getStopLossPct(), 1.0)) / 100.0; }
+
+    /* ================= позиция ================= */
+
+    private void open(Long chatId, MaCrossoverStrategySettings s, Side side, double price, double qty) {
+        Order ord = placeMarketSafe(chatId, safeSymbol(s.getSymbol()), side == Side.LONG ? Order.Side.BUY : Order.Side.SELL, qty);
+        if (!executed(ord)) return;
+        // защищаем исполненный объём (за вычетом комиссии в базовом активе), а не заказанный
+        Position pos = new Position(side, price, ord.getVolume(), Instant.now(clock));
+        positions.put(chatId, pos);
+        protect(chatId, s, pos);
+        log.info("[MA-X] chatId={} {} open @{} qty={}", chatId, side, fmt(price), pos.qty());
+    }
+
+    /**
+     * Выход рынком. Биржевую защиту снимаем заранее: иначе она продаст позицию второй раз, а её ноги
+     * блокируют MARKET по символу. Выход не исполнился — позиция снова под защитой.
+     *
+     * @return false — ордер не прошёл, позиция осталась
+     */
+    private boolean close(Long chatId, MaCrossoverStrategySettings s, Position pos, double price) {
+        String symbol = safeSymbol(s.getSymbol());
+        boolean isLong = pos.side() == Side.LONG;
+        boolean wasProtected = exits.current(owner(chatId)).isPresent();
+        exits.cancel(owner(chatId));
+        Order ord = placeMarketSafe(chatId, symbol, isLong ? Order.Side.SELL : Order.Side.BUY, pos.qty());
+        if (!executed(ord)) {
+            log.warn("[MA-X] chatId={} рыночный выход {} не исполнен — позиция снова под защитой", chatId, pos.side());
+            if (wasProtected) protect(chatId, s, pos);
+            else armExits(chatId, s, pos);
+            saveCheckpoint(chatId);
+            return false;
+        }
+        recordClose(chatId, symbol, pos, price);
+        return true;
+    }
+
+    /** Позиция закрыта (нами или биржей): снимаем уровни, пишем сделку. */
+    private void recordClose(Long chatId, String symbol, Position pos, double price) {
+        boolean isLong = pos.side() == Side.LONG;
+        positions.remove(chatId);
+        triggers.disarm(owner(chatId));
+        saveCheckpoint(chatId);
+        double diff = isLong ? price - pos.entry() : pos.entry() - price;
+        double pnlPct = diff / pos.entry() * 100.0;
+        log.info("[MA-X] chatId={} {} close @{} PnL={}%", chatId, pos.side(), fmt(price), String.format("%.2f", pnlPct));
+
+        tradeLogService.logTrade(TradeLogEntry.builder()
+                .chatId(chatId)
+                .symbol(symbol)
+                .strategy(getType().name())
+                .openTime(pos.openTime())
+                .closeTime(Instant.now(clock))
+                .entryPrice(BigDecimal.valueOf(pos.entry()))
+                .exitPrice(BigDecimal.valueOf(price))
+                .volume(BigDecimal.valueOf(pos.qty()))
+                .pnl(BigDecimal.valueOf(diff))
+                .pnlPct(BigDecimal.valueOf(pnlPct))
+                .side(pos.side().name())
+                .build());
+    }
+
+    /* ================= TP/SL ================= */
+
+    /** Ставим TP и SL на бирже; если не вышло (или один из уровней выключен) — взводим их в общем индексе. */
+    private void protect(Long chatId, MaCrossoverStrategySettings s, Position pos) {
+        double tpFrac = tpFrac(s);
+        double slFrac = slFrac(s);
+        boolean isLong = pos.side() == Side.LONG;
+        Optional<ProtectiveExit> pe = tpFrac <= 0 || slFrac <= 0 ? Optional.empty() : exits.protect(chatId, owner(chatId),
+                safeSymbol(s.getSymbol()), isLong ? Order.Side.SELL : Order.Side.BUY, pos.qty(),
+                pos.entry() * (isLong ? 1.0 + tpFrac : 1.0 - tpFrac),
+                pos.entry() * (isLong ? 1.0 - slFrac : 1.0 + slFrac));
+        if (pe.isEmpty()) armExits(chatId, s, pos);
+    }
+
+    /** Взводим TP и SL открытой позиции в общем индексе уровней. */
+    private void armExits(Long chatId, MaCrossoverStrategySettings s, Position pos) {
+        String symbol = safeSymbol(s.getSymbol());
+        double tpFrac = tpFrac(s);
+        double slFrac = slFrac(s);
+        boolean isLong = pos.side() == Side.LONG;
+        String owner = owner(chatId);
+        triggers.disarm(owner);
+        if (tpFrac > 0) {
+            triggers.arm(chatId, owner, symbol,
+                    isLong ? TriggerDirection.ABOVE : TriggerDirection.BELOW,
+                    pos.entry() * (isLong ? 1.0 + tpFrac : 1.0 - tpFrac),
+                    price -> onExitTrigger(chatId, s, pos, price));
+        }
+        if (slFrac > 0) {
+            triggers.arm(chatId, owner, symbol,
+                    isLong ? TriggerDirection.BELOW : TriggerDirection.ABOVE,
+                    pos.entry() * (isLong ? 1.0 - slFrac : 1.0 + slFrac),
+                    price -> onExitTrigger(chatId, s, pos, price));
+        }
+    }
+
+    /** Исполняется в ящике актора стратегии; позиция могла уже закрыться тиком. */
+    private void onExitTrigger(Long chatId, MaCrossoverStrategySettings s, Position pos, double price) {
+        if (positions.get(chatId) != pos) return;
+        log.info("[MA-X] chatId={} сработал уровень выхода @{}", chatId, fmt(price));
+        close(chatId, s, pos, price);
+    }
+
+    private String owner(Long chatId) {
+        return chatId + ":" + getType().name();
+    }
+
+    private static boolean exitHit(Position pos, double price, double tpFrac, double slFrac) {
+        return switch (pos.side()) {
+            case LONG -> (tpFrac > 0 && price >= pos.entry() * (1.0 + tpFrac))
+                    || (slFrac > 0 && price <= pos.entry() * (1.0 - slFrac));
+            case SHORT -> (tpFrac > 0 && price <= pos.entry() * (1.0 - tpFrac))
+                    || (slFrac > 0 && price >= pos.entry() * (1.0 + slFrac));
+        };
+    }
+
+    private void saveCheckpoint(Long chatId) {
+        Position p = positions.get(chatId);
+        Double spread = lastSpread.get(chatId);
+        String listId = exits.current(owner(chatId)).map(ProtectiveExit::listId).orElse(null);
+        checkpoints.update(chatId, getType(), p == null
+                ? new Checkpoint(null, 0.0, 0.0, null, spread, null)
+                : new Checkpoint(p.side().name(), p.entry(), p.qty(), p.openTime(), spread, listId));
+    }
+
+    /** MARKET исполнен: не отказ, не пропуск (кулдаун / открытые ордера по символу) и объём больше нуля. */
+    private static boolean executed(Order ord) {
+        return ord != null && !ord.isRejected() && ord.getVolume() > 0.0
+                && (ord.getId() == null || !ord.getId().startsWith("SKIPPED-"));
+    }
+
+    private Order placeMarketSafe(Long chatId, String symbol, Order.Side side, double qty) {
+        try {
+            return orderService.placeMarket(chatId, symbol, side, qty);
+        } catch (Exception e) {
+            log.warn("[MA-X] placeMarket failed: chatId={}, symbol={}, side={}, qty={}, err={}",
+                    chatId, symbol, side, qty, e.toString());
+            return null;
+        }
+    }
+
+    private record Position(Side side, double entry, double qty, Instant openTime) { }
+    private enum Side { LONG, SHORT }
+
+    private static String safeSymbol(String s) { return (s == null || s.isBlank()) ? "BTCUSDT" : s; }
+    private static String safeTf(String tf)    { return (tf == null || tf.isBlank()) ? "1h" : tf; }
+
+    private static int    nvl(Integer v, int def)   { return v != null ? v : def; }
+    private static double nvl(Double v, double def) { return v != null ? v : def; }
+
+    private static String fmt(double v) { return String.format("%,.8f", v); }
+}
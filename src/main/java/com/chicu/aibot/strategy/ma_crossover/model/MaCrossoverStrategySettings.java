@@ -0,0 +1,64 @@
+package com.chicu.aibot.strategy.ma_crossover.model;
+
+import com.chicu.aibot.strategy.StrategySettings;
+import com.chicu.aibot.strategy.StrategyType;
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+
+@Entity
+@Table(name = "ma_crossover_strategy_settings")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@SuperBuilder
+@EqualsAndHashCode(callSuper = true)
+public class MaCrossoverStrategySettings extends StrategySettings {
+
+    @Column(name = "symbol", nullable = false)
+    private String symbol;
+
+    @Column(name = "timeframe", nullable = false)
+    private String timeframe;
+
+    /** Глубина окна для прогрева средних; дальше стратегия догружает только хвост. */
+    @Column(name = "cached_candles_limit", nullable = false)
+    private Integer cachedCandlesLimit;
+
+    @Column(name = "order_volume", nullable = false)
+    private Double orderVolume;
+
+    @Column(name = "fast_period", nullable = false)
+    private Integer fastPeriod;
+
+    @Column(name = "slow_period", nullable = false)
+    private Integer slowPeriod;
+
+    /** SMA или EMA — для обеих средних. */
+    @Column(name = "ma_type", nullable = false)
+    private String maType;
+
+    @Column(name = "take_profit_pct", nullable = false)
+    private Double takeProfitPct;
+
+    @Column(name = "stop_loss_pct", nullable = false)
+    private Double stopLossPct;
+
+    @Column(name = "allow_long", nullable = false)
+    private Boolean allowLong;
+
+    @Column(name = "allow_short", nullable = false)
+    private Boolean allowShort;
+
+    @Column(name = "active", nullable = false)
+    private boolean active;
+
+    @Version
+    private Long version;
+
+    @Override public StrategyType getType() { return StrategyType.MA_CROSSOVER; }
+    @Override public String getTimeframe() { return timeframe; }
+    @Override public Integer getCachedCandlesLimit() { return cachedCandlesLimit; }
+    @Override public boolean isActive() { return active; }
+    @Override public void setActive(boolean active) { this.active = active; }
+}
@@ -0,0 +1,8 @@
+package com.chicu.aibot.strategy.ma_crossover.service;
+
+import com.chicu.aibot.strategy.ma_crossover.model.MaCrossoverStrategySettings;
+
+public interface MaCrossoverStrategySettingsService {
+    MaCrossoverStrategySettings getOrCreate(Long chatId);
+    MaCrossoverStrategySettings save(MaCrossoverStrategySettings s);
+}
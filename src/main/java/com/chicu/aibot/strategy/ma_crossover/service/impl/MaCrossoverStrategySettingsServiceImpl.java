@@ -0,0 +1,66 @@
+package com.chicu.aibot.strategy.ma_crossover.service.impl;
+
+import com.chicu.aibot.strategy.common.DefaultTradingParamsResolver;
+import com.chicu.aibot.strategy.ma_crossover.model.MaCrossoverStrategySettings;
+import com.chicu.aibot.strategy.ma_crossover.repository.MaCrossoverStrategySettingsRepository;
+import com.chicu.aibot.strategy.ma_crossover.service.MaCrossoverStrategySettingsService;
+import com.chicu.aibot.trading.events.StrategySettingsChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MaCrossoverStrategySettingsServiceImpl implements MaCrossoverStrategySettingsService {
+
+    private final MaCrossoverStrategySettingsRepository repo;
+    private final DefaultTradingParamsResolver defaults;
+    private final ApplicationEventPublisher events;
+
+    @Value("${trading.defaults.symbol:BTCUSDT}")
+    private String defaultSymbolProp;
+
+    @Value("${trading.defaults.timeframe.ma-crossover:1h}")
+    private String defaultTfProp;
+
+    @Override
+    @Transactional
+    public MaCrossoverStrategySettings getOrCreate(Long chatId) {
+        return repo.findById(chatId).orElseGet(() -> {
+            final String symbol    = defaults.resolveSymbol(chatId, defaultSymbolProp, "BTCUSDT");
+            final String timeframe = defaults.resolveTimeframe(chatId, defaultTfProp, "1h");
+
+            log.info("⚙️ Не найдены настройки MA Crossover для chatId={}, создаю по умолчанию (symbol={}, tf={})",
+                    chatId, symbol, timeframe);
+
+            MaCrossoverStrategySettings def = new MaCrossoverStrategySettings();
+            def.setChatId(chatId);
+            def.setSymbol(symbol);
+            def.setTimeframe(timeframe);
+            def.setCachedCandlesLimit(200);
+            def.setOrderVolume(1.0);
+            def.setFastPeriod(20);
+            def.setSlowPeriod(50);
+            def.setMaType("SMA");
+            def.setTakeProfitPct(2.0);
+            def.setStopLossPct(1.0);
+            def.setAllowLong(true);
+            def.setAllowShort(false);
+            def.setActive(false);
+            return repo.saveAndFlush(def);
+        });
+    }
+
+    @Override
+    @Transactional
+    public MaCrossoverStrategySettings save(MaCrossoverStrategySettings settings) {
+        log.info("💾 Сохраняю настройки MA Crossover для chatId={}", settings.getChatId());
+        MaCrossoverStrategySettings saved = repo.saveAndFlush(settings);
+        events.publishEvent(new StrategySettingsChangedEvent(settings.getChatId(), settings.getType()));
+        return saved;
+    }
+}
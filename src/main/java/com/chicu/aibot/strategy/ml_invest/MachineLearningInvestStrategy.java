@@ -1,6 +1,8 @@
 package com.chicu.aibot.strategy.ml_invest;
 
 import com.chicu.aibot.strategy.StrategyType;
+import com.chicu.aibot.strategy.TickContext;
+import com.chicu.aibot.strategy.TickRequest;
 import com.chicu.aibot.strategy.TradingStrategy;
 import com.chicu.aibot.strategy.ml_invest.model.MachineLearningInvestStrategySettings;
 import com.chicu.aibot.strategy.ml_invest.model.MlInvestModelState;
@@ -11,10 +13,13 @@ import com.chicu.aibot.strategy.model.Candle;
 import com.chicu.aibot.strategy.model.Order;
 import com.chicu.aibot.strategy.service.CandleService;
 import com.chicu.aibot.strategy.service.OrderService;
+import com.chicu.aibot.trading.checkpoint.StrategyCheckpointService;
+import com.chicu.aibot.trading.lane.ExecutionLane;
+import com.chicu.aibot.trading.lane.LaneExecutor;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
@@ -23,7 +28,10 @@ import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Полная реализация MachineLearningInvest:
@@ -45,6 +53,8 @@ public class MachineLearningInvestStrategy implements TradingStrategy {
     private final MlInvestModelStateService modelStateService;
     private final OrderService orderService;
     private final CandleService candleService;
+    private final LaneExecutor lanes;
+    private final StrategyCheckpointService checkpoints;
 
     @Value("${ml.invest.retrainIfOlderThanHours:12}")
     private int retrainIfOlderThanHours;
@@ -55,9 +65,6 @@ public class MachineLearningInvestStrategy implements TradingStrategy {
     @Value("${ml.invest.maxStubCyclesBeforeRetrain:3}")
     private int maxStubCyclesBeforeRetrain;
 
-    /** Собственный мини-планировщик — изолирован от остальной системы стратегий. */
-    private final ThreadPoolTaskScheduler scheduler = createScheduler();
-
     /** Кэш активных ордеров per chatId (минимально необходимый для логики). */
     private final Map<Long, List<Order>> activeOrders = new ConcurrentHashMap<>();
     /** Универсум символов per chatId. */
@@ -69,6 +76,18 @@ public class MachineLearningInvestStrategy implements TradingStrategy {
     /** Счётчик «пустых» прогнозов per chatId. */
     private final Map<Long, Integer> stubCounters = new ConcurrentHashMap<>();
 
+    /** Обучение — в отдельной фоновой очереди: start() и оценка его не ждут. */
+    private final ExecutorService trainingQueue = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "ml-invest-train");
+        t.setDaemon(true);
+        return t;
+    });
+    /** Чаты, для которых обучение уже стоит в очереди или идёт. */
+    private final Set<Long> trainingInFlight = ConcurrentHashMap.newKeySet();
+
+    /** Снимок для быстрого рестарта: без подбора универсума и без обращения к состоянию модели. */
+    public record Checkpoint(List<Order> activeOrders, List<String> universe, String modelRef) { }
+
     /* ==================== TradingStrategy API ==================== */
 
     @Override
@@ -79,6 +98,19 @@ public class MachineLearningInvestStrategy implements TradingStrategy {
     @Override
     public void start(Long chatId) {
         MachineLearningInvestStrategySettings s = settingsService.getOrCreate(chatId);
+
+        Optional<Checkpoint> cp = checkpoints.restore(chatId, getType(), Checkpoint.class)
+                .filter(c -> c.universe() != null && !c.universe().isEmpty() && !isBlank(c.modelRef()));
+        if (cp.isPresent()) {
+            universeByChat.put(chatId, new ArrayList<>(cp.get().universe()));
+            modelRefByChat.put(chatId, cp.get().modelRef());
+            activeOrders.put(chatId, new ArrayList<>(Optional.ofNullable(cp.get().activeOrders()).orElse(List.of())));
+            log.info("[ML] Состояние восстановлено из чекпоинта chatId={} (pairs={}, model={})",
+                    chatId, cp.get().universe().size(), cp.get().modelRef());
+            scheduleEval(chatId);
+            return;
+        }
+
         MlInvestModelState state = modelStateService.getOrCreate(chatId);
 
         // 1) Универсум: выбранные пользователем или авто-подбор
@@ -111,8 +143,9 @@ public class MachineLearningInvestStrategy implements TradingStrategy {
         }
 
         if (needRetrain) {
-            retrainModel(chatId, s, universe);
-            modelRef = modelRefByChat.get(chatId); // после retrain сохраняется сюда
+            // до окончания обучения работаем на прежней модели (если есть) или наблюдаем
+            if (!isBlank(modelRef)) modelRefByChat.put(chatId, modelRef);
+            retrainAsync(chatId, s, universe);
         } else {
             modelRefByChat.put(chatId, modelRef);
             log.info("[ML] Используется модель из БД: {}", modelRef);
@@ -120,18 +153,34 @@ public class MachineLearningInvestStrategy implements TradingStrategy {
 
         // 3) Планируем периодическую оценку
         activeOrders.computeIfAbsent(chatId, k -> new ArrayList<>());
+        scheduleEval(chatId);
+        saveCheckpoint(chatId);
+
+        log.info("[ML] ✅ Стратегия запущена (chatId={}, pairs={}, quota={}, maxTrades={})",
+                chatId, universe.size(), quota(s), maxTrades(s));
+    }
+
+    private void scheduleEval(Long chatId) {
         stubCounters.put(chatId, 0);
         cancelJob(chatId);
         int sec = Math.max(10, evaluateEverySeconds);
-        ScheduledFuture<?> f = scheduler.scheduleAtFixedRate(() -> safeEval(chatId), Duration.ofSeconds(sec));
+        ScheduledFuture<?> f = lanes.scheduleAtFixedRate(ExecutionLane.STRATEGY, "ml-eval:" + chatId,
+                () -> safeEval(chatId), 0, sec, TimeUnit.SECONDS);
         jobs.put(chatId, f);
+    }
 
-        log.info("[ML] ✅ Стратегия запущена (chatId={}, pairs={}, quota={}, maxTrades={})",
-                chatId, universe.size(), quota(s), maxTrades(s));
+    private void saveCheckpoint(Long chatId) {
+        List<String> universe = universeByChat.get(chatId);
+        if (universe == null) return;
+        checkpoints.update(chatId, getType(), new Checkpoint(
+                List.copyOf(activeOrders.getOrDefault(chatId, List.of())),
+                List.copyOf(universe),
+                modelRefByChat.get(chatId)));
     }
 
     @Override
     public void stop(Long chatId) {
+        checkpoints.clear(chatId, getType());
         cancelJob(chatId);
         activeOrders.remove(chatId);
         universeByChat.remove(chatId);
@@ -141,22 +190,14 @@ public class MachineLearningInvestStrategy implements TradingStrategy {
     }
 
     @Override
-    public void onPriceUpdate(Long chatId, double price) {
-        // стратегия ML работает по расписанию, прямые обновления цены не требуются
+    public TickRequest prepareTick(Long chatId) {
+        // стратегия ML работает по своему расписанию, данные тика ей не нужны
+        return null;
     }
 
     @Override
-    public double getCurrentPrice(Long chatId) {
-        try {
-            List<String> uni = universeByChat.get(chatId);
-            if (uni != null && !uni.isEmpty()) {
-                BigDecimal last = lastClose(chatId, uni.get(0), tf(settingsService.getOrCreate(chatId)));
-                return last == null ? 0.0 : last.doubleValue();
-            }
-        } catch (Exception e) {
-            log.warn("[ML] getCurrentPrice error: {}", e.getMessage());
-        }
-        return 0.0;
+    public void onTick(TickContext ctx) {
+        // оценка идёт в safeEval по расписанию модели
     }
 
     /* ==================== внутренняя логика ==================== */
@@ -228,11 +269,33 @@ public class MachineLearningInvestStrategy implements TradingStrategy {
         if (count >= maxStubCyclesBeforeRetrain) {
             log.warn("[ML] Порог ожидания превышен — переобучение модели...");
             var s = settingsService.getOrCreate(chatId);
-            retrainModel(chatId, s, universeByChat.getOrDefault(chatId, List.of()));
+            retrainAsync(chatId, s, universeByChat.getOrDefault(chatId, List.of()));
             stubCounters.put(chatId, 0);
         }
     }
 
+    private void retrainAsync(Long chatId, MachineLearningInvestStrategySettings s, List<String> universe) {
+        if (!trainingInFlight.add(chatId)) {
+            log.debug("[ML] Обучение chatId={} уже в очереди", chatId);
+            return;
+        }
+        List<String> snapshot = List.copyOf(universe);
+        trainingQueue.execute(() -> {
+            try {
+                // стратегию могли остановить, пока задача ждала очереди
+                if (universeByChat.containsKey(chatId)) retrainModel(chatId, s, snapshot);
+            } finally {
+                trainingInFlight.remove(chatId);
+            }
+        });
+        log.info("[ML] Обучение chatId={} поставлено в фоновую очередь", chatId);
+    }
+
+    @PreDestroy
+    private void shutdown() {
+        trainingQueue.shutdownNow();
+    }
+
     private void retrainModel(Long chatId, MachineLearningInvestStrategySettings s, List<String> universe) {
         if (universe == null || universe.isEmpty()) {
             log.warn("[ML] retrainModel: пустой универсум — пропуск");
@@ -262,6 +325,7 @@ public class MachineLearningInvestStrategy implements TradingStrategy {
             modelStateService.saveState(state);
 
             modelRefByChat.put(chatId, modelPath);
+            saveCheckpoint(chatId);
             log.info("[ML] ✅ Модель обучена и сохранена (chatId={}, path={})", chatId, modelPath);
         } catch (Exception e) {
             log.error("[ML] ❌ Ошибка переобучения: {}", e.getMessage(), e);
@@ -270,14 +334,6 @@ public class MachineLearningInvestStrategy implements TradingStrategy {
 
     /* ==================== helpers ==================== */
 
-    private static ThreadPoolTaskScheduler createScheduler() {
-        ThreadPoolTaskScheduler ts = new ThreadPoolTaskScheduler();
-        ts.setPoolSize(2);
-        ts.setThreadNamePrefix("ml-invest-");
-        ts.initialize();
-        return ts;
-    }
-
     private void cancelJob(Long chatId) {
         Optional.ofNullable(jobs.remove(chatId)).ifPresent(f -> f.cancel(false));
     }
@@ -319,6 +375,7 @@ public class MachineLearningInvestStrategy implements TradingStrategy {
                 // SELL — удаляем первую подходящую покупку из кэша (минимально необходимая логика)
                 removeFirstBySymbol(activeOrders.getOrDefault(chatId, new ArrayList<>()), symbol);
             }
+            saveCheckpoint(chatId);
             log.info("[ML] OPEN {} {} qty={} (~{} quote) @ ~{}",
                     side, symbol, qty.stripTrailingZeros(), quoteAmount.stripTrailingZeros(), last.stripTrailingZeros());
         } catch (Exception e) {
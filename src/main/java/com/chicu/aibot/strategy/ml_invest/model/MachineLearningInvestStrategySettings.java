@@ -3,6 +3,7 @@ package com.chicu.aibot.strategy.ml_invest.model;
 import com.chicu.aibot.strategy.StrategyType;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
@@ -119,6 +120,12 @@ public class MachineLearningInvestStrategySettings {
     @Builder.Default
     private boolean active = false;
 
+    /** Версия настроек: сверка перезапускает стратегию, только если она изменилась. Старым строкам — 0. */
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     /** Тип стратегии (для унификации в Telegram-боте) */
     @Builder.Default
     @Enumerated(EnumType.STRING)
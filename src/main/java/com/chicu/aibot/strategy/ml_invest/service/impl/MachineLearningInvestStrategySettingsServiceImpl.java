@@ -3,8 +3,10 @@ package com.chicu.aibot.strategy.ml_invest.service.impl;
 import com.chicu.aibot.strategy.ml_invest.model.MachineLearningInvestStrategySettings;
 import com.chicu.aibot.strategy.ml_invest.repository.MachineLearningInvestStrategySettingsRepository;
 import com.chicu.aibot.strategy.ml_invest.service.MachineLearningInvestStrategySettingsService;
+import com.chicu.aibot.trading.events.StrategySettingsChangedEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -21,6 +23,7 @@ import java.util.Optional;
 public class MachineLearningInvestStrategySettingsServiceImpl implements MachineLearningInvestStrategySettingsService {
 
     private final MachineLearningInvestStrategySettingsRepository repository;
+    private final ApplicationEventPublisher events;
 
     /**
      * Получить настройки без создания, если не найдены — вернуть null.
@@ -99,6 +102,7 @@ public class MachineLearningInvestStrategySettingsServiceImpl implements Machine
                 settings.getChatId(),
                 settings.getSymbol(),
                 settings.getSelectedPairs().size());
+        events.publishEvent(new StrategySettingsChangedEvent(settings.getChatId(), settings.getType()));
         return saved;
     }
 
@@ -114,6 +118,7 @@ public class MachineLearningInvestStrategySettingsServiceImpl implements Machine
 
         settings.setMaxTradesPerQuota(maxTrades);
         MachineLearningInvestStrategySettings updated = repository.save(settings);
+        events.publishEvent(new StrategySettingsChangedEvent(chatId, settings.getType()));
 
         log.info("[ML-Invest] 🔁 Обновлено maxTradesPerQuota={} для chatId={}", maxTrades, chatId);
         return updated;
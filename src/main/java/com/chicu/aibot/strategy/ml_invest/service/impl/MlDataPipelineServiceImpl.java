@@ -4,7 +4,15 @@ import com.chicu.aibot.exchange.client.ExchangeClient;
 import com.chicu.aibot.exchange.client.ExchangeClientFactory;
 import com.chicu.aibot.exchange.service.ExchangeSettingsService;
 import com.chicu.aibot.python.PythonInferenceService;
+import com.chicu.aibot.strategy.indicator.Atr;
+import com.chicu.aibot.strategy.indicator.BarIndicator;
+import com.chicu.aibot.strategy.indicator.IndicatorSeriesCache;
+import com.chicu.aibot.strategy.indicator.Macd;
+import com.chicu.aibot.strategy.indicator.WilderRsi;
+import com.chicu.aibot.strategy.indicator.batch.BarMatrix;
+import com.chicu.aibot.strategy.indicator.batch.MatrixKernels;
 import com.chicu.aibot.strategy.ml_invest.service.MlDataPipelineService;
+import com.chicu.aibot.strategy.model.Candle;
 import com.chicu.aibot.strategy.service.CandleService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -33,6 +41,7 @@ public class MlDataPipelineServiceImpl implements MlDataPipelineService {
     private final ExchangeSettingsService settingsService;
     private final CandleService candleService;
     private final PythonInferenceService py;
+    private final IndicatorSeriesCache indicators;
 
     @Override
     public List<String> pickUniverse(Long chatId, String timeframe, int universeSize, BigDecimal min24hQuoteVolume) {
@@ -69,28 +78,42 @@ public class MlDataPipelineServiceImpl implements MlDataPipelineService {
                 w.write("symbol,timestamp,open,high,low,close,volume,rsi,ema12,ema26,macd,atr,label\n");
 
                 Instant from = Instant.now().minus(Duration.ofDays(Math.max(windowDays, 1)));
+                List<String> loaded = new ArrayList<>();
+                List<List<Candle>> series = new ArrayList<>();
                 for (String sym : symbols) {
                     var candles = candleService.getCandles(chatId, sym, timeframe, 5000);
                     if (candles == null || candles.isEmpty()) continue;
 
                     var filtered = candles.stream()
                             .filter(c -> c.getOpenTime() != null && !c.getOpenTime().isBefore(from))
-                            .sorted(Comparator.comparing(c -> c.getOpenTime()))
                             .toList();
+                    if (!isAscending(filtered)) {
+                        filtered = filtered.stream().sorted(Comparator.comparing(Candle::getOpenTime)).toList();
+                    }
+                    loaded.add(sym);
+                    series.add(filtered);
+                }
 
-                    var feats = IndicatorCalc.computeAll(filtered);
-                    for (var f : feats) {
+                // признаки всех символов одним проходом пакетных ядер; значения — как у потокового FeatureSet
+                FeatureMatrix fm = FeatureMatrix.of(series, MatrixKernels.best());
+                for (int j = 0; j < series.size(); j++) {
+                    String sym = loaded.get(j);
+                    List<Candle> bars = series.get(j);
+                    for (int i = 0; i < bars.size(); i++) {
+                        Candle c = bars.get(i);
+                        int bar = fm.bar(j, i);
                         w.write(String.format(
                                 Locale.US,
                                 "%s,%d,%s,%s,%s,%s,%s,%.6f,%.6f,%.6f,%.6f,%.6f,%s%n",
                                 sym,
-                                f.ts().toEpochMilli(),
-                                f.open().toPlainString(),
-                                f.high().toPlainString(),
-                                f.low().toPlainString(),
-                                f.close().toPlainString(),
-                                f.volume().toPlainString(),
-                                f.rsi(), f.ema12(), f.ema26(), f.macd(), f.atr(),
+                                (c.getOpenTime() == null ? Instant.EPOCH : c.getOpenTime()).toEpochMilli(),
+                                FeatureSet.nz(c.getOpen()).toPlainString(),
+                                FeatureSet.nz(c.getHigh()).toPlainString(),
+                                FeatureSet.nz(c.getLow()).toPlainString(),
+                                FeatureSet.nz(c.getClose()).toPlainString(),
+                                FeatureSet.nz(c.getVolume()).toPlainString(),
+                                fm.rsi.get(bar, j), fm.ema12.get(bar, j), fm.ema26.get(bar, j),
+                                fm.macd(bar, j), fm.atr.get(bar, j),
                                 "" // label пустая — train-скрипт сгенерит сам
                         ));
                         rows++;
@@ -121,16 +144,22 @@ public class MlDataPipelineServiceImpl implements MlDataPipelineService {
         try {
             // mini-CSV: последняя строка фич по каждому символу
             Path tmp = Files.createTempFile("ml_inf_", ".csv");
+            var venue = settingsService.getOrCreate(chatId);
             try (var w = Files.newBufferedWriter(tmp)) {
                 w.write("symbol,timestamp,open,high,low,close,volume,rsi,ema12,ema26,macd,atr\n");
                 for (String sym : symbols) {
                     var candles = candleService.getCandles(chatId, sym, timeframe, 300);
-                    if (candles == null || candles.isEmpty()) continue;
-
-                    var feats = IndicatorCalc.computeAll(candles);
-                    if (feats.isEmpty()) continue;
+                    if (candles == null || candles.size() < 2) continue;
+                    if (!isAscending(candles)) {
+                        candles = candles.stream().sorted(Comparator.comparing(Candle::getOpenTime)).toList();
+                    }
 
-                    var f = feats.get(feats.size() - 1);
+                    // признаки по закрытым барам; состояние ряда общее для всех чатов той же биржи и сети
+                    FeatureSet.Row[] last = new FeatureSet.Row[1];
+                    indicators.get(venue.getExchange(), venue.getNetwork(), sym, timeframe, "ml-features", FeatureSet::new)
+                            .advance(candles.subList(0, candles.size() - 1), fs -> last[0] = fs.last());
+                    var f = last[0];
+                    if (f == null) continue;
                     w.write(String.format(
                             Locale.US,
                             "%s,%d,%s,%s,%s,%s,%s,%.6f,%.6f,%.6f,%.6f,%.6f%n",
@@ -165,52 +194,98 @@ public class MlDataPipelineServiceImpl implements MlDataPipelineService {
         }
     }
 
-    /* ====================== helpers / заглушки индикаторов ====================== */
+    /* ====================== helpers ====================== */
 
-    static class IndicatorCalc {
+    private static boolean isAscending(List<Candle> candles) {
+        for (int i = 1; i < candles.size(); i++) {
+            Instant prev = candles.get(i - 1).getOpenTime();
+            Instant cur = candles.get(i).getOpenTime();
+            if (prev != null && cur != null && cur.isBefore(prev)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Потоковый набор признаков модели: EMA12/EMA26/MACD, RSI(14) Уайлдера, ATR(14).
+     * Строка признаков последнего учтённого бара доступна через {@link #last()}.
+     */
+    static final class FeatureSet implements BarIndicator {
         record Row(Instant ts, BigDecimal open, BigDecimal high, BigDecimal low, BigDecimal close,
                    BigDecimal volume, double rsi, double ema12, double ema26, double macd, double atr) {}
 
-        static List<Row> computeAll(List<com.chicu.aibot.strategy.model.Candle> c) {
-            List<Row> out = new ArrayList<>(c.size());
-            double ema12 = 0.0, ema26 = 0.0, macd = 0.0, atr = 0.0;
-            boolean first = true;
-
-            for (var k : c.stream().sorted(Comparator.comparing(com.chicu.aibot.strategy.model.Candle::getOpenTime)).toList()) {
-                var ts = k.getOpenTime() == null ? Instant.EPOCH : k.getOpenTime();
-                var o = nz(k.getOpen());
-                var h = nz(k.getHigh());
-                var l = nz(k.getLow());
-                var cl = nz(k.getClose());
-                var v = nz(k.getVolume());
-
-                double closeD = cl.doubleValue();
-
-                if (first) {
-                    ema12 = closeD;
-                    ema26 = closeD;
-                    atr = h.subtract(l).abs().doubleValue();
-                    first = false;
-                } else {
-                    ema12 = ema(closeD, ema12, 12);
-                    ema26 = ema(closeD, ema26, 26);
-                    macd = ema12 - ema26;
-                    double tr = Math.max(h.subtract(l).abs().doubleValue(), Math.abs(closeD - ema12));
-                    atr = atr * 0.9 + tr * 0.1;
-                }
+        private final Macd macd = Macd.standard();
+        private final WilderRsi rsi = new WilderRsi(14);
+        private final Atr atr = new Atr(14);
+        private Row last;
+
+        @Override
+        public void update(Candle k) {
+            double close = BarIndicator.close(k);
+            macd.update(close);
+            rsi.update(close);
+            atr.update(k);
+            last = new Row(
+                    k.getOpenTime() == null ? Instant.EPOCH : k.getOpenTime(),
+                    nz(k.getOpen()), nz(k.getHigh()), nz(k.getLow()), nz(k.getClose()), nz(k.getVolume()),
+                    rsi.value(), macd.fastEma(), macd.slowEma(), macd.line(), atr.value());
+        }
+
+        Row last() {
+            return last;
+        }
 
-                double rsi = 50.0; // заглушка RSI
+        @Override
+        public boolean isReady() {
+            return macd.isReady() && rsi.isReady() && atr.isReady();
+        }
 
-                out.add(new Row(ts, o, h, l, cl, v, rsi, ema12, ema26, macd, atr));
-            }
-            return out;
+        @Override
+        public void reset() {
+            macd.reset();
+            rsi.reset();
+            atr.reset();
+            last = null;
         }
 
-        private static double ema(double price, double prevEma, int period) {
-            double k = 2.0 / (period + 1.0);
-            return prevEma + k * (price - prevEma);
+        static BigDecimal nz(BigDecimal v) { return v == null ? BigDecimal.ZERO : v; }
+    }
+
+    /**
+     * Те же признаки, что у {@link FeatureSet}, но для всех символов датасета сразу: матрицы бар × символ,
+     * ряды выровнены по хвосту ({@link BarMatrix#of}). Значения на каждом баре совпадают с потоковыми.
+     */
+    static final class FeatureMatrix {
+        final List<List<Candle>> series;
+        final BarMatrix ema12;
+        final BarMatrix ema26;
+        final BarMatrix rsi;
+        final BarMatrix atr;
+
+        private FeatureMatrix(List<List<Candle>> series, BarMatrix ema12, BarMatrix ema26, BarMatrix rsi, BarMatrix atr) {
+            this.series = series;
+            this.ema12 = ema12;
+            this.ema26 = ema26;
+            this.rsi = rsi;
+            this.atr = atr;
+        }
+
+        static FeatureMatrix of(List<List<Candle>> series, MatrixKernels k) {
+            BarMatrix close = BarMatrix.of(series, BarIndicator::close);
+            BarMatrix high = BarMatrix.of(series, BarIndicator::high);
+            BarMatrix low = BarMatrix.of(series, BarIndicator::low);
+            return new FeatureMatrix(series,
+                    k.ema(close, 12), k.ema(close, 26), k.rsi(close, 14),
+                    k.wilder(k.trueRange(high, low, close), 14));
         }
 
-        private static BigDecimal nz(BigDecimal v) { return v == null ? BigDecimal.ZERO : v; }
+        /** Строка матрицы для i-й свечи символа j. */
+        int bar(int symbol, int i) {
+            return ema12.bars() - series.get(symbol).size() + i;
+        }
+
+        /** Линия MACD(12, 26), как {@link Macd#line()}. */
+        double macd(int bar, int symbol) {
+            return ema12.get(bar, symbol) - ema26.get(bar, symbol);
+        }
     }
 }
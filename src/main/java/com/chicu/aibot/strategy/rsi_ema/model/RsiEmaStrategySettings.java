@@ -0,0 +1,67 @@
+package com.chicu.aibot.strategy.rsi_ema.model;
+
+import com.chicu.aibot.strategy.StrategySettings;
+import com.chicu.aibot.strategy.StrategyType;
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+
+@Entity
+@Table(name = "rsi_ema_strategy_settings")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@SuperBuilder
+@EqualsAndHashCode(callSuper = true)
+public class RsiEmaStrategySettings extends StrategySettings {
+
+    @Column(name = "symbol", nullable = false)
+    private String symbol;
+
+    @Column(name = "timeframe", nullable = false)
+    private String timeframe;
+
+    /** Глубина окна для прогрева индикаторов; дальше стратегия догружает только хвост. */
+    @Column(name = "cached_candles_limit", nullable = false)
+    private Integer cachedCandlesLimit;
+
+    @Column(name = "order_volume", nullable = false)
+    private Double orderVolume;
+
+    @Column(name = "rsi_period", nullable = false)
+    private Integer rsiPeriod;
+
+    @Column(name = "rsi_overbought", nullable = false)
+    private Double rsiOverbought;
+
+    @Column(name = "rsi_oversold", nullable = false)
+    private Double rsiOversold;
+
+    /** EMA — фильтр тренда: лонг только выше неё, шорт — только ниже. */
+    @Column(name = "ema_period", nullable = false)
+    private Integer emaPeriod;
+
+    @Column(name = "take_profit_pct", nullable = false)
+    private Double takeProfitPct;
+
+    @Column(name = "stop_loss_pct", nullable = false)
+    private Double stopLossPct;
+
+    @Column(name = "allow_long", nullable = false)
+    private Boolean allowLong;
+
+    @Column(name = "allow_short", nullable = false)
+    private Boolean allowShort;
+
+    @Column(name = "active", nullable = false)
+    private boolean active;
+
+    @Version
+    private Long version;
+
+    @Override public StrategyType getType() { return StrategyType.RSI_EMA; }
+    @Override public String getTimeframe() { return timeframe; }
+    @Override public Integer getCachedCandlesLimit() { return cachedCandlesLimit; }
+    @Override public boolean isActive() { return active; }
+    @Override public void setActive(boolean active) { this.active = active; }
+}
@@ -0,0 +1,8 @@
+package com.chicu.aibot.strategy.rsi_ema.service;
+
+import com.chicu.aibot.strategy.rsi_ema.model.RsiEmaStrategySettings;
+
+public interface RsiEmaStrategySettingsService {
+    RsiEmaStrategySettings getOrCreate(Long chatId);
+    RsiEmaStrategySettings save(RsiEmaStrategySettings s);
+}
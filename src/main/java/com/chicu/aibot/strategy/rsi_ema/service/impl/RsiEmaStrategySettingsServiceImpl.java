@@ -0,0 +1,67 @@
+package com.chicu.aibot.strategy.rsi_ema.service.impl;
+
+import com.chicu.aibot.strategy.common.DefaultTradingParamsResolver;
+import com.chicu.aibot.strategy.rsi_ema.model.RsiEmaStrategySettings;
+import com.chicu.aibot.strategy.rsi_ema.repository.RsiEmaStrategySettingsRepository;
+import com.chicu.aibot.strategy.rsi_ema.service.RsiEmaStrategySettingsService;
+import com.chicu.aibot.trading.events.StrategySettingsChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RsiEmaStrategySettingsServiceImpl implements RsiEmaStrategySettingsService {
+
+    private final RsiEmaStrategySettingsRepository repo;
+    private final DefaultTradingParamsResolver defaults;
+    private final ApplicationEventPublisher events;
+
+    @Value("${trading.defaults.symbol:BTCUSDT}")
+    private String defaultSymbolProp;
+
+    @Value("${trading.defaults.timeframe.rsi-ema:1h}")
+    private String defaultTfProp;
+
+    @Override
+    @Transactional
+    public RsiEmaStrategySettings getOrCreate(Long chatId) {
+        return repo.findById(chatId).orElseGet(() -> {
+            final String symbol    = defaults.resolveSymbol(chatId, defaultSymbolProp, "BTCUSDT");
+            final String timeframe = defaults.resolveTimeframe(chatId, defaultTfProp, "1h");
+
+            log.info("⚙️ Не найдены настройки RSI+EMA для chatId={}, создаю по умолчанию (symbol={}, tf={})",
+                    chatId, symbol, timeframe);
+
+            RsiEmaStrategySettings def = new RsiEmaStrategySettings();
+            def.setChatId(chatId);
+            def.setSymbol(symbol);
+            def.setTimeframe(timeframe);
+            def.setCachedCandlesLimit(200);
+            def.setOrderVolume(1.0);
+            def.setRsiPeriod(14);
+            def.setRsiOverbought(70.0);
+            def.setRsiOversold(30.0);
+            def.setEmaPeriod(50);
+            def.setTakeProfitPct(1.5);
+            def.setStopLossPct(1.0);
+            def.setAllowLong(true);
+            def.setAllowShort(false);
+            def.setActive(false);
+            return repo.saveAndFlush(def);
+        });
+    }
+
+    @Override
+    @Transactional
+    public RsiEmaStrategySettings save(RsiEmaStrategySettings settings) {
+        log.info("💾 Сохраняю настройки RSI+EMA для chatId={}", settings.getChatId());
+        RsiEmaStrategySettings saved = repo.saveAndFlush(settings);
+        events.publishEvent(new StrategySettingsChangedEvent(settings.getChatId(), settings.getType()));
+        return saved;
+    }
+}
@@ -1,18 +1,22 @@
 package com.chicu.aibot.strategy.scalping;
 
 import com.chicu.aibot.strategy.StrategyType;
+import com.chicu.aibot.strategy.TickContext;
+import com.chicu.aibot.strategy.TickRequest;
 import com.chicu.aibot.strategy.TradingStrategy;
 import com.chicu.aibot.strategy.model.Candle;
 import com.chicu.aibot.strategy.model.Order;
 import com.chicu.aibot.strategy.scalping.model.ScalpingStrategySettings;
 import com.chicu.aibot.strategy.scalping.service.ScalpingStrategySettingsService;
-import com.chicu.aibot.strategy.service.CandleService;
 import com.chicu.aibot.strategy.service.OrderService;
+import com.chicu.aibot.trading.checkpoint.StrategyCheckpointService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.time.Clock;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 @RequiredArgsConstructor
@@ -20,12 +24,16 @@ import java.util.*;
 public class ScalpingStrategy implements TradingStrategy {
 
     private final ScalpingStrategySettingsService settingsService;
-    private final CandleService candleService;
     private final OrderService orderService;
+    private final StrategyCheckpointService checkpoints;
+    private final Clock clock;
 
-    private final Map<Long, List<Order>> activeOrders = new HashMap<>();
+    private final Map<Long, List<Order>> activeOrders = new ConcurrentHashMap<>();
     // Анти-рывок после рестарта
-    private final Map<Long, Long> nextDecisionAt = new HashMap<>();
+    private final Map<Long, Long> nextDecisionAt = new ConcurrentHashMap<>();
+
+    /** Снимок для быстрого рестарта. */
+    public record Checkpoint(List<Order> activeOrders, long nextDecisionAt) { }
 
     @Override
     public StrategyType getType() {
@@ -38,7 +46,27 @@ public class ScalpingStrategy implements TradingStrategy {
         activeOrders.put(chatId, new ArrayList<>());
         log.info("SCALPING стартовал для chatId={}", chatId);
 
+        // Мягкий старт: 15 сек без решений
+        long softStart = clock.millis() + 15_000;
+
+        Optional<Checkpoint> cp = checkpoints.restore(chatId, getType(), Checkpoint.class);
+        if (cp.isPresent()) {
+            // восстановились из снимка — с биржей сверимся позже в фоне
+            activeOrders.put(chatId, new ArrayList<>(Optional.ofNullable(cp.get().activeOrders()).orElse(List.of())));
+            nextDecisionAt.put(chatId, Math.max(softStart, cp.get().nextDecisionAt()));
+            log.info("SCALPING: состояние восстановлено из чекпоинта, ордеров: {}", activeOrders.get(chatId).size());
+            checkpoints.reconcileLater(chatId, getType(), () -> hydrateFromExchange(chatId));
+            return;
+        }
+
         // Гидратация: подтягиваем открытые ордера, чтобы не стрелять повторно после рестарта
+        hydrateFromExchange(chatId);
+        nextDecisionAt.put(chatId, softStart);
+        saveCheckpoint(chatId);
+    }
+
+    private void hydrateFromExchange(Long chatId) {
+        if (!activeOrders.containsKey(chatId)) return; // уже остановлена
         try {
             ScalpingStrategySettings cfg = settingsService.getOrCreate(chatId);
             List<Order> fromExchange = orderService.loadActiveOrders(chatId, cfg.getSymbol());
@@ -48,18 +76,25 @@ public class ScalpingStrategy implements TradingStrategy {
                     if (!o.isCancelled() && !o.isClosed()) cleaned.add(o);
                 }
                 activeOrders.put(chatId, cleaned);
+                saveCheckpoint(chatId);
                 log.info("SCALPING: подхвачено активных ордеров: {}", cleaned.size());
             }
         } catch (Throwable t) {
             log.debug("SCALPING start: гидратация не удалась: {}", t.getMessage());
         }
+    }
 
-        // Мягкий старт: 15 сек без решений
-        nextDecisionAt.put(chatId, System.currentTimeMillis() + 15_000);
+    private void saveCheckpoint(Long chatId) {
+        List<Order> orders = activeOrders.get(chatId);
+        if (orders == null) return;
+        checkpoints.update(chatId, getType(),
+                new Checkpoint(List.copyOf(orders), nextDecisionAt.getOrDefault(chatId, 0L)));
     }
 
     @Override
     public void stop(Long chatId) {
+        checkpoints.clear(chatId, getType());
+        nextDecisionAt.remove(chatId);
         List<Order> orders = activeOrders.remove(chatId);
         if (orders != null) {
             for (Order order : orders) {
@@ -70,22 +105,23 @@ public class ScalpingStrategy implements TradingStrategy {
     }
 
     @Override
-    public void onPriceUpdate(Long chatId, double currentPrice) {
-        ScalpingStrategySettings cfg = settingsService.getOrCreate(chatId);
-
-        // Мягкий старт/кулдаун после рестарта
+    public TickRequest prepareTick(Long chatId) {
+        // Мягкий старт/кулдаун после рестарта — свечи не грузим вовсе
         Long ts = nextDecisionAt.get(chatId);
-        if (ts != null && System.currentTimeMillis() < ts) {
-            return;
+        if (ts != null && clock.millis() < ts) {
+            return null;
         }
+        ScalpingStrategySettings cfg = settingsService.getOrCreate(chatId);
+        return new TickRequest(cfg, cfg.getSymbol(), cfg.getTimeframe(), cfg.getCachedCandlesLimit());
+    }
+
+    @Override
+    public void onTick(TickContext ctx) {
+        if (ctx.isEmpty()) return;
+        Long chatId = ctx.chatId();
+        ScalpingStrategySettings cfg = ctx.settings(ScalpingStrategySettings.class);
 
-        // Берём последние свечи — НОВАЯ сигнатура с chatId
-        List<Candle> candles = candleService.getCandles(
-                chatId,
-                cfg.getSymbol(),
-                cfg.getTimeframe(),
-                cfg.getCachedCandlesLimit()
-        );
+        List<Candle> candles = ctx.candles();
         if (candles.size() < cfg.getWindowSize()) {
             log.debug("Недостаточно свечей: chatId={}, need={}, have={}",
                     chatId, cfg.getWindowSize(), candles.size());
@@ -104,6 +140,8 @@ public class ScalpingStrategy implements TradingStrategy {
         double changePct = ((close - open) / open) * 100.0;
 
         List<Order> orders = activeOrders.computeIfAbsent(chatId, k -> new ArrayList<>());
+        int before = orders.size();
+        boolean placed = false;
 
         if (Math.abs(changePct) >= cfg.getPriceChangeThreshold()) {
             Order.Side side = changePct > 0 ? Order.Side.BUY : Order.Side.SELL;
@@ -114,25 +152,13 @@ public class ScalpingStrategy implements TradingStrategy {
                     cfg.getOrderVolume()
             );
             orders.add(order);
+            placed = true;
             log.info("Сработал сигнал: changePct={}%, side={}, выставлен рыночный ордер qty={}",
                     String.format("%.4f", changePct), side, cfg.getOrderVolume());
         }
 
         // Чистим закрытые/отменённые
         orders.removeIf(o -> o.isClosed() || o.isCancelled());
-    }
-
-    @Override
-    public double getCurrentPrice(Long chatId) {
-        ScalpingStrategySettings cfg = settingsService.getOrCreate(chatId);
-        List<Candle> candles = candleService.getCandles(
-                chatId,
-                cfg.getSymbol(),
-                cfg.getTimeframe(),
-                1
-        );
-        return candles.isEmpty()
-                ? 0.0
-                : candles.getLast().getClose().doubleValue();
+        if (placed || orders.size() != before) saveCheckpoint(chatId);
     }
 }
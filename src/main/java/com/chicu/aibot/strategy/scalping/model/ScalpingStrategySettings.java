@@ -5,6 +5,7 @@ import com.chicu.aibot.strategy.StrategyType;
 import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.SuperBuilder;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
 @Table(name = "scalping_strategy_settings")
@@ -45,6 +46,12 @@ public class ScalpingStrategySettings extends StrategySettings {
     @Column(name = "active", nullable = false)
     private boolean active;
 
+    /** Версия настроек: сверка перезапускает стратегию, только если она изменилась. Старым строкам — 0. */
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @Override
     public StrategyType getType() {
         return StrategyType.SCALPING;
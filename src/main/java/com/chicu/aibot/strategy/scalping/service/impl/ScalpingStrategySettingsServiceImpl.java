@@ -4,9 +4,11 @@ import com.chicu.aibot.strategy.common.DefaultTradingParamsResolver;
 import com.chicu.aibot.strategy.scalping.model.ScalpingStrategySettings;
 import com.chicu.aibot.strategy.scalping.repository.ScalpingStrategySettingsRepository;
 import com.chicu.aibot.strategy.scalping.service.ScalpingStrategySettingsService;
+import com.chicu.aibot.trading.events.StrategySettingsChangedEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -17,6 +19,7 @@ public class ScalpingStrategySettingsServiceImpl implements ScalpingStrategySett
 
     private final ScalpingStrategySettingsRepository repo;
     private final DefaultTradingParamsResolver defaults;
+    private final ApplicationEventPublisher events;
 
     @Value("${trading.defaults.symbol:BTCUSDT}")
     private String defaultSymbolProp;
@@ -58,5 +61,6 @@ public class ScalpingStrategySettingsServiceImpl implements ScalpingStrategySett
     public void save(ScalpingStrategySettings settings) {
         log.info("💾 Сохраняю настройки Scalping для chatId={}", settings.getChatId());
         repo.saveAndFlush(settings);
+        events.publishEvent(new StrategySettingsChangedEvent(settings.getChatId(), settings.getType()));
     }
 }
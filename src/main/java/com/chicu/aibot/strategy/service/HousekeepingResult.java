@@ -7,6 +7,6 @@ import lombok.Value;
 public class HousekeepingResult {
     int buyActive;   // сколько BUY реально осталось
     int sellActive;  // сколько SELL реально осталось
-    int removedDb;   // сколько удалили из БД как несуществующие
+    int removedDb;   // сколько закрыли как пропавшие с биржи (сверка с биржей)
     int cancelled;   // сколько отменили как дубли/лишние
 }
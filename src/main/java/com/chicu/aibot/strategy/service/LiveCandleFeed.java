@@ -0,0 +1,28 @@
+package com.chicu.aibot.strategy.service;
+
+import com.chicu.aibot.exchange.enums.Exchange;
+import com.chicu.aibot.exchange.enums.NetworkType;
+import com.chicu.aibot.strategy.model.Candle;
+
+import java.util.List;
+
+/**
+ * Последние свечи, уже полученные живыми стратегиями. Читатели (теневые стратегии) берут данные
+ * отсюда и сами на биржу не ходят: лишнего веса запросов нет.
+ * Ряды копятся только по тем symbol/timeframe, которые кто-то недавно запрашивал через {@link #watch}.
+ * Ряд определяется и биржей с сетью: свечи testnet и mainnet по одному символу — разные данные.
+ */
+public interface LiveCandleFeed {
+
+    /** Вызывается живым источником после каждой загрузки свечей. */
+    void publish(Exchange exchange, NetworkType network, String symbol, String timeframe, List<Candle> candles);
+
+    /** Отметить интерес к ряду: без него publish() ряд не копит. */
+    void watch(Exchange exchange, NetworkType network, String symbol, String timeframe);
+
+    /** Последние limit свечей (последняя — формирующаяся); пусто — свежих данных нет. */
+    List<Candle> window(Exchange exchange, NetworkType network, String symbol, String timeframe, int limit);
+
+    /** Номер последней публикации ряда; 0 — данных нет. Растёт с каждой публикацией. */
+    long version(Exchange exchange, NetworkType network, String symbol, String timeframe);
+}
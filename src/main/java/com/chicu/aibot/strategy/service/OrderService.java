@@ -1,8 +1,10 @@
 package com.chicu.aibot.strategy.service;
 
+import com.chicu.aibot.strategy.grid.GridLevel;
 import com.chicu.aibot.strategy.model.Order;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
@@ -32,6 +34,23 @@ public interface OrderService {
     /** Закрыть позицию по указанному ордеру */
     void closePosition(Long chatId, Order order);
 
+    /**
+     * Выставить пачку лимиток. По умолчанию — по одной; реализация с пакетным API биржи
+     * может отправить их меньшим числом запросов. Возвращает ордера в порядке уровней.
+     */
+    default List<Order> placeLimits(Long chatId, String symbol, List<GridLevel> levels) {
+        List<Order> placed = new ArrayList<>(levels.size());
+        for (GridLevel l : levels) {
+            placed.add(placeLimit(chatId, symbol, l.side(), l.price(), l.qty()));
+        }
+        return placed;
+    }
+
+    /** Отменить пачку ордеров. По умолчанию — по одному; реализация с пакетным API биржи снимает пачкой. */
+    default void cancelAll(Long chatId, List<Order> orders) {
+        for (Order o : orders) cancel(chatId, o);
+    }
+
     /** Загрузить активные (открытые) ордера */
     default List<Order> loadActiveOrders(Long chatId, String symbol) {
         return Collections.emptyList();
@@ -0,0 +1,10 @@
+package com.chicu.aibot.strategy.service;
+
+import com.chicu.aibot.strategy.TickContext;
+import com.chicu.aibot.strategy.TradingStrategy;
+
+/** Подготовка данных тика: один запрос свечей на тик вместо отдельных за ценой, окном и снимком рынка. */
+public interface TickContextService {
+
+    TickContext prepare(Long chatId, TradingStrategy strategy);
+}
@@ -7,6 +7,7 @@ import com.chicu.aibot.exchange.model.ExchangeSettings;
 import com.chicu.aibot.exchange.service.ExchangeSettingsService;
 import com.chicu.aibot.strategy.model.Candle;
 import com.chicu.aibot.strategy.service.CandleService;
+import com.chicu.aibot.strategy.service.LiveCandleFeed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -20,6 +21,7 @@ public class ExchangeCandleService implements CandleService {
 
     private final ExchangeClientFactory clientFactory;
     private final ExchangeSettingsService settingsService;
+    private final LiveCandleFeed liveFeed;
 
     /**
      * {@inheritDoc}
@@ -47,6 +49,8 @@ public class ExchangeCandleService implements CandleService {
         );
 
         log.debug("Получено {} свечей для {} {}", candles.size(), symbol, timeframe);
+        // теневые стратегии читают те же свечи из ленты, без своих запросов к бирже
+        liveFeed.publish(settings.getExchange(), settings.getNetwork(), symbol, timeframe, candles);
         return candles;
     }
 }
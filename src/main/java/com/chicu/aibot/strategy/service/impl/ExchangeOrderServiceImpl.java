@@ -2,8 +2,11 @@ package com.chicu.aibot.strategy.service.impl;
 
 import com.chicu.aibot.exchange.client.ExchangeClient;
 import com.chicu.aibot.exchange.client.ExchangeClientFactory;
+import com.chicu.aibot.exchange.enums.NetworkType;
 import com.chicu.aibot.exchange.enums.OrderSide;
 import com.chicu.aibot.exchange.model.OrderInfo;
+import com.chicu.aibot.exchange.order.model.ExchangeOrderEntity;
+import com.chicu.aibot.exchange.order.service.OrderLifecycleService;
 import com.chicu.aibot.exchange.service.ExchangeSettingsService;
 import com.chicu.aibot.strategy.model.Order;
 import com.chicu.aibot.strategy.service.OrderService;
@@ -11,9 +14,15 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -23,6 +32,7 @@ public class ExchangeOrderServiceImpl implements OrderService {
     private final ExchangeClientFactory clientFactory;
     private final ExchangeSettingsService settingsService;
     private final OrderExecutionService executionService; // вынесена логика placeLimit/placeMarket
+    private final OrderLifecycleService lifecycle;         // журнал: снятие/исполнение → события
 
     // Анти-дупы для MARKET и анти-спам
     private final java.util.Map<String, Long> lastMarketAttemptTs = new java.util.concurrent.ConcurrentHashMap<>();
@@ -117,11 +127,13 @@ public class ExchangeOrderServiceImpl implements OrderService {
             );
 
             order.setCancelled(true);
+            lifecycle.canceledByOrderId(chatId, id, "CANCELED");
             log.info("Ордер отменён: id={}, symbol={}", id, order.getSymbol());
         } catch (Exception e) {
             String msg = String.valueOf(e.getMessage());
             if (msg.contains("order does not exist") || msg.contains("Unknown order")) {
                 order.setCancelled(true);
+                lifecycle.canceledByOrderId(chatId, order.getId(), "CANCELED");
                 log.info("Биржа вернула, что ордера нет (treat as canceled): {}", order.getId());
             } else {
                 log.warn("Ошибка отмены ордера {}: {}", order.getId(), e.getMessage());
@@ -129,6 +141,52 @@ public class ExchangeOrderServiceImpl implements OrderService {
         }
     }
 
+    /**
+     * Пачка — через {@link ExchangeClient#cancelOrders}: одна пакетная отмена на символ вместо запроса
+     * на каждый ордер (у бирж без пакетного API клиент сам снимает по одному).
+     */
+    @Override
+    public void cancelAll(Long chatId, List<Order> orders) {
+        if (orders == null || orders.isEmpty()) return;
+
+        Map<String, List<Order>> bySymbol = new LinkedHashMap<>();
+        for (Order o : orders) {
+            if (o == null || o.isCancelled() || o.isClosed()) continue;
+            if (o.getId() == null || o.getId().startsWith("REJECTED-") || o.getId().startsWith("SKIPPED-")) {
+                o.setCancelled(true);
+                continue;
+            }
+            bySymbol.computeIfAbsent(o.getSymbol(), k -> new ArrayList<>()).add(o);
+        }
+        if (bySymbol.isEmpty()) return;
+
+        var settings = settingsService.getOrCreate(chatId);
+        var keys     = settingsService.getApiKey(chatId);
+        ExchangeClient client = clientFactory.getClient(settings.getExchange());
+        for (var entry : bySymbol.entrySet()) {
+            List<Order> list = entry.getValue();
+            List<String> ids = list.stream().map(Order::getId).toList();
+            Set<String> gone;
+            try {
+                gone = client.cancelOrders(keys.getPublicKey(), keys.getSecretKey(), settings.getNetwork(),
+                        entry.getKey(), ids);
+            } catch (Exception e) {
+                log.warn("Пакетная отмена {} ордеров {} не удалась: {}", ids.size(), entry.getKey(), e.getMessage());
+                continue;
+            }
+            for (Order o : list) {
+                if (!gone.contains(o.getId())) continue;
+                o.setCancelled(true);
+                lifecycle.canceledByOrderId(chatId, o.getId(), "CANCELED");
+            }
+            if (gone.size() < ids.size()) {
+                log.warn("Пакетная отмена {}: снято {}/{}, остальные остаются открытыми", entry.getKey(), gone.size(), ids.size());
+            } else {
+                log.info("Пакетная отмена {}: снято {} ордеров", entry.getKey(), ids.size());
+            }
+        }
+    }
+
     @Override
     public void closePosition(Long chatId, Order order) {
         if (order == null) return;
@@ -200,6 +258,11 @@ public class ExchangeOrderServiceImpl implements OrderService {
         return result;
     }
 
+    /**
+     * Пакетная сверка: открытые ордера символа — одним запросом; те, что из него пропали, ищутся
+     * в истории символа тоже одним запросом (окно — с самого раннего из них). По одному
+     * дочитываются только ордера старше окна истории или у бирж без пакетных запросов.
+     */
     @Override
     public void refreshOrderStatuses(Long chatId, String symbol, List<Order> cache) {
         if (cache == null) return;
@@ -213,10 +276,7 @@ public class ExchangeOrderServiceImpl implements OrderService {
             }
         }
 
-        var settings = settingsService.getOrCreate(chatId);
-        var keys     = settingsService.getApiKey(chatId);
-        ExchangeClient client = clientFactory.getClient(settings.getExchange());
-
+        List<Order> pending = new ArrayList<>();
         for (Order o : cache) {
             if (o.isCancelled() || o.isClosed()) continue;
             String id = o.getId();
@@ -228,48 +288,105 @@ public class ExchangeOrderServiceImpl implements OrderService {
                 log.debug("refresh: локальный псевдо-ордер {} помечен отменённым", id);
                 continue;
             }
+            pending.add(o);
+        }
+        if (pending.isEmpty()) return;
 
-            try {
-                var opt = client.fetchOrder(
-                        keys.getPublicKey(),
-                        keys.getSecretKey(),
-                        settings.getNetwork(),
-                        symbol,
-                        id
-                );
-
-                if (opt.isEmpty()) {
-                    o.setCancelled(true);
-                    log.info("refresh: биржа не вернула ордер (treat as canceled) id={}", id);
-                    continue;
-                }
+        var settings = settingsService.getOrCreate(chatId);
+        var keys     = settingsService.getApiKey(chatId);
+        ExchangeClient client = clientFactory.getClient(settings.getExchange());
 
-                OrderInfo st = opt.get();
-                String status = normalizeStatus(st.getStatus());
-                double executed = st.getExecutedQty() == null ? 0.0 : st.getExecutedQty().doubleValue();
-                double origQty  = st.getOrigQty() == null ? 0.0 : st.getOrigQty().doubleValue();
-
-                if ("FILLED".equals(status) || (executed >= origQty && origQty > 0.0)) {
-                    o.setFilled(true);
-                    o.setClosed(true);
-                    log.info("refresh: FILLED id={}, executed={}/{}", id, executed, origQty);
-                } else {
-                    if ("CANCELED".equals(status) || "CANCELLED".equals(status)
-                        || "EXPIRED".equals(status) || "REJECTED".equals(status)) {
-                        o.setCancelled(true);
-                        log.info("refresh: {} id={} → помечаем отменённым", status, id);
-                    }
-                    // NEW / PENDING_NEW / другие — оставляем как есть
-                }
-            } catch (Exception e) {
-                String msg = String.valueOf(e.getMessage());
-                if (msg.contains("order does not exist") || msg.contains("Unknown order")) {
-                    o.setCancelled(true);
-                    log.info("refresh: 'order does not exist' → помечаем отменённым id={}", id);
-                } else {
-                    log.debug("Ошибка обновления статуса ордера {}: {}", id, e.getMessage());
-                }
+        Map<String, OrderInfo> states;
+        try {
+            states = bulkStates(client, keys.getPublicKey(), keys.getSecretKey(), settings.getNetwork(),
+                    chatId, symbol, pending);
+        } catch (UnsupportedOperationException e) {
+            states = Map.of();
+        } catch (Exception e) {
+            // пропавший ордер нельзя считать снятым, не зная ответа биржи — сверим на следующем тике
+            log.debug("refresh {}: пакетный запрос не удался: {}", symbol, e.getMessage());
+            return;
+        }
+
+        for (Order o : pending) {
+            OrderInfo st = states.get(o.getId());
+            if (st != null) {
+                apply(chatId, o, st);
+            } else {
+                refreshOne(client, keys.getPublicKey(), keys.getSecretKey(), settings.getNetwork(), chatId, symbol, o);
             }
         }
     }
+
+    /** orderId → состояние: открытые символа, затем история с самого раннего пропавшего. */
+    private Map<String, OrderInfo> bulkStates(ExchangeClient client, String apiKey, String secretKey,
+                                              NetworkType network, Long chatId, String symbol,
+                                              List<Order> pending) {
+        Map<String, OrderInfo> states = new HashMap<>();
+        for (OrderInfo oi : client.fetchOpenOrdersStrict(apiKey, secretKey, network, symbol)) {
+            if (oi.getOrderId() != null) states.put(oi.getOrderId(), oi);
+        }
+
+        Instant since = null;
+        for (Order o : pending) {
+            if (states.containsKey(o.getId())) continue;
+            Instant created = lifecycle.find(chatId, o.getId())
+                    .map(ExchangeOrderEntity::getCreatedAt)
+                    .orElse(Instant.EPOCH); // неизвестен — берём всё окно истории
+            if (since == null || created.isBefore(since)) since = created;
+        }
+        if (since == null) return states;
+
+        try {
+            for (OrderInfo oi : client.fetchOrderHistory(apiKey, secretKey, network, symbol, since.minusSeconds(60))) {
+                if (oi.getOrderId() != null) states.putIfAbsent(oi.getOrderId(), oi);
+            }
+        } catch (UnsupportedOperationException e) {
+            // истории нет — пропавшие дочитаются по одному
+        }
+        return states;
+    }
+
+    /** Переход по состоянию биржи: в журнал — событиями, в кэш стратегии — флагами. */
+    private void apply(Long chatId, Order o, OrderInfo st) {
+        String id = o.getId();
+        lifecycle.sync(chatId, id, st.getStatus(), st.getExecutedQty(), st.getAvgPrice());
+        String status = normalizeStatus(st.getStatus());
+        double executed = st.getExecutedQty() == null ? 0.0 : st.getExecutedQty().doubleValue();
+        double origQty  = st.getOrigQty() == null ? 0.0 : st.getOrigQty().doubleValue();
+
+        if ("FILLED".equals(status) || (executed >= origQty && origQty > 0.0)) {
+            o.setFilled(true);
+            o.setClosed(true);
+            log.info("refresh: FILLED id={}, executed={}/{}", id, executed, origQty);
+        } else {
+            if ("CANCELED".equals(status) || "CANCELLED".equals(status)
+                || "EXPIRED".equals(status) || "REJECTED".equals(status)) {
+                o.setCancelled(true);
+                log.info("refresh: {} id={} → помечаем отменённым", status, id);
+            }
+            // NEW / PENDING_NEW / другие — оставляем как есть
+        }
+    }
+
+    /** По одному: ордер старше окна истории или биржа без пакетных запросов. */
+    private void refreshOne(ExchangeClient client, String apiKey, String secretKey, NetworkType network,
+                            Long chatId, String symbol, Order o) {
+        String id = o.getId();
+        Optional<OrderInfo> opt;
+        try {
+            // пусто — только явное «ордера нет»; таймаут или 5xx ордер не закрывают
+            opt = client.fetchOrderStrict(apiKey, secretKey, network, symbol, id);
+        } catch (Exception e) {
+            log.debug("Ошибка обновления статуса ордера {}: {}", id, e.getMessage());
+            return;
+        }
+        if (opt.isEmpty()) {
+            o.setCancelled(true);
+            lifecycle.canceledByOrderId(chatId, id, "CANCELED");
+            log.info("refresh: биржа ответила, что ордера нет → помечаем отменённым id={}", id);
+            return;
+        }
+        apply(chatId, o, opt.get());
+    }
 }
@@ -0,0 +1,130 @@
+package com.chicu.aibot.strategy.service.impl;
+
+import com.chicu.aibot.exchange.enums.Exchange;
+import com.chicu.aibot.exchange.enums.NetworkType;
+import com.chicu.aibot.strategy.model.Candle;
+import com.chicu.aibot.strategy.service.LiveCandleFeed;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ряды склеиваются из последовательных загрузок: живая стратегия после прогрева тянет хвост
+ * из нескольких баров, а читателю нужно полное окно. Хвост, перекрывающийся с рядом по времени,
+ * заменяет конец ряда; не перекрывающийся (был разрыв) — начинает ряд заново.
+ */
+@Slf4j
+@Service
+public class LiveCandleFeedImpl implements LiveCandleFeed {
+
+    /** Ряды, которые не запрашивали дольше этого срока, перестают копиться. */
+    private static final long WATCH_TTL_MS = 30 * 60 * 1000L;
+
+    @Value("${shadow.feed.max-bars:1000}")
+    private int maxBars;
+
+    private final Map<String, Series> series = new ConcurrentHashMap<>();
+    private final Map<String, Long> watched = new ConcurrentHashMap<>();
+
+    private static final class Series {
+        private List<Candle> bars = List.of();
+        private long updatedMs;
+        private long version;
+    }
+
+    @Override
+    public void publish(Exchange exchange, NetworkType network, String symbol, String timeframe, List<Candle> candles) {
+        if (candles == null || candles.isEmpty() || symbol == null || timeframe == null) return;
+        String key = key(exchange, network, symbol, timeframe);
+        Long seen = watched.get(key);
+        if (seen == null) return;
+        if (System.currentTimeMillis() - seen > WATCH_TTL_MS) {
+            watched.remove(key);
+            series.remove(key);
+            log.debug("Лента свечей {}: читателей нет, ряд сброшен", key);
+            return;
+        }
+        Series s = series.computeIfAbsent(key, k -> new Series());
+        synchronized (s) {
+            s.bars = merge(s.bars, candles, Math.max(1, maxBars));
+            s.updatedMs = System.currentTimeMillis();
+            s.version++;
+        }
+    }
+
+    @Override
+    public void watch(Exchange exchange, NetworkType network, String symbol, String timeframe) {
+        watched.put(key(exchange, network, symbol, timeframe), System.currentTimeMillis());
+    }
+
+    @Override
+    public List<Candle> window(Exchange exchange, NetworkType network, String symbol, String timeframe, int limit) {
+        Series s = series.get(key(exchange, network, symbol, timeframe));
+        if (s == null || limit <= 0) return List.of();
+        synchronized (s) {
+            // ряд давно не обновлялся — живой источник остановлен, данные уже не «текущие»
+            if (System.currentTimeMillis() - s.updatedMs > 2 * timeframeMs(timeframe) + 5_000L) return List.of();
+            int n = s.bars.size();
+            return s.bars.subList(Math.max(0, n - limit), n);
+        }
+    }
+
+    @Override
+    public long version(Exchange exchange, NetworkType network, String symbol, String timeframe) {
+        Series s = series.get(key(exchange, network, symbol, timeframe));
+        if (s == null) return 0L;
+        synchronized (s) {
+            return s.version;
+        }
+    }
+
+    /** Новый неизменяемый ряд: старые бары до начала свежей загрузки + свежая загрузка, не длиннее cap. */
+    private static List<Candle> merge(List<Candle> old, List<Candle> fresh, int cap) {
+        Instant first = fresh.getFirst().getOpenTime();
+        int keep = 0;
+        if (first != null && !old.isEmpty()) {
+            Instant oldLast = old.getLast().getOpenTime();
+            if (oldLast != null && !first.isAfter(oldLast)) {
+                while (keep < old.size()) {
+                    Instant t = old.get(keep).getOpenTime();
+                    if (t == null || !t.isBefore(first)) break;
+                    keep++;
+                }
+            }
+        }
+        int total = keep + fresh.size();
+        int skip = Math.max(0, total - cap);
+        List<Candle> out = new ArrayList<>(Math.min(total, cap));
+        for (int i = Math.min(skip, keep); i < keep; i++) out.add(old.get(i));
+        int freshFrom = Math.max(0, skip - keep);
+        for (int i = freshFrom; i < fresh.size(); i++) out.add(fresh.get(i));
+        return List.copyOf(out);
+    }
+
+    private static long timeframeMs(String tf) {
+        try {
+            long n = Long.parseLong(tf.substring(0, tf.length() - 1));
+            return switch (tf.charAt(tf.length() - 1)) {
+                case 's' -> n * 1_000L;
+                case 'm' -> n * 60_000L;
+                case 'h' -> n * 3_600_000L;
+                case 'd' -> n * 86_400_000L;
+                case 'w' -> n * 604_800_000L;
+                case 'M' -> n * 2_592_000_000L;
+                default -> 60_000L;
+            };
+        } catch (RuntimeException e) {
+            return 60_000L;
+        }
+    }
+
+    private static String key(Exchange exchange, NetworkType network, String symbol, String timeframe) {
+        return exchange + "|" + network + "|" + symbol + "|" + timeframe;
+    }
+}
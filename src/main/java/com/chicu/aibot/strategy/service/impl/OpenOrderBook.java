@@ -0,0 +1,144 @@
+package com.chicu.aibot.strategy.service.impl;
+
+import com.chicu.aibot.exchange.enums.OrderSide;
+import com.chicu.aibot.exchange.order.model.ExchangeOrderEntity;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * NEW-ордера одного чата и символа по сторонам и уровням цены (без ног защитных связок — их ведёт
+ * ExitManager). Ведётся событиями журнала ордеров; {@link #dirty} — с прошлой уборки появился
+ * новый ордер (или её предел изменился), иначе дублей и лишних быть не может.
+ * <p>
+ * Все методы — под монитором книги.
+ */
+final class OpenOrderBook {
+
+    private static final Comparator<ExchangeOrderEntity> BY_UPDATED = Comparator.comparing(
+            ExchangeOrderEntity::getUpdatedAt, Comparator.nullsFirst(Comparator.<Instant>naturalOrder()));
+
+    private final String symbol;
+    private final Map<Long, ExchangeOrderEntity> byId = new HashMap<>();
+    /** Цена → ордера уровня; TreeMap сравнивает compareTo, 1.0 и 1.00 — один уровень. */
+    private final Map<OrderSide, TreeMap<BigDecimal, List<ExchangeOrderEntity>>> levels = new EnumMap<>(OrderSide.class);
+
+    /** Закрытые, пока книга заполнялась из снимка; null — заполнение закончено. */
+    private Set<Long> closedWhileLoading = new HashSet<>();
+
+    private boolean dirty = true;
+    private int limit = -1;
+    /** Закрыто сверкой с биржей с прошлой уборки — уходит в её результат. */
+    private int removedDead;
+
+    OpenOrderBook(String symbol) {
+        this.symbol = symbol;
+        levels.put(OrderSide.BUY, new TreeMap<>());
+        levels.put(OrderSide.SELL, new TreeMap<>());
+    }
+
+    /** Снимок открытых ордеров; состояния, пришедшие событиями раньше, новее снимка. */
+    synchronized void load(List<ExchangeOrderEntity> snapshot) {
+        for (ExchangeOrderEntity e : snapshot) {
+            if (byId.containsKey(e.getId()) || closedWhileLoading.contains(e.getId())) continue;
+            if (tracked(e)) add(e);
+        }
+        closedWhileLoading = null;
+        dirty = true;
+    }
+
+    synchronized void apply(ExchangeOrderEntity s) {
+        remove(s.getId());
+        if (tracked(s)) {
+            add(s);
+            dirty = true;
+        } else if (closedWhileLoading != null) {
+            closedWhileLoading.add(s.getId());
+        }
+    }
+
+    /**
+     * Что снять: на каждом уровне — все, кроме самого свежего (дубли); по стороне — уровни дальше
+     * {@code maxPerSide} от рынка (BUY — выше цена ближе, SELL — ниже). Пусто, если с прошлого раза
+     * ничего не добавилось.
+     */
+    synchronized List<ExchangeOrderEntity> plan(int maxPerSide) {
+        if (!dirty && limit == maxPerSide) return List.of();
+        dirty = false;
+        limit = maxPerSide;
+        List<ExchangeOrderEntity> out = new ArrayList<>();
+        for (OrderSide side : OrderSide.values()) {
+            TreeMap<BigDecimal, List<ExchangeOrderEntity>> book = levels.get(side);
+            NavigableMap<BigDecimal, List<ExchangeOrderEntity>> nearFirst = side == OrderSide.BUY ? book.descendingMap() : book;
+            int kept = 0;
+            for (List<ExchangeOrderEntity> level : nearFirst.values()) {
+                ExchangeOrderEntity keep = level.stream().max(BY_UPDATED).orElseThrow();
+                for (ExchangeOrderEntity e : level) {
+                    if (e != keep) out.add(e);
+                }
+                if (kept < maxPerSide) kept++;
+                else out.add(keep);
+            }
+        }
+        return out;
+    }
+
+    /** Снять удалось не всё — следующая уборка повторит план. */
+    synchronized void retry() {
+        dirty = true;
+    }
+
+    synchronized void deadRemoved() {
+        removedDead++;
+    }
+
+    synchronized int drainRemovedDead() {
+        int n = removedDead;
+        removedDead = 0;
+        return n;
+    }
+
+    synchronized int count(OrderSide side) {
+        int n = 0;
+        for (List<ExchangeOrderEntity> level : levels.get(side).values()) n += level.size();
+        return n;
+    }
+
+    private boolean tracked(ExchangeOrderEntity e) {
+        return "NEW".equals(e.getStatus()) && e.getOrderListId() == null && symbol.equals(e.getSymbol());
+    }
+
+    private void add(ExchangeOrderEntity e) {
+        byId.put(e.getId(), e);
+        levels.get(side(e)).computeIfAbsent(price(e), p -> new ArrayList<>(1)).add(e);
+    }
+
+    private void remove(Long id) {
+        ExchangeOrderEntity prev = byId.remove(id);
+        if (prev == null) return;
+        TreeMap<BigDecimal, List<ExchangeOrderEntity>> book = levels.get(side(prev));
+        BigDecimal price = price(prev);
+        List<ExchangeOrderEntity> level = book.get(price);
+        if (level == null) return;
+        level.removeIf(e -> id.equals(e.getId()));
+        if (level.isEmpty()) book.remove(price);
+    }
+
+    private static OrderSide side(ExchangeOrderEntity e) {
+        return "SELL".equalsIgnoreCase(e.getSide()) ? OrderSide.SELL : OrderSide.BUY;
+    }
+
+    private static BigDecimal price(ExchangeOrderEntity e) {
+        return e.getPrice() == null ? BigDecimal.ZERO : e.getPrice();
+    }
+}
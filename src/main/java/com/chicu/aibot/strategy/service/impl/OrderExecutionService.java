@@ -5,21 +5,18 @@ import com.chicu.aibot.exchange.client.ExchangeClientFactory;
 import com.chicu.aibot.exchange.enums.NetworkType;
 import com.chicu.aibot.exchange.model.*;
 import com.chicu.aibot.exchange.order.model.ExchangeOrderEntity;
-import com.chicu.aibot.exchange.order.repository.ExchangeOrderRepository;
+import com.chicu.aibot.exchange.order.service.OpenOrderIndex;
+import com.chicu.aibot.exchange.order.service.OrderLifecycleService;
 import com.chicu.aibot.exchange.service.ExchangeSettingsService;
 import com.chicu.aibot.exchange.service.PriceService;
 import com.chicu.aibot.exchange.service.SymbolFiltersService;
 import com.chicu.aibot.strategy.model.Order;
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.time.Instant;
-import java.util.List;
-import java.util.Locale;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -30,27 +27,14 @@ public class OrderExecutionService {
 
     private final ExchangeClientFactory clientFactory;
     private final ExchangeSettingsService settingsService;
-    private final ExchangeOrderRepository orderRepo;
+    private final OpenOrderIndex openOrders;
+    private final OrderLifecycleService lifecycle;
 
     private final SymbolFiltersService symbolFiltersService;
     private final PriceService priceService;
 
     /* ---------- utils ---------- */
 
-    private String normalizeStatus(String raw) {
-        if (raw == null) return "NEW";
-        String s = raw.trim().toUpperCase(Locale.ROOT).replace(" ", "").replace("_", "");
-        return switch (s) {
-            case "FILLED" -> "FILLED";
-            case "PARTIALLYFILLED" -> "PARTIALLY_FILLED";
-            case "NEW" -> "NEW";
-            case "CANCELLED", "CANCELED" -> "CANCELED";
-            case "REJECTED" -> "REJECTED";
-            case "EXPIRED" -> "EXPIRED";
-            default -> s;
-        };
-    }
-
     private com.chicu.aibot.exchange.enums.OrderSide mapSide(Order.Side side) {
         return (side == Order.Side.BUY)
                 ? com.chicu.aibot.exchange.enums.OrderSide.BUY
@@ -81,7 +65,6 @@ public class OrderExecutionService {
 
     /* ---------- LIMIT ---------- */
 
-    @Transactional
     public Order placeLimit(Long chatId, String symbol, Order.Side side, double price, double quantity) {
         var settings = settingsService.getOrCreate(chatId);
         var keys     = settingsService.getApiKey(chatId);
@@ -97,8 +80,7 @@ public class OrderExecutionService {
         BigDecimal q = roundToStep(BigDecimal.valueOf(quantity), stepSize);
 
         // анти-дубль: уже есть открытый такой же LIMIT (symbol/side/price/qty)?
-        var openStatuses = List.of("NEW", "PARTIALLY_FILLED");
-        Optional<ExchangeOrderEntity> dup = orderRepo.findTopByChatIdAndExchangeAndNetworkAndSymbolAndSideAndTypeAndPriceAndQuantityAndStatusInOrderByCreatedAtDesc(
+        Optional<OpenOrderIndex.Entry> dup = openOrders.find(
                 chatId,
                 settings.getExchange().name(),
                 settings.getNetwork(),
@@ -106,8 +88,7 @@ public class OrderExecutionService {
                 side.name(),
                 "LIMIT",
                 p,
-                q,
-                openStatuses
+                q
         );
         if (dup.isPresent()) {
             log.info("⛔️ Пропускаем дубль LIMIT {} {}: уже есть открытый ордер @{} qty={}", side, symbol, p, q);
@@ -148,13 +129,12 @@ public class OrderExecutionService {
                     symbol, side, "LIMIT", bdToDouble(p), q.doubleValue(), e.getMessage());
         }
 
-        // Подтягиваем финальные данные (avg price, executed, статус)
-        OrderInfo fetched = fetchOrderSafe(client, keys.getPublicKey(), keys.getSecretKey(),
-                settings.getNetwork(), symbol, resp.getOrderId());
+        // Ответ с исполнением используем как есть; дочитываем, только если статус неизвестен
+        OrderInfo fetched = resp.getStatus() != null ? null : fetchOrderSafe(client, keys.getPublicKey(),
+                keys.getSecretKey(), settings.getNetwork(), symbol, resp.getOrderId());
+        BigDecimal avgPrice = fetched != null ? fetched.getAvgPrice() : resp.getAvgPrice();
 
-        BigDecimal usedPrice = (fetched != null && fetched.getAvgPrice() != null && fetched.getAvgPrice().signum() > 0)
-                ? fetched.getAvgPrice()
-                : p;
+        BigDecimal usedPrice = (avgPrice != null && avgPrice.signum() > 0) ? avgPrice : p;
 
         BigDecimal executedQty = (fetched != null && fetched.getExecutedQty() != null)
                 ? fetched.getExecutedQty()
@@ -164,18 +144,17 @@ public class OrderExecutionService {
 
         return saveExecuted(chatId, settings.getExchange().name(), settings.getNetwork(),
                 side, "LIMIT", bdToDouble(usedPrice), q.doubleValue(), resp.getOrderId(),
-                resp.getSymbol(), executedQty, status);
+                resp.getSymbol(), executedQty, status, commission(fetched, resp), commissionAsset(fetched, resp));
     }
 
     /* ---------- MARKET ---------- */
 
-    @Transactional
     public Order placeMarket(Long chatId, String symbol, Order.Side side, double quantity) {
         var settings = settingsService.getOrCreate(chatId);
         var keys     = settingsService.getApiKey(chatId);
         ExchangeClient client = clientFactory.getClient(settings.getExchange());
 
-        // фильтры + текущая цена для notional
+        // фильтры + текущая цена для notional — из кэшей в памяти
         SymbolFilters filters = symbolFiltersService.getFilters(settings.getExchange(), symbol, settings.getNetwork());
         BigDecimal lastPrice  = priceService.getLastPrice(settings.getExchange(), symbol, settings.getNetwork());
         BigDecimal stepSize   = filters.getStepSize();
@@ -210,8 +189,7 @@ public class OrderExecutionService {
         }
 
         // анти-дубль для MARKET: по qty + side (цену не учитываем, у MARKET её может не быть)
-        var openStatuses = List.of("NEW", "PARTIALLY_FILLED");
-        Optional<ExchangeOrderEntity> dup = orderRepo.findTopByChatIdAndExchangeAndNetworkAndSymbolAndSideAndTypeAndPriceAndQuantityAndStatusInOrderByCreatedAtDesc(
+        Optional<OpenOrderIndex.Entry> dup = openOrders.find(
                 chatId,
                 settings.getExchange().name(),
                 settings.getNetwork(),
@@ -219,8 +197,7 @@ public class OrderExecutionService {
                 side.name(),
                 "MARKET",
                 lastPrice == null ? BigDecimal.ZERO : lastPrice, // храним lastPrice либо 0
-                q,
-                openStatuses
+                q
         );
         if (dup.isPresent()) {
             log.info("⛔️ Пропускаем дубль MARKET {} {} qty={} (уже есть открытый)", side, symbol, q);
@@ -249,6 +226,7 @@ public class OrderExecutionService {
                 .side(mapSide(side))
                 .type(com.chicu.aibot.exchange.enums.OrderType.MARKET)
                 .quantity(q)
+                .price(lastPrice) // подсказка клиенту: цена из кэша вместо ещё одного запроса тикера
                 .build();
 
         OrderResponse resp;
@@ -260,12 +238,13 @@ public class OrderExecutionService {
                     symbol, side, "MARKET", bdToDouble(lastPrice), q.doubleValue(), e.getMessage());
         }
 
-        // Дотягиваем фактические данные (avg price, executed, статус)
-        OrderInfo fetched = fetchOrderSafe(client, keys.getPublicKey(), keys.getSecretKey(),
-                settings.getNetwork(), symbol, resp.getOrderId());
+        // Ответ с исполнением используем как есть; дочитываем, только если статус неизвестен
+        OrderInfo fetched = resp.getStatus() != null ? null : fetchOrderSafe(client, keys.getPublicKey(),
+                keys.getSecretKey(), settings.getNetwork(), symbol, resp.getOrderId());
+        BigDecimal avgPrice = fetched != null ? fetched.getAvgPrice() : resp.getAvgPrice();
 
-        BigDecimal usedPrice = (fetched != null && fetched.getAvgPrice() != null && fetched.getAvgPrice().signum() > 0)
-                ? fetched.getAvgPrice()
+        BigDecimal usedPrice = (avgPrice != null && avgPrice.signum() > 0)
+                ? avgPrice
                 : (lastPrice != null ? lastPrice : BigDecimal.ZERO);
 
         BigDecimal executedQty = (fetched != null && fetched.getExecutedQty() != null)
@@ -273,10 +252,31 @@ public class OrderExecutionService {
                 : (resp.getExecutedQty() != null ? resp.getExecutedQty() : q); // fallback — заданный/подставленный объём
 
         String status = fetched != null ? fetched.getStatus() : resp.getStatus();
+        BigDecimal fee = commission(fetched, resp);
+        String feeAsset = commissionAsset(fetched, resp);
 
-        return saveExecuted(chatId, settings.getExchange().name(), settings.getNetwork(),
+        Order placed = saveExecuted(chatId, settings.getExchange().name(), settings.getNetwork(),
                 side, "MARKET", bdToDouble(usedPrice), q.doubleValue(), resp.getOrderId(),
-                resp.getSymbol(), executedQty, status);
+                resp.getSymbol(), executedQty, status, fee, feeAsset);
+
+        // комиссия покупки в базовом активе приходит меньшим объёмом: volume — то, что реально можно продать
+        if (side == Order.Side.BUY && fee != null && fee.signum() > 0 && !placed.isRejected()
+                && extractBaseAsset(symbol).equalsIgnoreCase(feeAsset)) {
+            BigDecimal net = roundToStep(executedQty.subtract(fee), stepSize);
+            placed.setVolume(Math.max(0.0, net.doubleValue()));
+            log.info("MARKET BUY {}: исполнено {}, за вычетом комиссии {} {} → {}", symbol, executedQty, fee, feeAsset, net);
+        }
+        return placed;
+    }
+
+    /** Комиссия исполнения: из дочитанного ордера, иначе из ответа на выставление (Binance FULL). */
+    private static BigDecimal commission(OrderInfo fetched, OrderResponse resp) {
+        return fetched != null && fetched.getCommission() != null ? fetched.getCommission() : resp.getCommission();
+    }
+
+    private static String commissionAsset(OrderInfo fetched, OrderResponse resp) {
+        return fetched != null && fetched.getCommissionAsset() != null
+                ? fetched.getCommissionAsset() : resp.getCommissionAsset();
     }
 
     private OrderInfo fetchOrderSafe(ExchangeClient client,
@@ -297,27 +297,9 @@ public class OrderExecutionService {
     private Order saveRejected(Long chatId, String exchange, NetworkType network,
                                String symbol, Order.Side side, String type,
                                double price, double quantity, String reason) {
-        Instant now = Instant.now();
-        ExchangeOrderEntity entity = ExchangeOrderEntity.builder()
-                .chatId(chatId)
-                .exchange(exchange)
-                .network(network)
-                .orderId("REJECTED-" + UUID.randomUUID())
-                .symbol(symbol)
-                .side(side.name())
-                .type(type)
-                .price(BigDecimal.valueOf(price))
-                .quantity(BigDecimal.valueOf(quantity))
-                .executedQty(BigDecimal.ZERO)
-                .quoteQty(BigDecimal.ZERO)
-                .commission(BigDecimal.ZERO)
-                .commissionAsset("NONE")
-                .status("REJECTED")
-                .createdAt(now)
-                .updatedAt(now)
-                .build();
-
-        orderRepo.save(entity);
+        ExchangeOrderEntity placed = lifecycle.placed(draft(chatId, exchange, network, symbol, side, type,
+                BigDecimal.valueOf(price), BigDecimal.valueOf(quantity), "REJECTED-" + UUID.randomUUID()));
+        ExchangeOrderEntity entity = lifecycle.rejected(placed.getId(), reason);
         log.info("💾 REJECTED ордер {} {} qty={} причина={}", side, symbol, quantity, reason);
 
         return toDomain(entity);
@@ -327,34 +309,16 @@ public class OrderExecutionService {
                                Order.Side side, String type,
                                double priceUsed, double quantityRequested,
                                String orderId, String respSymbol,
-                               BigDecimal executedQty, String rawStatus) {
-        Instant now = Instant.now();
-
-        String status = normalizeStatus(rawStatus);
+                               BigDecimal executedQty, String rawStatus,
+                               BigDecimal commission, String commissionAsset) {
         BigDecimal usedPrice = BigDecimal.valueOf(priceUsed);
-        BigDecimal qtyReq    = BigDecimal.valueOf(quantityRequested);
-        BigDecimal execQty   = executedQty != null ? executedQty : BigDecimal.ZERO;
-
-        ExchangeOrderEntity entity = ExchangeOrderEntity.builder()
-                .chatId(chatId)
-                .exchange(exchange)
-                .network(network)
-                .orderId(orderId != null ? orderId : ("LOCAL-" + UUID.randomUUID()))
-                .symbol(respSymbol != null ? respSymbol : "UNKNOWN")
-                .side(side.name())
-                .type(type)
-                .price(usedPrice)
-                .quantity(qtyReq)
-                .executedQty(execQty)
-                .quoteQty(usedPrice.multiply(execQty))
-                .commission(BigDecimal.ZERO)
-                .commissionAsset("UNKNOWN")
-                .status(status != null ? status : "NEW")
-                .createdAt(now)
-                .updatedAt(now)
-                .build();
 
-        orderRepo.save(entity);
+        // PLACED → ACK → (PARTIAL_)FILL / CANCEL / REJECT по ответу биржи
+        ExchangeOrderEntity placed = lifecycle.placed(draft(chatId, exchange, network,
+                respSymbol != null ? respSymbol : "UNKNOWN", side, type, usedPrice, BigDecimal.valueOf(quantityRequested),
+                orderId != null ? orderId : "LOCAL-" + UUID.randomUUID()));
+        ExchangeOrderEntity entity = lifecycle.acknowledged(placed.getId(), orderId, rawStatus,
+                executedQty != null ? executedQty : BigDecimal.ZERO, usedPrice, commission, commissionAsset);
 
         log.info("💾 Ордер сохранён: {} {} reqQty={} execQty={} @{} статус={} комиссия={} {}",
                 side, entity.getSymbol(), entity.getQuantity(), entity.getExecutedQty(), entity.getPrice(),
@@ -363,6 +327,26 @@ public class OrderExecutionService {
         return toDomain(entity);
     }
 
+    /**
+     * orderId не бывает пустым: без id биржи — локальный REJECTED-/LOCAL-, как раньше. По нему стратегии
+     * различают ордера (FibonacciGridStrategy.collectFills), а пустые id у разных ордеров совпали бы.
+     */
+    private static ExchangeOrderEntity draft(Long chatId, String exchange, NetworkType network,
+                                             String symbol, Order.Side side, String type,
+                                             BigDecimal price, BigDecimal quantity, String orderId) {
+        return ExchangeOrderEntity.builder()
+                .chatId(chatId)
+                .orderId(orderId)
+                .exchange(exchange)
+                .network(network)
+                .symbol(symbol)
+                .side(side.name())
+                .type(type)
+                .price(price)
+                .quantity(quantity)
+                .build();
+    }
+
     private Order toDomain(ExchangeOrderEntity e) {
         return new Order(
                 e.getOrderId(),
@@ -376,4 +360,18 @@ public class OrderExecutionService {
                 "REJECTED".equalsIgnoreCase(e.getStatus())
         );
     }
+
+    private Order toDomain(OpenOrderIndex.Entry e) {
+        return new Order(
+                e.orderId(),
+                e.symbol(),
+                Order.Side.valueOf(e.side()),
+                bdToDouble(e.price()),
+                bdToDouble(e.executedQty()),
+                false,
+                false,
+                false,
+                false
+        );
+    }
 }
@@ -2,22 +2,38 @@ package com.chicu.aibot.strategy.service.impl;
 
 import com.chicu.aibot.exchange.client.ExchangeClient;
 import com.chicu.aibot.exchange.enums.OrderSide;
+import com.chicu.aibot.exchange.model.OrderInfo;
 import com.chicu.aibot.exchange.order.model.ExchangeOrderEntity;
-import com.chicu.aibot.exchange.order.repository.ExchangeOrderRepository;
+import com.chicu.aibot.exchange.order.model.OrderEvents;
+import com.chicu.aibot.exchange.order.model.OrderStateChangedEvent;
+import com.chicu.aibot.exchange.order.service.OrderLifecycleService;
 import com.chicu.aibot.exchange.service.ExchangeSettingsService;
 import com.chicu.aibot.strategy.service.HousekeepingResult;
 import com.chicu.aibot.strategy.service.OrderHousekeeperService;
-import jakarta.transaction.Transactional;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
-import java.lang.reflect.Method;
-import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
+/**
+ * Уборка идёт по книге открытых NEW-ордеров чата+символа ({@link OpenOrderBook}), которую ведут
+ * события журнала ордеров. Если с прошлой уборки новых ордеров не появилось, {@link #reconcile}
+ * только отдаёт счётчики — дублей и лишних взяться неоткуда. Снятие — одним пакетом на символ.
+ * <p>
+ * «Мёртвые» записи (на бирже ордера уже нет) ищет отдельный поток: один запрос всех открытых
+ * ордеров на аккаунт, разница с открытыми в памяти; судьба пропавших уточняется по одному.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -26,74 +42,62 @@ public class OrderHousekeeperServiceImpl implements OrderHousekeeperService {
     /** Все доступные клиенты бирж, ключи = имена бинов: "BINANCE", "BYBIT", ... */
     private final Map<String, ExchangeClient> exchangeClients;
 
-    private final ExchangeOrderRepository orderRepo;
+    /** Открытые ордера — из проекции в памяти; снятие — событие CANCEL в журнал. */
+    private final OrderLifecycleService lifecycle;
 
     /** Нужен для получения apiKey/secretKey и сети по chatId. */
     private final ExchangeSettingsService settingsService;
 
-    /**
-     * - Дедуп по ключу (side + нормализованный price-строкой).
-     * - Оставляем самый свежий (updatedAt максимальный), остальные отменяем на бирже (если есть id) и удаляем из БД.
-     * - Ограничиваем число активных ордеров на сторону (maxActivePerSide): ближние к рынку оставляем.
-     * - Закрытые (FILLED/CANCELED/...) не трогаем (мы работаем только со статусом NEW).
-     */
-    @Override
-    @Transactional
-    public HousekeepingResult reconcile(Long chatId, String symbol, int maxActivePerSide) {
-        // Берём только "NEW"
-        List<ExchangeOrderEntity> dbOpen = orderRepo.findByChatIdAndSymbolAndStatus(chatId, symbol, "NEW");
-
-        // 1) Дедупликация по (side + priceKey)
-        Map<String, List<ExchangeOrderEntity>> buckets = new HashMap<>();
-        for (ExchangeOrderEntity o : dbOpen) {
-            String side = o.getSide() == null ? "?" : o.getSide();
-            String priceKey = (o.getPrice() == null) ? "0" : toPriceKey(o.getPrice());
-            String key = side + "@" + priceKey;
-            buckets.computeIfAbsent(key, k -> new ArrayList<>()).add(o);
-        }
+    @Value("${orders.housekeeper.dead-check-ms:60000}")
+    private long deadCheckMs;
 
-        int cancelledDup = 0;
-        for (var entry : buckets.entrySet()) {
-            List<ExchangeOrderEntity> list = entry.getValue();
-            if (list.size() <= 1) continue;
+    /** Моложе — не трогаем: ордер мог ещё не попасть в выдачу биржи. */
+    @Value("${orders.housekeeper.dead-grace-ms:30000}")
+    private long deadGraceMs;
 
-            // Самый свежий — updatedAt максимальный (null считаем самым старым)
-            list.sort(Comparator.comparing(ExchangeOrderEntity::getUpdatedAt,
-                    Comparator.nullsFirst(Comparator.naturalOrder())));
+    private final Map<String, OpenOrderBook> books = new ConcurrentHashMap<>();
 
-            // Оставляем последний, остальные отменяем/удаляем
-            for (int i = 0; i < list.size() - 1; i++) {
-                ExchangeOrderEntity dup = list.get(i);
-                if (safeCancelOnExchangeThenDelete(chatId, dup)) {
-                    cancelledDup++;
-                }
-            }
-        }
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "order-housekeeper");
+        t.setDaemon(true);
+        return t;
+    });
 
-        // 2) Ограничиваем per-side
-        List<ExchangeOrderEntity> nowOpen = orderRepo.findByChatIdAndSymbolAndStatus(chatId, symbol, "NEW");
+    @PostConstruct
+    private void init() {
+        if (deadCheckMs > 0) {
+            executor.scheduleWithFixedDelay(this::checkDeadSafe, deadCheckMs, deadCheckMs, TimeUnit.MILLISECONDS);
+        }
+    }
 
-        Map<OrderSide, List<ExchangeOrderEntity>> bySide = nowOpen.stream()
-                .collect(Collectors.groupingBy(e -> {
-                    try {
-                        return OrderSide.valueOf(safeStr(e.getSide()).toUpperCase());
-                    } catch (Exception ignore) { // на случай мусорного значения
-                        return OrderSide.BUY;
-                    }
-                }));
+    @PreDestroy
+    private void shutdown() {
+        executor.shutdownNow();
+    }
 
-        int cancelledExcess = 0;
-        cancelledExcess += trimSide(chatId, bySide.get(OrderSide.BUY),  OrderSide.BUY,  maxActivePerSide);
-        cancelledExcess += trimSide(chatId, bySide.get(OrderSide.SELL), OrderSide.SELL, maxActivePerSide);
+    @EventListener
+    public void onOrderChanged(OrderStateChangedEvent e) {
+        ExchangeOrderEntity s = e.state();
+        OpenOrderBook book = books.get(key(s.getChatId(), s.getSymbol()));
+        if (book != null) book.apply(s);
+    }
 
-        int leftBuy  = (int) orderRepo.countByChatIdAndSymbolAndStatusAndSide(chatId, symbol, "NEW", OrderSide.BUY);
-        int leftSell = (int) orderRepo.countByChatIdAndSymbolAndStatusAndSide(chatId, symbol, "NEW", OrderSide.SELL);
+    /**
+     * - Дедуп по уровню цены стороны: оставляем самый свежий (updatedAt), остальные снимаем.
+     * - Ограничиваем число активных ордеров на сторону (maxActivePerSide): ближние к рынку оставляем.
+     * - Закрытые (FILLED/CANCELED/...) и ноги TP/SL не трогаем — в книге только NEW без orderListId.
+     */
+    @Override
+    public HousekeepingResult reconcile(Long chatId, String symbol, int maxActivePerSide) {
+        OpenOrderBook book = book(chatId, symbol);
+        List<ExchangeOrderEntity> excess = book.plan(maxActivePerSide);
+        int cancelled = excess.isEmpty() ? 0 : cancelBatch(chatId, symbol, excess, book);
 
         HousekeepingResult res = HousekeepingResult.builder()
-                .buyActive(leftBuy)
-                .sellActive(leftSell)
-                .removedDb(0) // здесь «мёртвые» по сверке с биржей не чистим
-                .cancelled(cancelledDup + cancelledExcess)
+                .buyActive(book.count(OrderSide.BUY))
+                .sellActive(book.count(OrderSide.SELL))
+                .removedDb(book.drainRemovedDead())
+                .cancelled(cancelled)
                 .build();
 
         if (res.getRemovedDb() > 0 || res.getCancelled() > 0) {
@@ -103,88 +107,132 @@ public class OrderHousekeeperServiceImpl implements OrderHousekeeperService {
         return res;
     }
 
-    /** Ограничение числа активных ордеров на сторону: оставляем ближние к рынку. */
-    private int trimSide(Long chatId, List<ExchangeOrderEntity> sideList, OrderSide side, int maxActivePerSide) {
-        if (sideList == null || sideList.size() <= maxActivePerSide) return 0;
-
-        // Для BUY — выше цена приоритетнее, для SELL — ниже.
-        sideList.sort((a, b) -> {
-            BigDecimal pa = a.getPrice() == null ? BigDecimal.ZERO : a.getPrice();
-            BigDecimal pb = b.getPrice() == null ? BigDecimal.ZERO : b.getPrice();
-            int cmp = pa.compareTo(pb);
-            return (side == OrderSide.BUY) ? -cmp : cmp;
-        });
+    /** Книга регистрируется до снимка: события, пришедшие во время заполнения, не теряются. */
+    private OpenOrderBook book(Long chatId, String symbol) {
+        String key = key(chatId, symbol);
+        OpenOrderBook book = books.get(key);
+        if (book != null) return book;
+        OpenOrderBook created = new OpenOrderBook(symbol);
+        book = books.putIfAbsent(key, created);
+        if (book != null) return book;
+        created.load(lifecycle.open(chatId, symbol));
+        return created;
+    }
 
+    /**
+     * Снятие пакетом: биржа получает список orderId символа, снятые (или уже отсутствующие)
+     * закрываются событием CANCEL. Записи без orderId закрываются только у себя.
+     */
+    private int cancelBatch(Long chatId, String symbol, List<ExchangeOrderEntity> orders, OpenOrderBook book) {
         int cancelled = 0;
-        for (int i = maxActivePerSide; i < sideList.size(); i++) {
-            ExchangeOrderEntity excess = sideList.get(i);
-            if (safeCancelOnExchangeThenDelete(chatId, excess)) {
+        Map<String, List<ExchangeOrderEntity>> byExchange = new LinkedHashMap<>();
+        for (ExchangeOrderEntity o : orders) {
+            if (o.getOrderId() == null || o.getOrderId().isBlank()) {
+                lifecycle.canceled(o.getId(), "CANCELED", "housekeeper: no exchange id");
                 cancelled++;
+                continue;
             }
+            byExchange.computeIfAbsent(safeStr(o.getExchange()).trim(), k -> new ArrayList<>()).add(o);
         }
-        return cancelled;
-    }
+        if (byExchange.isEmpty()) return cancelled;
 
-    /**
-     * Отмена на бирже для конкретной записи.
-     * Берём exchange из сущности, подбираем нужный клиент.
-     * Используем orderId, а если пуст — clientOrderId (origClientOrderId / orderLinkId).
-     * Если оба пустые — удаляем только из БД.
-
-     * ВАЖНО: ответы биржи вида -2011 / "Unknown order" трактуем как «уже отменён» → удаляем запись из БД.
-     */
-    private boolean safeCancelOnExchangeThenDelete(Long chatId, ExchangeOrderEntity o) {
-        String orderId       = safeStr(o.getOrderId());
-        String clientOrderId = getClientOrderIdSoft(o);
-
-        if (orderId.isBlank() && clientOrderId.isBlank()) {
-            orderRepo.delete(o);
-            log.info("HK cancel skip (no ids) → deleted only from DB: dbId={}", o.getId());
-            return true;
+        var settings = settingsService.getOrCreate(chatId);
+        var keys     = settingsService.getApiKey(chatId);
+        boolean partial = false;
+        for (var entry : byExchange.entrySet()) {
+            List<ExchangeOrderEntity> list = entry.getValue();
+            List<String> ids = list.stream().map(ExchangeOrderEntity::getOrderId).toList();
+            Set<String> gone;
+            try {
+                gone = resolveClient(entry.getKey()).cancelOrders(
+                        keys.getPublicKey(), keys.getSecretKey(), settings.getNetwork(), symbol, ids);
+            } catch (Exception e) {
+                log.warn("HK cancel batch failed: exchange={}, symbol={}, orders={}, reason={}",
+                        entry.getKey(), symbol, ids.size(), e.getMessage());
+                partial = true;
+                continue;
+            }
+            for (ExchangeOrderEntity o : list) {
+                if (gone.contains(o.getOrderId())) {
+                    lifecycle.canceled(o.getId(), "CANCELED", "housekeeper");
+                    cancelled++;
+                } else {
+                    partial = true;
+                }
+            }
+            log.info("HK cancelled on exchange: exchange={}, symbol={}, {}/{}", entry.getKey(), symbol, gone.size(), ids.size());
         }
+        if (partial) book.retry();
+        return cancelled;
+    }
 
-        String exchangeName = safeStr(o.getExchange()).trim();
-        ExchangeClient client = resolveClient(exchangeName);
+    /* ================= мёртвые записи ================= */
 
+    private void checkDeadSafe() {
         try {
-            // получаем apiKey/secret/network для этого пользователя
-            var settings = settingsService.getOrCreate(chatId);
-            var keys     = settingsService.getApiKey(chatId);
-
-            // Порядок аргументов соответствует интерфейсу:
-            // String,String,String,String,NetworkType,String,String
-            client.cancelOrder(
-                    exchangeName,                              // exchange
-                    safeStr(o.getSymbol()),                    // symbol
-                    keys.getPublicKey(),                       // apiKey
-                    keys.getSecretKey(),                       // secretKey
-                    settings.getNetwork(),                     // network
-                    orderId.isBlank() ? null : orderId,        // orderId
-                    clientOrderId.isBlank() ? null : clientOrderId // clientOrderId
-            );
-
-            orderRepo.delete(o);
-            log.info("HK cancelled on exchange and removed from DB: exchange={}, dbId={}, orderId={}, clientOrderId={}",
-                    exchangeName, o.getId(), orderId, clientOrderId);
-            return true;
-
+            checkDead();
         } catch (Exception e) {
-            String msg = String.valueOf(e.getMessage());
-            // Трактуем «уже нет на бирже» как успех
-            if (msg.contains("\"code\":-2011") || msg.contains("Unknown order")) {
-                orderRepo.delete(o);
-                log.info("HK treat cancel as success (-2011/Unknown order). Removed from DB: dbId={}, orderId={}, clientOrderId={}",
-                        o.getId(), orderId, clientOrderId);
-                return true;
+            log.warn("HK dead-check failed: {}", e.getMessage());
+        }
+    }
+
+    private void checkDead() {
+        Instant cutoff = Instant.now().minusMillis(deadGraceMs);
+        Map<Long, List<ExchangeOrderEntity>> byChat = lifecycle.open().stream()
+                .filter(o -> o.getOrderListId() == null && o.getOrderId() != null)
+                .filter(o -> !OrderEvents.PENDING_NEW.equals(o.getStatus()))
+                .filter(o -> o.getCreatedAt() == null || o.getCreatedAt().isBefore(cutoff))
+                .collect(Collectors.groupingBy(ExchangeOrderEntity::getChatId));
+        for (var entry : byChat.entrySet()) {
+            try {
+                int removed = diffDead(entry.getKey(), entry.getValue());
+                if (removed > 0) log.info("HK dead-check[{}]: закрыто отсутствующих на бирже: {}", entry.getKey(), removed);
+            } catch (UnsupportedOperationException e) {
+                log.debug("HK dead-check[{}]: {}", entry.getKey(), e.getMessage());
+            } catch (Exception e) {
+                log.warn("HK dead-check[{}] failed: {}", entry.getKey(), e.getMessage());
             }
+        }
+    }
 
-            log.warn("HK cancel failed: exchange={}, dbId={}, orderId={}, clientOrderId={}, reason={}",
-                    exchangeName, o.getId(), orderId, clientOrderId, e.getMessage());
-            // Помечаем updatedAt, чтобы запись не «залипала» в этой итерации
-            o.setUpdatedAt(Instant.now());
-            orderRepo.save(o);
-            return false;
+    /** Один запрос открытых ордеров аккаунта; пропавшие из него уточняются по одному. */
+    private int diffDead(Long chatId, List<ExchangeOrderEntity> ours) {
+        var settings = settingsService.getOrCreate(chatId);
+        var keys     = settingsService.getApiKey(chatId);
+        String exchange = settings.getExchange().name();
+        List<ExchangeOrderEntity> mine = new ArrayList<>(ours);
+        mine.removeIf(o -> !exchange.equals(o.getExchange()) || o.getNetwork() != settings.getNetwork());
+        if (mine.isEmpty()) return 0;
+
+        ExchangeClient client = resolveClient(exchange);
+        Set<String> live = client.fetchAllOpenOrders(keys.getPublicKey(), keys.getSecretKey(), settings.getNetwork())
+                .stream().map(OrderInfo::getOrderId).filter(Objects::nonNull).collect(Collectors.toSet());
+
+        int removed = 0;
+        for (ExchangeOrderEntity o : mine) {
+            if (live.contains(o.getOrderId())) continue;
+            // исполнен или снят — это важно для PnL, поэтому спрашиваем биржу;
+            // EXPIRED только на явный ответ «ордера нет», сбой запроса — не повод закрывать
+            Optional<OrderInfo> info;
+            try {
+                info = client.fetchOrderStrict(keys.getPublicKey(), keys.getSecretKey(),
+                        settings.getNetwork(), o.getSymbol(), o.getOrderId());
+            } catch (UnsupportedOperationException e) {
+                throw e;
+            } catch (Exception e) {
+                log.warn("HK dead-check[{}]: статус {} не получен, пропускаем: {}", chatId, o.getOrderId(), e.getMessage());
+                continue;
+            }
+            ExchangeOrderEntity after = info.isPresent()
+                    ? lifecycle.sync(chatId, o.getOrderId(), info.get().getStatus(),
+                            info.get().getExecutedQty(), info.get().getAvgPrice()).orElse(o)
+                    : lifecycle.canceled(o.getId(), "EXPIRED", "housekeeper: not on exchange");
+            if (OrderEvents.isOpen(after)) continue; // выставлен после снимка
+            removed++;
+            OpenOrderBook book = books.get(key(chatId, o.getSymbol()));
+            if (book != null) book.deadRemoved();
         }
+        return removed;
     }
 
     // ---------- utils ----------
@@ -206,41 +254,11 @@ public class OrderHousekeeperServiceImpl implements OrderHousekeeperService {
                 + "'. Available: " + exchangeClients.keySet());
     }
 
-    /** Нормализуем цену в строку-ключ (без лишних нулей). */
-    private static String toPriceKey(BigDecimal p) {
-        return p.stripTrailingZeros().toPlainString();
+    private static String key(Long chatId, String symbol) {
+        return chatId + ":" + symbol;
     }
 
     private static String safeStr(Object v) {
         return v == null ? "" : v.toString();
     }
-
-    /** Мягкое получение clientOrderId из сущности любым известным геттером. */
-    private static String getClientOrderIdSoft(ExchangeOrderEntity e) {
-        return firstNonBlank(
-                tryInvokeStr(e, "getClientOrderId"),
-                tryInvokeStr(e, "getOrigClientOrderId"),
-                tryInvokeStr(e, "getOrderLinkId"),
-                tryInvokeStr(e, "getClientOrderID"),
-                tryInvokeStr(e, "getOrigClientOrderID")
-        );
-    }
-
-    private static String tryInvokeStr(Object target, String getter) {
-        try {
-            Method m = target.getClass().getMethod(getter);
-            Object val = m.invoke(target);
-            return val == null ? "" : val.toString();
-        } catch (Exception ignore) {
-            return "";
-        }
-    }
-
-    private static String firstNonBlank(String... vals) {
-        if (vals == null) return "";
-        for (String s : vals) {
-            if (s != null && !s.isBlank()) return s;
-        }
-        return "";
-    }
 }
@@ -0,0 +1,82 @@
+package com.chicu.aibot.strategy.service.impl;
+
+import com.chicu.aibot.exchange.model.ExchangeSettings;
+import com.chicu.aibot.exchange.service.ExchangeSettingsService;
+import com.chicu.aibot.strategy.TickContext;
+import com.chicu.aibot.strategy.TickRequest;
+import com.chicu.aibot.strategy.TradingStrategy;
+import com.chicu.aibot.strategy.model.Candle;
+import com.chicu.aibot.strategy.model.Order;
+import com.chicu.aibot.strategy.service.CandleService;
+import com.chicu.aibot.strategy.service.OrderService;
+import com.chicu.aibot.strategy.service.TickContextService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/** Используется и в бою, и в бэктесте (там — поверх симуляторов, без биржи и сети). */
+@Slf4j
+@Service
+public class TickContextServiceImpl implements TickContextService {
+
+    private final CandleService candleService;
+    private final OrderService orderService;
+    /** {@code null} — бэктест: биржи нет, в контексте exchange/network пустые. */
+    private final ExchangeSettingsService settingsService;
+
+    @Autowired
+    public TickContextServiceImpl(CandleService candleService, OrderService orderService,
+                                  ExchangeSettingsService settingsService) {
+        this.candleService = candleService;
+        this.orderService = orderService;
+        this.settingsService = settingsService;
+    }
+
+    /** Для бэктеста поверх симуляторов. */
+    public TickContextServiceImpl(CandleService candleService, OrderService orderService) {
+        this(candleService, orderService, null);
+    }
+
+    @Override
+    public TickContext prepare(Long chatId, TradingStrategy strategy) {
+        TickRequest req = strategy.prepareTick(chatId);
+        if (req == null || req.settings() == null) return TickContext.empty(chatId);
+
+        List<Candle> candles = List.of();
+        if (req.candles() > 0) {
+            List<Candle> loaded = candleService.getCandles(chatId, req.symbol(), req.timeframe(), req.candles());
+            if (loaded != null) candles = loaded;
+        }
+        double lastPrice = 0.0;
+        if (!candles.isEmpty()) {
+            Candle last = candles.getLast();
+            if (last.getClose() != null) lastPrice = last.getClose().doubleValue();
+        }
+        ExchangeSettings venue = settingsService == null ? null : settingsService.getOrCreate(chatId);
+        return new TickContext(chatId,
+                venue == null ? null : venue.getExchange(),
+                venue == null ? null : venue.getNetwork(),
+                req.settings(), req.symbol(), req.timeframe(), candles, lastPrice,
+                once(() -> orderService.loadActiveOrders(chatId, req.symbol())));
+    }
+
+    /** Тик идёт в одном потоке актора — синхронизация не нужна. */
+    private static <T> Supplier<T> once(Supplier<T> loader) {
+        return new Supplier<>() {
+            private T value;
+            private boolean loaded;
+
+            @Override
+            public T get() {
+                if (!loaded) {
+                    value = loader.get();
+                    loaded = true;
+                }
+                return value;
+            }
+        };
+    }
+}
@@ -0,0 +1,55 @@
+package com.chicu.aibot.trading.actor;
+
+import com.chicu.aibot.trading.lane.ExecutionLane;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Акторы стратегий: у каждой пары (chatId, стратегия) свой почтовый ящик, сообщения которого
+ * исполняются строго по одному. Тики, start/stop и прочие команды одного экземпляра
+ * никогда не идут параллельно, а тысячи экземпляров разделяют небольшой пул потоков (aibot.actor.*).
+ * <p>
+ * Сообщения полосы {@link ExecutionLane#TRADING} (остановка, сработавший TP/SL) идут в отдельную
+ * очередь ящика: они разбираются раньше команд и тика и исполняются на пуле полосы TRADING, а не
+ * в общем пуле, который могут занять тики с блокирующими запросами к бирже.
+ */
+public interface ActorRuntime {
+
+    /**
+     * Тик стратегии. В ящике держится не больше одного ожидающего тика: если предыдущий ещё
+     * не начат, новый отбрасывается (учитывается в aibot.actor.coalesced).
+     *
+     * @return false — тик не поставлен (уже ждёт другой, либо актора нет или он снимается)
+     */
+    boolean tick(String key, Runnable tick);
+
+    /**
+     * Управляющая команда (start, stop, перезапуск). Исполняется после текущего сообщения,
+     * но раньше ожидающего тика; актор создаётся при первой команде.
+     */
+    default CompletableFuture<Void> command(String key, String name, Runnable command) {
+        return command(key, name, ExecutionLane.STRATEGY, command);
+    }
+
+    /** То же, с выбором полосы: TRADING — вне очереди и на пуле полосы TRADING, прочие — как обычная команда. */
+    CompletableFuture<Void> command(String key, String name, ExecutionLane lane, Runnable command);
+
+    /**
+     * Сообщение уже живому актору (например, сработавший TP/SL-уровень): идёт в очередь команд,
+     * но актора не создаёт.
+     *
+     * @return false — актора нет или он снимается
+     */
+    default boolean send(String key, String name, Runnable message) {
+        return send(key, name, ExecutionLane.STRATEGY, message);
+    }
+
+    /** То же, с выбором полосы (см. {@link #command(String, String, ExecutionLane, Runnable)}). */
+    boolean send(String key, String name, ExecutionLane lane, Runnable message);
+
+    /** Сбросить ожидающий тик и убрать актора, как только его ящик опустеет. */
+    void retire(String key);
+
+    /** Число живых акторов. */
+    int size();
+}
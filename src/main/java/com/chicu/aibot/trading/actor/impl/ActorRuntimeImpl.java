@@ -0,0 +1,241 @@
+package com.chicu.aibot.trading.actor.impl;
+
+import com.chicu.aibot.trading.actor.ActorRuntime;
+import com.chicu.aibot.trading.lane.ExecutionLane;
+import com.chicu.aibot.trading.lane.LaneExecutor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Акторы мультиплексируются на полосе STRATEGY: актор попадает в очередь полосы, только когда
+ * в его ящике есть сообщения, и за один заход разбирает не больше {@code actors.batch} штук,
+ * чтобы занятые экземпляры не задерживали остальных. Расчёт стратегий идёт в бюджет полосы —
+ * её насыщение и сброс (aibot.lane.*) отражают настоящую нагрузку, а UI уступает ей.
+ * Полоса отказала — тик сбрасывается, команды ставятся повторно через {@link #RETRY_MS}.
+ * <p>
+ * Срочные сообщения (полоса TRADING) актор разбирает отдельным заходом на пуле полосы TRADING:
+ * им не нужно ждать, пока полоса STRATEGY освободится от тиков. Заходы одного актора не пересекаются —
+ * кто не смог занять актора, уходит, а занявший перед выходом перепланирует оставшееся.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ActorRuntimeImpl implements ActorRuntime {
+
+    private final MeterRegistry meterRegistry;
+    private final LaneExecutor lanes;
+
+    @Value("${actors.batch:16}")
+    private int batch;
+
+    private final Map<String, Actor> actors = new ConcurrentHashMap<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private Counter processed;
+    private Counter coalesced;
+    private Counter failed;
+    private Timer latency;
+    private Timer urgentLatency;
+
+    /** Сообщение в ящике; future == null у тиков. */
+    private record Envelope(String name, Runnable body, CompletableFuture<Void> future, long enqueuedNanos) { }
+
+    /** Пауза перед повторной постановкой команд, когда полоса STRATEGY отказала. */
+    static final long RETRY_MS = 50;
+
+    @PostConstruct
+    private void init() {
+        Gauge.builder("aibot.actor.count", actors, Map::size)
+                .description("Живые акторы стратегий").register(meterRegistry);
+        Gauge.builder("aibot.actor.mailbox", pending, AtomicInteger::get)
+                .description("Сообщения, ожидающие в ящиках").register(meterRegistry);
+        processed = Counter.builder("aibot.actor.processed").register(meterRegistry);
+        coalesced = Counter.builder("aibot.actor.coalesced")
+                .description("Тики, отброшенные из-за ещё не начатого предыдущего").register(meterRegistry);
+        failed = Counter.builder("aibot.actor.failed").register(meterRegistry);
+        latency = Timer.builder("aibot.actor.latency").tag("lane", ExecutionLane.STRATEGY.name())
+                .description("От постановки сообщения до начала обработки").register(meterRegistry);
+        urgentLatency = Timer.builder("aibot.actor.latency").tag("lane", ExecutionLane.TRADING.name())
+                .description("От постановки сообщения до начала обработки").register(meterRegistry);
+
+        log.info("Акторы стратегий: полоса STRATEGY, пачка {}", Math.max(1, batch));
+    }
+
+    @Override
+    public boolean tick(String key, Runnable tick) {
+        Actor a = actors.get(key);
+        if (a == null || a.retired) return false;
+        Envelope e = new Envelope("tick", tick, null, System.nanoTime());
+        pending.incrementAndGet();
+        if (!a.tick.compareAndSet(null, e)) {
+            pending.decrementAndGet();
+            coalesced.increment();
+            return false;
+        }
+        a.schedule(false);
+        return true;
+    }
+
+    @Override
+    public CompletableFuture<Void> command(String key, String name, ExecutionLane lane, Runnable command) {
+        Envelope e = new Envelope(name, command, new CompletableFuture<>(), System.nanoTime());
+        boolean urgent = lane == ExecutionLane.TRADING;
+        // постановка под блокировкой ячейки: не разминёмся с удалением опустевшего актора
+        Actor a = actors.compute(key, (k, cur) -> {
+            Actor actor = cur != null ? cur : new Actor(k);
+            actor.retired = false;
+            pending.incrementAndGet();
+            (urgent ? actor.urgent : actor.control).add(e);
+            return actor;
+        });
+        a.schedule(urgent);
+        return e.future();
+    }
+
+    @Override
+    public boolean send(String key, String name, ExecutionLane lane, Runnable message) {
+        Envelope e = new Envelope(name, message, null, System.nanoTime());
+        boolean urgent = lane == ExecutionLane.TRADING;
+        boolean[] queued = {false};
+        Actor a = actors.computeIfPresent(key, (k, cur) -> {
+            if (!cur.retired) {
+                pending.incrementAndGet();
+                (urgent ? cur.urgent : cur.control).add(e);
+                queued[0] = true;
+            }
+            return cur;
+        });
+        if (!queued[0]) return false;
+        a.schedule(urgent);
+        return true;
+    }
+
+    @Override
+    public void retire(String key) {
+        Actor a = actors.get(key);
+        if (a == null) return;
+        a.retired = true;
+        if (a.tick.getAndSet(null) != null) pending.decrementAndGet();
+        actors.computeIfPresent(key, (k, cur) -> cur == a && a.isIdle() ? null : cur);
+    }
+
+    @Override
+    public int size() {
+        return actors.size();
+    }
+
+    private void process(Actor a, Envelope e, boolean urgent) {
+        pending.decrementAndGet();
+        (urgent ? urgentLatency : latency).record(System.nanoTime() - e.enqueuedNanos(), TimeUnit.NANOSECONDS);
+        try {
+            e.body().run();
+            if (e.future() != null) e.future().complete(null);
+        } catch (Throwable t) {
+            failed.increment();
+            if (e.future() != null) e.future().completeExceptionally(t);
+            else log.error("Актор {}: ошибка {}: {}", a.key, e.name(), t.getMessage(), t);
+        } finally {
+            processed.increment();
+        }
+    }
+
+    /** Ящик одного экземпляра: срочные сообщения раньше команд, команды раньше тика, тик — не больше одного. */
+    private final class Actor {
+        final String key;
+        /** Полоса TRADING: остановка, сработавшие уровни. */
+        final Queue<Envelope> urgent = new ConcurrentLinkedQueue<>();
+        final Queue<Envelope> control = new ConcurrentLinkedQueue<>();
+        final AtomicReference<Envelope> tick = new AtomicReference<>();
+        /** Заход стоит в очереди полосы STRATEGY — второй раз его не ставим. */
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        /** Заход стоит в очереди полосы TRADING. */
+        final AtomicBoolean scheduledUrgent = new AtomicBoolean();
+        /** Актор занят одним из заходов. */
+        final AtomicBoolean running = new AtomicBoolean();
+        volatile boolean retired;
+
+        Actor(String key) {
+            this.key = key;
+        }
+
+        void schedule(boolean urgentRun) {
+            if (urgentRun) {
+                if (!scheduledUrgent.compareAndSet(false, true)) return;
+                try {
+                    lanes.submit(ExecutionLane.TRADING, "actor:" + key, () -> drain(true));
+                } catch (RejectedExecutionException ex) {
+                    scheduledUrgent.set(false);
+                    log.warn("Актор {} не поставлен в полосу TRADING: {}", key, ex.getMessage());
+                }
+                return;
+            }
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    lanes.submit(ExecutionLane.STRATEGY, "actor:" + key, () -> drain(false));
+                } catch (RejectedExecutionException ex) {
+                    scheduled.set(false);
+                    rejected();
+                }
+            }
+        }
+
+        /** Полоса перегружена: тик сбрасывается (следующий придёт по расписанию), команды ждут. */
+        private void rejected() {
+            if (tick.getAndSet(null) != null) pending.decrementAndGet();
+            if (control.isEmpty()) return;
+            log.debug("Актор {}: полоса STRATEGY перегружена, команды через {} мс", key, RETRY_MS);
+            CompletableFuture.delayedExecutor(RETRY_MS, TimeUnit.MILLISECONDS).execute(() -> schedule(false));
+        }
+
+        boolean hasWork() {
+            return !urgent.isEmpty() || !control.isEmpty() || tick.get() != null;
+        }
+
+        boolean isIdle() {
+            return !running.get() && !scheduled.get() && !scheduledUrgent.get() && !hasWork();
+        }
+
+        /**
+         * Один заход. Срочный заход разбирает только срочную очередь — тики с запросами к бирже
+         * на пул TRADING не попадают; обычный начинает каждое сообщение со срочной очереди.
+         */
+        void drain(boolean urgentRun) {
+            (urgentRun ? scheduledUrgent : scheduled).set(false);
+            // актора занимает другой заход — он и разберёт пришедшее, перед выходом проверив ящик
+            if (!running.compareAndSet(false, true)) return;
+            try {
+                for (int i = 0, max = Math.max(1, batch); i < max; i++) {
+                    Envelope e = urgent.poll();
+                    boolean isUrgent = e != null;
+                    if (e == null && !urgentRun) e = control.poll();
+                    if (e == null && !urgentRun) e = tick.getAndSet(null);
+                    if (e == null) break;
+                    process(this, e, isUrgent);
+                }
+            } finally {
+                running.set(false);
+                // сообщение могло прийти между последним poll и освобождением актора
+                if (!urgent.isEmpty()) schedule(true);
+                if (!control.isEmpty() || tick.get() != null) schedule(false);
+                else if (retired) actors.computeIfPresent(key, (k, cur) -> cur == this && isIdle() ? null : cur);
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.chicu.aibot.trading.backtest;
+
+import com.chicu.aibot.strategy.indicator.IndicatorSeriesCache;
+import com.chicu.aibot.trading.backtest.sim.NoopCheckpointService;
+import com.chicu.aibot.trading.backtest.sim.NoopExitManager;
+import com.chicu.aibot.trading.backtest.sim.NoopPriceTriggerService;
+import com.chicu.aibot.trading.backtest.sim.SimCandleService;
+import com.chicu.aibot.trading.backtest.sim.SimClock;
+import com.chicu.aibot.trading.backtest.sim.SimHousekeeper;
+import com.chicu.aibot.trading.backtest.sim.SimOrderService;
+import com.chicu.aibot.trading.trade.TradeLogService;
+
+/** Симулированные сервисы одного прогона (или одной теневой стратегии — у неё свой журнал сделок). */
+public record BacktestContext(
+        Long chatId,
+        SimClock clock,
+        SimCandleService candles,
+        SimOrderService orders,
+        TradeLogService tradeLog,
+        SimHousekeeper housekeeper,
+        NoopCheckpointService checkpoints,
+        IndicatorSeriesCache indicators,
+        NoopPriceTriggerService triggers,
+        NoopExitManager exits
+) { }
@@ -0,0 +1,72 @@
+package com.chicu.aibot.trading.backtest;
+
+import com.chicu.aibot.exchange.model.SymbolFilters;
+import com.chicu.aibot.strategy.indicator.IndicatorSeriesCache;
+import com.chicu.aibot.strategy.model.Candle;
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Параметры одного прогона. История свечей только читается и может быть общей для многих прогонов;
+ * всё изменяемое состояние (баланс, ордера, стратегия) создаётся заново внутри прогона.
+ */
+@Value
+@Builder
+public class BacktestRequest {
+
+    /** Произвольная метка прогона (для отчётов/оптимизатора). */
+    String name;
+
+    String symbol;
+    String timeframe;
+
+    /** Свечи по возрастанию openTime. */
+    List<Candle> history;
+
+    /** Как собрать стратегию поверх симулированных сервисов. */
+    BacktestStrategyFactory strategy;
+
+    /** Стартовый баланс в котируемой валюте. */
+    @Builder.Default
+    double initialQuote = 10_000.0;
+
+    /** Стартовый баланс в базовой валюте. */
+    @Builder.Default
+    double initialBase = 0.0;
+
+    /** Комиссия рыночного ордера, доля от объёма сделки. */
+    @Builder.Default
+    double takerFee = 0.001;
+
+    /** Комиссия лимитного ордера, доля от объёма сделки. */
+    @Builder.Default
+    double makerFee = 0.001;
+
+    /** Проскальзывание рыночного ордера, в базисных пунктах. */
+    @Builder.Default
+    double slippageBps = 2.0;
+
+    /** Фильтры LOT_SIZE / MIN_NOTIONAL; null — без округления. */
+    SymbolFilters filters;
+
+    /** Разрешить продажу без базовой валюты (маржинальный шорт). На споте биржа такие ордера отклоняет. */
+    @Builder.Default
+    boolean allowShortSelling = false;
+
+    /**
+     * Первые столько баров служат только историей для индикаторов: стратегия видит их в свечах,
+     * но торговать начинает с бара warmupBars.
+     */
+    @Builder.Default
+    int warmupBars = 0;
+
+    /** Подготовка кэша индикаторов прогона, например подкладка общих предрасчитанных рядов. */
+    Consumer<IndicatorSeriesCache> indicatorSetup;
+
+    /** Точка кривой капитала сохраняется раз в столько баров (просадка считается по каждому бару). */
+    @Builder.Default
+    int equityEvery = 60;
+}
@@ -0,0 +1,53 @@
+package com.chicu.aibot.trading.backtest;
+
+import com.chicu.aibot.trading.backtest.sim.SimOrderService;
+import com.chicu.aibot.trading.trade.model.TradeLogEntry;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Duration;
+import java.util.List;
+
+@Value
+@Builder(toBuilder = true)
+public class BacktestResult {
+
+    String name;
+
+    /** Текст ошибки, если прогон упал; остальные поля тогда могут быть пустыми. */
+    String error;
+
+    int bars;
+    double initialEquity;
+    double finalEquity;
+    double returnPct;
+    double maxDrawdownPct;
+    double feesPaid;
+
+    /** Кривая капитала: время открытия бара (epoch ms) и капитал по цене закрытия. */
+    long[] equityTimes;
+    double[] equity;
+
+    /** Все исполнения симулятора. */
+    List<SimOrderService.Fill> fills;
+
+    /** Сделки, которые стратегия сама записала в журнал. */
+    List<TradeLogEntry> trades;
+
+    Duration elapsed;
+
+    public boolean isFailed() {
+        return error != null;
+    }
+
+    public static BacktestResult failed(String name, Throwable t) {
+        return BacktestResult.builder()
+                .name(name)
+                .error(t.getClass().getSimpleName() + ": " + t.getMessage())
+                .fills(List.of())
+                .trades(List.of())
+                .equityTimes(new long[0])
+                .equity(new double[0])
+                .build();
+    }
+}
@@ -0,0 +1,16 @@
+package com.chicu.aibot.trading.backtest;
+
+import java.util.List;
+
+/**
+ * Оффлайн-прогон стратегий по историческим свечам.
+ * Биржа, свечи и журнал сделок подменяются симуляторами; прогоны независимы друг от друга.
+ */
+public interface BacktestService {
+
+    /** Один прогон в текущем потоке. */
+    BacktestResult run(BacktestRequest request);
+
+    /** Пачка независимых прогонов параллельно; порядок результатов совпадает с порядком запросов. */
+    List<BacktestResult> runAll(List<BacktestRequest> requests);
+}
@@ -0,0 +1,114 @@
+package com.chicu.aibot.trading.backtest;
+
+import com.chicu.aibot.strategy.bollinger.BollingerBandsStrategy;
+import com.chicu.aibot.strategy.bollinger.model.BollingerStrategySettings;
+import com.chicu.aibot.strategy.bollinger.service.BollingerStrategySettingsService;
+import com.chicu.aibot.strategy.custom.CustomRuleStrategy;
+import com.chicu.aibot.strategy.custom.model.CustomRuleStrategySettings;
+import com.chicu.aibot.strategy.custom.rule.RuleCompiler;
+import com.chicu.aibot.strategy.custom.service.CustomRuleStrategySettingsService;
+import com.chicu.aibot.strategy.fibonacci.FibonacciGridStrategy;
+import com.chicu.aibot.strategy.fibonacci.model.FibonacciGridStrategySettings;
+import com.chicu.aibot.strategy.fibonacci.service.FibonacciGridStrategySettingsService;
+import com.chicu.aibot.strategy.ma_crossover.MaCrossoverStrategy;
+import com.chicu.aibot.strategy.ma_crossover.model.MaCrossoverStrategySettings;
+import com.chicu.aibot.strategy.ma_crossover.service.MaCrossoverStrategySettingsService;
+import com.chicu.aibot.strategy.rsi_ema.RsiEmaStrategy;
+import com.chicu.aibot.strategy.rsi_ema.model.RsiEmaStrategySettings;
+import com.chicu.aibot.strategy.rsi_ema.service.RsiEmaStrategySettingsService;
+import com.chicu.aibot.strategy.scalping.ScalpingStrategy;
+import com.chicu.aibot.strategy.scalping.model.ScalpingStrategySettings;
+import com.chicu.aibot.strategy.scalping.service.ScalpingStrategySettingsService;
+
+import java.util.function.Supplier;
+
+/**
+ * Фабрики встроенных стратегий для бэктеста: та же боевая реализация, но поверх симуляторов.
+ * Настройки берутся из supplier'а на каждый прогон, поэтому прогоны не делят изменяемые объекты.
+ */
+public final class BacktestStrategies {
+
+    private BacktestStrategies() { }
+
+    public static BacktestStrategyFactory scalping(Supplier<ScalpingStrategySettings> settings) {
+        return ctx -> {
+            ScalpingStrategySettings s = settings.get();
+            s.setChatId(ctx.chatId());
+            s.setActive(true);
+            ScalpingStrategySettingsService svc = new ScalpingStrategySettingsService() {
+                @Override public ScalpingStrategySettings getOrCreate(Long chatId) { return s; }
+                @Override public void save(ScalpingStrategySettings settings) { }
+            };
+            return new ScalpingStrategy(svc, ctx.orders(), ctx.checkpoints(), ctx.clock());
+        };
+    }
+
+    public static BacktestStrategyFactory fibonacci(Supplier<FibonacciGridStrategySettings> settings) {
+        return ctx -> {
+            FibonacciGridStrategySettings s = settings.get();
+            s.setChatId(ctx.chatId());
+            s.setActive(true);
+            FibonacciGridStrategySettingsService svc = new FibonacciGridStrategySettingsService() {
+                @Override public FibonacciGridStrategySettings getOrCreate(Long chatId) { return s; }
+                @Override public void save(FibonacciGridStrategySettings settings) { }
+            };
+            return new FibonacciGridStrategy(svc, ctx.orders(), ctx.housekeeper(), ctx.checkpoints(), ctx.triggers());
+        };
+    }
+
+    public static BacktestStrategyFactory bollinger(Supplier<BollingerStrategySettings> settings) {
+        return ctx -> {
+            BollingerStrategySettings s = settings.get();
+            s.setChatId(ctx.chatId());
+            s.setActive(true);
+            BollingerStrategySettingsService svc = new BollingerStrategySettingsService() {
+                @Override public BollingerStrategySettings getOrCreate(Long chatId) { return s; }
+                @Override public BollingerStrategySettings save(BollingerStrategySettings settings) { return settings; }
+            };
+            return new BollingerBandsStrategy(svc, ctx.orders(), ctx.tradeLog(), ctx.checkpoints(),
+                    ctx.indicators(), ctx.clock(), ctx.triggers(), ctx.exits());
+        };
+    }
+
+    public static BacktestStrategyFactory rsiEma(Supplier<RsiEmaStrategySettings> settings) {
+        return ctx -> {
+            RsiEmaStrategySettings s = settings.get();
+            s.setChatId(ctx.chatId());
+            s.setActive(true);
+            RsiEmaStrategySettingsService svc = new RsiEmaStrategySettingsService() {
+                @Override public RsiEmaStrategySettings getOrCreate(Long chatId) { return s; }
+                @Override public RsiEmaStrategySettings save(RsiEmaStrategySettings settings) { return settings; }
+            };
+            return new RsiEmaStrategy(svc, ctx.orders(), ctx.tradeLog(), ctx.checkpoints(),
+                    ctx.indicators(), ctx.clock(), ctx.triggers(), ctx.exits());
+        };
+    }
+
+    public static BacktestStrategyFactory maCrossover(Supplier<MaCrossoverStrategySettings> settings) {
+        return ctx -> {
+            MaCrossoverStrategySettings s = settings.get();
+            s.setChatId(ctx.chatId());
+            s.setActive(true);
+            MaCrossoverStrategySettingsService svc = new MaCrossoverStrategySettingsService() {
+                @Override public MaCrossoverStrategySettings getOrCreate(Long chatId) { return s; }
+                @Override public MaCrossoverStrategySettings save(MaCrossoverStrategySettings settings) { return settings; }
+            };
+            return new MaCrossoverStrategy(svc, ctx.orders(), ctx.tradeLog(), ctx.checkpoints(),
+                    ctx.indicators(), ctx.clock(), ctx.triggers(), ctx.exits());
+        };
+    }
+
+    public static BacktestStrategyFactory customRule(Supplier<CustomRuleStrategySettings> settings) {
+        return ctx -> {
+            CustomRuleStrategySettings s = settings.get();
+            s.setChatId(ctx.chatId());
+            s.setActive(true);
+            CustomRuleStrategySettingsService svc = new CustomRuleStrategySettingsService() {
+                @Override public CustomRuleStrategySettings getOrCreate(Long chatId) { return s; }
+                @Override public CustomRuleStrategySettings save(CustomRuleStrategySettings settings) { return settings; }
+            };
+            return new CustomRuleStrategy(svc, ctx.orders(), ctx.tradeLog(), ctx.checkpoints(), ctx.indicators(),
+                    ctx.clock(), new RuleCompiler());
+        };
+    }
+}
@@ -0,0 +1,12 @@
+package com.chicu.aibot.trading.backtest;
+
+import com.chicu.aibot.strategy.TradingStrategy;
+
+/**
+ * Собирает стратегию поверх сервисов конкретного прогона.
+ * Вызывается один раз на прогон — экземпляры стратегий между прогонами не разделяются.
+ */
+@FunctionalInterface
+public interface BacktestStrategyFactory {
+    TradingStrategy create(BacktestContext ctx);
+}
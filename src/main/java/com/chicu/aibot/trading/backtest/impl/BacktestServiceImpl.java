@@ -0,0 +1,158 @@
+package com.chicu.aibot.trading.backtest.impl;
+
+import com.chicu.aibot.strategy.TradingStrategy;
+import com.chicu.aibot.strategy.indicator.IndicatorSeriesCache;
+import com.chicu.aibot.strategy.model.Candle;
+import com.chicu.aibot.strategy.service.impl.TickContextServiceImpl;
+import com.chicu.aibot.trading.backtest.BacktestContext;
+import com.chicu.aibot.trading.backtest.BacktestRequest;
+import com.chicu.aibot.trading.backtest.BacktestResult;
+import com.chicu.aibot.trading.backtest.BacktestService;
+import com.chicu.aibot.trading.backtest.sim.NoopCheckpointService;
+import com.chicu.aibot.trading.backtest.sim.NoopExitManager;
+import com.chicu.aibot.trading.backtest.sim.NoopPriceTriggerService;
+import com.chicu.aibot.trading.backtest.sim.SimCandleService;
+import com.chicu.aibot.trading.backtest.sim.SimClock;
+import com.chicu.aibot.trading.backtest.sim.SimHousekeeper;
+import com.chicu.aibot.trading.backtest.sim.SimOrderService;
+import com.chicu.aibot.trading.backtest.sim.SimTradeLogService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Прогоны крутятся на собственном ForkJoinPool, отдельно от торговых пулов.
+ * Каждый прогон собирает свои симуляторы и свой экземпляр стратегии; общая у прогонов только
+ * неизменяемая история свечей.
+ */
+@Slf4j
+@Service
+public class BacktestServiceImpl implements BacktestService {
+
+    /** Синтетический chatId: в прогоне он один, а со «живыми» чатами стратегии не пересекаются. */
+    private static final Long BACKTEST_CHAT_ID = -1L;
+
+    private final ForkJoinPool pool;
+
+    public BacktestServiceImpl(@Value("${backtest.parallelism:0}") int parallelism) {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.pool = new ForkJoinPool(threads);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    @Override
+    public List<BacktestResult> runAll(List<BacktestRequest> requests) {
+        List<ForkJoinTask<BacktestResult>> tasks = new ArrayList<>(requests.size());
+        for (BacktestRequest r : requests) {
+            tasks.add(pool.submit(() -> run(r)));
+        }
+        List<BacktestResult> out = new ArrayList<>(tasks.size());
+        for (ForkJoinTask<BacktestResult> t : tasks) {
+            out.add(t.join());
+        }
+        return out;
+    }
+
+    @Override
+    public BacktestResult run(BacktestRequest req) {
+        long t0 = System.nanoTime();
+        try {
+            BacktestResult r = replay(req);
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - t0);
+            log.debug("Бэктест '{}': баров={}, доходность={}%, просадка={}%, сделок={}, за {} мс",
+                    req.getName(), r.getBars(), String.format("%.2f", r.getReturnPct()),
+                    String.format("%.2f", r.getMaxDrawdownPct()), r.getFills().size(), elapsed.toMillis());
+            return r.toBuilder().elapsed(elapsed).build();
+        } catch (Exception e) {
+            log.warn("Бэктест '{}' упал: {}", req.getName(), e.toString());
+            return BacktestResult.failed(req.getName(), e);
+        }
+    }
+
+    private BacktestResult replay(BacktestRequest req) {
+        List<Candle> history = req.getHistory();
+        if (history == null || history.isEmpty()) throw new IllegalArgumentException("пустая история свечей");
+        if (req.getStrategy() == null) throw new IllegalArgumentException("не задана стратегия");
+
+        SimClock clock = new SimClock();
+        SimCandleService candles = new SimCandleService(history);
+        SimOrderService orders = new SimOrderService(req, clock);
+        SimTradeLogService tradeLog = new SimTradeLogService();
+        IndicatorSeriesCache indicators = new IndicatorSeriesCache();
+        if (req.getIndicatorSetup() != null) req.getIndicatorSetup().accept(indicators);
+        BacktestContext ctx = new BacktestContext(
+                BACKTEST_CHAT_ID, clock, candles, orders, tradeLog,
+                new SimHousekeeper(orders), new NoopCheckpointService(), indicators, new NoopPriceTriggerService(),
+                new NoopExitManager());
+
+        TradingStrategy strategy = req.getStrategy().create(ctx);
+        TickContextServiceImpl ticks = new TickContextServiceImpl(candles, orders);
+
+        int n = history.size();
+        int first = Math.min(Math.max(0, req.getWarmupBars()), n - 1);
+        int every = Math.max(1, req.getEquityEvery());
+        long[] times = new long[(n - first + every - 1) / every + 1];
+        double[] equity = new double[times.length];
+        int points = 0;
+
+        double initialEquity = 0.0;
+        double peak = 0.0;
+        double maxDd = 0.0;
+
+        for (int i = first; i < n; i++) {
+            Candle bar = history.get(i);
+            clock.set(bar.getOpenTime());
+            candles.moveTo(i);
+            orders.onBar(bar);
+
+            if (i == first) {
+                initialEquity = orders.equity();
+                peak = initialEquity;
+                strategy.start(BACKTEST_CHAT_ID);
+            }
+
+            double close = bar.getClose() == null ? 0.0 : bar.getClose().doubleValue();
+            if (close > 0) strategy.onTick(ticks.prepare(BACKTEST_CHAT_ID, strategy));
+
+            double eq = orders.equity();
+            if (eq > peak) peak = eq;
+            if (peak > 0) maxDd = Math.max(maxDd, (peak - eq) / peak);
+            if ((i - first) % every == 0) {
+                times[points] = clock.millis();
+                equity[points++] = eq;
+            }
+        }
+
+        // как и в бою, stop() снимает висящие лимитки
+        strategy.stop(BACKTEST_CHAT_ID);
+        double finalEquity = orders.equity();
+        times[points] = clock.millis();
+        equity[points++] = finalEquity;
+
+        return BacktestResult.builder()
+                .name(req.getName())
+                .bars(n - first)
+                .initialEquity(initialEquity)
+                .finalEquity(finalEquity)
+                .returnPct(initialEquity > 0 ? (finalEquity - initialEquity) / initialEquity * 100.0 : 0.0)
+                .maxDrawdownPct(maxDd * 100.0)
+                .feesPaid(orders.feesPaid())
+                .equityTimes(Arrays.copyOf(times, points))
+                .equity(Arrays.copyOf(equity, points))
+                .fills(orders.fills())
+                .trades(tradeLog.trades())
+                .build();
+    }
+}
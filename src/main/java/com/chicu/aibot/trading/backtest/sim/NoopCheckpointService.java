@@ -0,0 +1,30 @@
+package com.chicu.aibot.trading.backtest.sim;
+
+import com.chicu.aibot.strategy.StrategyType;
+import com.chicu.aibot.trading.checkpoint.StrategyCheckpointService;
+
+import java.util.Optional;
+
+/** В бэктесте рестартов нет — снимки не нужны. */
+public final class NoopCheckpointService implements StrategyCheckpointService {
+
+    @Override
+    public void update(Long chatId, StrategyType type, Object state) { }
+
+    @Override
+    public <S> Optional<S> restore(Long chatId, StrategyType type, Class<S> stateClass) {
+        return Optional.empty();
+    }
+
+    @Override
+    public void clear(Long chatId, StrategyType type) { }
+
+    @Override
+    public void discard(Long chatId, StrategyType type) { }
+
+    @Override
+    public void reconcileLater(Long chatId, StrategyType type, Runnable reconcile) { }
+
+    @Override
+    public void flush() { }
+}
@@ -0,0 +1,36 @@
+package com.chicu.aibot.trading.backtest.sim;
+
+import com.chicu.aibot.strategy.model.Order;
+import com.chicu.aibot.trading.exit.ExitFill;
+import com.chicu.aibot.trading.exit.ExitManager;
+import com.chicu.aibot.trading.exit.ProtectiveExit;
+
+import java.util.Optional;
+
+/** В симуляторе нет условных заявок — стратегия остаётся на своих TP/SL. */
+public final class NoopExitManager implements ExitManager {
+
+    @Override
+    public Optional<ProtectiveExit> protect(Long chatId, String owner, String symbol, Order.Side exitSide,
+                                            double qty, double takeProfit, double stopLoss) {
+        return Optional.empty();
+    }
+
+    @Override
+    public Optional<ProtectiveExit> current(String owner) {
+        return Optional.empty();
+    }
+
+    @Override
+    public Optional<ExitFill> poll(String owner) {
+        return Optional.empty();
+    }
+
+    @Override
+    public void cancel(String owner) { }
+
+    @Override
+    public Optional<ProtectiveExit> restore(Long chatId, String owner, String listId) {
+        return Optional.empty();
+    }
+}
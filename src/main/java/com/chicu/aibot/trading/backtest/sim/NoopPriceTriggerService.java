@@ -0,0 +1,23 @@
+package com.chicu.aibot.trading.backtest.sim;
+
+import com.chicu.aibot.trading.trigger.PriceTriggerService;
+import com.chicu.aibot.trading.trigger.TriggerDirection;
+import com.chicu.aibot.trading.trigger.TriggerMarket;
+
+import java.util.function.DoubleConsumer;
+
+/** В бэктесте цена приходит только на тике бара — TP/SL проверяет сам тик стратегии. */
+public final class NoopPriceTriggerService implements PriceTriggerService {
+
+    @Override
+    public long arm(Long chatId, String owner, String symbol, TriggerDirection direction,
+                    double price, DoubleConsumer action) {
+        return 0L;
+    }
+
+    @Override
+    public void disarm(String owner) { }
+
+    @Override
+    public void onPrice(TriggerMarket market, double price) { }
+}
@@ -0,0 +1,34 @@
+package com.chicu.aibot.trading.backtest.sim;
+
+import com.chicu.aibot.strategy.model.Candle;
+import com.chicu.aibot.strategy.service.CandleService;
+
+import java.util.List;
+
+/**
+ * Свечи «как будто сейчас» бар с индексом cursor: видны только бары 0..cursor,
+ * последний из них считается формирующимся, как и при живой торговле.
+ * Отдаёт представления (subList) общей истории без копирования.
+ */
+public final class SimCandleService implements CandleService {
+
+    private final List<Candle> history;
+    private int cursor = -1;
+
+    public SimCandleService(List<Candle> history) {
+        this.history = history;
+    }
+
+    public void moveTo(int index) {
+        this.cursor = index;
+    }
+
+    @Override
+    public List<Candle> getCandles(Long chatId, String symbol, String timeframe, int limit) {
+        // прогон идёт по одному ряду — symbol/timeframe стратегии совпадают с запросом бэктеста
+        if (cursor < 0 || limit <= 0) return List.of();
+        int to = cursor + 1;
+        int from = Math.max(0, to - limit);
+        return history.subList(from, to);
+    }
+}
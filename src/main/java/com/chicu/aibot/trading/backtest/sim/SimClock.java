@@ -0,0 +1,36 @@
+package com.chicu.aibot.trading.backtest.sim;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/** Модельное время прогона: двигается движком от бара к бару. */
+public final class SimClock extends Clock {
+
+    private Instant now = Instant.EPOCH;
+
+    public void set(Instant instant) {
+        if (instant != null) this.now = instant;
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+        return Clock.fixed(now, zone);
+    }
+
+    @Override
+    public Instant instant() {
+        return now;
+    }
+
+    @Override
+    public long millis() {
+        return now.toEpochMilli();
+    }
+}
@@ -0,0 +1,48 @@
+package com.chicu.aibot.trading.backtest.sim;
+
+import com.chicu.aibot.strategy.model.Order;
+import com.chicu.aibot.strategy.service.HousekeepingResult;
+import com.chicu.aibot.strategy.service.OrderHousekeeperService;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Уборщик поверх симулятора: как и боевой, оставляет на каждой стороне не больше
+ * maxActivePerSide ближних к рынку лимиток, остальные отменяет. Дублей и «мёртвых» ордеров
+ * в симуляторе не бывает.
+ */
+public final class SimHousekeeper implements OrderHousekeeperService {
+
+    private final SimOrderService orders;
+
+    public SimHousekeeper(SimOrderService orders) {
+        this.orders = orders;
+    }
+
+    @Override
+    public HousekeepingResult reconcile(Long chatId, String symbol, int maxActivePerSide) {
+        int cancelled = trim(chatId, Order.Side.BUY, maxActivePerSide)
+                + trim(chatId, Order.Side.SELL, maxActivePerSide);
+        return HousekeepingResult.builder()
+                .buyActive(orders.openOrders(Order.Side.BUY).size())
+                .sellActive(orders.openOrders(Order.Side.SELL).size())
+                .removedDb(0)
+                .cancelled(cancelled)
+                .build();
+    }
+
+    private int trim(Long chatId, Order.Side side, int max) {
+        List<Order> open = orders.openOrders(side);
+        if (open.size() <= max) return 0;
+        // для BUY приоритетнее выше цена, для SELL — ниже
+        Comparator<Order> byPrice = Comparator.comparingDouble(Order::getPrice);
+        open.sort(side == Order.Side.BUY ? byPrice.reversed() : byPrice);
+        int cancelled = 0;
+        for (int i = max; i < open.size(); i++) {
+            orders.cancel(chatId, open.get(i));
+            cancelled++;
+        }
+        return cancelled;
+    }
+}
@@ -0,0 +1,227 @@
+package com.chicu.aibot.trading.backtest.sim;
+
+import com.chicu.aibot.exchange.model.SymbolFilters;
+import com.chicu.aibot.strategy.model.Candle;
+import com.chicu.aibot.strategy.model.Order;
+import com.chicu.aibot.strategy.service.OrderService;
+import com.chicu.aibot.trading.backtest.BacktestRequest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Симулятор спотовой биржи для одного прогона.
+ * <ul>
+ *   <li>MARKET исполняется сразу по цене закрытия текущего бара с проскальзыванием и taker-комиссией;</li>
+ *   <li>LIMIT встаёт в стакан и исполняется на следующих барах, когда диапазон бара дотягивается до цены
+ *       (при гэпе — по цене открытия), с maker-комиссией;</li>
+ *   <li>объём округляется вниз до stepSize, ордера меньше minQty/minNotional отклоняются;</li>
+ *   <li>средства под лимитки блокируются, ордер без покрытия отклоняется.</li>
+ * </ul>
+ * Не потокобезопасен: прогон крутится в одном потоке.
+ */
+public final class SimOrderService implements OrderService {
+
+    /** Исполнение ордера. */
+    public record Fill(long time, String orderId, Order.Side side, double price, double qty, double fee, boolean maker) { }
+
+    private static final double EPS = 1e-12;
+
+    private final SimClock clock;
+    private final String symbol;
+    private final double takerFee;
+    private final double makerFee;
+    private final double slippage;
+    private final boolean allowShortSelling;
+    private final double stepSize;
+    private final double minQty;
+    private final double minNotional;
+
+    private double quote;
+    private double base;
+    private double lockedQuote;
+    private double lockedBase;
+    private double feesPaid;
+    private double markPrice;
+    private long seq;
+
+    private final List<Order> resting = new ArrayList<>();
+    private final List<Fill> fills = new ArrayList<>();
+
+    public SimOrderService(BacktestRequest req, SimClock clock) {
+        this.clock = clock;
+        this.symbol = req.getSymbol();
+        this.takerFee = Math.max(0.0, req.getTakerFee());
+        this.makerFee = Math.max(0.0, req.getMakerFee());
+        this.slippage = Math.max(0.0, req.getSlippageBps()) / 10_000.0;
+        this.allowShortSelling = req.isAllowShortSelling();
+        SymbolFilters f = req.getFilters();
+        this.stepSize = f == null || f.getStepSize() == null ? 0.0 : f.getStepSize().doubleValue();
+        this.minQty = f == null || f.getMinQty() == null ? 0.0 : f.getMinQty().doubleValue();
+        this.minNotional = f == null || f.getMinNotional() == null ? 0.0 : f.getMinNotional().doubleValue();
+        this.quote = req.getInitialQuote();
+        this.base = req.getInitialBase();
+    }
+
+    /* ====================== движок ====================== */
+
+    /** Новый бар: исполняем лимитки, до которых дотянулся диапазон, и переоцениваем позицию по закрытию. */
+    public void onBar(Candle bar) {
+        double open = px(bar.getOpen());
+        double high = px(bar.getHigh());
+        double low = px(bar.getLow());
+        double close = px(bar.getClose());
+
+        if (!resting.isEmpty()) {
+            Iterator<Order> it = resting.iterator();
+            while (it.hasNext()) {
+                Order o = it.next();
+                double fillPrice;
+                if (o.getSide() == Order.Side.BUY && low > 0 && low <= o.getPrice()) {
+                    fillPrice = open > 0 ? Math.min(o.getPrice(), open) : o.getPrice();
+                } else if (o.getSide() == Order.Side.SELL && high >= o.getPrice()) {
+                    fillPrice = Math.max(o.getPrice(), open);
+                } else {
+                    continue;
+                }
+                it.remove();
+                unlock(o);
+                execute(o, fillPrice, makerFee, true);
+            }
+        }
+        if (close > 0) markPrice = close;
+    }
+
+    public double equity() {
+        return quote + base * markPrice;
+    }
+
+    public double markPrice() {
+        return markPrice;
+    }
+
+    public double feesPaid() {
+        return feesPaid;
+    }
+
+    public List<Fill> fills() {
+        return fills;
+    }
+
+    /** Открытые лимитки стороны (копия). */
+    public List<Order> openOrders(Order.Side side) {
+        List<Order> out = new ArrayList<>();
+        for (Order o : resting) if (o.getSide() == side) out.add(o);
+        return out;
+    }
+
+    /* ====================== OrderService ====================== */
+
+    @Override
+    public Order placeLimit(Long chatId, String symbol, Order.Side side, double price, double quantity) {
+        double qty = roundQty(quantity);
+        Order o = newOrder(side, price, qty);
+        if (price <= 0 || !passesFilters(qty, price) || !canCover(side, price * qty * (1 + makerFee), qty)) {
+            o.setRejected(true);
+            return o;
+        }
+        lock(o);
+        resting.add(o);
+        return o;
+    }
+
+    @Override
+    public Order placeMarket(Long chatId, String symbol, Order.Side side, double quantity) {
+        double qty = roundQty(quantity);
+        double price = side == Order.Side.BUY ? markPrice * (1 + slippage) : markPrice * (1 - slippage);
+        Order o = newOrder(side, price, qty);
+        if (price <= 0 || !passesFilters(qty, price) || !canCover(side, price * qty * (1 + takerFee), qty)) {
+            o.setRejected(true);
+            return o;
+        }
+        execute(o, price, takerFee, false);
+        return o;
+    }
+
+    @Override
+    public void cancel(Long chatId, Order order) {
+        if (order == null || !order.isOpen()) return;
+        if (resting.remove(order)) unlock(order);
+        order.setCancelled(true);
+    }
+
+    @Override
+    public void closePosition(Long chatId, Order order) {
+        if (order == null || order.getVolume() <= 0.0) return;
+        Order.Side opposite = order.getSide() == Order.Side.BUY ? Order.Side.SELL : Order.Side.BUY;
+        Order closing = placeMarket(chatId, order.getSymbol(), opposite, order.getVolume());
+        closing.setClosed(true);
+        order.setClosed(true);
+    }
+
+    @Override
+    public List<Order> loadActiveOrders(Long chatId, String symbol) {
+        return new ArrayList<>(resting);
+    }
+
+    @Override
+    public void refreshOrderStatuses(Long chatId, String symbol, List<Order> cache) {
+        // статусы меняются прямо в объектах ордеров при исполнении — сверять нечего
+    }
+
+    /* ====================== helpers ====================== */
+
+    private Order newOrder(Order.Side side, double price, double qty) {
+        return new Order("bt-" + (++seq), symbol, side, price, qty, false, false, false);
+    }
+
+    private void execute(Order o, double price, double feeRate, boolean maker) {
+        double qty = o.getVolume();
+        double notional = price * qty;
+        double fee = notional * feeRate;
+        if (o.getSide() == Order.Side.BUY) {
+            quote -= notional + fee;
+            base += qty;
+        } else {
+            base -= qty;
+            quote += notional - fee;
+        }
+        feesPaid += fee;
+        // у лимитки остаётся цена заявки (стратегии сверяют по ней уровни), у рыночного — цена исполнения
+        if (!maker) o.setPrice(price);
+        o.setFilled(true);
+        fills.add(new Fill(clock.millis(), o.getId(), o.getSide(), price, qty, fee, maker));
+    }
+
+    private boolean canCover(Order.Side side, double cost, double qty) {
+        if (side == Order.Side.BUY) return quote - lockedQuote + EPS >= cost;
+        return allowShortSelling || base - lockedBase + EPS >= qty;
+    }
+
+    private void lock(Order o) {
+        if (o.getSide() == Order.Side.BUY) lockedQuote += o.getPrice() * o.getVolume() * (1 + makerFee);
+        else lockedBase += o.getVolume();
+    }
+
+    private void unlock(Order o) {
+        if (o.getSide() == Order.Side.BUY) lockedQuote = Math.max(0.0, lockedQuote - o.getPrice() * o.getVolume() * (1 + makerFee));
+        else lockedBase = Math.max(0.0, lockedBase - o.getVolume());
+    }
+
+    private boolean passesFilters(double qty, double price) {
+        if (qty <= 0) return false;
+        if (minQty > 0 && qty + EPS < minQty) return false;
+        return !(minNotional > 0 && qty * price + EPS < minNotional);
+    }
+
+    private double roundQty(double qty) {
+        if (stepSize <= 0 || qty <= 0) return Math.max(0.0, qty);
+        return Math.floor(qty / stepSize + 1e-9) * stepSize;
+    }
+
+    private static double px(BigDecimal v) {
+        return v == null ? 0.0 : v.doubleValue();
+    }
+}
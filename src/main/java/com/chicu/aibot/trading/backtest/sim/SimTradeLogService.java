@@ -0,0 +1,40 @@
+package com.chicu.aibot.trading.backtest.sim;
+
+import com.chicu.aibot.trading.trade.TradeLogService;
+import com.chicu.aibot.trading.trade.model.TradeLogEntry;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/** Журнал сделок прогона в памяти. */
+public final class SimTradeLogService implements TradeLogService {
+
+    private final List<TradeLogEntry> trades = new ArrayList<>();
+
+    @Override
+    public Optional<TradeLogEntry> getLastTrade(Long chatId, String symbol) {
+        return trades.isEmpty() ? Optional.empty() : Optional.of(trades.getLast());
+    }
+
+    @Override
+    public void logTrade(TradeLogEntry entry) {
+        trades.add(entry);
+    }
+
+    @Override
+    public Optional<Double> getTotalPnl(Long chatId, String symbol) {
+        if (trades.isEmpty()) return Optional.empty();
+        double sum = 0.0;
+        for (TradeLogEntry t : trades) {
+            BigDecimal pnl = t.getPnl();
+            if (pnl != null) sum += pnl.doubleValue();
+        }
+        return Optional.of(sum);
+    }
+
+    public List<TradeLogEntry> trades() {
+        return trades;
+    }
+}
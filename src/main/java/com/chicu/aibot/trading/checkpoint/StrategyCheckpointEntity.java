@@ -0,0 +1,36 @@
+package com.chicu.aibot.trading.checkpoint;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Снимок in-memory состояния стратегии для одного чата.
+ * Ключ "chatId:STRATEGY", payload — JSON, формат которого знает сама стратегия.
+ */
+@Entity
+@Table(name = "strategy_checkpoints")
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StrategyCheckpointEntity {
+
+    @Id
+    @Column(name = "checkpoint_key", length = 128)
+    private String checkpointKey;
+
+    @Column(name = "chat_id", nullable = false)
+    private Long chatId;
+
+    @Column(name = "strategy_type", nullable = false, length = 64)
+    private String strategyType;
+
+    @Column(name = "payload", nullable = false, columnDefinition = "text")
+    private String payload;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
@@ -0,0 +1,8 @@
+package com.chicu.aibot.trading.checkpoint;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface StrategyCheckpointRepository extends JpaRepository<StrategyCheckpointEntity, String> {
+}
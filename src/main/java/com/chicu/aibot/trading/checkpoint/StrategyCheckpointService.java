@@ -0,0 +1,34 @@
+package com.chicu.aibot.trading.checkpoint;
+
+import com.chicu.aibot.strategy.StrategyType;
+
+import java.util.Optional;
+
+/**
+ * Чекпоинты in-memory состояния стратегий.
+ * Все снимки читаются одним запросом при старте приложения (в кластере — по одному при start(),
+ * экземпляр мог переехать с другого узла); изменения копятся в памяти и пишутся пачкой раз в checkpoint.flush-ms.
+ */
+public interface StrategyCheckpointService {
+
+    /** Запомнить актуальное состояние (объект сериализуется сразу, в БД — при ближайшем сбросе). */
+    void update(Long chatId, StrategyType type, Object state);
+
+    /** Последний снимок экземпляра; после {@link #clear} пусто — следующий start() пойдёт на биржу. */
+    <S> Optional<S> restore(Long chatId, StrategyType type, Class<S> stateClass);
+
+    /** Удалить снимок (стратегия остановлена и её ордера сняты). */
+    void clear(Long chatId, StrategyType type);
+
+    /** Экземпляр теперь ведёт другой узел: забыть несброшенные изменения, строку в БД не трогать. */
+    void discard(Long chatId, StrategyType type);
+
+    /**
+     * Отложенная фоновая сверка восстановленного состояния с биржей, разнесённая по времени.
+     * Исполняется сообщением в ящике актора экземпляра (chatId:type) — не параллельно его тикам.
+     */
+    void reconcileLater(Long chatId, StrategyType type, Runnable reconcile);
+
+    /** Немедленно записать накопленные изменения. */
+    void flush();
+}
@@ -0,0 +1,233 @@
+package com.chicu.aibot.trading.checkpoint.impl;
+
+import com.chicu.aibot.strategy.StrategyType;
+import com.chicu.aibot.trading.actor.ActorRuntime;
+import com.chicu.aibot.trading.cluster.ClusterCoordinator;
+import com.chicu.aibot.trading.checkpoint.StrategyCheckpointEntity;
+import com.chicu.aibot.trading.checkpoint.StrategyCheckpointRepository;
+import com.chicu.aibot.trading.checkpoint.StrategyCheckpointService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StrategyCheckpointServiceImpl implements StrategyCheckpointService {
+
+    private final StrategyCheckpointRepository repo;
+    private final ObjectMapper objectMapper;
+    private final ClusterCoordinator cluster;
+    private final ActorRuntime actors;
+
+    @Value("${checkpoint.enabled:true}")
+    private boolean enabled;
+
+    @Value("${checkpoint.flush-ms:5000}")
+    private long flushMs;
+
+    /** Задержка первой фоновой сверки и шаг между чатами — чтобы не упереться в rate limit биржи. */
+    @Value("${checkpoint.reconcile-delay-ms:30000}")
+    private long reconcileDelayMs;
+
+    @Value("${checkpoint.reconcile-spacing-ms:500}")
+    private long reconcileSpacingMs;
+
+    /**
+     * Снимки, прочитанные при старте; удаляются по мере восстановления. В кластере не используются:
+     * чужой экземпляр, переехавший сюда позже, успел бы уйти от снимка, прочитанного при старте узла.
+     */
+    private final Map<String, String> preloaded = new ConcurrentHashMap<>();
+    /** Последнее записанное содержимое — одинаковые снимки повторно не пишем. */
+    private final Map<String, String> persisted = new ConcurrentHashMap<>();
+    /** Изменения, ожидающие сброса: ключ → payload. */
+    private final Map<String, String> pending = new ConcurrentHashMap<>();
+    private final Set<String> pendingDeletes = ConcurrentHashMap.newKeySet();
+
+    private final AtomicInteger reconcileSeq = new AtomicInteger();
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "strategy-checkpoint");
+        t.setDaemon(true);
+        return t;
+    });
+
+    @PostConstruct
+    private void init() {
+        if (!enabled) {
+            log.info("Чекпоинты стратегий отключены (checkpoint.enabled=false)");
+            return;
+        }
+        if (cluster.isEnabled()) {
+            log.info("Кластерный режим: чекпоинты стратегий читаются из БД при каждом start()");
+        } else {
+            preload();
+        }
+        executor.scheduleWithFixedDelay(this::flushSafe, flushMs, flushMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void preload() {
+        long t0 = System.currentTimeMillis();
+        try {
+            for (StrategyCheckpointEntity e : repo.findAll()) {
+                preloaded.put(e.getCheckpointKey(), e.getPayload());
+                persisted.put(e.getCheckpointKey(), e.getPayload());
+            }
+            log.info("Загружено чекпоинтов стратегий: {} за {} мс", preloaded.size(), System.currentTimeMillis() - t0);
+        } catch (Exception e) {
+            log.warn("Не удалось загрузить чекпоинты стратегий: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    private void shutdown() {
+        executor.shutdownNow();
+        flushSafe();
+    }
+
+    @Override
+    public void update(Long chatId, StrategyType type, Object state) {
+        if (!enabled || chatId == null || type == null || state == null) return;
+        String key = buildKey(chatId, type);
+        try {
+            String payload = objectMapper.writeValueAsString(state);
+            pendingDeletes.remove(key);
+            if (payload.equals(persisted.get(key))) {
+                pending.remove(key);
+            } else {
+                pending.put(key, payload);
+            }
+        } catch (Exception e) {
+            log.warn("Чекпоинт {}: сериализация не удалась: {}", key, e.getMessage());
+        }
+    }
+
+    @Override
+    public <S> Optional<S> restore(Long chatId, StrategyType type, Class<S> stateClass) {
+        if (!enabled) return Optional.empty();
+        String key = buildKey(chatId, type);
+        if (pendingDeletes.contains(key)) return Optional.empty();
+        // своё несброшенное изменение свежее всего; затем снимок старта; в кластере — строка из БД
+        String payload = pending.get(key);
+        if (payload == null) payload = preloaded.remove(key);
+        if (payload == null && cluster.isEnabled()) payload = loadPayload(key);
+        if (payload == null) return Optional.empty();
+        try {
+            return Optional.ofNullable(objectMapper.readValue(payload, stateClass));
+        } catch (Exception e) {
+            log.warn("Чекпоинт {}: не удалось прочитать ({}), будет гидратация с биржи", key, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void clear(Long chatId, StrategyType type) {
+        if (!enabled) return;
+        String key = buildKey(chatId, type);
+        pending.remove(key);
+        preloaded.remove(key);
+        // в кластере строку мог записать другой узел — о ней здесь не знаем, удаляем без проверки
+        if (persisted.containsKey(key) || cluster.isEnabled()) pendingDeletes.add(key);
+    }
+
+    @Override
+    public void discard(Long chatId, StrategyType type) {
+        if (!enabled) return;
+        String key = buildKey(chatId, type);
+        pending.remove(key);
+        preloaded.remove(key);
+        persisted.remove(key);
+        pendingDeletes.remove(key);
+    }
+
+    @Override
+    public void reconcileLater(Long chatId, StrategyType type, Runnable reconcile) {
+        long delay = reconcileDelayMs + (long) reconcileSeq.getAndIncrement() * reconcileSpacingMs;
+        String key = buildKey(chatId, type);
+        // здесь только таймер: сама сверка — сообщение актору экземпляра, между его тиками,
+        // и REST-запросы не задерживают сброс чекпоинтов
+        executor.schedule(() -> {
+            boolean queued = actors.send(key, "reconcile", () -> {
+                try {
+                    reconcile.run();
+                    log.debug("Фоновая сверка {} выполнена", key);
+                } catch (Exception e) {
+                    log.warn("Фоновая сверка {} не удалась: {}", key, e.getMessage());
+                }
+            });
+            if (!queued) log.debug("Фоновая сверка {} не нужна: экземпляр уже остановлен", key);
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void flush() {
+        if (!enabled) return;
+
+        if (!pendingDeletes.isEmpty()) {
+            List<String> keys = new ArrayList<>(pendingDeletes);
+            repo.deleteAllByIdInBatch(keys);
+            keys.forEach(k -> {
+                pendingDeletes.remove(k);
+                persisted.remove(k);
+            });
+        }
+
+        if (pending.isEmpty()) return;
+
+        Instant now = Instant.now();
+        Map<String, String> batch = new HashMap<>(pending);
+        List<StrategyCheckpointEntity> rows = new ArrayList<>(batch.size());
+        batch.forEach((key, payload) -> {
+            int idx = key.indexOf(':');
+            rows.add(StrategyCheckpointEntity.builder()
+                    .checkpointKey(key)
+                    .chatId(Long.parseLong(key.substring(0, idx)))
+                    .strategyType(key.substring(idx + 1))
+                    .payload(payload)
+                    .updatedAt(now)
+                    .build());
+        });
+        repo.saveAll(rows);
+
+        // снимаем из очереди только то, что не успело измениться за время записи
+        batch.forEach((key, payload) -> {
+            persisted.put(key, payload);
+            pending.remove(key, payload);
+        });
+        log.debug("Записано чекпоинтов: {}", rows.size());
+    }
+
+    private String loadPayload(String key) {
+        try {
+            String payload = repo.findById(key).map(StrategyCheckpointEntity::getPayload).orElse(null);
+            // что лежит в БД сейчас — иначе совпадение со старой своей записью не даст перезаписать чужую
+            if (payload != null) persisted.put(key, payload);
+            else persisted.remove(key);
+            return payload;
+        } catch (Exception e) {
+            log.warn("Чекпоинт {}: чтение из БД не удалось ({}), будет гидратация с биржи", key, e.getMessage());
+            return null;
+        }
+    }
+
+    private void flushSafe() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.warn("Сброс чекпоинтов не удался: {}", e.getMessage());
+        }
+    }
+
+    private static String buildKey(Long chatId, StrategyType type) {
+        return chatId + ":" + type.name();
+    }
+}
@@ -0,0 +1,30 @@
+package com.chicu.aibot.trading.cluster;
+
+/**
+ * Координация нескольких узлов бота через аренды в Postgres.
+ * При cluster.enabled=false узел считается единственным: все захваты успешны, он же — лидер поллера.
+ */
+public interface ClusterCoordinator {
+
+    String nodeId();
+
+    boolean isEnabled();
+
+    /** Захватить (или продлить) назначение chatId:strategy за этим узлом. */
+    boolean tryAcquire(Long chatId, String strategyName);
+
+    /**
+     * Назначение сейчас за этим узлом (строка аренды наша). Свежий запрос, а не снимок heartbeat:
+     * ключ мог быть захвачен уже после него. Ошибка БД пробрасывается — «не знаю» не значит «не моё».
+     */
+    boolean owns(Long chatId, String strategyName);
+
+    /** Отпустить назначение, чтобы его мог подхватить другой узел. */
+    void release(Long chatId, String strategyName);
+
+    /** Справедливая доля назначений на узел. */
+    int fairShare(int totalAssignments);
+
+    /** Является ли узел владельцем Telegram-поллера. */
+    boolean isPollerLeader();
+}
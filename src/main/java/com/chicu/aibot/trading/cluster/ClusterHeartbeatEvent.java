@@ -0,0 +1,12 @@
+package com.chicu.aibot.trading.cluster;
+
+import java.util.Set;
+
+/**
+ * Публикуется после каждого heartbeat узла.
+ *
+ * @param ownedKeys     ключи назначений ("chatId:STRATEGY"), которыми узел владеет после продления
+ * @param liveKeys      все живые ключи назначений кластера (свои и чужие)
+ * @param liveNodes     число живых узлов
+ */
+public record ClusterHeartbeatEvent(Set<String> ownedKeys, Set<String> liveKeys, int liveNodes) { }
@@ -0,0 +1,4 @@
+package com.chicu.aibot.trading.cluster;
+
+/** Узел получил или потерял лидерство на Telegram long-polling. */
+public record PollerLeadershipChangedEvent(boolean leader) { }
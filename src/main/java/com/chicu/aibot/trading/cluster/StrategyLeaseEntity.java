@@ -0,0 +1,35 @@
+package com.chicu.aibot.trading.cluster;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Аренда (lease) назначения в кластере.
+ * Ключи:
+ * - "chatId:STRATEGY"  — назначение стратегии конкретному узлу;
+ * - "node:&lt;nodeId&gt;" — heartbeat самого узла;
+ * - "telegram-poller"  — лидерство на Telegram long-polling.
+ */
+@Entity
+@Table(name = "strategy_leases")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StrategyLeaseEntity {
+
+    @Id
+    @Column(name = "lease_key", length = 128)
+    private String leaseKey;
+
+    @Column(name = "owner_node", nullable = false, length = 128)
+    private String ownerNode;
+
+    @Column(name = "heartbeat_at", nullable = false)
+    private Instant heartbeatAt;
+
+    @Column(name = "acquired_at", nullable = false)
+    private Instant acquiredAt;
+}
@@ -0,0 +1,75 @@
+package com.chicu.aibot.trading.cluster;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Все операции — атомарные SQL-выражения на стороне Postgres,
+ * время берём из now() базы, чтобы не зависеть от рассинхрона часов узлов.
+ */
+@Repository
+public interface StrategyLeaseRepository extends JpaRepository<StrategyLeaseEntity, String> {
+
+    /** Захват/продление аренды: успешно, если ключ свободен, уже наш или просрочен. Возвращает 1 при успехе. */
+    @Modifying
+    @Transactional
+    @Query(value = """
+            INSERT INTO strategy_leases (lease_key, owner_node, heartbeat_at, acquired_at)
+            VALUES (:key, :node, now(), now())
+            ON CONFLICT (lease_key) DO UPDATE
+               SET owner_node   = EXCLUDED.owner_node,
+                   heartbeat_at = now(),
+                   acquired_at  = CASE WHEN strategy_leases.owner_node = EXCLUDED.owner_node
+                                       THEN strategy_leases.acquired_at ELSE now() END
+             WHERE strategy_leases.owner_node = EXCLUDED.owner_node
+                OR strategy_leases.heartbeat_at < now() - make_interval(secs => :ttlSec)
+            """, nativeQuery = true)
+    int tryAcquire(@Param("key") String key, @Param("node") String node, @Param("ttlSec") double ttlSec);
+
+    /** Продлить все аренды узла одним запросом. */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE strategy_leases SET heartbeat_at = now() WHERE owner_node = :node", nativeQuery = true)
+    int renewAll(@Param("node") String node);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM strategy_leases WHERE lease_key = :key AND owner_node = :node", nativeQuery = true)
+    int release(@Param("key") String key, @Param("node") String node);
+
+    @Query(value = "SELECT lease_key FROM strategy_leases WHERE owner_node = :node", nativeQuery = true)
+    List<String> findKeysOwnedBy(@Param("node") String node);
+
+    @Query(value = "SELECT count(*) FROM strategy_leases WHERE lease_key = :key AND owner_node = :node",
+            nativeQuery = true)
+    long countOwned(@Param("key") String key, @Param("node") String node);
+
+    /** Ключи с живой арендой (любого узла) — их не пытаемся забирать. */
+    @Query(value = """
+            SELECT lease_key FROM strategy_leases
+             WHERE heartbeat_at >= now() - make_interval(secs => :ttlSec)
+            """, nativeQuery = true)
+    List<String> findLiveKeys(@Param("ttlSec") double ttlSec);
+
+    @Query(value = """
+            SELECT count(*) FROM strategy_leases
+             WHERE lease_key LIKE 'node:%'
+               AND heartbeat_at >= now() - make_interval(secs => :ttlSec)
+            """, nativeQuery = true)
+    long countLiveNodes(@Param("ttlSec") double ttlSec);
+
+    /** Удалить давно мёртвые записи (узлы и брошенные назначения). */
+    @Modifying
+    @Transactional
+    @Query(value = """
+            DELETE FROM strategy_leases
+             WHERE heartbeat_at < now() - make_interval(secs => :olderThanSec)
+            """, nativeQuery = true)
+    int purgeExpired(@Param("olderThanSec") double olderThanSec);
+}
@@ -0,0 +1,201 @@
+package com.chicu.aibot.trading.cluster.impl;
+
+import com.chicu.aibot.trading.cluster.ClusterCoordinator;
+import com.chicu.aibot.trading.cluster.ClusterHeartbeatEvent;
+import com.chicu.aibot.trading.cluster.PollerLeadershipChangedEvent;
+import com.chicu.aibot.trading.cluster.StrategyLeaseRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ClusterCoordinatorImpl implements ClusterCoordinator {
+
+    private static final String POLLER_KEY = "telegram-poller";
+    private static final String NODE_PREFIX = "node:";
+
+    private final StrategyLeaseRepository leaseRepo;
+    private final ApplicationEventPublisher events;
+
+    @Value("${cluster.enabled:false}")
+    private boolean enabled;
+
+    @Value("${cluster.node-id:}")
+    private String configuredNodeId;
+
+    @Value("${cluster.heartbeat-ms:10000}")
+    private long heartbeatMs;
+
+    @Value("${cluster.lease-ttl-ms:30000}")
+    private long leaseTtlMs;
+
+    private String nodeId;
+    private volatile boolean pollerLeader = true;
+    private volatile int liveNodes = 1;
+
+    private final ScheduledExecutorService heartbeatExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "cluster-heartbeat");
+        t.setDaemon(true);
+        return t;
+    });
+
+    @PostConstruct
+    private void init() {
+        nodeId = (configuredNodeId == null || configuredNodeId.isBlank()) ? generateNodeId() : configuredNodeId.trim();
+        if (!enabled) {
+            log.info("Кластерный режим отключён (cluster.enabled=false) — узел {} владеет всеми стратегиями", nodeId);
+            return;
+        }
+        // первый heartbeat синхронно: TelegramBot при старте уже должен знать, лидер ли он
+        pollerLeader = false;
+        try {
+            heartbeat(false);
+        } catch (Exception e) {
+            log.warn("Первый heartbeat узла {} не удался: {}", nodeId, e.getMessage());
+        }
+        heartbeatExecutor.scheduleWithFixedDelay(this::heartbeatSafe, heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+        log.info("Кластерный режим: узел {} (heartbeat={} мс, ttl={} мс, лидер поллера={})",
+                nodeId, heartbeatMs, leaseTtlMs, pollerLeader);
+    }
+
+    @PreDestroy
+    private void shutdown() {
+        heartbeatExecutor.shutdownNow();
+        if (!enabled) return;
+        try {
+            // отпускаем всё сразу, чтобы другие узлы не ждали истечения TTL
+            for (String key : leaseRepo.findKeysOwnedBy(nodeId)) {
+                leaseRepo.release(key, nodeId);
+            }
+            log.info("Узел {} отпустил все аренды", nodeId);
+        } catch (Exception e) {
+            log.warn("Не удалось отпустить аренды узла {}: {}", nodeId, e.getMessage());
+        }
+    }
+
+    @Override
+    public String nodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public boolean tryAcquire(Long chatId, String strategyName) {
+        if (!enabled) return true;
+        try {
+            return leaseRepo.tryAcquire(buildKey(chatId, strategyName), nodeId, ttlSec()) > 0;
+        } catch (Exception e) {
+            log.warn("Захват аренды {}:{} не удался: {}", chatId, strategyName, e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public boolean owns(Long chatId, String strategyName) {
+        if (!enabled) return true;
+        return leaseRepo.countOwned(buildKey(chatId, strategyName), nodeId) > 0;
+    }
+
+    @Override
+    public void release(Long chatId, String strategyName) {
+        if (!enabled) return;
+        try {
+            leaseRepo.release(buildKey(chatId, strategyName), nodeId);
+        } catch (Exception e) {
+            log.warn("Освобождение аренды {}:{} не удалось: {}", chatId, strategyName, e.getMessage());
+        }
+    }
+
+    @Override
+    public int fairShare(int totalAssignments) {
+        int nodes = Math.max(1, liveNodes);
+        return (int) Math.ceil(totalAssignments / (double) nodes);
+    }
+
+    @Override
+    public boolean isPollerLeader() {
+        return !enabled || pollerLeader;
+    }
+
+    /* ================= heartbeat ================= */
+
+    private void heartbeatSafe() {
+        try {
+            heartbeat(true);
+        } catch (Exception e) {
+            log.warn("Heartbeat узла {} не удался: {}", nodeId, e.getMessage());
+        }
+    }
+
+    private void heartbeat(boolean publish) {
+        double ttl = ttlSec();
+
+        leaseRepo.renewAll(nodeId);
+        leaseRepo.tryAcquire(NODE_PREFIX + nodeId, nodeId, ttl);
+        boolean leaderNow = leaseRepo.tryAcquire(POLLER_KEY, nodeId, ttl) > 0;
+
+        liveNodes = (int) Math.max(1, leaseRepo.countLiveNodes(ttl));
+        // мёртвые записи старше 10×TTL больше никому не нужны
+        leaseRepo.purgeExpired(ttl * 10);
+
+        boolean leaderChanged = leaderNow != pollerLeader;
+        pollerLeader = leaderNow;
+        if (!publish) return;
+
+        if (leaderChanged) {
+            log.info("Узел {}: лидерство Telegram-поллера {}", nodeId, leaderNow ? "получено" : "потеряно");
+            events.publishEvent(new PollerLeadershipChangedEvent(leaderNow));
+        }
+
+        Set<String> owned = assignmentKeys(leaseRepo.findKeysOwnedBy(nodeId));
+        Set<String> live  = assignmentKeys(leaseRepo.findLiveKeys(ttl));
+        events.publishEvent(new ClusterHeartbeatEvent(owned, live, liveNodes));
+    }
+
+    /* ================= helpers ================= */
+
+    private static Set<String> assignmentKeys(Iterable<String> keys) {
+        Set<String> out = new HashSet<>();
+        for (String k : keys) {
+            if (k == null || k.startsWith(NODE_PREFIX) || POLLER_KEY.equals(k)) continue;
+            out.add(k);
+        }
+        return out;
+    }
+
+    private double ttlSec() {
+        return Math.max(1, leaseTtlMs) / 1000.0;
+    }
+
+    private static String buildKey(Long chatId, String strategyName) {
+        return chatId + ":" + strategyName;
+    }
+
+    private static String generateNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "node";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
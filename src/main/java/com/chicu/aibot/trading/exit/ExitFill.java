@@ -0,0 +1,4 @@
+package com.chicu.aibot.trading.exit;
+
+/** Позиция закрыта биржей по одной из ног защиты. */
+public record ExitFill(boolean takeProfit, double price, double qty) { }
@@ -0,0 +1,36 @@
+package com.chicu.aibot.trading.exit;
+
+import com.chicu.aibot.strategy.model.Order;
+
+import java.util.Optional;
+
+/**
+ * Выходы из позиции силами биржи: при открытии позиции на бирже ставится связка TP + SL
+ * (Binance — OCO, Bybit — условные заявки), и выход срабатывает со скоростью биржи,
+ * даже если JVM стоит. Ноги ведутся в {@code exchange_orders} с общим orderListId.
+ */
+public interface ExitManager {
+
+    /**
+     * Поставить защиту (старая защита владельца снимается).
+     *
+     * @return пусто — выключено, биржа не умеет или отказала; стратегия остаётся на своих TP/SL
+     */
+    Optional<ProtectiveExit> protect(Long chatId, String owner, String symbol, Order.Side exitSide,
+                                     double qty, double takeProfit, double stopLoss);
+
+    /** Действующая защита владельца. */
+    Optional<ProtectiveExit> current(String owner);
+
+    /**
+     * Сверка с биржей: если одна из ног исполнилась — защита снимается и возвращается исполнение.
+     * Если защита пропала без исполнения (снята вручную), {@link #current} станет пустым.
+     */
+    Optional<ExitFill> poll(String owner);
+
+    /** Снять защиту: стратегия выходит сама, меняет уровни или останавливается. */
+    void cancel(String owner);
+
+    /** Поднять защиту по orderListId после рестарта (из чекпоинта стратегии). */
+    Optional<ProtectiveExit> restore(Long chatId, String owner, String listId);
+}
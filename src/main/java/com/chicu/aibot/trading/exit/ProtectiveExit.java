@@ -0,0 +1,13 @@
+package com.chicu.aibot.trading.exit;
+
+import com.chicu.aibot.strategy.model.Order;
+
+/**
+ * Биржевая защита позиции: TP и SL, стоящие на бирже.
+ *
+ * @param owner    ключ стратегии ({@code chatId:STRATEGY})
+ * @param exitSide сторона выхода: SELL для лонга, BUY для шорта
+ */
+public record ProtectiveExit(String owner, Long chatId, String symbol, Order.Side exitSide, double qty,
+                             double takeProfit, double stopLoss,
+                             String listId, String takeProfitOrderId, String stopOrderId) { }
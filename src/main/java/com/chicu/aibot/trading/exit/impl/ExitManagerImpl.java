@@ -0,0 +1,259 @@
+package com.chicu.aibot.trading.exit.impl;
+
+import com.chicu.aibot.exchange.client.ExchangeClient;
+import com.chicu.aibot.exchange.client.ExchangeClientFactory;
+import com.chicu.aibot.exchange.enums.OrderSide;
+import com.chicu.aibot.exchange.model.ExchangeSettings;
+import com.chicu.aibot.exchange.model.OrderInfo;
+import com.chicu.aibot.exchange.model.ProtectiveOrderRequest;
+import com.chicu.aibot.exchange.model.ProtectiveOrderResponse;
+import com.chicu.aibot.exchange.order.model.ExchangeOrderEntity;
+import com.chicu.aibot.exchange.order.service.OrderLifecycleService;
+import com.chicu.aibot.exchange.service.ExchangeSettingsService;
+import com.chicu.aibot.strategy.model.Order;
+import com.chicu.aibot.trading.exit.ExitFill;
+import com.chicu.aibot.trading.exit.ExitManager;
+import com.chicu.aibot.trading.exit.ProtectiveExit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ExitManagerImpl implements ExitManager {
+
+    private static final String TYPE_TP = "TAKE_PROFIT";
+    private static final String TYPE_SL = "STOP_LOSS";
+    /** Статусы ноги, которая ещё ждёт цену. */
+    private static final Set<String> WAITING = Set.of("NEW", "PARTIALLY_FILLED", "PARTIALLYFILLED",
+            "PENDING_NEW", "UNTRIGGERED", "TRIGGERED", "ACTIVE");
+
+    private final ExchangeClientFactory clientFactory;
+    private final ExchangeSettingsService settingsService;
+    private final OrderLifecycleService lifecycle;
+
+    @Value("${exits.native.enabled:true}")
+    private boolean enabled;
+
+    /** Лимитная цена стоп-ноги отстоит от цены срабатывания на столько б.п. (чтобы стоп исполнился при проскоке). */
+    @Value("${exits.native.stop-limit-offset-bps:30}")
+    private double stopLimitOffsetBps;
+
+    private final Map<String, ProtectiveExit> active = new ConcurrentHashMap<>();
+
+    @Override
+    public Optional<ProtectiveExit> protect(Long chatId, String owner, String symbol, Order.Side exitSide,
+                                            double qty, double takeProfit, double stopLoss) {
+        if (!enabled || qty <= 0 || takeProfit <= 0 || stopLoss <= 0) return Optional.empty();
+        cancel(owner);
+
+        ExchangeSettings settings = settingsService.getOrCreate(chatId);
+        var keys = settingsService.getApiKey(chatId);
+        ExchangeClient client = clientFactory.getClient(settings.getExchange());
+
+        double offset = stopLimitOffsetBps / 10_000.0;
+        double stopLimit = exitSide == Order.Side.SELL ? stopLoss * (1 - offset) : stopLoss * (1 + offset);
+        ProtectiveOrderRequest req = ProtectiveOrderRequest.builder()
+                .symbol(symbol)
+                .side(exitSide == Order.Side.SELL ? OrderSide.SELL : OrderSide.BUY)
+                .quantity(BigDecimal.valueOf(qty))
+                .takeProfitPrice(BigDecimal.valueOf(takeProfit))
+                .stopPrice(BigDecimal.valueOf(stopLoss))
+                .stopLimitPrice(BigDecimal.valueOf(stopLimit))
+                .build();
+
+        ProtectiveOrderResponse r;
+        try {
+            r = client.placeProtectiveOrders(keys.getPublicKey(), keys.getSecretKey(), settings.getNetwork(), req);
+        } catch (UnsupportedOperationException e) {
+            log.debug("Биржа {} не поддерживает защитные связки", settings.getExchange());
+            return Optional.empty();
+        } catch (Exception e) {
+            log.warn("Защита {} {} не выставлена: {}", owner, symbol, e.getMessage());
+            return Optional.empty();
+        }
+
+        ProtectiveExit pe = new ProtectiveExit(owner, chatId, symbol, exitSide, qty, takeProfit, stopLoss,
+                r.getListId(), r.getTakeProfitOrderId(), r.getStopOrderId());
+        active.put(owner, pe);
+        persistLeg(settings, pe, pe.takeProfitOrderId(), TYPE_TP, takeProfit);
+        persistLeg(settings, pe, pe.stopOrderId(), TYPE_SL, stopLoss);
+        log.info("Защита {}: {} {} qty={} TP={} SL={} (list={})",
+                owner, symbol, exitSide, qty, takeProfit, stopLoss, pe.listId());
+        return Optional.of(pe);
+    }
+
+    @Override
+    public Optional<ProtectiveExit> current(String owner) {
+        return Optional.ofNullable(active.get(owner));
+    }
+
+    @Override
+    public Optional<ExitFill> poll(String owner) {
+        ProtectiveExit pe = active.get(owner);
+        if (pe == null) return Optional.empty();
+
+        ExchangeSettings settings = settingsService.getOrCreate(pe.chatId());
+        var keys = settingsService.getApiKey(pe.chatId());
+        ExchangeClient client = clientFactory.getClient(settings.getExchange());
+        try {
+            OrderInfo tp = leg(client, keys.getPublicKey(), keys.getSecretKey(), settings, pe, pe.takeProfitOrderId());
+            String tpStatus = status(tp);
+            if (WAITING.contains(tpStatus)) return Optional.empty(); // связка ждёт — второй запрос не нужен
+
+            OrderInfo filled = null;
+            boolean takeProfit = false;
+            if ("FILLED".equals(tpStatus)) {
+                filled = tp;
+                takeProfit = true;
+            } else {
+                OrderInfo sl = leg(client, keys.getPublicKey(), keys.getSecretKey(), settings, pe, pe.stopOrderId());
+                String slStatus = status(sl);
+                if (WAITING.contains(slStatus)) {
+                    // у Bybit ноги независимы: тейк снят, стоп ещё стоит — защита жива
+                    return Optional.empty();
+                }
+                if ("FILLED".equals(slStatus)) filled = sl;
+            }
+
+            active.remove(owner);
+            // вторую ногу Binance снимает сам; у Bybit — снимаем мы
+            cancelQuietly(client, keys.getPublicKey(), keys.getSecretKey(), settings, pe);
+            if (filled == null) {
+                markLegs(pe, "CANCELED", null);
+                log.warn("Защита {} пропала без исполнения (list={})", owner, pe.listId());
+                return Optional.empty();
+            }
+            String filledId = takeProfit ? pe.takeProfitOrderId() : pe.stopOrderId();
+            markLegs(pe, "CANCELED", filledId);
+            ExitFill fill = new ExitFill(takeProfit, fillPrice(filled, takeProfit ? pe.takeProfit() : pe.stopLoss()),
+                    filled.getExecutedQty() == null || filled.getExecutedQty().signum() == 0
+                            ? pe.qty() : filled.getExecutedQty().doubleValue());
+            log.info("Защита {} исполнена биржей: {} @{}", owner, takeProfit ? "TP" : "SL", fill.price());
+            return Optional.of(fill);
+        } catch (Exception e) {
+            log.debug("Сверка защиты {}: {}", owner, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void cancel(String owner) {
+        ProtectiveExit pe = active.remove(owner);
+        if (pe == null) return;
+        ExchangeSettings settings = settingsService.getOrCreate(pe.chatId());
+        var keys = settingsService.getApiKey(pe.chatId());
+        ExchangeClient client = clientFactory.getClient(settings.getExchange());
+        cancelQuietly(client, keys.getPublicKey(), keys.getSecretKey(), settings, pe);
+        markLegs(pe, "CANCELED", null);
+        log.info("Защита {} снята (list={})", owner, pe.listId());
+    }
+
+    @Override
+    public Optional<ProtectiveExit> restore(Long chatId, String owner, String listId) {
+        if (listId == null) return Optional.empty();
+        // ноги могли ещё не дойти до БД: читаем с учётом отложенной записи
+        List<ExchangeOrderEntity> legs = lifecycle.listLegs(chatId, listId);
+        ExchangeOrderEntity tp = null, sl = null;
+        for (ExchangeOrderEntity e : legs) {
+            if (!"NEW".equals(e.getStatus())) continue;
+            if (TYPE_TP.equals(e.getType())) tp = e;
+            else if (TYPE_SL.equals(e.getType())) sl = e;
+        }
+        if (tp == null || sl == null) return Optional.empty();
+        ProtectiveExit pe = new ProtectiveExit(owner, chatId, tp.getSymbol(),
+                "BUY".equals(tp.getSide()) ? Order.Side.BUY : Order.Side.SELL,
+                tp.getQuantity() == null ? 0.0 : tp.getQuantity().doubleValue(),
+                tp.getPrice() == null ? 0.0 : tp.getPrice().doubleValue(),
+                sl.getPrice() == null ? 0.0 : sl.getPrice().doubleValue(),
+                listId, tp.getOrderId(), sl.getOrderId());
+        active.put(owner, pe);
+        log.info("Защита {} восстановлена (list={})", owner, listId);
+        return Optional.of(pe);
+    }
+
+    /* ====================== helpers ====================== */
+
+    private OrderInfo leg(ExchangeClient client, String apiKey, String secret, ExchangeSettings s,
+                          ProtectiveExit pe, String orderId) {
+        if (orderId == null) return null;
+        return client.fetchProtectiveLeg(apiKey, secret, s.getNetwork(), pe.symbol(), orderId).orElse(null);
+    }
+
+    private static String status(OrderInfo info) {
+        if (info == null || info.getStatus() == null) return "";
+        return info.getStatus().trim().toUpperCase(Locale.ROOT);
+    }
+
+    private static double fillPrice(OrderInfo o, double level) {
+        if (o.getAvgPrice() != null && o.getAvgPrice().signum() > 0) return o.getAvgPrice().doubleValue();
+        if (o.getQuoteQty() != null && o.getQuoteQty().signum() > 0
+                && o.getExecutedQty() != null && o.getExecutedQty().signum() > 0) {
+            return o.getQuoteQty().divide(o.getExecutedQty(), 12, RoundingMode.HALF_UP).doubleValue();
+        }
+        if (o.getPrice() != null && o.getPrice().signum() > 0) return o.getPrice().doubleValue();
+        return level;
+    }
+
+    private void cancelQuietly(ExchangeClient client, String apiKey, String secret, ExchangeSettings s, ProtectiveExit pe) {
+        try {
+            client.cancelProtectiveOrders(apiKey, secret, s.getNetwork(), pe.symbol(),
+                    ProtectiveOrderResponse.builder()
+                            .listId(pe.listId())
+                            .takeProfitOrderId(pe.takeProfitOrderId())
+                            .stopOrderId(pe.stopOrderId())
+                            .build());
+        } catch (Exception e) {
+            log.warn("Снятие защиты {} (list={}) не удалось: {}", pe.owner(), pe.listId(), e.getMessage());
+        }
+    }
+
+    /** Нога уже стоит на бирже: PLACED + ACK в журнал ордеров. */
+    private void persistLeg(ExchangeSettings s, ProtectiveExit pe, String orderId, String type, double price) {
+        if (orderId == null) return;
+        try {
+            ExchangeOrderEntity placed = lifecycle.placed(ExchangeOrderEntity.builder()
+                    .chatId(pe.chatId())
+                    .exchange(s.getExchange().name())
+                    .network(s.getNetwork())
+                    .symbol(pe.symbol())
+                    .side(pe.exitSide().name())
+                    .type(type)
+                    .orderListId(pe.listId())
+                    .price(BigDecimal.valueOf(price))
+                    .quantity(BigDecimal.valueOf(pe.qty()))
+                    .build());
+            lifecycle.acknowledged(placed.getId(), orderId, "NEW", BigDecimal.ZERO, null, null, null);
+        } catch (Exception e) {
+            log.warn("Нога {} защиты {} не сохранена: {}", type, pe.owner(), e.getMessage());
+        }
+    }
+
+    /** @param filledId нога, которая исполнилась (FILL), остальные — CANCEL со статусом status */
+    private void markLegs(ProtectiveExit pe, String status, String filledId) {
+        if (pe.listId() == null) return;
+        try {
+            for (ExchangeOrderEntity e : lifecycle.open(pe.chatId(), pe.symbol())) {
+                if (!pe.listId().equals(e.getOrderListId())) continue;
+                if (e.getOrderId() != null && e.getOrderId().equals(filledId)) {
+                    lifecycle.acknowledged(e.getId(), e.getOrderId(), "FILLED", null, null, null, null);
+                } else {
+                    lifecycle.canceled(e.getId(), status, "exit " + pe.owner());
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Статусы ног защиты {} не обновлены: {}", pe.owner(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.chicu.aibot.trading.lane;
+
+/**
+ * Полосы исполнения в порядке убывания приоритета.
+ * Нижние полосы сбрасывают нагрузку раньше, чем её почувствует верхняя.
+ */
+public enum ExecutionLane {
+    /** Управление ордерами, остановка стратегий, TP/SL. Никогда не сбрасывается. */
+    TRADING,
+    /** Оценка стратегий (тики). */
+    STRATEGY,
+    /** Перерисовка Telegram-панелей. */
+    UI;
+
+    public boolean outranks(ExecutionLane other) {
+        return ordinal() < other.ordinal();
+    }
+}
@@ -0,0 +1,28 @@
+package com.chicu.aibot.trading.lane;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Раздельные ограниченные исполнители на каждую полосу со своими метриками (aibot.lane.*).
+ */
+public interface LaneExecutor {
+
+    /**
+     * Периодическая задача. Если полоса (или более приоритетная) перегружена,
+     * очередной запуск пропускается и учитывается в aibot.lane.shed.
+     */
+    ScheduledFuture<?> scheduleAtFixedRate(ExecutionLane lane, String name, Runnable task,
+                                           long initialDelay, long period, TimeUnit unit);
+
+    /**
+     * Разовая задача.
+     * @throws RejectedExecutionException если бюджет полосы исчерпан (для TRADING не бросается)
+     */
+    Future<?> submit(ExecutionLane lane, String name, Runnable task);
+
+    /** Все потоки полосы заняты. */
+    boolean isSaturated(ExecutionLane lane);
+}
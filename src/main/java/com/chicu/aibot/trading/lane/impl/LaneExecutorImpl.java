@@ -0,0 +1,178 @@
+package com.chicu.aibot.trading.lane.impl;
+
+import com.chicu.aibot.trading.lane.ExecutionLane;
+import com.chicu.aibot.trading.lane.LaneExecutor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LaneExecutorImpl implements LaneExecutor {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${lanes.trading.threads:4}")
+    private int tradingThreads;
+
+    @Value("${lanes.strategy.threads:0}")
+    private int strategyThreads;
+
+    @Value("${lanes.ui.threads:1}")
+    private int uiThreads;
+
+    @Value("${lanes.strategy.max-pending:256}")
+    private int strategyMaxPending;
+
+    @Value("${lanes.ui.max-pending:16}")
+    private int uiMaxPending;
+
+    private final Map<ExecutionLane, Lane> lanes = new EnumMap<>(ExecutionLane.class);
+
+    /** Состояние одной полосы: пул, бюджет разовых задач и счётчики. */
+    private static final class Lane {
+        final ExecutionLane id;
+        final ScheduledThreadPoolExecutor pool;
+        final int threads;
+        /** null — без ограничения (TRADING). */
+        final Semaphore budget;
+        final AtomicInteger running = new AtomicInteger();
+        Counter executed;
+        Counter shed;
+        Timer duration;
+
+        Lane(ExecutionLane id, int threads, Semaphore budget) {
+            this.id = id;
+            this.threads = threads;
+            this.budget = budget;
+            AtomicLong seq = new AtomicLong();
+            String prefix = "lane-" + id.name().toLowerCase() + "-";
+            this.pool = new ScheduledThreadPoolExecutor(threads, r -> {
+                Thread t = new Thread(r, prefix + seq.incrementAndGet());
+                t.setDaemon(true);
+                if (id == ExecutionLane.TRADING) t.setPriority(Thread.MAX_PRIORITY);
+                return t;
+            });
+            this.pool.setRemoveOnCancelPolicy(true);
+        }
+
+        double saturation() {
+            return running.get() / (double) threads;
+        }
+    }
+
+    @PostConstruct
+    private void init() {
+        int cpu = Runtime.getRuntime().availableProcessors();
+        int st = strategyThreads > 0 ? strategyThreads : Math.max(2, cpu);
+
+        register(new Lane(ExecutionLane.TRADING, Math.max(1, tradingThreads), null));
+        register(new Lane(ExecutionLane.STRATEGY, st, new Semaphore(Math.max(1, strategyMaxPending))));
+        register(new Lane(ExecutionLane.UI, Math.max(1, uiThreads), new Semaphore(Math.max(1, uiMaxPending))));
+
+        log.info("Полосы исполнения: TRADING={}, STRATEGY={}, UI={} поток(ов)",
+                lanes.get(ExecutionLane.TRADING).threads, st, lanes.get(ExecutionLane.UI).threads);
+    }
+
+    private void register(Lane lane) {
+        String tag = lane.id.name();
+        Gauge.builder("aibot.lane.active", lane.running, AtomicInteger::get)
+                .tag("lane", tag).description("Задачи, исполняемые сейчас").register(meterRegistry);
+        Gauge.builder("aibot.lane.saturation", lane, Lane::saturation)
+                .tag("lane", tag).description("Доля занятых потоков").register(meterRegistry);
+        Gauge.builder("aibot.lane.queue", lane.pool, p -> p.getQueue().size())
+                .tag("lane", tag).description("Задачи в очереди пула (включая периодические)").register(meterRegistry);
+        lane.executed = Counter.builder("aibot.lane.executed").tag("lane", tag).register(meterRegistry);
+        lane.shed = Counter.builder("aibot.lane.shed").tag("lane", tag).register(meterRegistry);
+        lane.duration = Timer.builder("aibot.lane.task").tag("lane", tag).register(meterRegistry);
+        lanes.put(lane.id, lane);
+    }
+
+    @PreDestroy
+    private void shutdown() {
+        // нижние полосы гасим первыми
+        for (ExecutionLane id : new ExecutionLane[]{ExecutionLane.UI, ExecutionLane.STRATEGY, ExecutionLane.TRADING}) {
+            lanes.get(id).pool.shutdownNow();
+        }
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(ExecutionLane lane, String name, Runnable task,
+                                                  long initialDelay, long period, TimeUnit unit) {
+        Lane l = lanes.get(lane);
+        return l.pool.scheduleAtFixedRate(() -> {
+            if (shouldShed(l)) {
+                l.shed.increment();
+                log.debug("Полоса {}: пропущен тик {}", lane, name);
+                return;
+            }
+            runTracked(l, name, task);
+        }, initialDelay, period, unit);
+    }
+
+    @Override
+    public Future<?> submit(ExecutionLane lane, String name, Runnable task) {
+        Lane l = lanes.get(lane);
+        if (l.budget != null && (shouldShed(l) || !l.budget.tryAcquire())) {
+            l.shed.increment();
+            throw new RejectedExecutionException("Полоса " + lane + " перегружена: " + name);
+        }
+        try {
+            return l.pool.submit(() -> {
+                try {
+                    runTracked(l, name, task);
+                } finally {
+                    if (l.budget != null) l.budget.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            if (l.budget != null) l.budget.release();
+            l.shed.increment();
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean isSaturated(ExecutionLane lane) {
+        Lane l = lanes.get(lane);
+        return l.running.get() >= l.threads;
+    }
+
+    /** Полоса сбрасывает нагрузку, если насыщена любая более приоритетная полоса. */
+    private boolean shouldShed(Lane lane) {
+        if (lane.id == ExecutionLane.TRADING) return false;
+        for (Lane other : lanes.values()) {
+            if (other.id.outranks(lane.id) && isSaturated(other.id)) return true;
+        }
+        // UI дополнительно уступает, когда сама полоса забита
+        return lane.id == ExecutionLane.UI && isSaturated(lane.id);
+    }
+
+    private void runTracked(Lane lane, String name, Runnable task) {
+        lane.running.incrementAndGet();
+        long t0 = System.nanoTime();
+        try {
+            task.run();
+        } catch (Exception e) {
+            log.error("Полоса {}: ошибка задачи {}: {}", lane.id, name, e.getMessage(), e);
+        } finally {
+            lane.duration.record(System.nanoTime() - t0, TimeUnit.NANOSECONDS);
+            lane.executed.increment();
+            lane.running.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.chicu.aibot.trading.optimizer;
+
+import com.chicu.aibot.strategy.StrategySettings;
+import com.chicu.aibot.strategy.StrategyType;
+import com.chicu.aibot.strategy.indicator.IndicatorSeriesCache;
+import com.chicu.aibot.trading.backtest.BacktestStrategyFactory;
+
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Описание стратегии для оптимизатора: какие параметры крутить, как собрать её для бэктеста
+ * и как записать выбранный набор в настройки пользователя.
+ */
+public interface OptimizableStrategy<S extends StrategySettings> {
+
+    StrategyType type();
+
+    ParamSpace space();
+
+    /** Текущие настройки пользователя — база для кандидатов. */
+    S load(Long chatId);
+
+    String symbol(S settings);
+
+    /** Независимая копия настроек (каждый прогон получает свой объект). */
+    S copy(S settings);
+
+    /** Подставить параметры кандидата в настройки. */
+    void applyParams(S settings, Map<String, Double> params);
+
+    void save(S settings);
+
+    BacktestStrategyFactory factory(Supplier<S> settings);
+
+    /** Подкладка общих предрасчитанных рядов в кэш прогона; null — стратегия считает индикаторы сама. */
+    default Consumer<IndicatorSeriesCache> indicatorSetup(S settings, SharedIndicators shared) {
+        return null;
+    }
+
+    /** Короткое описание набора для показа пользователю. */
+    String describe(Map<String, Double> params);
+}
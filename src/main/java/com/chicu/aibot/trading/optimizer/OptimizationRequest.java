@@ -0,0 +1,31 @@
+package com.chicu.aibot.trading.optimizer;
+
+import com.chicu.aibot.strategy.StrategyType;
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class OptimizationRequest {
+
+    Long chatId;
+    StrategyType type;
+
+    @Builder.Default
+    SearchMethod method = SearchMethod.HALVING;
+
+    /** Сколько кандидатов оценить (для HALVING — сколько стартует на первом отрезке). */
+    @Builder.Default
+    int candidates = 1000;
+
+    /** Сколько лучших наборов вернуть с out-of-sample оценкой. */
+    @Builder.Default
+    int top = 5;
+
+    /** Доля хвоста истории, отложенная для out-of-sample проверки. */
+    @Builder.Default
+    double outOfSampleFraction = 0.3;
+
+    @Builder.Default
+    long seed = 42L;
+}
@@ -0,0 +1,41 @@
+package com.chicu.aibot.trading.optimizer;
+
+import com.chicu.aibot.strategy.StrategyType;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+@Value
+@Builder(toBuilder = true)
+public class OptimizationResult {
+
+    /**
+     * Набор параметров с оценками. score = доходность% − 0.5·макс.просадка%.
+     * Отбор — по in-sample, out-of-sample показывается для контроля переобучения.
+     */
+    public record Candidate(Map<String, Double> params,
+                            double inSampleScore,
+                            double outOfSampleScore,
+                            double outOfSampleReturnPct,
+                            double outOfSampleDrawdownPct,
+                            int outOfSampleFills) { }
+
+    StrategyType type;
+    SearchMethod method;
+    String symbol;
+    String timeframe;
+    int bars;
+    int evaluated;
+    List<Candidate> top;
+    Duration elapsed;
+    Instant finishedAt;
+    String error;
+
+    public boolean isFailed() {
+        return error != null;
+    }
+}
@@ -0,0 +1,31 @@
+package com.chicu.aibot.trading.optimizer;
+
+import com.chicu.aibot.strategy.StrategyType;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Подбор параметров стратегии по истории свечей поверх бэктестера.
+ * Кандидаты прогоняются параллельно на всех ядрах; лучшие проверяются на отложенном хвосте истории.
+ */
+public interface OptimizerService {
+
+    /** Синхронный подбор. */
+    OptimizationResult optimize(OptimizationRequest request);
+
+    /** Подбор в фоне; повторный запуск для того же чата и стратегии, пока идёт предыдущий, вернёт его же. */
+    CompletableFuture<OptimizationResult> submit(OptimizationRequest request);
+
+    boolean isRunning(Long chatId, StrategyType type);
+
+    /** Последний завершённый подбор для чата и стратегии. */
+    Optional<OptimizationResult> lastResult(Long chatId, StrategyType type);
+
+    /** Человекочитаемое описание набора параметров. */
+    String describe(StrategyType type, Map<String, Double> params);
+
+    /** Записать в настройки пользователя набор с номером index из последнего результата. */
+    boolean apply(Long chatId, StrategyType type, int index);
+}
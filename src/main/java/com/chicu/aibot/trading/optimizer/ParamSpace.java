@@ -0,0 +1,69 @@
+package com.chicu.aibot.trading.optimizer;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/** Пространство параметров: каждое измерение — конечный набор допустимых значений. */
+public final class ParamSpace {
+
+    public record Dimension(String name, double... values) { }
+
+    private final List<Dimension> dims;
+
+    public ParamSpace(List<Dimension> dims) {
+        this.dims = List.copyOf(dims);
+    }
+
+    public static ParamSpace of(Dimension... dims) {
+        return new ParamSpace(List.of(dims));
+    }
+
+    public List<Dimension> dimensions() {
+        return dims;
+    }
+
+    public long gridSize() {
+        long size = 1;
+        for (Dimension d : dims) size *= Math.max(1, d.values().length);
+        return size;
+    }
+
+    /** Точка сетки по её порядковому номеру (смешанная система счисления по измерениям). */
+    public Map<String, Double> point(long index) {
+        Map<String, Double> p = new LinkedHashMap<>();
+        for (Dimension d : dims) {
+            int len = d.values().length;
+            p.put(d.name(), d.values()[(int) (index % len)]);
+            index /= len;
+        }
+        return p;
+    }
+
+    /** Вся сетка, а если она больше limit — равномерно прореженная до limit точек. */
+    public List<Map<String, Double>> grid(int limit) {
+        long size = gridSize();
+        int n = (int) Math.min(size, Math.max(1, limit));
+        List<Map<String, Double>> out = new ArrayList<>(n);
+        double stride = (double) size / n;
+        for (int i = 0; i < n; i++) out.add(point((long) (i * stride)));
+        return out;
+    }
+
+    /** До n различных случайных точек. */
+    public List<Map<String, Double>> random(int n, Random rnd) {
+        long size = gridSize();
+        int target = (int) Math.min(size, Math.max(1, n));
+        Set<Long> picked = new LinkedHashSet<>();
+        while (picked.size() < target) {
+            picked.add(Math.floorMod(rnd.nextLong(), size));
+        }
+        List<Map<String, Double>> out = new ArrayList<>(target);
+        for (long idx : picked) out.add(point(idx));
+        return out;
+    }
+}
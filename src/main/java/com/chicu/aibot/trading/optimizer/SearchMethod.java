@@ -0,0 +1,10 @@
+package com.chicu.aibot.trading.optimizer;
+
+public enum SearchMethod {
+    /** Полный перебор сетки (при превышении лимита — равномерная выборка из неё). */
+    GRID,
+    /** Случайные точки пространства параметров. */
+    RANDOM,
+    /** Successive halving: много кандидатов на коротком отрезке, лучшие — на всё более длинном. */
+    HALVING
+}
@@ -0,0 +1,26 @@
+package com.chicu.aibot.trading.optimizer;
+
+import com.chicu.aibot.strategy.indicator.VarianceTable;
+import com.chicu.aibot.strategy.model.Candle;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Индикаторные ряды, посчитанные один раз на всю оптимизацию и общие для всех кандидатов.
+ * Таблицы неизменяемы; кандидаты читают их через собственные представления.
+ */
+public final class SharedIndicators {
+
+    private final List<Candle> history;
+    private final Map<Integer, VarianceTable> variance = new ConcurrentHashMap<>();
+
+    public SharedIndicators(List<Candle> history) {
+        this.history = history;
+    }
+
+    public VarianceTable variance(int period) {
+        return variance.computeIfAbsent(period, p -> VarianceTable.compute(history, p));
+    }
+}
@@ -0,0 +1,90 @@
+package com.chicu.aibot.trading.optimizer.impl;
+
+import com.chicu.aibot.strategy.StrategyType;
+import com.chicu.aibot.strategy.bollinger.model.BollingerStrategySettings;
+import com.chicu.aibot.strategy.bollinger.service.BollingerStrategySettingsService;
+import com.chicu.aibot.strategy.indicator.IndicatorSeriesCache;
+import com.chicu.aibot.strategy.indicator.PrecomputedVariance;
+import com.chicu.aibot.trading.backtest.BacktestStrategies;
+import com.chicu.aibot.trading.backtest.BacktestStrategyFactory;
+import com.chicu.aibot.trading.optimizer.OptimizableStrategy;
+import com.chicu.aibot.trading.optimizer.ParamSpace;
+import com.chicu.aibot.trading.optimizer.SharedIndicators;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+@Component
+@RequiredArgsConstructor
+public class BollingerOptimizable implements OptimizableStrategy<BollingerStrategySettings> {
+
+    private static final ParamSpace SPACE = ParamSpace.of(
+            new ParamSpace.Dimension("period", 10, 14, 20, 26, 30, 40, 50),
+            new ParamSpace.Dimension("stdDevMultiplier", 1.5, 1.75, 2.0, 2.25, 2.5, 3.0),
+            new ParamSpace.Dimension("takeProfitPct", 0.5, 1.0, 1.5, 2.0, 3.0),
+            new ParamSpace.Dimension("stopLossPct", 0.3, 0.5, 1.0, 1.5, 2.0)
+    );
+
+    private final BollingerStrategySettingsService settingsService;
+
+    @Override public StrategyType type() { return StrategyType.BOLLINGER_BANDS; }
+
+    @Override public ParamSpace space() { return SPACE; }
+
+    @Override public BollingerStrategySettings load(Long chatId) { return settingsService.getOrCreate(chatId); }
+
+    @Override public String symbol(BollingerStrategySettings s) { return s.getSymbol(); }
+
+    @Override
+    public BollingerStrategySettings copy(BollingerStrategySettings s) {
+        return BollingerStrategySettings.builder()
+                .chatId(s.getChatId())
+                .symbol(s.getSymbol())
+                .timeframe(s.getTimeframe())
+                .cachedCandlesLimit(s.getCachedCandlesLimit())
+                .orderVolume(s.getOrderVolume())
+                .period(s.getPeriod())
+                .stdDevMultiplier(s.getStdDevMultiplier())
+                .takeProfitPct(s.getTakeProfitPct())
+                .stopLossPct(s.getStopLossPct())
+                .allowShort(s.getAllowShort())
+                .allowLong(s.getAllowLong())
+                .active(s.isActive())
+                .build();
+    }
+
+    @Override
+    public void applyParams(BollingerStrategySettings s, Map<String, Double> p) {
+        if (p.containsKey("period")) s.setPeriod(p.get("period").intValue());
+        if (p.containsKey("stdDevMultiplier")) s.setStdDevMultiplier(p.get("stdDevMultiplier"));
+        if (p.containsKey("takeProfitPct")) s.setTakeProfitPct(p.get("takeProfitPct"));
+        if (p.containsKey("stopLossPct")) s.setStopLossPct(p.get("stopLossPct"));
+    }
+
+    @Override public void save(BollingerStrategySettings s) { settingsService.save(s); }
+
+    @Override
+    public BacktestStrategyFactory factory(Supplier<BollingerStrategySettings> settings) {
+        return BacktestStrategies.bollinger(settings);
+    }
+
+    @Override
+    public Consumer<IndicatorSeriesCache> indicatorSetup(BollingerStrategySettings s, SharedIndicators shared) {
+        // тот же ключ, что берёт стратегия в бэктесте: без биржи и сети / symbol / tf / "boll:"+period (period не меньше 5)
+        int period = Math.max(5, s.getPeriod() == null ? 20 : s.getPeriod());
+        String symbol = s.getSymbol() == null || s.getSymbol().isBlank() ? "BTCUSDT" : s.getSymbol();
+        String tf = s.getTimeframe() == null || s.getTimeframe().isBlank() ? "1m" : s.getTimeframe();
+        return cache -> cache.preload(null, null, symbol, tf, "boll:" + period,
+                new PrecomputedVariance(shared.variance(period)));
+    }
+
+    @Override
+    public String describe(Map<String, Double> p) {
+        return String.format(Locale.US, "period=%d, k=%.2f, TP=%.1f%%, SL=%.1f%%",
+                p.get("period").intValue(), p.get("stdDevMultiplier"), p.get("takeProfitPct"), p.get("stopLossPct"));
+    }
+}
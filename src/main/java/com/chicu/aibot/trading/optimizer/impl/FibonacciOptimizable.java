@@ -0,0 +1,92 @@
+package com.chicu.aibot.trading.optimizer.impl;
+
+import com.chicu.aibot.strategy.StrategyType;
+import com.chicu.aibot.strategy.fibonacci.model.FibonacciGridStrategySettings;
+import com.chicu.aibot.strategy.fibonacci.service.FibonacciGridStrategySettingsService;
+import com.chicu.aibot.trading.backtest.BacktestStrategies;
+import com.chicu.aibot.trading.backtest.BacktestStrategyFactory;
+import com.chicu.aibot.trading.optimizer.OptimizableStrategy;
+import com.chicu.aibot.trading.optimizer.ParamSpace;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+
+@Component
+@RequiredArgsConstructor
+public class FibonacciOptimizable implements OptimizableStrategy<FibonacciGridStrategySettings> {
+
+    /** Наборы уровней; в пространстве параметров перебирается номер набора. */
+    private static final List<List<Double>> LEVEL_PRESETS = List.of(
+            List.of(0.236, 0.382, 0.5, 0.618, 0.786),
+            List.of(0.382, 0.5, 0.618),
+            List.of(0.236, 0.618, 0.786),
+            List.of(0.236, 0.382, 0.618, 0.786, 1.0)
+    );
+
+    private static final ParamSpace SPACE = ParamSpace.of(
+            new ParamSpace.Dimension("levelsPreset", 0, 1, 2, 3),
+            new ParamSpace.Dimension("maxActiveOrders", 1, 2, 3, 5, 8),
+            new ParamSpace.Dimension("takeProfitPct", 0.3, 0.6, 1.0, 1.5, 2.5),
+            new ParamSpace.Dimension("stopLossPct", 0.4, 0.8, 1.2, 2.0)
+    );
+
+    private final FibonacciGridStrategySettingsService settingsService;
+
+    @Override public StrategyType type() { return StrategyType.FIBONACCI_GRID; }
+
+    @Override public ParamSpace space() { return SPACE; }
+
+    @Override public FibonacciGridStrategySettings load(Long chatId) { return settingsService.getOrCreate(chatId); }
+
+    @Override public String symbol(FibonacciGridStrategySettings s) { return s.getSymbol(); }
+
+    @Override
+    public FibonacciGridStrategySettings copy(FibonacciGridStrategySettings s) {
+        return FibonacciGridStrategySettings.builder()
+                .chatId(s.getChatId())
+                .symbol(s.getSymbol())
+                .levels(s.getLevels() == null ? null : new ArrayList<>(s.getLevels()))
+                .gridSizePct(s.getGridSizePct())
+                .orderVolume(s.getOrderVolume())
+                .maxActiveOrders(s.getMaxActiveOrders())
+                .takeProfitPct(s.getTakeProfitPct())
+                .stopLossPct(s.getStopLossPct())
+                .allowShort(s.getAllowShort())
+                .allowLong(s.getAllowLong())
+                .timeframe(s.getTimeframe())
+                .cachedCandlesLimit(s.getCachedCandlesLimit())
+                .active(s.isActive())
+                .build();
+    }
+
+    @Override
+    public void applyParams(FibonacciGridStrategySettings s, Map<String, Double> p) {
+        if (p.containsKey("levelsPreset")) s.setLevels(new ArrayList<>(preset(p)));
+        if (p.containsKey("maxActiveOrders")) s.setMaxActiveOrders(p.get("maxActiveOrders").intValue());
+        if (p.containsKey("takeProfitPct")) s.setTakeProfitPct(p.get("takeProfitPct"));
+        if (p.containsKey("stopLossPct")) s.setStopLossPct(p.get("stopLossPct"));
+    }
+
+    @Override public void save(FibonacciGridStrategySettings s) { settingsService.save(s); }
+
+    @Override
+    public BacktestStrategyFactory factory(Supplier<FibonacciGridStrategySettings> settings) {
+        return BacktestStrategies.fibonacci(settings);
+    }
+
+    @Override
+    public String describe(Map<String, Double> p) {
+        return String.format(Locale.US, "levels=%s, maxOrders=%d, TP=%.1f%%, SL=%.1f%%",
+                preset(p), p.get("maxActiveOrders").intValue(), p.get("takeProfitPct"), p.get("stopLossPct"));
+    }
+
+    private static List<Double> preset(Map<String, Double> p) {
+        int i = p.getOrDefault("levelsPreset", 0.0).intValue();
+        return LEVEL_PRESETS.get(Math.floorMod(i, LEVEL_PRESETS.size()));
+    }
+}
@@ -0,0 +1,286 @@
+package com.chicu.aibot.trading.optimizer.impl;
+
+import com.chicu.aibot.strategy.StrategySettings;
+import com.chicu.aibot.strategy.StrategyType;
+import com.chicu.aibot.strategy.model.Candle;
+import com.chicu.aibot.strategy.service.CandleService;
+import com.chicu.aibot.trading.backtest.BacktestRequest;
+import com.chicu.aibot.trading.backtest.BacktestResult;
+import com.chicu.aibot.trading.backtest.BacktestService;
+import com.chicu.aibot.trading.optimizer.OptimizableStrategy;
+import com.chicu.aibot.trading.optimizer.OptimizationRequest;
+import com.chicu.aibot.trading.optimizer.OptimizationResult;
+import com.chicu.aibot.trading.optimizer.OptimizerService;
+import com.chicu.aibot.trading.optimizer.SearchMethod;
+import com.chicu.aibot.trading.optimizer.SharedIndicators;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Оптимизатор: история делится на in-sample (отбор) и out-of-sample (контроль).
+ * Прогоны кандидатов уходят пачками в {@link BacktestService#runAll}, т.е. на все ядра;
+ * индикаторные ряды считаются один раз на подбор и делятся между кандидатами.
+ */
+@Slf4j
+@Service
+public class OptimizerServiceImpl implements OptimizerService {
+
+    /** Во сколько раз сокращается число кандидатов между ступенями successive halving. */
+    private static final int ETA = 3;
+    /** Самая короткая ступень не короче этого числа баров. */
+    private static final int MIN_RUNG_BARS = 200;
+
+    private final BacktestService backtests;
+    private final CandleService candleService;
+    private final Map<StrategyType, OptimizableStrategy<?>> strategies = new EnumMap<>(StrategyType.class);
+    private final int historyBars;
+
+    /** Подборы выполняются по одному: каждый и так занимает все ядра. */
+    private final ExecutorService jobs = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "optimizer");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Map<String, CompletableFuture<OptimizationResult>> running = new ConcurrentHashMap<>();
+    private final Map<String, OptimizationResult> results = new ConcurrentHashMap<>();
+
+    public OptimizerServiceImpl(BacktestService backtests,
+                                CandleService candleService,
+                                List<OptimizableStrategy<?>> optimizables,
+                                @Value("${optimizer.history-bars:1000}") int historyBars) {
+        this.backtests = backtests;
+        this.candleService = candleService;
+        this.historyBars = historyBars;
+        for (OptimizableStrategy<?> o : optimizables) strategies.put(o.type(), o);
+    }
+
+    @PreDestroy
+    private void shutdown() {
+        jobs.shutdownNow();
+    }
+
+    @Override
+    public CompletableFuture<OptimizationResult> submit(OptimizationRequest request) {
+        String key = key(request.getChatId(), request.getType());
+        // задача стартует только после того, как заняла ключ: внутри computeIfAbsent быстрый (или
+        // отклонённый пулом) прогон снимал бы ключ из той же карты — "Recursive update"
+        CompletableFuture<OptimizationResult> job = new CompletableFuture<>();
+        CompletableFuture<OptimizationResult> existing = running.putIfAbsent(key, job);
+        if (existing != null) return existing;
+        job.whenComplete((r, e) -> running.remove(key, job));
+        try {
+            CompletableFuture.supplyAsync(() -> optimize(request), jobs).whenComplete((r, e) -> {
+                if (e != null) job.completeExceptionally(e);
+                else job.complete(r);
+            });
+        } catch (RejectedExecutionException e) {
+            job.completeExceptionally(e);
+        }
+        return job;
+    }
+
+    @Override
+    public boolean isRunning(Long chatId, StrategyType type) {
+        return running.containsKey(key(chatId, type));
+    }
+
+    @Override
+    public Optional<OptimizationResult> lastResult(Long chatId, StrategyType type) {
+        return Optional.ofNullable(results.get(key(chatId, type)));
+    }
+
+    @Override
+    public boolean apply(Long chatId, StrategyType type, int index) {
+        OptimizationResult r = results.get(key(chatId, type));
+        OptimizableStrategy<?> o = strategies.get(type);
+        if (r == null || o == null || r.getTop() == null || index < 0 || index >= r.getTop().size()) return false;
+        applyTo(o, chatId, r.getTop().get(index).params());
+        log.info("Оптимизатор: chatId={} применён набор #{} для {}", chatId, index + 1, type);
+        return true;
+    }
+
+    @Override
+    public String describe(StrategyType type, Map<String, Double> params) {
+        OptimizableStrategy<?> o = strategies.get(type);
+        return o == null ? String.valueOf(params) : o.describe(params);
+    }
+
+    private static <S extends StrategySettings> void applyTo(OptimizableStrategy<S> o, Long chatId, Map<String, Double> params) {
+        S s = o.load(chatId);
+        o.applyParams(s, params);
+        o.save(s);
+    }
+
+    @Override
+    public OptimizationResult optimize(OptimizationRequest request) {
+        OptimizableStrategy<?> o = strategies.get(request.getType());
+        long t0 = System.nanoTime();
+        OptimizationResult r;
+        try {
+            if (o == null) throw new IllegalArgumentException("Стратегия не поддерживает подбор: " + request.getType());
+            r = run(o, request);
+        } catch (Exception e) {
+            log.warn("Оптимизатор: chatId={} {} упал: {}", request.getChatId(), request.getType(), e.toString());
+            r = OptimizationResult.builder()
+                    .type(request.getType())
+                    .method(request.getMethod())
+                    .top(List.of())
+                    .error(e.getMessage())
+                    .build();
+        }
+        r = r.toBuilder()
+                .elapsed(Duration.ofNanos(System.nanoTime() - t0))
+                .finishedAt(Instant.now())
+                .build();
+        results.put(key(request.getChatId(), request.getType()), r);
+        return r;
+    }
+
+    /* ====================== подбор ====================== */
+
+    private <S extends StrategySettings> OptimizationResult run(OptimizableStrategy<S> o, OptimizationRequest req) {
+        S base = o.load(req.getChatId());
+        String symbol = o.symbol(base);
+        String tf = base.getTimeframe();
+
+        List<Candle> history = candleService.getCandles(req.getChatId(), symbol, tf, historyBars);
+        if (history == null || history.size() < 2 * MIN_RUNG_BARS) {
+            throw new IllegalStateException("мало истории: " + (history == null ? 0 : history.size()) + " баров");
+        }
+        history = List.copyOf(history);
+        int n = history.size();
+        int split = (int) Math.round(n * (1.0 - Math.min(0.8, Math.max(0.05, req.getOutOfSampleFraction()))));
+        List<Candle> inSample = history.subList(0, split);
+        SharedIndicators shared = new SharedIndicators(history);
+
+        Random rnd = new Random(req.getSeed());
+        List<Map<String, Double>> candidates = switch (req.getMethod()) {
+            case GRID -> o.space().grid(req.getCandidates());
+            case RANDOM, HALVING -> o.space().random(req.getCandidates(), rnd);
+        };
+
+        List<Scored> ranked = req.getMethod() == SearchMethod.HALVING
+                ? halving(o, base, candidates, inSample, shared)
+                : evaluate(o, base, candidates, inSample, 0, shared);
+
+        // лучшие по in-sample — на отложенный хвост
+        List<Scored> best = ranked.subList(0, Math.min(Math.max(1, req.getTop()), ranked.size()));
+        List<BacktestRequest> oos = new ArrayList<>(best.size());
+        for (Scored s : best) oos.add(request(o, base, s.params(), history, split, shared));
+        List<BacktestResult> oosResults = backtests.runAll(oos);
+
+        List<OptimizationResult.Candidate> top = new ArrayList<>(best.size());
+        for (int i = 0; i < best.size(); i++) {
+            BacktestResult br = oosResults.get(i);
+            top.add(new OptimizationResult.Candidate(
+                    best.get(i).params(),
+                    best.get(i).score(),
+                    score(br),
+                    br.getReturnPct(),
+                    br.getMaxDrawdownPct(),
+                    br.getFills() == null ? 0 : br.getFills().size()));
+        }
+
+        log.info("Оптимизатор: chatId={} {} {}: кандидатов={}, баров={}, лучший IS={}",
+                req.getChatId(), o.type(), req.getMethod(), candidates.size(), n,
+                top.isEmpty() ? "—" : String.format("%.2f", top.getFirst().inSampleScore()));
+
+        return OptimizationResult.builder()
+                .type(o.type())
+                .method(req.getMethod())
+                .symbol(symbol)
+                .timeframe(tf)
+                .bars(n)
+                .evaluated(candidates.size())
+                .top(top)
+                .build();
+    }
+
+    /**
+     * Successive halving: все кандидаты — на последнем коротком отрезке in-sample, лучшая треть —
+     * на отрезке в ETA раз длиннее, и так до полного in-sample.
+     */
+    private <S extends StrategySettings> List<Scored> halving(OptimizableStrategy<S> o, S base,
+                                                              List<Map<String, Double>> candidates,
+                                                              List<Candle> inSample, SharedIndicators shared) {
+        int n = inSample.size();
+        int rungs = 0;
+        for (long len = n; len / ETA >= MIN_RUNG_BARS && Math.pow(ETA, rungs + 1) < candidates.size(); len /= ETA) rungs++;
+
+        List<Map<String, Double>> alive = candidates;
+        List<Scored> ranked = List.of();
+        for (int r = rungs; r >= 0; r--) {
+            int len = (int) (n / Math.pow(ETA, r));
+            ranked = evaluate(o, base, alive, inSample, n - len, shared);
+            if (r == 0) break;
+            int keep = Math.max(1, (int) Math.ceil(ranked.size() / (double) ETA));
+            alive = ranked.subList(0, keep).stream().map(Scored::params).toList();
+        }
+        return ranked;
+    }
+
+    private <S extends StrategySettings> List<Scored> evaluate(OptimizableStrategy<S> o, S base,
+                                                               List<Map<String, Double>> candidates,
+                                                               List<Candle> history, int warmup,
+                                                               SharedIndicators shared) {
+        List<BacktestRequest> reqs = new ArrayList<>(candidates.size());
+        for (Map<String, Double> p : candidates) reqs.add(request(o, base, p, history, warmup, shared));
+        List<BacktestResult> res = backtests.runAll(reqs);
+
+        List<Scored> out = new ArrayList<>(candidates.size());
+        for (int i = 0; i < candidates.size(); i++) out.add(new Scored(candidates.get(i), score(res.get(i))));
+        out.sort(Comparator.comparingDouble(Scored::score).reversed());
+        return out;
+    }
+
+    private <S extends StrategySettings> BacktestRequest request(OptimizableStrategy<S> o, S base,
+                                                                 Map<String, Double> params,
+                                                                 List<Candle> history, int warmup,
+                                                                 SharedIndicators shared) {
+        S probe = o.copy(base);
+        o.applyParams(probe, params);
+        return BacktestRequest.builder()
+                .name(o.type() + " " + o.describe(params))
+                .symbol(o.symbol(base))
+                .timeframe(base.getTimeframe())
+                .history(history)
+                .warmupBars(warmup)
+                .strategy(o.factory(() -> {
+                    S s = o.copy(base);
+                    o.applyParams(s, params);
+                    return s;
+                }))
+                .indicatorSetup(o.indicatorSetup(probe, shared))
+                .equityEvery(Math.max(1, history.size()))
+                .build();
+    }
+
+    /** Доходность, штрафованная просадкой. */
+    private static double score(BacktestResult r) {
+        if (r == null || r.isFailed()) return Double.NEGATIVE_INFINITY;
+        return r.getReturnPct() - 0.5 * r.getMaxDrawdownPct();
+    }
+
+    private static String key(Long chatId, StrategyType type) {
+        return chatId + ":" + type;
+    }
+
+    private record Scored(Map<String, Double> params, double score) { }
+}
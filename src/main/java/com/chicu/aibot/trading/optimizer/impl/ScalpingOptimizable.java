@@ -0,0 +1,71 @@
+package com.chicu.aibot.trading.optimizer.impl;
+
+import com.chicu.aibot.strategy.StrategyType;
+import com.chicu.aibot.strategy.scalping.model.ScalpingStrategySettings;
+import com.chicu.aibot.strategy.scalping.service.ScalpingStrategySettingsService;
+import com.chicu.aibot.trading.backtest.BacktestStrategies;
+import com.chicu.aibot.trading.backtest.BacktestStrategyFactory;
+import com.chicu.aibot.trading.optimizer.OptimizableStrategy;
+import com.chicu.aibot.trading.optimizer.ParamSpace;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+
+@Component
+@RequiredArgsConstructor
+public class ScalpingOptimizable implements OptimizableStrategy<ScalpingStrategySettings> {
+
+    private static final ParamSpace SPACE = ParamSpace.of(
+            new ParamSpace.Dimension("windowSize", 2, 3, 5, 8, 13, 21, 34),
+            new ParamSpace.Dimension("priceChangeThreshold", 0.05, 0.1, 0.2, 0.3, 0.5, 0.8, 1.2, 2.0)
+    );
+
+    private final ScalpingStrategySettingsService settingsService;
+
+    @Override public StrategyType type() { return StrategyType.SCALPING; }
+
+    @Override public ParamSpace space() { return SPACE; }
+
+    @Override public ScalpingStrategySettings load(Long chatId) { return settingsService.getOrCreate(chatId); }
+
+    @Override public String symbol(ScalpingStrategySettings s) { return s.getSymbol(); }
+
+    @Override
+    public ScalpingStrategySettings copy(ScalpingStrategySettings s) {
+        return ScalpingStrategySettings.builder()
+                .chatId(s.getChatId())
+                .symbol(s.getSymbol())
+                .windowSize(s.getWindowSize())
+                .priceChangeThreshold(s.getPriceChangeThreshold())
+                .orderVolume(s.getOrderVolume())
+                .spreadThreshold(s.getSpreadThreshold())
+                .takeProfitPct(s.getTakeProfitPct())
+                .stopLossPct(s.getStopLossPct())
+                .timeframe(s.getTimeframe())
+                .cachedCandlesLimit(s.getCachedCandlesLimit())
+                .active(s.isActive())
+                .build();
+    }
+
+    @Override
+    public void applyParams(ScalpingStrategySettings s, Map<String, Double> p) {
+        if (p.containsKey("windowSize")) s.setWindowSize(p.get("windowSize").intValue());
+        if (p.containsKey("priceChangeThreshold")) s.setPriceChangeThreshold(p.get("priceChangeThreshold"));
+    }
+
+    @Override public void save(ScalpingStrategySettings s) { settingsService.save(s); }
+
+    @Override
+    public BacktestStrategyFactory factory(Supplier<ScalpingStrategySettings> settings) {
+        return BacktestStrategies.scalping(settings);
+    }
+
+    @Override
+    public String describe(Map<String, Double> p) {
+        return String.format(Locale.US, "window=%d, threshold=%.2f%%",
+                p.get("windowSize").intValue(), p.get("priceChangeThreshold"));
+    }
+}
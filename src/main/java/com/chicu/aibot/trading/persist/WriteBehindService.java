@@ -0,0 +1,58 @@
+package com.chicu.aibot.trading.persist;
+
+import com.chicu.aibot.exchange.order.model.ExchangeOrderEntity;
+import com.chicu.aibot.exchange.order.model.OrderEventEntity;
+import com.chicu.aibot.trading.trade.TradeLogEntity;
+
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Отложенная запись ордеров и сделок: вызов только ставит изменение в очередь (или, если она
+ * полна, дописывает в файл на диске) и сразу возвращается — торговый поток Postgres не ждёт.
+ * Фоновый поток сбрасывает очередь JDBC-батчами по размеру или по времени, а также при остановке.
+ * <p>
+ * Переданную сущность после вызова не менять: в БД уйдёт именно этот объект.
+ * Ордер попадает в {@link com.chicu.aibot.exchange.order.service.OpenOrderIndex} сразу, до записи.
+ */
+public interface WriteBehindService {
+
+    /** Новый ордер; id выдаётся здесь же, если не задан. */
+    void insertOrder(ExchangeOrderEntity order);
+
+    /** Изменение уже сохранённого (или стоящего в очереди) ордера. */
+    void updateOrder(ExchangeOrderEntity order);
+
+    void deleteOrder(ExchangeOrderEntity order);
+
+    /** Новая сделка; id выдаётся здесь же, если не задан. */
+    void insertTrade(TradeLogEntity trade);
+
+    /** Событие жизненного цикла ордера; id выдаётся здесь же, если не задан. Ставить до изменения ордера. */
+    void insertEvent(OrderEventEntity event);
+
+    /**
+     * Read-your-writes для чтений ордеров из БД: строки из {@code dbQuery} заменяются
+     * незаписанными состояниями (удалённые выкидываются), незаписанные новые ордера,
+     * подходящие под {@code filter}, добавляются. Под {@code filter} проверяется и итог.
+     */
+    List<ExchangeOrderEntity> overlayOrders(Supplier<List<ExchangeOrderEntity>> dbQuery,
+                                            Predicate<ExchangeOrderEntity> filter);
+
+    /** Сделки, ещё не записанные в БД. */
+    List<TradeLogEntity> pendingTrades();
+
+    /** События ордеров, ещё не записанные в БД. */
+    List<OrderEventEntity> pendingEvents();
+
+    /** Изменений в очереди и в файле переполнения. */
+    int pending();
+
+    /**
+     * Дождаться, пока запишется (или уйдёт в dead.jsonl) всё, что поставлено до вызова, включая
+     * файл переполнения. Нужен перед передачей стратегии другому узлу: тот читает только БД.
+     * @return false — не дождались за {@code timeoutMs} (БД недоступна или прерван поток)
+     */
+    boolean flush(long timeoutMs);
+}
@@ -0,0 +1,122 @@
+package com.chicu.aibot.trading.persist.impl;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Id для exchange_orders / trade_logs выдаются из памяти блоками: один {@code nextval} на
+ * {@code persist.id.allocation-size} строк. Id известен до вставки — ордер сразу попадает в
+ * индексы, а запись в БД можно отложить и собрать в JDBC-батч (IDENTITY батчинг выключает).
+ * <p>
+ * Следующий блок подтягивается заранее, когда от текущего остаётся четверть. Последовательности
+ * создаются при старте и выравниваются по max(id) таблицы — старые строки с IDENTITY не пересекаются.
+ */
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+public class PooledIdAllocator {
+
+    public static final String ORDERS = "exchange_orders";
+    public static final String TRADES = "trade_logs";
+    public static final String EVENTS = "order_events";
+
+    private final JdbcTemplate jdbc;
+
+    @Value("${persist.id.allocation-size:50}")
+    private int allocationSize;
+
+    private final Map<String, Pool> pools = new ConcurrentHashMap<>();
+
+    private final ExecutorService prefetcher = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "id-prefetch");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /** Текущий блок [next, end) и подтянутый заранее. */
+    private final class Pool {
+        final String table;
+        long next;
+        long end;
+        volatile long prefetched = -1;
+        boolean prefetching;
+
+        Pool(String table) {
+            this.table = table;
+        }
+    }
+
+    @PostConstruct
+    private void init() {
+        for (String table : new String[]{ORDERS, TRADES, EVENTS}) {
+            String seq = sequence(table);
+            jdbc.execute("create sequence if not exists " + seq + " increment by " + allocationSize);
+            jdbc.execute("alter sequence " + seq + " increment by " + allocationSize);
+            // nextval вернёт значение > max(id); гонка двух узлов на старте безопасна — блоки не пересекаются
+            jdbc.queryForObject("select setval('" + seq + "', greatest("
+                    + "(select coalesce(max(id), 0) from " + table + "), "
+                    + "(select last_value from " + seq + ")))", Long.class);
+            pools.put(table, new Pool(table));
+        }
+        log.info("Пулы id: {} по {} шт.", pools.keySet(), allocationSize);
+    }
+
+    @PreDestroy
+    private void shutdown() {
+        prefetcher.shutdownNow();
+    }
+
+    public long next(String table) {
+        Pool p = pools.get(table);
+        if (p == null) throw new IllegalArgumentException("нет пула id для " + table);
+        synchronized (p) {
+            if (p.next >= p.end) {
+                long start = p.prefetched;
+                p.prefetched = -1;
+                if (start < 0) start = fetch(table); // упреждение не успело — берём блок сами
+                p.next = start;
+                p.end = start + allocationSize;
+            }
+            if (!p.prefetching && p.prefetched < 0 && p.end - p.next <= allocationSize / 4) {
+                p.prefetching = true;
+                prefetcher.execute(() -> prefetch(p));
+            }
+            return p.next++;
+        }
+    }
+
+    private void prefetch(Pool p) {
+        long start = -1;
+        try {
+            start = fetch(p.table);
+        } catch (Exception e) {
+            log.warn("Пул id {}: не удалось подтянуть блок заранее: {}", p.table, e.getMessage());
+        }
+        synchronized (p) {
+            p.prefetched = start;
+            p.prefetching = false;
+        }
+    }
+
+    private long fetch(String table) {
+        Long v = jdbc.queryForObject("select nextval('" + sequence(table) + "')", Long.class);
+        if (v == null) throw new IllegalStateException("nextval вернул null для " + table);
+        return v;
+    }
+
+    private static String sequence(String table) {
+        return table + "_pool_seq";
+    }
+}
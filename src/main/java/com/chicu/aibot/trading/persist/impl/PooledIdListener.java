@@ -0,0 +1,31 @@
+package com.chicu.aibot.trading.persist.impl;
+
+import com.chicu.aibot.exchange.order.model.ExchangeOrderEntity;
+import com.chicu.aibot.exchange.order.model.OrderEventEntity;
+import com.chicu.aibot.trading.trade.TradeLogEntity;
+import jakarta.persistence.PrePersist;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Id для тех, кто сохраняет ордер/сделку напрямую через репозиторий, а не через
+ * {@link com.chicu.aibot.trading.persist.WriteBehindService}: Hibernate вызывает его до чтения id.
+ */
+@Component
+@RequiredArgsConstructor
+public class PooledIdListener {
+
+    private final ObjectProvider<PooledIdAllocator> ids;
+
+    @PrePersist
+    public void assign(Object entity) {
+        if (entity instanceof ExchangeOrderEntity o && o.getId() == null) {
+            o.setId(ids.getObject().next(PooledIdAllocator.ORDERS));
+        } else if (entity instanceof TradeLogEntity t && t.getId() == null) {
+            t.setId(ids.getObject().next(PooledIdAllocator.TRADES));
+        } else if (entity instanceof OrderEventEntity ev && ev.getId() == null) {
+            ev.setId(ids.getObject().next(PooledIdAllocator.EVENTS));
+        }
+    }
+}
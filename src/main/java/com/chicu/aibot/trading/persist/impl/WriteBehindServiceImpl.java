@@ -0,0 +1,627 @@
+package com.chicu.aibot.trading.persist.impl;
+
+import com.chicu.aibot.exchange.order.model.ExchangeOrderEntity;
+import com.chicu.aibot.exchange.order.model.OrderEventConflictEvent;
+import com.chicu.aibot.exchange.order.model.OrderEventEntity;
+import com.chicu.aibot.exchange.order.repository.OrderEventRepository;
+import com.chicu.aibot.exchange.order.repository.ExchangeOrderRepository;
+import com.chicu.aibot.exchange.order.service.OpenOrderIndex;
+import com.chicu.aibot.exchange.order.service.impl.OpenOrderIndexListener;
+import com.chicu.aibot.trading.persist.WriteBehindService;
+import com.chicu.aibot.trading.pnl.impl.PnlDailyStore;
+import com.chicu.aibot.trading.trade.TradeLogEntity;
+import com.chicu.aibot.trading.trade.TradeLogRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Очередь ограничена; когда она полна (обычно Postgres недоступен), изменения дописываются
+ * в {@code spool.jsonl}, и дальше в файл идёт всё подряд, пока поток записи не разберёт очередь
+ * и файл — так сохраняется порядок. Если остановка не дождалась БД, очередь сбрасывается
+ * в {@code head.jsonl}; следующий запуск дописывает head → replay → spool, потом принимает новое.
+ * <p>
+ * Поток записи один. Пачка сворачивается по id (insert + update → один insert, insert + delete → ничего),
+ * строки для update подгружаются одним select, дальше Hibernate шлёт JDBC-батчи.
+ * Ошибки связи повторяются с паузой; прочие — пачка дробится, не прошедшая запись уходит в {@code dead.jsonl}.
+ * Исключение — событие ордера с занятым seq: оно отдаётся журналу ({@link OrderEventConflictEvent}) на пересборку.
+ * <p>
+ * Незаписанные ордера держатся в {@link #pendingOrders} — для {@link #overlayOrders} и перечитки индекса.
+ * События ордеров ({@code order_events}) только дописываются: в свёртке пачки они не участвуют.
+ * Вместе со сделками в той же транзакции пополняется {@code pnl_daily}.
+ * События сущностей от этого потока индекс не трогают: он уже получил состояние при постановке в очередь.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WriteBehindServiceImpl implements WriteBehindService {
+
+    private final ExchangeOrderRepository orderRepo;
+    private final TradeLogRepository tradeRepo;
+    private final OrderEventRepository eventRepo;
+    private final PnlDailyStore pnlDaily;
+    private final PooledIdAllocator ids;
+    private final ObjectProvider<OpenOrderIndex> openOrders;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final PlatformTransactionManager txManager;
+    private final ApplicationEventPublisher publisher;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Value("${persist.write-behind.capacity:10000}")
+    private int capacity;
+
+    @Value("${persist.write-behind.batch-size:200}")
+    private int batchSize;
+
+    @Value("${persist.write-behind.flush-ms:200}")
+    private long flushMs;
+
+    @Value("${persist.write-behind.retry-max-ms:30000}")
+    private long retryMaxMs;
+
+    @Value("${persist.write-behind.shutdown-ms:10000}")
+    private long shutdownMs;
+
+    @Value("${persist.write-behind.spool-dir:data/write-behind}")
+    private String spoolDir;
+
+    /** Уникальный индекс seq в журнале ордеров (миграция V2). */
+    private static final String SEQ_INDEX = "order_events_order_seq_idx";
+
+    enum Kind { INSERT_ORDER, UPDATE_ORDER, DELETE_ORDER, INSERT_TRADE, INSERT_EVENT }
+
+    /** Одно изменение; в файлах — строка JSON. */
+    record Op(Kind kind, ExchangeOrderEntity order, TradeLogEntity trade, OrderEventEntity event) {
+        Long id() {
+            if (kind == Kind.INSERT_TRADE) return trade.getId();
+            if (kind == Kind.INSERT_EVENT) return event.getId();
+            return order.getId();
+        }
+    }
+
+    private BlockingQueue<Op> queue;
+    private TransactionTemplate tx;
+
+    /** Последнее незаписанное изменение по id ордера. */
+    private final Map<Long, Op> pendingOrders = new ConcurrentHashMap<>();
+    private final Map<Long, TradeLogEntity> pendingTrades = new ConcurrentHashMap<>();
+    private final Map<Long, OrderEventEntity> pendingEvents = new ConcurrentHashMap<>();
+
+    private final Object spoolLock = new Object();
+    /** Пока true, всё новое идёт в файл, минуя очередь. */
+    private boolean spilling;
+    private final AtomicInteger spooled = new AtomicInteger();
+    private Path head;
+    private Path spool;
+    private Path replay;
+    private Path dead;
+
+    /**
+     * Номер последнего принятого изменения и число разобранных: очередь и файл идут по порядку
+     * приёма, поэтому {@code finished >= N} значит, что первые N изменений разобраны.
+     */
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong finished = new AtomicLong();
+    private final Object progress = new Object();
+
+    private volatile boolean running = true;
+    /** Остановка не дождалась БД: поток записи сбрасывает всё в файл и выходит. */
+    private volatile boolean abandoned;
+    private Thread flusher;
+
+    private Counter written;
+    private Counter spilled;
+    private Counter deadLettered;
+    private Timer batchTimer;
+
+    @PostConstruct
+    private void init() throws IOException {
+        queue = new ArrayBlockingQueue<>(capacity);
+        tx = new TransactionTemplate(txManager);
+
+        Path dir = Path.of(spoolDir);
+        Files.createDirectories(dir);
+        head = dir.resolve("head.jsonl");
+        spool = dir.resolve("spool.jsonl");
+        replay = dir.resolve("replay.jsonl");
+        dead = dir.resolve("dead.jsonl");
+        prependHead();
+        int recovered = recover(replay) + recover(spool);
+        if (recovered > 0) {
+            spilling = true;
+            log.warn("Отложенная запись: {} изменений из прошлого запуска ждут записи в БД", recovered);
+        }
+
+        Gauge.builder("aibot.persist.pending", this, WriteBehindServiceImpl::pending)
+                .description("Изменения ордеров/сделок, ещё не записанные в БД").register(meterRegistry);
+        written = Counter.builder("aibot.persist.written").register(meterRegistry);
+        spilled = Counter.builder("aibot.persist.spilled")
+                .description("Изменения, ушедшие в файл из-за переполнения очереди").register(meterRegistry);
+        deadLettered = Counter.builder("aibot.persist.dead").register(meterRegistry);
+        batchTimer = Timer.builder("aibot.persist.batch").register(meterRegistry);
+
+        flusher = new Thread(this::runFlusher, "write-behind");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @PreDestroy
+    private void shutdown() throws InterruptedException {
+        // без interrupt: прерванный поток посреди JDBC оставит пачку в неясном состоянии
+        running = false;
+        flusher.join(shutdownMs);
+        if (!flusher.isAlive()) return;
+
+        abandoned = true;
+        flusher.join(shutdownMs);
+        // поток записи завис в JDBC — сохраняем хотя бы очередь
+        List<Op> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        if (!rest.isEmpty()) spillHead(rest);
+        log.warn("Отложенная запись: остановка без БД, в файле {} изменений", spooled.get());
+    }
+
+    /* ================= API ================= */
+
+    @Override
+    public void insertOrder(ExchangeOrderEntity order) {
+        if (order.getId() == null) order.setId(ids.next(PooledIdAllocator.ORDERS));
+        enqueue(new Op(Kind.INSERT_ORDER, order, null, null));
+    }
+
+    @Override
+    public void updateOrder(ExchangeOrderEntity order) {
+        if (order.getId() == null) {
+            insertOrder(order);
+            return;
+        }
+        enqueue(new Op(Kind.UPDATE_ORDER, order, null, null));
+    }
+
+    @Override
+    public void deleteOrder(ExchangeOrderEntity order) {
+        if (order.getId() == null) return;
+        enqueue(new Op(Kind.DELETE_ORDER, order, null, null));
+    }
+
+    @Override
+    public void insertTrade(TradeLogEntity trade) {
+        if (trade.getId() == null) trade.setId(ids.next(PooledIdAllocator.TRADES));
+        enqueue(new Op(Kind.INSERT_TRADE, null, trade, null));
+    }
+
+    @Override
+    public void insertEvent(OrderEventEntity event) {
+        if (event.getId() == null) event.setId(ids.next(PooledIdAllocator.EVENTS));
+        enqueue(new Op(Kind.INSERT_EVENT, null, null, event));
+    }
+
+    @Override
+    public List<ExchangeOrderEntity> overlayOrders(Supplier<List<ExchangeOrderEntity>> dbQuery,
+                                                   Predicate<ExchangeOrderEntity> filter) {
+        // снимок до чтения: то, что запишется между ними, будет либо в снимке, либо в результате запроса
+        Map<Long, Op> snapshot = new HashMap<>(pendingOrders);
+        List<ExchangeOrderEntity> rows = dbQuery.get();
+        if (snapshot.isEmpty()) return rows;
+
+        List<ExchangeOrderEntity> out = new ArrayList<>(rows.size());
+        for (ExchangeOrderEntity row : rows) {
+            Op op = row.getId() == null ? null : snapshot.remove(row.getId());
+            if (op != null) {
+                if (op.kind() == Kind.DELETE_ORDER) continue;
+                row = op.order().toBuilder().build();
+            }
+            if (filter.test(row)) out.add(row);
+        }
+        for (Op op : snapshot.values()) {
+            if (op.kind() != Kind.DELETE_ORDER && filter.test(op.order())) out.add(op.order().toBuilder().build());
+        }
+        return out;
+    }
+
+    @Override
+    public List<TradeLogEntity> pendingTrades() {
+        return new ArrayList<>(pendingTrades.values());
+    }
+
+    @Override
+    public List<OrderEventEntity> pendingEvents() {
+        return new ArrayList<>(pendingEvents.values());
+    }
+
+    @Override
+    public int pending() {
+        return queue.size() + spooled.get();
+    }
+
+    @Override
+    public boolean flush(long timeoutMs) {
+        long target;
+        synchronized (spoolLock) {
+            target = accepted.get();
+        }
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        synchronized (progress) {
+            while (finished.get() < target) {
+                long left = deadline - System.currentTimeMillis();
+                if (left <= 0 || abandoned) return false;
+                try {
+                    progress.wait(left);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /* ================= постановка ================= */
+
+    private void enqueue(Op op) {
+        track(op, true);
+        synchronized (spoolLock) {
+            accepted.incrementAndGet(); // под тем же замком, что и постановка: номер совпадает с порядком
+            if (!spilling && queue.offer(op)) return;
+            if (!spilling) log.warn("Отложенная запись: очередь заполнена ({}), пишем в {}", capacity, spool);
+            spilling = true;
+            spill(List.of(op));
+        }
+    }
+
+    /** Незаписанное состояние видно чтениям сразу; в индекс — после pendingOrders (см. перечитку индекса). */
+    private void track(Op op, boolean notifyIndex) {
+        if (op.kind() == Kind.INSERT_TRADE) {
+            pendingTrades.put(op.id(), op.trade());
+            return;
+        }
+        if (op.kind() == Kind.INSERT_EVENT) {
+            pendingEvents.put(op.id(), op.event());
+            return;
+        }
+        pendingOrders.put(op.id(), op);
+        if (!notifyIndex) return;
+        OpenOrderIndex index = openOrders.getIfAvailable();
+        if (index == null) return;
+        if (op.kind() == Kind.DELETE_ORDER) index.onRemoved(op.order());
+        else index.onSaved(op.order());
+    }
+
+    private void untrack(List<Op> ops) {
+        for (Op op : ops) {
+            if (op.kind() == Kind.INSERT_TRADE) pendingTrades.remove(op.id());
+            else if (op.kind() == Kind.INSERT_EVENT) pendingEvents.remove(op.id());
+            else pendingOrders.remove(op.id(), op); // более новое изменение того же ордера остаётся
+        }
+        finished.addAndGet(ops.size());
+        synchronized (progress) {
+            progress.notifyAll();
+        }
+    }
+
+    /* ================= поток записи ================= */
+
+    private void runFlusher() {
+        List<Op> batch = new ArrayList<>(batchSize);
+        while (!abandoned) {
+            batch.clear();
+            try {
+                collect(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (!batch.isEmpty()) {
+                write(batch, true);
+                continue;
+            }
+            if (hasSpool()) {
+                replaySpool();
+                continue;
+            }
+            if (!running) return;
+        }
+        // остановка без БД: очередь — в файл, следующий запуск допишет
+        List<Op> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        if (!rest.isEmpty()) spillHead(rest);
+    }
+
+    /** Пачка закрывается по размеру или через flush-ms после первого изменения. */
+    private void collect(List<Op> batch) throws InterruptedException {
+        Op first = running ? queue.poll(flushMs, TimeUnit.MILLISECONDS) : queue.poll();
+        if (first == null) return;
+        batch.add(first);
+        long deadline = System.currentTimeMillis() + flushMs;
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long left = deadline - System.currentTimeMillis();
+            if (batch.size() >= batchSize || left <= 0 || !running) return;
+            Op next = queue.poll(left, TimeUnit.MILLISECONDS);
+            if (next == null) return;
+            batch.add(next);
+        }
+    }
+
+    /** {@code fromQueue=false} — пачка из replay: при брошенной остановке файл остаётся как есть. */
+    private void write(List<Op> batch, boolean fromQueue) {
+        long backoff = 200;
+        while (true) {
+            try {
+                batchTimer.record(() -> persist(batch));
+                untrack(batch);
+                written.increment(batch.size());
+                return;
+            } catch (RuntimeException e) {
+                if (!isTransient(e)) {
+                    splitOrDead(batch, fromQueue, e);
+                    return;
+                }
+                if (abandoned) {
+                    if (fromQueue) spillHead(batch);
+                    return;
+                }
+                log.warn("Отложенная запись: БД недоступна ({}), повтор через {} мс, в очереди {}",
+                        e.getMessage(), backoff, pending());
+                pause(backoff);
+                backoff = Math.min(backoff * 2, retryMaxMs);
+            }
+        }
+    }
+
+    /** Ошибка данных: пишем по одному, чтобы одна плохая запись не держала остальные. */
+    private void splitOrDead(List<Op> batch, boolean fromQueue, RuntimeException e) {
+        if (batch.size() > 1) {
+            for (Op op : batch) write(List.of(op), fromQueue);
+            return;
+        }
+        Op op = batch.getFirst();
+        if ((op.kind() == Kind.INSERT_ORDER && orderRepo.existsById(op.id()))
+                || (op.kind() == Kind.INSERT_TRADE && tradeRepo.existsById(op.id()))
+                || (op.kind() == Kind.INSERT_EVENT && eventRepo.existsById(op.id()))) {
+            // повтор после сбоя: строка уже записана
+            untrack(batch);
+            return;
+        }
+        if (op.kind() == Kind.INSERT_EVENT && isSeqConflict(e)) {
+            // seq занят событием другого узла: журнал пересоберёт ордер и применит изменение заново
+            untrack(batch);
+            publisher.publishEvent(new OrderEventConflictEvent(op.event()));
+            return;
+        }
+        log.error("Отложенная запись: {} id={} не записано ({}), сохранено в {}", op.kind(), op.id(), e.getMessage(), dead);
+        append(dead, batch);
+        untrack(batch);
+        deadLettered.increment();
+    }
+
+    private void persist(List<Op> batch) {
+        Map<Long, Op> orders = new LinkedHashMap<>();
+        List<TradeLogEntity> trades = new ArrayList<>();
+        List<OrderEventEntity> events = new ArrayList<>();
+        for (Op op : batch) {
+            if (op.kind() == Kind.INSERT_TRADE) {
+                trades.add(op.trade());
+                continue;
+            }
+            if (op.kind() == Kind.INSERT_EVENT) {
+                events.add(op.event());
+                continue;
+            }
+            Op prev = orders.get(op.id());
+            if (prev != null && prev.kind() == Kind.INSERT_ORDER) {
+                if (op.kind() == Kind.DELETE_ORDER) orders.remove(op.id());
+                else orders.put(op.id(), new Op(Kind.INSERT_ORDER, op.order(), null, null));
+            } else {
+                orders.put(op.id(), op);
+            }
+        }
+
+        List<Long> updates = new ArrayList<>();
+        List<Long> deletes = new ArrayList<>();
+        for (Op op : orders.values()) {
+            if (op.kind() == Kind.UPDATE_ORDER) updates.add(op.id());
+            else if (op.kind() == Kind.DELETE_ORDER) deletes.add(op.id());
+        }
+
+        OpenOrderIndexListener.suppressed(() -> tx.executeWithoutResult(s -> {
+            if (!updates.isEmpty()) orderRepo.findAllById(updates); // в контекст одним select — merge без догрузки
+            for (Op op : orders.values()) {
+                if (op.kind() == Kind.INSERT_ORDER) em.persist(op.order());
+                else if (op.kind() == Kind.UPDATE_ORDER) em.merge(op.order());
+            }
+            for (TradeLogEntity t : trades) em.persist(t);
+            if (!trades.isEmpty()) pnlDaily.add(trades); // агрегат — в той же транзакции, что и сделки
+            for (OrderEventEntity ev : events) em.persist(ev);
+            if (!deletes.isEmpty()) orderRepo.deleteAllByIdInBatch(deletes);
+        }));
+    }
+
+    private static boolean isTransient(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof TransientDataAccessException
+                    || t instanceof DataAccessResourceFailureException
+                    || t instanceof CannotCreateTransactionException
+                    || t instanceof SQLTransientException
+                    || t instanceof SQLRecoverableException) return true;
+            // 08 — связь, 40 — откат (сериализация/дедлок), 57P — остановка сервера
+            if (t instanceof SQLException sql && sql.getSQLState() != null) {
+                String state = sql.getSQLState();
+                if (state.startsWith("08") || state.startsWith("40") || state.startsWith("57P")) return true;
+            }
+        }
+        return false;
+    }
+
+    /** Нарушение уникальности (order_key, seq) журнала ордеров. */
+    private static boolean isSeqConflict(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException sql && "23505".equals(sql.getSQLState())
+                    && sql.getMessage() != null && sql.getMessage().contains(SEQ_INDEX)) return true;
+        }
+        return false;
+    }
+
+    /** Пауза, которую прерывает брошенная остановка. */
+    private void pause(long ms) {
+        long until = System.currentTimeMillis() + ms;
+        while (!abandoned && System.currentTimeMillis() < until) {
+            try {
+                Thread.sleep(Math.min(100, Math.max(1, until - System.currentTimeMillis())));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /* ================= файл переполнения ================= */
+
+    private boolean hasSpool() {
+        synchronized (spoolLock) {
+            return spilling;
+        }
+    }
+
+    /** Файл отдаётся на дозапись целиком; новые изменения тем временем копятся в свежем spool. */
+    private void replaySpool() {
+        try {
+            if (!Files.exists(replay)) {
+                synchronized (spoolLock) {
+                    if (!Files.exists(spool) || Files.size(spool) == 0) {
+                        spilling = false;
+                        log.info("Отложенная запись: файл переполнения разобран, снова через очередь");
+                        return;
+                    }
+                    Files.move(spool, replay, StandardCopyOption.ATOMIC_MOVE);
+                }
+            }
+            List<Op> chunk = new ArrayList<>(batchSize);
+            try (BufferedReader in = Files.newBufferedReader(replay, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    if (line.isBlank()) continue;
+                    chunk.add(objectMapper.readValue(line, Op.class));
+                    if (chunk.size() >= batchSize) {
+                        writeReplayed(chunk);
+                        if (abandoned) return;
+                    }
+                }
+            }
+            if (!chunk.isEmpty()) writeReplayed(chunk);
+            if (abandoned) return;
+            Files.delete(replay);
+        } catch (IOException e) {
+            log.error("Отложенная запись: не удалось разобрать {}: {}", replay, e.getMessage());
+            pause(retryMaxMs);
+        }
+    }
+
+    private void writeReplayed(List<Op> chunk) {
+        write(chunk, false);
+        spooled.addAndGet(-chunk.size());
+        chunk.clear();
+    }
+
+    private void spill(List<Op> ops) {
+        synchronized (spoolLock) {
+            spilling = true;
+            append(spool, ops);
+            spooled.addAndGet(ops.size());
+            spilled.increment(ops.size());
+        }
+    }
+
+    /** Очередь при брошенной остановке: она старше всего, что уже лежит в spool. */
+    private void spillHead(List<Op> ops) {
+        synchronized (spoolLock) {
+            append(head, ops);
+            spooled.addAndGet(ops.size());
+            spilled.increment(ops.size());
+        }
+    }
+
+    /** head.jsonl старше replay.jsonl — склеиваем их в replay до разбора. */
+    private void prependHead() throws IOException {
+        if (!Files.exists(head)) return;
+        if (Files.exists(replay)) {
+            Path tmp = replay.resolveSibling("replay.jsonl.tmp");
+            Files.copy(head, tmp, StandardCopyOption.REPLACE_EXISTING);
+            Files.write(tmp, Files.readAllBytes(replay), StandardOpenOption.APPEND);
+            Files.move(tmp, replay, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.delete(head);
+        } else {
+            Files.move(head, replay, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    private void append(Path file, List<Op> ops) {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (Op op : ops) {
+                out.write(objectMapper.writeValueAsString(op));
+                out.newLine();
+            }
+        } catch (IOException e) {
+            log.error("Отложенная запись: не удалось дописать {} изменений в {}: {}", ops.size(), file, e.getMessage());
+        }
+    }
+
+    /** Файлы прошлого запуска: изменения снова видны чтениям, индекс подхватит их при заполнении. */
+    private int recover(Path file) throws IOException {
+        if (!Files.exists(file)) return 0;
+        int n = 0;
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isBlank()) continue;
+                track(objectMapper.readValue(line, Op.class), false);
+                n++;
+            }
+        }
+        spooled.addAndGet(n);
+        accepted.addAndGet(n);
+        return n;
+    }
+}
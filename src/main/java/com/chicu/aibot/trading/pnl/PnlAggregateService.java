@@ -0,0 +1,31 @@
+package com.chicu.aibot.trading.pnl;
+
+import com.chicu.aibot.trading.trade.TradeLogEntity;
+
+import java.time.LocalDate;
+
+/**
+ * Агрегаты реализованного PnL по чату, символу, стратегии и дню. Пополняются при записи сделки,
+ * читаются из памяти — стоимость чтения не зависит от длины истории. В БД ({@code pnl_daily})
+ * их пишет отложенная запись в одной транзакции со строкой trade_logs.
+ */
+public interface PnlAggregateService {
+
+    /** Учесть новую сделку (её стратегия — {@link TradeLogEntity#getStrategy()}). */
+    void record(TradeLogEntity trade);
+
+    /** Итог по символу чата, все стратегии. */
+    PnlStats total(Long chatId, String symbol);
+
+    /** Итог по символу чата для одной стратегии ({@code StrategyType.name()}). */
+    PnlStats total(Long chatId, String symbol, String strategy);
+
+    /**
+     * Перечитать агрегаты стратегии чата из pnl_daily: пока стратегию вёл другой узел, его сделки
+     * в память этого узла не попадали. Зовётся при захвате аренды, до старта стратегии.
+     */
+    void reload(Long chatId, String strategy);
+
+    /** Итог дня (UTC) по символу чата, все стратегии; дни старше окна памяти — из БД. */
+    PnlStats day(Long chatId, String symbol, LocalDate day);
+}
@@ -0,0 +1,36 @@
+package com.chicu.aibot.trading.pnl;
+
+import com.chicu.aibot.trading.trade.TradeLogEntity;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+/**
+ * Реализованный PnL за период: сумма, число сделок, прибыльные / убыточные и оборот
+ * в валюте котировки ({@code |volume| * exitPrice}, без выхода — по цене входа).
+ */
+public record PnlStats(BigDecimal realizedPnl, long trades, long wins, long losses, BigDecimal volume) {
+
+    public static final PnlStats ZERO = new PnlStats(BigDecimal.ZERO, 0, 0, 0, BigDecimal.ZERO);
+
+    /** Вклад одной сделки. */
+    public static PnlStats of(TradeLogEntity t) {
+        BigDecimal pnl = t.getPnl() == null ? BigDecimal.ZERO : t.getPnl();
+        BigDecimal price = t.getExitPrice() != null ? t.getExitPrice() : t.getEntryPrice();
+        BigDecimal volume = (t.getVolume() == null || price == null) ? BigDecimal.ZERO : t.getVolume().abs().multiply(price);
+        return new PnlStats(pnl, 1, pnl.signum() > 0 ? 1 : 0, pnl.signum() < 0 ? 1 : 0, volume);
+    }
+
+    /** День сделки — UTC-дата закрытия (как в миграции V3). */
+    public static LocalDate dayOf(TradeLogEntity t) {
+        Instant at = t.getCloseTime() != null ? t.getCloseTime() : t.getOpenTime();
+        return (at != null ? at : Instant.now()).atZone(ZoneOffset.UTC).toLocalDate();
+    }
+
+    public PnlStats plus(PnlStats o) {
+        return new PnlStats(realizedPnl.add(o.realizedPnl), trades + o.trades, wins + o.wins,
+                losses + o.losses, volume.add(o.volume));
+    }
+}
@@ -0,0 +1,182 @@
+package com.chicu.aibot.trading.pnl.impl;
+
+import com.chicu.aibot.trading.persist.WriteBehindService;
+import com.chicu.aibot.trading.pnl.PnlAggregateService;
+import com.chicu.aibot.trading.pnl.PnlStats;
+import com.chicu.aibot.trading.trade.TradeLogEntity;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Память: на чат+символ — агрегаты по стратегиям, в каждом итог за всё время и последние
+ * {@code pnl.aggregates.memory-days} дней. Поднимается из pnl_daily при старте; сделки, которые
+ * с прошлого запуска ещё ждут отложенной записи, досчитываются по их id.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PnlAggregateServiceImpl implements PnlAggregateService {
+
+    private final PnlDailyStore store;
+    private final WriteBehindService writes;
+    private final PlatformTransactionManager txManager;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${pnl.aggregates.memory-days:90}")
+    private int memoryDays;
+
+    private static final class Agg {
+        PnlStats total = PnlStats.ZERO;
+        final TreeMap<LocalDate, PnlStats> days = new TreeMap<>();
+    }
+
+    /** chatId:symbol → стратегия → агрегат. */
+    private final Map<String, Map<String, Agg>> aggs = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    private void init() {
+        // снимок очереди до чтения БД: что из него уже записано, видно в том же снимке БД по trade_logs
+        List<TradeLogEntity> pending = writes.pendingTrades();
+        TransactionTemplate tx = new TransactionTemplate(txManager);
+        tx.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        tx.setReadOnly(true);
+        LocalDate from = cutoff();
+        Set<Long> persisted = tx.execute(s -> {
+            for (PnlDailyStore.Row r : store.totals()) {
+                agg(r.key().chatId(), r.key().symbol(), r.key().strategy()).total = r.stats();
+            }
+            for (PnlDailyStore.Row r : store.daysSince(from)) {
+                agg(r.key().chatId(), r.key().symbol(), r.key().strategy()).days.put(r.key().day(), r.stats());
+            }
+            return store.persistedTradeIds(pending.stream().map(TradeLogEntity::getId).toList());
+        });
+        int replayed = 0;
+        for (TradeLogEntity t : pending) {
+            if (persisted != null && persisted.contains(t.getId())) continue;
+            record(t);
+            replayed++;
+        }
+        Gauge.builder("aibot.pnl.aggregates", aggs, m -> m.values().stream().mapToInt(Map::size).sum())
+                .description("Агрегаты PnL в памяти (чат+символ+стратегия)").register(meterRegistry);
+        log.info("PnL-агрегаты: {} символов в памяти, досчитано незаписанных сделок: {}", aggs.size(), replayed);
+    }
+
+    @Override
+    public void record(TradeLogEntity trade) {
+        if (trade.getChatId() == null || trade.getSymbol() == null) return;
+        PnlStats delta = PnlStats.of(trade);
+        LocalDate day = PnlStats.dayOf(trade);
+        Agg a = agg(trade.getChatId(), trade.getSymbol(), PnlDailyStore.strategyOf(trade));
+        synchronized (a) {
+            a.total = a.total.plus(delta);
+            a.days.merge(day, delta, PnlStats::plus);
+            a.days.headMap(cutoff()).clear();
+        }
+    }
+
+    /**
+     * Снимок очереди, затем чтение БД — как при старте. Агрегаты стратегии заменяются целиком:
+     * на этом узле она ещё не запущена, и {@link #record} в них не пишет.
+     */
+    @Override
+    public void reload(Long chatId, String strategy) {
+        String name = strategy == null ? "" : strategy;
+        List<TradeLogEntity> pending = writes.pendingTrades().stream()
+                .filter(t -> chatId.equals(t.getChatId()) && name.equals(PnlDailyStore.strategyOf(t)))
+                .toList();
+        TransactionTemplate tx = new TransactionTemplate(txManager);
+        tx.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        tx.setReadOnly(true);
+        LocalDate from = cutoff();
+        Map<String, Agg> fresh = new HashMap<>();
+        Set<Long> persisted = tx.execute(s -> {
+            for (PnlDailyStore.Row r : store.totals(chatId, name)) {
+                fresh.computeIfAbsent(r.key().symbol(), k -> new Agg()).total = r.stats();
+            }
+            for (PnlDailyStore.Row r : store.daysSince(chatId, name, from)) {
+                fresh.computeIfAbsent(r.key().symbol(), k -> new Agg()).days.put(r.key().day(), r.stats());
+            }
+            return store.persistedTradeIds(pending.stream().map(TradeLogEntity::getId).toList());
+        });
+        for (TradeLogEntity t : pending) {
+            if (t.getSymbol() == null || (persisted != null && persisted.contains(t.getId()))) continue;
+            Agg a = fresh.computeIfAbsent(t.getSymbol(), k -> new Agg());
+            a.total = a.total.plus(PnlStats.of(t));
+            a.days.merge(PnlStats.dayOf(t), PnlStats.of(t), PnlStats::plus);
+        }
+
+        String prefix = chatId + ":";
+        aggs.forEach((k, byStrategy) -> {
+            if (k.startsWith(prefix)) byStrategy.remove(name);
+        });
+        fresh.forEach((symbol, a) -> aggs.computeIfAbsent(key(chatId, symbol), k -> new ConcurrentHashMap<>()).put(name, a));
+        log.debug("PnL-агрегаты {} @{} перечитаны из БД: символов {}", name, chatId, fresh.size());
+    }
+
+    @Override
+    public PnlStats total(Long chatId, String symbol) {
+        Map<String, Agg> byStrategy = aggs.get(key(chatId, symbol));
+        if (byStrategy == null) return PnlStats.ZERO;
+        PnlStats sum = PnlStats.ZERO;
+        for (Agg a : byStrategy.values()) {
+            synchronized (a) {
+                sum = sum.plus(a.total);
+            }
+        }
+        return sum;
+    }
+
+    @Override
+    public PnlStats total(Long chatId, String symbol, String strategy) {
+        Map<String, Agg> byStrategy = aggs.get(key(chatId, symbol));
+        Agg a = byStrategy == null ? null : byStrategy.get(strategy == null ? "" : strategy);
+        if (a == null) return PnlStats.ZERO;
+        synchronized (a) {
+            return a.total;
+        }
+    }
+
+    @Override
+    public PnlStats day(Long chatId, String symbol, LocalDate day) {
+        if (day.isBefore(cutoff())) return store.day(chatId, symbol, day);
+        Map<String, Agg> byStrategy = aggs.get(key(chatId, symbol));
+        if (byStrategy == null) return PnlStats.ZERO;
+        PnlStats sum = PnlStats.ZERO;
+        for (Agg a : byStrategy.values()) {
+            synchronized (a) {
+                sum = sum.plus(a.days.getOrDefault(day, PnlStats.ZERO));
+            }
+        }
+        return sum;
+    }
+
+    private Agg agg(Long chatId, String symbol, String strategy) {
+        return aggs.computeIfAbsent(key(chatId, symbol), k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(strategy, k -> new Agg());
+    }
+
+    private LocalDate cutoff() {
+        return LocalDate.now(ZoneOffset.UTC).minusDays(Math.max(1, memoryDays) - 1L);
+    }
+
+    private static String key(Long chatId, String symbol) {
+        return chatId + ":" + symbol;
+    }
+}
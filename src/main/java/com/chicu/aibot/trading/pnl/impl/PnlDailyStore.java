@@ -0,0 +1,119 @@
+package com.chicu.aibot.trading.pnl.impl;
+
+import com.chicu.aibot.trading.pnl.PnlStats;
+import com.chicu.aibot.trading.trade.TradeLogEntity;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Таблица pnl_daily (миграция V3). {@link #add} зовёт отложенная запись внутри транзакции вставки
+ * сделок: JdbcTemplate идёт через то же соединение, строка сделки и её агрегат фиксируются вместе.
+ */
+@Component
+@RequiredArgsConstructor
+public class PnlDailyStore {
+
+    private static final String UPSERT = """
+            INSERT INTO pnl_daily (chat_id, symbol, strategy, day, realized_pnl, trades, wins, losses, volume)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (chat_id, symbol, strategy, day) DO UPDATE SET
+                realized_pnl = pnl_daily.realized_pnl + excluded.realized_pnl,
+                trades       = pnl_daily.trades + excluded.trades,
+                wins         = pnl_daily.wins + excluded.wins,
+                losses       = pnl_daily.losses + excluded.losses,
+                volume       = pnl_daily.volume + excluded.volume
+            """;
+
+    private static final String COLUMNS =
+            "sum(realized_pnl), sum(trades), sum(wins), sum(losses), sum(volume)";
+
+    private final JdbcTemplate jdbc;
+
+    record Key(Long chatId, String symbol, String strategy, LocalDate day) { }
+
+    record Row(Key key, PnlStats stats) { }
+
+    static String strategyOf(TradeLogEntity t) {
+        return t.getStrategy() == null ? "" : t.getStrategy();
+    }
+
+    /** Пачка сделок → одна строка upsert на чат+символ+стратегию+день. */
+    public void add(List<TradeLogEntity> trades) {
+        Map<Key, PnlStats> sums = new LinkedHashMap<>();
+        for (TradeLogEntity t : trades) {
+            if (t.getChatId() == null || t.getSymbol() == null) continue;
+            Key key = new Key(t.getChatId(), t.getSymbol(), strategyOf(t), PnlStats.dayOf(t));
+            sums.merge(key, PnlStats.of(t), PnlStats::plus);
+        }
+        if (sums.isEmpty()) return;
+        List<Object[]> args = new ArrayList<>(sums.size());
+        for (var e : sums.entrySet()) {
+            Key k = e.getKey();
+            PnlStats s = e.getValue();
+            args.add(new Object[]{k.chatId(), k.symbol(), k.strategy(), Date.valueOf(k.day()),
+                    s.realizedPnl(), s.trades(), s.wins(), s.losses(), s.volume()});
+        }
+        jdbc.batchUpdate(UPSERT, args);
+    }
+
+    /** Итоги за всё время; day в ключе — null. */
+    List<Row> totals() {
+        return jdbc.query("SELECT chat_id, symbol, strategy, " + COLUMNS + " FROM pnl_daily GROUP BY 1, 2, 3",
+                (rs, i) -> new Row(new Key(rs.getLong(1), rs.getString(2), rs.getString(3), null), stats(rs, 4)));
+    }
+
+    List<Row> daysSince(LocalDate from) {
+        return jdbc.query("SELECT chat_id, symbol, strategy, day, realized_pnl, trades, wins, losses, volume"
+                        + " FROM pnl_daily WHERE day >= ?",
+                (rs, i) -> new Row(new Key(rs.getLong(1), rs.getString(2), rs.getString(3),
+                        rs.getDate(4).toLocalDate()), stats(rs, 5)),
+                Date.valueOf(from));
+    }
+
+    /** Итоги одной стратегии чата по символам; day в ключе — null. */
+    List<Row> totals(Long chatId, String strategy) {
+        return jdbc.query("SELECT chat_id, symbol, strategy, " + COLUMNS + " FROM pnl_daily"
+                        + " WHERE chat_id = ? AND strategy = ? GROUP BY 1, 2, 3",
+                (rs, i) -> new Row(new Key(rs.getLong(1), rs.getString(2), rs.getString(3), null), stats(rs, 4)),
+                chatId, strategy);
+    }
+
+    List<Row> daysSince(Long chatId, String strategy, LocalDate from) {
+        return jdbc.query("SELECT chat_id, symbol, strategy, day, realized_pnl, trades, wins, losses, volume"
+                        + " FROM pnl_daily WHERE chat_id = ? AND strategy = ? AND day >= ?",
+                (rs, i) -> new Row(new Key(rs.getLong(1), rs.getString(2), rs.getString(3),
+                        rs.getDate(4).toLocalDate()), stats(rs, 5)),
+                chatId, strategy, Date.valueOf(from));
+    }
+
+    PnlStats day(Long chatId, String symbol, LocalDate day) {
+        List<PnlStats> rows = jdbc.query("SELECT " + COLUMNS + " FROM pnl_daily"
+                        + " WHERE chat_id = ? AND symbol = ? AND day = ?",
+                (rs, i) -> stats(rs, 1), chatId, symbol, Date.valueOf(day));
+        return rows.isEmpty() ? PnlStats.ZERO : rows.getFirst();
+    }
+
+    /** Какие из сделок уже лежат в trade_logs (а значит, и в pnl_daily). */
+    Set<Long> persistedTradeIds(List<Long> ids) {
+        if (ids.isEmpty()) return Set.of();
+        return Set.copyOf(jdbc.queryForList("SELECT id FROM trade_logs WHERE id = ANY (?)", Long.class,
+                (Object) ids.toArray(new Long[0])));
+    }
+
+    private static PnlStats stats(java.sql.ResultSet rs, int from) throws java.sql.SQLException {
+        BigDecimal pnl = rs.getBigDecimal(from);
+        BigDecimal volume = rs.getBigDecimal(from + 4);
+        return new PnlStats(pnl == null ? BigDecimal.ZERO : pnl, rs.getLong(from + 1), rs.getLong(from + 2),
+                rs.getLong(from + 3), volume == null ? BigDecimal.ZERO : volume);
+    }
+}
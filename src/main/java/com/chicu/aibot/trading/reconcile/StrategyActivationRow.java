@@ -0,0 +1,7 @@
+package com.chicu.aibot.trading.reconcile;
+
+/**
+ * Узкая проекция настроек для сверки: без символов, уровней и прочих коллекций.
+ * version — @Version сущности настроек (null у ещё не сохранённой строки считается 0).
+ */
+public record StrategyActivationRow(Long chatId, boolean active, Long version) { }
@@ -0,0 +1,19 @@
+package com.chicu.aibot.trading.reconcile;
+
+import com.chicu.aibot.strategy.StrategyType;
+
+/**
+ * Единая сверка желаемого (флаг active в БД) и фактического (задачи планировщика) состояния стратегий.
+ */
+public interface StrategyReconciler {
+
+    /**
+     * Привести одну стратегию к состоянию из БД (вызывается по событию изменения настроек).
+     * Не блокирует: сверка ставится в очередь потока сверки; запущенная стратегия перезапускается,
+     * только если версия настроек отличается от той, с которой она стартовала.
+     */
+    void reconcile(Long chatId, StrategyType type);
+
+    /** Страховочный проход по всем активным стратегиям: ловит пропущенные события. Синхронный. */
+    void sweep();
+}
@@ -0,0 +1,240 @@
+package com.chicu.aibot.trading.reconcile.impl;
+
+import com.chicu.aibot.strategy.StrategyType;
+import com.chicu.aibot.strategy.bollinger.repository.BollingerStrategySettingsRepository;
+import com.chicu.aibot.strategy.custom.repository.CustomRuleStrategySettingsRepository;
+import com.chicu.aibot.strategy.fibonacci.repository.FibonacciGridStrategySettingsRepository;
+import com.chicu.aibot.strategy.ma_crossover.repository.MaCrossoverStrategySettingsRepository;
+import com.chicu.aibot.strategy.ml_invest.repository.MachineLearningInvestStrategySettingsRepository;
+import com.chicu.aibot.strategy.rsi_ema.repository.RsiEmaStrategySettingsRepository;
+import com.chicu.aibot.strategy.scalping.repository.ScalpingStrategySettingsRepository;
+import com.chicu.aibot.trading.cluster.ClusterCoordinator;
+import com.chicu.aibot.trading.reconcile.StrategyActivationRow;
+import com.chicu.aibot.trading.reconcile.StrategyReconciler;
+import com.chicu.aibot.trading.scheduler.SchedulerService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Основной путь — события изменения настроек (O(изменений)).
+ * Периодический проход читает только (chatId, active, version) активных строк
+ * и трогает планировщик лишь там, где есть расхождение.
+ * Всё исполняется в одном потоке strategy-reconcile: событие лишь ставит сверку в очередь,
+ * а start/stop с гидратацией через биржу не держат поток Telegram.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StrategyReconcilerImpl implements StrategyReconciler {
+
+    private final SchedulerService scheduler;
+    private final ClusterCoordinator cluster;
+
+    private final ScalpingStrategySettingsRepository scalpingRepo;
+    private final FibonacciGridStrategySettingsRepository fibRepo;
+    private final BollingerStrategySettingsRepository bollRepo;
+    private final MachineLearningInvestStrategySettingsRepository mlRepo;
+    private final RsiEmaStrategySettingsRepository rsiEmaRepo;
+    private final MaCrossoverStrategySettingsRepository maCrossRepo;
+    private final CustomRuleStrategySettingsRepository customRuleRepo;
+
+    @Value("${trading.reconcile.sweep-ms:60000}")
+    private long sweepMs;
+
+    private final Map<StrategyType, Function<Long, Optional<StrategyActivationRow>>> rowByChat = new EnumMap<>(StrategyType.class);
+    private final Map<StrategyType, Supplier<List<StrategyActivationRow>>> activeRows = new EnumMap<>(StrategyType.class);
+
+    /** Версия настроек, с которой стратегия запущена на этом узле. */
+    private final Map<String, Long> startedVersions = new ConcurrentHashMap<>();
+
+    /** Ключи, чья сверка уже ждёт в очереди: она прочитает свежую строку, второй раз не ставим. */
+    private final Set<String> queued = ConcurrentHashMap.newKeySet();
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "strategy-reconcile");
+        t.setDaemon(true);
+        return t;
+    });
+
+    @PostConstruct
+    private void init() {
+        rowByChat.put(StrategyType.SCALPING, scalpingRepo::findActivationRow);
+        rowByChat.put(StrategyType.FIBONACCI_GRID, fibRepo::findActivationRow);
+        rowByChat.put(StrategyType.BOLLINGER_BANDS, bollRepo::findActivationRow);
+        rowByChat.put(StrategyType.MACHINE_LEARNING_INVEST, mlRepo::findActivationRow);
+        rowByChat.put(StrategyType.RSI_EMA, rsiEmaRepo::findActivationRow);
+        rowByChat.put(StrategyType.MA_CROSSOVER, maCrossRepo::findActivationRow);
+        rowByChat.put(StrategyType.CUSTOM_RULES, customRuleRepo::findActivationRow);
+
+        activeRows.put(StrategyType.SCALPING, scalpingRepo::findActiveRows);
+        activeRows.put(StrategyType.FIBONACCI_GRID, fibRepo::findActiveRows);
+        activeRows.put(StrategyType.BOLLINGER_BANDS, bollRepo::findActiveRows);
+        activeRows.put(StrategyType.MACHINE_LEARNING_INVEST, mlRepo::findActiveRows);
+        activeRows.put(StrategyType.RSI_EMA, rsiEmaRepo::findActiveRows);
+        activeRows.put(StrategyType.MA_CROSSOVER, maCrossRepo::findActiveRows);
+        activeRows.put(StrategyType.CUSTOM_RULES, customRuleRepo::findActiveRows);
+
+        if (sweepMs > 0) {
+            // первый проход не сразу: при старте активные стратегии поднимает автозапуск планировщика
+            executor.scheduleWithFixedDelay(this::sweepSafe, sweepMs, sweepMs, TimeUnit.MILLISECONDS);
+            log.info("Страховочная сверка стратегий каждые {} мс", sweepMs);
+        }
+    }
+
+    @PreDestroy
+    private void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public void reconcile(Long chatId, StrategyType type) {
+        String key = buildKey(chatId, type);
+        if (!queued.add(key)) return;
+        executor.execute(() -> {
+            // снимаем метку до сверки: событие, пришедшее во время неё, поставит новую
+            queued.remove(key);
+            try {
+                reconcileNow(chatId, type);
+            } catch (Exception e) {
+                log.error("Сверка {} @{} не удалась: {}", type, chatId, e.getMessage(), e);
+            }
+        });
+    }
+
+    private synchronized void reconcileNow(Long chatId, StrategyType type) {
+        Function<Long, Optional<StrategyActivationRow>> finder = rowByChat.get(type);
+        if (finder == null) {
+            log.warn("Сверка: стратегия {} @{} не поддерживается", type, chatId);
+            return;
+        }
+
+        Optional<StrategyActivationRow> row = finder.apply(chatId);
+        boolean desiredActive = row.map(StrategyActivationRow::active).orElse(false);
+        boolean running = scheduler.isStrategyActive(chatId, type.name());
+        String key = buildKey(chatId, type);
+
+        if (desiredActive && running) {
+            long version = versionOf(row.get());
+            Long started = startedVersions.get(key);
+            if (started != null && started == version) {
+                log.debug("Настройки {} @{} сохранены без изменений (v{}) — перезапуск не нужен", type, chatId, version);
+                return;
+            }
+            // версия неизвестна (запущена автозапуском до первой сверки) — перезапуск безопаснее пропуска
+            log.info("Настройки {} @{} изменились (v{} → v{}) — перезапускаю", type, chatId, started, version);
+            scheduler.restartStrategy(chatId, type.name());
+        } else if (desiredActive) {
+            log.info("Настройки {} @{} активны — запускаю", type, chatId);
+            scheduler.startStrategy(chatId, type.name());
+        } else if (running) {
+            log.info("Настройки {} @{} деактивированы — останавливаю", type, chatId);
+            scheduler.stopStrategy(chatId, type.name());
+        } else {
+            log.debug("Настройки {} @{} деактивированы, задача и так не запущена", type, chatId);
+        }
+
+        if (desiredActive && scheduler.isStrategyActive(chatId, type.name())) {
+            startedVersions.put(key, versionOf(row.get()));
+        } else {
+            startedVersions.remove(key);
+        }
+    }
+
+    @Override
+    public synchronized void sweep() {
+        Map<String, StrategyActivationRow> desired = new HashMap<>();
+        activeRows.forEach((type, supplier) -> {
+            for (StrategyActivationRow r : supplier.get()) {
+                desired.put(buildKey(r.chatId(), type), r);
+            }
+        });
+
+        int stopped = 0, started = 0, restarted = 0;
+
+        for (String key : scheduler.getRunningKeys()) {
+            if (desired.containsKey(key)) continue;
+            StrategyType type = typeOf(key);
+            Long chatId = chatIdOf(key);
+            if (type == null || chatId == null || !rowByChat.containsKey(type)) continue;
+            scheduler.stopStrategy(chatId, type.name());
+            startedVersions.remove(key);
+            stopped++;
+        }
+
+        for (Map.Entry<String, StrategyActivationRow> e : desired.entrySet()) {
+            String key = e.getKey();
+            StrategyType type = typeOf(key);
+            Long chatId = e.getValue().chatId();
+            long version = versionOf(e.getValue());
+
+            if (scheduler.isStrategyActive(chatId, type.name())) {
+                Long known = startedVersions.putIfAbsent(key, version);
+                if (known != null && known != version) {
+                    log.info("Сверка: пропущено изменение {} (v{} → v{}) — перезапускаю", key, known, version);
+                    scheduler.restartStrategy(chatId, type.name());
+                    startedVersions.put(key, version);
+                    restarted++;
+                }
+            } else if (!cluster.isEnabled()) {
+                // в кластере сироты подхватываются по heartbeat с учётом доли узла
+                scheduler.startStrategy(chatId, type.name());
+                if (scheduler.isStrategyActive(chatId, type.name())) {
+                    startedVersions.put(key, version);
+                    started++;
+                }
+            }
+        }
+
+        if (stopped + started + restarted > 0) {
+            log.info("Сверка стратегий: запущено={}, остановлено={}, перезапущено={}", started, stopped, restarted);
+        }
+    }
+
+    private void sweepSafe() {
+        try {
+            sweep();
+        } catch (Exception e) {
+            log.error("Ошибка страховочной сверки стратегий: {}", e.getMessage(), e);
+        }
+    }
+
+    private static long versionOf(StrategyActivationRow row) {
+        return row.version() == null ? 0L : row.version();
+    }
+
+    private static String buildKey(Long chatId, StrategyType type) {
+        return chatId + ":" + type.name();
+    }
+
+    private static Long chatIdOf(String key) {
+        int idx = key.indexOf(':');
+        if (idx <= 0) return null;
+        try {
+            return Long.parseLong(key.substring(0, idx));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static StrategyType typeOf(String key) {
+        int idx = key.indexOf(':');
+        if (idx <= 0) return null;
+        try {
+            return StrategyType.valueOf(key.substring(idx + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
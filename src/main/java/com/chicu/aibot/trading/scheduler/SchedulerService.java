@@ -1,9 +1,13 @@
 package com.chicu.aibot.trading.scheduler;
 
+import java.util.Set;
+
 public interface SchedulerService {
     void startStrategy(Long chatId, String strategyName);
     void stopStrategy(Long chatId, String strategyName);
     boolean isStrategyActive(Long chatId, String strategyName);
+    /** Ключи "chatId:STRATEGY" задач, запущенных на этом узле. */
+    Set<String> getRunningKeys();
     default void restartStrategy(Long chatId, String strategyName) {
         if (isStrategyActive(chatId, strategyName)) {
             stopStrategy(chatId, strategyName);
@@ -0,0 +1,4 @@
+package com.chicu.aibot.trading.scheduler;
+
+/** Активное назначение для массового запуска: всё, что нужно планировщику, без загрузки сущности. */
+public record StrategyStartRow(Long chatId, String timeframe) { }
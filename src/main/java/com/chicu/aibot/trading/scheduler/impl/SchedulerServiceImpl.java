@@ -10,37 +10,53 @@ import com.chicu.aibot.bot.menu.feature.ai.strategy.ml_invest.AiTradingMlInvestC
 import com.chicu.aibot.bot.menu.feature.ai.strategy.ml_invest.service.MlInvestPanelRenderer;
 import com.chicu.aibot.bot.menu.feature.ai.strategy.scalping.ScalpingConfigState;
 import com.chicu.aibot.bot.menu.feature.ai.strategy.scalping.service.ScalpingPanelRenderer;
+import com.chicu.aibot.exchange.order.service.OrderLifecycleService;
 import com.chicu.aibot.strategy.StrategyRegistry;
 import com.chicu.aibot.strategy.TradingStrategy;
-import com.chicu.aibot.strategy.bollinger.model.BollingerStrategySettings;
 import com.chicu.aibot.strategy.bollinger.repository.BollingerStrategySettingsRepository;
-import com.chicu.aibot.strategy.fibonacci.model.FibonacciGridStrategySettings;
+import com.chicu.aibot.strategy.custom.repository.CustomRuleStrategySettingsRepository;
 import com.chicu.aibot.strategy.fibonacci.repository.FibonacciGridStrategySettingsRepository;
+import com.chicu.aibot.strategy.ma_crossover.repository.MaCrossoverStrategySettingsRepository;
 import com.chicu.aibot.strategy.ml_invest.model.MachineLearningInvestStrategySettings;
 import com.chicu.aibot.strategy.ml_invest.repository.MachineLearningInvestStrategySettingsRepository;
-import com.chicu.aibot.strategy.scalping.model.ScalpingStrategySettings;
+import com.chicu.aibot.strategy.rsi_ema.repository.RsiEmaStrategySettingsRepository;
 import com.chicu.aibot.strategy.scalping.repository.ScalpingStrategySettingsRepository;
+import com.chicu.aibot.strategy.service.TickContextService;
+import com.chicu.aibot.trading.actor.ActorRuntime;
+import com.chicu.aibot.trading.checkpoint.StrategyCheckpointService;
+import com.chicu.aibot.trading.cluster.ClusterCoordinator;
+import com.chicu.aibot.trading.cluster.ClusterHeartbeatEvent;
+import com.chicu.aibot.trading.lane.ExecutionLane;
+import com.chicu.aibot.trading.lane.LaneExecutor;
+import com.chicu.aibot.trading.persist.WriteBehindService;
+import com.chicu.aibot.trading.pnl.PnlAggregateService;
 import com.chicu.aibot.trading.scheduler.SchedulerService;
+import com.chicu.aibot.trading.scheduler.StrategyStartRow;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
 import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
 
+import java.lang.management.ManagementFactory;
 import java.lang.reflect.Method;
 import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 import java.util.function.Supplier;
-import java.util.stream.Stream;
 
 @Slf4j
 @Service
@@ -54,6 +70,9 @@ public class SchedulerServiceImpl implements SchedulerService {
     private final FibonacciGridStrategySettingsRepository fibRepo;
     private final BollingerStrategySettingsRepository bollRepo;
     private final MachineLearningInvestStrategySettingsRepository mlRepo;
+    private final RsiEmaStrategySettingsRepository rsiEmaRepo;
+    private final MaCrossoverStrategySettingsRepository maCrossRepo;
+    private final CustomRuleStrategySettingsRepository customRuleRepo;
 
     // панели
     private final ObjectProvider<ScalpingPanelRenderer> scalpingPanel;
@@ -63,6 +82,15 @@ public class SchedulerServiceImpl implements SchedulerService {
 
     private final ObjectProvider<TelegramBot> botProvider;
     private final MenuSessionService sessionService;
+    private final ClusterCoordinator cluster;
+    private final LaneExecutor lanes;
+    private final ActorRuntime actors;
+    private final TickContextService tickContexts;
+    private final StrategyCheckpointService checkpoints;
+    private final OrderLifecycleService orders;
+    private final PnlAggregateService pnl;
+    private final WriteBehindService writes;
+    private final MeterRegistry meterRegistry;
 
     @Value("${ui.autorefresh.ms:1000}")
     private long uiAutorefreshMs;
@@ -70,17 +98,41 @@ public class SchedulerServiceImpl implements SchedulerService {
     @Value("${trading.autostart:false}")
     private boolean tradingAutostart;
 
-    private ScheduledThreadPoolExecutor scheduler;
     private final Map<String, ScheduledFuture<?>> runningTasks = new ConcurrentHashMap<>();
+    private final Set<String> startingKeys = ConcurrentHashMap.newKeySet();
     private ScheduledFuture<?> uiRefreshFuture;
 
     private final Set<String> uiAutorefreshDisabled = ConcurrentHashMap.newKeySet();
     private final Map<String, String> lastUiPayload = new ConcurrentHashMap<>();
 
-    private static final AtomicLong SCHEDULER_THREAD_SEQ = new AtomicLong();
+    @Value("${lanes.trading.stop-timeout-sec:30}")
+    private long stopTimeoutSec;
+
+    /** Сколько ждать записи очереди перед тем, как отпустить аренду. */
+    @Value("${cluster.handoff-flush-ms:30000}")
+    private long handoffFlushMs;
+
+    /** Сколько start() гидратаций идёт одновременно при массовом автозапуске. */
+    @Value("${trading.autostart.concurrency:4}")
+    private int autostartConcurrency;
+
+    /** Ограничение темпа стартов (REST-запросы к бирже при гидратации), 0 — без ограничения. */
+    @Value("${trading.autostart.starts-per-second:5}")
+    private double autostartStartsPerSecond;
+
+    /** Первый тик автозапуска сдвигается внутри min(интервал, это значение), мс. */
+    @Value("${trading.autostart.stagger-max-ms:5000}")
+    private long autostartStaggerMaxMs;
+
+    /** Время от старта JVM до первого тика всех автозапущенных стратегий, мс (-1 — ещё идёт). */
+    private final AtomicLong autostartCompletedMs = new AtomicLong(-1);
+    /** Автозапущенные ключи, чей первый тик ещё не отработал. */
+    private final Set<String> awaitingFirstTick = ConcurrentHashMap.newKeySet();
+    /** Все старты автозапуска уже сделаны — дальше ждём только первые тики. */
+    private volatile boolean autostartLaunched;
 
     private final Map<String, Function<Long, String>> timeframeResolvers = new HashMap<>();
-    private final Map<String, Supplier<Stream<Long>>> autostartSuppliers = new HashMap<>();
+    private final Map<String, Supplier<List<StrategyStartRow>>> autostartSuppliers = new LinkedHashMap<>();
 
     private record UiMeta(String stateName, Supplier<Optional<? extends PanelRendererAdapter>> renderer) {}
     public interface PanelRendererAdapter {
@@ -91,16 +143,6 @@ public class SchedulerServiceImpl implements SchedulerService {
 
     @PostConstruct
     private void init() {
-        int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
-        this.scheduler = new ScheduledThreadPoolExecutor(threads, r -> {
-            Thread t = new Thread(r);
-            t.setName("ai-scheduler-" + SCHEDULER_THREAD_SEQ.incrementAndGet());
-            t.setDaemon(true);
-            return t;
-        });
-        this.scheduler.setRemoveOnCancelPolicy(true);
-        log.info("Планировщик инициализирован: {} поток(а/ов)", threads);
-
         // ===== резолверы таймфрейма =====
         timeframeResolvers.put("SCALPING", id ->
                 scalpingRepo.findByChatId(id)
@@ -117,6 +159,21 @@ public class SchedulerServiceImpl implements SchedulerService {
                         .orElseThrow(() -> new IllegalStateException("Bollinger settings not found for chatId=" + id))
                         .getTimeframe()
         );
+        timeframeResolvers.put("RSI_EMA", id ->
+                rsiEmaRepo.findByChatId(id)
+                        .orElseThrow(() -> new IllegalStateException("RSI+EMA settings not found for chatId=" + id))
+                        .getTimeframe()
+        );
+        timeframeResolvers.put("MA_CROSSOVER", id ->
+                maCrossRepo.findByChatId(id)
+                        .orElseThrow(() -> new IllegalStateException("MA Crossover settings not found for chatId=" + id))
+                        .getTimeframe()
+        );
+        timeframeResolvers.put("CUSTOM_RULES", id ->
+                customRuleRepo.findByChatId(id)
+                        .orElseThrow(() -> new IllegalStateException("Custom Rules settings not found for chatId=" + id))
+                        .getTimeframe()
+        );
         timeframeResolvers.put("MACHINE_LEARNING_INVEST", id -> {
             var settings = mlRepo.findByChatId(id).orElseGet(() -> {
                 MachineLearningInvestStrategySettings s = MachineLearningInvestStrategySettings.builder()
@@ -132,14 +189,13 @@ public class SchedulerServiceImpl implements SchedulerService {
         });
 
         // ===== автозапуск =====
-        autostartSuppliers.put("SCALPING", () ->
-                scalpingRepo.findAll().stream().filter(ScalpingStrategySettings::isActive).map(ScalpingStrategySettings::getChatId));
-        autostartSuppliers.put("FIBONACCI_GRID", () ->
-                fibRepo.findAll().stream().filter(FibonacciGridStrategySettings::isActive).map(FibonacciGridStrategySettings::getChatId));
-        autostartSuppliers.put("BOLLINGER_BANDS", () ->
-                bollRepo.findAll().stream().filter(BollingerStrategySettings::isActive).map(BollingerStrategySettings::getChatId));
-        autostartSuppliers.put("MACHINE_LEARNING_INVEST", () ->
-                mlRepo.findAll().stream().filter(MachineLearningInvestStrategySettings::isActive).map(MachineLearningInvestStrategySettings::getChatId));
+        autostartSuppliers.put("SCALPING", scalpingRepo::findActiveStartRows);
+        autostartSuppliers.put("FIBONACCI_GRID", fibRepo::findActiveStartRows);
+        autostartSuppliers.put("BOLLINGER_BANDS", bollRepo::findActiveStartRows);
+        autostartSuppliers.put("MACHINE_LEARNING_INVEST", mlRepo::findActiveStartRows);
+        autostartSuppliers.put("RSI_EMA", rsiEmaRepo::findActiveStartRows);
+        autostartSuppliers.put("MA_CROSSOVER", maCrossRepo::findActiveStartRows);
+        autostartSuppliers.put("CUSTOM_RULES", customRuleRepo::findActiveStartRows);
 
         // ===== UI =====
         uiByStrategy.put("SCALPING",
@@ -155,39 +211,80 @@ public class SchedulerServiceImpl implements SchedulerService {
                 new UiMeta(AiTradingMlInvestConfigState.NAME,
                         () -> mlPanel.stream().findFirst().map(p -> p::render)));
 
+        Gauge.builder("aibot.autostart.completed", autostartCompletedMs, AtomicLong::get)
+                .description("Время от старта JVM до первого тика всех автозапущенных стратегий, мс")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+
         startUiAutorefreshIfNeeded();
-        startActiveFromDbIfEnabled();
     }
 
     @PreDestroy
     private void shutdown() {
         log.info("Останавливаю планировщик…");
         if (uiRefreshFuture != null) uiRefreshFuture.cancel(true);
-        scheduler.shutdownNow();
+        runningTasks.values().forEach(f -> f.cancel(false));
         lastUiPayload.clear();
     }
 
     @Override
     public void startStrategy(Long chatId, String strategyName) {
+        startStrategy(chatId, strategyName, null, 0);
+    }
+
+    /**
+     * @param timeframe      уже известный таймфрейм (массовый запуск) или null — прочитать из БД
+     * @param initialDelayMs сдвиг первого тика, чтобы тики разных чатов не совпадали
+     */
+    private void startStrategy(Long chatId, String strategyName, String timeframe, long initialDelayMs) {
         String key = buildKey(chatId, strategyName);
+        // автозапуск, heartbeat и сверка могут стартовать один ключ одновременно
+        if (!startingKeys.add(key)) {
+            log.info("Стратегия {} @{} уже запускается", strategyName, chatId);
+            return;
+        }
+        try {
+            doStart(key, chatId, strategyName, timeframe, initialDelayMs);
+        } finally {
+            startingKeys.remove(key);
+        }
+    }
 
+    private void doStart(String key, Long chatId, String strategyName, String timeframe, long initialDelayMs) {
         ScheduledFuture<?> existing = runningTasks.get(key);
         if (existing != null && !existing.isCancelled() && !existing.isDone()) {
             log.info("Стратегия {} уже запущена для chatId={}", strategyName, chatId);
             return;
         }
 
-        long intervalSec = Math.max(1, resolveIntervalSec(chatId, strategyName));
-        TradingStrategy strategy = registry.getStrategyOrThrow(strategyName);
+        if (!cluster.tryAcquire(chatId, strategyName)) {
+            log.info("Стратегия {} @{} исполняется другим узлом — локально не запускаю", strategyName, chatId);
+            return;
+        }
 
+        long intervalSec;
+        TradingStrategy strategy;
         try {
-            strategy.start(chatId);
+            intervalSec = Math.max(1, timeframe != null
+                    ? parseTimeframe(timeframe)
+                    : resolveIntervalSec(chatId, strategyName));
+            strategy = registry.getStrategyOrThrow(strategyName);
+            // чат мог вести другой узел: его ордера и PnL в памяти этого узла устарели
+            if (cluster.isEnabled()) {
+                orders.reload(chatId);
+                pnl.reload(chatId, strategy.getType().name());
+            }
+            TradingStrategy s = strategy;
+            // start() — первое сообщение актора: тики пойдут только после гидратации
+            await(actors.command(key, "start", () -> s.start(chatId)));
         } catch (Exception e) {
+            actors.retire(key);
+            cluster.release(chatId, strategyName);
             log.error("Ошибка start() у стратегии {} @{}: {}", strategyName, chatId, e.getMessage(), e);
             throw e;
         }
 
-        ScheduledFuture<?> future = scheduleLoop(chatId, strategyName, strategy, intervalSec);
+        ScheduledFuture<?> future = scheduleLoop(chatId, strategyName, strategy, intervalSec, initialDelayMs);
         runningTasks.put(key, future);
         log.info("Запущена {} для chatId={} (интервал={}s)", strategyName, chatId, intervalSec);
     }
@@ -196,17 +293,29 @@ public class SchedulerServiceImpl implements SchedulerService {
     public void stopStrategy(Long chatId, String strategyName) {
         String key = buildKey(chatId, strategyName);
         ScheduledFuture<?> future = runningTasks.remove(key);
+        firstTickSettled(key);
 
         if (future == null || future.isCancelled() || future.isDone()) {
+            cluster.release(chatId, strategyName);
             log.info("Стратегия {} не запущена для chatId={}", strategyName, chatId);
             return;
         }
 
-        future.cancel(true);
+        future.cancel(false);
         try {
-            registry.getStrategyOrThrow(strategyName).stop(chatId);
+            // stop() — команда актору: дождётся текущего тика и обойдёт ожидающий, без гонок за состояние;
+            // полоса TRADING — не стоит в общем пуле за чужими тиками
+            TradingStrategy strategy = registry.getStrategyOrThrow(strategyName);
+            actors.command(key, "stop", ExecutionLane.TRADING, () -> strategy.stop(chatId))
+                    .get(stopTimeoutSec, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } catch (Exception e) {
             log.error("Ошибка stop() у стратегии {} @{}: {}", strategyName, chatId, e.getMessage(), e);
+        } finally {
+            actors.retire(key);
+            // аренду отдаём после stop(): другой узел не должен подхватить экземпляр посреди отмены ордеров
+            cluster.release(chatId, strategyName);
         }
         log.info("Остановлена {} для chatId={}", strategyName, chatId);
     }
@@ -218,15 +327,176 @@ public class SchedulerServiceImpl implements SchedulerService {
         return f != null && !f.isDone() && !f.isCancelled();
     }
 
-    private ScheduledFuture<?> scheduleLoop(Long chatId, String strategyName, TradingStrategy strategy, long intervalSec) {
-        return scheduler.scheduleAtFixedRate(() -> {
+    @Override
+    public Set<String> getRunningKeys() {
+        return Set.copyOf(runningTasks.keySet());
+    }
+
+    // ===== КЛАСТЕР =====
+
+    /**
+     * Сверка с арендами после каждого heartbeat узла:
+     * снимаем задачи, чья аренда ушла другому узлу, отдаём излишек сверх справедливой доли
+     * и подхватываем осиротевшие активные стратегии.
+     */
+    @EventListener
+    public void onClusterHeartbeat(ClusterHeartbeatEvent event) {
+        try {
+            detachLost(event.ownedKeys());
+            shedExcess(event.liveNodes());
+            adoptOrphans(event.liveKeys());
+        } catch (Exception e) {
+            log.warn("Сверка кластерных назначений не удалась: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Аренда потеряна (например, после паузы GC) — новый владелец уже работает, stop() не вызываем.
+     * Снимок ownedKeys сделан до захватов, случившихся после него, поэтому перед снятием владение
+     * перепроверяется в БД; ключи, которые сейчас запускаются, не трогаем вовсе.
+     */
+    private void detachLost(Set<String> ownedKeys) {
+        for (String key : List.copyOf(runningTasks.keySet())) {
+            if (ownedKeys.contains(key) || startingKeys.contains(key)) continue;
+            Long chatId = extractChatId(key);
+            if (chatId == null) continue;
+            try {
+                if (cluster.owns(chatId, key.substring(key.indexOf(':') + 1))) continue;
+            } catch (Exception e) {
+                log.warn("Проверка аренды {} не удалась ({}) — цикл оставлен", key, e.getMessage());
+                continue;
+            }
+            handOff(key, true);
+            log.warn("Аренда {} потеряна — локальный цикл снят", key);
+        }
+    }
+
+    /** Отдаём назначения сверх доли (с запасом в одно), чтобы новые узлы получили работу. */
+    private void shedExcess(int liveNodes) {
+        if (liveNodes <= 1) return;
+        int total = countActiveAssignments();
+        int share = cluster.fairShare(total);
+        int excess = runningTasks.size() - (share + 1);
+        if (excess <= 0) return;
+
+        for (String key : List.copyOf(runningTasks.keySet())) {
+            if (excess-- <= 0) break;
+            if (extractChatId(key) == null || startingKeys.contains(key)) continue;
+            handOff(key, false);
+            log.info("Ребалансировка: {} отдана другим узлам (доля={}, занято={})", key, share, runningTasks.size());
+        }
+    }
+
+    /**
+     * Снять локальный экземпляр, не трогая биржу: цикл останавливается, актор дорабатывает текущее
+     * сообщение и снимает память и триггеры ({@link TradingStrategy#detach}). Отдаём сами — сбрасываем
+     * чекпоинт и лишь затем отпускаем аренду, новый владелец продолжит с него. Потеряли — экземпляр уже
+     * ведёт другой узел, наши несброшенные изменения чекпоинта затёрли бы его. Перед отпуском аренды
+     * дописывается и отложенная запись ордеров и сделок.
+     * Не блокирует: вызывается из потока heartbeat, который должен успеть продлить аренды.
+     */
+    private void handOff(String key, boolean lost) {
+        Long chatId = extractChatId(key);
+        String name = key.substring(key.indexOf(':') + 1);
+        ScheduledFuture<?> f = runningTasks.remove(key);
+        if (f != null) f.cancel(false);
+        firstTickSettled(key);
+
+        TradingStrategy strategy = registry.getStrategyOrThrow(name);
+        actors.command(key, "detach", () -> {
+                    strategy.detach(chatId);
+                    if (lost) checkpoints.discard(chatId, strategy.getType());
+                })
+                .orTimeout(stopTimeoutSec, TimeUnit.SECONDS)
+                .whenComplete((v, e) -> {
+                    if (e != null) log.warn("Снятие {} не дождалось актора: {}", key, e.toString());
+                    // завершение идёт в потоке актора до следующего сообщения: ожидающий тик сюда не проскочит
+                    actors.retire(key);
+                    if (lost) return;
+                    try {
+                        checkpoints.flush();
+                    } catch (Exception ex) {
+                        log.warn("Сброс чекпоинтов перед передачей {} не удался: {}", key, ex.getMessage());
+                    }
+                    releaseAfterFlush(key, chatId, name);
+                });
+    }
+
+    /**
+     * Новый владелец читает ордера, ноги защиты и сделки из БД — аренда отпускается только после
+     * записи очереди. Пока БД не принимает, аренда остаётся за нами, попытка повторяется.
+     */
+    private void releaseAfterFlush(String key, Long chatId, String name) {
+        if (writes.flush(handoffFlushMs)) {
+            cluster.release(chatId, name);
+            return;
+        }
+        log.warn("Передача {} отложена: отложенная запись не сброшена за {} мс, в очереди {}",
+                key, handoffFlushMs, writes.pending());
+        CompletableFuture.runAsync(() -> releaseAfterFlush(key, chatId, name),
+                CompletableFuture.delayedExecutor(handoffFlushMs, TimeUnit.MILLISECONDS));
+    }
+
+    private void adoptOrphans(Set<String> liveKeys) {
+        Map<String, List<StrategyStartRow>> active = collectActive();
+        int total = active.values().stream().mapToInt(List::size).sum();
+        int share = cluster.isEnabled() ? cluster.fairShare(total) : Integer.MAX_VALUE;
+
+        for (Map.Entry<String, List<StrategyStartRow>> e : active.entrySet()) {
+            String name = e.getKey();
+            for (StrategyStartRow row : e.getValue()) {
+                if (runningTasks.size() >= share) return;
+                String key = buildKey(row.chatId(), name);
+                if (runningTasks.containsKey(key) || liveKeys.contains(key)) continue;
+                safeStart(row, name);
+            }
+        }
+    }
+
+    private Map<String, List<StrategyStartRow>> collectActive() {
+        Map<String, List<StrategyStartRow>> out = new LinkedHashMap<>();
+        autostartSuppliers.forEach((name, supplier) -> {
             try {
-                double price = strategy.getCurrentPrice(chatId);
-                strategy.onPriceUpdate(chatId, price);
+                out.put(name, supplier.get());
             } catch (Exception e) {
-                log.error("Ошибка onPriceUpdate для {} @{}: {}", strategyName, chatId, e.getMessage(), e);
+                log.error("Чтение активных {}: {}", name, e.getMessage());
             }
-        }, 0, intervalSec, TimeUnit.SECONDS);
+        });
+        return out;
+    }
+
+    private int countActiveAssignments() {
+        return collectActive().values().stream().mapToInt(List::size).sum();
+    }
+
+    private ScheduledFuture<?> scheduleLoop(Long chatId, String strategyName, TradingStrategy strategy,
+                                            long intervalSec, long initialDelayMs) {
+        String key = buildKey(chatId, strategyName);
+        // таймер лишь кладёт тик в ящик актора; сама оценка идёт в пуле акторов по одному сообщению
+        return lanes.scheduleAtFixedRate(ExecutionLane.STRATEGY, key, () -> {
+            boolean queued = actors.tick(key, () -> {
+                try {
+                    // настройки, свечи и цена грузятся один раз и отдаются стратегии целиком
+                    strategy.onTick(tickContexts.prepare(chatId, strategy));
+                } catch (Exception e) {
+                    log.error("Ошибка onTick для {} @{}: {}", strategyName, chatId, e.getMessage(), e);
+                } finally {
+                    firstTickSettled(key);
+                }
+            });
+            if (!queued) log.debug("Тик {} пропущен: предыдущий ещё не обработан", key);
+        }, initialDelayMs, TimeUnit.SECONDS.toMillis(intervalSec), TimeUnit.MILLISECONDS);
+    }
+
+    /** Ждём команду актора; исключение стратегии пробрасываем как есть. */
+    private static void await(CompletableFuture<Void> f) {
+        try {
+            f.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            if (e.getCause() instanceof Error err) throw err;
+            throw e;
+        }
     }
 
     private long resolveIntervalSec(Long chatId, String strategyName) {
@@ -262,7 +532,9 @@ public class SchedulerServiceImpl implements SchedulerService {
             return;
         }
         if (uiRefreshFuture == null || uiRefreshFuture.isCancelled() || uiRefreshFuture.isDone()) {
-            uiRefreshFuture = scheduler.scheduleAtFixedRate(
+            uiRefreshFuture = lanes.scheduleAtFixedRate(
+                    ExecutionLane.UI,
+                    "ui-panels",
                     this::refreshPanelsSafe,
                     uiAutorefreshMs,
                     uiAutorefreshMs,
@@ -364,25 +636,113 @@ public class SchedulerServiceImpl implements SchedulerService {
         return null;
     }
 
-    private void startActiveFromDbIfEnabled() {
+    /**
+     * Массовый автозапуск после готовности приложения: одна выборка на тип стратегии,
+     * параллельная гидратация start() под ограничением параллелизма и темпа,
+     * первые тики разнесены в пределах trading.autostart.stagger-max-ms.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startActiveFromDbIfEnabled() {
         if (!tradingAutostart) {
             log.info("Автозапуск стратегий отключён (trading.autostart=false)");
             return;
         }
-        autostartSuppliers.forEach((name, supplier) -> {
-            try {
-                supplier.get().forEach(chatId -> safeStart(chatId, name));
-            } catch (Exception e) {
-                log.error("Автозапуск {}: {}", name, e.getMessage());
+        Thread t = new Thread(this::runAutostart, "strategy-autostart");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private void runAutostart() {
+        long t0 = System.currentTimeMillis();
+        Map<String, List<StrategyStartRow>> active = collectActive();
+        int total = active.values().stream().mapToInt(List::size).sum();
+        // в кластере берём не больше своей доли; остальное подхватят другие узлы по heartbeat
+        int share = cluster.isEnabled() ? cluster.fairShare(total) : Integer.MAX_VALUE;
+
+        int threads = Math.max(1, autostartConcurrency);
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "strategy-autostart-worker");
+            t.setDaemon(true);
+            return t;
+        });
+        long spacingNanos = autostartStartsPerSecond > 0 ? (long) (1_000_000_000L / autostartStartsPerSecond) : 0L;
+        AtomicLong nextSlot = new AtomicLong(System.nanoTime());
+        AtomicInteger started = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>(total);
+
+        active.forEach((name, rows) -> {
+            for (StrategyStartRow row : rows) {
+                futures.add(pool.submit(() -> {
+                    if (runningTasks.size() >= share) return;
+                    pace(nextSlot, spacingNanos);
+                    if (safeStart(row, name)) started.incrementAndGet();
+                }));
             }
         });
+
+        for (Future<?> f : futures) {
+            try {
+                f.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException ignore) {
+                // ошибки уже залогированы в safeStart
+            }
+        }
+        pool.shutdown();
+
+        log.info("Автозапуск: запущено {}/{} за {} мс (параллелизм={}), ждём первые тики",
+                started.get(), total, System.currentTimeMillis() - t0, threads);
+        autostartLaunched = true;
+        completeAutostartIfTicked();
+    }
+
+    /** Первый тик ключа отработал (или ключ снят до него). */
+    private void firstTickSettled(String key) {
+        if (awaitingFirstTick.remove(key)) completeAutostartIfTicked();
+    }
+
+    /** aibot.autostart.completed — когда последняя автозапущенная стратегия отработала первый тик. */
+    private void completeAutostartIfTicked() {
+        if (!autostartLaunched || !awaitingFirstTick.isEmpty()) return;
+        long sinceJvm = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+        if (autostartCompletedMs.compareAndSet(-1, sinceJvm)) {
+            log.info("Автозапуск завершён: все стратегии отработали первый тик (от старта JVM — {} мс)", sinceJvm);
+        }
+    }
+
+    /** Простой лимитер темпа: каждый старт занимает свой слот во времени. */
+    private static void pace(AtomicLong nextSlot, long spacingNanos) {
+        if (spacingNanos <= 0) return;
+        long slot = nextSlot.getAndAdd(spacingNanos);
+        long wait = slot - System.nanoTime();
+        if (wait > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
     }
 
-    private void safeStart(Long chatId, String name) {
+    private boolean safeStart(StrategyStartRow row, String name) {
         try {
-            startStrategy(chatId, name);
+            long intervalMs = TimeUnit.SECONDS.toMillis(Math.max(1, parseTimeframe(row.timeframe())));
+            // детерминированный сдвиг: тики тысяч чатов не приходят в одну миллисекунду, но на 1h/1d
+            // первый тик не ждёт часами — окно не шире stagger-max-ms
+            long window = Math.max(1, Math.min(intervalMs, autostartStaggerMaxMs));
+            String key = buildKey(row.chatId(), name);
+            long offsetMs = Math.floorMod(key.hashCode(), window);
+            awaitingFirstTick.add(key);
+            startStrategy(row.chatId(), name, row.timeframe(), offsetMs);
+            boolean active = isStrategyActive(row.chatId(), name);
+            if (!active) firstTickSettled(key);
+            return active;
         } catch (Exception e) {
-            log.error("Автозапуск {} @{} провален: {}", name, chatId, e.getMessage());
+            firstTickSettled(buildKey(row.chatId(), name));
+            log.error("Автозапуск {} @{} провален: {}", name, row.chatId(), e.getMessage());
+            return false;
         }
     }
 }
@@ -0,0 +1,36 @@
+package com.chicu.aibot.trading.shadow;
+
+import com.chicu.aibot.trading.backtest.BacktestRequest;
+import com.chicu.aibot.trading.trade.model.TradeLogEntry;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Теневая (бумажная) торговля рядом с живыми стратегиями: тот же код стратегии, собранный
+ * фабрикой бэктеста, но сигналы исполняет симулятор, а сделки пишутся в отдельный журнал.
+ * Свечи берутся из {@link com.chicu.aibot.strategy.service.LiveCandleFeed} — тень торгует только
+ * по рядам, которые уже тянет какая-то живая стратегия, и запросов к бирже не добавляет.
+ */
+public interface ShadowService {
+
+    /**
+     * Запустить тень для чата. Из запроса используются name, symbol, strategy, балансы, комиссии,
+     * проскальзывание и фильтры; history и прочие поля прогона игнорируются.
+     * Тень с тем же именем перезапускается.
+     *
+     * @throws IllegalStateException превышен лимит теней на чат или теневой режим выключен
+     */
+    ShadowSnapshot start(Long chatId, BacktestRequest spec);
+
+    boolean stop(Long chatId, String name);
+
+    void stopAll(Long chatId);
+
+    List<ShadowSnapshot> list(Long chatId);
+
+    Optional<ShadowSnapshot> get(Long chatId, String name);
+
+    /** Последние сделки тени, новые первыми. */
+    List<TradeLogEntry> trades(Long chatId, String name, int limit);
+}
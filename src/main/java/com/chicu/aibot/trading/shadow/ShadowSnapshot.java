@@ -0,0 +1,23 @@
+package com.chicu.aibot.trading.shadow;
+
+import java.time.Instant;
+
+/**
+ * Состояние тени на момент последнего тика.
+ *
+ * @param waitingForData живой ленты по ряду тени нет — тень стоит, пока его не начнёт тянуть живая стратегия
+ */
+public record ShadowSnapshot(
+        Long chatId,
+        String name,
+        Instant startedAt,
+        Instant lastTickAt,
+        long ticks,
+        double initialEquity,
+        double equity,
+        double returnPct,
+        double feesPaid,
+        int fills,
+        int trades,
+        boolean waitingForData
+) { }
@@ -0,0 +1,36 @@
+package com.chicu.aibot.trading.shadow;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/** Сделка теневой стратегии: отдельно от trade_logs, чтобы не смешивать с реальным PnL. */
+@Entity
+@Table(name = "shadow_trade_logs")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShadowTradeEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long chatId;
+    private String shadowName;
+    private String symbol;
+
+    private Instant openTime;
+    private Instant closeTime;
+
+    private BigDecimal entryPrice;
+    private BigDecimal exitPrice;
+    private BigDecimal volume;
+    private BigDecimal pnl;
+    private BigDecimal pnlPct;
+
+    private String side;
+}
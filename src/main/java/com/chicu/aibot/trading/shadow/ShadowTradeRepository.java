@@ -0,0 +1,11 @@
+package com.chicu.aibot.trading.shadow;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface ShadowTradeRepository extends JpaRepository<ShadowTradeEntity, Long> {
+
+    List<ShadowTradeEntity> findByChatIdAndShadowNameOrderByCloseTimeDesc(Long chatId, String shadowName, Pageable page);
+}
@@ -0,0 +1,302 @@
+package com.chicu.aibot.trading.shadow.impl;
+
+import com.chicu.aibot.exchange.enums.Exchange;
+import com.chicu.aibot.exchange.enums.NetworkType;
+import com.chicu.aibot.exchange.model.ExchangeSettings;
+import com.chicu.aibot.exchange.service.ExchangeSettingsService;
+import com.chicu.aibot.strategy.TickContext;
+import com.chicu.aibot.strategy.TickRequest;
+import com.chicu.aibot.strategy.TradingStrategy;
+import com.chicu.aibot.strategy.indicator.IndicatorSeriesCache;
+import com.chicu.aibot.strategy.model.Candle;
+import com.chicu.aibot.strategy.service.LiveCandleFeed;
+import com.chicu.aibot.trading.backtest.BacktestContext;
+import com.chicu.aibot.trading.backtest.BacktestRequest;
+import com.chicu.aibot.trading.backtest.sim.NoopCheckpointService;
+import com.chicu.aibot.trading.backtest.sim.NoopExitManager;
+import com.chicu.aibot.trading.backtest.sim.NoopPriceTriggerService;
+import com.chicu.aibot.trading.backtest.sim.SimCandleService;
+import com.chicu.aibot.trading.backtest.sim.SimClock;
+import com.chicu.aibot.trading.backtest.sim.SimHousekeeper;
+import com.chicu.aibot.trading.backtest.sim.SimOrderService;
+import com.chicu.aibot.trading.shadow.ShadowService;
+import com.chicu.aibot.trading.shadow.ShadowSnapshot;
+import com.chicu.aibot.trading.shadow.ShadowTradeEntity;
+import com.chicu.aibot.trading.shadow.ShadowTradeRepository;
+import com.chicu.aibot.trading.trade.model.TradeLogEntry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Все тени крутятся в одном фоновом потоке: экземпляры стратегий и симуляторы однопоточны,
+ * а тик тени дешёвый — свечи уже в памяти. Тень тикает только когда по её ряду пришла новая
+ * публикация ленты, поэтому частый опрос ничего не стоит.
+ * <p>
+ * Индикаторы — общий {@link IndicatorSeriesCache} живых стратегий: ряд тот же, пересчитывать незачем.
+ * Биржа и сеть тени фиксируются при старте по настройкам чата — по ним выбирается и ряд ленты,
+ * и ключ кэша индикаторов.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ShadowServiceImpl implements ShadowService {
+
+    private final LiveCandleFeed feed;
+    private final IndicatorSeriesCache indicators;
+    private final ShadowTradeRepository tradeRepo;
+    private final ExchangeSettingsService settingsService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${shadow.enabled:true}")
+    private boolean enabled;
+
+    @Value("${shadow.tick-ms:1000}")
+    private long tickMs;
+
+    @Value("${shadow.max-per-chat:5}")
+    private int maxPerChat;
+
+    private final Map<String, Shadow> shadows = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "shadow-trading");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private Counter ticks;
+    private Counter starved;
+
+    /** Одна тень: своя стратегия поверх своего симулятора. Трогается только из потока теней. */
+    private static final class Shadow {
+        final Long chatId;
+        final String name;
+        final Exchange exchange;
+        final NetworkType network;
+        final SimClock clock;
+        final SimOrderService orders;
+        final ShadowTradeLogService tradeLog;
+        final TradingStrategy strategy;
+        final Instant startedAt = Instant.now();
+
+        double initialEquity = Double.NaN;
+        long lastVersion;
+        long ticks;
+        Instant lastTickAt;
+        boolean waiting;
+        volatile ShadowSnapshot snapshot;
+
+        Shadow(Long chatId, String name, Exchange exchange, NetworkType network, SimClock clock,
+               SimOrderService orders, ShadowTradeLogService tradeLog, TradingStrategy strategy) {
+            this.chatId = chatId;
+            this.name = name;
+            this.exchange = exchange;
+            this.network = network;
+            this.clock = clock;
+            this.orders = orders;
+            this.tradeLog = tradeLog;
+            this.strategy = strategy;
+            refresh();
+        }
+
+        void refresh() {
+            double eq = orders.equity();
+            double init = Double.isNaN(initialEquity) ? eq : initialEquity;
+            snapshot = new ShadowSnapshot(chatId, name, startedAt, lastTickAt, ticks, init, eq,
+                    init > 0 ? (eq - init) / init * 100.0 : 0.0,
+                    orders.feesPaid(), orders.fills().size(), tradeLog.count(), waiting);
+        }
+    }
+
+    @PostConstruct
+    private void init() {
+        Gauge.builder("aibot.shadow.instances", shadows, Map::size)
+                .description("Запущенные теневые стратегии").register(meterRegistry);
+        ticks = Counter.builder("aibot.shadow.ticks").register(meterRegistry);
+        starved = Counter.builder("aibot.shadow.starved")
+                .description("Тики теней без живой ленты по их ряду").register(meterRegistry);
+        if (!enabled) {
+            log.info("Теневая торговля отключена (shadow.enabled=false)");
+            return;
+        }
+        executor.scheduleWithFixedDelay(this::tickAll, tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    private void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public ShadowSnapshot start(Long chatId, BacktestRequest spec) {
+        if (!enabled) throw new IllegalStateException("теневая торговля отключена");
+        if (chatId == null || spec == null || spec.getStrategy() == null) {
+            throw new IllegalArgumentException("не задана стратегия тени");
+        }
+        String name = spec.getName() == null || spec.getName().isBlank() ? "shadow" : spec.getName().strip();
+        String key = key(chatId, name);
+        long others = shadows.keySet().stream().filter(k -> k.startsWith(chatId + "|") && !k.equals(key)).count();
+        if (others >= maxPerChat) {
+            throw new IllegalStateException("не больше " + maxPerChat + " теней на чат");
+        }
+
+        SimClock clock = new SimClock();
+        clock.set(Instant.now());
+        SimOrderService orders = new SimOrderService(spec, clock);
+        ShadowTradeLogService tradeLog = new ShadowTradeLogService(tradeRepo, name);
+        BacktestContext ctx = new BacktestContext(
+                chatId, clock, new SimCandleService(List.of()), orders, tradeLog,
+                new SimHousekeeper(orders), new NoopCheckpointService(), indicators, new NoopPriceTriggerService(),
+                new NoopExitManager());
+        ExchangeSettings venue = settingsService.getOrCreate(chatId);
+        Shadow shadow = new Shadow(chatId, name, venue.getExchange(), venue.getNetwork(), clock, orders, tradeLog,
+                spec.getStrategy().create(ctx));
+
+        // в карту — только после start(): иначе тик, идущий в этот момент, застанет тень незапущенной
+        executor.execute(() -> {
+            Shadow previous = shadows.remove(key);
+            if (previous != null) stopSafe(previous);
+            try {
+                shadow.strategy.start(chatId);
+                shadows.put(key, shadow);
+            } catch (Exception e) {
+                log.warn("Тень '{}' chatId={}: старт не удался: {}", name, chatId, e.toString());
+            }
+        });
+        log.info("Тень '{}' запущена для chatId={} ({})", name, chatId, shadow.strategy.getType());
+        return shadow.snapshot;
+    }
+
+    @Override
+    public boolean stop(Long chatId, String name) {
+        Shadow s = shadows.remove(key(chatId, name));
+        if (s == null) return false;
+        executor.execute(() -> stopSafe(s));
+        return true;
+    }
+
+    @Override
+    public void stopAll(Long chatId) {
+        for (Shadow s : List.copyOf(shadows.values())) {
+            if (s.chatId.equals(chatId)) stop(chatId, s.name);
+        }
+    }
+
+    @Override
+    public List<ShadowSnapshot> list(Long chatId) {
+        List<ShadowSnapshot> out = new ArrayList<>();
+        for (Shadow s : shadows.values()) if (s.chatId.equals(chatId)) out.add(s.snapshot);
+        out.sort(Comparator.comparing(ShadowSnapshot::name));
+        return out;
+    }
+
+    @Override
+    public Optional<ShadowSnapshot> get(Long chatId, String name) {
+        Shadow s = shadows.get(key(chatId, name));
+        return s == null ? Optional.empty() : Optional.of(s.snapshot);
+    }
+
+    @Override
+    public List<TradeLogEntry> trades(Long chatId, String name, int limit) {
+        List<TradeLogEntry> out = new ArrayList<>();
+        for (ShadowTradeEntity e : tradeRepo.findByChatIdAndShadowNameOrderByCloseTimeDesc(
+                chatId, name, PageRequest.of(0, Math.max(1, limit)))) {
+            out.add(TradeLogEntry.builder()
+                    .chatId(e.getChatId())
+                    .symbol(e.getSymbol())
+                    .openTime(e.getOpenTime())
+                    .closeTime(e.getCloseTime())
+                    .entryPrice(e.getEntryPrice())
+                    .exitPrice(e.getExitPrice())
+                    .volume(e.getVolume())
+                    .pnl(e.getPnl())
+                    .pnlPct(e.getPnlPct())
+                    .side(e.getSide())
+                    .build());
+        }
+        return out;
+    }
+
+    /* ================= тик ================= */
+
+    private void tickAll() {
+        for (Shadow s : shadows.values()) {
+            try {
+                tick(s);
+            } catch (Exception e) {
+                log.warn("Тень '{}' chatId={}: ошибка тика: {}", s.name, s.chatId, e.toString());
+            }
+        }
+    }
+
+    private void tick(Shadow s) {
+        TickRequest req = s.strategy.prepareTick(s.chatId);
+        if (req == null || req.settings() == null) return;
+        feed.watch(s.exchange, s.network, req.symbol(), req.timeframe());
+
+        long version = feed.version(s.exchange, s.network, req.symbol(), req.timeframe());
+        if (version == s.lastVersion) return; // по ряду ничего нового
+        List<Candle> window = feed.window(s.exchange, s.network, req.symbol(), req.timeframe(),
+                Math.max(1, req.candles()));
+        if (window.isEmpty()) {
+            if (!s.waiting) {
+                log.info("Тень '{}' chatId={}: нет живой ленты {} {}, жду", s.name, s.chatId, req.symbol(), req.timeframe());
+                s.waiting = true;
+                s.refresh();
+            }
+            starved.increment();
+            return;
+        }
+        s.lastVersion = version;
+        s.waiting = false;
+
+        Candle last = window.getLast();
+        double price = last.getClose() == null ? 0.0 : last.getClose().doubleValue();
+        s.clock.set(Instant.now());
+        // формирующийся бар: диапазон растёт от публикации к публикации, лимитки исполняются по мере касания
+        s.orders.onBar(last);
+        if (Double.isNaN(s.initialEquity) && price > 0) s.initialEquity = s.orders.equity();
+
+        s.strategy.onTick(new TickContext(s.chatId, s.exchange, s.network, req.settings(), req.symbol(),
+                req.timeframe(), window, price, () -> s.orders.loadActiveOrders(s.chatId, req.symbol())));
+        s.ticks++;
+        s.lastTickAt = Instant.now();
+        s.refresh();
+        ticks.increment();
+    }
+
+    private void stopSafe(Shadow s) {
+        try {
+            s.strategy.stop(s.chatId);
+        } catch (Exception e) {
+            log.warn("Тень '{}' chatId={}: ошибка остановки: {}", s.name, s.chatId, e.toString());
+        }
+        s.refresh();
+        ShadowSnapshot r = s.snapshot;
+        log.info("Тень '{}' chatId={} остановлена: тиков={}, доходность={}%, сделок={}",
+                s.name, s.chatId, r.ticks(), String.format("%.2f", r.returnPct()), r.trades());
+    }
+
+    private static String key(Long chatId, String name) {
+        return chatId + "|" + name;
+    }
+}
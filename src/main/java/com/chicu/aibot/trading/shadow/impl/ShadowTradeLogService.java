@@ -0,0 +1,70 @@
+package com.chicu.aibot.trading.shadow.impl;
+
+import com.chicu.aibot.trading.shadow.ShadowTradeEntity;
+import com.chicu.aibot.trading.shadow.ShadowTradeRepository;
+import com.chicu.aibot.trading.trade.TradeLogService;
+import com.chicu.aibot.trading.trade.model.TradeLogEntry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+/**
+ * Журнал сделок одной тени: пишет в shadow_trade_logs под именем тени, последние значения держит
+ * в памяти — стратегии спрашивают их на тике, и ходить за ними в БД незачем.
+ */
+@Slf4j
+final class ShadowTradeLogService implements TradeLogService {
+
+    private final ShadowTradeRepository repo;
+    private final String shadowName;
+
+    private TradeLogEntry last;
+    private double totalPnl;
+    private int count;
+
+    ShadowTradeLogService(ShadowTradeRepository repo, String shadowName) {
+        this.repo = repo;
+        this.shadowName = shadowName;
+    }
+
+    @Override
+    public Optional<TradeLogEntry> getLastTrade(Long chatId, String symbol) {
+        return Optional.ofNullable(last);
+    }
+
+    @Override
+    public void logTrade(TradeLogEntry entry) {
+        last = entry;
+        count++;
+        BigDecimal pnl = entry.getPnl();
+        if (pnl != null) totalPnl += pnl.doubleValue();
+        try {
+            repo.save(ShadowTradeEntity.builder()
+                    .chatId(entry.getChatId())
+                    .shadowName(shadowName)
+                    .symbol(entry.getSymbol())
+                    .openTime(entry.getOpenTime())
+                    .closeTime(entry.getCloseTime())
+                    .entryPrice(entry.getEntryPrice())
+                    .exitPrice(entry.getExitPrice())
+                    .volume(entry.getVolume())
+                    .pnl(entry.getPnl())
+                    .pnlPct(entry.getPnlPct())
+                    .side(entry.getSide())
+                    .build());
+        } catch (Exception e) {
+            // тень не должна падать из-за журнала: сделка останется в счётчиках
+            log.warn("Тень '{}' chatId={}: не удалось записать сделку: {}", shadowName, entry.getChatId(), e.getMessage());
+        }
+    }
+
+    @Override
+    public Optional<Double> getTotalPnl(Long chatId, String symbol) {
+        return count == 0 ? Optional.empty() : Optional.of(totalPnl);
+    }
+
+    int count() {
+        return count;
+    }
+}
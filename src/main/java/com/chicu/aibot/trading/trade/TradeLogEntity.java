@@ -1,6 +1,7 @@
 // src/main/java/com/chicu/aibot/trading/trade/TradeLogEntity.java
 package com.chicu.aibot.trading.trade;
 
+import com.chicu.aibot.trading.persist.impl.PooledIdListener;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -8,19 +9,21 @@ import java.math.BigDecimal;
 import java.time.Instant;
 
 @Entity
-@Table(name = "trade_logs")
+@Table(name = "trade_logs", indexes = @Index(name = "trade_logs_chat_symbol_close_idx", columnList = "chatId, symbol, closeTime"))
+@EntityListeners(PooledIdListener.class)
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class TradeLogEntity {
 
+    /** Из пула {@link PooledIdListener}. */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
     private Long chatId;
     private String symbol;
+    private String strategy; // StrategyType.name(); null — записано до появления поля
 
     private Instant openTime;
     private Instant closeTime;
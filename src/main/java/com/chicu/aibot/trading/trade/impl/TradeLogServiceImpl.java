@@ -1,5 +1,8 @@
 package com.chicu.aibot.trading.trade.impl;
 
+import com.chicu.aibot.trading.persist.WriteBehindService;
+import com.chicu.aibot.trading.pnl.PnlAggregateService;
+import com.chicu.aibot.trading.pnl.PnlStats;
 import com.chicu.aibot.trading.trade.TradeLogEntity;
 import com.chicu.aibot.trading.trade.TradeLogRepository;
 import com.chicu.aibot.trading.trade.TradeLogService;
@@ -8,6 +11,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.util.Comparator;
 import java.util.Optional;
 
 @Service
@@ -16,22 +20,33 @@ import java.util.Optional;
 public class TradeLogServiceImpl implements TradeLogService {
 
     private final TradeLogRepository repo;
+    private final WriteBehindService writes;
+    private final PnlAggregateService pnl;
 
+    /** Сделка пишется в БД отложенно — последняя может быть ещё в очереди. */
     @Override
     public Optional<TradeLogEntry> getLastTrade(Long chatId, String symbol) {
-        return repo.findTopByChatIdAndSymbolOrderByCloseTimeDesc(chatId, symbol)
-                .map(e -> TradeLogEntry.builder()
-                        .chatId(e.getChatId())
-                        .symbol(e.getSymbol())
-                        .openTime(e.getOpenTime())
-                        .closeTime(e.getCloseTime())
-                        .entryPrice(e.getEntryPrice())
-                        .exitPrice(e.getExitPrice())
-                        .volume(e.getVolume())
-                        .pnl(e.getPnl())
-                        .pnlPct(e.getPnlPct())
-                        .side(e.getSide())
-                        .build());
+        Optional<TradeLogEntity> pending = writes.pendingTrades().stream()
+                .filter(t -> chatId.equals(t.getChatId()) && symbol.equals(t.getSymbol()))
+                .max(Comparator.comparing(TradeLogEntity::getCloseTime, Comparator.nullsFirst(Comparator.naturalOrder())));
+        if (pending.isPresent()) return pending.map(TradeLogServiceImpl::toEntry);
+        return repo.findTopByChatIdAndSymbolOrderByCloseTimeDesc(chatId, symbol).map(TradeLogServiceImpl::toEntry);
+    }
+
+    private static TradeLogEntry toEntry(TradeLogEntity e) {
+        return TradeLogEntry.builder()
+                .chatId(e.getChatId())
+                .symbol(e.getSymbol())
+                .strategy(e.getStrategy())
+                .openTime(e.getOpenTime())
+                .closeTime(e.getCloseTime())
+                .entryPrice(e.getEntryPrice())
+                .exitPrice(e.getExitPrice())
+                .volume(e.getVolume())
+                .pnl(e.getPnl())
+                .pnlPct(e.getPnlPct())
+                .side(e.getSide())
+                .build();
     }
 
     @Override
@@ -39,6 +54,7 @@ public class TradeLogServiceImpl implements TradeLogService {
         TradeLogEntity entity = TradeLogEntity.builder()
                 .chatId(entry.getChatId())
                 .symbol(entry.getSymbol())
+                .strategy(entry.getStrategy())
                 .openTime(entry.getOpenTime())
                 .closeTime(entry.getCloseTime())
                 .entryPrice(entry.getEntryPrice())
@@ -49,19 +65,21 @@ public class TradeLogServiceImpl implements TradeLogService {
                 .side(entry.getSide())
                 .build();
 
-        repo.save(entity);
+        writes.insertTrade(entity);
+        pnl.record(entity);
         log.info("💾 Записана сделка: chatId={} symbol={} side={} entry={} exit={} pnl={}",
                 entity.getChatId(), entity.getSymbol(), entity.getSide(),
                 entity.getEntryPrice(), entity.getExitPrice(), entity.getPnl());
     }
 
+    /** Из агрегатов в памяти — без суммирования истории сделок. */
     @Override
     public Optional<Double> getTotalPnl(Long chatId, String symbol) {
-        Double sum = repo.sumPnlByChatIdAndSymbol(chatId, symbol);
-        if (sum == null) {
+        PnlStats total = pnl.total(chatId, symbol);
+        if (total.trades() == 0) {
             return Optional.empty();
         }
-        return Optional.of(sum);
+        return Optional.of(total.realizedPnl().doubleValue());
     }
 
 }
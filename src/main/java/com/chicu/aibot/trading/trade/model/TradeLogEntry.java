@@ -17,6 +17,7 @@ public class TradeLogEntry {
 
     private Long chatId;
     private String symbol;
+    private String strategy; // StrategyType.name(); null — записано до появления поля
 
     private Instant openTime;
     private Instant closeTime;
@@ -0,0 +1,12 @@
+package com.chicu.aibot.trading.trigger;
+
+import java.util.function.DoubleConsumer;
+
+/**
+ * Взведённый уровень.
+ *
+ * @param owner  ключ актора стратегии ({@code chatId:STRATEGY}); действие исполняется в его ящике
+ * @param action получает цену, на которой уровень сработал
+ */
+public record PriceTrigger(long id, String owner, TriggerMarket market, TriggerDirection direction,
+                           double price, DoubleConsumer action) { }
@@ -0,0 +1,59 @@
+package com.chicu.aibot.trading.trigger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Уровни одного рынка в двух упорядоченных skip-list'ах: ABOVE по возрастанию цены, BELOW — тоже,
+ * но снимаются с хвоста. Новая цена снимает ровно пересечённые уровни за O(log n + k).
+ * Потокобезопасен: уровень срабатывает не больше одного раза, даже при гонке с {@link #remove}.
+ */
+public final class PriceTriggerIndex {
+
+    /** Цена + id: одинаковые цены разных чатов не затирают друг друга. */
+    private record Key(double price, long id) implements Comparable<Key> {
+        @Override
+        public int compareTo(Key o) {
+            int c = Double.compare(price, o.price);
+            return c != 0 ? c : Long.compare(id, o.id);
+        }
+    }
+
+    private final ConcurrentSkipListMap<Key, PriceTrigger> above = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<Key, PriceTrigger> below = new ConcurrentSkipListMap<>();
+
+    public void add(PriceTrigger t) {
+        side(t.direction()).put(new Key(t.price(), t.id()), t);
+    }
+
+    public boolean remove(PriceTrigger t) {
+        return side(t.direction()).remove(new Key(t.price(), t.id()), t);
+    }
+
+    /** Снять и вернуть уровни, пересечённые ценой. */
+    public List<PriceTrigger> fire(double price) {
+        List<PriceTrigger> out = new ArrayList<>();
+        Map.Entry<Key, PriceTrigger> e;
+        while ((e = above.firstEntry()) != null && e.getKey().price() <= price) {
+            if (above.remove(e.getKey(), e.getValue())) out.add(e.getValue());
+        }
+        while ((e = below.lastEntry()) != null && e.getKey().price() >= price) {
+            if (below.remove(e.getKey(), e.getValue())) out.add(e.getValue());
+        }
+        return out;
+    }
+
+    public int size() {
+        return above.size() + below.size();
+    }
+
+    public boolean isEmpty() {
+        return above.isEmpty() && below.isEmpty();
+    }
+
+    private ConcurrentSkipListMap<Key, PriceTrigger> side(TriggerDirection d) {
+        return d == TriggerDirection.ABOVE ? above : below;
+    }
+}
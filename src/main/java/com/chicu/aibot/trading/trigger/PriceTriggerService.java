@@ -0,0 +1,26 @@
+package com.chicu.aibot.trading.trigger;
+
+import java.util.function.DoubleConsumer;
+
+/**
+ * Общий для всех чатов движок TP/SL-уровней: цена каждого рынка опрашивается один раз
+ * на всех подписчиков, и пересечённые уровни срабатывают на каждом обновлении цены,
+ * независимо от таймфрейма стратегии.
+ */
+public interface PriceTriggerService {
+
+    /**
+     * Взвести уровень. Действие исполняется в ящике актора {@code owner}, т.е. не пересекается
+     * с тиками стратегии; если актора уже нет (стратегия остановлена или ушла на другой узел),
+     * уровень молча снимается.
+     *
+     * @return id уровня
+     */
+    long arm(Long chatId, String owner, String symbol, TriggerDirection direction, double price, DoubleConsumer action);
+
+    /** Снять все уровни владельца. */
+    void disarm(String owner);
+
+    /** Новая цена рынка: срабатывают пересечённые уровни. */
+    void onPrice(TriggerMarket market, double price);
+}
@@ -0,0 +1,9 @@
+package com.chicu.aibot.trading.trigger;
+
+/** В какую сторону цена должна пересечь уровень. */
+public enum TriggerDirection {
+    /** Цена поднялась до уровня или выше (TP лонга, SL шорта). */
+    ABOVE,
+    /** Цена опустилась до уровня или ниже (SL лонга, TP шорта). */
+    BELOW
+}
@@ -0,0 +1,7 @@
+package com.chicu.aibot.trading.trigger;
+
+import com.chicu.aibot.exchange.enums.Exchange;
+import com.chicu.aibot.exchange.enums.NetworkType;
+
+/** Рынок, цену которого слушают триггеры: у mainnet и testnet цены разные. */
+public record TriggerMarket(Exchange exchange, NetworkType network, String symbol) { }
@@ -0,0 +1,149 @@
+package com.chicu.aibot.trading.trigger.impl;
+
+import com.chicu.aibot.exchange.client.ExchangeClientFactory;
+import com.chicu.aibot.exchange.model.ExchangeSettings;
+import com.chicu.aibot.exchange.model.TickerInfo;
+import com.chicu.aibot.exchange.service.ExchangeSettingsService;
+import com.chicu.aibot.exchange.service.PriceService;
+import com.chicu.aibot.trading.actor.ActorRuntime;
+import com.chicu.aibot.trading.lane.ExecutionLane;
+import com.chicu.aibot.trading.lane.LaneExecutor;
+import com.chicu.aibot.trading.trigger.PriceTrigger;
+import com.chicu.aibot.trading.trigger.PriceTriggerIndex;
+import com.chicu.aibot.trading.trigger.PriceTriggerService;
+import com.chicu.aibot.trading.trigger.TriggerDirection;
+import com.chicu.aibot.trading.trigger.TriggerMarket;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Один опрос тикера на рынок с взведёнными уровнями, в торговой полосе. Бирже нужен
+ * один запрос на символ, сколько бы чатов на нём ни стояло.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PriceTriggerServiceImpl implements PriceTriggerService {
+
+    private final ExchangeClientFactory clientFactory;
+    private final ExchangeSettingsService settingsService;
+    /** Опрошенная цена идёт и в кэш цен: рыночный выход по уровню не запрашивает тикер заново. */
+    private final PriceService priceService;
+    private final ActorRuntime actors;
+    private final LaneExecutor lanes;
+    private final MeterRegistry meterRegistry;
+
+    /** Период опроса цен, мс; 0 — опрос выключен (уровни срабатывают только через onPrice). */
+    @Value("${triggers.poll-ms:1000}")
+    private long pollMs;
+
+    private final Map<TriggerMarket, PriceTriggerIndex> markets = new ConcurrentHashMap<>();
+    private final Map<String, Set<PriceTrigger>> byOwner = new ConcurrentHashMap<>();
+    private final AtomicLong seq = new AtomicLong();
+    private Counter fired;
+    private Counter dropped;
+    private ScheduledFuture<?> poller;
+
+    @PostConstruct
+    private void init() {
+        Gauge.builder("aibot.triggers.armed", markets,
+                        m -> m.values().stream().mapToInt(PriceTriggerIndex::size).sum())
+                .description("Взведённые TP/SL-уровни всех чатов").register(meterRegistry);
+        Gauge.builder("aibot.triggers.markets", markets, Map::size).register(meterRegistry);
+        fired = Counter.builder("aibot.triggers.fired").register(meterRegistry);
+        dropped = Counter.builder("aibot.triggers.dropped")
+                .description("Сработавшие уровни без живого актора").register(meterRegistry);
+
+        if (pollMs > 0) {
+            poller = lanes.scheduleAtFixedRate(ExecutionLane.TRADING, "price-triggers",
+                    this::pollPrices, pollMs, pollMs, TimeUnit.MILLISECONDS);
+            log.info("Ценовые триггеры: опрос каждые {} мс", pollMs);
+        }
+    }
+
+    @PreDestroy
+    private void shutdown() {
+        if (poller != null) poller.cancel(false);
+    }
+
+    @Override
+    public long arm(Long chatId, String owner, String symbol, TriggerDirection direction,
+                    double price, DoubleConsumer action) {
+        ExchangeSettings s = settingsService.getOrCreate(chatId);
+        TriggerMarket market = new TriggerMarket(s.getExchange(), s.getNetwork(), symbol);
+        PriceTrigger t = new PriceTrigger(seq.incrementAndGet(), owner, market, direction, price, action);
+        byOwner.computeIfAbsent(owner, k -> ConcurrentHashMap.newKeySet()).add(t);
+        // под блокировкой ячейки: не разминёмся с удалением опустевшего индекса в опросе
+        markets.compute(market, (k, idx) -> {
+            PriceTriggerIndex index = idx != null ? idx : new PriceTriggerIndex();
+            index.add(t);
+            return index;
+        });
+        log.debug("Триггер #{} {} {} {} @{}", t.id(), owner, symbol, direction, price);
+        return t.id();
+    }
+
+    @Override
+    public void disarm(String owner) {
+        Set<PriceTrigger> ts = byOwner.remove(owner);
+        if (ts == null) return;
+        for (PriceTrigger t : ts) {
+            PriceTriggerIndex idx = markets.get(t.market());
+            if (idx != null) idx.remove(t);
+        }
+    }
+
+    @Override
+    public void onPrice(TriggerMarket market, double price) {
+        PriceTriggerIndex idx = markets.get(market);
+        if (idx == null || price <= 0) return;
+        for (PriceTrigger t : idx.fire(price)) {
+            Set<PriceTrigger> own = byOwner.get(t.owner());
+            if (own != null) own.remove(t);
+            fired.increment();
+            // выход по уровню — полоса TRADING: не ждёт, пока общий пул акторов разберёт тики
+            boolean delivered = actors.send(t.owner(), "trigger", ExecutionLane.TRADING, () -> t.action().accept(price));
+            if (!delivered) {
+                dropped.increment();
+                log.info("Триггер #{} {} сработал @{}, но стратегия не исполняется на этом узле — снят",
+                        t.id(), t.owner(), price);
+            }
+        }
+    }
+
+    private void pollPrices() {
+        for (Map.Entry<TriggerMarket, PriceTriggerIndex> e : markets.entrySet()) {
+            TriggerMarket m = e.getKey();
+            if (e.getValue().isEmpty()) {
+                markets.computeIfPresent(m, (k, idx) -> idx.isEmpty() ? null : idx);
+                continue;
+            }
+            try {
+                clientFactory.getClient(m.exchange())
+                        .getTicker(m.symbol(), m.network())
+                        .map(TickerInfo::getPrice)
+                        .ifPresent(p -> {
+                            priceService.onPrice(m.exchange(), m.symbol(), m.network(), p);
+                            onPrice(m, p.doubleValue());
+                        });
+            } catch (Exception ex) {
+                log.debug("Цена {} для триггеров недоступна: {}", m, ex.getMessage());
+            }
+        }
+    }
+}
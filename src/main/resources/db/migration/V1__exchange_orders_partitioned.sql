@@ -0,0 +1,180 @@
+-- exchange_orders: секции по месяцу created_at, smallint-коды side/type/status, индексы под запросы
+-- ExchangeOrderRepository. Коды совпадают с OrderColumnCodes — существующие не менять.
+--   side:   1 BUY, 2 SELL
+--   type:   1 LIMIT, 2 MARKET, 3 TAKE_PROFIT, 4 STOP_LOSS, 5 TAKE_PROFIT_LIMIT, 6 STOP_LOSS_LIMIT, 7 LIMIT_MAKER
+--   status: 1 NEW, 2 PARTIALLY_FILLED, 3 FILLED, 4 CANCELED, 5 REJECTED, 6 EXPIRED, 7 PENDING_CANCEL, 8 EXPIRED_IN_MATCH
+--   0 — значение, которого нет в списке (V4 дописывает коды и сохраняет исходный статус в status_raw).
+-- Таблица, созданная раньше через ddl-auto, переносится сюда целиком и остаётся как exchange_orders_legacy:
+-- исходные строки side/type/status нужны V4 и сверке; удалять вручную после проверки переноса.
+
+DO $$
+BEGIN
+    IF to_regclass('exchange_orders') IS NOT NULL THEN
+        ALTER TABLE exchange_orders RENAME TO exchange_orders_legacy;
+        -- индекс первичного ключа при переименовании таблицы сохраняет имя и занял бы его у новой
+        IF EXISTS (SELECT 1 FROM pg_constraint
+                   WHERE conrelid = 'exchange_orders_legacy'::regclass AND conname = 'exchange_orders_pkey') THEN
+            ALTER TABLE exchange_orders_legacy RENAME CONSTRAINT exchange_orders_pkey TO exchange_orders_legacy_pkey;
+        END IF;
+    END IF;
+END $$;
+
+CREATE TABLE exchange_orders (
+    id               bigint       NOT NULL,
+    chat_id          bigint,
+    exchange         varchar(64),
+    network          varchar(64),
+    order_id         varchar(64),
+    order_list_id    varchar(64),
+    symbol           varchar(64),
+    side             smallint,
+    type             smallint,
+    status           smallint,
+    price            numeric,
+    quantity         numeric,
+    executed_qty     numeric,
+    quote_qty        numeric,
+    commission       numeric,
+    commission_asset varchar(64),
+    pnl              numeric,
+    pnl_pct          numeric,
+    created_at       timestamptz  NOT NULL DEFAULT now(),
+    updated_at       timestamptz,
+    last_checked_at  timestamptz,
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+-- страховка: строки вне созданных месяцев; ensure_partitions перекладывает их при создании месяца
+CREATE TABLE exchange_orders_default PARTITION OF exchange_orders DEFAULT;
+
+-- Месячные секции [from_month, from_month + months] (UTC). Идемпотентна; зовётся при старте и раз в сутки.
+CREATE OR REPLACE FUNCTION exchange_orders_ensure_partitions(from_month date, months int)
+RETURNS int LANGUAGE plpgsql AS $$
+DECLARE
+    m       date := date_trunc('month', from_month)::date;
+    lo      timestamptz;
+    hi      timestamptz;
+    part    text;
+    created int := 0;
+BEGIN
+    FOR i IN 0..months LOOP
+        part := 'exchange_orders_' || to_char(m, 'YYYY_MM');
+        lo := m::timestamp AT TIME ZONE 'UTC';
+        hi := (m + interval '1 month')::timestamp AT TIME ZONE 'UTC';
+        IF to_regclass(part) IS NULL THEN
+            IF EXISTS (SELECT 1 FROM exchange_orders_default WHERE created_at >= lo AND created_at < hi) THEN
+                -- месяц уже начал копиться в default: переносим строки и подключаем секцию
+                EXECUTE format('CREATE TABLE %I (LIKE exchange_orders INCLUDING DEFAULTS)', part);
+                EXECUTE format('WITH moved AS (DELETE FROM exchange_orders_default WHERE created_at >= %L AND created_at < %L RETURNING *) '
+                               'INSERT INTO %I SELECT * FROM moved', lo, hi, part);
+                EXECUTE format('ALTER TABLE exchange_orders ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)', part, lo, hi);
+            ELSE
+                EXECUTE format('CREATE TABLE %I PARTITION OF exchange_orders FOR VALUES FROM (%L) TO (%L)', part, lo, hi);
+            END IF;
+            created := created + 1;
+        END IF;
+        m := (m + interval '1 month')::date;
+    END LOOP;
+    RETURN created;
+END $$;
+
+-- Удаляет месячные секции, целиком лежащие раньше before, если в них нет открытых ордеров.
+CREATE OR REPLACE FUNCTION exchange_orders_drop_partitions(before date)
+RETURNS int LANGUAGE plpgsql AS $$
+DECLARE
+    part     text;
+    has_open boolean;
+    dropped  int := 0;
+BEGIN
+    FOR part IN
+        SELECT c.relname
+        FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'exchange_orders'::regclass
+          AND c.relname ~ '^exchange_orders_[0-9]{4}_[0-9]{2}$'
+        ORDER BY c.relname
+    LOOP
+        IF to_date(substr(part, 17), 'YYYY_MM') + interval '1 month' <= before THEN
+            EXECUTE format('SELECT EXISTS (SELECT 1 FROM %I WHERE status IN (1, 2))', part) INTO has_open;
+            IF NOT has_open THEN
+                EXECUTE format('DROP TABLE %I', part);
+                dropped := dropped + 1;
+            END IF;
+        END IF;
+    END LOOP;
+    RETURN dropped;
+END $$;
+
+DO $$
+DECLARE
+    first_month date;
+    months      int;
+BEGIN
+    IF to_regclass('exchange_orders_legacy') IS NULL THEN
+        PERFORM exchange_orders_ensure_partitions(current_date, 3);
+        RETURN;
+    END IF;
+
+    -- колонки, которых могло не быть в старой схеме
+    ALTER TABLE exchange_orders_legacy
+        ADD COLUMN IF NOT EXISTS order_list_id    varchar(255),
+        ADD COLUMN IF NOT EXISTS quote_qty        numeric,
+        ADD COLUMN IF NOT EXISTS commission       numeric,
+        ADD COLUMN IF NOT EXISTS commission_asset varchar(255),
+        ADD COLUMN IF NOT EXISTS pnl              numeric,
+        ADD COLUMN IF NOT EXISTS pnl_pct          numeric,
+        ADD COLUMN IF NOT EXISTS updated_at       timestamptz,
+        ADD COLUMN IF NOT EXISTS last_checked_at  timestamptz;
+
+    SELECT date_trunc('month', coalesce(min(coalesce(created_at, updated_at)), now()))::date
+    INTO first_month
+    FROM exchange_orders_legacy;
+    months := ((date_part('year', current_date) - date_part('year', first_month)) * 12
+               + date_part('month', current_date) - date_part('month', first_month))::int + 3;
+    PERFORM exchange_orders_ensure_partitions(first_month, months);
+
+    INSERT INTO exchange_orders (id, chat_id, exchange, network, order_id, order_list_id, symbol,
+                                 side, type, status,
+                                 price, quantity, executed_qty, quote_qty, commission, commission_asset,
+                                 pnl, pnl_pct, created_at, updated_at, last_checked_at)
+    SELECT id, chat_id, exchange, network, order_id, order_list_id, symbol,
+           CASE WHEN side IS NULL THEN NULL
+                WHEN upper(side) = 'BUY' THEN 1
+                WHEN upper(side) = 'SELL' THEN 2
+                ELSE 0 END,
+           CASE WHEN type IS NULL THEN NULL
+                WHEN upper(type) = 'LIMIT' THEN 1
+                WHEN upper(type) = 'MARKET' THEN 2
+                WHEN upper(type) = 'TAKE_PROFIT' THEN 3
+                WHEN upper(type) = 'STOP_LOSS' THEN 4
+                WHEN upper(type) = 'TAKE_PROFIT_LIMIT' THEN 5
+                WHEN upper(type) = 'STOP_LOSS_LIMIT' THEN 6
+                WHEN upper(type) = 'LIMIT_MAKER' THEN 7
+                ELSE 0 END,
+           CASE WHEN status IS NULL THEN NULL
+                WHEN upper(replace(status, ' ', '_')) = 'NEW' THEN 1
+                WHEN upper(replace(status, ' ', '_')) IN ('PARTIALLY_FILLED', 'PARTIALLYFILLED') THEN 2
+                WHEN upper(replace(status, ' ', '_')) = 'FILLED' THEN 3
+                WHEN upper(replace(status, ' ', '_')) IN ('CANCELED', 'CANCELLED') THEN 4
+                WHEN upper(replace(status, ' ', '_')) = 'REJECTED' THEN 5
+                WHEN upper(replace(status, ' ', '_')) = 'EXPIRED' THEN 6
+                WHEN upper(replace(status, ' ', '_')) = 'PENDING_CANCEL' THEN 7
+                WHEN upper(replace(status, ' ', '_')) = 'EXPIRED_IN_MATCH' THEN 8
+                ELSE 0 END,
+           price, quantity, executed_qty, quote_qty, commission, commission_asset,
+           pnl, pnl_pct, coalesce(created_at, updated_at, now()), updated_at, last_checked_at
+    FROM exchange_orders_legacy;
+END $$;
+
+-- Открытые ордера (NEW / PARTIALLY_FILLED): housekeeper, ExchangeOrderDbService, заполнение OpenOrderIndex.
+-- Частичный — в нём только живые строки, размер не зависит от истории.
+CREATE INDEX exchange_orders_open_idx ON exchange_orders (chat_id, symbol, side) WHERE status IN (1, 2);
+
+-- Бизнес-ключ ордера биржи (ExchangeOrderDbService.savePlaced).
+CREATE INDEX exchange_orders_order_key_idx ON exchange_orders (chat_id, exchange, network, order_id);
+
+-- История по статусу, свежие первыми (findRecentFilled).
+CREATE INDEX exchange_orders_status_updated_idx ON exchange_orders (chat_id, symbol, status, updated_at DESC);
+
+-- Ноги защитных связок TP/SL (ExitManager).
+CREATE INDEX exchange_orders_order_list_idx ON exchange_orders (chat_id, order_list_id) WHERE order_list_id IS NOT NULL;
@@ -0,0 +1,37 @@
+-- order_events: журнал жизненного цикла ордера, только дописывается. exchange_orders — проекция
+-- журнала: last_event_seq — номер последнего применённого события, по нему при старте
+-- доигрываются события, которые успели записаться раньше строки ордера.
+--   type:   0 PLACED, 1 ACK, 2 PARTIAL_FILL, 3 FILL, 4 CANCEL, 5 REJECT (порядок OrderEventType)
+--   status: коды OrderColumnCodes; новый код 9 PENDING_NEW — ордер записан, ответа биржи ещё нет.
+
+ALTER TABLE exchange_orders ADD COLUMN IF NOT EXISTS last_event_seq integer NOT NULL DEFAULT 0;
+
+CREATE TABLE order_events (
+    id             bigint       PRIMARY KEY,
+    order_key      bigint       NOT NULL,   -- exchange_orders.id
+    seq            integer      NOT NULL,   -- 1, 2, ... в пределах ордера
+    type           smallint     NOT NULL,
+    at             timestamptz  NOT NULL,
+    chat_id        bigint,
+    exchange       varchar(64),
+    network        varchar(64),
+    order_id       varchar(64),
+    order_list_id  varchar(64),
+    symbol         varchar(64),
+    side           smallint,
+    order_type     smallint,
+    status         smallint,
+    price          numeric,
+    quantity       numeric,
+    executed_qty   numeric,                 -- накопленное исполнение после события
+    reason         varchar(255)
+);
+
+CREATE UNIQUE INDEX order_events_order_seq_idx ON order_events (order_key, seq);
+-- доигрывание при старте смотрит только свежие события
+CREATE INDEX order_events_at_idx ON order_events (at);
+
+-- Поиск ордера по orderId биржи, когда его нет в памяти (OrderLifecycleService.find / sync);
+-- заменяет индекс бизнес-ключа из V1 — upsert по нему больше не делается.
+CREATE INDEX exchange_orders_chat_order_id_idx ON exchange_orders (chat_id, order_id);
+DROP INDEX IF EXISTS exchange_orders_order_key_idx;
@@ -0,0 +1,46 @@
+-- pnl_daily: реализованный PnL по чату, символу, стратегии и дню (UTC-дата закрытия сделки).
+-- Пополняется в той же транзакции, что и вставка trade_logs (отложенная запись), — панели
+-- не суммируют историю сделок. Итоги и последние дни держит память (PnlAggregateService).
+--   strategy: StrategyType.name(); '' — сделка, записанная до появления колонки
+--   volume:   оборот в валюте котировки, |volume| * exit_price (нет выхода — entry_price)
+
+CREATE TABLE pnl_daily (
+    chat_id       bigint       NOT NULL,
+    symbol        varchar(64)  NOT NULL,
+    strategy      varchar(64)  NOT NULL DEFAULT '',
+    day           date         NOT NULL,
+    realized_pnl  numeric      NOT NULL DEFAULT 0,
+    trades        integer      NOT NULL DEFAULT 0,
+    wins          integer      NOT NULL DEFAULT 0,
+    losses        integer      NOT NULL DEFAULT 0,
+    volume        numeric      NOT NULL DEFAULT 0,
+    PRIMARY KEY (chat_id, symbol, strategy, day)
+);
+
+-- при старте в память поднимаются только последние дни
+CREATE INDEX pnl_daily_day_idx ON pnl_daily (day);
+
+-- Накопленная история. trade_logs ведёт ddl-auto: на пустой базе таблицы ещё нет, а колонку
+-- strategy Hibernate добавит сам — здесь она нужна раньше, под группировку.
+DO $$
+BEGIN
+    IF to_regclass('trade_logs') IS NOT NULL THEN
+        ALTER TABLE trade_logs ADD COLUMN IF NOT EXISTS strategy varchar(255);
+        -- последняя сделка для панелей (getLastTrade); на новой базе индекс создаст ddl-auto по @Table
+        CREATE INDEX IF NOT EXISTS trade_logs_chat_symbol_close_idx ON trade_logs (chat_id, symbol, close_time);
+
+        INSERT INTO pnl_daily (chat_id, symbol, strategy, day, realized_pnl, trades, wins, losses, volume)
+        SELECT chat_id,
+               symbol,
+               coalesce(strategy, ''),
+               (coalesce(close_time, open_time, now()) AT TIME ZONE 'UTC')::date,
+               coalesce(sum(pnl), 0),
+               count(*),
+               count(*) FILTER (WHERE pnl > 0),
+               count(*) FILTER (WHERE pnl < 0),
+               coalesce(sum(abs(volume) * coalesce(exit_price, entry_price)), 0)
+        FROM trade_logs
+        WHERE chat_id IS NOT NULL AND symbol IS NOT NULL
+        GROUP BY 1, 2, 3, 4;
+    END IF;
+END $$;
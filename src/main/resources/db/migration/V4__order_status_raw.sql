@@ -0,0 +1,32 @@
+-- Статусы Bybit, которых не было в V1, и исходное написание неизвестных статусов.
+--   status: 10 UNTRIGGERED, 11 TRIGGERED, 12 DEACTIVATED, 13 PARTIALLY_FILLED_CANCELED (конец списка OrderColumnCodes)
+-- Код 0 по-прежнему значит «нет в списке», но теперь рядом лежит status_raw — значение как его прислала биржа.
+
+ALTER TABLE exchange_orders ADD COLUMN IF NOT EXISTS status_raw varchar(64);
+ALTER TABLE order_events ADD COLUMN IF NOT EXISTS status_raw varchar(64);
+
+-- Строки, перенесённые V1 с кодом 0: исходный статус берётся из сохранённой старой таблицы.
+DO $$
+BEGIN
+    IF to_regclass('exchange_orders_legacy') IS NULL THEN
+        RETURN;
+    END IF;
+
+    UPDATE exchange_orders o
+    SET status = CASE upper(replace(replace(l.status, ' ', ''), '_', ''))
+                     WHEN 'PENDINGNEW' THEN 9
+                     WHEN 'UNTRIGGERED' THEN 10
+                     WHEN 'TRIGGERED' THEN 11
+                     WHEN 'DEACTIVATED' THEN 12
+                     WHEN 'PARTIALLYFILLEDCANCELED' THEN 13
+                     WHEN 'PARTIALLYFILLEDCANCELLED' THEN 13
+                     ELSE 0 END,
+        status_raw = l.status
+    FROM exchange_orders_legacy l
+    WHERE o.id = l.id
+      AND o.status = 0
+      AND l.status IS NOT NULL;
+
+    -- status_raw нужен только там, где код так и остался 0
+    UPDATE exchange_orders SET status_raw = NULL WHERE status <> 0 AND status_raw IS NOT NULL;
+END $$;
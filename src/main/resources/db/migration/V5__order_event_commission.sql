@@ -0,0 +1,5 @@
+-- Комиссия из ответа биржи на выставление (Binance FULL: сумма по fills) приходит с ACK
+-- и переносится на строку ордера — в exchange_orders.commission / commission_asset (колонки из V1).
+
+ALTER TABLE order_events ADD COLUMN IF NOT EXISTS commission numeric;
+ALTER TABLE order_events ADD COLUMN IF NOT EXISTS commission_asset varchar(64);
@@ -0,0 +1,178 @@
+package com.chicu.aibot.exchange.binance;
+
+import com.chicu.aibot.exchange.enums.NetworkType;
+import com.chicu.aibot.exchange.enums.OrderSide;
+import com.chicu.aibot.exchange.enums.OrderType;
+import com.chicu.aibot.exchange.model.OrderRequest;
+import com.chicu.aibot.exchange.model.OrderResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Размещение ордера без сети: RestTemplate подменён наследником, который отвечает заготовками
+ * и запоминает запросы. Проверяется разбор ответа FULL и единственный повтор после -2010.
+ */
+class BinanceExchangeClientTest {
+
+    private static final String EXCHANGE_INFO = """
+            {"symbols":[{"symbol":"BTCUSDT","baseAsset":"BTC","quoteAsset":"USDT","filters":[
+              {"filterType":"PRICE_FILTER","tickSize":"0.01"},
+              {"filterType":"LOT_SIZE","stepSize":"0.001","minQty":"0.001"},
+              {"filterType":"NOTIONAL","minNotional":"5"}]}]}""";
+
+    private static final String FULL = """
+            {"symbol":"BTCUSDT","orderId":28,"status":"FILLED","transactTime":1709632800000,
+             "price":"0.00","origQty":"0.700","executedQty":"0.700","cummulativeQuoteQty":"7035.00",
+             "fills":[
+               {"price":"10000","qty":"0.4","commission":"0.0004","commissionAsset":"BNB"},
+               {"price":"10116.67","qty":"0.3","commission":"0.0003","commissionAsset":"BNB"}]}""";
+
+    private final FakeRest rest = new FakeRest();
+    private final BinanceExchangeClient client = new BinanceExchangeClient(rest, new ObjectMapper());
+
+    @Test
+    void fullResponseCarriesFillsAndCommission() {
+        rest.orders.add(FULL);
+
+        OrderResponse r = client.placeOrder("k", "s", NetworkType.TESTNET, market(OrderSide.SELL, "0.7"));
+
+        assertEquals("28", r.getOrderId());
+        assertEquals("FILLED", r.getStatus());
+        assertEquals(0, new BigDecimal("0.7").compareTo(r.getExecutedQty()));
+        assertEquals(0, new BigDecimal("7035").compareTo(r.getQuoteQty()));
+        // MARKET: лимитной цены нет — цена ордера равна средней
+        assertEquals(0, new BigDecimal("10050").compareTo(r.getAvgPrice()));
+        assertEquals(0, r.getAvgPrice().compareTo(r.getPrice()));
+        assertEquals(0, new BigDecimal("0.0007").compareTo(r.getCommission()));
+        assertEquals("BNB", r.getCommissionAsset());
+        assertEquals(Instant.ofEpochMilli(1709632800000L), r.getTransactTime());
+
+        // один POST, ни балансов, ни повторного запроса статуса
+        assertEquals(List.of("GET /api/v3/exchangeInfo", "POST /api/v3/order"), rest.calls);
+        assertTrue(rest.posted.getFirst().contains("newOrderRespType=FULL"));
+        assertTrue(rest.posted.getFirst().contains("quantity=0.7&"));
+    }
+
+    @Test
+    void insufficientBalanceRetriesOnceWithFreeBalance() {
+        rest.orders.add(insufficientBalance());
+        rest.orders.add(FULL);
+        rest.account = """
+                {"balances":[{"asset":"BTC","free":"0.7004","locked":"0"},{"asset":"USDT","free":"10","locked":"0"}]}""";
+
+        OrderResponse r = client.placeOrder("k", "s", NetworkType.TESTNET, market(OrderSide.SELL, "1.5"));
+
+        assertEquals("FILLED", r.getStatus());
+        assertEquals(List.of("GET /api/v3/exchangeInfo", "POST /api/v3/order", "GET /api/v3/account",
+                "POST /api/v3/order"), rest.calls);
+        assertTrue(rest.posted.get(0).contains("quantity=1.5&"));
+        // свободный остаток подрезан до шага лота
+        assertTrue(rest.posted.get(1).contains("quantity=0.7&"));
+    }
+
+    @Test
+    void secondRejectionIsNotRetriedAgain() {
+        rest.orders.add(insufficientBalance());
+        rest.orders.add(insufficientBalance());
+        rest.account = """
+                {"balances":[{"asset":"BTC","free":"1","locked":"0"}]}""";
+
+        assertThrows(HttpClientErrorException.class,
+                () -> client.placeOrder("k", "s", NetworkType.TESTNET, market(OrderSide.SELL, "0.5")));
+        assertEquals(2, rest.posted.size());
+    }
+
+    @Test
+    void otherErrorsAreNotRetried() {
+        rest.orders.add(rejected("{\"code\":-1013,\"msg\":\"Filter failure: LOT_SIZE\"}"));
+
+        assertThrows(HttpClientErrorException.class,
+                () -> client.placeOrder("k", "s", NetworkType.TESTNET, market(OrderSide.SELL, "0.5")));
+        assertEquals(List.of("GET /api/v3/exchangeInfo", "POST /api/v3/order"), rest.calls);
+    }
+
+    /* ================= helpers ================= */
+
+    private static OrderRequest market(OrderSide side, String qty) {
+        return OrderRequest.builder()
+                .symbol("BTCUSDT")
+                .side(side)
+                .type(OrderType.MARKET)
+                .quantity(new BigDecimal(qty))
+                .price(new BigDecimal("10000"))
+                .build();
+    }
+
+    private static HttpClientErrorException insufficientBalance() {
+        return rejected("{\"code\":-2010,\"msg\":\"Account has insufficient balance for requested action.\"}");
+    }
+
+    private static HttpClientErrorException rejected(String body) {
+        return HttpClientErrorException.create(HttpStatus.BAD_REQUEST, "Bad Request", new HttpHeaders(),
+                body.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+    }
+
+    /** Биржа-заготовка: ответы на POST /order — по очереди, строка или исключение. */
+    private static final class FakeRest extends RestTemplate {
+        final Deque<Object> orders = new ArrayDeque<>();
+        final List<String> calls = new ArrayList<>();
+        final List<String> posted = new ArrayList<>();
+        String account = "{\"balances\":[]}";
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> ResponseEntity<T> exchange(String url, HttpMethod method, HttpEntity<?> entity,
+                                              Class<T> type, Object... vars) {
+            String path = path(url);
+            calls.add(method.name() + " " + path);
+            if (method == HttpMethod.POST && path.equals("/api/v3/order")) {
+                posted.add(url);
+                Object next = orders.removeFirst();
+                if (next instanceof RuntimeException e) throw e;
+                return (ResponseEntity<T>) ResponseEntity.ok(next);
+            }
+            if (path.equals("/api/v3/account")) return (ResponseEntity<T>) ResponseEntity.ok(account);
+            throw new AssertionError("неожиданный запрос " + method + " " + url);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T getForObject(String url, Class<T> type, Object... vars) {
+            String path = path(url);
+            calls.add("GET " + path);
+            if (path.equals("/api/v3/exchangeInfo")) return (T) EXCHANGE_INFO;
+            throw new AssertionError("неожиданный запрос GET " + url);
+        }
+
+        /** Синхронизация часов — служебный запрос, в calls не попадает. */
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> ResponseEntity<T> getForEntity(String url, Class<T> type, Object... vars) {
+            assertEquals("/api/v3/time", path(url));
+            return (ResponseEntity<T>) ResponseEntity.ok("{\"serverTime\":" + System.currentTimeMillis() + "}");
+        }
+
+        private static String path(String url) {
+            String p = url.substring(url.indexOf('/', "https://".length()));
+            int q = p.indexOf('?');
+            return q < 0 ? p : p.substring(0, q);
+        }
+    }
+}
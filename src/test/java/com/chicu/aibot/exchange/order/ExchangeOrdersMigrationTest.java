@@ -0,0 +1,167 @@
+package com.chicu.aibot.exchange.order;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * V1–V5 на настоящем Postgres: пустая база и база, где exchange_orders и trade_logs создал ddl-auto
+ * (схема как у прежних сущностей). Каждый тест — в своей схеме одного контейнера.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class ExchangeOrdersMigrationTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Test
+    void emptyDatabaseGetsPartitionedSchema() {
+        DriverManagerDataSource ds = dataSource("fresh");
+        assertEquals(5, migrate(ds, "fresh"));
+
+        JdbcTemplate jdbc = new JdbcTemplate(ds);
+        assertNull(jdbc.queryForObject("SELECT to_regclass('exchange_orders_legacy')::text", String.class));
+        assertEquals("p", jdbc.queryForObject(
+                "SELECT relkind::text FROM pg_class WHERE oid = 'exchange_orders'::regclass", String.class));
+        insertNewRow(jdbc);
+    }
+
+    @Test
+    void ddlAutoSchemaIsCarriedOver() {
+        DriverManagerDataSource ds = dataSource("upgrade");
+        JdbcTemplate jdbc = new JdbcTemplate(ds);
+        jdbc.execute("CREATE SCHEMA upgrade");
+        legacySchema(jdbc);
+        legacyOrder(jdbc, "BUY", "LIMIT", "NEW", "2024-03-05T10:00:00Z");
+        legacyOrder(jdbc, "SELL", "MARKET", "FILLED", "2024-03-06T10:00:00Z");
+        legacyOrder(jdbc, "BUY", "LIMIT", "Untriggered", "2024-05-01T00:00:00Z");
+        legacyOrder(jdbc, "BUY", "LIMIT", "PartiallyFilledCanceled", "2024-05-02T00:00:00Z");
+        legacyOrder(jdbc, "BUY", "LIMIT", "Weird", "2024-05-03T00:00:00Z");
+        jdbc.update("INSERT INTO trade_logs (chat_id, symbol, open_time, close_time, entry_price, exit_price,"
+                + " volume, pnl, pnl_pct, side) VALUES (42, 'BTCUSDT', '2024-03-05T10:00:00Z', '2024-03-06T10:00:00Z',"
+                + " 100, 110, 1, 10, 10, 'BUY')");
+
+        assertEquals(5, migrate(ds, "upgrade"));
+
+        assertEquals(5, jdbc.queryForObject("SELECT count(*) FROM exchange_orders", Integer.class));
+        assertEquals(5, jdbc.queryForObject("SELECT count(*) FROM exchange_orders_legacy", Integer.class));
+        assertEquals("exchange_orders_legacy_pkey", jdbc.queryForObject(
+                "SELECT conname::text FROM pg_constraint WHERE conrelid = 'exchange_orders_legacy'::regclass"
+                        + " AND contype = 'p'", String.class));
+        assertEquals("exchange_orders_2024_03", jdbc.queryForObject(
+                "SELECT tableoid::regclass::text FROM exchange_orders WHERE order_id = 'FILLED'", String.class));
+
+        assertRow(jdbc, "NEW", 1, 1, 1, null);
+        assertRow(jdbc, "FILLED", 2, 2, 3, null);
+        assertRow(jdbc, "Untriggered", 1, 1, 10, null);
+        assertRow(jdbc, "PartiallyFilledCanceled", 1, 1, 13, null);
+        assertRow(jdbc, "Weird", 1, 1, 0, "Weird");
+
+        Map<String, Object> day = jdbc.queryForMap("SELECT strategy, day::text AS day, trades, wins, realized_pnl"
+                + " FROM pnl_daily WHERE chat_id = 42 AND symbol = 'BTCUSDT'");
+        assertEquals("", day.get("strategy"));
+        assertEquals("2024-03-06", day.get("day"));
+        assertEquals(1, ((Number) day.get("trades")).intValue());
+        assertEquals(1, ((Number) day.get("wins")).intValue());
+        assertEquals(0, new BigDecimal("10").compareTo((BigDecimal) day.get("realized_pnl")));
+
+        insertNewRow(jdbc);
+    }
+
+    /* ================= helpers ================= */
+
+    private static DriverManagerDataSource dataSource(String schema) {
+        return new DriverManagerDataSource(postgres.getJdbcUrl() + "&currentSchema=" + schema,
+                postgres.getUsername(), postgres.getPassword());
+    }
+
+    private static int migrate(DriverManagerDataSource ds, String schema) {
+        // как в application.properties: база без истории миграций считается версией 0
+        return Flyway.configure()
+                .dataSource(ds)
+                .schemas(schema)
+                .locations("classpath:db/migration")
+                .baselineOnMigrate(true)
+                .baselineVersion("0")
+                .load()
+                .migrate()
+                .migrationsExecuted;
+    }
+
+    /** Так таблицы создавал ddl-auto по прежним ExchangeOrderEntity и TradeLogEntity. */
+    private static void legacySchema(JdbcTemplate jdbc) {
+        jdbc.execute("""
+                CREATE TABLE exchange_orders (
+                    id bigint GENERATED BY DEFAULT AS IDENTITY,
+                    chat_id bigint,
+                    commission numeric(38,2),
+                    commission_asset varchar(255),
+                    created_at timestamp(6) with time zone,
+                    executed_qty numeric(38,2),
+                    exchange varchar(255),
+                    last_checked_at timestamp(6) with time zone,
+                    network varchar(255) CHECK (network IN ('MAINNET', 'TESTNET')),
+                    order_id varchar(255),
+                    pnl numeric(38,2),
+                    pnl_pct numeric(38,2),
+                    price numeric(38,2),
+                    quantity numeric(38,2),
+                    quote_qty numeric(38,2),
+                    side varchar(255),
+                    status varchar(255),
+                    symbol varchar(255),
+                    type varchar(255),
+                    updated_at timestamp(6) with time zone,
+                    PRIMARY KEY (id)
+                )""");
+        jdbc.execute("""
+                CREATE TABLE trade_logs (
+                    id bigint GENERATED BY DEFAULT AS IDENTITY,
+                    chat_id bigint,
+                    close_time timestamp(6) with time zone,
+                    entry_price numeric(38,2),
+                    exit_price numeric(38,2),
+                    open_time timestamp(6) with time zone,
+                    pnl numeric(38,2),
+                    pnl_pct numeric(38,2),
+                    side varchar(255),
+                    symbol varchar(255),
+                    volume numeric(38,2),
+                    PRIMARY KEY (id)
+                )""");
+    }
+
+    /** order_id совпадает с исходным статусом — по нему строки ищутся после переноса. */
+    private static void legacyOrder(JdbcTemplate jdbc, String side, String type, String status, String createdAt) {
+        jdbc.update("INSERT INTO exchange_orders (chat_id, exchange, network, order_id, symbol, side, type, status,"
+                        + " price, quantity, executed_qty, created_at) VALUES (42, 'BINANCE', 'TESTNET', ?, 'BTCUSDT',"
+                        + " ?, ?, ?, 100, 1, 0, ?::timestamptz)",
+                status, side, type, status, createdAt);
+    }
+
+    private static void assertRow(JdbcTemplate jdbc, String orderId, int side, int type, int status, String raw) {
+        Map<String, Object> r = jdbc.queryForMap(
+                "SELECT side, type, status, status_raw FROM exchange_orders WHERE order_id = ?", orderId);
+        assertEquals(side, ((Number) r.get("side")).intValue(), orderId);
+        assertEquals(type, ((Number) r.get("type")).intValue(), orderId);
+        assertEquals(status, ((Number) r.get("status")).intValue(), orderId);
+        assertEquals(raw, r.get("status_raw"), orderId);
+    }
+
+    /** Ключ новой таблицы создан: вставка в текущий месяц проходит. */
+    private static void insertNewRow(JdbcTemplate jdbc) {
+        assertEquals(1, jdbc.update("INSERT INTO exchange_orders (id, chat_id, order_id, status) VALUES (1000, 7, 'X', 1)"));
+        assertThrows(Exception.class, () -> jdbc.update(
+                "INSERT INTO exchange_orders (id, chat_id, order_id, status, created_at)"
+                        + " SELECT id, chat_id, order_id, status, created_at FROM exchange_orders WHERE id = 1000"));
+    }
+}
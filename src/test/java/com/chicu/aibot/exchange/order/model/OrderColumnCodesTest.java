@@ -0,0 +1,50 @@
+package com.chicu.aibot.exchange.order.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderColumnCodesTest {
+
+    private final OrderColumnCodes.Status status = new OrderColumnCodes.Status();
+
+    @Test
+    void codesMatchMigrations() {
+        assertEquals((short) OrderColumnCodes.NEW, status.convertToDatabaseColumn("NEW"));
+        assertEquals((short) OrderColumnCodes.PARTIALLY_FILLED, status.convertToDatabaseColumn("PartiallyFilled"));
+        assertEquals((short) OrderColumnCodes.PENDING_NEW, status.convertToDatabaseColumn("PENDING_NEW"));
+        assertEquals((short) 10, status.convertToDatabaseColumn("Untriggered"));
+        assertEquals((short) 11, status.convertToDatabaseColumn("Triggered"));
+        assertEquals((short) 12, status.convertToDatabaseColumn("Deactivated"));
+        assertEquals((short) 13, status.convertToDatabaseColumn("PartiallyFilledCanceled"));
+        assertEquals((short) 4, status.convertToDatabaseColumn("Cancelled"));
+        assertEquals("PARTIALLY_FILLED_CANCELED", status.convertToEntityAttribute((short) 13));
+    }
+
+    @Test
+    void unknownStatusKeepsRawSpelling() {
+        assertEquals((short) 0, status.convertToDatabaseColumn("Frozen"));
+        assertEquals(OrderColumnCodes.UNKNOWN, status.convertToEntityAttribute((short) 0));
+
+        assertEquals("Frozen", OrderColumnCodes.rawIfUnknownStatus("Frozen"));
+        assertNull(OrderColumnCodes.rawIfUnknownStatus("Deactivated"));
+        assertNull(OrderColumnCodes.rawIfUnknownStatus(null));
+        assertNull(OrderColumnCodes.rawIfUnknownStatus(OrderColumnCodes.UNKNOWN));
+
+        assertEquals("Frozen", OrderColumnCodes.restoreStatus(OrderColumnCodes.UNKNOWN, "Frozen"));
+        assertEquals(OrderColumnCodes.UNKNOWN, OrderColumnCodes.restoreStatus(OrderColumnCodes.UNKNOWN, null));
+        assertEquals("FILLED", OrderColumnCodes.restoreStatus("FILLED", null));
+    }
+
+    @Test
+    void foldCarriesRawStatusOfUnknownCancel() {
+        ExchangeOrderEntity s = OrderEvents.apply(null, OrderEventEntity.builder()
+                .orderKey(1L).seq(1).type(OrderEventType.PLACED).status("NEW").build());
+        assertNull(s.getStatusRaw());
+
+        s = OrderEvents.apply(s, OrderEventEntity.builder()
+                .orderKey(1L).seq(2).type(OrderEventType.CANCEL).status("Frozen").build());
+        assertEquals("Frozen", s.getStatus());
+        assertEquals("Frozen", s.getStatusRaw());
+    }
+}
@@ -0,0 +1,172 @@
+package com.chicu.aibot.exchange.order.model;
+
+import com.chicu.aibot.exchange.enums.NetworkType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderEventsTest {
+
+    private static final Instant T0 = Instant.parse("2024-01-01T00:00:00Z");
+
+    @Test
+    void placedStartsPendingWithZeroFills() {
+        ExchangeOrderEntity s = OrderEvents.apply(null, placed("LIMIT"));
+
+        assertEquals(7L, s.getId());
+        assertEquals(OrderEvents.PENDING_NEW, s.getStatus());
+        assertEquals(0, BigDecimal.ZERO.compareTo(s.getExecutedQty()));
+        assertNull(s.getOrderId());
+        assertEquals(1, s.getLastEventSeq());
+        assertTrue(OrderEvents.isOpen(s));
+    }
+
+    @Test
+    void ackSetsOrderIdAndNew() {
+        ExchangeOrderEntity placed = OrderEvents.apply(null, placed("LIMIT"));
+        ExchangeOrderEntity acked = OrderEvents.apply(placed, event(2, OrderEventType.ACK).orderId("123").build());
+
+        assertEquals("123", acked.getOrderId());
+        assertEquals("NEW", acked.getStatus());
+        assertEquals(2, acked.getLastEventSeq());
+        // прежнее состояние не тронуто: оно могло уже уйти в очередь записи
+        assertEquals(OrderEvents.PENDING_NEW, placed.getStatus());
+        assertNull(placed.getOrderId());
+    }
+
+    @Test
+    void ackCarriesCommissionOntoOrder() {
+        ExchangeOrderEntity placed = OrderEvents.apply(null, placed("MARKET"));
+        assertEquals(0, BigDecimal.ZERO.compareTo(placed.getCommission()));
+
+        ExchangeOrderEntity acked = OrderEvents.apply(placed, event(2, OrderEventType.ACK).orderId("9")
+                .commission(new BigDecimal("0.00075")).commissionAsset("BNB").build());
+        assertEquals(0, new BigDecimal("0.00075").compareTo(acked.getCommission()));
+        assertEquals("BNB", acked.getCommissionAsset());
+
+        // последующие события комиссию не трогают
+        ExchangeOrderEntity filled = OrderEvents.apply(acked, event(3, OrderEventType.FILL).executedQty(BigDecimal.ONE).build());
+        assertEquals(0, new BigDecimal("0.00075").compareTo(filled.getCommission()));
+        assertEquals("BNB", filled.getCommissionAsset());
+
+        // ACK без комиссии оставляет ноль из PLACED
+        ExchangeOrderEntity plain = OrderEvents.apply(placed, event(2, OrderEventType.ACK).orderId("9").build());
+        assertEquals(0, BigDecimal.ZERO.compareTo(plain.getCommission()));
+        assertNull(plain.getCommissionAsset());
+    }
+
+    @Test
+    void fillsAccumulateAndMarketTakesAveragePrice() {
+        ExchangeOrderEntity s = OrderEvents.apply(null, placed("MARKET"));
+        s = OrderEvents.apply(s, event(2, OrderEventType.ACK).orderId("9").build());
+        s = OrderEvents.apply(s, event(3, OrderEventType.PARTIAL_FILL)
+                .executedQty(new BigDecimal("0.4")).price(new BigDecimal("101")).build());
+
+        assertEquals("PARTIALLY_FILLED", s.getStatus());
+        assertEquals(0, new BigDecimal("40.4").compareTo(s.getQuoteQty()));
+        assertEquals(0, new BigDecimal("101").compareTo(s.getPrice()));
+
+        s = OrderEvents.apply(s, event(4, OrderEventType.FILL)
+                .executedQty(BigDecimal.ONE).price(new BigDecimal("102")).build());
+        assertEquals("FILLED", s.getStatus());
+        assertEquals(0, BigDecimal.ONE.compareTo(s.getExecutedQty()));
+        assertFalse(OrderEvents.isOpen(s));
+    }
+
+    @Test
+    void limitKeepsItsOwnPrice() {
+        ExchangeOrderEntity s = OrderEvents.apply(null, placed("LIMIT"));
+        s = OrderEvents.apply(s, event(2, OrderEventType.FILL)
+                .executedQty(BigDecimal.ONE).price(new BigDecimal("99")).build());
+        assertEquals(0, new BigDecimal("100").compareTo(s.getPrice()));
+    }
+
+    @Test
+    void partialFillDoesNotReviveCanceled() {
+        ExchangeOrderEntity s = OrderEvents.apply(null, placed("LIMIT"));
+        s = OrderEvents.apply(s, event(2, OrderEventType.CANCEL).status("CANCELED").build());
+        s = OrderEvents.apply(s, event(3, OrderEventType.PARTIAL_FILL).executedQty(new BigDecimal("0.2")).build());
+
+        assertEquals("CANCELED", s.getStatus());
+        assertEquals(0, new BigDecimal("0.2").compareTo(s.getExecutedQty()));
+    }
+
+    @Test
+    void cancelAndRejectWithoutOrderIdGetDeterministicKeys() {
+        ExchangeOrderEntity canceled = OrderEvents.apply(OrderEvents.apply(null, placed("LIMIT")),
+                event(2, OrderEventType.CANCEL).status("EXPIRED").build());
+        assertEquals("EXPIRED", canceled.getStatus());
+        assertEquals("LOCAL-7", canceled.getOrderId());
+
+        ExchangeOrderEntity rejected = OrderEvents.apply(OrderEvents.apply(null, placed("LIMIT")),
+                event(2, OrderEventType.REJECT).build());
+        assertEquals("REJECTED", rejected.getStatus());
+        assertEquals("REJECTED-7", rejected.getOrderId());
+    }
+
+    @Test
+    void eventWithoutPlacedIsRejected() {
+        assertThrows(IllegalStateException.class,
+                () -> OrderEvents.apply(null, event(2, OrderEventType.ACK).build()));
+    }
+
+    @Test
+    void replayIsDeterministic() {
+        OrderEventEntity[] log = {
+                placed("LIMIT"),
+                event(2, OrderEventType.ACK).orderId("5").build(),
+                event(3, OrderEventType.PARTIAL_FILL).executedQty(new BigDecimal("0.5")).price(new BigDecimal("100")).build(),
+                event(4, OrderEventType.CANCEL).build()
+        };
+        ExchangeOrderEntity a = null;
+        ExchangeOrderEntity b = null;
+        for (OrderEventEntity e : log) {
+            a = OrderEvents.apply(a, e);
+            b = OrderEvents.apply(b, e);
+        }
+        assertEquals(a.getStatus(), b.getStatus());
+        assertEquals("CANCELED", a.getStatus());
+        assertEquals(0, a.getQuoteQty().compareTo(b.getQuoteQty()));
+        assertEquals(4, a.getLastEventSeq());
+        assertEquals(T0.plusSeconds(4), a.getUpdatedAt());
+    }
+
+    @Test
+    void normalizeStatusSpellings() {
+        assertEquals("PARTIALLY_FILLED", OrderEvents.normalizeStatus("PartiallyFilled"));
+        assertEquals("CANCELED", OrderEvents.normalizeStatus("Cancelled"));
+        assertEquals("EXPIRED_IN_MATCH", OrderEvents.normalizeStatus("expired_in_match"));
+        assertEquals("NEW", OrderEvents.normalizeStatus(" "));
+        assertTrue(OrderEvents.isCancelStatus("EXPIRED"));
+        assertEquals("PARTIALLY_FILLED_CANCELED", OrderEvents.normalizeStatus("PartiallyFilledCanceled"));
+        assertTrue(OrderEvents.isCancelStatus(OrderEvents.normalizeStatus("Deactivated")));
+        assertTrue(OrderEvents.isCancelStatus(OrderEvents.normalizeStatus("PartiallyFilledCanceled")));
+        assertFalse(OrderEvents.isOpen(ExchangeOrderEntity.builder().status("UNTRIGGERED").build()));
+    }
+
+    /* ================= helpers ================= */
+
+    private static OrderEventEntity placed(String type) {
+        return event(1, OrderEventType.PLACED)
+                .chatId(42L)
+                .exchange("BINANCE")
+                .network(NetworkType.TESTNET)
+                .symbol("BTCUSDT")
+                .side("BUY")
+                .orderType(type)
+                .price(new BigDecimal("100"))
+                .quantity(BigDecimal.ONE)
+                .build();
+    }
+
+    private static OrderEventEntity.OrderEventEntityBuilder event(int seq, OrderEventType type) {
+        return OrderEventEntity.builder()
+                .orderKey(7L)
+                .seq(seq)
+                .type(type)
+                .at(T0.plusSeconds(seq));
+    }
+}
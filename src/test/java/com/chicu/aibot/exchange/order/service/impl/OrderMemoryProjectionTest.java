@@ -0,0 +1,83 @@
+package com.chicu.aibot.exchange.order.service.impl;
+
+import com.chicu.aibot.exchange.order.model.ExchangeOrderEntity;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderMemoryProjectionTest {
+
+    private static final Instant T0 = Instant.parse("2024-01-01T00:00:00Z");
+
+    private final OrderMemoryProjection memory = new OrderMemoryProjection(3);
+
+    @Test
+    void evictDropsAllOpenViews() {
+        memory.apply(order(1L, 42L, "A1", "NEW", 0));
+        memory.apply(order(2L, 42L, "A2", "NEW", 1));
+        memory.apply(order(3L, 7L, "B1", "NEW", 2));
+
+        memory.evict(1L);
+
+        assertTrue(memory.get(1L).isEmpty());
+        assertTrue(memory.findOpen(42L, "A1").isEmpty());
+        assertEquals(List.of(2L), ids(memory.open(42L, "BTCUSDT")));
+        assertEquals(List.of(2L), ids(memory.openOf(42L)));
+        assertEquals(2, memory.openSize());
+
+        // повторно и для неизвестного — без ошибок
+        memory.evict(1L);
+        memory.evict(99L);
+    }
+
+    @Test
+    void forgetFilledReloadsOnlyThatChat() {
+        memory.apply(order(1L, 42L, "A1", "FILLED", 0));
+        memory.apply(order(2L, 7L, "B1", "FILLED", 0));
+        int[] loads = new int[1];
+        memory.recentFilled(42L, "BTCUSDT", 3, () -> { loads[0]++; return List.of(); });
+        memory.recentFilled(7L, "BTCUSDT", 3, () -> { loads[0]++; return List.of(); });
+        assertEquals(2, loads[0]);
+
+        memory.forgetFilled(42L);
+
+        // чат 42 подгружается заново — из БД, где уже есть исполненный другим узлом
+        List<ExchangeOrderEntity> fresh = memory.recentFilled(42L, "BTCUSDT", 3, () -> {
+            loads[0]++;
+            return List.of(order(5L, 42L, "A5", "FILLED", 10), order(1L, 42L, "A1", "FILLED", 0));
+        });
+        assertEquals(List.of(5L, 1L), ids(fresh));
+        memory.recentFilled(7L, "BTCUSDT", 3, () -> { loads[0]++; return List.of(); });
+        assertEquals(3, loads[0]);
+    }
+
+    @Test
+    void closedAfterEvictIsNotResurrected() {
+        memory.apply(order(1L, 42L, "A1", "NEW", 0));
+        memory.evict(1L);
+        memory.apply(order(1L, 42L, "A1", "CANCELED", 1));
+        assertTrue(memory.open(42L, "BTCUSDT").isEmpty());
+        assertTrue(memory.findOpen(42L, "A1").isEmpty());
+    }
+
+    /* ================= helpers ================= */
+
+    private static ExchangeOrderEntity order(Long id, Long chatId, String orderId, String status, int minute) {
+        return ExchangeOrderEntity.builder()
+                .id(id)
+                .chatId(chatId)
+                .orderId(orderId)
+                .symbol("BTCUSDT")
+                .status(status)
+                .createdAt(T0.plusSeconds(60L * minute))
+                .updatedAt(T0.plusSeconds(60L * minute))
+                .build();
+    }
+
+    private static List<Long> ids(List<ExchangeOrderEntity> orders) {
+        return orders.stream().map(ExchangeOrderEntity::getId).toList();
+    }
+}
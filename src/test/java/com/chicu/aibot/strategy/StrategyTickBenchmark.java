@@ -0,0 +1,245 @@
+package com.chicu.aibot.strategy;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.chicu.aibot.exchange.enums.Exchange;
+import com.chicu.aibot.exchange.enums.NetworkType;
+import com.chicu.aibot.strategy.indicator.Ema;
+import com.chicu.aibot.strategy.indicator.IndicatorSeriesCache;
+import com.chicu.aibot.strategy.indicator.RollingSma;
+import com.chicu.aibot.strategy.indicator.WilderRsi;
+import com.chicu.aibot.strategy.ma_crossover.MaCrossoverStrategy;
+import com.chicu.aibot.strategy.ma_crossover.model.MaCrossoverStrategySettings;
+import com.chicu.aibot.strategy.ma_crossover.service.MaCrossoverStrategySettingsService;
+import com.chicu.aibot.strategy.model.Candle;
+import com.chicu.aibot.strategy.rsi_ema.RsiEmaStrategy;
+import com.chicu.aibot.strategy.rsi_ema.model.RsiEmaStrategySettings;
+import com.chicu.aibot.strategy.rsi_ema.service.RsiEmaStrategySettingsService;
+import com.chicu.aibot.trading.backtest.sim.NoopCheckpointService;
+import com.chicu.aibot.trading.backtest.sim.NoopExitManager;
+import com.chicu.aibot.trading.backtest.sim.NoopPriceTriggerService;
+import com.chicu.aibot.trading.backtest.sim.SimClock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Цена тика RSI_EMA и MA_CROSSOVER на чат: настоящий onTick на хвосте окна (один новый бар) и тик
+ * внутри бара (решение по бару уже принято) против пересчёта индикаторов по всему окну прогрева,
+ * как считала бы стратегия без потоковых рядов. Входы выключены — меряется расчёт и решение, не ордера.
+ * <p>
+ * Запуск: {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.chicu.aibot.strategy.StrategyTickBenchmark}.
+ * <p>
+ * Замер: JDK 21, 1 CPU, 1 форк, прогрев 3×1 с, замер 5×1 с; нс/оп, меньше — лучше. period — период EMA
+ * у RSI_EMA и медленной средней у MA_CROSSOVER (RSI 14, быстрая 20); окно прогрева — 3·period.
+ * Тик на новом баре не зависит от period; пересчёт растёт с окном и ещё не включает его загрузку.
+ * <pre>
+ * Benchmark                 (period)     Score      Error
+ * maCrossoverRecompute           50   19053.2 ± 1085.7
+ * maCrossoverRecompute          200   87422.2 ± 13673.3
+ * maCrossoverTickNewBar          50     742.7 ±  491.8
+ * maCrossoverTickNewBar         200     737.9 ±  647.6
+ * maCrossoverTickSameBar         50     124.5 ±   13.9
+ * maCrossoverTickSameBar        200     123.6 ±    5.2
+ * rsiEmaRecompute                50   21470.8 ± 1442.7
+ * rsiEmaRecompute               200   89467.0 ± 12565.2
+ * rsiEmaTickNewBar               50     689.4 ±  206.3
+ * rsiEmaTickNewBar              200     728.4 ±  156.0
+ * rsiEmaTickSameBar              50     146.8 ±  113.4
+ * rsiEmaTickSameBar             200     170.6 ±   87.0
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StrategyTickBenchmark {
+
+    private static final int PRICES = 4096;
+    /** Столько закрытых баров стратегия получает на тике после прогрева (TAIL_BARS в стратегиях). */
+    private static final int TAIL_BARS = 5;
+    private static final Instant T0 = Instant.parse("2024-01-01T00:00:00Z");
+
+    @Param({"50", "200"})
+    private int period;
+
+    private BigDecimal[] prices;
+    private long bar;
+
+    private RsiEmaStrategy rsiEma;
+    private RsiEmaStrategySettings rsiEmaSettings;
+    private MaCrossoverStrategy maCross;
+    private MaCrossoverStrategySettings maCrossSettings;
+
+    /** Хвост окна для потокового тика: закрытые бары + формирующийся. */
+    private List<Candle> rsiTail;
+    private List<Candle> maTail;
+    /** Полное окно прогрева для пересчёта. */
+    private ArrayDeque<Candle> window;
+    private int windowSize;
+
+    @Setup
+    public void setUp() {
+        ((Logger) LoggerFactory.getLogger("com.chicu.aibot")).setLevel(Level.WARN);
+
+        SplittableRandom rnd = new SplittableRandom(42);
+        prices = new BigDecimal[PRICES];
+        double p = 30_000.0;
+        for (int i = 0; i < PRICES; i++) {
+            p *= 1.0 + (rnd.nextDouble() - 0.5) * 0.004;
+            prices[i] = BigDecimal.valueOf(p);
+        }
+
+        IndicatorSeriesCache indicators = new IndicatorSeriesCache();
+        SimClock clock = new SimClock();
+        clock.set(T0);
+
+        rsiEmaSettings = RsiEmaStrategySettings.builder()
+                .chatId(1L).symbol("BTCUSDT").timeframe("1m").cachedCandlesLimit(1000).orderVolume(0.01)
+                .rsiPeriod(14).rsiOversold(30.0).rsiOverbought(70.0).emaPeriod(period)
+                .takeProfitPct(1.5).stopLossPct(1.0).allowLong(false).allowShort(false).active(true)
+                .build();
+        RsiEmaStrategySettingsService rsiSvc = new RsiEmaStrategySettingsService() {
+            @Override public RsiEmaStrategySettings getOrCreate(Long chatId) { return rsiEmaSettings; }
+            @Override public RsiEmaStrategySettings save(RsiEmaStrategySettings s) { return s; }
+        };
+        // ордера и журнал сделок на этом пути не вызываются: входы выключены
+        rsiEma = new RsiEmaStrategy(rsiSvc, null, null, new NoopCheckpointService(), indicators, clock,
+                new NoopPriceTriggerService(), new NoopExitManager());
+
+        maCrossSettings = MaCrossoverStrategySettings.builder()
+                .chatId(1L).symbol("BTCUSDT").timeframe("1m").cachedCandlesLimit(1000).orderVolume(0.01)
+                .fastPeriod(20).slowPeriod(period).maType("SMA")
+                .takeProfitPct(2.0).stopLossPct(1.0).allowLong(false).allowShort(false).active(true)
+                .build();
+        MaCrossoverStrategySettingsService maSvc = new MaCrossoverStrategySettingsService() {
+            @Override public MaCrossoverStrategySettings getOrCreate(Long chatId) { return maCrossSettings; }
+            @Override public MaCrossoverStrategySettings save(MaCrossoverStrategySettings s) { return s; }
+        };
+        maCross = new MaCrossoverStrategy(maSvc, null, null, new NoopCheckpointService(), indicators, clock,
+                new NoopPriceTriggerService(), new NoopExitManager());
+
+        rsiEma.start(1L);
+        maCross.start(1L);
+
+        // прогрев: первый тик приносит полное окно, как после старта
+        windowSize = 3 * period;
+        List<Candle> full = new ArrayList<>(windowSize + 1);
+        for (int i = 0; i <= windowSize; i++) full.add(nextBar());
+        rsiEma.onTick(ctx(rsiEmaSettings, full));
+        maCross.onTick(ctx(maCrossSettings, full));
+
+        rsiTail = new ArrayList<>(full.subList(full.size() - TAIL_BARS - 1, full.size()));
+        maTail = new ArrayList<>(rsiTail);
+        window = new ArrayDeque<>(full.subList(0, windowSize));
+    }
+
+    /** Новый бар: прежний формирующийся закрылся. */
+    @Benchmark
+    public List<Candle> rsiEmaTickNewBar() {
+        slide(rsiTail, nextBar());
+        rsiEma.onTick(ctx(rsiEmaSettings, rsiTail));
+        return rsiTail;
+    }
+
+    /** Тик внутри бара: решение по закрытому бару уже принято. */
+    @Benchmark
+    public List<Candle> rsiEmaTickSameBar() {
+        rsiEma.onTick(ctx(rsiEmaSettings, rsiTail));
+        return rsiTail;
+    }
+
+    /** Без потоковых рядов: RSI и EMA заново по всему окну прогрева на каждом баре. */
+    @Benchmark
+    public double rsiEmaRecompute() {
+        window.removeFirst();
+        window.addLast(nextBar());
+        WilderRsi rsi = new WilderRsi(14);
+        Ema ema = new Ema(period);
+        for (Candle c : window) {
+            rsi.update(c);
+            ema.update(c);
+        }
+        return rsi.value() + ema.value();
+    }
+
+    @Benchmark
+    public List<Candle> maCrossoverTickNewBar() {
+        slide(maTail, nextBar());
+        maCross.onTick(ctx(maCrossSettings, maTail));
+        return maTail;
+    }
+
+    @Benchmark
+    public List<Candle> maCrossoverTickSameBar() {
+        maCross.onTick(ctx(maCrossSettings, maTail));
+        return maTail;
+    }
+
+    @Benchmark
+    public double maCrossoverRecompute() {
+        window.removeFirst();
+        window.addLast(nextBar());
+        RollingSma fast = new RollingSma(20);
+        RollingSma slow = new RollingSma(period);
+        for (Candle c : window) {
+            fast.update(c);
+            slow.update(c);
+        }
+        return fast.value() - slow.value();
+    }
+
+    /* ================= helpers ================= */
+
+    private static void slide(List<Candle> tail, Candle next) {
+        tail.removeFirst();
+        tail.add(next);
+    }
+
+    private Candle nextBar() {
+        BigDecimal close = prices[(int) (bar % PRICES)];
+        Candle c = Candle.builder()
+                .symbol("BTCUSDT")
+                .openTime(T0.plusSeconds(60L * bar))
+                .open(close)
+                .high(close)
+                .low(close)
+                .close(close)
+                .volume(BigDecimal.ONE)
+                .build();
+        bar++;
+        return c;
+    }
+
+    private static TickContext ctx(StrategySettings s, List<Candle> candles) {
+        double last = candles.getLast().getClose().doubleValue();
+        return new TickContext(1L, Exchange.BINANCE, NetworkType.MAINNET, s, "BTCUSDT", "1m", candles, last, List::of);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(StrategyTickBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,90 @@
+package com.chicu.aibot.strategy.custom.rule;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuleCompilerTest {
+
+    private final RuleCompiler compiler = new RuleCompiler();
+
+    @Test
+    void inputsAreDeduplicatedIntoFrameSlots() {
+        CompiledRule rule = compiler.compile("close > ema(50) and ema(50) > sma(200) and close > 0");
+
+        assertEquals(List.of(new RuleInput(RuleInput.Kind.CLOSE, 0),
+                new RuleInput(RuleInput.Kind.EMA, 50),
+                new RuleInput(RuleInput.Kind.SMA, 200)), rule.inputs());
+        assertEquals(200, rule.minBars());
+        assertEquals(200, rule.warmupBars());
+        assertEquals(3, rule.newFrame().length);
+        assertTrue(Double.isNaN(rule.newFrame()[0]));
+    }
+
+    @Test
+    void comparesSlotsAndConstants() {
+        CompiledRule rule = compiler.compile("rsi(14) < 30 or 70 < rsi(14)");
+
+        assertTrue(rule.test(new double[] {25}, null));
+        assertFalse(rule.test(new double[] {50}, null));
+        assertTrue(rule.test(new double[] {75}, null));
+    }
+
+    @Test
+    void arithmeticOverSlots() {
+        CompiledRule rule = compiler.compile("close > ema(50) * 1.02 and (high - low) / close < 0.01");
+        // ячейки: close, ema:50, high, low
+        assertTrue(rule.test(new double[] {103, 100, 103.5, 103}, null));
+        assertFalse(rule.test(new double[] {101, 100, 101.5, 101}, null));
+        assertFalse(rule.test(new double[] {103, 100, 110, 100}, null));
+    }
+
+    @Test
+    void bandsReadMidAndStdDevSlots() {
+        CompiledRule rule = compiler.compile("close < bb_lower(20, 2)");
+        assertEquals(List.of(new RuleInput(RuleInput.Kind.CLOSE, 0),
+                new RuleInput(RuleInput.Kind.BB_MID, 20),
+                new RuleInput(RuleInput.Kind.STDDEV, 20)), rule.inputs());
+
+        assertTrue(rule.test(new double[] {95, 100, 2}, null));
+        assertFalse(rule.test(new double[] {99, 100, 1}, null));
+    }
+
+    @Test
+    void crossesUseThePreviousFrame() {
+        CompiledRule rule = compiler.compile("crosses_above(ema(9), ema(21))");
+
+        assertTrue(rule.test(new double[] {11, 10}, new double[] {9, 10}));
+        assertFalse(rule.test(new double[] {11, 10}, new double[] {10.5, 10}));
+        // без прошлого кадра пересечения нет
+        assertFalse(rule.test(new double[] {11, 10}, new double[] {Double.NaN, Double.NaN}));
+    }
+
+    @Test
+    void constantConditionsAreFolded() {
+        CompiledRule rule = compiler.compile("1 < 2 or rsi(14) > 90");
+        assertTrue(rule.test(new double[] {0}, null));
+        assertFalse(compiler.compile("not (2 * 3 == 6)").test(new double[0], null));
+    }
+
+    @Test
+    void sameTextIsCompiledOnce() {
+        assertSame(compiler.compile("rsi(14) < 30"), compiler.compile("  rsi(14) < 30 "));
+    }
+
+    @Test
+    void typeAndArgumentErrors() {
+        assertThrows(RuleSyntaxException.class, () -> compiler.compile("close + 1"));
+        assertThrows(RuleSyntaxException.class, () -> compiler.compile("(close > 1) + 1 > 0"));
+        assertThrows(RuleSyntaxException.class, () -> compiler.compile("foo(3) > 1"));
+        assertThrows(RuleSyntaxException.class, () -> compiler.compile("bar > 1"));
+        assertThrows(RuleSyntaxException.class, () -> compiler.compile("ema(0) > 1"));
+        assertThrows(RuleSyntaxException.class, () -> compiler.compile("ema(2.5) > 1"));
+        assertThrows(RuleSyntaxException.class, () -> compiler.compile("ema(close) > 1"));
+        assertThrows(RuleSyntaxException.class, () -> compiler.compile("sma(5, 6) > 1"));
+        assertThrows(RuleSyntaxException.class, () -> compiler.compile("crosses_above(close, 1) > 1"));
+        assertThrows(RuleSyntaxException.class, () -> compiler.compile("close < bb_lower(20, close)"));
+    }
+}
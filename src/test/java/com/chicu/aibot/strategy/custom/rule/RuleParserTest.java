@@ -0,0 +1,66 @@
+package com.chicu.aibot.strategy.custom.rule;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuleParserTest {
+
+    @Test
+    void precedenceOrAndCmpArithmetic() {
+        RuleNode root = RuleParser.parse("close > ema(50) * 1.02 and rsi(14) < 30 or volume > 0");
+
+        RuleNode.Binary or = assertInstanceOf(RuleNode.Binary.class, root);
+        assertEquals("or", or.op());
+        RuleNode.Binary and = assertInstanceOf(RuleNode.Binary.class, or.left());
+        assertEquals("and", and.op());
+        RuleNode.Binary gt = assertInstanceOf(RuleNode.Binary.class, and.left());
+        assertEquals(">", gt.op());
+        assertEquals(new RuleNode.Ref("close", 0), gt.left());
+        RuleNode.Binary mul = assertInstanceOf(RuleNode.Binary.class, gt.right());
+        assertEquals("*", mul.op());
+        RuleNode.Call ema = assertInstanceOf(RuleNode.Call.class, mul.left());
+        assertEquals("ema", ema.name());
+        assertEquals(1, ema.args().size());
+    }
+
+    @Test
+    void symbolicOperatorsAndCaseInsensitiveNames() {
+        RuleNode a = RuleParser.parse("RSI(14) < 30 && !(Close >= 100) || price != 1");
+        RuleNode.Binary or = assertInstanceOf(RuleNode.Binary.class, a);
+        assertEquals("or", or.op());
+        RuleNode.Binary and = assertInstanceOf(RuleNode.Binary.class, or.left());
+        assertEquals("and", and.op());
+        assertEquals("rsi", assertInstanceOf(RuleNode.Call.class,
+                assertInstanceOf(RuleNode.Binary.class, and.left()).left()).name());
+        RuleNode.Unary not = assertInstanceOf(RuleNode.Unary.class, and.right());
+        assertEquals("not", not.op());
+        assertEquals("!=", assertInstanceOf(RuleNode.Binary.class, or.right()).op());
+    }
+
+    @Test
+    void keywordDoesNotEatIdentifierPrefix() {
+        RuleNode n = RuleParser.parse("order > 1");
+        assertEquals("order", assertInstanceOf(RuleNode.Ref.class,
+                assertInstanceOf(RuleNode.Binary.class, n).left()).name());
+    }
+
+    @Test
+    void unaryMinusAndParentheses() {
+        RuleNode n = RuleParser.parse("-(close - open) / 2 < 1");
+        RuleNode.Binary lt = assertInstanceOf(RuleNode.Binary.class, n);
+        RuleNode.Binary div = assertInstanceOf(RuleNode.Binary.class, lt.left());
+        assertEquals("/", div.op());
+        assertEquals("-", assertInstanceOf(RuleNode.Unary.class, div.left()).op());
+    }
+
+    @Test
+    void syntaxErrorsCarryPosition() {
+        assertEquals(-1, assertThrows(RuleSyntaxException.class, () -> RuleParser.parse("  ")).getPosition());
+        assertEquals(10, assertThrows(RuleSyntaxException.class, () -> RuleParser.parse("close > 1 2")).getPosition());
+        assertEquals(7, assertThrows(RuleSyntaxException.class, () -> RuleParser.parse("close >")).getPosition());
+        assertEquals(8, assertThrows(RuleSyntaxException.class, () -> RuleParser.parse("close > 1..2")).getPosition());
+        assertEquals(6, assertThrows(RuleSyntaxException.class, () -> RuleParser.parse("ema(50")).getPosition());
+        assertEquals(6, assertThrows(RuleSyntaxException.class, () -> RuleParser.parse("close # 1")).getPosition());
+    }
+}
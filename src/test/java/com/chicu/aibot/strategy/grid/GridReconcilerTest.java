@@ -0,0 +1,131 @@
+package com.chicu.aibot.strategy.grid;
+
+import com.chicu.aibot.strategy.model.Order;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GridReconcilerTest {
+
+    private static final double TOL_BPS = 5.0;
+
+    @Test
+    void unchangedGridGivesEmptyPlan() {
+        List<GridLevel> target = List.of(buy(100.0, 1.0), buy(99.0, 1.0), sell(101.0, 1.0));
+        List<Order> live = List.of(order("1", Order.Side.BUY, 100.0, 1.0),
+                order("2", Order.Side.BUY, 99.0, 1.0),
+                order("3", Order.Side.SELL, 101.0, 1.0));
+
+        GridPlan plan = GridReconciler.diff(target, live, TOL_BPS, 10);
+
+        assertTrue(plan.isEmpty());
+        assertEquals(3, plan.kept());
+        assertEquals(0, plan.amended());
+    }
+
+    @Test
+    void priceWithinToleranceIsKept() {
+        // 5 б.п. от 100 — это 0.05
+        GridPlan inside = GridReconciler.diff(List.of(buy(100.0, 1.0)),
+                List.of(order("1", Order.Side.BUY, 100.04, 1.0)), TOL_BPS, 10);
+        assertTrue(inside.isEmpty());
+
+        GridPlan outside = GridReconciler.diff(List.of(buy(100.0, 1.0)),
+                List.of(order("1", Order.Side.BUY, 100.06, 1.0)), TOL_BPS, 10);
+        assertEquals(List.of("1"), ids(outside.cancel()));
+        assertEquals(List.of(buy(100.0, 1.0)), outside.place());
+    }
+
+    @Test
+    void nearestOrderWinsAndSideMustMatch() {
+        Order far = order("far", Order.Side.BUY, 99.96, 1.0);
+        Order near = order("near", Order.Side.BUY, 100.01, 1.0);
+        Order wrongSide = order("sell", Order.Side.SELL, 100.0, 1.0);
+
+        GridPlan plan = GridReconciler.diff(List.of(buy(100.0, 1.0)), List.of(far, near, wrongSide), TOL_BPS, 10);
+
+        assertEquals(1, plan.kept());
+        assertEquals(List.of("far", "sell"), ids(plan.cancel()).stream().sorted().toList());
+        assertTrue(plan.place().isEmpty());
+    }
+
+    @Test
+    void duplicatesAtOneLevelAreCancelled() {
+        List<Order> live = List.of(order("a", Order.Side.BUY, 100.0, 1.0),
+                order("b", Order.Side.BUY, 100.0, 1.0),
+                order("c", Order.Side.BUY, 100.0, 1.0));
+
+        GridPlan plan = GridReconciler.diff(List.of(buy(100.0, 1.0)), live, TOL_BPS, 10);
+
+        assertEquals(1, plan.kept());
+        assertEquals(2, plan.cancel().size());
+        assertTrue(plan.place().isEmpty());
+    }
+
+    @Test
+    void levelsBeyondMaxOpenAreNotPlacedAndTheirOrdersCancelled() {
+        List<GridLevel> target = List.of(buy(100.0, 1.0), buy(99.0, 1.0), buy(98.0, 1.0));
+        List<Order> live = List.of(order("1", Order.Side.BUY, 100.0, 1.0),
+                order("3", Order.Side.BUY, 98.0, 1.0));
+
+        GridPlan plan = GridReconciler.diff(target, live, TOL_BPS, 2);
+
+        assertEquals(1, plan.kept());
+        assertEquals(List.of(buy(99.0, 1.0)), plan.place());
+        assertEquals(List.of("3"), ids(plan.cancel()));
+    }
+
+    @Test
+    void zeroMaxOpenCancelsEverything() {
+        GridPlan plan = GridReconciler.diff(List.of(buy(100.0, 1.0)),
+                List.of(order("1", Order.Side.BUY, 100.0, 1.0)), TOL_BPS, 0);
+        assertEquals(List.of("1"), ids(plan.cancel()));
+        assertTrue(plan.place().isEmpty());
+    }
+
+    @Test
+    void quantityChangeBeyondToleranceIsAmended() {
+        // 1.01 против 1.0 — в пределах 2%, перевыставлять незачем
+        GridPlan rounding = GridReconciler.diff(List.of(buy(100.0, 1.0)),
+                List.of(order("1", Order.Side.BUY, 100.0, 1.01)), TOL_BPS, 10);
+        assertTrue(rounding.isEmpty());
+
+        GridPlan plan = GridReconciler.diff(List.of(buy(100.0, 2.0)),
+                List.of(order("1", Order.Side.BUY, 100.0, 1.0)), TOL_BPS, 10);
+        assertEquals(1, plan.amended());
+        assertEquals(0, plan.kept());
+        assertEquals(List.of("1"), ids(plan.cancel()));
+        assertEquals(List.of(buy(100.0, 2.0)), plan.place());
+    }
+
+    @Test
+    void closedOrdersAreIgnored() {
+        Order filled = new Order("f", "BTCUSDT", Order.Side.BUY, 100.0, 1.0, true, false, false);
+        Order cancelled = new Order("c", "BTCUSDT", Order.Side.BUY, 100.0, 1.0, false, true, false);
+
+        GridPlan plan = GridReconciler.diff(List.of(buy(100.0, 1.0)), List.of(filled, cancelled), TOL_BPS, 10);
+
+        assertTrue(plan.cancel().isEmpty());
+        assertEquals(List.of(buy(100.0, 1.0)), plan.place());
+    }
+
+    /* ================= helpers ================= */
+
+    private static GridLevel buy(double price, double qty) {
+        return new GridLevel(Order.Side.BUY, price, qty);
+    }
+
+    private static GridLevel sell(double price, double qty) {
+        return new GridLevel(Order.Side.SELL, price, qty);
+    }
+
+    private static Order order(String id, Order.Side side, double price, double qty) {
+        return new Order(id, "BTCUSDT", side, price, qty, false, false, false);
+    }
+
+    private static List<String> ids(List<Order> orders) {
+        return orders.stream().map(Order::getId).toList();
+    }
+}
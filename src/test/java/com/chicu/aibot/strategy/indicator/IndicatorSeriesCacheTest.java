@@ -0,0 +1,47 @@
+package com.chicu.aibot.strategy.indicator;
+
+import com.chicu.aibot.exchange.enums.Exchange;
+import com.chicu.aibot.exchange.enums.NetworkType;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndicatorSeriesCacheTest {
+
+    private final IndicatorSeriesCache cache = new IndicatorSeriesCache();
+
+    @Test
+    void sameVenueSharesSeries() {
+        var a = cache.get(Exchange.BINANCE, NetworkType.MAINNET, "BTCUSDT", "1m", "ema:20", () -> new Ema(20));
+        var b = cache.get(Exchange.BINANCE, NetworkType.MAINNET, "BTCUSDT", "1m", "ema:20", () -> new Ema(20));
+        assertSame(a, b);
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void networkAndExchangeAreSeparateSeries() {
+        var mainnet = cache.get(Exchange.BINANCE, NetworkType.MAINNET, "BTCUSDT", "1m", "ema:20", () -> new Ema(20));
+        var testnet = cache.get(Exchange.BINANCE, NetworkType.TESTNET, "BTCUSDT", "1m", "ema:20", () -> new Ema(20));
+        var bybit = cache.get(Exchange.BYBIT, NetworkType.MAINNET, "BTCUSDT", "1m", "ema:20", () -> new Ema(20));
+        assertNotSame(mainnet, testnet);
+        assertNotSame(mainnet, bybit);
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    void preloadIsFoundUnderTheSameVenue() {
+        RollingVariance preloaded = new RollingVariance(20);
+        cache.preload(null, null, "BTCUSDT", "1m", "boll:20", preloaded);
+
+        RollingVariance[] seen = new RollingVariance[1];
+        cache.get(null, null, "BTCUSDT", "1m", "boll:20", () -> new RollingVariance(20))
+                .advance(List.of(), v -> seen[0] = v);
+        assertSame(preloaded, seen[0]);
+
+        cache.get(Exchange.BINANCE, NetworkType.MAINNET, "BTCUSDT", "1m", "boll:20", () -> new RollingVariance(20))
+                .advance(List.of(), v -> seen[0] = v);
+        assertNotSame(preloaded, seen[0]);
+    }
+}
@@ -0,0 +1,119 @@
+package com.chicu.aibot.strategy.indicator;
+
+import com.chicu.aibot.strategy.model.Candle;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndicatorSeriesTest {
+
+    private static final Instant T0 = Instant.parse("2024-01-01T00:00:00Z");
+
+    private final Recorder recorder = new Recorder();
+    private final IndicatorSeries<Recorder> series = new IndicatorSeries<>(recorder);
+
+    @Test
+    void firstAdvanceFeedsWholeWindow() {
+        series.advance(bars(0, 5), r -> { });
+        assertEquals(List.of(0.0, 1.0, 2.0, 3.0, 4.0), recorder.seen);
+        assertEquals(1, recorder.resets);
+    }
+
+    @Test
+    void slidingWindowFeedsOnlyNewBars() {
+        series.advance(bars(0, 5), r -> { });
+        recorder.seen.clear();
+
+        series.advance(bars(1, 6), r -> { });
+        assertEquals(List.of(5.0), recorder.seen);
+
+        series.advance(bars(3, 9), r -> { });
+        assertEquals(List.of(5.0, 6.0, 7.0, 8.0), recorder.seen);
+        assertEquals(1, recorder.resets);
+    }
+
+    @Test
+    void sameWindowTwiceFeedsNothing() {
+        series.advance(bars(0, 5), r -> { });
+        recorder.seen.clear();
+
+        series.advance(bars(0, 5), r -> { });
+        assertTrue(recorder.seen.isEmpty());
+    }
+
+    @Test
+    void gapResetsAndReplaysWindow() {
+        series.advance(bars(0, 5), r -> { });
+        recorder.seen.clear();
+
+        // окно начинается позже последнего учтённого бара — стыковки нет
+        series.advance(bars(10, 13), r -> { });
+        assertEquals(2, recorder.resets);
+        assertEquals(List.of(10.0, 11.0, 12.0), recorder.seen);
+
+        // после пересборки ряд снова докармливается по одному бару
+        recorder.seen.clear();
+        series.advance(bars(11, 14), r -> { });
+        assertEquals(List.of(13.0), recorder.seen);
+    }
+
+    @Test
+    void emptyWindowOnlyReads() {
+        series.advance(bars(0, 3), r -> { });
+        int[] reads = new int[1];
+        series.advance(List.of(), r -> reads[0]++);
+        series.advance(null, r -> reads[0]++);
+        assertEquals(2, reads[0]);
+        assertEquals(3, recorder.seen.size());
+    }
+
+    @Test
+    void rebuildStartsOver() {
+        series.advance(bars(0, 5), r -> { });
+        recorder.seen.clear();
+
+        series.rebuild(bars(2, 6), r -> { });
+        assertEquals(List.of(2.0, 3.0, 4.0, 5.0), recorder.seen);
+        assertEquals(2, recorder.resets);
+    }
+
+    /* ================= helpers ================= */
+
+    /** Бары [from, to) с минутным шагом; close = номер бара. */
+    private static List<Candle> bars(int from, int to) {
+        List<Candle> out = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            out.add(Candle.builder()
+                    .symbol("BTCUSDT")
+                    .openTime(T0.plusSeconds(60L * i))
+                    .close(BigDecimal.valueOf(i))
+                    .build());
+        }
+        return out;
+    }
+
+    private static final class Recorder implements BarIndicator {
+        final List<Double> seen = new ArrayList<>();
+        int resets;
+
+        @Override
+        public void update(Candle bar) {
+            seen.add(BarIndicator.close(bar));
+        }
+
+        @Override
+        public boolean isReady() {
+            return !seen.isEmpty();
+        }
+
+        @Override
+        public void reset() {
+            resets++;
+        }
+    }
+}
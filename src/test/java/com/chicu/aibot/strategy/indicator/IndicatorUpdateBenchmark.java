@@ -0,0 +1,212 @@
+package com.chicu.aibot.strategy.indicator;
+
+import com.chicu.aibot.strategy.model.Candle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стоимость одного нового бара: потоковые индикаторы против пересчёта окна, как было в Bollinger
+ * до пакета indicator. Стоимость обновления не должна зависеть от period, у пересчёта — растёт линейно.
+ * <p>
+ * Запуск: {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.chicu.aibot.strategy.indicator.IndicatorUpdateBenchmark}.
+ * <p>
+ * Замер: JDK 21, 1 CPU, 1 форк, прогрев 3×1 с, замер 5×1 с; нс/оп, меньше — лучше. Основная часть
+ * стоимости обновления — BigDecimal → double из свечи; пересчёт окна платит её period раз на тик.
+ * <pre>
+ * Benchmark                 (period)     Score      Error
+ * atrUpdate                       20     271.5 ±  217.8
+ * atrUpdate                      200     286.2 ±  213.2
+ * emaUpdate                       20      90.7 ±   66.8
+ * emaUpdate                      200      97.6 ±   46.5
+ * macdUpdate                      20      96.9 ±   66.3
+ * macdUpdate                     200      86.7 ±   17.0
+ * minMaxUpdate                    20     208.3 ±   57.2
+ * minMaxUpdate                   200     214.7 ±  112.7
+ * rollingVarianceUpdate           20     113.5 ±   54.5
+ * rollingVarianceUpdate          200     135.9 ±   16.4
+ * rsiUpdate                       20     125.1 ±   45.6
+ * rsiUpdate                      200     109.3 ±   18.5
+ * seriesAdvanceOneBar             20     164.5 ±   10.7
+ * seriesAdvanceOneBar            200     192.4 ±   83.7
+ * twoPassWindow                   20    3288.7 ±  794.6
+ * twoPassWindow                  200   30414.2 ± 6151.6
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IndicatorUpdateBenchmark {
+
+    private static final int BARS = 4096;
+
+    @Param({"20", "200"})
+    private int period;
+
+    private Candle[] bars;
+    private int cursor;
+
+    private RollingVariance variance;
+    private Ema ema;
+    private WilderRsi rsi;
+    private Atr atr;
+    private Macd macd;
+    private RollingMinMax minMax;
+
+    private IndicatorSeries<RollingVariance> series;
+    private List<Candle> window;
+    private int nextBar;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom rnd = new SplittableRandom(42);
+        bars = new Candle[BARS];
+        double price = 30_000.0;
+        Instant t = Instant.parse("2024-01-01T00:00:00Z");
+        for (int i = 0; i < BARS; i++) {
+            price *= 1.0 + (rnd.nextDouble() - 0.5) * 0.002;
+            bars[i] = bar(t.plusSeconds(60L * i), price, rnd);
+        }
+
+        variance = new RollingVariance(period);
+        ema = new Ema(period);
+        rsi = new WilderRsi(period);
+        atr = new Atr(period);
+        macd = Macd.standard();
+        minMax = new RollingMinMax(period);
+        for (int i = 0; i < period * 2; i++) {
+            Candle c = bars[i];
+            variance.update(c);
+            ema.update(c);
+            rsi.update(c);
+            atr.update(c);
+            macd.update(c);
+            minMax.update(c);
+        }
+
+        // ряд кэша: тик приносит хвост окна, новым в нём — один бар
+        series = new IndicatorSeries<>(new RollingVariance(period));
+        window = new ArrayList<>(List.of(bars).subList(0, period + 1));
+        series.advance(window, v -> { });
+        nextBar = period + 1;
+    }
+
+    private Candle next() {
+        Candle c = bars[cursor];
+        cursor = (cursor + 1) & (BARS - 1);
+        return c;
+    }
+
+    @Benchmark
+    public double rollingVarianceUpdate() {
+        variance.update(next());
+        return variance.stdDev();
+    }
+
+    @Benchmark
+    public double emaUpdate() {
+        ema.update(next());
+        return ema.value();
+    }
+
+    @Benchmark
+    public double rsiUpdate() {
+        rsi.update(next());
+        return rsi.value();
+    }
+
+    @Benchmark
+    public double atrUpdate() {
+        atr.update(next());
+        return atr.value();
+    }
+
+    @Benchmark
+    public double macdUpdate() {
+        macd.update(next());
+        return macd.histogram();
+    }
+
+    @Benchmark
+    public double minMaxUpdate() {
+        minMax.update(next());
+        return minMax.max() - minMax.min();
+    }
+
+    /** Путь тика стратегии: ряд из кэша докармливается хвостом окна с одним новым баром. */
+    @Benchmark
+    public double seriesAdvanceOneBar() {
+        if (nextBar == BARS) {
+            // ряд кончился — начинаем заново, как после разрыва
+            nextBar = period + 1;
+            window.clear();
+            window.addAll(List.of(bars).subList(0, period + 1));
+            series.rebuild(window, v -> { });
+        }
+        window.removeFirst();
+        window.add(bars[nextBar++]);
+        double[] out = new double[1];
+        series.advance(window, v -> out[0] = v.stdDev());
+        return out[0];
+    }
+
+    /** Как считали раньше: среднее и σ по всему окну, два прохода на каждом тике. */
+    @Benchmark
+    public double twoPassWindow() {
+        int end = cursor + period;
+        if (end > BARS) {
+            cursor = 0;
+            end = period;
+        }
+        double sum = 0.0;
+        for (int i = cursor; i < end; i++) sum += BarIndicator.close(bars[i]);
+        double mean = sum / period;
+        double sq = 0.0;
+        for (int i = cursor; i < end; i++) {
+            double d = BarIndicator.close(bars[i]) - mean;
+            sq += d * d;
+        }
+        cursor++;
+        return Math.sqrt(sq / period);
+    }
+
+    private static Candle bar(Instant openTime, double close, SplittableRandom rnd) {
+        double spread = close * 0.001 * rnd.nextDouble();
+        return Candle.builder()
+                .symbol("BTCUSDT")
+                .openTime(openTime)
+                .open(BigDecimal.valueOf(close))
+                .high(BigDecimal.valueOf(close + spread))
+                .low(BigDecimal.valueOf(close - spread))
+                .close(BigDecimal.valueOf(close))
+                .volume(BigDecimal.ONE)
+                .build();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(IndicatorUpdateBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,120 @@
+package com.chicu.aibot.strategy.indicator.batch;
+
+import com.chicu.aibot.strategy.indicator.Atr;
+import com.chicu.aibot.strategy.indicator.Macd;
+import com.chicu.aibot.strategy.indicator.WilderRsi;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Признаки обучающего датасета ML (EMA12/EMA26/MACD, RSI(14), ATR(14)) для symbols × 1000 баров:
+ * потоковые индикаторы по символу за раз против пакетных ядер, скалярных и SIMD.
+ * <p>
+ * Запуск: {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.chicu.aibot.strategy.indicator.batch.MatrixKernelsBenchmark}.
+ * <p>
+ * Замер: JDK 21, 1 CPU (AVX-512, вектор 8×64), 1 форк, прогрев 3×1 с, замер 5×1 с; мкс/оп, меньше — лучше.
+ * На 30 символах SIMD не быстрее потоковых индикаторов, на 300 — в 1,7 раза; скалярные ядра медленнее
+ * потоковых: пять отдельных проходов по матрице против одного по ряду.
+ * <pre>
+ * Benchmark        (symbols)     Score      Error
+ * scalarKernels           30    843.9 ±  192.7
+ * scalarKernels          300   9210.4 ± 3629.7
+ * streaming               30    676.4 ±  189.2
+ * streaming              300   7341.4 ±  774.2
+ * vectorKernels           30    682.0 ±   40.8
+ * vectorKernels          300   4379.6 ±  438.1
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class MatrixKernelsBenchmark {
+
+    private static final int BARS = 1000;
+
+    @Param({"30", "300"})
+    private int symbols;
+
+    private BarMatrix close;
+    private BarMatrix high;
+    private BarMatrix low;
+
+    private final MatrixKernels scalar = new ScalarMatrixKernels();
+    private final MatrixKernels vector = new VectorMatrixKernels();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom rnd = new SplittableRandom(42);
+        close = new BarMatrix(BARS, symbols);
+        high = close.sameShape();
+        low = close.sameShape();
+        for (int j = 0; j < symbols; j++) {
+            double price = 1.0 + 100.0 * rnd.nextDouble();
+            for (int t = 0; t < BARS; t++) {
+                price *= 1.0 + (rnd.nextDouble() - 0.5) * 0.004;
+                int i = t * symbols + j;
+                close.values()[i] = price;
+                high.values()[i] = price * (1.0 + 0.002 * rnd.nextDouble());
+                low.values()[i] = price * (1.0 - 0.002 * rnd.nextDouble());
+            }
+        }
+    }
+
+    /** Как считает FeatureSet: свои индикаторы у каждого символа, бар за баром. */
+    @Benchmark
+    public double streaming() {
+        double acc = 0.0;
+        for (int j = 0; j < symbols; j++) {
+            Macd macd = Macd.standard();
+            WilderRsi rsi = new WilderRsi(14);
+            Atr atr = new Atr(14);
+            for (int t = 0; t < BARS; t++) {
+                double c = close.get(t, j);
+                acc += macd.update(c) + rsi.update(c) + atr.update(high.get(t, j), low.get(t, j), c);
+            }
+        }
+        return acc;
+    }
+
+    @Benchmark
+    public double scalarKernels() {
+        return features(scalar);
+    }
+
+    @Benchmark
+    public double vectorKernels() {
+        return features(vector);
+    }
+
+    private double features(MatrixKernels k) {
+        BarMatrix e12 = k.ema(close, 12);
+        BarMatrix e26 = k.ema(close, 26);
+        BarMatrix r = k.rsi(close, 14);
+        BarMatrix a = k.wilder(k.trueRange(high, low, close), 14);
+        return e12.last(0) - e26.last(0) + r.last(0) + a.last(0);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(MatrixKernelsBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,124 @@
+package com.chicu.aibot.strategy.indicator.batch;
+
+import com.chicu.aibot.strategy.indicator.Atr;
+import com.chicu.aibot.strategy.indicator.Ema;
+import com.chicu.aibot.strategy.indicator.WilderRsi;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SIMD и скалярная реализации дают одинаковые матрицы, а ema/wilder/rsi на каждом баре совпадают
+ * с потоковыми Ema/Atr/WilderRsi. Символов 11 — не кратно ширине вектора, хвост строки тоже проверяется.
+ */
+class MatrixKernelsTest {
+
+    private static final int BARS = 300;
+    private static final int SYMBOLS = 11;
+
+    private final MatrixKernels scalar = new ScalarMatrixKernels();
+    private final MatrixKernels vector = new VectorMatrixKernels();
+
+    private final BarMatrix close;
+    private final BarMatrix high;
+    private final BarMatrix low;
+
+    MatrixKernelsTest() {
+        SplittableRandom rnd = new SplittableRandom(7);
+        close = new BarMatrix(BARS, SYMBOLS);
+        high = close.sameShape();
+        low = close.sameShape();
+        for (int j = 0; j < SYMBOLS; j++) {
+            // ряды разной длины: короткие слева добиты NaN, как у BarMatrix.of
+            int start = j * 17;
+            double price = 10.0 + 1000.0 * j;
+            for (int t = 0; t < BARS; t++) {
+                int i = t * SYMBOLS + j;
+                if (t < start) {
+                    close.values()[i] = high.values()[i] = low.values()[i] = Double.NaN;
+                    continue;
+                }
+                // изредка бар без движения — нулевое изменение у RSI
+                if (t % 50 != 1) price *= 1.0 + (rnd.nextDouble() - 0.5) * 0.01;
+                close.values()[i] = price;
+                high.values()[i] = price * (1.0 + 0.003 * rnd.nextDouble());
+                low.values()[i] = price * (1.0 - 0.003 * rnd.nextDouble());
+            }
+        }
+    }
+
+    @Test
+    void vectorMatchesScalar() {
+        assertIdentical(scalar.sma(close, 20), vector.sma(close, 20));
+        assertIdentical(scalar.stdDev(close, 20), vector.stdDev(close, 20));
+        assertIdentical(scalar.zScore(close, 20), vector.zScore(close, 20));
+        assertIdentical(scalar.ema(close, 12), vector.ema(close, 12));
+        assertIdentical(scalar.wilder(close, 14), vector.wilder(close, 14));
+        assertIdentical(scalar.rsi(close, 14), vector.rsi(close, 14));
+        assertIdentical(scalar.rsi(close, 1), vector.rsi(close, 1));
+        assertIdentical(scalar.trueRange(high, low, close), vector.trueRange(high, low, close));
+    }
+
+    @Test
+    void emaMatchesStreamingEma() {
+        for (MatrixKernels k : new MatrixKernels[]{scalar, vector}) {
+            BarMatrix e = k.ema(close, 26);
+            for (int j = 0; j < SYMBOLS; j++) {
+                Ema ema = new Ema(26);
+                for (int t = firstBar(j); t < BARS; t++) {
+                    assertEquals(ema.update(close.get(t, j)), e.get(t, j), 0.0, k.name() + " bar " + t);
+                }
+            }
+        }
+    }
+
+    @Test
+    void wilderOverTrueRangeMatchesAtr() {
+        for (MatrixKernels k : new MatrixKernels[]{scalar, vector}) {
+            BarMatrix a = k.wilder(k.trueRange(high, low, close), 14);
+            for (int j = 0; j < SYMBOLS; j++) {
+                Atr atr = new Atr(14);
+                for (int t = firstBar(j); t < BARS; t++) {
+                    double expected = atr.update(high.get(t, j), low.get(t, j), close.get(t, j));
+                    assertEquals(expected, a.get(t, j), 0.0, k.name() + " bar " + t);
+                }
+            }
+        }
+    }
+
+    @Test
+    void rsiMatchesWilderRsi() {
+        for (MatrixKernels k : new MatrixKernels[]{scalar, vector}) {
+            BarMatrix r = k.rsi(close, 14);
+            for (int j = 0; j < SYMBOLS; j++) {
+                WilderRsi rsi = new WilderRsi(14);
+                for (int t = firstBar(j); t < BARS; t++) {
+                    assertEquals(rsi.update(close.get(t, j)), r.get(t, j), 0.0, k.name() + " bar " + t);
+                }
+            }
+        }
+    }
+
+    @Test
+    void paddingStaysEmpty() {
+        int j = SYMBOLS - 1;
+        assertTrue(Double.isNaN(scalar.ema(close, 12).get(firstBar(j) - 1, j)));
+        assertTrue(Double.isNaN(vector.wilder(close, 14).get(firstBar(j) - 1, j)));
+        assertEquals(50.0, vector.rsi(close, 14).get(firstBar(j) - 1, j));
+    }
+
+    /* ================= helpers ================= */
+
+    private static int firstBar(int symbol) {
+        return symbol * 17;
+    }
+
+    /** Побитовое совпадение, NaN равен NaN. */
+    private static void assertIdentical(BarMatrix expected, BarMatrix actual) {
+        assertArrayEquals(expected.values(), actual.values(),
+                () -> "первое расхождение: " + Arrays.mismatch(expected.values(), actual.values()));
+    }
+}
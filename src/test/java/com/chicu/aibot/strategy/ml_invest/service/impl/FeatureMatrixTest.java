@@ -0,0 +1,68 @@
+package com.chicu.aibot.strategy.ml_invest.service.impl;
+
+import com.chicu.aibot.strategy.indicator.batch.MatrixKernels;
+import com.chicu.aibot.strategy.model.Candle;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Признаки датасета из пакетных ядер совпадают со строками потокового FeatureSet по каждой свече. */
+class FeatureMatrixTest {
+
+    private static final Instant T0 = Instant.parse("2024-01-01T00:00:00Z");
+
+    @Test
+    void batchFeaturesMatchStreamingFeatureSet() {
+        SplittableRandom rnd = new SplittableRandom(11);
+        List<List<Candle>> series = new ArrayList<>();
+        for (int j = 0; j < 6; j++) {
+            // разные длины и пустой ряд: выравнивание по хвосту
+            series.add(candles(j == 3 ? 0 : 40 + 37 * j, 100.0 * (j + 1), rnd));
+        }
+
+        for (MatrixKernels k : new MatrixKernels[]{MatrixKernels.scalar(), MatrixKernels.best()}) {
+            MlDataPipelineServiceImpl.FeatureMatrix fm = MlDataPipelineServiceImpl.FeatureMatrix.of(series, k);
+            for (int j = 0; j < series.size(); j++) {
+                MlDataPipelineServiceImpl.FeatureSet fs = new MlDataPipelineServiceImpl.FeatureSet();
+                List<Candle> bars = series.get(j);
+                for (int i = 0; i < bars.size(); i++) {
+                    fs.update(bars.get(i));
+                    MlDataPipelineServiceImpl.FeatureSet.Row row = fs.last();
+                    int bar = fm.bar(j, i);
+                    String at = k.name() + " symbol " + j + " bar " + i;
+                    assertEquals(row.rsi(), fm.rsi.get(bar, j), 0.0, at);
+                    assertEquals(row.ema12(), fm.ema12.get(bar, j), 0.0, at);
+                    assertEquals(row.ema26(), fm.ema26.get(bar, j), 0.0, at);
+                    assertEquals(row.macd(), fm.macd(bar, j), 0.0, at);
+                    assertEquals(row.atr(), fm.atr.get(bar, j), 0.0, at);
+                }
+            }
+        }
+    }
+
+    /** Часть свечей без high/low — потоковые индикаторы подставляют close, пакетные должны так же. */
+    private static List<Candle> candles(int n, double price, SplittableRandom rnd) {
+        List<Candle> out = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            price *= 1.0 + (rnd.nextDouble() - 0.5) * 0.01;
+            double spread = price * 0.002 * rnd.nextDouble();
+            boolean gap = i % 29 == 5;
+            out.add(Candle.builder()
+                    .symbol("SYM")
+                    .openTime(T0.plusSeconds(60L * i))
+                    .open(BigDecimal.valueOf(price))
+                    .high(gap ? null : BigDecimal.valueOf(price + spread))
+                    .low(gap ? null : BigDecimal.valueOf(price - spread))
+                    .close(BigDecimal.valueOf(price))
+                    .volume(BigDecimal.ONE)
+                    .build());
+        }
+        return out;
+    }
+}
@@ -0,0 +1,178 @@
+package com.chicu.aibot.strategy.service.impl;
+
+import com.chicu.aibot.exchange.client.ExchangeClient;
+import com.chicu.aibot.exchange.client.ExchangeClientFactory;
+import com.chicu.aibot.exchange.enums.Exchange;
+import com.chicu.aibot.exchange.enums.NetworkType;
+import com.chicu.aibot.exchange.model.ExchangeApiKey;
+import com.chicu.aibot.exchange.model.ExchangeSettings;
+import com.chicu.aibot.exchange.model.OrderInfo;
+import com.chicu.aibot.exchange.order.model.ExchangeOrderEntity;
+import com.chicu.aibot.exchange.order.service.OrderLifecycleService;
+import com.chicu.aibot.exchange.service.ExchangeSettingsService;
+import com.chicu.aibot.strategy.model.Order;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Пакетная сверка статусов: на символ — открытые ордера и история одним запросом каждый,
+ * по одному — только то, чего нет ни там, ни там. Биржа и журнал — прокси, запоминающие вызовы.
+ */
+class ExchangeOrderServiceImplTest {
+
+    private static final Instant T0 = Instant.parse("2024-03-05T10:00:00Z");
+
+    private final List<String> calls = new ArrayList<>();
+    private final List<String> journal = new ArrayList<>();
+    private final Map<String, Instant> created = new HashMap<>();
+
+    /** Ответы биржи; null в open — пакетный запрос падает, UNSUPPORTED — клиент его не умеет. */
+    private List<OrderInfo> open = List.of();
+    private List<OrderInfo> history = List.of();
+    private final Map<String, Optional<OrderInfo>> single = new HashMap<>();
+    private static final List<OrderInfo> UNSUPPORTED = new ArrayList<>();
+
+    @Test
+    void bulkRefreshAsksOpenOrdersAndHistoryOncePerSymbol() {
+        open = List.of(info("1", "NEW", "0"));
+        history = List.of(info("2", "FILLED", "1"), info("3", "CANCELED", "0"));
+        single.put("4", Optional.empty());
+        created.put("2", T0.plusSeconds(600));
+        created.put("3", T0);
+
+        Order stillOpen = order("1");
+        Order filled = order("2");
+        Order canceled = order("3");
+        Order gone = order("4");
+        Order local = order("REJECTED-x");
+        List<Order> cache = new ArrayList<>(List.of(stillOpen, filled, canceled, gone, local));
+
+        service().refreshOrderStatuses(42L, "BTCUSDT", cache);
+
+        // окно истории — с самого раннего пропавшего, неизвестный журналу — всё окно
+        assertEquals(List.of("open BTCUSDT", "history BTCUSDT since " + Instant.EPOCH.minusSeconds(60), "order 4"), calls);
+        assertTrue(stillOpen.isOpen());
+        assertTrue(filled.isFilled() && filled.isClosed());
+        assertTrue(canceled.isCancelled());
+        assertTrue(gone.isCancelled());
+        assertTrue(local.isCancelled());
+        assertEquals(List.of("sync 1 NEW", "sync 2 FILLED", "sync 3 CANCELED", "canceled 4"), journal);
+    }
+
+    @Test
+    void historyWindowStartsAtEarliestMissingOrder() {
+        history = List.of(info("2", "FILLED", "1"), info("3", "EXPIRED", "0"));
+        created.put("2", T0.plusSeconds(600));
+        created.put("3", T0);
+
+        service().refreshOrderStatuses(42L, "BTCUSDT", new ArrayList<>(List.of(order("2"), order("3"))));
+
+        assertEquals(List.of("open BTCUSDT", "history BTCUSDT since " + T0.minusSeconds(60)), calls);
+    }
+
+    @Test
+    void failedBulkRequestLeavesOrdersUntouched() {
+        open = null;
+        Order o = order("1");
+
+        service().refreshOrderStatuses(42L, "BTCUSDT", new ArrayList<>(List.of(o)));
+
+        // ни пропавшим, ни снятым ордер не считается: сверка — на следующем тике
+        assertEquals(List.of("open BTCUSDT"), calls);
+        assertTrue(o.isOpen());
+        assertTrue(journal.isEmpty());
+    }
+
+    @Test
+    void clientWithoutBulkRequestsFallsBackToOneByOne() {
+        open = UNSUPPORTED;
+        single.put("1", Optional.of(info("1", "FILLED", "1")));
+        // "2" нет в ответах — fetchOrderStrict падает, как при таймауте
+        Order filled = order("1");
+        Order unknown = order("2");
+
+        service().refreshOrderStatuses(42L, "BTCUSDT", new ArrayList<>(List.of(filled, unknown)));
+
+        assertEquals(List.of("open BTCUSDT", "order 1", "order 2"), calls);
+        assertTrue(filled.isFilled());
+        assertTrue(unknown.isOpen(), "ошибка биржи ордер не закрывает");
+        assertEquals(List.of("sync 1 FILLED"), journal);
+    }
+
+    /* ================= helpers ================= */
+
+    private ExchangeOrderServiceImpl service() {
+        ExchangeClient client = proxy(ExchangeClient.class, (m, a) -> switch (m.getName()) {
+            case "fetchOpenOrdersStrict" -> {
+                calls.add("open " + a[3]);
+                if (open == null) throw new IllegalStateException("HTTP 503");
+                if (open == UNSUPPORTED) throw new UnsupportedOperationException();
+                yield open;
+            }
+            case "fetchOrderHistory" -> {
+                calls.add("history " + a[3] + " since " + a[4]);
+                yield history;
+            }
+            case "fetchOrderStrict" -> {
+                calls.add("order " + a[4]);
+                Optional<OrderInfo> r = single.get((String) a[4]);
+                if (r == null) throw new IllegalStateException("timeout");
+                yield r;
+            }
+            default -> throw new AssertionError("неожиданный вызов " + m.getName());
+        });
+        ExchangeSettingsService settings = proxy(ExchangeSettingsService.class, (m, a) -> switch (m.getName()) {
+            case "getOrCreate" -> ExchangeSettings.builder()
+                    .chatId(42L).exchange(Exchange.BINANCE).network(NetworkType.TESTNET).build();
+            case "getApiKey" -> ExchangeApiKey.builder().publicKey("k").secretKey("s").build();
+            default -> throw new AssertionError("неожиданный вызов " + m.getName());
+        });
+        OrderLifecycleService lifecycle = proxy(OrderLifecycleService.class, (m, a) -> switch (m.getName()) {
+            case "find" -> Optional.ofNullable(created.get((String) a[1]))
+                    .map(at -> ExchangeOrderEntity.builder().createdAt(at).build());
+            case "sync" -> {
+                journal.add("sync " + a[1] + " " + a[2]);
+                yield Optional.empty();
+            }
+            case "canceledByOrderId" -> {
+                journal.add("canceled " + a[1]);
+                yield Optional.empty();
+            }
+            default -> throw new AssertionError("неожиданный вызов " + m.getName());
+        });
+        return new ExchangeOrderServiceImpl(new ExchangeClientFactory(Map.of("BINANCE", client)),
+                settings, null, lifecycle);
+    }
+
+    private static Order order(String id) {
+        return new Order(id, "BTCUSDT", Order.Side.BUY, 100.0, 1.0, false, false, false);
+    }
+
+    private static OrderInfo info(String id, String status, String executed) {
+        return OrderInfo.builder()
+                .orderId(id)
+                .symbol("BTCUSDT")
+                .status(status)
+                .origQty(BigDecimal.ONE)
+                .executedQty(new BigDecimal(executed))
+                .build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, BiFunction<Method, Object[], Object> body) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (p, m, a) -> m.getDeclaringClass() == Object.class ? m.invoke(type, a) : body.apply(m, a));
+    }
+}
@@ -0,0 +1,195 @@
+package com.chicu.aibot.trading.actor.impl;
+
+import com.chicu.aibot.trading.lane.ExecutionLane;
+import com.chicu.aibot.trading.lane.impl.LaneExecutorImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ActorRuntimeImplTest {
+
+    private LaneExecutorImpl lanes;
+    private ActorRuntimeImpl actors;
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        lanes = new LaneExecutorImpl(registry);
+        set(lanes, "tradingThreads", 2);
+        set(lanes, "strategyThreads", 1);
+        set(lanes, "uiThreads", 1);
+        set(lanes, "strategyMaxPending", 16);
+        set(lanes, "uiMaxPending", 16);
+        invoke(lanes, "init");
+
+        actors = new ActorRuntimeImpl(registry, lanes);
+        set(actors, "batch", 16);
+        invoke(actors, "init");
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        release.countDown();
+        invoke(lanes, "shutdown");
+    }
+
+    @Test
+    void tradingMessageRunsWhileTheSharedPoolIsBusy() throws Exception {
+        // единственный поток полосы STRATEGY занят «зависшим» тиком другого актора
+        CountDownLatch blocking = new CountDownLatch(1);
+        actors.command("1:A", "start", () -> { }).get(1, TimeUnit.SECONDS);
+        actors.command("2:B", "start", () -> { }).get(1, TimeUnit.SECONDS);
+        assertTrue(actors.tick("1:A", () -> {
+            blocking.countDown();
+            await(release);
+        }));
+        assertTrue(blocking.await(1, TimeUnit.SECONDS));
+
+        CountDownLatch fired = new CountDownLatch(1);
+        assertTrue(actors.send("2:B", "trigger", ExecutionLane.TRADING, fired::countDown));
+        assertTrue(fired.await(1, TimeUnit.SECONDS), "срочное сообщение не ждёт полосу STRATEGY");
+
+        actors.command("2:B", "stop", ExecutionLane.TRADING, () -> { }).get(1, TimeUnit.SECONDS);
+
+        // обычная команда того же актора стоит в полосе STRATEGY за тиком
+        CountDownLatch normal = new CountDownLatch(1);
+        actors.send("2:B", "reconcile", normal::countDown);
+        assertFalse(normal.await(200, TimeUnit.MILLISECONDS));
+        release.countDown();
+        assertTrue(normal.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void tradingMessageWaitsForTheActorsCurrentTick() throws Exception {
+        actors.command("1:A", "start", () -> { }).get(1, TimeUnit.SECONDS);
+        List<String> order = new CopyOnWriteArrayList<>();
+        AtomicInteger inside = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+        CountDownLatch tickStarted = new CountDownLatch(1);
+
+        actors.tick("1:A", () -> {
+            if (inside.incrementAndGet() > 1) overlaps.incrementAndGet();
+            tickStarted.countDown();
+            await(release);
+            order.add("tick");
+            inside.decrementAndGet();
+        });
+        assertTrue(tickStarted.await(1, TimeUnit.SECONDS));
+
+        var stop = actors.command("1:A", "stop", ExecutionLane.TRADING, () -> {
+            if (inside.incrementAndGet() > 1) overlaps.incrementAndGet();
+            order.add("stop");
+            inside.decrementAndGet();
+        });
+        Thread.sleep(100);
+        assertFalse(stop.isDone(), "сообщения одного актора не идут параллельно");
+
+        release.countDown();
+        stop.get(1, TimeUnit.SECONDS);
+        assertEquals(List.of("tick", "stop"), order);
+        assertEquals(0, overlaps.get());
+    }
+
+    @Test
+    void tradingMessageOvertakesQueuedCommandsAndTick() throws Exception {
+        CountDownLatch blocking = new CountDownLatch(1);
+        actors.command("1:A", "start", () -> { }).get(1, TimeUnit.SECONDS);
+        actors.command("2:B", "start", () -> { }).get(1, TimeUnit.SECONDS);
+        actors.tick("1:A", () -> {
+            blocking.countDown();
+            await(release);
+        });
+        assertTrue(blocking.await(1, TimeUnit.SECONDS));
+
+        List<String> order = new CopyOnWriteArrayList<>();
+        actors.tick("2:B", () -> order.add("tick"));
+        actors.send("2:B", "reconcile", () -> order.add("reconcile"));
+        var stop = actors.command("2:B", "stop", ExecutionLane.TRADING, () -> order.add("stop"));
+        stop.get(1, TimeUnit.SECONDS);
+
+        release.countDown();
+        long deadline = System.currentTimeMillis() + 1000;
+        while (order.size() < 3 && System.currentTimeMillis() < deadline) Thread.sleep(5);
+        assertEquals(List.of("stop", "reconcile", "tick"), order);
+    }
+
+    @Test
+    void strategyWorkCountsAgainstTheStrategyLane() throws Exception {
+        actors.command("1:A", "start", () -> { }).get(1, TimeUnit.SECONDS);
+        CountDownLatch running = new CountDownLatch(1);
+        actors.tick("1:A", () -> {
+            running.countDown();
+            await(release);
+        });
+        assertTrue(running.await(1, TimeUnit.SECONDS));
+        assertTrue(lanes.isSaturated(ExecutionLane.STRATEGY), "расчёт стратегии занимает поток полосы");
+        release.countDown();
+    }
+
+    @Test
+    void saturatedTradingLaneShedsTicksButNotCommands() throws Exception {
+        actors.command("1:A", "start", () -> { }).get(1, TimeUnit.SECONDS);
+        // оба потока TRADING заняты — полоса STRATEGY уступает
+        CountDownLatch busy = new CountDownLatch(2);
+        for (int i = 0; i < 2; i++) {
+            lanes.submit(ExecutionLane.TRADING, "busy", () -> {
+                busy.countDown();
+                await(release);
+            });
+        }
+        assertTrue(busy.await(1, TimeUnit.SECONDS));
+
+        AtomicInteger ticks = new AtomicInteger();
+        assertTrue(actors.tick("1:A", ticks::incrementAndGet));
+        var reconcile = actors.command("1:A", "reconcile", () -> { });
+        Thread.sleep(150);
+        assertFalse(reconcile.isDone());
+
+        release.countDown();
+        reconcile.get(1, TimeUnit.SECONDS);
+        assertEquals(0, ticks.get(), "сброшенный тик не исполняется позже");
+    }
+
+    @Test
+    void retiredActorIsRemovedOnceIdle() throws Exception {
+        actors.command("1:A", "start", () -> { }).get(1, TimeUnit.SECONDS);
+        actors.command("1:A", "stop", ExecutionLane.TRADING, () -> { }).get(1, TimeUnit.SECONDS);
+        actors.retire("1:A");
+        long deadline = System.currentTimeMillis() + 1000;
+        while (actors.size() > 0 && System.currentTimeMillis() < deadline) Thread.sleep(5);
+        assertEquals(0, actors.size());
+        assertFalse(actors.send("1:A", "trigger", ExecutionLane.TRADING, () -> { }));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void set(Object target, String field, Object value) throws Exception {
+        Field f = target.getClass().getDeclaredField(field);
+        f.setAccessible(true);
+        f.set(target, value);
+    }
+
+    private static void invoke(Object target, String method) throws Exception {
+        Method m = target.getClass().getDeclaredMethod(method);
+        m.setAccessible(true);
+        m.invoke(target);
+    }
+}
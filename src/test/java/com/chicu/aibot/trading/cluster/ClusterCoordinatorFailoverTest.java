@@ -0,0 +1,167 @@
+package com.chicu.aibot.trading.cluster;
+
+import com.chicu.aibot.trading.cluster.impl.ClusterCoordinatorImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Переезд назначений между узлами на настоящем Postgres: аренды держатся на now() базы,
+ * поэтому тесты идут без общей транзакции — иначе время внутри неё стоит на месте.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+class ClusterCoordinatorFailoverTest {
+
+    private static final long TTL_MS = 1000;
+    private static final String STRATEGY = "FIBONACCI_GRID";
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private StrategyLeaseRepository leaseRepo;
+
+    private final List<Object> eventsA = new CopyOnWriteArrayList<>();
+    private final List<Object> eventsB = new CopyOnWriteArrayList<>();
+    private ClusterCoordinatorImpl nodeA;
+    private ClusterCoordinatorImpl nodeB;
+
+    @BeforeEach
+    void setUp() {
+        leaseRepo.deleteAllInBatch();
+        nodeA = node("node-a", eventsA);
+        nodeB = node("node-b", eventsB);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(nodeA, "shutdown");
+        ReflectionTestUtils.invokeMethod(nodeB, "shutdown");
+    }
+
+    @Test
+    void leaseIsExclusiveWhileOwnerHeartbeats() throws Exception {
+        assertTrue(nodeA.tryAcquire(1L, STRATEGY));
+        assertFalse(nodeB.tryAcquire(1L, STRATEGY));
+
+        // владелец продлевает аренду дольше TTL — второй узел её не получает
+        for (int i = 0; i < 3; i++) {
+            Thread.sleep(TTL_MS / 2);
+            heartbeat(nodeA);
+        }
+        assertFalse(nodeB.tryAcquire(1L, STRATEGY));
+        assertTrue(nodeA.owns(1L, STRATEGY));
+        assertFalse(nodeB.owns(1L, STRATEGY));
+    }
+
+    @Test
+    void survivorTakesOverAfterOwnerStopsHeartbeating() throws Exception {
+        assertTrue(nodeA.tryAcquire(1L, STRATEGY));
+
+        // узел A «упал»: heartbeat больше не идёт, аренда истекает по TTL
+        Thread.sleep(TTL_MS + 500);
+        heartbeat(nodeB);
+        assertTrue(lastHeartbeat(eventsB).liveKeys().isEmpty(), "просроченная аренда не считается живой");
+
+        assertTrue(nodeB.tryAcquire(1L, STRATEGY));
+        assertTrue(nodeB.owns(1L, STRATEGY));
+        assertFalse(nodeA.owns(1L, STRATEGY));
+
+        // A очнулся после паузы: его heartbeat уже не продлевает чужую аренду
+        heartbeat(nodeA);
+        assertFalse(lastHeartbeat(eventsA).ownedKeys().contains(key(1L)));
+        assertTrue(lastHeartbeat(eventsA).liveKeys().contains(key(1L)));
+        assertFalse(nodeA.tryAcquire(1L, STRATEGY));
+    }
+
+    @Test
+    void releasedLeaseIsTakenImmediately() {
+        assertTrue(nodeA.tryAcquire(1L, STRATEGY));
+        nodeA.release(1L, STRATEGY);
+
+        assertTrue(nodeB.tryAcquire(1L, STRATEGY));
+        // чужую аренду release не снимает
+        nodeA.release(1L, STRATEGY);
+        assertTrue(nodeB.owns(1L, STRATEGY));
+    }
+
+    @Test
+    void keyAcquiredAfterHeartbeatSnapshotIsStillOwned() {
+        heartbeat(nodeA);
+        ClusterHeartbeatEvent snapshot = lastHeartbeat(eventsA);
+
+        // захват между выборкой heartbeat и сверкой планировщика
+        assertTrue(nodeA.tryAcquire(2L, STRATEGY));
+        assertFalse(snapshot.ownedKeys().contains(key(2L)));
+        assertTrue(nodeA.owns(2L, STRATEGY), "свежая проверка видит захват, сделанный после снимка");
+    }
+
+    @Test
+    void shutdownReleasesAllLeases() {
+        assertTrue(nodeA.tryAcquire(1L, STRATEGY));
+        assertTrue(nodeA.tryAcquire(2L, STRATEGY));
+
+        ReflectionTestUtils.invokeMethod(nodeA, "shutdown");
+
+        assertTrue(nodeB.tryAcquire(1L, STRATEGY));
+        assertTrue(nodeB.tryAcquire(2L, STRATEGY));
+    }
+
+    @Test
+    void pollerLeadershipMovesToSurvivor() throws Exception {
+        assertTrue(nodeA.isPollerLeader());
+        assertFalse(nodeB.isPollerLeader());
+
+        Thread.sleep(TTL_MS + 500);
+        heartbeat(nodeB);
+        assertTrue(nodeB.isPollerLeader());
+        assertTrue(eventsB.stream().anyMatch(e -> e instanceof PollerLeadershipChangedEvent p && p.leader()));
+    }
+
+    /* ================= helpers ================= */
+
+    private ClusterCoordinatorImpl node(String id, List<Object> events) {
+        ClusterCoordinatorImpl node = new ClusterCoordinatorImpl(leaseRepo, events::add);
+        ReflectionTestUtils.setField(node, "enabled", true);
+        ReflectionTestUtils.setField(node, "configuredNodeId", id);
+        // фоновый heartbeat не нужен — тест шагает им сам
+        ReflectionTestUtils.setField(node, "heartbeatMs", 3_600_000L);
+        ReflectionTestUtils.setField(node, "leaseTtlMs", TTL_MS);
+        ReflectionTestUtils.invokeMethod(node, "init");
+        return node;
+    }
+
+    private static void heartbeat(ClusterCoordinatorImpl node) {
+        ReflectionTestUtils.invokeMethod(node, "heartbeat", true);
+    }
+
+    private static ClusterHeartbeatEvent lastHeartbeat(List<Object> events) {
+        for (int i = events.size() - 1; i >= 0; i--) {
+            if (events.get(i) instanceof ClusterHeartbeatEvent e) return e;
+        }
+        return fail("heartbeat не публиковался");
+    }
+
+    private static String key(Long chatId) {
+        return chatId + ":" + STRATEGY;
+    }
+}
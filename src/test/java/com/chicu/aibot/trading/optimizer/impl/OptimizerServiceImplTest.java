@@ -0,0 +1,64 @@
+package com.chicu.aibot.trading.optimizer.impl;
+
+import com.chicu.aibot.strategy.StrategyType;
+import com.chicu.aibot.trading.optimizer.OptimizationRequest;
+import com.chicu.aibot.trading.optimizer.OptimizationResult;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OptimizerServiceImplTest {
+
+    /** Без стратегий подбор падает сразу — самый быстрый прогон, какой бывает. */
+    private final OptimizerServiceImpl service = new OptimizerServiceImpl(null, null, List.of(), 1000);
+
+    @Test
+    void instantJobsDoNotBreakTheRunningMap() {
+        for (int i = 0; i < 1000; i++) {
+            OptimizationResult r = service.submit(request()).join();
+            assertNotNull(r.getError());
+        }
+        awaitIdle();
+    }
+
+    @Test
+    void secondSubmitWhileRunningReturnsTheSameJob() {
+        CompletableFuture<OptimizationResult> first = service.submit(request());
+        CompletableFuture<OptimizationResult> second = service.submit(request());
+        // второй вызов либо застал первый, либо пришёл после его завершения
+        assertTrue(first == second || first.isDone());
+        second.join();
+        awaitIdle();
+    }
+
+    @Test
+    void rejectedJobFailsAndFreesTheKey() throws Exception {
+        Method shutdown = OptimizerServiceImpl.class.getDeclaredMethod("shutdown");
+        shutdown.setAccessible(true);
+        shutdown.invoke(service);
+
+        CompletableFuture<OptimizationResult> job = service.submit(request());
+        CompletionException e = assertThrows(CompletionException.class, job::join);
+        assertInstanceOf(RejectedExecutionException.class, e.getCause());
+        assertFalse(service.isRunning(1L, StrategyType.BOLLINGER_BANDS));
+    }
+
+    private static OptimizationRequest request() {
+        return OptimizationRequest.builder().chatId(1L).type(StrategyType.BOLLINGER_BANDS).build();
+    }
+
+    /** Ключ снимается в whenComplete, который может отработать чуть позже join() в этом потоке. */
+    private void awaitIdle() {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (service.isRunning(1L, StrategyType.BOLLINGER_BANDS) && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertFalse(service.isRunning(1L, StrategyType.BOLLINGER_BANDS));
+    }
+}
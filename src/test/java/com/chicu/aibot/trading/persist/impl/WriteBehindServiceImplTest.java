@@ -0,0 +1,353 @@
+package com.chicu.aibot.trading.persist.impl;
+
+import com.chicu.aibot.exchange.order.model.ExchangeOrderEntity;
+import com.chicu.aibot.exchange.order.model.OrderEventConflictEvent;
+import com.chicu.aibot.exchange.order.model.OrderEventEntity;
+import com.chicu.aibot.exchange.order.model.OrderEventType;
+import com.chicu.aibot.exchange.order.repository.ExchangeOrderRepository;
+import com.chicu.aibot.exchange.order.repository.OrderEventRepository;
+import com.chicu.aibot.exchange.order.service.OpenOrderIndex;
+import com.chicu.aibot.trading.pnl.impl.PnlDailyStore;
+import com.chicu.aibot.trading.trade.TradeLogEntity;
+import com.chicu.aibot.trading.trade.TradeLogRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiFunction;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Отложенная запись без Postgres: вместо БД — транзакция в памяти (что записано в ней, становится
+ * видно только после commit), вместо репозиториев и EntityManager — прокси, которые запоминают вызовы.
+ */
+class WriteBehindServiceImplTest {
+
+    private static final Instant T0 = Instant.parse("2024-03-05T10:00:00Z");
+
+    @TempDir
+    Path dir;
+
+    private final Db db = new Db();
+    private final List<Object> published = new CopyOnWriteArrayList<>();
+    private final List<WriteBehindServiceImpl> started = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (WriteBehindServiceImpl s : started) invoke(s, "shutdown");
+    }
+
+    @Test
+    void batchCollapsesChangesOfOneOrder() throws Exception {
+        WriteBehindServiceImpl writes = start(7, 2000, 100);
+
+        writes.insertOrder(order(1L, "NEW"));
+        writes.updateOrder(order(1L, "FILLED"));
+        writes.insertOrder(order(2L, "NEW"));
+        writes.deleteOrder(order(2L, "NEW"));
+        writes.updateOrder(order(3L, "CANCELED"));
+        writes.insertTrade(trade(10L, "5"));
+        writes.insertTrade(trade(11L, "-2"));
+        assertTrue(writes.flush(5000));
+
+        // insert + update → один insert с последним состоянием, insert + delete → ничего
+        assertEquals(List.of("persist order 1 FILLED", "merge order 3 CANCELED", "persist trade 10",
+                "persist trade 11", "pnl_daily 42 BTCUSDT trades=2 wins=1 losses=1 pnl=3"), db.committed);
+        assertEquals(List.of(List.of(3L)), db.loaded, "строки для update — одним select");
+        assertTrue(db.deleted.isEmpty());
+        assertTrue(writes.overlayOrders(List::of, e -> true).isEmpty());
+        assertTrue(writes.pendingTrades().isEmpty());
+    }
+
+    @Test
+    void spoolIsReplayedInOrderAfterRestart() throws Exception {
+        // БД лежит: первое изменение застревает в повторах, два — в очереди, остальное — в spool
+        db.down = true;
+        WriteBehindServiceImpl first = start(1, 50, 2);
+        for (long id = 1; id <= 6; id++) first.insertOrder(order(id, "NEW"));
+        assertFalse(first.flush(100));
+
+        // остановка не дождалась БД: очередь — в head.jsonl
+        invoke(first, "shutdown");
+        started.remove(first);
+        assertTrue(Files.exists(dir.resolve("head.jsonl")));
+        assertTrue(Files.exists(dir.resolve("spool.jsonl")));
+        assertTrue(db.committed.isEmpty());
+
+        // новый запуск: незаписанное видно чтениям ещё до записи
+        WriteBehindServiceImpl second = start(200, 50, 100);
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L), ids(second.overlayOrders(List::of, e -> true)));
+
+        db.down = false;
+        assertTrue(second.flush(5000));
+        assertEquals(List.of("persist order 1 NEW", "persist order 2 NEW", "persist order 3 NEW",
+                "persist order 4 NEW", "persist order 5 NEW", "persist order 6 NEW"), db.committed);
+        await(() -> second.pending() == 0 && !(boolean) get(second, "spilling"));
+        assertFalse(Files.exists(dir.resolve("head.jsonl")));
+        assertFalse(Files.exists(dir.resolve("replay.jsonl")));
+        assertTrue(second.overlayOrders(List::of, e -> true).isEmpty());
+
+        // файл разобран — новое снова идёт через очередь, мимо spool
+        second.insertOrder(order(7L, "NEW"));
+        assertTrue(second.flush(5000));
+        assertEquals("persist order 7 NEW", db.committed.getLast());
+        assertFalse(Files.exists(dir.resolve("spool.jsonl")));
+    }
+
+    @Test
+    void seqConflictIsPublishedAndBadRowGoesToDeadLetters() throws Exception {
+        WriteBehindServiceImpl writes = start(4, 2000, 100);
+        db.failure = e -> {
+            if (e instanceof OrderEventEntity ev && ev.getId() == 21L) {
+                return new DataIntegrityViolationException("duplicate", new SQLException(
+                        "duplicate key value violates unique constraint \"order_events_order_seq_idx\"", "23505"));
+            }
+            if (e instanceof ExchangeOrderEntity o && o.getId() == 2L) {
+                return new DataIntegrityViolationException("too long", new SQLException("value too long", "22001"));
+            }
+            return null;
+        };
+
+        OrderEventEntity conflicting = event(21L, 1L, 2);
+        writes.insertOrder(order(1L, "NEW"));
+        writes.insertEvent(conflicting);
+        writes.insertOrder(order(2L, "NEW"));
+        writes.insertEvent(event(22L, 1L, 3));
+        assertTrue(writes.flush(5000));
+
+        // пачка не прошла и записана по одному: соседи плохих записей не теряются
+        assertEquals(List.of("persist order 1 NEW", "persist event 22"), db.committed);
+        assertEquals(1, published.size());
+        OrderEventConflictEvent conflict = assertInstanceOf(OrderEventConflictEvent.class, published.getFirst());
+        assertSame(conflicting, conflict.event());
+
+        List<String> dead = Files.readAllLines(dir.resolve("dead.jsonl"));
+        assertEquals(1, dead.size(), "в dead.jsonl только ордер с ошибкой данных, конфликт seq туда не идёт");
+        assertTrue(dead.getFirst().contains("INSERT_ORDER"));
+        assertTrue(writes.pendingEvents().isEmpty());
+        assertTrue(writes.overlayOrders(List::of, e -> true).isEmpty());
+    }
+
+    @Test
+    void failedBatchLeavesNoPnlRows() throws Exception {
+        WriteBehindServiceImpl writes = start(2, 2000, 100);
+        db.failure = e -> e instanceof TradeLogEntity t && t.getId() == 11L
+                ? new DataIntegrityViolationException("bad", new SQLException("bad", "22003")) : null;
+
+        writes.insertTrade(trade(10L, "5"));
+        writes.insertTrade(trade(11L, "-2"));
+        assertTrue(writes.flush(5000));
+
+        // агрегат в одной транзакции со сделкой: откат пачки откатил и его
+        assertEquals(List.of("persist trade 10", "pnl_daily 42 BTCUSDT trades=1 wins=1 losses=0 pnl=5"), db.committed);
+    }
+
+    /* ================= helpers ================= */
+
+    private WriteBehindServiceImpl start(int batchSize, long flushMs, int capacity) throws Exception {
+        WriteBehindServiceImpl s = new WriteBehindServiceImpl(
+                db.orders(), db.trades(), db.events(), new PnlDailyStore(db.jdbc()), null,
+                new StaticListableBeanFactory().getBeanProvider(OpenOrderIndex.class),
+                Jackson2ObjectMapperBuilder.json().build(), new SimpleMeterRegistry(), db, published::add);
+        set(s, "em", db.entityManager());
+        set(s, "capacity", capacity);
+        set(s, "batchSize", batchSize);
+        set(s, "flushMs", flushMs);
+        set(s, "retryMaxMs", 100L);
+        set(s, "shutdownMs", 300L);
+        set(s, "spoolDir", dir.toString());
+        invoke(s, "init");
+        started.add(s);
+        return s;
+    }
+
+    private static ExchangeOrderEntity order(Long id, String status) {
+        return ExchangeOrderEntity.builder()
+                .id(id)
+                .chatId(42L)
+                .symbol("BTCUSDT")
+                .side("BUY")
+                .type("LIMIT")
+                .status(status)
+                .price(new BigDecimal("100"))
+                .quantity(BigDecimal.ONE)
+                .createdAt(T0)
+                .build();
+    }
+
+    private static OrderEventEntity event(Long id, Long orderKey, int seq) {
+        return OrderEventEntity.builder()
+                .id(id)
+                .orderKey(orderKey)
+                .seq(seq)
+                .type(OrderEventType.ACK)
+                .at(T0)
+                .chatId(42L)
+                .build();
+    }
+
+    private static TradeLogEntity trade(Long id, String pnl) {
+        return TradeLogEntity.builder()
+                .id(id)
+                .chatId(42L)
+                .symbol("BTCUSDT")
+                .strategy("FIBONACCI_GRID")
+                .closeTime(T0)
+                .pnl(new BigDecimal(pnl))
+                .build();
+    }
+
+    private static List<Long> ids(List<ExchangeOrderEntity> orders) {
+        return orders.stream().map(ExchangeOrderEntity::getId).sorted().toList();
+    }
+
+    private static void await(BooleanSupplier done) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!done.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "не дождались");
+            Thread.sleep(10);
+        }
+    }
+
+    private static Object get(Object target, String field) {
+        try {
+            Field f = target.getClass().getDeclaredField(field);
+            f.setAccessible(true);
+            return f.get(target);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void set(Object target, String field, Object value) throws Exception {
+        Field f = target.getClass().getDeclaredField(field);
+        f.setAccessible(true);
+        f.set(target, value);
+    }
+
+    private static void invoke(Object target, String method) throws Exception {
+        Method m = target.getClass().getDeclaredMethod(method);
+        m.setAccessible(true);
+        m.invoke(target);
+    }
+
+    /**
+     * БД в памяти. Записи транзакции копятся в staged и попадают в committed только при commit;
+     * обращается к ней один поток записи.
+     */
+    private static final class Db implements PlatformTransactionManager {
+        final List<String> committed = new CopyOnWriteArrayList<>();
+        final List<List<Long>> loaded = new CopyOnWriteArrayList<>();
+        final List<Object> deleted = new CopyOnWriteArrayList<>();
+        private final List<String> staged = new ArrayList<>();
+        volatile boolean down;
+        volatile Function<Object, RuntimeException> failure = e -> null;
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            if (down) throw new CannotCreateTransactionException("нет связи с БД");
+            staged.clear();
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+            committed.addAll(staged);
+            staged.clear();
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+            staged.clear();
+        }
+
+        EntityManager entityManager() {
+            return proxy(EntityManager.class, (m, a) -> {
+                RuntimeException fail = failure.apply(a[0]);
+                if (fail != null) throw fail;
+                staged.add(m.getName() + " " + describe(a[0]));
+                return m.getName().equals("merge") ? a[0] : null;
+            });
+        }
+
+        @SuppressWarnings("unchecked")
+        ExchangeOrderRepository orders() {
+            return proxy(ExchangeOrderRepository.class, (m, a) -> switch (m.getName()) {
+                case "findAllById" -> {
+                    loaded.add(List.copyOf((List<Long>) a[0]));
+                    yield List.of();
+                }
+                case "existsById" -> false;
+                case "deleteAllByIdInBatch" -> deleted.add(a[0]);
+                default -> throw new UnsupportedOperationException(m.getName());
+            });
+        }
+
+        TradeLogRepository trades() {
+            return proxy(TradeLogRepository.class, (m, a) -> false);
+        }
+
+        OrderEventRepository events() {
+            return proxy(OrderEventRepository.class, (m, a) -> false);
+        }
+
+        JdbcTemplate jdbc() {
+            return new JdbcTemplate() {
+                @Override
+                public int[] batchUpdate(String sql, List<Object[]> args) {
+                    for (Object[] r : args) {
+                        staged.add("pnl_daily " + r[0] + " " + r[1] + " trades=" + r[5] + " wins=" + r[6]
+                                + " losses=" + r[7] + " pnl=" + r[4]);
+                    }
+                    return new int[args.size()];
+                }
+            };
+        }
+
+        private static String describe(Object e) {
+            if (e instanceof ExchangeOrderEntity o) return "order " + o.getId() + " " + o.getStatus();
+            if (e instanceof TradeLogEntity t) return "trade " + t.getId();
+            if (e instanceof OrderEventEntity ev) return "event " + ev.getId();
+            return String.valueOf(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, BiFunction<Method, Object[], Object> body) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (p, m, a) -> {
+            if (m.getDeclaringClass() == Object.class) {
+                return switch (m.getName()) {
+                    case "equals" -> p == a[0];
+                    case "hashCode" -> System.identityHashCode(p);
+                    default -> type.getSimpleName();
+                };
+            }
+            return body.apply(m, a);
+        });
+    }
+}
@@ -0,0 +1,215 @@
+package com.chicu.aibot.trading.pnl.impl;
+
+import com.chicu.aibot.trading.persist.WriteBehindService;
+import com.chicu.aibot.trading.pnl.PnlStats;
+import com.chicu.aibot.trading.trade.TradeLogEntity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.chicu.aibot.trading.pnl.impl.PnlDailyStoreTest.trade;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Агрегаты PnL в памяти: подъём из pnl_daily плюс досчёт незаписанных сделок — при старте
+ * и при захвате стратегии другим узлом. pnl_daily — подмена с заготовленными строками.
+ */
+class PnlAggregateServiceImplTest {
+
+    private static final LocalDate TODAY = LocalDate.now(ZoneOffset.UTC);
+    private static final Instant NOW = TODAY.atTime(12, 0).toInstant(ZoneOffset.UTC);
+
+    private final List<PnlDailyStore.Row> totals = new ArrayList<>();
+    private final List<PnlDailyStore.Row> days = new ArrayList<>();
+    private final Set<Long> persisted = new HashSet<>();
+    private final List<TradeLogEntity> pending = new ArrayList<>();
+    private final List<String> transactions = new ArrayList<>();
+    private final List<LocalDate> storeDays = new ArrayList<>();
+
+    private final PnlDailyStore store = new PnlDailyStore(null) {
+        @Override
+        List<Row> totals() {
+            return totals;
+        }
+
+        @Override
+        List<Row> daysSince(LocalDate from) {
+            return days.stream().filter(r -> !r.key().day().isBefore(from)).toList();
+        }
+
+        @Override
+        List<Row> totals(Long chatId, String strategy) {
+            return totals.stream().filter(r -> r.key().chatId().equals(chatId) && r.key().strategy().equals(strategy)).toList();
+        }
+
+        @Override
+        List<Row> daysSince(Long chatId, String strategy, LocalDate from) {
+            return daysSince(from).stream()
+                    .filter(r -> r.key().chatId().equals(chatId) && r.key().strategy().equals(strategy)).toList();
+        }
+
+        @Override
+        PnlStats day(Long chatId, String symbol, LocalDate day) {
+            storeDays.add(day);
+            return stats("100", 9);
+        }
+
+        @Override
+        Set<Long> persistedTradeIds(List<Long> ids) {
+            return Set.copyOf(ids.stream().filter(persisted::contains).toList());
+        }
+    };
+
+    @Test
+    void startLoadsPnlDailyAndReplaysUnwrittenTrades() throws Exception {
+        row(42L, "GRID", TODAY, stats("10", 4));
+        row(42L, "GRID", TODAY.minusDays(200), stats("-3", 2));
+        // сделка 1 уже в trade_logs (и в pnl_daily), сделка 2 ещё в очереди записи
+        pending.add(withId(1L, trade(42L, "GRID", NOW, "5", "1", "100")));
+        pending.add(withId(2L, trade(42L, "GRID", NOW, "-1", "1", "100")));
+        persisted.add(1L);
+
+        PnlAggregateServiceImpl pnl = start();
+
+        assertEquals(List.of("readOnly REPEATABLE_READ"), transactions, "БД читается одним снимком");
+        assertStats("6", 7, pnl.total(42L, "BTCUSDT"));
+        assertStats("6", 7, pnl.total(42L, "BTCUSDT", "GRID"));
+        assertStats("9", 5, pnl.day(42L, "BTCUSDT", TODAY));
+        assertStats("0", 0, pnl.total(42L, "BTCUSDT", "DCA"));
+    }
+
+    @Test
+    void recordUpdatesTotalAndDay() throws Exception {
+        PnlAggregateServiceImpl pnl = start();
+
+        pnl.record(trade(42L, "GRID", NOW, "4", "1", "100"));
+        pnl.record(trade(42L, null, NOW, "-1", "1", "100"));
+        pnl.record(trade(null, "GRID", NOW, "100", "1", "100"));
+
+        assertStats("3", 2, pnl.total(42L, "BTCUSDT"));
+        assertStats("4", 1, pnl.total(42L, "BTCUSDT", "GRID"));
+        assertStats("-1", 1, pnl.total(42L, "BTCUSDT", null));
+        assertStats("3", 2, pnl.day(42L, "BTCUSDT", TODAY));
+    }
+
+    @Test
+    void daysOutsideMemoryWindowAreReadFromPnlDaily() throws Exception {
+        PnlAggregateServiceImpl pnl = start();
+
+        assertStats("100", 9, pnl.day(42L, "BTCUSDT", TODAY.minusDays(30)));
+        assertStats("0", 0, pnl.day(42L, "BTCUSDT", TODAY.minusDays(6)));
+        assertEquals(List.of(TODAY.minusDays(30)), storeDays);
+    }
+
+    @Test
+    void reloadReplacesOnlyThatStrategyOfThatChat() throws Exception {
+        row(42L, "GRID", TODAY, stats("10", 4));
+        row(42L, "DCA", TODAY, stats("1", 1));
+        row(7L, "GRID", TODAY, stats("2", 1));
+        PnlAggregateServiceImpl pnl = start();
+
+        // стратегия работала на другом узле: в pnl_daily уже больше, часть сделок ещё в очереди
+        totals.clear();
+        days.clear();
+        row(42L, "GRID", TODAY, stats("25", 8));
+        row(42L, "DCA", TODAY, stats("50", 50));
+        row(7L, "GRID", TODAY, stats("50", 50));
+        pending.add(withId(5L, trade(42L, "GRID", NOW, "3", "1", "100")));
+        pending.add(withId(6L, trade(42L, "GRID", NOW, "7", "1", "100")));
+        pending.add(withId(8L, trade(7L, "GRID", NOW, "7", "1", "100")));
+        persisted.add(6L);
+        transactions.clear();
+
+        pnl.reload(42L, "GRID");
+
+        assertEquals(List.of("readOnly REPEATABLE_READ"), transactions);
+        assertStats("28", 9, pnl.total(42L, "BTCUSDT", "GRID"));
+        assertStats("1", 1, pnl.total(42L, "BTCUSDT", "DCA"));
+        assertStats("2", 1, pnl.total(7L, "BTCUSDT", "GRID"));
+        assertStats("29", 10, pnl.day(42L, "BTCUSDT", TODAY));
+    }
+
+    /* ================= helpers ================= */
+
+    private PnlAggregateServiceImpl start() throws Exception {
+        WriteBehindService writes = (WriteBehindService) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{WriteBehindService.class}, (p, m, a) -> {
+                    if (m.getName().equals("pendingTrades")) return List.copyOf(pending);
+                    throw new AssertionError("неожиданный вызов " + m.getName());
+                });
+        PlatformTransactionManager tx = new PlatformTransactionManager() {
+            @Override
+            public TransactionStatus getTransaction(TransactionDefinition d) {
+                transactions.add((d.isReadOnly() ? "readOnly " : "")
+                        + (d.getIsolationLevel() == TransactionDefinition.ISOLATION_REPEATABLE_READ ? "REPEATABLE_READ" : "DEFAULT"));
+                return new SimpleTransactionStatus();
+            }
+
+            @Override
+            public void commit(TransactionStatus status) { }
+
+            @Override
+            public void rollback(TransactionStatus status) { }
+        };
+        PnlAggregateServiceImpl pnl = new PnlAggregateServiceImpl(store, writes, tx, new SimpleMeterRegistry());
+        set(pnl, "memoryDays", 7);
+        invoke(pnl, "init");
+        return pnl;
+    }
+
+    /** Строка pnl_daily за день — и в итоги за всё время, сгруппированные как в SQL. */
+    private void row(Long chatId, String strategy, LocalDate day, PnlStats s) {
+        days.add(new PnlDailyStore.Row(new PnlDailyStore.Key(chatId, "BTCUSDT", strategy, day), s));
+        PnlDailyStore.Key total = new PnlDailyStore.Key(chatId, "BTCUSDT", strategy, null);
+        PnlStats sum = s;
+        for (var it = totals.iterator(); it.hasNext(); ) {
+            PnlDailyStore.Row r = it.next();
+            if (r.key().equals(total)) {
+                sum = sum.plus(r.stats());
+                it.remove();
+            }
+        }
+        totals.add(new PnlDailyStore.Row(total, sum));
+    }
+
+    private static PnlStats stats(String pnl, long trades) {
+        return new PnlStats(new BigDecimal(pnl), trades, 0, 0, BigDecimal.ZERO);
+    }
+
+    private static TradeLogEntity withId(Long id, TradeLogEntity t) {
+        t.setId(id);
+        return t;
+    }
+
+    private static void assertStats(String pnl, long trades, PnlStats actual) {
+        assertEquals(0, new BigDecimal(pnl).compareTo(actual.realizedPnl()), () -> "pnl " + actual);
+        assertEquals(trades, actual.trades(), () -> "trades " + actual);
+    }
+
+    private static void set(Object target, String field, Object value) throws Exception {
+        Field f = target.getClass().getDeclaredField(field);
+        f.setAccessible(true);
+        f.set(target, value);
+    }
+
+    private static void invoke(Object target, String method) throws Exception {
+        Method m = target.getClass().getDeclaredMethod(method);
+        m.setAccessible(true);
+        m.invoke(target);
+    }
+}
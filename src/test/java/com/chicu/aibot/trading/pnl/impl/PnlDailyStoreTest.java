@@ -0,0 +1,66 @@
+package com.chicu.aibot.trading.pnl.impl;
+
+import com.chicu.aibot.trading.trade.TradeLogEntity;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Пачка сделок сворачивается в одну строку upsert на чат+символ+стратегию+день. */
+class PnlDailyStoreTest {
+
+    private static final Instant T0 = Instant.parse("2024-03-05T10:00:00Z");
+
+    private final List<String> rows = new ArrayList<>();
+    private final PnlDailyStore store = new PnlDailyStore(new JdbcTemplate() {
+        @Override
+        public int[] batchUpdate(String sql, List<Object[]> args) {
+            assertTrue(sql.contains("ON CONFLICT (chat_id, symbol, strategy, day) DO UPDATE"));
+            args.forEach(a -> rows.add(Arrays.toString(a)));
+            return new int[args.size()];
+        }
+    });
+
+    @Test
+    void batchIsSummedPerStrategyAndDay() {
+        store.add(List.of(
+                trade(42L, "GRID", T0, "5", "2", "100"),
+                trade(42L, "GRID", T0.plusSeconds(3600), "-2", "1", "110"),
+                // полночь UTC — уже следующий день
+                trade(42L, "GRID", Instant.parse("2024-03-06T00:00:00Z"), "1", "1", "100"),
+                trade(42L, null, T0, "0", "1", "100"),
+                trade(null, "GRID", T0, "7", "1", "100")));
+
+        assertEquals(List.of(
+                "[42, BTCUSDT, GRID, 2024-03-05, 3, 2, 1, 1, 310]",
+                "[42, BTCUSDT, GRID, 2024-03-06, 1, 1, 1, 0, 100]",
+                "[42, BTCUSDT, , 2024-03-05, 0, 1, 0, 0, 100]"), rows);
+    }
+
+    @Test
+    void emptyBatchWritesNothing() {
+        store.add(List.of(trade(null, "GRID", T0, "1", "1", "100")));
+        store.add(List.of());
+        assertTrue(rows.isEmpty());
+    }
+
+    /* ================= helpers ================= */
+
+    static TradeLogEntity trade(Long chatId, String strategy, Instant close, String pnl, String volume, String price) {
+        return TradeLogEntity.builder()
+                .chatId(chatId)
+                .symbol("BTCUSDT")
+                .strategy(strategy)
+                .closeTime(close)
+                .exitPrice(new BigDecimal(price))
+                .volume(new BigDecimal(volume))
+                .pnl(new BigDecimal(pnl))
+                .build();
+    }
+}
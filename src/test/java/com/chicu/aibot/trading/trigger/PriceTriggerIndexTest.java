@@ -0,0 +1,73 @@
+package com.chicu.aibot.trading.trigger;
+
+import com.chicu.aibot.exchange.enums.Exchange;
+import com.chicu.aibot.exchange.enums.NetworkType;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceTriggerIndexTest {
+
+    private static final TriggerMarket MARKET = new TriggerMarket(Exchange.BINANCE, NetworkType.MAINNET, "BTCUSDT");
+
+    private final PriceTriggerIndex index = new PriceTriggerIndex();
+
+    @Test
+    void firesOnlyCrossedLevels() {
+        index.add(trigger(1, TriggerDirection.ABOVE, 105.0));
+        index.add(trigger(2, TriggerDirection.ABOVE, 110.0));
+        index.add(trigger(3, TriggerDirection.BELOW, 95.0));
+        index.add(trigger(4, TriggerDirection.BELOW, 90.0));
+
+        assertTrue(index.fire(100.0).isEmpty());
+        assertEquals(List.of(1L), ids(index.fire(106.0)));
+        assertEquals(List.of(3L, 4L), ids(index.fire(89.0)));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void levelEqualToPriceFires() {
+        index.add(trigger(1, TriggerDirection.ABOVE, 100.0));
+        index.add(trigger(2, TriggerDirection.BELOW, 100.0));
+
+        assertEquals(List.of(1L, 2L), ids(index.fire(100.0)));
+        assertTrue(index.isEmpty());
+    }
+
+    @Test
+    void levelFiresOnce() {
+        index.add(trigger(1, TriggerDirection.ABOVE, 105.0));
+
+        assertEquals(1, index.fire(120.0).size());
+        assertTrue(index.fire(130.0).isEmpty());
+    }
+
+    @Test
+    void samePriceDifferentIdsAreKeptApart() {
+        index.add(trigger(1, TriggerDirection.BELOW, 95.0));
+        index.add(trigger(2, TriggerDirection.BELOW, 95.0));
+        assertEquals(2, index.size());
+
+        assertEquals(List.of(1L, 2L), ids(index.fire(95.0)).stream().sorted().toList());
+    }
+
+    @Test
+    void removedLevelDoesNotFire() {
+        PriceTrigger t = trigger(1, TriggerDirection.ABOVE, 105.0);
+        index.add(t);
+
+        assertTrue(index.remove(t));
+        assertFalse(index.remove(t));
+        assertTrue(index.fire(200.0).isEmpty());
+    }
+
+    private static PriceTrigger trigger(long id, TriggerDirection dir, double price) {
+        return new PriceTrigger(id, "1:TEST", MARKET, dir, price, p -> { });
+    }
+
+    private static List<Long> ids(List<PriceTrigger> fired) {
+        return fired.stream().map(PriceTrigger::id).toList();
+    }
+}
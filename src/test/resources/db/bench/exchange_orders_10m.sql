@@ -0,0 +1,99 @@
+-- Замер запросов ExchangeOrderRepository на 10 млн строк: схема V1 (секции + индексы + smallint)
+-- против прежней (одна таблица, varchar, только PK).
+--
+-- Только на пустой scratch-БД: после запуска приложения или `flyway migrate` (нужна схема V1).
+--   psql -d aibot_bench -f exchange_orders_10m.sql > bench_output.txt
+-- Данные: 24 месяца, 2 000 чатов, 50 символов, ~0.5% открытых (NEW / PARTIALLY_FILLED).
+--
+-- Результаты: пока не замерялись — в среде разработки нет Postgres. Цифры из bench_output.txt
+-- (время каждого запроса по обеим схемам, \timing) дописываются сюда вместе с версией Postgres и железом.
+-- После V2 запрос 3 идёт по индексу (chat_id, order_id): индекс бизнес-ключа из V1 удалён.
+
+\set ON_ERROR_STOP on
+\timing on
+
+SELECT exchange_orders_ensure_partitions((date_trunc('month', now()) - interval '23 months')::date, 26);
+
+INSERT INTO exchange_orders (id, chat_id, exchange, network, order_id, order_list_id, symbol,
+                             side, type, status, price, quantity, executed_qty,
+                             created_at, updated_at)
+SELECT g,
+       1 + g % 2000,
+       'BINANCE',
+       'MAINNET',
+       'O' || g,
+       CASE WHEN g % 97 = 0 THEN 'L' || (g / 97) END,
+       'SYM' || (g % 50) || 'USDT',
+       1 + (g / 2000) % 2,
+       1 + (g / 4000) % 2,
+       CASE WHEN (g / 2000) % 200 = 0 THEN 1 + (g / 400000) % 2 ELSE 3 + (g / 2000) % 4 END,
+       100 + (g % 1000) / 10.0,
+       0.01 * (1 + g % 7),
+       0,
+       now() - (interval '730 days') * (g::double precision / 10000000),
+       now() - (interval '730 days') * (g::double precision / 10000000)
+FROM generate_series(1, 10000000) g;
+
+-- прежняя схема: то же содержимое, строковые коды, без вторичных индексов
+CREATE TABLE bench_orders_legacy AS
+SELECT id, chat_id, exchange, network, order_id, order_list_id, symbol,
+       (ARRAY['BUY', 'SELL'])[side] AS side,
+       (ARRAY['LIMIT', 'MARKET'])[type] AS type,
+       (ARRAY['NEW', 'PARTIALLY_FILLED', 'FILLED', 'CANCELED', 'REJECTED', 'EXPIRED'])[status] AS status,
+       price, quantity, executed_qty, created_at, updated_at
+FROM exchange_orders;
+ALTER TABLE bench_orders_legacy ADD PRIMARY KEY (id);
+
+ANALYZE exchange_orders;
+ANALYZE bench_orders_legacy;
+
+SELECT pg_size_pretty(pg_total_relation_size('bench_orders_legacy')) AS legacy_size,
+       (SELECT pg_size_pretty(sum(pg_total_relation_size(inhrelid)))
+        FROM pg_inherits WHERE inhparent = 'exchange_orders'::regclass) AS v1_size,
+       pg_size_pretty(pg_relation_size('exchange_orders_open_idx')) AS open_idx_parent;
+
+-- как ходит JDBC после prepareThreshold: обобщённый план подготовленного запроса
+SET plan_cache_mode = force_generic_plan;
+
+-- 1. открытые ордера символа (housekeeper / ExchangeOrderDbService.findOpenByChatAndSymbol)
+PREPARE v1_open(bigint, text) AS
+    SELECT * FROM exchange_orders WHERE chat_id = $1 AND symbol = $2 AND status IN (1, 2);
+PREPARE legacy_open(bigint, text, text[]) AS
+    SELECT * FROM bench_orders_legacy WHERE chat_id = $1 AND symbol = $2 AND status = ANY ($3);
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF) EXECUTE v1_open(42, 'SYM41USDT');
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF) EXECUTE legacy_open(42, 'SYM41USDT', ARRAY['NEW', 'PARTIALLY_FILLED']);
+
+-- 2. все открытые (заполнение OpenOrderIndex)
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF) SELECT * FROM exchange_orders WHERE status IN (1, 2);
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF) SELECT * FROM bench_orders_legacy WHERE status IN ('NEW', 'PARTIALLY_FILLED');
+
+-- 3. бизнес-ключ (ExchangeOrderDbService.savePlaced)
+PREPARE v1_key(bigint, text, text, text) AS
+    SELECT * FROM exchange_orders WHERE chat_id = $1 AND exchange = $2 AND network = $3 AND order_id = $4;
+PREPARE legacy_key(bigint, text, text, text) AS
+    SELECT * FROM bench_orders_legacy WHERE chat_id = $1 AND exchange = $2 AND network = $3 AND order_id = $4;
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF) EXECUTE v1_key(1043, 'BINANCE', 'MAINNET', 'O5001042');
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF) EXECUTE legacy_key(1043, 'BINANCE', 'MAINNET', 'O5001042');
+
+-- 4. последние исполненные (findRecentFilled, limit 20)
+PREPARE v1_recent(bigint, text, smallint) AS
+    SELECT * FROM exchange_orders WHERE chat_id = $1 AND symbol = $2 AND status = $3 ORDER BY updated_at DESC LIMIT 20;
+PREPARE legacy_recent(bigint, text, text) AS
+    SELECT * FROM bench_orders_legacy WHERE chat_id = $1 AND symbol = $2 AND status = $3 ORDER BY updated_at DESC LIMIT 20;
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF) EXECUTE v1_recent(42, 'SYM41USDT', 3);
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF) EXECUTE legacy_recent(42, 'SYM41USDT', 'FILLED');
+
+-- 5. ноги защитной связки (ExitManager)
+PREPARE v1_legs(bigint, text) AS
+    SELECT * FROM exchange_orders WHERE chat_id = $1 AND order_list_id = $2;
+PREPARE legacy_legs(bigint, text) AS
+    SELECT * FROM bench_orders_legacy WHERE chat_id = $1 AND order_list_id = $2;
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF) EXECUTE v1_legs(98, 'L1');
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF) EXECUTE legacy_legs(98, 'L1');
+
+-- 6. обновление по id (write-behind merge): поиск строки во всех секциях
+PREPARE v1_by_id(bigint) AS SELECT * FROM exchange_orders WHERE id = $1;
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF) EXECUTE v1_by_id(5000000);
+
+RESET plan_cache_mode;
+DROP TABLE bench_orders_legacy;